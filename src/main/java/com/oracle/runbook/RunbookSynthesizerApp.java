@@ -1,8 +1,11 @@
 package com.oracle.runbook;
 
 import com.oracle.runbook.api.AlertResource;
+import com.oracle.runbook.api.EmbeddingCacheStatsResource;
 import com.oracle.runbook.api.HealthResource;
 import com.oracle.runbook.api.RunbookResource;
+import com.oracle.runbook.api.VectorIndexResource;
+import com.oracle.runbook.api.VectorStoreStatsResource;
 import com.oracle.runbook.api.WebhookResource;
 import com.oracle.runbook.config.RunbookConfig;
 import com.oracle.runbook.config.ServiceFactory;
@@ -58,7 +61,9 @@ public class RunbookSynthesizerApp {
     LOGGER.info(
         () -> String.format("Runbook-Synthesizer started on http://localhost:%d", server.port()));
     LOGGER.info(
-        "API endpoints: /api/v1/health, /api/v1/alerts, /api/v1/webhooks, /api/v1/runbooks");
+        "API endpoints: /api/v1/health, /api/v1/alerts, /api/v1/webhooks, /api/v1/runbooks,"
+            + " /api/v1/admin/vector-store, /api/v1/admin/vector-store/index,"
+            + " /api/v1/admin/embedding-cache");
   }
 
   /**
@@ -95,6 +100,23 @@ public class RunbookSynthesizerApp {
         LOGGER.info("Real mode enabled - using RagPipelineService with LLM provider");
         routing.register(
             "/api/v1/alerts", new AlertResource(ragPipeline, webhookDispatcher, false));
+        routing.register(
+            "/api/v1/admin/vector-store/index",
+            new VectorIndexResource(
+                serviceFactory.createVectorStoreRepository(),
+                serviceFactory.createLexicalIndex().orElse(null),
+                config.get("vectorStore.index.exportEnabled").asBoolean().orElse(false),
+                config.get("vectorStore.index.importEnabled").asBoolean().orElse(false),
+                serviceFactory.vectorIndexToken().orElse(null)));
+        routing.register(
+            "/api/v1/admin/vector-store",
+            new VectorStoreStatsResource(serviceFactory.createVectorStoreRepository()));
+        serviceFactory
+            .createQueryEmbeddingCache()
+            .ifPresent(
+                cache ->
+                    routing.register(
+                        "/api/v1/admin/embedding-cache", new EmbeddingCacheStatsResource(cache)));
       } catch (Exception e) {
         LOGGER.warning(
             "Failed to initialize real mode, falling back to stub mode: " + e.getMessage());
@@ -110,15 +132,39 @@ public class RunbookSynthesizerApp {
   /**
    * Performs runbook ingestion at application startup if configured.
    *
-   * <p>Checks the {@code runbooks.ingestOnStartup} configuration. If true, fetches runbooks from
-   * the configured S3 bucket, chunks them, generates embeddings, and stores them in the vector
-   * store.
+   * <p>If a vector store snapshot is configured ({@code vectorStore.snapshot.path}) and present, it
+   * is restored instead and ingestion is skipped, so a warm restart makes no embedding calls.
+   * Failing that, a new replica with a bootstrap source ({@code vectorStore.bootstrap.source})
+   * loads the index from a running peer or an exported file and likewise skips ingestion.
+   * Otherwise checks the {@code runbooks.ingestOnStartup} configuration. If true, fetches runbooks
+   * from the configured S3 bucket, chunks them, generates embeddings, stores them in the vector
+   * store, and writes a fresh snapshot.
    *
-   * <p>Errors during ingestion are logged but do not prevent the application from starting.
+   * <p>Errors during restore or ingestion are logged but do not prevent the application from
+   * starting.
    *
    * @param serviceFactory the service factory to use for creating ingestion service
    */
   static void performStartupIngestion(ServiceFactory serviceFactory) {
+    try {
+      if (serviceFactory.restoreVectorStoreSnapshot()) {
+        LOGGER.info("Vector store restored from snapshot, skipping runbook ingestion");
+        return;
+      }
+    } catch (Exception e) {
+      LOGGER.warning("Vector store snapshot restore failed, re-ingesting: " + e.getMessage());
+    }
+
+    try {
+      if (serviceFactory.bootstrapVectorStore()) {
+        LOGGER.info("Vector store bootstrapped, skipping runbook ingestion");
+        saveSnapshotQuietly(serviceFactory);
+        return;
+      }
+    } catch (Exception e) {
+      LOGGER.warning("Vector store bootstrap failed, re-ingesting: " + e.getMessage());
+    }
+
     RunbookConfig runbookConfig = serviceFactory.createRunbookConfig();
 
     if (!runbookConfig.ingestOnStartup()) {
@@ -137,6 +183,17 @@ public class RunbookSynthesizerApp {
       LOGGER.warning(
           "Runbook ingestion failed, continuing without runbook data: " + e.getMessage());
       LOGGER.log(java.util.logging.Level.WARNING, "Full exception:", e);
+      return;
+    }
+
+    saveSnapshotQuietly(serviceFactory);
+  }
+
+  private static void saveSnapshotQuietly(ServiceFactory serviceFactory) {
+    try {
+      serviceFactory.saveVectorStoreSnapshot();
+    } catch (Exception e) {
+      LOGGER.warning("Failed to save vector store snapshot: " + e.getMessage());
     }
   }
 }
@@ -0,0 +1,54 @@
+package com.oracle.runbook.api;
+
+import com.oracle.runbook.rag.QueryEmbeddingCache;
+import io.helidon.http.HeaderNames;
+import io.helidon.webserver.http.HttpRules;
+import io.helidon.webserver.http.HttpService;
+import io.helidon.webserver.http.ServerRequest;
+import io.helidon.webserver.http.ServerResponse;
+import jakarta.json.Json;
+import java.util.Objects;
+
+/**
+ * Admin resource providing the GET /api/v1/admin/embedding-cache endpoint.
+ *
+ * <p>Returns the {@link QueryEmbeddingCache.Stats} of the query embedding cache as JSON: hits,
+ * misses, hit rate, evictions, current size and the configured bounds.
+ */
+public class EmbeddingCacheStatsResource implements HttpService {
+
+  private final QueryEmbeddingCache cache;
+
+  /**
+   * Creates the resource.
+   *
+   * @param cache the cache to report on
+   * @throws NullPointerException if cache is null
+   */
+  public EmbeddingCacheStatsResource(QueryEmbeddingCache cache) {
+    this.cache = Objects.requireNonNull(cache, "cache cannot be null");
+  }
+
+  @Override
+  public void routing(HttpRules rules) {
+    rules.get("/", this::handleGet);
+  }
+
+  private void handleGet(ServerRequest req, ServerResponse res) {
+    res.header(HeaderNames.CONTENT_TYPE, "application/json");
+    res.send(toJson(cache.stats()));
+  }
+
+  private String toJson(QueryEmbeddingCache.Stats stats) {
+    return Json.createObjectBuilder()
+        .add("hits", stats.hits())
+        .add("misses", stats.misses())
+        .add("hitRate", stats.hitRate())
+        .add("evictions", stats.evictions())
+        .add("size", stats.size())
+        .add("maxEntries", stats.maxEntries())
+        .add("ttlSeconds", stats.ttl().toSeconds())
+        .build()
+        .toString();
+  }
+}
@@ -0,0 +1,262 @@
+package com.oracle.runbook.api;
+
+import com.oracle.runbook.api.dto.ErrorResponse;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.local.VectorIndexStream;
+import com.oracle.runbook.rag.LexicalIndex;
+import io.helidon.http.HeaderNames;
+import io.helidon.http.Status;
+import io.helidon.webserver.http.HttpRules;
+import io.helidon.webserver.http.HttpService;
+import io.helidon.webserver.http.ServerRequest;
+import io.helidon.webserver.http.ServerResponse;
+import jakarta.json.Json;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Admin resource providing the /api/v1/admin/vector-store/index endpoints, which copy the whole
+ * vector index between replicas as a {@link VectorIndexStream}.
+ *
+ * <p>GET streams the store's chunks, embeddings included, so a new replica can load them instead
+ * of fetching and embedding every runbook again. The chunks are written frame by frame as the
+ * store visits them; a store that cannot export is reported with a 501 before anything is sent.
+ *
+ * <p>POST reads such a stream and replaces the store's contents with it; the response reports the
+ * imported generation id (as 16 hex digits), chunk count and runbook count. A stream that is
+ * malformed or cut short is rejected before anything is applied. With hybrid retrieval, the
+ * keyword index is reloaded from the store after an import, so it matches the imported chunks.
+ *
+ * <p>An export hands out every runbook's text and embeddings, and an import overwrites the whole
+ * index, so each method is refused with a 403 unless it is enabled on its own. Once a token is
+ * configured, a request to either must also carry it as a bearer token, or it is refused with a
+ * 401.
+ */
+public class VectorIndexResource implements HttpService {
+
+  private static final Logger LOGGER = Logger.getLogger(VectorIndexResource.class.getName());
+  private static final String BEARER_PREFIX = "Bearer ";
+
+  private final VectorStoreRepository vectorStore;
+  private final LexicalIndex lexicalIndex;
+  private final boolean exportEnabled;
+  private final boolean importEnabled;
+  private final byte[] token;
+
+  /**
+   * Creates the resource with exports and imports disabled.
+   *
+   * @param vectorStore the store to export from
+   * @throws NullPointerException if vectorStore is null
+   */
+  public VectorIndexResource(VectorStoreRepository vectorStore) {
+    this(vectorStore, null, false, false, null);
+  }
+
+  /**
+   * Creates the resource, keeping a keyword index in step with imports.
+   *
+   * @param vectorStore the store to export from and import into
+   * @param lexicalIndex the keyword index to reload after an import, or null for none
+   * @param exportEnabled whether GET may stream out the store's contents
+   * @param importEnabled whether POST may replace the store's contents
+   * @param token the bearer token an export or import must carry, or null or blank for none
+   * @throws NullPointerException if vectorStore is null
+   */
+  public VectorIndexResource(
+      VectorStoreRepository vectorStore,
+      LexicalIndex lexicalIndex,
+      boolean exportEnabled,
+      boolean importEnabled,
+      String token) {
+    this.vectorStore = Objects.requireNonNull(vectorStore, "vectorStore cannot be null");
+    this.lexicalIndex = lexicalIndex;
+    this.exportEnabled = exportEnabled;
+    this.importEnabled = importEnabled;
+    this.token = token == null || token.isBlank() ? null : token.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void routing(HttpRules rules) {
+    rules.get("/", this::handleExport).post("/", this::handleImport);
+  }
+
+  private void handleExport(ServerRequest req, ServerResponse res) {
+    if (!exportEnabled) {
+      sendError(
+          res,
+          Status.FORBIDDEN_403,
+          "EXPORT_DISABLED",
+          "Vector index exports are disabled (vectorStore.index.exportEnabled)");
+      return;
+    }
+    if (token != null && !authorized(req)) {
+      sendError(res, Status.UNAUTHORIZED_401, "UNAUTHORIZED", "Missing or invalid index token");
+      return;
+    }
+    DeferredResponseStream out = new DeferredResponseStream(res);
+    try {
+      long generation = VectorIndexStream.export(vectorStore, out);
+      out.close();
+      LOGGER.info("Exported vector index generation " + formatGeneration(generation));
+    } catch (UnsupportedOperationException e) {
+      sendError(res, Status.NOT_IMPLEMENTED_501, "EXPORT_UNSUPPORTED", e.getMessage());
+    } catch (IOException | RuntimeException e) {
+      if (!out.opened()) {
+        LOGGER.log(Level.WARNING, "Failed to export the vector index", e);
+        sendError(
+            res, Status.SERVICE_UNAVAILABLE_503, "VECTOR_STORE_UNAVAILABLE", e.getMessage());
+        return;
+      }
+      // The status has already been sent; the receiver sees a stream without its trailer and
+      // rejects it
+      LOGGER.log(Level.WARNING, "Vector index export interrupted", e);
+      try {
+        out.close();
+      } catch (IOException closeFailure) {
+        e.addSuppressed(closeFailure);
+      }
+    }
+  }
+
+  private void handleImport(ServerRequest req, ServerResponse res) {
+    if (!importEnabled) {
+      sendError(
+          res,
+          Status.FORBIDDEN_403,
+          "IMPORT_DISABLED",
+          "Vector index imports are disabled (vectorStore.index.importEnabled)");
+      return;
+    }
+    if (token != null && !authorized(req)) {
+      sendError(res, Status.UNAUTHORIZED_401, "UNAUTHORIZED", "Missing or invalid index token");
+      return;
+    }
+    VectorIndexStream.ImportSummary summary;
+    try (InputStream in = req.content().inputStream()) {
+      summary = VectorIndexStream.importInto(in, vectorStore);
+      if (lexicalIndex != null) {
+        lexicalIndex.load(vectorStore.exportChunks());
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      LOGGER.log(Level.WARNING, "Rejected vector index import", e);
+      sendError(res, Status.BAD_REQUEST_400, "INVALID_VECTOR_INDEX", e.getMessage());
+      return;
+    } catch (RuntimeException e) {
+      LOGGER.log(Level.WARNING, "Failed to import the vector index", e);
+      sendError(
+          res, Status.SERVICE_UNAVAILABLE_503, "VECTOR_STORE_UNAVAILABLE", e.getMessage());
+      return;
+    }
+
+    LOGGER.info(
+        "Imported vector index generation "
+            + formatGeneration(summary.generation())
+            + " ("
+            + summary.chunkCount()
+            + " chunks)");
+    res.header(HeaderNames.CONTENT_TYPE, "application/json");
+    res.send(
+        Json.createObjectBuilder()
+            .add("generation", formatGeneration(summary.generation()))
+            .add("chunkCount", summary.chunkCount())
+            .add("runbookCount", summary.runbookCount())
+            .build()
+            .toString());
+  }
+
+  private void sendError(ServerResponse res, Status status, String errorCode, String message) {
+    var error =
+        new ErrorResponse(
+            UUID.randomUUID().toString(), errorCode, message, Instant.now(), Map.of());
+
+    res.status(status);
+    res.header(HeaderNames.CONTENT_TYPE, "application/json");
+    res.send(toJson(error));
+  }
+
+  private String toJson(ErrorResponse error) {
+    var detailsBuilder = Json.createObjectBuilder();
+    error.details().forEach(detailsBuilder::add);
+
+    return Json.createObjectBuilder()
+        .add("correlationId", error.correlationId())
+        .add("errorCode", error.errorCode())
+        .add("message", error.message() != null ? error.message() : "")
+        .add("timestamp", error.timestamp().toString())
+        .add("details", detailsBuilder)
+        .build()
+        .toString();
+  }
+
+  private boolean authorized(ServerRequest req) {
+    String header = req.headers().first(HeaderNames.AUTHORIZATION).orElse("");
+    if (!header.startsWith(BEARER_PREFIX)) {
+      return false;
+    }
+    // Constant-time comparison, so response times do not reveal how much of the token matched
+    return MessageDigest.isEqual(
+        header.substring(BEARER_PREFIX.length()).getBytes(StandardCharsets.UTF_8), token);
+  }
+
+  private static String formatGeneration(long generation) {
+    return String.format("%016x", generation);
+  }
+
+  /**
+   * Opens the response stream on the first write, so an export that fails before its first frame
+   * can still answer with an error status.
+   */
+  private static final class DeferredResponseStream extends OutputStream {
+
+    private final ServerResponse res;
+    private OutputStream out;
+
+    DeferredResponseStream(ServerResponse res) {
+      this.res = res;
+    }
+
+    boolean opened() {
+      return out != null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      open().write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      open().write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      open().flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (out != null) {
+        out.close();
+      }
+    }
+
+    private OutputStream open() {
+      if (out == null) {
+        res.header(HeaderNames.CONTENT_TYPE, VectorIndexStream.MEDIA_TYPE);
+        out = res.outputStream();
+      }
+      return out;
+    }
+  }
+}
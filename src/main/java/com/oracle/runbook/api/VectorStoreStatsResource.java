@@ -0,0 +1,121 @@
+package com.oracle.runbook.api;
+
+import com.oracle.runbook.api.dto.ErrorResponse;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreStats;
+import io.helidon.http.HeaderNames;
+import io.helidon.http.Status;
+import io.helidon.webserver.http.HttpRules;
+import io.helidon.webserver.http.HttpService;
+import io.helidon.webserver.http.ServerRequest;
+import io.helidon.webserver.http.ServerResponse;
+import jakarta.json.Json;
+import jakarta.json.JsonObjectBuilder;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Admin resource providing the GET /api/v1/admin/vector-store endpoint.
+ *
+ * <p>Returns the vector store's {@link VectorStoreStats} as JSON: chunk count and dimension, the
+ * estimated bytes of vectors, index, text and metadata, chunks per runbook, index state and search
+ * latency. Values the store cannot report are {@code null}.
+ */
+public class VectorStoreStatsResource implements HttpService {
+
+  private static final Logger LOGGER = Logger.getLogger(VectorStoreStatsResource.class.getName());
+
+  private final VectorStoreRepository vectorStore;
+
+  /**
+   * Creates the resource.
+   *
+   * @param vectorStore the store to report on
+   * @throws NullPointerException if vectorStore is null
+   */
+  public VectorStoreStatsResource(VectorStoreRepository vectorStore) {
+    this.vectorStore = Objects.requireNonNull(vectorStore, "vectorStore cannot be null");
+  }
+
+  @Override
+  public void routing(HttpRules rules) {
+    rules.get("/", this::handleGet);
+  }
+
+  private void handleGet(ServerRequest req, ServerResponse res) {
+    VectorStoreStats stats;
+    try {
+      stats = vectorStore.stats();
+    } catch (RuntimeException e) {
+      LOGGER.log(Level.WARNING, "Failed to read vector store statistics", e);
+      sendError(
+          res, Status.SERVICE_UNAVAILABLE_503, "VECTOR_STORE_UNAVAILABLE", e.getMessage());
+      return;
+    }
+    res.header(HeaderNames.CONTENT_TYPE, "application/json");
+    res.send(toJson(stats));
+  }
+
+  private void sendError(ServerResponse res, Status status, String errorCode, String message) {
+    var error =
+        new ErrorResponse(
+            UUID.randomUUID().toString(), errorCode, message, Instant.now(), Map.of());
+
+    res.status(status);
+    res.header(HeaderNames.CONTENT_TYPE, "application/json");
+    res.send(toJson(error));
+  }
+
+  private String toJson(VectorStoreStats stats) {
+    var bytesBuilder = Json.createObjectBuilder();
+    addKnown(bytesBuilder, "vectors", stats.vectorBytes());
+    addKnown(bytesBuilder, "offHeapVectors", stats.offHeapVectorBytes());
+    addKnown(bytesBuilder, "index", stats.indexBytes());
+    addKnown(bytesBuilder, "content", stats.contentBytes());
+    addKnown(bytesBuilder, "metadata", stats.metadataBytes());
+    addKnown(bytesBuilder, "heapTotal", stats.heapBytes());
+
+    var runbooksBuilder = Json.createObjectBuilder();
+    stats.chunksPerRunbook().forEach(runbooksBuilder::add);
+
+    var searchBuilder = Json.createObjectBuilder();
+    addKnown(searchBuilder, "count", stats.searchCount());
+    searchBuilder.add("averageLatencyMicros", stats.averageSearchLatency().toNanos() / 1_000.0);
+
+    var json = Json.createObjectBuilder().add("provider", stats.providerType());
+    addKnown(json, "chunkCount", stats.chunkCount());
+    addKnown(json, "dimension", stats.dimension());
+    return json.add("bytes", bytesBuilder)
+        .add("chunksPerRunbook", runbooksBuilder)
+        .add("indexState", stats.indexState().name())
+        .add("search", searchBuilder)
+        .build()
+        .toString();
+  }
+
+  private String toJson(ErrorResponse error) {
+    var detailsBuilder = Json.createObjectBuilder();
+    error.details().forEach(detailsBuilder::add);
+
+    return Json.createObjectBuilder()
+        .add("correlationId", error.correlationId())
+        .add("errorCode", error.errorCode())
+        .add("message", error.message() != null ? error.message() : "")
+        .add("timestamp", error.timestamp().toString())
+        .add("details", detailsBuilder)
+        .build()
+        .toString();
+  }
+
+  private static void addKnown(JsonObjectBuilder builder, String name, long value) {
+    if (value == VectorStoreStats.UNKNOWN) {
+      builder.addNull(name);
+    } else {
+      builder.add(name, value);
+    }
+  }
+}
@@ -11,8 +11,31 @@ import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
 import com.oracle.runbook.infrastructure.cloud.aws.AwsCloudWatchLogsAdapter;
 import com.oracle.runbook.infrastructure.cloud.aws.AwsCloudWatchMetricsAdapter;
 import com.oracle.runbook.infrastructure.cloud.aws.AwsEc2MetadataAdapter;
+import com.oracle.runbook.infrastructure.cloud.aws.AwsOpenSearchConfig;
+import com.oracle.runbook.infrastructure.cloud.aws.AwsOpenSearchVectorStoreRepository;
 import com.oracle.runbook.infrastructure.cloud.aws.AwsS3StorageAdapter;
+import com.oracle.runbook.infrastructure.cloud.aws.OpenSearchKnnEngine;
+import com.oracle.runbook.infrastructure.cloud.local.DurableVectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.local.FsyncPolicy;
+import com.oracle.runbook.infrastructure.cloud.local.HnswConfig;
+import com.oracle.runbook.infrastructure.cloud.local.HotTierConfig;
+import com.oracle.runbook.infrastructure.cloud.local.HnswVectorStoreRepository;
 import com.oracle.runbook.infrastructure.cloud.local.InMemoryVectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.local.IvfConfig;
+import com.oracle.runbook.infrastructure.cloud.local.IvfVectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.local.LocalVectorStoreConfig;
+import com.oracle.runbook.infrastructure.cloud.local.ParallelScanConfig;
+import com.oracle.runbook.infrastructure.cloud.local.PartialResultPolicy;
+import com.oracle.runbook.infrastructure.cloud.local.ProjectionConfig;
+import com.oracle.runbook.infrastructure.cloud.local.ProjectionMethod;
+import com.oracle.runbook.infrastructure.cloud.local.ShardedVectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.local.ShardingConfig;
+import com.oracle.runbook.infrastructure.cloud.local.SimilarityKernels;
+import com.oracle.runbook.infrastructure.cloud.local.SnapshottableVectorStore;
+import com.oracle.runbook.infrastructure.cloud.local.TieredVectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.local.VectorEncoding;
+import com.oracle.runbook.infrastructure.cloud.local.VectorIndexStream;
+import com.oracle.runbook.infrastructure.cloud.local.WalConfig;
 import com.oracle.runbook.infrastructure.llm.OllamaConfig;
 import com.oracle.runbook.infrastructure.llm.OllamaLlmProvider;
 import com.oracle.runbook.output.WebhookConfig;
@@ -22,19 +45,34 @@ import com.oracle.runbook.output.adapters.FileOutputAdapter;
 import com.oracle.runbook.output.adapters.FileOutputConfig;
 import com.oracle.runbook.output.adapters.GenericWebhookDestination;
 import com.oracle.runbook.rag.ChecklistGenerator;
+import com.oracle.runbook.rag.ChunkDeduplicator;
 import com.oracle.runbook.rag.DefaultChecklistGenerator;
 import com.oracle.runbook.rag.DefaultEmbeddingService;
 import com.oracle.runbook.rag.DefaultRunbookRetriever;
 import com.oracle.runbook.rag.EmbeddingService;
+import com.oracle.runbook.rag.LexicalIndex;
 import com.oracle.runbook.rag.LlmProvider;
+import com.oracle.runbook.rag.QueryEmbeddingCache;
 import com.oracle.runbook.rag.RagPipelineService;
 import com.oracle.runbook.rag.RunbookChunker;
 import com.oracle.runbook.rag.RunbookIngestionService;
 import com.oracle.runbook.rag.RunbookRetriever;
 import io.helidon.config.Config;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Logger;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
@@ -67,6 +105,8 @@ public class ServiceFactory {
   private ChecklistGenerator cachedGenerator;
   private CloudStorageAdapter cachedStorageAdapter;
   private RunbookIngestionService cachedIngestionService;
+  private LexicalIndex cachedLexicalIndex;
+  private QueryEmbeddingCache cachedQueryEmbeddingCache;
   private RunbookConfig cachedRunbookConfig;
 
   /**
@@ -149,6 +189,8 @@ public class ServiceFactory {
   /**
    * Creates the embedding service using the configured LLM provider.
    *
+   * <p>Context query embeddings go through the query embedding cache unless it is disabled.
+   *
    * @return the configured EmbeddingService
    */
   public EmbeddingService createEmbeddingService() {
@@ -156,15 +198,68 @@ public class ServiceFactory {
       return cachedEmbeddingService;
     }
 
-    cachedEmbeddingService = new DefaultEmbeddingService(createLlmProvider());
-    LOGGER.info("Created DefaultEmbeddingService");
+    LlmProvider llmProvider = createLlmProvider();
+    Optional<QueryEmbeddingCache> queryCache = createQueryEmbeddingCache();
+    cachedEmbeddingService =
+        queryCache
+            .map(
+                cache ->
+                    new DefaultEmbeddingService(llmProvider, cache, llmProvider.embeddingModelId()))
+            .orElseGet(() -> new DefaultEmbeddingService(llmProvider));
+    LOGGER.info("Created DefaultEmbeddingService: queryCache=" + queryCache.isPresent());
     return cachedEmbeddingService;
   }
 
+  /**
+   * Returns the cache of context query embeddings, unless disabled with {@code
+   * llm.queryCache.maxEntries: 0}. The cache is shared by the embedding service and the admin
+   * statistics endpoint.
+   *
+   * @return the query embedding cache, or empty if it is disabled
+   * @throws IllegalArgumentException if maxEntries is negative or ttlSeconds is not positive
+   */
+  public Optional<QueryEmbeddingCache> createQueryEmbeddingCache() {
+    if (cachedQueryEmbeddingCache != null) {
+      return Optional.of(cachedQueryEmbeddingCache);
+    }
+    Config cacheConfig = config.get("llm.queryCache");
+    int maxEntries =
+        cacheConfig.get("maxEntries").asInt().orElse(QueryEmbeddingCache.DEFAULT_MAX_ENTRIES);
+    if (maxEntries == 0) {
+      return Optional.empty();
+    }
+    Duration ttl =
+        cacheConfig
+            .get("ttlSeconds")
+            .asLong()
+            .map(Duration::ofSeconds)
+            .orElse(QueryEmbeddingCache.DEFAULT_TTL);
+    cachedQueryEmbeddingCache = new QueryEmbeddingCache(maxEntries, ttl);
+    LOGGER.info(
+        "Created QueryEmbeddingCache: maxEntries=" + maxEntries + ", ttl=" + ttl.toSeconds() + "s");
+    return Optional.of(cachedQueryEmbeddingCache);
+  }
+
   /**
    * Creates the vector store repository based on configuration.
    *
-   * <p>Currently only supports "local" (in-memory) provider for MVP.
+   * <p>Supports the in-process providers: "local" (brute-force search, optionally int8-quantized
+   * via {@code vectorStore.local.*}), "hnsw" (approximate graph index tuned via {@code
+   * vectorStore.hnsw.*}) and "ivf" (k-means partitioned index tuned via {@code vectorStore.ivf.*}),
+   * and "aws" (an OpenSearch k-NN index configured via {@code vectorStore.aws.*}).
+   *
+   * <p>When {@code vectorStore.local.wal.directory} is set, the local store is wrapped in a {@link
+   * DurableVectorStoreRepository} that recovers from that directory before it is returned.
+   *
+   * <p>When {@code vectorStore.sharding.shards} is above one, an in-process provider is created
+   * once per shard and the shards are combined by a {@link ShardedVectorStoreRepository}; each
+   * local shard then logs to its own {@code shard-<n>} subdirectory of the write-ahead log
+   * directory, and the local shards scan on one shared pool. The "aws" provider partitions its
+   * index itself and ignores this setting.
+   *
+   * <p>When {@code vectorStore.hotTier.enabled} is set, the remote "aws" store is wrapped in a
+   * {@link TieredVectorStoreRepository} whose in-process hot tier is tuned via {@code
+   * vectorStore.hotTier.*}. In-process providers have nothing to gain from it and ignore it.
    *
    * @return the configured VectorStoreRepository
    */
@@ -174,10 +269,36 @@ public class ServiceFactory {
     }
 
     String provider = config.get("vectorStore.provider").asString().orElse("local");
+    int shards = config.get("vectorStore.sharding.shards").asInt().orElse(1);
+    if (shards < 1) {
+      throw new IllegalStateException("vectorStore.sharding.shards must be positive");
+    }
 
-    if ("local".equals(provider)) {
-      cachedVectorStore = new InMemoryVectorStoreRepository();
-      LOGGER.info("Created InMemoryVectorStoreRepository");
+    if ("local".equals(provider) || "hnsw".equals(provider) || "ivf".equals(provider)) {
+      // Shards share one scan pool, so together they run no more scan threads than one store
+      ForkJoinPool scanPool =
+          "local".equals(provider)
+              ? InMemoryVectorStoreRepository.newScanPool(createParallelScanConfig())
+              : null;
+      if (shards == 1) {
+        cachedVectorStore = createInProcessVectorStore(provider, null, scanPool);
+      } else {
+        List<VectorStoreRepository> shardStores = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+          shardStores.add(createInProcessVectorStore(provider, "shard-" + shard, scanPool));
+        }
+        ShardingConfig shardingConfig = createShardingConfig();
+        cachedVectorStore = new ShardedVectorStoreRepository(shardStores, shardingConfig);
+        LOGGER.info("Sharded vector store across " + shards + " shards: " + shardingConfig);
+      }
+    } else if ("aws".equals(provider)) {
+      if (shards > 1) {
+        LOGGER.warning("vectorStore.sharding applies to in-process providers only, ignoring it");
+      }
+      AwsOpenSearchConfig openSearchConfig = createAwsOpenSearchConfig();
+      cachedVectorStore =
+          withHotTier(new AwsOpenSearchVectorStoreRepository(openSearchConfig));
+      LOGGER.info("Created AwsOpenSearchVectorStoreRepository: " + openSearchConfig);
     } else {
       // For now, default to local for unsupported providers
       LOGGER.warning("Unsupported vector store provider '" + provider + "', using local");
@@ -187,6 +308,253 @@ public class ServiceFactory {
     return cachedVectorStore;
   }
 
+  /**
+   * Creates one in-process vector store of the given provider.
+   *
+   * @param provider "local", "hnsw" or "ivf"
+   * @param walSubdirectory the subdirectory of the write-ahead log directory for this store, or
+   *     null to log to the directory itself
+   * @param scanPool the scan pool of a "local" store, or null to scan on the calling thread
+   * @return the store
+   */
+  private VectorStoreRepository createInProcessVectorStore(
+      String provider, String walSubdirectory, ForkJoinPool scanPool) {
+    if ("hnsw".equals(provider)) {
+      HnswConfig hnswConfig = createHnswConfig();
+      LOGGER.info("Created HnswVectorStoreRepository: " + hnswConfig);
+      return new HnswVectorStoreRepository(hnswConfig);
+    }
+    if ("ivf".equals(provider)) {
+      IvfConfig ivfConfig = createIvfConfig();
+      LOGGER.info("Created IvfVectorStoreRepository: " + ivfConfig);
+      return new IvfVectorStoreRepository(ivfConfig);
+    }
+    LocalVectorStoreConfig localConfig = createLocalVectorStoreConfig();
+    InMemoryVectorStoreRepository localStore =
+        new InMemoryVectorStoreRepository(localConfig, SimilarityKernels.preferred(), scanPool);
+    LOGGER.info("Created InMemoryVectorStoreRepository: " + localConfig);
+    Optional<WalConfig> walConfig = createWalConfig();
+    if (walConfig.isEmpty()) {
+      return localStore;
+    }
+    WalConfig storeWalConfig = walConfig.get();
+    if (walSubdirectory != null) {
+      storeWalConfig =
+          new WalConfig(
+              storeWalConfig.directory().resolve(walSubdirectory),
+              storeWalConfig.fsyncPolicy(),
+              storeWalConfig.fsyncInterval(),
+              storeWalConfig.checkpointBytes(),
+              storeWalConfig.checkpointInterval());
+    }
+    try {
+      DurableVectorStoreRepository durable =
+          DurableVectorStoreRepository.open(localStore, storeWalConfig);
+      LOGGER.info("Enabled vector store write-ahead log: " + storeWalConfig);
+      return durable;
+    } catch (IOException e) {
+      throw new UncheckedIOException(
+          "Failed to open vector store write-ahead log in " + storeWalConfig.directory(), e);
+    }
+  }
+
+  /**
+   * Returns the configured vector store snapshot file ({@code vectorStore.snapshot.path}).
+   *
+   * @return the snapshot path, or empty if snapshots are disabled
+   */
+  public Optional<Path> vectorStoreSnapshotPath() {
+    return config
+        .get("vectorStore.snapshot.path")
+        .asString()
+        .asOptional()
+        .filter(path -> !path.isBlank())
+        .map(Path::of);
+  }
+
+  /**
+   * Restores the vector store from its snapshot file, if snapshots are enabled and supported by
+   * the configured provider.
+   *
+   * <p>A store with a write-ahead log ({@code vectorStore.local.wal.directory}) has already
+   * recovered itself when it was created; this then only reports whether it did. Either way, a
+   * restored store also reloads the keyword index, which ingestion would otherwise have built. A
+   * sharded store is snapshotted when every shard can be and none keeps a write-ahead log.
+   *
+   * @return true if a snapshot was loaded, false if snapshots are disabled, unsupported or absent
+   * @throws IOException if the snapshot exists but cannot be read
+   */
+  public boolean restoreVectorStoreSnapshot() throws IOException {
+    if (createVectorStoreRepository() instanceof DurableVectorStoreRepository durable) {
+      boolean recovered = durable.recovered();
+      if (recovered) {
+        reloadLexicalIndex();
+      }
+      return recovered;
+    }
+    Optional<Path> path = vectorStoreSnapshotPath();
+    Optional<SnapshottableVectorStore> store = snapshottableVectorStore();
+    if (path.isEmpty() || store.isEmpty()) {
+      return false;
+    }
+    boolean loaded = store.get().loadSnapshot(path.get());
+    if (loaded) {
+      LOGGER.info("Restored vector store snapshot from " + path.get());
+      reloadLexicalIndex();
+    }
+    return loaded;
+  }
+
+  /**
+   * Writes the vector store to its snapshot file, if snapshots are enabled and supported by the
+   * configured provider. A store with a write-ahead log is checkpointed first.
+   *
+   * @throws IOException if the snapshot cannot be written
+   */
+  public void saveVectorStoreSnapshot() throws IOException {
+    if (createVectorStoreRepository() instanceof DurableVectorStoreRepository durable) {
+      durable.checkpoint();
+    }
+    Optional<Path> path = vectorStoreSnapshotPath();
+    Optional<SnapshottableVectorStore> store = snapshottableVectorStore();
+    if (path.isEmpty() || store.isEmpty()) {
+      return;
+    }
+    store.get().saveSnapshot(path.get());
+    LOGGER.info("Saved vector store snapshot to " + path.get());
+  }
+
+  /**
+   * Returns the vector store if it is snapshotted: a sharded store only if every shard can be
+   * snapshotted and the shards keep no write-ahead log, from which they recover on their own.
+   */
+  private Optional<SnapshottableVectorStore> snapshottableVectorStore() {
+    VectorStoreRepository store = createVectorStoreRepository();
+    if (store instanceof ShardedVectorStoreRepository sharded
+        && (!sharded.supportsSnapshots() || createWalConfig().isPresent())) {
+      return Optional.empty();
+    }
+    return store instanceof SnapshottableVectorStore snapshottable
+        ? Optional.of(snapshottable)
+        : Optional.empty();
+  }
+
+  /**
+   * Loads the vector store from the configured bootstrap source ({@code
+   * vectorStore.bootstrap.source}), so a new replica can serve retrievals without embedding every
+   * runbook again. The source is either the base URL of a running replica, whose index is pulled
+   * from its {@code /api/v1/admin/vector-store/index} endpoint, or a file holding such an export.
+   * The keyword index is then reloaded from the store.
+   *
+   * @return true if the store was loaded, false if no source is configured
+   * @throws IOException if the source cannot be read or does not hold a valid index stream
+   */
+  public boolean bootstrapVectorStore() throws IOException {
+    Optional<String> source =
+        config
+            .get("vectorStore.bootstrap.source")
+            .asString()
+            .asOptional()
+            .filter(value -> !value.isBlank());
+    if (source.isEmpty()) {
+      return false;
+    }
+    VectorStoreRepository store = createVectorStoreRepository();
+    VectorIndexStream.ImportSummary summary;
+    if (source.get().startsWith("http://") || source.get().startsWith("https://")) {
+      summary = importVectorIndexFromPeer(source.get(), store);
+    } else {
+      try (InputStream in = Files.newInputStream(Path.of(source.get()))) {
+        summary = VectorIndexStream.importInto(in, store);
+      }
+    }
+    LOGGER.info(
+        "Bootstrapped vector store from "
+            + source.get()
+            + ": "
+            + summary.chunkCount()
+            + " chunks of "
+            + summary.runbookCount()
+            + " runbooks");
+    reloadLexicalIndex();
+    return true;
+  }
+
+  private VectorIndexStream.ImportSummary importVectorIndexFromPeer(
+      String peer, VectorStoreRepository store) throws IOException {
+    Duration timeout =
+        Duration.ofSeconds(
+            config.get("vectorStore.bootstrap.timeoutSeconds").asLong().orElse(30L));
+    URI uri = URI.create(peer.replaceAll("/+$", "") + "/api/v1/admin/vector-store/index");
+    HttpClient client = HttpClient.newBuilder().connectTimeout(timeout).build();
+    HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(timeout).GET();
+    vectorIndexToken().ifPresent(token -> request.header("Authorization", "Bearer " + token));
+    HttpResponse<InputStream> response;
+    try {
+      response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while requesting the vector index from " + uri, e);
+    }
+    try (InputStream in = response.body()) {
+      if (response.statusCode() != 200) {
+        throw new IOException(
+            "Vector index export from " + uri + " failed: HTTP " + response.statusCode());
+      }
+      return VectorIndexStream.importInto(in, store);
+    }
+  }
+
+  /**
+   * Returns the bearer token that guards the vector index endpoints ({@code
+   * vectorStore.index.token}, or the older {@code vectorStore.index.importToken}). Replicas share
+   * it, so a bootstrap from a peer sends it too.
+   *
+   * @return the token, or empty if none is configured
+   */
+  public Optional<String> vectorIndexToken() {
+    return config
+        .get("vectorStore.index.token")
+        .asString()
+        .asOptional()
+        .or(() -> config.get("vectorStore.index.importToken").asString().asOptional())
+        .filter(token -> !token.isBlank());
+  }
+
+  /**
+   * Returns the keyword index for hybrid retrieval, if enabled ({@code
+   * vectorStore.hybrid.enabled}). The retriever searches it and the ingestion service fills it;
+   * the index is cached so both share it.
+   *
+   * @return the lexical index, or empty if hybrid retrieval is disabled
+   */
+  public Optional<LexicalIndex> createLexicalIndex() {
+    if (cachedLexicalIndex == null
+        && config.get("vectorStore.hybrid.enabled").asBoolean().orElse(false)) {
+      cachedLexicalIndex = new LexicalIndex();
+      LOGGER.info("Created LexicalIndex for hybrid retrieval");
+    }
+    return Optional.ofNullable(cachedLexicalIndex);
+  }
+
+  /**
+   * Rebuilds the keyword index from the vector store's chunks, after the store was loaded without
+   * ingestion. A store that cannot export its chunks leaves the index empty until the next
+   * ingestion.
+   */
+  private void reloadLexicalIndex() {
+    Optional<LexicalIndex> lexicalIndex = createLexicalIndex();
+    if (lexicalIndex.isEmpty()) {
+      return;
+    }
+    try {
+      lexicalIndex.get().load(createVectorStoreRepository().exportChunks());
+      LOGGER.info("Loaded " + lexicalIndex.get().size() + " chunks into the lexical index");
+    } catch (UnsupportedOperationException e) {
+      LOGGER.warning("Lexical index stays empty until the next ingestion: " + e.getMessage());
+    }
+  }
+
   /**
    * Creates the context enrichment service with cloud-specific adapters.
    *
@@ -217,12 +585,40 @@ public class ServiceFactory {
       return cachedRetriever;
     }
 
+    boolean filterByShape = config.get("vectorStore.filterByShape").asBoolean().orElse(false);
+    Duration batchWindow =
+        Duration.ofMillis(config.get("vectorStore.searchBatchWindowMillis").asLong().orElse(0L));
+    int runbookLimit = runbookLimit();
+    LexicalIndex lexicalIndex = createLexicalIndex().orElse(null);
     cachedRetriever =
-        new DefaultRunbookRetriever(createEmbeddingService(), createVectorStoreRepository());
-    LOGGER.info("Created DefaultRunbookRetriever");
+        new DefaultRunbookRetriever(
+            createEmbeddingService(),
+            createVectorStoreRepository(),
+            filterByShape,
+            batchWindow,
+            runbookLimit,
+            lexicalIndex);
+    LOGGER.info(
+        "Created DefaultRunbookRetriever (filterByShape="
+            + filterByShape
+            + ", searchBatchWindow="
+            + batchWindow.toMillis()
+            + "ms, runbookLimit="
+            + runbookLimit
+            + ", hybrid="
+            + (lexicalIndex != null)
+            + ")");
     return cachedRetriever;
   }
 
+  /**
+   * Returns how many runbooks two-stage retrieval restricts the chunk search to ({@code
+   * vectorStore.runbookLimit}); zero disables it.
+   */
+  private int runbookLimit() {
+    return config.get("vectorStore.runbookLimit").asInt().orElse(0);
+  }
+
   /**
    * Creates the checklist generator with LLM provider.
    *
@@ -277,7 +673,12 @@ public class ServiceFactory {
   /**
    * Creates the runbook ingestion service with all required dependencies.
    *
-   * <p>The service is cached for reuse.
+   * <p>Near-duplicate chunks are collapsed before embedding when {@code runbooks.dedup.enabled}
+   * is true (off by default); {@code runbooks.dedup.maxDistance} sets how many SimHash bits two
+   * duplicates may differ in. Runbook titles are embedded for the store's runbook centroids when
+   * two-stage retrieval is enabled ({@code vectorStore.runbookLimit} above zero), and each
+   * generation is also swapped into the keyword index when hybrid retrieval is enabled. The service
+   * is cached for reuse.
    *
    * @return the configured RunbookIngestionService
    */
@@ -286,13 +687,29 @@ public class ServiceFactory {
       return cachedIngestionService;
     }
 
+    Config dedupConfig = config.get("runbooks.dedup");
+    ChunkDeduplicator deduplicator =
+        dedupConfig.get("enabled").asBoolean().orElse(false)
+            ? new ChunkDeduplicator(
+                dedupConfig
+                    .get("maxDistance")
+                    .asInt()
+                    .orElse(ChunkDeduplicator.DEFAULT_MAX_DISTANCE))
+            : null;
     cachedIngestionService =
         new RunbookIngestionService(
             createCloudStorageAdapter(),
             createRunbookChunker(),
             createEmbeddingService(),
-            createVectorStoreRepository());
-    LOGGER.info("Created RunbookIngestionService");
+            createVectorStoreRepository(),
+            deduplicator,
+            runbookLimit() > 0,
+            createLexicalIndex().orElse(null));
+    LOGGER.info(
+        "Created RunbookIngestionService: dedup="
+            + (deduplicator == null ? "disabled" : "maxDistance " + deduplicator.maxDistance())
+            + ", embedTitles="
+            + (runbookLimit() > 0));
     return cachedIngestionService;
   }
 
@@ -348,6 +765,182 @@ public class ServiceFactory {
     return new OllamaConfig(baseUrl, textModel, embeddingModel);
   }
 
+  private LocalVectorStoreConfig createLocalVectorStoreConfig() {
+    Config localConfig = config.get("vectorStore.local");
+    return new LocalVectorStoreConfig(
+        VectorEncoding.fromString(localConfig.get("encoding").asString().orElse("float32")),
+        localConfig
+            .get("rerankFactor")
+            .asInt()
+            .orElse(LocalVectorStoreConfig.DEFAULT_RERANK_FACTOR),
+        localConfig
+            .get("spillDirectory")
+            .asString()
+            .asOptional()
+            .filter(directory -> !directory.isBlank())
+            .map(Path::of)
+            .orElse(null),
+        createParallelScanConfig(),
+        createProjectionConfig());
+  }
+
+  private ProjectionConfig createProjectionConfig() {
+    Config projectionConfig = config.get("vectorStore.local.projection");
+    return new ProjectionConfig(
+        ProjectionMethod.fromString(projectionConfig.get("method").asString().orElse("none")),
+        projectionConfig.get("dimensions").asInt().orElse(ProjectionConfig.DEFAULT_DIMENSIONS));
+  }
+
+  /**
+   * Puts an in-process hot tier in front of a remote store if {@code vectorStore.hotTier.enabled}
+   * is set.
+   *
+   * @param remote the remote store
+   * @return the tiered store, or remote itself if the hot tier is disabled
+   */
+  private VectorStoreRepository withHotTier(VectorStoreRepository remote) {
+    Config hotTierConfig = config.get("vectorStore.hotTier");
+    if (!hotTierConfig.get("enabled").asBoolean().orElse(false)) {
+      return remote;
+    }
+    HotTierConfig tierConfig =
+        new HotTierConfig(
+            hotTierConfig.get("capacity").asInt().orElse(HotTierConfig.DEFAULT_CAPACITY),
+            hotTierConfig
+                .get("promotionThreshold")
+                .asInt()
+                .orElse(HotTierConfig.DEFAULT_PROMOTION_THRESHOLD),
+            hotTierConfig
+                .get("confidenceScore")
+                .asDouble()
+                .orElse(HotTierConfig.DEFAULT_CONFIDENCE_SCORE),
+            hotTierConfig
+                .get("confidenceMargin")
+                .asDouble()
+                .orElse(HotTierConfig.DEFAULT_CONFIDENCE_MARGIN));
+    LOGGER.info("Created TieredVectorStoreRepository in front of the remote store: " + tierConfig);
+    return new TieredVectorStoreRepository(remote, tierConfig);
+  }
+
+  private ShardingConfig createShardingConfig() {
+    Config shardingConfig = config.get("vectorStore.sharding");
+    return new ShardingConfig(
+        Duration.ofMillis(
+            shardingConfig
+                .get("shardTimeoutMillis")
+                .asLong()
+                .orElse(ShardingConfig.DEFAULT_SHARD_TIMEOUT.toMillis())),
+        PartialResultPolicy.fromString(
+            shardingConfig.get("partialResults").asString().orElse("fail")));
+  }
+
+  private ParallelScanConfig createParallelScanConfig() {
+    Config scanConfig = config.get("vectorStore.local.parallelScan");
+    ParallelScanConfig defaults = ParallelScanConfig.defaults();
+    return new ParallelScanConfig(
+        scanConfig.get("segmentRows").asInt().orElse(defaults.segmentRows()),
+        scanConfig.get("parallelism").asInt().orElse(defaults.parallelism()),
+        scanConfig.get("threshold").asInt().orElse(defaults.threshold()));
+  }
+
+  private Optional<WalConfig> createWalConfig() {
+    Config walConfig = config.get("vectorStore.local.wal");
+    return walConfig
+        .get("directory")
+        .asString()
+        .asOptional()
+        .filter(directory -> !directory.isBlank())
+        .map(
+            directory ->
+                new WalConfig(
+                    Path.of(directory),
+                    FsyncPolicy.fromString(
+                        walConfig.get("fsyncPolicy").asString().orElse("always")),
+                    Duration.ofMillis(
+                        walConfig
+                            .get("fsyncIntervalMillis")
+                            .asLong()
+                            .orElse(WalConfig.DEFAULT_FSYNC_INTERVAL.toMillis())),
+                    walConfig
+                        .get("checkpointBytes")
+                        .asLong()
+                        .orElse(WalConfig.DEFAULT_CHECKPOINT_BYTES),
+                    Duration.ofSeconds(
+                        walConfig
+                            .get("checkpointIntervalSeconds")
+                            .asLong()
+                            .orElse(WalConfig.DEFAULT_CHECKPOINT_INTERVAL.toSeconds()))));
+  }
+
+  private HnswConfig createHnswConfig() {
+    Config hnswConfig = config.get("vectorStore.hnsw");
+    return new HnswConfig(
+        hnswConfig.get("m").asInt().orElse(HnswConfig.DEFAULT_M),
+        hnswConfig.get("efConstruction").asInt().orElse(HnswConfig.DEFAULT_EF_CONSTRUCTION),
+        hnswConfig.get("efSearch").asInt().orElse(HnswConfig.DEFAULT_EF_SEARCH));
+  }
+
+  private IvfConfig createIvfConfig() {
+    Config ivfConfig = config.get("vectorStore.ivf");
+    return new IvfConfig(
+        ivfConfig.get("nlist").asInt().orElse(IvfConfig.DEFAULT_NLIST),
+        ivfConfig.get("nprobe").asInt().orElse(IvfConfig.DEFAULT_NPROBE),
+        ivfConfig
+            .get("trainingIterations")
+            .asInt()
+            .orElse(IvfConfig.DEFAULT_TRAINING_ITERATIONS));
+  }
+
+  private AwsOpenSearchConfig createAwsOpenSearchConfig() {
+    Config openSearchConfig = config.get("vectorStore.aws");
+    String endpoint =
+        openSearchConfig
+            .get("endpoint")
+            .asString()
+            .asOptional()
+            .filter(value -> !value.isBlank())
+            .orElseThrow(
+                () ->
+                    new IllegalStateException(
+                        "vectorStore.aws.endpoint is required in configuration"));
+    return new AwsOpenSearchConfig(
+        endpoint,
+        openSearchConfig
+            .get("indexName")
+            .asString()
+            .orElse(AwsOpenSearchConfig.DEFAULT_INDEX_NAME),
+        OpenSearchKnnEngine.fromString(
+            openSearchConfig.get("engine").asString().orElse("faiss")),
+        openSearchConfig.get("m").asInt().orElse(AwsOpenSearchConfig.DEFAULT_M),
+        openSearchConfig
+            .get("efConstruction")
+            .asInt()
+            .orElse(AwsOpenSearchConfig.DEFAULT_EF_CONSTRUCTION),
+        openSearchConfig.get("efSearch").asInt().orElse(AwsOpenSearchConfig.DEFAULT_EF_SEARCH),
+        openSearchConfig
+            .get("bulkBatchSize")
+            .asInt()
+            .orElse(AwsOpenSearchConfig.DEFAULT_BULK_BATCH_SIZE),
+        openSearchConfig
+            .get("username")
+            .asString()
+            .asOptional()
+            .filter(value -> !value.isBlank())
+            .orElse(null),
+        openSearchConfig
+            .get("password")
+            .asString()
+            .asOptional()
+            .filter(value -> !value.isBlank())
+            .orElse(null),
+        openSearchConfig
+            .get("signingRegion")
+            .asString()
+            .asOptional()
+            .filter(value -> !value.isBlank())
+            .orElse(null));
+  }
+
   private boolean isFileOutputEnabled() {
     return config.get("output.file.enabled").asBoolean().orElse(false);
   }
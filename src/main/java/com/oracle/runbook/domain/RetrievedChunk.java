@@ -6,9 +6,11 @@ import java.util.Objects;
  * Retrieval result wrapping a RunbookChunk with similarity scoring.
  *
  * @param chunk the retrieved runbook chunk
- * @param similarityScore cosine similarity score from vector search
+ * @param similarityScore cosine similarity score from vector search; 0 for a chunk found only by
+ *     keyword search
  * @param metadataBoost additional score boost from metadata matching
- * @param finalScore combined score for ranking
+ * @param finalScore combined score for ranking: the similarity score, or the fused rank score
+ *     with hybrid retrieval, plus the metadata boost
  */
 public record RetrievedChunk(
     RunbookChunk chunk, double similarityScore, double metadataBoost, double finalScore) {
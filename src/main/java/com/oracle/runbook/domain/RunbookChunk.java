@@ -1,19 +1,30 @@
 package com.oracle.runbook.domain;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Semantically chunked runbook section with embeddings for vector search.
  *
+ * <p>A chunk usually comes from one runbook. When ingestion collapses a section repeated in several
+ * runbooks into one chunk, {@code sourceRunbookPaths} lists every runbook it came from, and {@code
+ * runbookPath} is the first of them. Stores keep such a chunk for as long as any of its source
+ * runbooks does: deleting or replacing one source only drops that runbook from the list.
+ *
  * @param id unique identifier for this chunk
- * @param runbookPath path to the source runbook file
+ * @param runbookPath path to the source runbook file; the first of {@code sourceRunbookPaths}
  * @param sectionTitle the title of this section
  * @param content the actual text content
  * @param tags semantic tags for filtering (e.g., memory, oom, linux)
  * @param applicableShapes compute shapes this applies to (e.g., VM.*, GPU.*)
  * @param embedding vector embedding for similarity search
+ * @param sourceRunbookPaths every runbook the chunk belongs to, starting with {@code runbookPath};
+ *     null or empty for just {@code runbookPath}
  */
 public record RunbookChunk(
     String id,
@@ -22,7 +33,8 @@ public record RunbookChunk(
     String content,
     List<String> tags,
     List<String> applicableShapes,
-    float[] embedding) {
+    float[] embedding,
+    List<String> sourceRunbookPaths) {
   /** Compact constructor with validation and defensive copies. */
   public RunbookChunk {
     Objects.requireNonNull(id, "RunbookChunk id cannot be null");
@@ -32,6 +44,50 @@ public record RunbookChunk(
     tags = tags != null ? List.copyOf(tags) : List.of();
     applicableShapes = applicableShapes != null ? List.copyOf(applicableShapes) : List.of();
     embedding = embedding != null ? Arrays.copyOf(embedding, embedding.length) : new float[0];
+    sourceRunbookPaths = copySources(runbookPath, sourceRunbookPaths);
+  }
+
+  /**
+   * Creates a chunk that belongs to a single runbook.
+   *
+   * @param id unique identifier for this chunk
+   * @param runbookPath path to the source runbook file
+   * @param sectionTitle the title of this section
+   * @param content the actual text content
+   * @param tags semantic tags for filtering
+   * @param applicableShapes compute shapes this applies to
+   * @param embedding vector embedding for similarity search
+   */
+  public RunbookChunk(
+      String id,
+      String runbookPath,
+      String sectionTitle,
+      String content,
+      List<String> tags,
+      List<String> applicableShapes,
+      float[] embedding) {
+    this(id, runbookPath, sectionTitle, content, tags, applicableShapes, embedding, null);
+  }
+
+  /**
+   * Validates and copies a list of source runbooks, for records that carry a primary runbook path
+   * and its sources.
+   *
+   * @param runbookPath the primary runbook path, possibly null
+   * @param sourceRunbookPaths every source runbook path, or null or empty for just the primary
+   * @return the immutable, duplicate-free source list
+   * @throws IllegalArgumentException if the list does not start with runbookPath
+   */
+  public static List<String> copySources(String runbookPath, List<String> sourceRunbookPaths) {
+    if (sourceRunbookPaths == null || sourceRunbookPaths.isEmpty()) {
+      return runbookPath == null ? List.of() : List.of(runbookPath);
+    }
+    List<String> sources = List.copyOf(new LinkedHashSet<>(sourceRunbookPaths));
+    if (!sources.get(0).equals(runbookPath)) {
+      throw new IllegalArgumentException(
+          "sourceRunbookPaths must start with runbookPath " + runbookPath + ": " + sources);
+    }
+    return sources;
   }
 
   /** Returns a defensive copy of the embedding array. */
@@ -39,4 +95,69 @@ public record RunbookChunk(
   public float[] embedding() {
     return Arrays.copyOf(embedding, embedding.length);
   }
+
+  /** Returns the number of embedding components, without copying the embedding. */
+  public int embeddingLength() {
+    return embedding.length;
+  }
+
+  /**
+   * Copies the embedding into an existing array, so a caller walking many chunks can reuse one
+   * buffer.
+   *
+   * @param target the array to fill, with at least {@link #embeddingLength()} components
+   * @throws IndexOutOfBoundsException if target is shorter than the embedding
+   */
+  public void copyEmbeddingTo(float[] target) {
+    System.arraycopy(embedding, 0, target, 0, embedding.length);
+  }
+
+  /**
+   * Returns a copy of this chunk with another embedding.
+   *
+   * @param embedding the new embedding, or null for none
+   * @return the copy
+   */
+  public RunbookChunk withEmbedding(float[] embedding) {
+    return new RunbookChunk(
+        id,
+        runbookPath,
+        sectionTitle,
+        content,
+        tags,
+        applicableShapes,
+        embedding,
+        sourceRunbookPaths);
+  }
+
+  /**
+   * Returns a copy of this chunk that belongs to the given runbooks, the first of which becomes
+   * its {@link #runbookPath()}.
+   *
+   * @param sources the new source runbook paths
+   * @return the copy
+   * @throws IllegalArgumentException if sources is empty
+   */
+  public RunbookChunk withSourceRunbookPaths(List<String> sources) {
+    if (sources.isEmpty()) {
+      throw new IllegalArgumentException("sources cannot be empty");
+    }
+    return new RunbookChunk(
+        id, sources.get(0), sectionTitle, content, tags, applicableShapes, embedding, sources);
+  }
+
+  /**
+   * Returns what remains of this chunk once the given runbooks no longer reference it.
+   *
+   * @param runbookPaths the runbooks being deleted or replaced
+   * @return this chunk if it belongs to none of them, a copy without them if other sources remain,
+   *     or empty if every source is among them
+   */
+  public Optional<RunbookChunk> withoutSources(Collection<String> runbookPaths) {
+    List<String> remaining = new ArrayList<>(sourceRunbookPaths);
+    if (!remaining.removeAll(runbookPaths)) {
+      return Optional.of(this);
+    }
+    return remaining.isEmpty() ? Optional.empty() : Optional.of(withSourceRunbookPaths(remaining));
+  }
 }
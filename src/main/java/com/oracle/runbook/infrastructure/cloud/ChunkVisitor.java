@@ -0,0 +1,22 @@
+package com.oracle.runbook.infrastructure.cloud;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import java.io.IOException;
+
+/**
+ * Receives the chunks of a store one row at a time from {@link
+ * VectorStoreRepository#exportChunks(ChunkVisitor)}, so an export can be written out as it is read
+ * instead of being copied into a list first.
+ */
+@FunctionalInterface
+public interface ChunkVisitor {
+
+  /**
+   * Visits one stored chunk.
+   *
+   * @param chunk the stored chunk; its own embedding may be empty
+   * @param embedding the chunk's embedding, in a buffer the store may reuse once the call returns
+   * @throws IOException if the visitor fails to write the chunk out, which ends the export
+   */
+  void visit(RunbookChunk chunk, float[] embedding) throws IOException;
+}
@@ -11,7 +11,9 @@ import com.oracle.runbook.infrastructure.cloud.aws.AwsEc2MetadataAdapter;
 import com.oracle.runbook.infrastructure.cloud.aws.AwsOpenSearchVectorStoreRepository;
 import com.oracle.runbook.infrastructure.cloud.aws.AwsS3StorageAdapter;
 import com.oracle.runbook.infrastructure.cloud.aws.AwsSnsAlertSourceAdapter;
+import com.oracle.runbook.infrastructure.cloud.local.HnswVectorStoreRepository;
 import com.oracle.runbook.infrastructure.cloud.local.InMemoryVectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.local.IvfVectorStoreRepository;
 import com.oracle.runbook.infrastructure.cloud.oci.OciComputeMetadataAdapter;
 import com.oracle.runbook.infrastructure.cloud.oci.OciObjectStorageAdapter;
 import com.oracle.runbook.infrastructure.cloud.oci.OciVectorStoreRepository;
@@ -41,7 +43,8 @@ public class CloudAdapterFactory {
   private static final String DEFAULT_PROVIDER = "oci";
   private static final String DEFAULT_VECTOR_STORE_PROVIDER = "local";
   private static final Set<String> SUPPORTED_PROVIDERS = Set.of("oci", "aws");
-  private static final Set<String> SUPPORTED_VECTOR_STORE_PROVIDERS = Set.of("local", "oci", "aws");
+  private static final Set<String> SUPPORTED_VECTOR_STORE_PROVIDERS =
+      Set.of("local", "hnsw", "ivf", "oci", "aws");
 
   private final String providerType;
   private final Config config;
@@ -193,6 +196,8 @@ public class CloudAdapterFactory {
 
     return switch (vectorStoreProvider) {
       case "local" -> InMemoryVectorStoreRepository.class;
+      case "hnsw" -> HnswVectorStoreRepository.class;
+      case "ivf" -> IvfVectorStoreRepository.class;
       case "oci" -> OciVectorStoreRepository.class;
       case "aws" -> AwsOpenSearchVectorStoreRepository.class;
       default ->
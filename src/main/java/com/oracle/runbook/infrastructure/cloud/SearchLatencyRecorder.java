@@ -0,0 +1,65 @@
+package com.oracle.runbook.infrastructure.cloud;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Counts search calls and their total wall-clock time for {@link VectorStoreStats}.
+ *
+ * <p>Backed by {@link LongAdder}s, so concurrent searches record without contending on a shared
+ * counter. Thread-safe.
+ */
+public final class SearchLatencyRecorder {
+
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+
+  /**
+   * Runs a search and records how long it took, whether it returned or threw.
+   *
+   * @param search the search to run
+   * @param <T> the search result type
+   * @return the search result
+   */
+  public <T> T time(Supplier<T> search) {
+    long start = System.nanoTime();
+    try {
+      return search.get();
+    } finally {
+      record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Records one search call.
+   *
+   * @param elapsedNanos the time the call took, in nanoseconds
+   */
+  public void record(long elapsedNanos) {
+    count.increment();
+    totalNanos.add(Math.max(0L, elapsedNanos));
+  }
+
+  /**
+   * Returns the number of recorded search calls.
+   *
+   * @return the call count
+   */
+  public long count() {
+    return count.sum();
+  }
+
+  /**
+   * Returns the mean time of the recorded search calls.
+   *
+   * @return the average, or {@link Duration#ZERO} if none were recorded
+   */
+  public Duration average() {
+    // Read the total first: a racing record() can only make the average slightly low, never divide
+    // a total by a count that excludes it
+    long nanos = totalNanos.sum();
+    long calls = count.sum();
+    return calls == 0 ? Duration.ZERO : Duration.ofNanos(nanos / calls);
+  }
+}
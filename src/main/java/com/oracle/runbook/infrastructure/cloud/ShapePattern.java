@@ -0,0 +1,125 @@
+package com.oracle.runbook.infrastructure.cloud;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compiled compute shape glob such as {@code VM.Standard.*}, matched without regular expressions.
+ *
+ * <p>A glob is split once at its {@code *} wildcards into literal segments; matching checks the
+ * first segment as a prefix, the last as a suffix and the others in order between them, comparing
+ * characters case-insensitively in place rather than lowercasing the shape. The patterns {@code *}
+ * and {@code all} match every shape.
+ *
+ * <p>Runbooks share a small vocabulary of shape globs, so {@link #compile(String)} keeps compiled
+ * globs in a process-wide cache: each one is parsed the first time a chunk carrying it is indexed
+ * or ranked, and is reused by every later filter and boost. The cache holds the most recently used
+ * globs up to a fixed bound, so arbitrary patterns cannot grow it without limit while the globs in
+ * use stay cached.
+ */
+public final class ShapePattern {
+
+  /** Upper bound on cached globs; the least recently used glob is evicted beyond it. */
+  static final int MAX_CACHED = 4096;
+
+  // Access order, so the eldest entry is the least recently used
+  private static final Map<String, ShapePattern> CACHE =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ShapePattern> eldest) {
+          return size() > MAX_CACHED;
+        }
+      };
+
+  private final String glob;
+  private final boolean matchesAll;
+  private final List<String> segments;
+
+  private ShapePattern(String glob) {
+    this.glob = glob;
+    this.matchesAll = glob.equals("*") || glob.equalsIgnoreCase("all");
+    this.segments = List.of(glob.split("\\*", -1));
+  }
+
+  /**
+   * Returns the compiled form of a shape glob, from the shared cache when it was compiled before.
+   *
+   * @param glob the glob pattern
+   * @return the compiled pattern
+   */
+  public static ShapePattern compile(String glob) {
+    Objects.requireNonNull(glob, "glob cannot be null");
+    synchronized (CACHE) {
+      ShapePattern cached = CACHE.get(glob);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    // Compile outside the lock; a glob compiled twice concurrently keeps the first copy
+    ShapePattern compiled = new ShapePattern(glob);
+    synchronized (CACHE) {
+      ShapePattern cached = CACHE.putIfAbsent(glob, compiled);
+      return cached != null ? cached : compiled;
+    }
+  }
+
+  /**
+   * Returns the glob this pattern was compiled from.
+   *
+   * @return the glob
+   */
+  public String glob() {
+    return glob;
+  }
+
+  /**
+   * Matches a compute shape, case-insensitively.
+   *
+   * @param shape the resource shape
+   * @return true if the shape matches
+   */
+  public boolean matches(String shape) {
+    if (matchesAll) {
+      return true;
+    }
+    String first = segments.get(0);
+    if (segments.size() == 1) {
+      return shape.length() == first.length()
+          && shape.regionMatches(true, 0, first, 0, first.length());
+    }
+    String last = segments.get(segments.size() - 1);
+    if (shape.length() < first.length() + last.length()
+        || !shape.regionMatches(true, 0, first, 0, first.length())
+        || !shape.regionMatches(true, shape.length() - last.length(), last, 0, last.length())) {
+      return false;
+    }
+    // Place the middle segments greedily, leftmost first, between the prefix and the suffix
+    int position = first.length();
+    int end = shape.length() - last.length();
+    for (int i = 1; i < segments.size() - 1; i++) {
+      position = indexOfIgnoreCase(shape, segments.get(i), position, end);
+      if (position < 0) {
+        return false;
+      }
+      position += segments.get(i).length();
+    }
+    return true;
+  }
+
+  /** Returns the first index of a segment within [from, end) of the shape, or -1. */
+  private static int indexOfIgnoreCase(String shape, String segment, int from, int end) {
+    for (int i = from; i + segment.length() <= end; i++) {
+      if (shape.regionMatches(true, i, segment, 0, segment.length())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public String toString() {
+    return glob;
+  }
+}
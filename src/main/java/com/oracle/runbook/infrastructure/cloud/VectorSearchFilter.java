@@ -0,0 +1,146 @@
+package com.oracle.runbook.infrastructure.cloud;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.rag.SearchHit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Metadata restriction applied to a vector search before results are ranked.
+ *
+ * <p>Each criterion is optional and all present criteria must hold:
+ *
+ * <ul>
+ *   <li>{@code anyTags}: the chunk carries at least one of these tags (exact match)
+ *   <li>{@code shape}: the chunk applies to this compute shape, either because one of its {@link
+ *       RunbookChunk#applicableShapes()} glob patterns matches it or because it lists none
+ *   <li>{@code runbookPaths}: the chunk belongs to one of these runbooks; a chunk shared by
+ *       several runbooks matches if any of its {@link RunbookChunk#sourceRunbookPaths() sources}
+ *       is listed
+ * </ul>
+ *
+ * @param anyTags tags of which a chunk must carry at least one; empty for no restriction
+ * @param shape the resource shape chunks must apply to; null for no restriction
+ * @param runbookPaths runbooks a chunk must belong to; empty for no restriction
+ */
+public record VectorSearchFilter(Set<String> anyTags, String shape, Set<String> runbookPaths) {
+
+  private static final VectorSearchFilter NONE = new VectorSearchFilter(Set.of(), null, Set.of());
+
+  /** Compact constructor with defensive copying; null collections become empty. */
+  public VectorSearchFilter {
+    anyTags = anyTags == null ? Set.of() : Set.copyOf(anyTags);
+    runbookPaths = runbookPaths == null ? Set.of() : Set.copyOf(runbookPaths);
+  }
+
+  /**
+   * Returns a filter that matches every chunk.
+   *
+   * @return the empty filter
+   */
+  public static VectorSearchFilter none() {
+    return NONE;
+  }
+
+  /**
+   * Returns a filter restricted to chunks applicable to a compute shape.
+   *
+   * @param shape the resource shape, or null for no restriction
+   * @return the filter
+   */
+  public static VectorSearchFilter forShape(String shape) {
+    return new VectorSearchFilter(Set.of(), shape, Set.of());
+  }
+
+  /**
+   * Returns a copy of this filter that also requires at least one of the given tags.
+   *
+   * @param tags the accepted tags
+   * @return the new filter
+   */
+  public VectorSearchFilter withAnyTags(Collection<String> tags) {
+    return new VectorSearchFilter(Set.copyOf(tags), shape, runbookPaths);
+  }
+
+  /**
+   * Returns a copy of this filter that is also restricted to the given compute shape.
+   *
+   * @param shape the resource shape, or null for no restriction
+   * @return the new filter
+   */
+  public VectorSearchFilter withShape(String shape) {
+    return new VectorSearchFilter(anyTags, shape, runbookPaths);
+  }
+
+  /**
+   * Returns a copy of this filter that is also restricted to the given runbooks.
+   *
+   * @param paths the accepted runbook paths
+   * @return the new filter
+   */
+  public VectorSearchFilter withRunbookPaths(Collection<String> paths) {
+    return new VectorSearchFilter(anyTags, shape, Set.copyOf(paths));
+  }
+
+  /** Returns true if this filter matches every chunk. */
+  public boolean isEmpty() {
+    return anyTags.isEmpty() && shape == null && runbookPaths.isEmpty();
+  }
+
+  /**
+   * Evaluates this filter against a single chunk.
+   *
+   * @param chunk the chunk to test
+   * @return true if every present criterion holds
+   */
+  public boolean matches(RunbookChunk chunk) {
+    return matches(chunk.sourceRunbookPaths(), chunk.tags(), chunk.applicableShapes());
+  }
+
+  /**
+   * Evaluates this filter against a single search hit.
+   *
+   * @param hit the hit to test
+   * @return true if every present criterion holds
+   */
+  public boolean matches(SearchHit hit) {
+    return matches(hit.sourceRunbookPaths(), hit.tags(), hit.applicableShapes());
+  }
+
+  private boolean matches(
+      List<String> sourceRunbookPaths, List<String> tags, List<String> applicableShapes) {
+    if (!runbookPaths.isEmpty() && sourceRunbookPaths.stream().noneMatch(runbookPaths::contains)) {
+      return false;
+    }
+    if (!anyTags.isEmpty() && tags.stream().noneMatch(anyTags::contains)) {
+      return false;
+    }
+    return shape == null || appliesToShape(applicableShapes, shape);
+  }
+
+  /**
+   * Returns true if a chunk with the given applicable shape patterns applies to a shape. A chunk
+   * without patterns applies to every shape.
+   *
+   * @param patterns the chunk's applicable shape patterns
+   * @param shape the resource shape
+   * @return true if the chunk applies
+   */
+  public static boolean appliesToShape(List<String> patterns, String shape) {
+    return patterns.isEmpty() || patterns.stream().anyMatch(p -> shapeMatches(p, shape));
+  }
+
+  /**
+   * Matches a compute shape against a glob pattern such as {@code VM.Standard.*}. The patterns
+   * {@code *} and {@code all} match every shape; matching is case-insensitive. The pattern is
+   * compiled once into a shared {@link ShapePattern}.
+   *
+   * @param pattern the glob pattern
+   * @param shape the resource shape
+   * @return true if the shape matches
+   */
+  public static boolean shapeMatches(String pattern, String shape) {
+    return ShapePattern.compile(pattern).matches(shape);
+  }
+}
@@ -2,7 +2,11 @@ package com.oracle.runbook.infrastructure.cloud;
 
 import com.oracle.runbook.domain.RunbookChunk;
 import com.oracle.runbook.rag.ScoredChunk;
+import com.oracle.runbook.rag.SearchHit;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Port interface for vector store operations on runbook chunks.
@@ -54,12 +58,268 @@ public interface VectorStoreRepository {
    */
   List<ScoredChunk> search(float[] queryEmbedding, int topK);
 
+  /**
+   * Searches for the top-K most similar runbook chunks that match a metadata filter.
+   *
+   * <p>Stores that can evaluate the filter natively should restrict the candidate set before
+   * scoring, so a selective filter both reduces work and never crowds matching chunks out of the
+   * result. The default implementation over-fetches with {@link #search(float[], int)} and
+   * discards non-matching chunks, widening the fetch until {@code topK} matches are found or the
+   * store is exhausted.
+   *
+   * @param queryEmbedding the query vector to search with
+   * @param topK the maximum number of results to return
+   * @param filter the metadata restriction; {@link VectorSearchFilter#none()} for none
+   * @return ordered list of matching chunks with similarity scores (most similar first), never null
+   */
+  default List<ScoredChunk> search(float[] queryEmbedding, int topK, VectorSearchFilter filter) {
+    Objects.requireNonNull(filter, "filter cannot be null");
+    if (filter.isEmpty()) {
+      return search(queryEmbedding, topK);
+    }
+    if (topK <= 0) {
+      throw new IllegalArgumentException("topK must be positive");
+    }
+    int fetch = (int) Math.min(Integer.MAX_VALUE, topK * 4L);
+    while (true) {
+      List<ScoredChunk> candidates = search(queryEmbedding, fetch);
+      List<ScoredChunk> matching =
+          candidates.stream().filter(result -> filter.matches(result.chunk())).limit(topK).toList();
+      if (matching.size() == topK || candidates.size() < fetch || fetch == Integer.MAX_VALUE) {
+        return matching;
+      }
+      fetch = (int) Math.min(Integer.MAX_VALUE, fetch * 4L);
+    }
+  }
+
+  /**
+   * Runs several similarity searches in one call.
+   *
+   * <p>Stores that scan their vectors should share one pass over memory between all queries, and
+   * remote stores should issue the searches concurrently. The default implementation runs the
+   * searches one after another.
+   *
+   * @param queryEmbeddings the query vectors
+   * @param topK the maximum number of results to return per query
+   * @return one result list per query, in query order, each as returned by {@link #search(float[],
+   *     int)}
+   */
+  default List<List<ScoredChunk>> searchBatch(List<float[]> queryEmbeddings, int topK) {
+    return searchBatch(queryEmbeddings, topK, VectorSearchFilter.none());
+  }
+
+  /**
+   * Runs several similarity searches that share one metadata filter in one call.
+   *
+   * <p>The default implementation runs {@link #search(float[], int, VectorSearchFilter)} for each
+   * query in turn.
+   *
+   * @param queryEmbeddings the query vectors
+   * @param topK the maximum number of results to return per query
+   * @param filter the metadata restriction applied to every query
+   * @return one result list per query, in query order
+   */
+  default List<List<ScoredChunk>> searchBatch(
+      List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+    Objects.requireNonNull(queryEmbeddings, "queryEmbeddings cannot be null");
+    Objects.requireNonNull(filter, "filter cannot be null");
+    return queryEmbeddings.stream().map(query -> search(query, topK, filter)).toList();
+  }
+
+  /**
+   * Searches like {@link #search(float[], int, VectorSearchFilter)} but returns each result without
+   * its embedding.
+   *
+   * <p>This is the query path of retrieval, which ranks chunks by score and metadata and never
+   * reads their vectors. Stores should avoid materializing or copying embeddings for it. The
+   * default implementation strips the chunks returned by the full search.
+   *
+   * @param queryEmbedding the query vector to search with
+   * @param topK the maximum number of results to return
+   * @param filter the metadata restriction; {@link VectorSearchFilter#none()} for none
+   * @return ordered list of matching hits (most similar first), never null
+   */
+  default List<SearchHit> searchHits(float[] queryEmbedding, int topK, VectorSearchFilter filter) {
+    return search(queryEmbedding, topK, filter).stream().map(SearchHit::of).toList();
+  }
+
+  /**
+   * Runs several {@link #searchHits(float[], int, VectorSearchFilter) embedding-free searches} that
+   * share one metadata filter in one call.
+   *
+   * <p>The default implementation strips the results of {@link #searchBatch(List, int,
+   * VectorSearchFilter)}, so stores keep their batched scan or concurrent round trips.
+   *
+   * @param queryEmbeddings the query vectors
+   * @param topK the maximum number of results to return per query
+   * @param filter the metadata restriction applied to every query
+   * @return one hit list per query, in query order
+   */
+  default List<List<SearchHit>> searchHitsBatch(
+      List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+    return searchBatch(queryEmbeddings, topK, filter).stream()
+        .map(results -> results.stream().map(SearchHit::of).toList())
+        .toList();
+  }
+
+  /**
+   * Ranks whole runbooks against a query, as the first stage of two-stage retrieval: callers then
+   * search chunks only inside the returned runbooks with {@link
+   * VectorSearchFilter#withRunbookPaths}.
+   *
+   * <p>Stores with a runbook-level index score one centroid per runbook, the normalized mean of
+   * its chunk embeddings and any {@link #storeRunbookTitles title embedding}, instead of scoring
+   * chunks. The default implementation over-fetches {@link #searchHits} and ranks runbooks by
+   * their best chunk; a chunk shared by several runbooks counts for each of them.
+   *
+   * @param queryEmbedding the query vector to search with
+   * @param limit the maximum number of runbooks to return
+   * @param filter the metadata restriction; a runbook is eligible if any of its chunks matches
+   * @return runbook paths, most similar first, never null
+   * @throws IllegalArgumentException if limit is not positive
+   */
+  default List<String> searchRunbooks(
+      float[] queryEmbedding, int limit, VectorSearchFilter filter) {
+    Objects.requireNonNull(filter, "filter cannot be null");
+    if (limit <= 0) {
+      throw new IllegalArgumentException("limit must be positive");
+    }
+    int fetch = (int) Math.min(Integer.MAX_VALUE, limit * 8L);
+    return searchHits(queryEmbedding, fetch, filter).stream()
+        .flatMap(hit -> hit.sourceRunbookPaths().stream())
+        .filter(path -> filter.runbookPaths().isEmpty() || filter.runbookPaths().contains(path))
+        .distinct()
+        .limit(limit)
+        .toList();
+  }
+
+  /**
+   * Records an embedding of each runbook's title, which stores with a runbook-level index fold
+   * into that runbook's centroid for {@link #searchRunbooks}.
+   *
+   * <p>Titles apply only to runbooks that currently have chunks, and are dropped when the runbook
+   * is deleted or replaced, so they are stored after the runbook's chunks. The default
+   * implementation ignores them.
+   *
+   * @param titleEmbeddings title embedding per runbook path
+   */
+  default void storeRunbookTitles(Map<String, float[]> titleEmbeddings) {}
+
   /**
    * Deletes all chunks associated with a runbook path.
    *
    * <p>Enables re-indexing when a runbook is updated - delete old chunks before storing new ones.
+   * A chunk shared with other runbooks is not deleted: the runbook is dropped from its {@link
+   * RunbookChunk#sourceRunbookPaths() sources}, and the chunk goes when its last source does.
    *
    * @param runbookPath the path of the runbook whose chunks should be deleted
    */
   void delete(String runbookPath);
+
+  /**
+   * Replaces every chunk of the given runbooks with a new generation of chunks in one swap.
+   *
+   * <p>Callers build the new generation (fetch, chunk, embed) before calling, so a failure while
+   * building leaves the current chunks in place. Stores that override this method guarantee that
+   * a concurrent search sees either all of the old chunks of these runbooks or all of the new
+   * ones, never a runbook with no chunks at all; a search already running finishes on the old
+   * generation. A listed runbook without new chunks is removed. Chunks shared with runbooks that
+   * are not listed lose only the listed runbooks as sources, as in {@link #delete(String)}, and a
+   * new chunk with the id of a stored one replaces it.
+   *
+   * <p>The default implementation deletes each runbook and then stores the batch, so searches in
+   * between see the runbooks missing, but only for the time it takes to write the batch.
+   *
+   * @param runbookPaths the runbooks whose current chunks are replaced
+   * @param chunks the new chunks, normally belonging to those runbooks
+   * @throws NullPointerException if runbookPaths or chunks is null
+   */
+  default void replaceRunbooks(List<String> runbookPaths, List<RunbookChunk> chunks) {
+    Objects.requireNonNull(runbookPaths, "runbookPaths cannot be null");
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    runbookPaths.forEach(this::delete);
+    storeBatch(chunks);
+  }
+
+  /**
+   * Gives the store a chance to reorganize its index after a bulk change such as a full runbook
+   * sync, for example by retraining partitions or compacting deleted entries.
+   *
+   * <p>Implementations may do the work in the background and return immediately; searches must
+   * keep working while it runs. The default implementation does nothing.
+   */
+  default void optimize() {}
+
+  /**
+   * Returns a snapshot of the store's size, memory footprint, index state and search latency.
+   *
+   * <p>Stores should compute it from their own bookkeeping without issuing searches. The default
+   * implementation reports everything as {@link VectorStoreStats#UNKNOWN unknown}.
+   *
+   * @return the current statistics, never null
+   */
+  default VectorStoreStats stats() {
+    return VectorStoreStats.unknown(providerType());
+  }
+
+  /**
+   * Returns every stored chunk with its embedding, so the index can be copied into another store
+   * without embedding the runbooks again.
+   *
+   * <p>The result never holds half of a {@link #replaceRunbooks(List, List)} swap. Embeddings may
+   * come back normalized, or decoded from the store's compact encoding, as long as they rank the
+   * same. The default implementation throws, for stores that cannot enumerate their contents.
+   *
+   * @return the stored chunks, in no particular order
+   * @throws UnsupportedOperationException if the store cannot export its chunks
+   */
+  default List<RunbookChunk> exportChunks() {
+    throw new UnsupportedOperationException(
+        "The " + providerType() + " vector store cannot export its chunks");
+  }
+
+  /**
+   * Passes every stored chunk and its embedding to a visitor, one row at a time, so an export can
+   * be streamed without first copying the whole index.
+   *
+   * <p>The visited chunks are the ones {@link #exportChunks()} returns, and never half of a swap.
+   * Stores may hold back mutations until the visit ends, so a visitor should not block for long.
+   * The default implementation visits the result of {@link #exportChunks()}, copying each
+   * embedding into one reused buffer.
+   *
+   * @param visitor receives each chunk
+   * @throws IOException if the visitor fails
+   * @throws UnsupportedOperationException if the store cannot export its chunks, thrown before
+   *     any chunk is visited
+   */
+  default void exportChunks(ChunkVisitor visitor) throws IOException {
+    Objects.requireNonNull(visitor, "visitor cannot be null");
+    float[] buffer = new float[0];
+    for (RunbookChunk chunk : exportChunks()) {
+      if (buffer.length != chunk.embeddingLength()) {
+        buffer = new float[chunk.embeddingLength()];
+      }
+      chunk.copyEmbeddingTo(buffer);
+      visitor.visit(chunk, buffer);
+    }
+  }
+
+  /**
+   * Returns the stored chunks that belong to a runbook, with their embeddings, including chunks
+   * it shares with other runbooks.
+   *
+   * <p>Ingestion reads them when one runbook is ingested on its own, so chunks collapsed across
+   * runbooks keep their id, embedding and other sources instead of being stored again. The default
+   * implementation filters {@link #exportChunks()}.
+   *
+   * @param runbookPath the runbook path
+   * @return the chunks whose sources include the runbook, in no particular order
+   * @throws UnsupportedOperationException if the store cannot enumerate its chunks
+   */
+  default List<RunbookChunk> runbookChunks(String runbookPath) {
+    Objects.requireNonNull(runbookPath, "runbookPath cannot be null");
+    return exportChunks().stream()
+        .filter(chunk -> chunk.sourceRunbookPaths().contains(runbookPath))
+        .toList();
+  }
 }
@@ -0,0 +1,108 @@
+package com.oracle.runbook.infrastructure.cloud;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Point-in-time statistics of a {@link VectorStoreRepository}, used to size the store and to watch
+ * it in production.
+ *
+ * <p>Byte counts estimate the payload the store keeps in memory: array capacity for vectors and
+ * index structures, and one byte per character of Latin-1 text or two otherwise (as compact
+ * strings store it). Object headers and hash-table entries are not counted, so real heap usage is
+ * somewhat higher. A value the store cannot report is {@value #UNKNOWN}.
+ *
+ * @param providerType the store's {@link VectorStoreRepository#providerType() provider type}
+ * @param chunkCount the number of stored chunks
+ * @param dimension the number of components per vector; 0 while the store is empty
+ * @param vectorBytes heap bytes holding vectors, including embeddings kept on stored chunks
+ * @param offHeapVectorBytes bytes of vectors held outside the heap, in mapped snapshots or scratch
+ *     files
+ * @param indexBytes heap bytes of search structures other than the vectors, such as metadata
+ *     bitmaps, graph links or partition tables
+ * @param contentBytes bytes of chunk text
+ * @param metadataBytes bytes of chunk ids, runbook paths, section titles, tags and shapes
+ * @param chunksPerRunbook the number of chunks stored per runbook path, sorted by path
+ * @param indexState whether the store's index is usable as is
+ * @param searchCount the number of search calls served, each possibly holding several queries
+ * @param averageSearchLatency the mean wall-clock time of those calls
+ */
+public record VectorStoreStats(
+    String providerType,
+    long chunkCount,
+    int dimension,
+    long vectorBytes,
+    long offHeapVectorBytes,
+    long indexBytes,
+    long contentBytes,
+    long metadataBytes,
+    Map<String, Integer> chunksPerRunbook,
+    IndexState indexState,
+    long searchCount,
+    Duration averageSearchLatency) {
+
+  /** Marks a count or size the store cannot report. */
+  public static final int UNKNOWN = -1;
+
+  /** Compact constructor with validation and a sorted defensive copy of the runbook counts. */
+  public VectorStoreStats {
+    Objects.requireNonNull(providerType, "providerType cannot be null");
+    Objects.requireNonNull(indexState, "indexState cannot be null");
+    Objects.requireNonNull(averageSearchLatency, "averageSearchLatency cannot be null");
+    chunksPerRunbook =
+        chunksPerRunbook == null
+            ? Map.of()
+            : Collections.unmodifiableMap(new TreeMap<>(chunksPerRunbook));
+  }
+
+  /**
+   * Returns statistics for a store that reports nothing about its contents.
+   *
+   * @param providerType the store's provider type
+   * @return statistics with every count and size {@link #UNKNOWN}
+   */
+  public static VectorStoreStats unknown(String providerType) {
+    return new VectorStoreStats(
+        providerType,
+        UNKNOWN,
+        UNKNOWN,
+        UNKNOWN,
+        UNKNOWN,
+        UNKNOWN,
+        UNKNOWN,
+        UNKNOWN,
+        Map.of(),
+        IndexState.UNKNOWN,
+        UNKNOWN,
+        Duration.ZERO);
+  }
+
+  /**
+   * Returns the total bytes held on the heap: vectors, index, content and metadata.
+   *
+   * @return the sum, or {@link #UNKNOWN} if any part is unknown
+   */
+  public long heapBytes() {
+    if (vectorBytes < 0 || indexBytes < 0 || contentBytes < 0 || metadataBytes < 0) {
+      return UNKNOWN;
+    }
+    return vectorBytes + indexBytes + contentBytes + metadataBytes;
+  }
+
+  /** Build state of a store's search index. */
+  public enum IndexState {
+    /** The store scans every vector exactly; there is no index to build. */
+    NONE,
+    /** The index reflects the stored vectors. */
+    READY,
+    /** The index answers searches but would benefit from a rebuild, e.g. after bulk changes. */
+    STALE,
+    /** A rebuild is running in the background; searches use the previous index meanwhile. */
+    BUILDING,
+    /** The store does not report its index state. */
+    UNKNOWN
+  }
+}
@@ -48,6 +48,11 @@ public class AwsBedrockLlmProvider implements LlmProvider {
     return "aws-bedrock";
   }
 
+  @Override
+  public String embeddingModelId() {
+    return providerId() + "/" + config.embeddingModelId();
+  }
+
   @Override
   public CompletableFuture<String> generateText(String prompt, GenerationConfig genConfig) {
     String modelId = genConfig.modelOverride().orElse(config.textModelId());
@@ -0,0 +1,131 @@
+package com.oracle.runbook.infrastructure.cloud.aws;
+
+import java.util.Objects;
+
+/**
+ * Configuration for {@link AwsOpenSearchVectorStoreRepository}.
+ *
+ * @param endpoint the domain endpoint, e.g. {@code https://search-runbooks.example.com}; a
+ *     trailing slash is dropped
+ * @param indexName the k-NN index holding runbook chunks; created on first write if missing
+ * @param engine the k-NN engine used when the index is created
+ * @param m HNSW links per node used when the index is created
+ * @param efConstruction HNSW candidate list size while indexing, used when the index is created
+ * @param efSearch HNSW candidate list size while searching, sent with every query (nmslib reads
+ *     it from the index instead, where it is set when the index is created)
+ * @param bulkBatchSize the maximum number of chunks sent in one {@code _bulk} request
+ * @param username the user for HTTP basic authentication (fine-grained access control), or null
+ * @param password the password for HTTP basic authentication, or null
+ * @param signingRegion the region to sign requests for with AWS Signature Version 4 (IAM access
+ *     policies), or null to leave requests unsigned; exclusive with basic authentication
+ */
+public record AwsOpenSearchConfig(
+    String endpoint,
+    String indexName,
+    OpenSearchKnnEngine engine,
+    int m,
+    int efConstruction,
+    int efSearch,
+    int bulkBatchSize,
+    String username,
+    String password,
+    String signingRegion) {
+
+  /** Default index name. */
+  public static final String DEFAULT_INDEX_NAME = "runbook-chunks";
+
+  /** Default number of HNSW links per node. */
+  public static final int DEFAULT_M = 16;
+
+  /** Default HNSW candidate list size while indexing. */
+  public static final int DEFAULT_EF_CONSTRUCTION = 128;
+
+  /** Default HNSW candidate list size while searching. */
+  public static final int DEFAULT_EF_SEARCH = 100;
+
+  /** Default number of chunks per {@code _bulk} request. */
+  public static final int DEFAULT_BULK_BATCH_SIZE = 500;
+
+  /** Compact constructor with validation. */
+  public AwsOpenSearchConfig {
+    Objects.requireNonNull(endpoint, "endpoint cannot be null");
+    Objects.requireNonNull(indexName, "indexName cannot be null");
+    Objects.requireNonNull(engine, "engine cannot be null");
+    if (endpoint.isBlank()) {
+      throw new IllegalArgumentException("endpoint cannot be blank");
+    }
+    if (indexName.isBlank()) {
+      throw new IllegalArgumentException("indexName cannot be blank");
+    }
+    if (m <= 0) {
+      throw new IllegalArgumentException("m must be positive");
+    }
+    if (efConstruction <= 0) {
+      throw new IllegalArgumentException("efConstruction must be positive");
+    }
+    if (efSearch <= 0) {
+      throw new IllegalArgumentException("efSearch must be positive");
+    }
+    if (bulkBatchSize <= 0) {
+      throw new IllegalArgumentException("bulkBatchSize must be positive");
+    }
+    if ((username == null) != (password == null)) {
+      throw new IllegalArgumentException("username and password must be set together");
+    }
+    if (signingRegion != null && signingRegion.isBlank()) {
+      throw new IllegalArgumentException("signingRegion cannot be blank");
+    }
+    if (signingRegion != null && username != null) {
+      throw new IllegalArgumentException(
+          "signingRegion and username cannot both be set; both use the Authorization header");
+    }
+    endpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+  }
+
+  /**
+   * Returns the default configuration for an endpoint: a faiss index named {@value
+   * #DEFAULT_INDEX_NAME} without authentication or request signing.
+   *
+   * @param endpoint the domain endpoint
+   * @return the default configuration
+   */
+  public static AwsOpenSearchConfig defaults(String endpoint) {
+    return new AwsOpenSearchConfig(
+        endpoint,
+        DEFAULT_INDEX_NAME,
+        OpenSearchKnnEngine.FAISS,
+        DEFAULT_M,
+        DEFAULT_EF_CONSTRUCTION,
+        DEFAULT_EF_SEARCH,
+        DEFAULT_BULK_BATCH_SIZE,
+        null,
+        null,
+        null);
+  }
+
+  /** Returns the configuration with the password masked, so it can be logged. */
+  @Override
+  public String toString() {
+    return "AwsOpenSearchConfig[endpoint="
+        + endpoint
+        + ", indexName="
+        + indexName
+        + ", engine="
+        + engine.apiName()
+        + ", m="
+        + m
+        + ", efConstruction="
+        + efConstruction
+        + ", efSearch="
+        + efSearch
+        + ", bulkBatchSize="
+        + bulkBatchSize
+        + ", username="
+        + username
+        + ", password="
+        + (password == null ? null : "****")
+        + ", signingRegion="
+        + signingRegion
+        + "]";
+  }
+}
@@ -1,46 +1,775 @@
 package com.oracle.runbook.infrastructure.cloud.aws;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.SearchLatencyRecorder;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
 import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreStats;
 import com.oracle.runbook.rag.ScoredChunk;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.http.ContentStreamProvider;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.auth.aws.signer.AwsV4HttpSigner;
+import software.amazon.awssdk.http.auth.spi.signer.SignedRequest;
+import software.amazon.awssdk.identity.spi.AwsCredentialsIdentity;
+import software.amazon.awssdk.identity.spi.IdentityProvider;
 
 /**
- * AWS OpenSearch implementation of {@link VectorStoreRepository}.
+ * AWS OpenSearch implementation of {@link VectorStoreRepository}, backed by a k-NN index.
  *
- * <p>This is a stub implementation for future AWS OpenSearch Serverless integration. All methods
- * throw {@link UnsupportedOperationException} until implemented.
+ * <p>The index is created on the first write if it does not exist yet, with a {@code knn_vector}
+ * field sized to the first stored chunk and an HNSW method on the configured {@link
+ * OpenSearchKnnEngine}. Embeddings are L2-normalized and indexed in the inner-product space, so
+ * OpenSearch scores convert back exactly to the cosine similarity the other stores report.
+ *
+ * <p>{@link #storeBatch(List)} writes through the {@code _bulk} API in requests of at most {@link
+ * AwsOpenSearchConfig#bulkBatchSize()} chunks, using the chunk id as document id so a re-stored
+ * chunk replaces the old one. Every write tags its documents with a fresh {@code generation}, so
+ * {@link #replaceRunbooks(List, List)} can index the new chunks and then remove the old ones with
+ * a query whose size does not grow with the number of chunks. {@link #delete(String)} is an
+ * {@code _update_by_query} on the runbook path.
+ *
+ * <p>Every document lists its {@link RunbookChunk#sourceRunbookPaths() source runbooks} in a
+ * {@code runbookPaths} keyword field, which path filters match. Deletes and replacements run a
+ * script that drops the affected runbooks from that list and deletes a document only once no
+ * source remains, so a chunk shared by several runbooks survives until its last one goes.
+ * Documents indexed before the field existed are treated as belonging to {@code runbookPath}
+ * alone.
+ * Searches ask only for the chunk fields through {@code _source} filtering, so embeddings never
+ * travel back over the wire and returned chunks have an empty {@link RunbookChunk#embedding()}.
+ *
+ * <p>The tag and runbook-path criteria of a {@link VectorSearchFilter} are applied inside the k-NN
+ * search on engines that support it; shape globs are checked on an over-fetched result. {@link
+ * #searchBatch(List, int, VectorSearchFilter) Batched searches} are sent as one {@code _msearch}
+ * request. The configured {@code ef_search} is passed with every k-NN query on faiss and Lucene,
+ * which ignore the index setting that nmslib reads.
+ *
+ * <p>With a {@link AwsOpenSearchConfig#signingRegion() signing region}, requests are signed with
+ * AWS Signature Version 4 using the default credential chain, for domains with an IAM access
+ * policy. Otherwise they use HTTP basic authentication when a username is configured
+ * (fine-grained access control), or go unsigned, for example behind an IP-based access policy.
  *
  * @see VectorStoreRepository
  */
 public class AwsOpenSearchVectorStoreRepository implements VectorStoreRepository {
 
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+  private static final String JSON = "application/json";
+  private static final String NDJSON = "application/x-ndjson";
+
+  private static final String FIELD_EMBEDDING = "embedding";
+  private static final String FIELD_RUNBOOK_PATH = "runbookPath";
+  private static final String FIELD_RUNBOOK_PATHS = "runbookPaths";
+  private static final String FIELD_SECTION_TITLE = "sectionTitle";
+  private static final String FIELD_CONTENT = "content";
+  private static final String FIELD_TAGS = "tags";
+  private static final String FIELD_APPLICABLE_SHAPES = "applicableShapes";
+  private static final String FIELD_GENERATION = "generation";
+
+  /** Service name Amazon OpenSearch Service domains are signed for. */
+  private static final String SIGNING_SERVICE = "es";
+
+  /**
+   * Signed headers not copied to the request: the content type is already set, and {@link
+   * HttpClient} derives the others itself and refuses to accept them.
+   */
+  private static final Set<String> UNCOPIED_HEADERS =
+      Set.of("content-type", "host", "content-length");
+
+  /** Fields returned by searches; everything except the embedding. */
+  private static final List<String> SOURCE_FIELDS =
+      List.of(
+          FIELD_RUNBOOK_PATH,
+          FIELD_RUNBOOK_PATHS,
+          FIELD_SECTION_TITLE,
+          FIELD_CONTENT,
+          FIELD_TAGS,
+          FIELD_APPLICABLE_SHAPES);
+
+  /** Over-fetch factor for shape criteria, which are checked after the search. */
+  private static final int POST_FILTER_FACTOR = 4;
+
+  /** Most chunks returned by {@link #runbookChunks(String)}, OpenSearch's default window. */
+  private static final int MAX_RUNBOOK_CHUNKS = 10_000;
+
+  /** Most runbooks listed by {@link #stats()}; a terms aggregation needs an explicit size. */
+  private static final int MAX_STATS_RUNBOOKS = 10_000;
+
+  /**
+   * Removes {@code params.paths} from a document's sources, deleting the document once none
+   * remain. Documents without a source list belong to their runbook path alone.
+   */
+  private static final String REMOVE_SOURCES_SCRIPT =
+      "List paths = new ArrayList(ctx._source.runbookPaths != null"
+          + " ? ctx._source.runbookPaths : [ctx._source.runbookPath]);"
+          + " paths.removeAll(params.paths);"
+          + " if (paths.isEmpty()) { ctx.op = 'delete'; }"
+          + " else { ctx._source.runbookPaths = paths; ctx._source.runbookPath = paths.get(0); }";
+
+  private final AwsOpenSearchConfig config;
+  private final HttpClient httpClient;
+  private final String authorization;
+  private final AwsV4HttpSigner signer;
+  private final IdentityProvider<? extends AwsCredentialsIdentity> credentials;
+  private final SearchLatencyRecorder searchLatency = new SearchLatencyRecorder();
+
+  /** Whether the index is known to exist; guarded by this for the check-and-create. */
+  private volatile boolean indexReady;
+
+  /**
+   * Creates a repository for the configured domain and index. Signed requests resolve credentials
+   * through the AWS default credential chain.
+   *
+   * @param config the OpenSearch configuration
+   * @throws NullPointerException if config is null
+   */
+  public AwsOpenSearchVectorStoreRepository(AwsOpenSearchConfig config) {
+    this(
+        config,
+        config != null && config.signingRegion() != null
+            ? DefaultCredentialsProvider.create()
+            : null);
+  }
+
+  /**
+   * Creates a repository that signs requests with the given credentials.
+   *
+   * @param config the OpenSearch configuration
+   * @param credentials the credentials to sign with; required when a signing region is configured
+   * @throws NullPointerException if config is null, or credentials is null while signing
+   */
+  AwsOpenSearchVectorStoreRepository(
+      AwsOpenSearchConfig config, IdentityProvider<? extends AwsCredentialsIdentity> credentials) {
+    this.config = Objects.requireNonNull(config, "config cannot be null");
+    if (config.signingRegion() == null) {
+      this.signer = null;
+      this.credentials = null;
+    } else {
+      this.signer = AwsV4HttpSigner.create();
+      this.credentials = Objects.requireNonNull(credentials, "credentials cannot be null");
+    }
+    this.httpClient = HttpClient.newBuilder().connectTimeout(REQUEST_TIMEOUT).build();
+    this.authorization =
+        config.username() == null
+            ? null
+            : "Basic "
+                + Base64.getEncoder()
+                    .encodeToString(
+                        (config.username() + ":" + config.password())
+                            .getBytes(StandardCharsets.UTF_8));
+  }
+
   @Override
   public String providerType() {
     return "aws";
   }
 
+  /** {@inheritDoc} */
   @Override
   public void store(RunbookChunk chunk) {
-    throw new UnsupportedOperationException(
-        "AWS OpenSearch vector store is not yet implemented. Use 'local' or 'oci' provider.");
+    Objects.requireNonNull(chunk, "chunk cannot be null");
+    storeBatch(List.of(chunk));
   }
 
+  /** {@inheritDoc} */
   @Override
   public void storeBatch(List<RunbookChunk> chunks) {
-    throw new UnsupportedOperationException(
-        "AWS OpenSearch vector store is not yet implemented. Use 'local' or 'oci' provider.");
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    if (chunks.isEmpty()) {
+      return;
+    }
+    for (RunbookChunk chunk : chunks) {
+      Objects.requireNonNull(chunk, "chunk cannot be null");
+    }
+
+    index(chunks, newGeneration());
+  }
+
+  /** Indexes chunks in bulk requests, tagging every document with the given generation. */
+  private void index(List<RunbookChunk> chunks, String generation) {
+    if (chunks.isEmpty()) {
+      return;
+    }
+    ensureIndex(chunks.get(0).embeddingLength());
+    for (int start = 0; start < chunks.size(); start += config.bulkBatchSize()) {
+      bulkIndex(
+          chunks.subList(start, Math.min(chunks.size(), start + config.bulkBatchSize())),
+          generation);
+    }
+  }
+
+  private static String newGeneration() {
+    return UUID.randomUUID().toString();
   }
 
+  /** {@inheritDoc} */
   @Override
   public List<ScoredChunk> search(float[] queryEmbedding, int topK) {
-    throw new UnsupportedOperationException(
-        "AWS OpenSearch vector store is not yet implemented. Use 'local' or 'oci' provider.");
+    return search(queryEmbedding, topK, VectorSearchFilter.none());
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public List<ScoredChunk> search(float[] queryEmbedding, int topK, VectorSearchFilter filter) {
+    Objects.requireNonNull(queryEmbedding, "queryEmbedding cannot be null");
+    Objects.requireNonNull(filter, "filter cannot be null");
+    if (topK <= 0) {
+      throw new IllegalArgumentException("topK must be positive");
+    }
+    if (!filter.isEmpty() && !config.engine().supportsFiltering()) {
+      return VectorStoreRepository.super.search(queryEmbedding, topK, filter);
+    }
+
+    return searchLatency.time(() -> knnSearch(queryEmbedding, topK, filter));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public List<List<ScoredChunk>> searchBatch(
+      List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+    Objects.requireNonNull(queryEmbeddings, "queryEmbeddings cannot be null");
+    Objects.requireNonNull(filter, "filter cannot be null");
+    if (topK <= 0) {
+      throw new IllegalArgumentException("topK must be positive");
+    }
+    if (queryEmbeddings.size() <= 1
+        || (!filter.isEmpty() && !config.engine().supportsFiltering())) {
+      return VectorStoreRepository.super.searchBatch(queryEmbeddings, topK, filter);
+    }
+    return searchLatency.time(() -> knnMultiSearch(queryEmbeddings, topK, filter));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Sends one {@code _search} that counts the index's documents and aggregates them by source
+   * runbook, listing at most {@value #MAX_STATS_RUNBOOKS} runbooks. Sizes and index state are held
+   * by the cluster and reported as unknown. The search counters cover the k-NN round trips this
+   * instance has made.
+   *
+   * @throws IllegalStateException if OpenSearch rejects the request
+   */
+  @Override
+  public VectorStoreStats stats() {
+    ObjectNode body = OBJECT_MAPPER.createObjectNode().put("size", 0).put("track_total_hits", true);
+    ObjectNode aggs = body.putObject("aggs");
+    aggs.putObject("runbooks")
+        .putObject("terms")
+        .put("field", FIELD_RUNBOOK_PATHS)
+        .put("size", MAX_STATS_RUNBOOKS);
+    ObjectNode legacy = aggs.putObject("legacy");
+    legacy
+        .putObject("filter")
+        .putObject("bool")
+        .putObject("must_not")
+        .putObject("exists")
+        .put("field", FIELD_RUNBOOK_PATHS);
+    legacy
+        .putObject("aggs")
+        .putObject("runbooks")
+        .putObject("terms")
+        .put("field", FIELD_RUNBOOK_PATH)
+        .put("size", MAX_STATS_RUNBOOKS);
+    HttpResponse<String> response = send("POST", "/" + config.indexName() + "/_search", body);
+    long chunkCount = 0L;
+    Map<String, Integer> chunksPerRunbook = new HashMap<>();
+    if (response.statusCode() != 404) {
+      requireSuccess(response, "stats");
+      JsonNode result = readJson(response.body());
+      chunkCount = result.path("hits").path("total").path("value").asLong();
+      JsonNode aggregations = result.path("aggregations");
+      for (JsonNode bucket : aggregations.path("runbooks").path("buckets")) {
+        chunksPerRunbook.put(bucket.path("key").asText(), bucket.path("doc_count").asInt());
+      }
+      for (JsonNode bucket :
+          aggregations.path("legacy").path("runbooks").path("buckets")) {
+        chunksPerRunbook.merge(
+            bucket.path("key").asText(), bucket.path("doc_count").asInt(), Integer::sum);
+      }
+    }
+    return new VectorStoreStats(
+        providerType(),
+        chunkCount,
+        VectorStoreStats.UNKNOWN,
+        VectorStoreStats.UNKNOWN,
+        VectorStoreStats.UNKNOWN,
+        VectorStoreStats.UNKNOWN,
+        VectorStoreStats.UNKNOWN,
+        VectorStoreStats.UNKNOWN,
+        chunksPerRunbook,
+        VectorStoreStats.IndexState.UNKNOWN,
+        searchLatency.count(),
+        searchLatency.average());
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Sends one {@code _search} on the source runbook list, reading at most {@value
+   * #MAX_RUNBOOK_CHUNKS} chunks with their normalized embeddings.
+   *
+   * @throws IllegalStateException if OpenSearch rejects the request
+   */
+  @Override
+  public List<RunbookChunk> runbookChunks(String runbookPath) {
+    Objects.requireNonNull(runbookPath, "runbookPath cannot be null");
+    ObjectNode body = OBJECT_MAPPER.createObjectNode().put("size", MAX_RUNBOOK_CHUNKS);
+    body.set("query", pathQuery(List.of(runbookPath)));
+    HttpResponse<String> response = send("POST", "/" + config.indexName() + "/_search", body);
+    if (response.statusCode() == 404) {
+      return List.of();
+    }
+    requireSuccess(response, "runbook lookup");
+    List<RunbookChunk> chunks = new ArrayList<>();
+    for (JsonNode hit : readJson(response.body()).path("hits").path("hits")) {
+      JsonNode vector = hit.path("_source").path(FIELD_EMBEDDING);
+      float[] embedding = new float[vector.size()];
+      for (int i = 0; i < embedding.length; i++) {
+        embedding[i] = (float) vector.get(i).asDouble();
+      }
+      chunks.add(toRunbookChunk(hit).withEmbedding(embedding));
+    }
+    return chunks;
+  }
+
+  private List<ScoredChunk> knnSearch(float[] queryEmbedding, int topK, VectorSearchFilter filter) {
+    ObjectNode body = searchBody(queryEmbedding, topK, filter);
+    HttpResponse<String> response = send("POST", "/" + config.indexName() + "/_search", body);
+    if (response.statusCode() == 404) {
+      return List.of();
+    }
+    requireSuccess(response, "search");
+    return toScoredChunks(readJson(response.body()), topK, filter);
+  }
+
+  private List<List<ScoredChunk>> knnMultiSearch(
+      List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+    StringBuilder ndjson = new StringBuilder();
+    for (float[] queryEmbedding : queryEmbeddings) {
+      Objects.requireNonNull(queryEmbedding, "queryEmbedding cannot be null");
+      ObjectNode header = OBJECT_MAPPER.createObjectNode().put("index", config.indexName());
+      ndjson.append(header).append('\n');
+      ndjson.append(searchBody(queryEmbedding, topK, filter)).append('\n');
+    }
+    HttpResponse<String> response = send("POST", "/_msearch", ndjson.toString(), NDJSON);
+    if (response.statusCode() == 404) {
+      return Collections.nCopies(queryEmbeddings.size(), List.of());
+    }
+    requireSuccess(response, "multi-search");
+
+    List<List<ScoredChunk>> results = new ArrayList<>(queryEmbeddings.size());
+    for (JsonNode item : readJson(response.body()).path("responses")) {
+      JsonNode error = item.path("error");
+      if (error.isMissingNode()) {
+        results.add(toScoredChunks(item, topK, filter));
+      } else if (item.path("status").asInt() == 404) {
+        results.add(List.of());
+      } else {
+        throw new IllegalStateException("OpenSearch search failed: " + error);
+      }
+    }
+    if (results.size() != queryEmbeddings.size()) {
+      throw new IllegalStateException(
+          "OpenSearch multi-search returned "
+              + results.size()
+              + " responses for "
+              + queryEmbeddings.size()
+              + " queries");
+    }
+    return results;
+  }
+
+  /** {@inheritDoc} */
   @Override
   public void delete(String runbookPath) {
-    throw new UnsupportedOperationException(
-        "AWS OpenSearch vector store is not yet implemented. Use 'local' or 'oci' provider.");
+    Objects.requireNonNull(runbookPath, "runbookPath cannot be null");
+
+    ObjectNode body = OBJECT_MAPPER.createObjectNode();
+    body.set("query", pathQuery(List.of(runbookPath)));
+    removeSources(body, List.of(runbookPath), "delete");
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>OpenSearch has no multi-document transaction, so the swap is ordered instead: the new chunks
+   * are bulk-indexed first under a fresh generation, then one {@code _update_by_query} removes the
+   * listed runbooks from the chunks of any other generation. Searches in between may see both
+   * generations, but never a runbook without chunks, and a failed bulk request leaves the old
+   * chunks untouched.
+   */
+  @Override
+  public void replaceRunbooks(List<String> runbookPaths, List<RunbookChunk> chunks) {
+    Objects.requireNonNull(runbookPaths, "runbookPaths cannot be null");
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    for (RunbookChunk chunk : chunks) {
+      Objects.requireNonNull(chunk, "chunk cannot be null");
+    }
+    String generation = newGeneration();
+    index(chunks, generation);
+    if (runbookPaths.isEmpty()) {
+      return;
+    }
+
+    ObjectNode body = OBJECT_MAPPER.createObjectNode();
+    ObjectNode bool = body.putObject("query").putObject("bool");
+    bool.putArray("filter").add(pathQuery(runbookPaths));
+    if (!chunks.isEmpty()) {
+      bool.putArray("must_not").addObject().putObject("term").put(FIELD_GENERATION, generation);
+    }
+    removeSources(body, runbookPaths, "replace");
+  }
+
+  /** Runs {@link #REMOVE_SOURCES_SCRIPT} over the documents matching the body's query. */
+  private void removeSources(ObjectNode body, List<String> runbookPaths, String operation) {
+    ObjectNode script = body.putObject("script").put("lang", "painless");
+    script.put("source", REMOVE_SOURCES_SCRIPT);
+    addAll(script.putObject("params").putArray("paths"), runbookPaths);
+    HttpResponse<String> response =
+        send(
+            "POST",
+            "/" + config.indexName() + "/_update_by_query?conflicts=proceed&refresh=true",
+            body);
+    if (response.statusCode() == 404) {
+      return;
+    }
+    requireSuccess(response, operation);
+  }
+
+  /**
+   * Converts an OpenSearch inner-product score back to the dot product, which equals cosine
+   * similarity for normalized vectors. OpenSearch maps a dot product {@code d} to {@code d + 1}
+   * when it is non-negative and to {@code 1 / (1 - d)} otherwise, so scores stay positive.
+   */
+  static double toCosine(double score) {
+    return score >= 1.0 ? score - 1.0 : 1.0 - 1.0 / score;
+  }
+
+  private void ensureIndex(int dimension) {
+    if (indexReady) {
+      return;
+    }
+    synchronized (this) {
+      if (indexReady) {
+        return;
+      }
+      HttpResponse<String> existing = send("GET", "/" + config.indexName(), null, null);
+      if (existing.statusCode() == 404) {
+        HttpResponse<String> created =
+            send("PUT", "/" + config.indexName(), indexDefinition(dimension));
+        // Another replica may have created the index in the meantime
+        if (!(created.statusCode() == 400
+            && created.body().contains("resource_already_exists_exception"))) {
+          requireSuccess(created, "index creation");
+        }
+      } else {
+        requireSuccess(existing, "index lookup");
+        // Older indexes lack the source list and generation; adding fields is allowed
+        ObjectNode mapping = OBJECT_MAPPER.createObjectNode();
+        ObjectNode properties = mapping.putObject("properties");
+        properties.putObject(FIELD_RUNBOOK_PATHS).put("type", "keyword");
+        properties.putObject(FIELD_GENERATION).put("type", "keyword");
+        requireSuccess(
+            send("PUT", "/" + config.indexName() + "/_mapping", mapping), "mapping update");
+      }
+      indexReady = true;
+    }
+  }
+
+  private ObjectNode indexDefinition(int dimension) {
+    ObjectNode definition = OBJECT_MAPPER.createObjectNode();
+    ObjectNode settings = definition.putObject("settings").putObject("index").put("knn", true);
+    if (config.engine() == OpenSearchKnnEngine.NMSLIB) {
+      // Only nmslib reads ef_search from the index; the others take it with each query
+      settings.put("knn.algo_param.ef_search", config.efSearch());
+    }
+
+    ObjectNode properties = definition.putObject("mappings").putObject("properties");
+    ObjectNode embedding = properties.putObject(FIELD_EMBEDDING);
+    embedding.put("type", "knn_vector").put("dimension", dimension);
+    ObjectNode method = embedding.putObject("method");
+    method
+        .put("name", "hnsw")
+        .put("engine", config.engine().apiName())
+        .put("space_type", "innerproduct");
+    method
+        .putObject("parameters")
+        .put("m", config.m())
+        .put("ef_construction", config.efConstruction());
+
+    properties.putObject(FIELD_RUNBOOK_PATH).put("type", "keyword");
+    properties.putObject(FIELD_RUNBOOK_PATHS).put("type", "keyword");
+    properties.putObject(FIELD_SECTION_TITLE).put("type", "text");
+    properties.putObject(FIELD_CONTENT).put("type", "text");
+    properties.putObject(FIELD_TAGS).put("type", "keyword");
+    properties.putObject(FIELD_APPLICABLE_SHAPES).put("type", "keyword");
+    properties.putObject(FIELD_GENERATION).put("type", "keyword");
+    return definition;
+  }
+
+  private void bulkIndex(List<RunbookChunk> chunks, String generation) {
+    StringBuilder ndjson = new StringBuilder();
+    for (RunbookChunk chunk : chunks) {
+      ObjectNode action = OBJECT_MAPPER.createObjectNode();
+      action.putObject("index").put("_id", chunk.id());
+      ndjson.append(action).append('\n');
+      ndjson.append(toDocument(chunk).put(FIELD_GENERATION, generation)).append('\n');
+    }
+
+    HttpResponse<String> response =
+        send("POST", "/" + config.indexName() + "/_bulk", ndjson.toString(), NDJSON);
+    requireSuccess(response, "bulk indexing");
+    JsonNode result = readJson(response.body());
+    if (!result.path("errors").asBoolean()) {
+      return;
+    }
+    for (JsonNode item : result.path("items")) {
+      JsonNode index = item.path("index");
+      JsonNode error = index.path("error");
+      if (!error.isMissingNode()) {
+        throw new IllegalStateException(
+            "OpenSearch bulk indexing failed for chunk "
+                + index.path("_id").asText()
+                + ": "
+                + error.path("reason").asText(error.toString()));
+      }
+    }
+    throw new IllegalStateException("OpenSearch bulk indexing reported errors: " + result);
+  }
+
+  private ObjectNode toDocument(RunbookChunk chunk) {
+    ObjectNode document = OBJECT_MAPPER.createObjectNode();
+    document.put(FIELD_RUNBOOK_PATH, chunk.runbookPath());
+    addAll(document.putArray(FIELD_RUNBOOK_PATHS), chunk.sourceRunbookPaths());
+    document.put(FIELD_SECTION_TITLE, chunk.sectionTitle());
+    document.put(FIELD_CONTENT, chunk.content());
+    addAll(document.putArray(FIELD_TAGS), chunk.tags());
+    addAll(document.putArray(FIELD_APPLICABLE_SHAPES), chunk.applicableShapes());
+    addAll(document.putArray(FIELD_EMBEDDING), normalize(chunk.embedding()));
+    return document;
+  }
+
+  private ObjectNode searchBody(float[] queryEmbedding, int topK, VectorSearchFilter filter) {
+    int k =
+        filter.shape() == null
+            ? topK
+            : (int) Math.min(Integer.MAX_VALUE, (long) topK * POST_FILTER_FACTOR);
+    ObjectNode body = OBJECT_MAPPER.createObjectNode();
+    body.put("size", k);
+    addAll(body.putObject("_source").putArray("includes"), SOURCE_FIELDS);
+
+    ObjectNode knn = body.putObject("query").putObject("knn").putObject(FIELD_EMBEDDING);
+    addAll(knn.putArray("vector"), normalize(queryEmbedding.clone()));
+    knn.put("k", k);
+    if (config.engine() != OpenSearchKnnEngine.NMSLIB) {
+      knn.putObject("method_parameters").put("ef_search", config.efSearch());
+    }
+    ObjectNode metadataFilter = toMetadataFilter(filter);
+    if (metadataFilter != null) {
+      knn.set("filter", metadataFilter);
+    }
+    return body;
+  }
+
+  /**
+   * Translates the criteria of a search filter that the indexed fields can express, or returns
+   * null if there are none.
+   */
+  private static ObjectNode toMetadataFilter(VectorSearchFilter filter) {
+    if (filter.runbookPaths().isEmpty() && filter.anyTags().isEmpty()) {
+      return null;
+    }
+    ObjectNode metadataFilter = OBJECT_MAPPER.createObjectNode();
+    ArrayNode clauses = metadataFilter.putObject("bool").putArray("filter");
+    if (!filter.runbookPaths().isEmpty()) {
+      clauses.add(pathQuery(filter.runbookPaths()));
+    }
+    if (!filter.anyTags().isEmpty()) {
+      ArrayNode tags = clauses.addObject().putObject("terms").putArray(FIELD_TAGS);
+      addAll(tags, filter.anyTags());
+    }
+    return metadataFilter;
+  }
+
+  /**
+   * Matches documents with any of the given source runbooks, including documents indexed before
+   * the source list existed.
+   */
+  private static ObjectNode pathQuery(Collection<String> runbookPaths) {
+    ObjectNode query = OBJECT_MAPPER.createObjectNode();
+    ObjectNode bool = query.putObject("bool").put("minimum_should_match", 1);
+    ArrayNode should = bool.putArray("should");
+    addAll(should.addObject().putObject("terms").putArray(FIELD_RUNBOOK_PATHS), runbookPaths);
+    addAll(should.addObject().putObject("terms").putArray(FIELD_RUNBOOK_PATH), runbookPaths);
+    return query;
+  }
+
+  private static List<ScoredChunk> toScoredChunks(
+      JsonNode response, int topK, VectorSearchFilter filter) {
+    List<ScoredChunk> results = new ArrayList<>();
+    for (JsonNode hit : response.path("hits").path("hits")) {
+      RunbookChunk chunk = toRunbookChunk(hit);
+      if (filter.matches(chunk)) {
+        results.add(new ScoredChunk(chunk, toCosine(hit.path("_score").asDouble())));
+        if (results.size() == topK) {
+          break;
+        }
+      }
+    }
+    return results;
+  }
+
+  private static RunbookChunk toRunbookChunk(JsonNode hit) {
+    JsonNode source = hit.path("_source");
+    return new RunbookChunk(
+        hit.path("_id").asText(),
+        source.path(FIELD_RUNBOOK_PATH).asText(null),
+        source.path(FIELD_SECTION_TITLE).asText(null),
+        source.path(FIELD_CONTENT).asText(""),
+        toStrings(source.path(FIELD_TAGS)),
+        toStrings(source.path(FIELD_APPLICABLE_SHAPES)),
+        null,
+        toStrings(source.path(FIELD_RUNBOOK_PATHS)));
+  }
+
+  private static List<String> toStrings(JsonNode array) {
+    List<String> values = new ArrayList<>(array.size());
+    array.forEach(value -> values.add(value.asText()));
+    return values;
+  }
+
+  private static void addAll(ArrayNode array, Collection<String> values) {
+    values.forEach(array::add);
+  }
+
+  private static void addAll(ArrayNode array, float[] values) {
+    for (float value : values) {
+      array.add(value);
+    }
+  }
+
+  private static float[] normalize(float[] vector) {
+    double norm = 0.0;
+    for (float v : vector) {
+      norm += (double) v * v;
+    }
+    if (norm == 0.0) {
+      return vector;
+    }
+    float scale = (float) (1.0 / Math.sqrt(norm));
+    for (int i = 0; i < vector.length; i++) {
+      vector[i] *= scale;
+    }
+    return vector;
+  }
+
+  private HttpResponse<String> send(String method, String path, JsonNode body) {
+    return send(method, path, body.toString(), JSON);
+  }
+
+  private HttpResponse<String> send(String method, String path, String body, String contentType) {
+    URI uri = URI.create(config.endpoint() + path);
+    HttpRequest.Builder request =
+        HttpRequest.newBuilder()
+            .uri(uri)
+            .timeout(REQUEST_TIMEOUT)
+            .method(
+                method,
+                body == null
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofString(body));
+    if (body != null) {
+      request.header("Content-Type", contentType);
+    }
+    if (authorization != null) {
+      request.header("Authorization", authorization);
+    }
+    if (signer != null) {
+      sign(request, method, uri, body, contentType);
+    }
+
+    try {
+      return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    } catch (IOException e) {
+      throw new UncheckedIOException("OpenSearch request failed: " + method + " " + path, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(
+          "Interrupted during OpenSearch request: " + method + " " + path, e);
+    }
+  }
+
+  /** Adds the Signature Version 4 headers for a request to the builder. */
+  private void sign(
+      HttpRequest.Builder request, String method, URI uri, String body, String contentType) {
+    SdkHttpRequest.Builder unsigned =
+        SdkHttpRequest.builder().uri(uri).method(SdkHttpMethod.fromValue(method));
+    if (body != null) {
+      unsigned.putHeader("Content-Type", contentType);
+    }
+    AwsCredentialsIdentity identity = credentials.resolveIdentity().join();
+    SignedRequest signed =
+        signer.sign(
+            signing ->
+                signing
+                    .identity(identity)
+                    .request(unsigned.build())
+                    .payload(body == null ? null : ContentStreamProvider.fromUtf8String(body))
+                    .putProperty(AwsV4HttpSigner.SERVICE_SIGNING_NAME, SIGNING_SERVICE)
+                    .putProperty(AwsV4HttpSigner.REGION_NAME, config.signingRegion()));
+    signed
+        .request()
+        .forEachHeader(
+            (name, values) -> {
+              if (!UNCOPIED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                values.forEach(value -> request.header(name, value));
+              }
+            });
+  }
+
+  private static void requireSuccess(HttpResponse<String> response, String action) {
+    if (response.statusCode() >= 300) {
+      throw new IllegalStateException(
+          "OpenSearch "
+              + action
+              + " failed: HTTP "
+              + response.statusCode()
+              + ": "
+              + response.body());
+    }
+  }
+
+  private static JsonNode readJson(String body) {
+    try {
+      return OBJECT_MAPPER.readTree(body);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException("Failed to parse OpenSearch response", e);
+    }
   }
 }
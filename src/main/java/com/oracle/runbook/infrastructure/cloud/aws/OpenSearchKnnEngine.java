@@ -0,0 +1,44 @@
+package com.oracle.runbook.infrastructure.cloud.aws;
+
+import java.util.Locale;
+
+/** The OpenSearch k-NN engine that builds and searches the HNSW graphs of a vector index. */
+public enum OpenSearchKnnEngine {
+
+  /** Facebook AI Similarity Search; the recommended engine for large indexes. */
+  FAISS,
+
+  /** Apache Lucene's native HNSW implementation. */
+  LUCENE,
+
+  /** Non-Metric Space Library; deprecated by OpenSearch and unable to filter during search. */
+  NMSLIB;
+
+  /** Returns the engine name used in index mappings. */
+  public String apiName() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+
+  /** Returns whether a k-NN query on this engine accepts a filter applied during the search. */
+  boolean supportsFiltering() {
+    return this != NMSLIB;
+  }
+
+  /**
+   * Parses an engine name. Case-insensitive matching.
+   *
+   * @param engine the engine name (e.g., "faiss", "LUCENE")
+   * @return the matching OpenSearchKnnEngine value
+   * @throws IllegalArgumentException if the name is null or does not match any known value
+   */
+  public static OpenSearchKnnEngine fromString(String engine) {
+    if (engine == null) {
+      throw new IllegalArgumentException("Engine cannot be null");
+    }
+    try {
+      return valueOf(engine.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown k-NN engine: " + engine, e);
+    }
+  }
+}
@@ -11,6 +11,8 @@
  *       MetricsSourceAdapter}
  *   <li>{@code AwsCloudWatchLogsAdapter} - AWS CloudWatch Logs implementing {@code
  *       LogSourceAdapter}
+ *   <li>{@code AwsOpenSearchVectorStoreRepository} - AWS OpenSearch k-NN index implementing {@code
+ *       VectorStoreRepository}
  * </ul>
  *
  * @see com.oracle.runbook.infrastructure.cloud.CloudConfig
@@ -0,0 +1,102 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.util.Arrays;
+
+/**
+ * Growable max-heap of (node, score) pairs used as the frontier of a graph traversal.
+ *
+ * <p>The best-scoring node is always at the head. Like {@link TopKSelector}, entries are held in
+ * parallel primitive arrays so pushes do not box.
+ *
+ * <p>Instances are not thread-safe; each traversal uses its own queue.
+ */
+final class CandidateQueue {
+
+  private int[] nodes;
+  private float[] scores;
+  private int size;
+
+  /**
+   * Creates a queue with the given initial capacity.
+   *
+   * @param initialCapacity the initial number of slots
+   */
+  CandidateQueue(int initialCapacity) {
+    int capacity = Math.max(initialCapacity, 4);
+    this.nodes = new int[capacity];
+    this.scores = new float[capacity];
+  }
+
+  /** Returns true when the queue holds no entries. */
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Removes all entries without releasing storage. */
+  void clear() {
+    size = 0;
+  }
+
+  /**
+   * Adds an entry.
+   *
+   * @param node the node id
+   * @param score the node's score
+   */
+  void push(int node, float score) {
+    if (size == nodes.length) {
+      nodes = Arrays.copyOf(nodes, size * 2);
+      scores = Arrays.copyOf(scores, size * 2);
+    }
+    int index = size++;
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (scores[parent] >= score) {
+        break;
+      }
+      nodes[index] = nodes[parent];
+      scores[index] = scores[parent];
+      index = parent;
+    }
+    nodes[index] = node;
+    scores[index] = score;
+  }
+
+  /** Returns the node with the best score without removing it. */
+  int peekNode() {
+    return nodes[0];
+  }
+
+  /** Returns the best score without removing it. */
+  float peekScore() {
+    return scores[0];
+  }
+
+  /** Removes the entry with the best score. */
+  void pop() {
+    int last = --size;
+    if (last == 0) {
+      return;
+    }
+    int node = nodes[last];
+    float score = scores[last];
+    int index = 0;
+    while (true) {
+      int child = 2 * index + 1;
+      if (child >= last) {
+        break;
+      }
+      if (child + 1 < last && scores[child + 1] > scores[child]) {
+        child++;
+      }
+      if (score >= scores[child]) {
+        break;
+      }
+      nodes[index] = nodes[child];
+      scores[index] = scores[child];
+      index = child;
+    }
+    nodes[index] = node;
+    scores[index] = score;
+  }
+}
@@ -0,0 +1,100 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.SearchLatencyRecorder;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreStats;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds up the text, metadata and retained embeddings of a store's chunks for {@link
+ * VectorStoreStats}.
+ *
+ * <p>Strings are counted as compact strings hold them: one byte per character when every character
+ * is Latin-1, two otherwise. Not thread-safe; a store fills one instance per stats call while
+ * holding its read lock.
+ */
+final class ChunkFootprint {
+
+  private final Map<String, Integer> chunksPerRunbook = new HashMap<>();
+  private long chunkCount;
+  private long contentBytes;
+  private long metadataBytes;
+  private long embeddingBytes;
+
+  /**
+   * Counts one stored chunk, once for each of its source runbooks in the per-runbook counts.
+   *
+   * @param chunk the chunk
+   */
+  void add(RunbookChunk chunk) {
+    chunkCount++;
+    for (String runbookPath : chunk.sourceRunbookPaths()) {
+      chunksPerRunbook.merge(runbookPath, 1, Integer::sum);
+    }
+    contentBytes += stringBytes(chunk.content());
+    metadataBytes +=
+        stringBytes(chunk.id())
+            + stringBytes(chunk.sourceRunbookPaths())
+            + stringBytes(chunk.sectionTitle())
+            + stringBytes(chunk.tags())
+            + stringBytes(chunk.applicableShapes());
+    embeddingBytes += (long) chunk.embeddingLength() * Float.BYTES;
+  }
+
+  /**
+   * Builds the statistics of the counted chunks.
+   *
+   * @param providerType the store's provider type
+   * @param dimension the vector dimension, 0 while empty
+   * @param storageBytes heap bytes of the store's vector storage, not counting chunk embeddings
+   * @param offHeapBytes bytes of vectors held outside the heap
+   * @param indexBytes heap bytes of the store's index structures
+   * @param indexState the store's index state
+   * @param latency the store's search counters
+   * @return the statistics
+   */
+  VectorStoreStats toStats(
+      String providerType,
+      int dimension,
+      long storageBytes,
+      long offHeapBytes,
+      long indexBytes,
+      VectorStoreStats.IndexState indexState,
+      SearchLatencyRecorder latency) {
+    return new VectorStoreStats(
+        providerType,
+        chunkCount,
+        Math.max(dimension, 0),
+        storageBytes + embeddingBytes,
+        offHeapBytes,
+        indexBytes,
+        contentBytes,
+        metadataBytes,
+        chunksPerRunbook,
+        indexState,
+        latency.count(),
+        latency.average());
+  }
+
+  private static long stringBytes(List<String> values) {
+    long bytes = 0L;
+    for (String value : values) {
+      bytes += stringBytes(value);
+    }
+    return bytes;
+  }
+
+  private static long stringBytes(String value) {
+    if (value == null) {
+      return 0L;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) > 0xFF) {
+        return (long) value.length() * Character.BYTES;
+      }
+    }
+    return value.length();
+  }
+}
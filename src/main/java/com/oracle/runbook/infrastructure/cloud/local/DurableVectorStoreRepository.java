@@ -0,0 +1,417 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.ChunkVisitor;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreStats;
+import com.oracle.runbook.rag.ScoredChunk;
+import com.oracle.runbook.rag.SearchHit;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decorator that makes an {@link InMemoryVectorStoreRepository} durable with a {@link
+ * WriteAheadLog} and periodic checkpoint snapshots.
+ *
+ * <p>Every {@link #store}, {@link #storeBatch}, {@link #delete} and {@link #replaceRunbooks} is
+ * validated against the delegate, appended to the log, committed according to the {@link
+ * FsyncPolicy} and only then applied to the delegate, all while holding a mutation lock: log order
+ * equals apply order, searches never see a write the log could lose, and mutations that fail
+ * validation are never logged. Writers therefore commit one at a time; ingestion writes in
+ * batches, so this costs one commit per batch. A write whose commit fails is not applied, but its
+ * record may already be in the log and is then replayed on recovery. Searches go straight to the
+ * delegate and never wait for the log.
+ *
+ * <p>{@link #open} recovers by loading the checkpoint snapshot and replaying the log records newer
+ * than the sequence number stamped in it. A background task takes a checkpoint once the log grows
+ * past {@link WalConfig#checkpointBytes()}: it writes a new snapshot and truncates the log, which
+ * bounds replay time. A crash between the two steps is harmless because replay skips records the
+ * snapshot already reflects.
+ */
+public final class DurableVectorStoreRepository
+    implements VectorStoreRepository, SnapshottableVectorStore, RunbookCentroidSearch, Closeable {
+
+  /** Name of the write-ahead log file inside {@link WalConfig#directory()}. */
+  public static final String LOG_FILE = "vectors.wal";
+
+  /** Name of the checkpoint snapshot inside {@link WalConfig#directory()}. */
+  public static final String SNAPSHOT_FILE = "vectors.rbvs";
+
+  private static final Logger LOGGER =
+      Logger.getLogger(DurableVectorStoreRepository.class.getName());
+
+  private final InMemoryVectorStoreRepository delegate;
+  private final WalConfig config;
+  private final Path snapshotPath;
+  private final WriteAheadLog log;
+  private final boolean recovered;
+  private final ReentrantLock mutationLock = new ReentrantLock();
+  private final ScheduledExecutorService scheduler;
+
+  private DurableVectorStoreRepository(
+      InMemoryVectorStoreRepository delegate,
+      WalConfig config,
+      Path snapshotPath,
+      WriteAheadLog log,
+      boolean recovered) {
+    this.delegate = delegate;
+    this.config = config;
+    this.snapshotPath = snapshotPath;
+    this.log = log;
+    this.recovered = recovered;
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "vector-store-wal");
+              thread.setDaemon(true);
+              return thread;
+            });
+    if (config.fsyncPolicy() == FsyncPolicy.INTERVAL) {
+      long millis = config.fsyncInterval().toMillis();
+      scheduler.scheduleWithFixedDelay(this::syncQuietly, millis, millis, TimeUnit.MILLISECONDS);
+    }
+    long millis = config.checkpointInterval().toMillis();
+    scheduler.scheduleWithFixedDelay(
+        this::checkpointIfLarge, millis, millis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Recovers the delegate from the configured directory and starts logging its mutations.
+   *
+   * @param delegate the empty store to recover into and decorate
+   * @param config the durability options
+   * @return the durable store
+   * @throws NullPointerException if delegate or config is null
+   * @throws IOException if the snapshot or log cannot be read, or the log cannot be opened
+   */
+  public static DurableVectorStoreRepository open(
+      InMemoryVectorStoreRepository delegate, WalConfig config) throws IOException {
+    Objects.requireNonNull(delegate, "delegate cannot be null");
+    Objects.requireNonNull(config, "config cannot be null");
+
+    Files.createDirectories(config.directory());
+    Path snapshotPath = config.directory().resolve(SNAPSHOT_FILE);
+    long snapshotSequence = delegate.restoreSnapshot(snapshotPath);
+    WriteAheadLog log =
+        WriteAheadLog.open(
+            config.directory().resolve(LOG_FILE),
+            config.fsyncPolicy(),
+            Math.max(0L, snapshotSequence),
+            new WriteAheadLog.Replayer() {
+              @Override
+              public void store(List<RunbookChunk> chunks) {
+                delegate.storeBatch(chunks);
+              }
+
+              @Override
+              public void delete(String runbookPath) {
+                delegate.delete(runbookPath);
+              }
+
+              @Override
+              public void replace(List<String> runbookPaths, List<RunbookChunk> chunks) {
+                delegate.replaceRunbooks(runbookPaths, chunks);
+              }
+
+              @Override
+              public void titles(Map<String, float[]> titleEmbeddings) {
+                delegate.storeRunbookTitles(titleEmbeddings);
+              }
+            });
+    if (log.formatVersion() < WriteAheadLog.VERSION) {
+      // An older log cannot take appends; checkpoint what it replayed and start a current one
+      try {
+        delegate.saveSnapshot(snapshotPath, log.lastSequence());
+        log.truncate();
+      } catch (IOException e) {
+        log.close();
+        throw e;
+      }
+    }
+    boolean recovered = snapshotSequence >= 0 || log.replayedRecords() > 0;
+    if (recovered) {
+      LOGGER.info(
+          "Recovered vector store from "
+              + config.directory()
+              + ": snapshot "
+              + (snapshotSequence >= 0 ? "at sequence " + snapshotSequence : "absent")
+              + ", "
+              + log.replayedRecords()
+              + " log records replayed");
+    }
+    return new DurableVectorStoreRepository(delegate, config, snapshotPath, log, recovered);
+  }
+
+  /** Returns true if {@link #open} restored any state from a snapshot or the log. */
+  public boolean recovered() {
+    return recovered;
+  }
+
+  @Override
+  public String providerType() {
+    return delegate.providerType();
+  }
+
+  @Override
+  public void store(RunbookChunk chunk) {
+    Objects.requireNonNull(chunk, "chunk cannot be null");
+    mutationLock.lock();
+    try {
+      delegate.checkWrite(List.of(), List.of(chunk));
+      commit(log.appendStore(List.of(chunk)));
+      delegate.store(chunk);
+    } finally {
+      mutationLock.unlock();
+    }
+  }
+
+  @Override
+  public void storeBatch(List<RunbookChunk> chunks) {
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    if (chunks.isEmpty()) {
+      return;
+    }
+    mutationLock.lock();
+    try {
+      delegate.checkWrite(List.of(), chunks);
+      commit(log.appendStore(chunks));
+      delegate.storeBatch(chunks);
+    } finally {
+      mutationLock.unlock();
+    }
+  }
+
+  @Override
+  public List<ScoredChunk> search(float[] queryEmbedding, int topK) {
+    return delegate.search(queryEmbedding, topK);
+  }
+
+  @Override
+  public List<ScoredChunk> search(float[] queryEmbedding, int topK, VectorSearchFilter filter) {
+    return delegate.search(queryEmbedding, topK, filter);
+  }
+
+  @Override
+  public List<List<ScoredChunk>> searchBatch(
+      List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+    return delegate.searchBatch(queryEmbeddings, topK, filter);
+  }
+
+  @Override
+  public List<SearchHit> searchHits(float[] queryEmbedding, int topK, VectorSearchFilter filter) {
+    return delegate.searchHits(queryEmbedding, topK, filter);
+  }
+
+  @Override
+  public List<List<SearchHit>> searchHitsBatch(
+      List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+    return delegate.searchHitsBatch(queryEmbeddings, topK, filter);
+  }
+
+  @Override
+  public List<String> searchRunbooks(float[] queryEmbedding, int limit, VectorSearchFilter filter) {
+    return delegate.searchRunbooks(queryEmbedding, limit, filter);
+  }
+
+  @Override
+  public List<ScoredRunbook> searchScoredRunbooks(
+      float[] queryEmbedding, int limit, VectorSearchFilter filter) {
+    return delegate.searchScoredRunbooks(queryEmbedding, limit, filter);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Titles are logged like any other write, and checkpoints carry them in the snapshot, so
+   * recovered centroids still include them.
+   */
+  @Override
+  public void storeRunbookTitles(Map<String, float[]> titleEmbeddings) {
+    Objects.requireNonNull(titleEmbeddings, "titleEmbeddings cannot be null");
+    if (titleEmbeddings.isEmpty()) {
+      return;
+    }
+    for (float[] title : titleEmbeddings.values()) {
+      Objects.requireNonNull(title, "title embedding cannot be null");
+    }
+    mutationLock.lock();
+    try {
+      commit(log.appendTitles(titleEmbeddings));
+      delegate.storeRunbookTitles(titleEmbeddings);
+    } finally {
+      mutationLock.unlock();
+    }
+  }
+
+  @Override
+  public void delete(String runbookPath) {
+    Objects.requireNonNull(runbookPath, "runbookPath cannot be null");
+    mutationLock.lock();
+    try {
+      commit(log.appendDelete(runbookPath));
+      delegate.delete(runbookPath);
+    } finally {
+      mutationLock.unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The swap is logged as one record before the delegate swaps the generation, so recovery never
+   * replays the removal of the old chunks without the new ones.
+   */
+  @Override
+  public void replaceRunbooks(List<String> runbookPaths, List<RunbookChunk> chunks) {
+    Objects.requireNonNull(runbookPaths, "runbookPaths cannot be null");
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    mutationLock.lock();
+    try {
+      delegate.checkWrite(runbookPaths, chunks);
+      commit(log.appendReplace(runbookPaths, chunks));
+      delegate.replaceRunbooks(runbookPaths, chunks);
+    } finally {
+      mutationLock.unlock();
+    }
+  }
+
+  /**
+   * Looks up a stored chunk by id.
+   *
+   * @param id the chunk id
+   * @return the chunk, or empty if no chunk with that id is stored
+   */
+  public Optional<RunbookChunk> findById(String id) {
+    return delegate.findById(id);
+  }
+
+  @Override
+  public void optimize() {
+    delegate.optimize();
+  }
+
+  @Override
+  public VectorStoreStats stats() {
+    return delegate.stats();
+  }
+
+  @Override
+  public List<RunbookChunk> exportChunks() {
+    return delegate.exportChunks();
+  }
+
+  @Override
+  public void exportChunks(ChunkVisitor visitor) throws IOException {
+    delegate.exportChunks(visitor);
+  }
+
+  @Override
+  public List<RunbookChunk> runbookChunks(String runbookPath) {
+    return delegate.runbookChunks(runbookPath);
+  }
+
+  /**
+   * Writes a checkpoint snapshot and truncates the log. Mutations wait for the checkpoint;
+   * searches do not.
+   *
+   * @throws IOException if the snapshot cannot be written or the log cannot be truncated
+   */
+  public void checkpoint() throws IOException {
+    mutationLock.lock();
+    try {
+      checkpointLocked();
+    } finally {
+      mutationLock.unlock();
+    }
+  }
+
+  /** {@inheritDoc} The checkpoint snapshot and log are unaffected. */
+  @Override
+  public void saveSnapshot(Path path) throws IOException {
+    delegate.saveSnapshot(path);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The loaded contents are checkpointed immediately, so they survive a restart.
+   */
+  @Override
+  public boolean loadSnapshot(Path path) throws IOException {
+    mutationLock.lock();
+    try {
+      if (!delegate.loadSnapshot(path)) {
+        return false;
+      }
+      checkpointLocked();
+      return true;
+    } finally {
+      mutationLock.unlock();
+    }
+  }
+
+  /** Stops background work, then writes and forces any buffered log records. */
+  @Override
+  public void close() throws IOException {
+    scheduler.shutdownNow();
+    log.close();
+  }
+
+  /** Returns the number of log records replayed by {@link #open}. */
+  int replayedRecords() {
+    return log.replayedRecords();
+  }
+
+  /** Returns the current log size in bytes. */
+  long logSizeBytes() {
+    return log.sizeBytes();
+  }
+
+  private void checkpointLocked() throws IOException {
+    long sequence = log.lastSequence();
+    delegate.saveSnapshot(snapshotPath, sequence);
+    log.truncate();
+    LOGGER.fine("Checkpointed vector store at sequence " + sequence);
+  }
+
+  private void commit(long sequence) {
+    try {
+      log.commit(sequence);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to commit vector store write-ahead log", e);
+    }
+  }
+
+  private void checkpointIfLarge() {
+    if (log.sizeBytes() < config.checkpointBytes()) {
+      return;
+    }
+    try {
+      checkpoint();
+    } catch (IOException | RuntimeException e) {
+      LOGGER.log(Level.WARNING, "Background vector store checkpoint failed", e);
+    }
+  }
+
+  private void syncQuietly() {
+    try {
+      log.sync();
+    } catch (IOException | RuntimeException e) {
+      LOGGER.log(Level.WARNING, "Background vector store log sync failed", e);
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link VectorStorage} that keeps full-precision vectors in a scratch file instead of the heap.
+ *
+ * <p>Rows are fixed-size records of {@code dimension} floats at offset {@code row * dimension * 4}
+ * and are read with positional I/O, which is safe for concurrent scorers. The storage is intended
+ * for re-ranking a handful of candidates per query, where a few page-cache reads are cheap compared
+ * to holding every float vector on the heap; it is far too slow for a full scan.
+ *
+ * <p>The scratch file is created in the given directory, opened with {@link
+ * StandardOpenOption#DELETE_ON_CLOSE}, and removed by {@link #release()}. Mutation is not
+ * thread-safe; the owning repository guards access.
+ */
+final class FileBackedVectorStorage implements VectorStorage {
+
+  private final int dimension;
+  private final int rowBytes;
+  private final SimilarityKernel kernel;
+  private final FileChannel channel;
+  private final ByteBuffer writeBuffer;
+  private int size;
+
+  /**
+   * Creates empty storage backed by a new scratch file.
+   *
+   * @param directory the directory in which to create the scratch file
+   * @param dimension the number of components per vector
+   * @param kernel the kernel used to score rows
+   * @throws IllegalArgumentException if dimension is not positive
+   * @throws UncheckedIOException if the scratch file cannot be created
+   */
+  FileBackedVectorStorage(Path directory, int dimension, SimilarityKernel kernel) {
+    if (dimension <= 0) {
+      throw new IllegalArgumentException("dimension must be positive");
+    }
+    this.dimension = dimension;
+    this.rowBytes = dimension * Float.BYTES;
+    this.kernel = kernel;
+    this.writeBuffer = ByteBuffer.allocate(rowBytes).order(ByteOrder.nativeOrder());
+    try {
+      Files.createDirectories(directory);
+      Path file = Files.createTempFile(directory, "vectors-", ".f32");
+      this.channel =
+          FileChannel.open(
+              file,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE,
+              StandardOpenOption.DELETE_ON_CLOSE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to create vector scratch file in " + directory, e);
+    }
+  }
+
+  @Override
+  public VectorEncoding encoding() {
+    return VectorEncoding.FLOAT32;
+  }
+
+  @Override
+  public int dimension() {
+    return dimension;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public long heapBytes() {
+    return writeBuffer.capacity();
+  }
+
+  @Override
+  public long offHeapBytes() {
+    return (long) size * rowBytes;
+  }
+
+  @Override
+  public int append(float[] vector) {
+    set(size, vector);
+    return size++;
+  }
+
+  @Override
+  public void set(int row, float[] vector) {
+    writeBuffer.clear();
+    writeBuffer.asFloatBuffer().put(vector, 0, dimension);
+    writeFully(writeBuffer, row);
+  }
+
+  @Override
+  public int swapRemove(int row) {
+    int last = size - 1;
+    size = last;
+    if (row == last) {
+      return -1;
+    }
+    writeBuffer.clear();
+    readFully(writeBuffer, last);
+    writeBuffer.flip();
+    writeFully(writeBuffer, row);
+    return last;
+  }
+
+  @Override
+  public void read(int row, float[] target) {
+    ByteBuffer buffer = ByteBuffer.allocate(rowBytes).order(ByteOrder.nativeOrder());
+    readFully(buffer, row);
+    buffer.flip();
+    buffer.asFloatBuffer().get(target, 0, dimension);
+  }
+
+  @Override
+  public RowScorer scorer(float[] query) {
+    ByteBuffer buffer = ByteBuffer.allocate(rowBytes).order(ByteOrder.nativeOrder());
+    float[] vector = new float[dimension];
+    return row -> {
+      buffer.clear();
+      readFully(buffer, row);
+      buffer.flip();
+      buffer.asFloatBuffer().get(vector);
+      return kernel.dot(query, 0, vector, 0, dimension);
+    };
+  }
+
+  @Override
+  public void release() {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to close vector scratch file", e);
+    }
+  }
+
+  private void readFully(ByteBuffer buffer, int row) {
+    long position = (long) row * rowBytes;
+    try {
+      while (buffer.hasRemaining()) {
+        int read = channel.read(buffer, position + buffer.position());
+        if (read < 0) {
+          throw new IllegalStateException("Vector scratch file truncated at row " + row);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read vector row " + row, e);
+    }
+  }
+
+  private void writeFully(ByteBuffer buffer, int row) {
+    long position = (long) row * rowBytes;
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer, position + buffer.position());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to write vector row " + row, e);
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.util.Arrays;
+
+/**
+ * Growable row-major matrix of L2-normalized embeddings backed by a single {@code float[]}.
+ *
+ * <p>Row {@code r} occupies {@code data[r * dimension .. (r + 1) * dimension)}. Keeping every
+ * vector in one contiguous primitive array lets a scan stream through memory sequentially instead
+ * of chasing one heap object per chunk. Rows are scored with the {@link SimilarityKernel} supplied
+ * at construction.
+ *
+ * <p>Instances are not thread-safe; the owning repository guards access.
+ */
+final class FloatVectorMatrix implements VectorStorage {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final int dimension;
+  private final SimilarityKernel kernel;
+  private float[] data;
+  private int size;
+
+  /**
+   * Creates an empty matrix for vectors of the given dimension.
+   *
+   * @param dimension the number of components per vector
+   * @param kernel the kernel used to score rows
+   * @throws IllegalArgumentException if dimension is not positive
+   */
+  FloatVectorMatrix(int dimension, SimilarityKernel kernel) {
+    if (dimension <= 0) {
+      throw new IllegalArgumentException("dimension must be positive");
+    }
+    this.dimension = dimension;
+    this.kernel = kernel;
+    this.data = new float[INITIAL_CAPACITY * dimension];
+  }
+
+  @Override
+  public VectorEncoding encoding() {
+    return VectorEncoding.FLOAT32;
+  }
+
+  @Override
+  public int dimension() {
+    return dimension;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public long heapBytes() {
+    return (long) data.length * Float.BYTES;
+  }
+
+  /** Returns the backing array; only the first {@code size * dimension} entries are valid. */
+  float[] data() {
+    return data;
+  }
+
+  @Override
+  public int append(float[] vector) {
+    ensureCapacity(size + 1);
+    System.arraycopy(vector, 0, data, size * dimension, dimension);
+    return size++;
+  }
+
+  @Override
+  public void set(int row, float[] vector) {
+    System.arraycopy(vector, 0, data, row * dimension, dimension);
+  }
+
+  @Override
+  public int swapRemove(int row) {
+    int last = size - 1;
+    size = last;
+    if (row == last) {
+      return -1;
+    }
+    System.arraycopy(data, last * dimension, data, row * dimension, dimension);
+    return last;
+  }
+
+  @Override
+  public void read(int row, float[] target) {
+    System.arraycopy(data, row * dimension, target, 0, dimension);
+  }
+
+  @Override
+  public RowScorer scorer(float[] query) {
+    return row -> dot(query, row);
+  }
+
+  /**
+   * Computes the dot product between a query and a stored row.
+   *
+   * @param query the query vector, already normalized
+   * @param row the row to score
+   * @return the dot product, which equals cosine similarity for normalized inputs
+   */
+  float dot(float[] query, int row) {
+    return kernel.dot(query, 0, data, row * dimension, dimension);
+  }
+
+  /**
+   * Scales the vector to unit L2 length in place; zero vectors are left untouched.
+   *
+   * @param vector the vector to normalize
+   * @return the same array, for chaining
+   */
+  static float[] normalizeInPlace(float[] vector) {
+    double norm = 0.0;
+    for (float v : vector) {
+      norm += (double) v * v;
+    }
+    if (norm == 0.0) {
+      return vector;
+    }
+    float scale = (float) (1.0 / Math.sqrt(norm));
+    for (int i = 0; i < vector.length; i++) {
+      vector[i] *= scale;
+    }
+    return vector;
+  }
+
+  private void ensureCapacity(int rows) {
+    long required = (long) rows * dimension;
+    if (required <= data.length) {
+      return;
+    }
+    long grown = Math.max(required, (long) data.length * 2);
+    if (grown > Integer.MAX_VALUE - 8) {
+      throw new IllegalStateException("Vector matrix capacity exceeded");
+    }
+    data = Arrays.copyOf(data, (int) grown);
+  }
+}
@@ -0,0 +1,39 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.util.Locale;
+
+/** When {@link WriteAheadLog} forces appended records to stable storage. */
+public enum FsyncPolicy {
+  /**
+   * Every mutation waits until its record is on disk. Concurrent mutations share one fsync (group
+   * commit), so throughput scales with concurrency rather than with disk latency.
+   */
+  ALWAYS,
+
+  /**
+   * Records are handed to the OS immediately and forced on a fixed interval; a crash may lose the
+   * last interval of mutations.
+   */
+  INTERVAL,
+
+  /** Records are handed to the OS and never forced explicitly; an OS crash may lose them. */
+  NEVER;
+
+  /**
+   * Parses a policy name. Case-insensitive matching.
+   *
+   * @param policy the policy name (e.g., "always", "INTERVAL")
+   * @return the matching FsyncPolicy value
+   * @throws IllegalArgumentException if the name is null or does not match any known value
+   */
+  public static FsyncPolicy fromString(String policy) {
+    if (policy == null) {
+      throw new IllegalArgumentException("Policy cannot be null");
+    }
+    try {
+      return valueOf(policy.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown fsync policy: " + policy, e);
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.util.Arrays;
+
+/**
+ * {@link VectorStorage} that holds each vector as 16-bit floats, {@link VectorEncoding#FLOAT16} or
+ * {@link VectorEncoding#BFLOAT16}, using half the memory of {@link FloatVectorMatrix}.
+ *
+ * <p>Rows are packed into a single {@code short[]} like the float matrix and scored with {@link
+ * SimilarityKernel#dotFloat16} or {@link SimilarityKernel#dotBFloat16}, which widen each component
+ * inside the dot-product loop, so no float copy of a row is ever made. Unlike {@link
+ * Int8VectorStorage} the encoding needs no per-vector calibration: every component is rounded to
+ * the nearest representable value on its own. For normalized embeddings that typically moves a
+ * score by less than 1e-4 (float16) or 1e-3 (bfloat16), small enough that results are not
+ * re-ranked.
+ *
+ * <p>Instances are not thread-safe; the owning repository guards access.
+ */
+final class HalfPrecisionVectorStorage implements VectorStorage {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final VectorEncoding encoding;
+  private final int dimension;
+  private final SimilarityKernel kernel;
+  private short[] data;
+  private int size;
+
+  /**
+   * Creates empty storage for vectors of the given dimension.
+   *
+   * @param encoding the 16-bit format, {@link VectorEncoding#FLOAT16} or {@link
+   *     VectorEncoding#BFLOAT16}
+   * @param dimension the number of components per vector
+   * @param kernel the kernel used to score rows
+   * @throws IllegalArgumentException if the encoding is not a 16-bit format or dimension is not
+   *     positive
+   */
+  HalfPrecisionVectorStorage(VectorEncoding encoding, int dimension, SimilarityKernel kernel) {
+    if (!encoding.isHalfPrecision()) {
+      throw new IllegalArgumentException("encoding must be float16 or bfloat16");
+    }
+    if (dimension <= 0) {
+      throw new IllegalArgumentException("dimension must be positive");
+    }
+    this.encoding = encoding;
+    this.dimension = dimension;
+    this.kernel = kernel;
+    this.data = new short[INITIAL_CAPACITY * dimension];
+  }
+
+  @Override
+  public VectorEncoding encoding() {
+    return encoding;
+  }
+
+  @Override
+  public int dimension() {
+    return dimension;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public long heapBytes() {
+    return (long) data.length * Short.BYTES;
+  }
+
+  @Override
+  public int append(float[] vector) {
+    ensureCapacity(size + 1);
+    set(size, vector);
+    return size++;
+  }
+
+  @Override
+  public void set(int row, float[] vector) {
+    int base = row * dimension;
+    for (int i = 0; i < dimension; i++) {
+      data[base + i] = encode(encoding, vector[i]);
+    }
+  }
+
+  @Override
+  public int swapRemove(int row) {
+    int last = size - 1;
+    size = last;
+    if (row == last) {
+      return -1;
+    }
+    System.arraycopy(data, last * dimension, data, row * dimension, dimension);
+    return last;
+  }
+
+  @Override
+  public void read(int row, float[] target) {
+    int base = row * dimension;
+    for (int i = 0; i < dimension; i++) {
+      target[i] = decode(encoding, data[base + i]);
+    }
+  }
+
+  @Override
+  public RowScorer scorer(float[] query) {
+    if (encoding == VectorEncoding.FLOAT16) {
+      return row -> kernel.dotFloat16(query, 0, data, row * dimension, dimension);
+    }
+    return row -> kernel.dotBFloat16(query, 0, data, row * dimension, dimension);
+  }
+
+  /**
+   * Rounds a float to the nearest value of a 16-bit format, ties to even.
+   *
+   * @param encoding {@link VectorEncoding#FLOAT16} or {@link VectorEncoding#BFLOAT16}
+   * @param value the value to encode
+   * @return the 16-bit pattern
+   */
+  static short encode(VectorEncoding encoding, float value) {
+    if (encoding == VectorEncoding.FLOAT16) {
+      return Float.floatToFloat16(value);
+    }
+    int bits = Float.floatToRawIntBits(value);
+    return (short) ((bits + 0x7fff + ((bits >>> 16) & 1)) >>> 16);
+  }
+
+  /**
+   * Widens a 16-bit pattern back to a float; the result is exact.
+   *
+   * @param encoding {@link VectorEncoding#FLOAT16} or {@link VectorEncoding#BFLOAT16}
+   * @param bits the 16-bit pattern
+   * @return the value
+   */
+  static float decode(VectorEncoding encoding, short bits) {
+    if (encoding == VectorEncoding.FLOAT16) {
+      return Float.float16ToFloat(bits);
+    }
+    return Float.intBitsToFloat(bits << 16);
+  }
+
+  private void ensureCapacity(int rows) {
+    long required = (long) rows * dimension;
+    if (required <= data.length) {
+      return;
+    }
+    long grown = Math.max(required, (long) data.length * 2);
+    if (grown > Integer.MAX_VALUE - 8) {
+      throw new IllegalStateException("Vector storage capacity exceeded");
+    }
+    data = Arrays.copyOf(data, (int) grown);
+  }
+}
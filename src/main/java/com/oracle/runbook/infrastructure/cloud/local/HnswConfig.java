@@ -0,0 +1,44 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+/**
+ * Tuning parameters for {@link HnswVectorStoreRepository}.
+ *
+ * @param m the number of bidirectional links created per node on upper layers (layer 0 keeps up to
+ *     {@code 2 * m}); higher values improve recall at the cost of memory and insert time
+ * @param efConstruction the size of the dynamic candidate list used while inserting
+ * @param efSearch the size of the dynamic candidate list used while searching; the effective value
+ *     is never smaller than the requested {@code topK}
+ */
+public record HnswConfig(int m, int efConstruction, int efSearch) {
+
+  /** Default number of links per node. */
+  public static final int DEFAULT_M = 16;
+
+  /** Default candidate list size during construction. */
+  public static final int DEFAULT_EF_CONSTRUCTION = 200;
+
+  /** Default candidate list size during search. */
+  public static final int DEFAULT_EF_SEARCH = 64;
+
+  /** Compact constructor with validation. */
+  public HnswConfig {
+    if (m < 2) {
+      throw new IllegalArgumentException("m must be at least 2");
+    }
+    if (efConstruction <= 0) {
+      throw new IllegalArgumentException("efConstruction must be positive");
+    }
+    if (efSearch <= 0) {
+      throw new IllegalArgumentException("efSearch must be positive");
+    }
+  }
+
+  /**
+   * Returns a configuration with the default parameters.
+   *
+   * @return the default configuration
+   */
+  public static HnswConfig defaults() {
+    return new HnswConfig(DEFAULT_M, DEFAULT_EF_CONSTRUCTION, DEFAULT_EF_SEARCH);
+  }
+}
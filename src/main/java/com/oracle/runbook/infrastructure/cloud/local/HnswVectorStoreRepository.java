@@ -0,0 +1,778 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.SearchLatencyRecorder;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreStats;
+import com.oracle.runbook.rag.ScoredChunk;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * Approximate nearest-neighbour implementation of {@link VectorStoreRepository} backed by a
+ * Hierarchical Navigable Small World (HNSW) graph.
+ *
+ * <p>Embeddings are L2-normalized on insert so graph distances and search scores are cosine
+ * similarities. Each node is assigned a random top layer; a search descends greedily from the
+ * entry point through the sparse upper layers and then runs a best-first beam search of width
+ * {@code efSearch} on layer 0. See {@link HnswConfig} for the tuning parameters. Distances are
+ * computed by a {@link SimilarityKernel}, by default the {@link SimilarityKernels#preferred()
+ * preferred} one.
+ *
+ * <p>Concurrency model:
+ *
+ * <ul>
+ *   <li>Inserts and searches share a read lock and run concurrently; the write lock is only taken
+ *       to grow the node arrays, to apply deletes, and to compact the graph.
+ *   <li>Neighbour lists are guarded by striped monitors, so concurrent inserts only contend when
+ *       they rewire the same region of the graph.
+ *   <li>An insert that raises the graph's top layer holds the entry-point lock for its duration.
+ * </ul>
+ *
+ * <p>Deletes are tombstones: a node is live only while the id index still points at it. A
+ * secondary index from runbook path to chunk ids lets {@link #delete(String)} tombstone a runbook's
+ * nodes without visiting the rest of the graph; a chunk shared with other runbooks is indexed
+ * under each of them and stays live, without the deleted source, until its last one goes. Deleted
+ * nodes keep routing traversals but are never returned. Once tombstones dominate the graph it is
+ * rebuilt from the live nodes. {@link #replaceRunbooks(List, List)} uses the same liveness rule in
+ * reverse: new nodes are linked in before they become live, then swapped in for the old ones under
+ * the write lock.
+ *
+ * @see HnswConfig
+ * @see VectorStoreRepository
+ */
+public class HnswVectorStoreRepository implements VectorStoreRepository {
+
+  private static final Logger LOGGER = Logger.getLogger(HnswVectorStoreRepository.class.getName());
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int LOCK_STRIPES = 1024;
+  private static final int MAX_LEVEL = 16;
+  private static final int MIN_TOMBSTONES_FOR_REBUILD = 1024;
+
+  private final HnswConfig config;
+  private final SimilarityKernel kernel;
+  private final int maxConnections;
+  private final int maxConnectionsLayerZero;
+  private final double levelMultiplier;
+
+  private final ReentrantReadWriteLock structureLock = new ReentrantReadWriteLock();
+  private final ReentrantLock entryPointLock = new ReentrantLock();
+  private final Object[] stripes = new Object[LOCK_STRIPES];
+  private final Map<String, Integer> nodesById = new ConcurrentHashMap<>();
+  private final Map<String, Set<String>> idsByPath = new ConcurrentHashMap<>();
+  private final AtomicInteger nodeCount = new AtomicInteger();
+  private final AtomicInteger stagingReplacements = new AtomicInteger();
+  private final SearchLatencyRecorder searchLatency = new SearchLatencyRecorder();
+  private final ThreadLocal<VisitedSet> visitedSets = ThreadLocal.withInitial(VisitedSet::new);
+
+  // Guarded by structureLock: replaced only under the write lock
+  private int dimension = -1;
+  private int capacity;
+  private float[] vectors = new float[0];
+  private RunbookChunk[] chunks = new RunbookChunk[0];
+  private int[][][] links = new int[0][][];
+
+  private volatile int entryPoint = -1;
+  private volatile int maxLevel = -1;
+
+  /** Creates a repository with {@link HnswConfig#defaults() default} parameters. */
+  public HnswVectorStoreRepository() {
+    this(HnswConfig.defaults());
+  }
+
+  /**
+   * Creates a repository with the given parameters.
+   *
+   * @param config the HNSW tuning parameters
+   * @throws NullPointerException if config is null
+   */
+  public HnswVectorStoreRepository(HnswConfig config) {
+    this(config, SimilarityKernels.preferred());
+  }
+
+  /**
+   * Creates a repository with the given parameters and similarity kernel.
+   *
+   * @param config the HNSW tuning parameters
+   * @param kernel the similarity kernel used for graph distances
+   * @throws NullPointerException if config or kernel is null
+   */
+  public HnswVectorStoreRepository(HnswConfig config, SimilarityKernel kernel) {
+    this.config = Objects.requireNonNull(config, "config cannot be null");
+    this.kernel = Objects.requireNonNull(kernel, "kernel cannot be null");
+    this.maxConnections = config.m();
+    this.maxConnectionsLayerZero = config.m() * 2;
+    this.levelMultiplier = 1.0 / Math.log(config.m());
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new Object();
+    }
+  }
+
+  @Override
+  public String providerType() {
+    return "hnsw";
+  }
+
+  @Override
+  public void store(RunbookChunk chunk) {
+    Objects.requireNonNull(chunk, "chunk cannot be null");
+    insert(chunk, FloatVectorMatrix.normalizeInPlace(chunk.embedding()), true);
+  }
+
+  @Override
+  public void storeBatch(List<RunbookChunk> chunks) {
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    chunks.forEach(this::store);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The new chunks are inserted into the graph concurrently with searches, as hidden nodes that
+   * route traversals but are not yet live. The write lock is then taken only to tombstone the old
+   * chunks and publish the new ones, which waits for running searches to finish on the old
+   * generation. While any replacement is staging, the graph is not rebuilt, so staged nodes keep
+   * their place. The new chunks must match the dimension of the graph unless it is empty.
+   */
+  @Override
+  public void replaceRunbooks(List<String> runbookPaths, List<RunbookChunk> chunks) {
+    Objects.requireNonNull(runbookPaths, "runbookPaths cannot be null");
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    Set<String> paths = new LinkedHashSet<>();
+    for (String runbookPath : runbookPaths) {
+      paths.add(Objects.requireNonNull(runbookPath, "runbookPath cannot be null"));
+    }
+    List<float[]> normalized = new ArrayList<>(chunks.size());
+    for (RunbookChunk chunk : chunks) {
+      Objects.requireNonNull(chunk, "chunk cannot be null");
+      float[] vector = FloatVectorMatrix.normalizeInPlace(chunk.embedding());
+      if (!normalized.isEmpty() && vector.length != normalized.get(0).length) {
+        throw new IllegalArgumentException(
+            "Vectors must have same length: " + vector.length + " vs " + normalized.get(0).length);
+      }
+      normalized.add(vector);
+    }
+
+    int[] staged = new int[chunks.size()];
+    stagingReplacements.incrementAndGet();
+    try {
+      for (int i = 0; i < staged.length; i++) {
+        staged[i] = insert(chunks.get(i), normalized.get(i), false);
+      }
+    } catch (RuntimeException e) {
+      // Nodes staged so far stay in the graph as tombstones
+      stagingReplacements.decrementAndGet();
+      throw e;
+    }
+
+    structureLock.writeLock().lock();
+    try {
+      stagingReplacements.decrementAndGet();
+      for (String runbookPath : paths) {
+        tombstoneLocked(runbookPath);
+      }
+      for (int i = 0; i < staged.length; i++) {
+        publish(staged[i], chunks.get(i));
+      }
+      rebuildIfMostlyTombstones();
+    } finally {
+      structureLock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public List<ScoredChunk> search(float[] queryEmbedding, int topK) {
+    Objects.requireNonNull(queryEmbedding, "queryEmbedding cannot be null");
+    if (topK <= 0) {
+      throw new IllegalArgumentException("topK must be positive");
+    }
+
+    float[] query = FloatVectorMatrix.normalizeInPlace(queryEmbedding.clone());
+    return searchLatency.time(() -> searchGraph(query, topK));
+  }
+
+  private List<ScoredChunk> searchGraph(float[] query, int topK) {
+    structureLock.readLock().lock();
+    try {
+      int entry = entryPoint;
+      if (entry < 0) {
+        return List.of();
+      }
+      checkDimension(query.length);
+
+      int[] scratch = new int[maxConnectionsLayerZero];
+      for (int layer = links[entry].length - 1; layer > 0; layer--) {
+        entry = greedyClosest(query, entry, layer, scratch);
+      }
+
+      TopKSelector candidates =
+          searchLayer(query, entry, Math.max(config.efSearch(), topK), 0, scratch);
+      candidates.sortDescending();
+
+      List<ScoredChunk> results = new ArrayList<>(Math.min(topK, candidates.size()));
+      for (int i = 0; i < candidates.size() && results.size() < topK; i++) {
+        int node = candidates.row(i);
+        if (isLive(node)) {
+          results.add(new ScoredChunk(chunks[node], candidates.score(i)));
+        }
+      }
+      return results;
+    } finally {
+      structureLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void delete(String runbookPath) {
+    Objects.requireNonNull(runbookPath, "runbookPath cannot be null");
+
+    structureLock.writeLock().lock();
+    try {
+      tombstoneLocked(runbookPath);
+      rebuildIfMostlyTombstones();
+    } finally {
+      structureLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Looks up a stored chunk by id.
+   *
+   * @param id the chunk id
+   * @return the chunk, or empty if no live chunk with that id is stored
+   */
+  public Optional<RunbookChunk> findById(String id) {
+    Objects.requireNonNull(id, "id cannot be null");
+
+    structureLock.readLock().lock();
+    try {
+      Integer node = nodesById.get(id);
+      return node == null ? Optional.empty() : Optional.of(chunks[node]);
+    } finally {
+      structureLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The graph is built incrementally, so its index state is {@link
+   * VectorStoreStats.IndexState#READY}. Vector and link bytes include tombstoned nodes, which stay
+   * in the graph until it is rebuilt.
+   */
+  @Override
+  public VectorStoreStats stats() {
+    structureLock.readLock().lock();
+    try {
+      ChunkFootprint footprint = new ChunkFootprint();
+      for (int node : nodesById.values()) {
+        footprint.add(chunks[node]);
+      }
+      long linkBytes = 0L;
+      int allocated = Math.min(nodeCount.get(), capacity);
+      for (int node = 0; node < allocated; node++) {
+        // An insert running under the read lock may not have published its links yet
+        int[][] nodeLinks = links[node];
+        if (nodeLinks != null) {
+          for (int[] layer : nodeLinks) {
+            linkBytes += (long) layer.length * Integer.BYTES;
+          }
+        }
+      }
+      return footprint.toStats(
+          providerType(),
+          dimension,
+          (long) vectors.length * Float.BYTES,
+          0L,
+          linkBytes,
+          VectorStoreStats.IndexState.READY,
+          searchLatency);
+    } finally {
+      structureLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Copied under the read lock, which replacements hold exclusively while they publish, so the
+   * result holds whole generations. Single-chunk inserts running concurrently may be missing.
+   * Chunks keep the embeddings they were stored with.
+   */
+  @Override
+  public List<RunbookChunk> exportChunks() {
+    structureLock.readLock().lock();
+    try {
+      List<RunbookChunk> exported = new ArrayList<>(nodesById.size());
+      for (int node : nodesById.values()) {
+        exported.add(chunks[node]);
+      }
+      return exported;
+    } finally {
+      structureLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of live (non-deleted) chunks in the index.
+   *
+   * @return the live chunk count
+   */
+  public int size() {
+    return nodesById.size();
+  }
+
+  // ========== Insertion ==========
+
+  /**
+   * Inserts a node into the graph.
+   *
+   * @param publish whether the node becomes live now, or is left for {@link #publish} to expose
+   * @return the node
+   */
+  private int insert(RunbookChunk chunk, float[] vector, boolean publish) {
+    while (true) {
+      structureLock.readLock().lock();
+      try {
+        if (dimension > 0) {
+          checkDimension(vector.length);
+          int node = reserveNode();
+          if (node >= 0) {
+            insertNode(node, chunk, vector, randomLevel(), publish);
+            return node;
+          }
+        }
+      } finally {
+        structureLock.readLock().unlock();
+      }
+      growOrInitialize(vector.length);
+    }
+  }
+
+  private int reserveNode() {
+    while (true) {
+      int next = nodeCount.get();
+      if (next >= capacity) {
+        return -1;
+      }
+      if (nodeCount.compareAndSet(next, next + 1)) {
+        return next;
+      }
+    }
+  }
+
+  private void growOrInitialize(int vectorDimension) {
+    structureLock.writeLock().lock();
+    try {
+      if (dimension < 0) {
+        if (vectorDimension == 0) {
+          throw new IllegalArgumentException("chunk embedding cannot be empty");
+        }
+        dimension = vectorDimension;
+        resize(INITIAL_CAPACITY);
+      } else if (nodeCount.get() >= capacity) {
+        resize(capacity * 2);
+      }
+    } finally {
+      structureLock.writeLock().unlock();
+    }
+  }
+
+  private void resize(int newCapacity) {
+    vectors = Arrays.copyOf(vectors, newCapacity * dimension);
+    chunks = Arrays.copyOf(chunks, newCapacity);
+    links = Arrays.copyOf(links, newCapacity);
+    capacity = newCapacity;
+  }
+
+  private void insertNode(
+      int node, RunbookChunk chunk, float[] vector, int level, boolean publish) {
+    System.arraycopy(vector, 0, vectors, node * dimension, dimension);
+    chunks[node] = chunk;
+    int[][] nodeLinks = new int[level + 1][];
+    for (int layer = 0; layer <= level; layer++) {
+      nodeLinks[layer] = new int[maxConnections(layer) + 1];
+    }
+    links[node] = nodeLinks;
+    if (publish) {
+      publish(node, chunk);
+    }
+
+    entryPointLock.lock();
+    int entry = entryPoint;
+    int topLevel = maxLevel;
+    boolean raisesTopLevel = level > topLevel;
+    if (!raisesTopLevel) {
+      entryPointLock.unlock();
+    }
+    try {
+      if (entry < 0) {
+        entryPoint = node;
+        maxLevel = level;
+        return;
+      }
+
+      int[] scratch = new int[maxConnectionsLayerZero + 1];
+      for (int layer = topLevel; layer > level; layer--) {
+        entry = greedyClosest(vector, entry, layer, scratch);
+      }
+
+      for (int layer = Math.min(level, topLevel); layer >= 0; layer--) {
+        TopKSelector nearest = searchLayer(vector, entry, config.efConstruction(), layer, scratch);
+        nearest.sortDescending();
+        int[] candidates = new int[nearest.size()];
+        float[] candidateScores = new float[nearest.size()];
+        for (int i = 0; i < nearest.size(); i++) {
+          candidates[i] = nearest.row(i);
+          candidateScores[i] = nearest.score(i);
+        }
+
+        int selectedCount =
+            selectNeighbors(candidates, candidateScores, candidates.length, maxConnections);
+        synchronized (stripe(node)) {
+          int[] list = nodeLinks[layer];
+          System.arraycopy(candidates, 0, list, 1, selectedCount);
+          list[0] = selectedCount;
+        }
+        for (int i = 0; i < selectedCount; i++) {
+          connect(candidates[i], node, layer);
+        }
+        entry = candidates[0];
+      }
+
+      if (raisesTopLevel) {
+        entryPoint = node;
+        maxLevel = level;
+      }
+    } finally {
+      if (raisesTopLevel) {
+        entryPointLock.unlock();
+      }
+    }
+  }
+
+  /** Adds a back-link from {@code from} to {@code to}, pruning the list of {@code from} if full. */
+  private void connect(int from, int to, int layer) {
+    synchronized (stripe(from)) {
+      int[] list = links[from][layer];
+      int count = list[0];
+      int limit = maxConnections(layer);
+      if (count < limit) {
+        list[count + 1] = to;
+        list[0] = count + 1;
+        return;
+      }
+
+      int[] candidates = new int[count + 1];
+      float[] candidateScores = new float[count + 1];
+      System.arraycopy(list, 1, candidates, 0, count);
+      candidates[count] = to;
+      for (int i = 0; i <= count; i++) {
+        candidateScores[i] = dot(from, candidates[i]);
+      }
+      sortByScoreDescending(candidates, candidateScores);
+
+      int selectedCount = selectNeighbors(candidates, candidateScores, count + 1, limit);
+      System.arraycopy(candidates, 0, list, 1, selectedCount);
+      list[0] = selectedCount;
+    }
+  }
+
+  /**
+   * Applies the HNSW neighbour-selection heuristic in place.
+   *
+   * <p>Candidates must be ordered best first. A candidate is kept only if it is closer to the base
+   * node than to every neighbour already kept, which spreads links across directions instead of
+   * clustering them. Kept candidates are moved to the front of the arrays.
+   *
+   * @return the number of kept candidates
+   */
+  private int selectNeighbors(int[] candidates, float[] scores, int count, int limit) {
+    int selected = 0;
+    for (int i = 0; i < count && selected < limit; i++) {
+      int candidate = candidates[i];
+      float score = scores[i];
+      boolean keep = true;
+      for (int j = 0; j < selected; j++) {
+        if (dot(candidate, candidates[j]) > score) {
+          keep = false;
+          break;
+        }
+      }
+      if (keep) {
+        candidates[selected] = candidate;
+        scores[selected] = score;
+        selected++;
+      }
+    }
+    return selected;
+  }
+
+  private int randomLevel() {
+    double uniform = 1.0 - ThreadLocalRandom.current().nextDouble();
+    return Math.min((int) (-Math.log(uniform) * levelMultiplier), MAX_LEVEL);
+  }
+
+  // ========== Traversal ==========
+
+  private int greedyClosest(float[] query, int entry, int layer, int[] scratch) {
+    int current = entry;
+    float currentScore = dot(query, current);
+    boolean improved = true;
+    while (improved) {
+      improved = false;
+      int count = copyNeighbors(current, layer, scratch);
+      for (int i = 0; i < count; i++) {
+        int neighbor = scratch[i];
+        float score = dot(query, neighbor);
+        if (score > currentScore) {
+          currentScore = score;
+          current = neighbor;
+          improved = true;
+        }
+      }
+    }
+    return current;
+  }
+
+  /** Best-first beam search on one layer, returning up to {@code ef} closest nodes. */
+  private TopKSelector searchLayer(float[] query, int entry, int ef, int layer, int[] scratch) {
+    VisitedSet visited = visitedSets.get();
+    visited.reset(capacity);
+    CandidateQueue frontier = new CandidateQueue(ef);
+    TopKSelector nearest = new TopKSelector(ef);
+
+    float entryScore = dot(query, entry);
+    visited.add(entry);
+    frontier.push(entry, entryScore);
+    nearest.offer(entry, entryScore);
+
+    while (!frontier.isEmpty()) {
+      int current = frontier.peekNode();
+      float currentScore = frontier.peekScore();
+      frontier.pop();
+      if (currentScore < nearest.threshold()) {
+        break;
+      }
+
+      int count = copyNeighbors(current, layer, scratch);
+      for (int i = 0; i < count; i++) {
+        int neighbor = scratch[i];
+        if (!visited.add(neighbor)) {
+          continue;
+        }
+        float score = dot(query, neighbor);
+        if (score > nearest.threshold()) {
+          frontier.push(neighbor, score);
+          nearest.offer(neighbor, score);
+        }
+      }
+    }
+    return nearest;
+  }
+
+  private int copyNeighbors(int node, int layer, int[] target) {
+    synchronized (stripe(node)) {
+      int[] list = links[node][layer];
+      int count = list[0];
+      System.arraycopy(list, 1, target, 0, count);
+      return count;
+    }
+  }
+
+  // ========== Deletion ==========
+
+  /** Makes a node live; any previous node with the chunk's id becomes a tombstone. */
+  private void publish(int node, RunbookChunk chunk) {
+    Integer previous = nodesById.put(chunk.id(), node);
+    if (previous != null) {
+      chunks[previous].sourceRunbookPaths().forEach(path -> unindexPath(path, chunk.id()));
+    }
+    chunk.sourceRunbookPaths().forEach(path -> indexPath(path, chunk.id()));
+  }
+
+  /**
+   * Drops a runbook as a source of its chunks. A chunk left without sources becomes a tombstone; a
+   * chunk shared with other runbooks stays live, and its node's chunk is rewritten without this
+   * source.
+   */
+  private void tombstoneLocked(String runbookPath) {
+    Set<String> ids = idsByPath.remove(runbookPath);
+    if (ids == null) {
+      return;
+    }
+    Set<String> deleted = Set.of(runbookPath);
+    // Re-check the sources: racing inserts of one id may have left it in a stale path's set
+    for (String id : ids) {
+      Integer node = nodesById.get(id);
+      if (node == null || !chunks[node].sourceRunbookPaths().contains(runbookPath)) {
+        continue;
+      }
+      Optional<RunbookChunk> remaining = chunks[node].withoutSources(deleted);
+      if (remaining.isPresent()) {
+        chunks[node] = remaining.get();
+      } else {
+        nodesById.remove(id);
+      }
+    }
+  }
+
+  private boolean isLive(int node) {
+    Integer current = nodesById.get(chunks[node].id());
+    return current != null && current == node;
+  }
+
+  private void rebuildIfMostlyTombstones() {
+    if (stagingReplacements.get() > 0) {
+      // Staged nodes are not live yet; a rebuild or reset would drop them
+      return;
+    }
+    int allocated = nodeCount.get();
+    int live = nodesById.size();
+    int tombstones = allocated - live;
+    if (tombstones < MIN_TOMBSTONES_FOR_REBUILD || tombstones < live) {
+      if (live == 0) {
+        reset();
+      }
+      return;
+    }
+
+    LOGGER.info(
+        () -> "Rebuilding HNSW graph: " + live + " live nodes, " + tombstones + " tombstones");
+    int[] liveNodes = nodesById.values().stream().mapToInt(Integer::intValue).sorted().toArray();
+    float[] liveVectors = new float[liveNodes.length * dimension];
+    RunbookChunk[] liveChunks = new RunbookChunk[liveNodes.length];
+    for (int i = 0; i < liveNodes.length; i++) {
+      System.arraycopy(vectors, liveNodes[i] * dimension, liveVectors, i * dimension, dimension);
+      liveChunks[i] = chunks[liveNodes[i]];
+    }
+
+    int retainedDimension = dimension;
+    reset();
+    dimension = retainedDimension;
+    resize(Math.max(INITIAL_CAPACITY, Integer.highestOneBit(liveNodes.length) * 2));
+    float[] vector = new float[dimension];
+    for (int i = 0; i < liveChunks.length; i++) {
+      System.arraycopy(liveVectors, i * dimension, vector, 0, dimension);
+      insertNode(nodeCount.getAndIncrement(), liveChunks[i], vector, randomLevel(), true);
+    }
+  }
+
+  private void reset() {
+    nodesById.clear();
+    idsByPath.clear();
+    nodeCount.set(0);
+    entryPoint = -1;
+    maxLevel = -1;
+    dimension = -1;
+    capacity = 0;
+    vectors = new float[0];
+    chunks = new RunbookChunk[0];
+    links = new int[0][][];
+  }
+
+  // ========== Helpers ==========
+
+  // Inserts run concurrently; compute() makes each path's id set update atomic
+  private void indexPath(String runbookPath, String id) {
+    if (runbookPath != null) {
+      idsByPath.compute(
+          runbookPath,
+          (path, ids) -> {
+            Set<String> updated = ids == null ? new HashSet<>() : ids;
+            updated.add(id);
+            return updated;
+          });
+    }
+  }
+
+  private void unindexPath(String runbookPath, String id) {
+    if (runbookPath != null) {
+      idsByPath.computeIfPresent(
+          runbookPath,
+          (path, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+          });
+    }
+  }
+
+  private int maxConnections(int layer) {
+    return layer == 0 ? maxConnectionsLayerZero : maxConnections;
+  }
+
+  private Object stripe(int node) {
+    return stripes[node & (LOCK_STRIPES - 1)];
+  }
+
+  private float dot(float[] query, int node) {
+    return kernel.dot(query, 0, vectors, node * dimension, dimension);
+  }
+
+  private float dot(int a, int b) {
+    return kernel.dot(vectors, a * dimension, vectors, b * dimension, dimension);
+  }
+
+  private void checkDimension(int length) {
+    if (length != dimension) {
+      throw new IllegalArgumentException(
+          "Vectors must have same length: " + length + " vs " + dimension);
+    }
+  }
+
+  private static void sortByScoreDescending(int[] nodes, float[] scores) {
+    // Insertion sort: neighbour lists are at most 2 * m + 1 entries
+    for (int i = 1; i < nodes.length; i++) {
+      int node = nodes[i];
+      float score = scores[i];
+      int j = i - 1;
+      while (j >= 0 && scores[j] < score) {
+        nodes[j + 1] = nodes[j];
+        scores[j + 1] = scores[j];
+        j--;
+      }
+      nodes[j + 1] = node;
+      scores[j + 1] = score;
+    }
+  }
+
+  /** Per-thread visited marker that is cleared in O(1) by bumping an epoch. */
+  private static final class VisitedSet {
+    private int[] marks = new int[0];
+    private int epoch;
+
+    void reset(int size) {
+      if (marks.length < size) {
+        marks = new int[size];
+        epoch = 0;
+      }
+      epoch++;
+      if (epoch == Integer.MAX_VALUE) {
+        Arrays.fill(marks, 0);
+        epoch = 1;
+      }
+    }
+
+    boolean add(int node) {
+      if (marks[node] == epoch) {
+        return false;
+      }
+      marks[node] = epoch;
+      return true;
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+/**
+ * Options for the in-process hot tier of {@link TieredVectorStoreRepository}.
+ *
+ * @param capacity the maximum number of chunks kept in the hot tier
+ * @param promotionThreshold the number of times a chunk must be retrieved from the remote store
+ *     before it is copied into the hot tier
+ * @param confidenceScore the similarity the K-th hot-tier result must reach for a search to be
+ *     answered without the remote store
+ * @param confidenceMargin how far the K-th hot-tier result must score above the next hot-tier
+ *     result for a search to be answered without the remote store
+ */
+public record HotTierConfig(
+    int capacity, int promotionThreshold, double confidenceScore, double confidenceMargin) {
+
+  /** Default hot tier capacity in chunks. */
+  public static final int DEFAULT_CAPACITY = 2048;
+
+  /** Default number of remote retrievals before a chunk is promoted. */
+  public static final int DEFAULT_PROMOTION_THRESHOLD = 3;
+
+  /** Default similarity the K-th hot result must reach to skip the remote store. */
+  public static final double DEFAULT_CONFIDENCE_SCORE = 0.8;
+
+  /** Default lead of the K-th hot result over the next one to skip the remote store. */
+  public static final double DEFAULT_CONFIDENCE_MARGIN = 0.05;
+
+  /** Compact constructor with validation. */
+  public HotTierConfig {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    if (promotionThreshold <= 0) {
+      throw new IllegalArgumentException("promotionThreshold must be positive");
+    }
+    if (Double.isNaN(confidenceScore) || confidenceScore < -1.0 || confidenceScore > 1.0) {
+      throw new IllegalArgumentException("confidenceScore must be between -1 and 1");
+    }
+    if (Double.isNaN(confidenceMargin) || confidenceMargin < 0.0 || confidenceMargin > 2.0) {
+      throw new IllegalArgumentException("confidenceMargin must be between 0 and 2");
+    }
+  }
+
+  /**
+   * Returns the default configuration: 2048 hot chunks, promoted after three remote retrievals and
+   * trusted when the K-th hot result scores at least 0.8 and 0.05 above the next one.
+   *
+   * @return the default configuration
+   */
+  public static HotTierConfig defaults() {
+    return new HotTierConfig(
+        DEFAULT_CAPACITY,
+        DEFAULT_PROMOTION_THRESHOLD,
+        DEFAULT_CONFIDENCE_SCORE,
+        DEFAULT_CONFIDENCE_MARGIN);
+  }
+}
@@ -1,27 +1,214 @@
 package com.oracle.runbook.infrastructure.cloud.local;
 
 import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.ChunkVisitor;
+import com.oracle.runbook.infrastructure.cloud.SearchLatencyRecorder;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
 import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreStats;
 import com.oracle.runbook.rag.ScoredChunk;
+import com.oracle.runbook.rag.SearchHit;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * In-memory implementation of {@link VectorStoreRepository} for local development and testing.
  *
- * <p>Uses a {@link ConcurrentHashMap} for thread-safe storage and implements cosine similarity
- * search for vector matching. This is suitable for MVP/E2E testing where persistence is not
- * required.
+ * <p>Embeddings are L2-normalized once at {@link #store(RunbookChunk)} time and packed into a
+ * single contiguous {@link FloatVectorMatrix}, so a search is a sequential dot-product scan that
+ * equals cosine similarity. A bounded {@link TopKSelector} keeps only the best {@code topK} rows,
+ * which means a query allocates its K results and nothing per stored chunk. Dot products run on a
+ * pluggable {@link SimilarityKernel}, by default the fastest one {@link
+ * SimilarityKernels#preferred() available} in the JVM. Stored chunks are kept without their own
+ * embedding, so the vector storage holds the only copy; float32 search results and exports read
+ * the normalized vector back from it.
+ *
+ * <p>With {@link VectorEncoding#INT8} (see {@link LocalVectorStoreConfig}) the scan runs over an
+ * {@link Int8VectorStorage} at a quarter of the memory, keeps {@code topK * rerankFactor}
+ * candidates, and re-ranks them against full-precision vectors, which may be spilled to a scratch
+ * file with {@link FileBackedVectorStorage}. In that mode stored chunks are kept without their
+ * embedding, so returned chunks have an empty {@link RunbookChunk#embedding()}.
+ *
+ * <p>With {@link VectorEncoding#FLOAT16} or {@link VectorEncoding#BFLOAT16} vectors are kept in a
+ * {@link HalfPrecisionVectorStorage} at half the memory and widened inside the kernel while
+ * scanning. Scores stay within about 1e-3 of float32, so there is no re-ranking and no
+ * full-precision copy; stored chunks are again kept without their embedding. Snapshots of such a
+ * store hold 16-bit vectors as well.
+ *
+ * <p>With a {@link ProjectionConfig projection} the scan runs over reduced vectors, either the
+ * leading components (for Matryoshka embeddings) or a PCA basis fitted by {@link #optimize()}, in
+ * the configured encoding. As in int8 mode the scan keeps {@code topK * rerankFactor} candidates
+ * and re-ranks them against the full-dimension vectors, which may again be spilled to a scratch
+ * file, and stored chunks are kept without their embedding. Queries pass through the same
+ * projection as stored vectors. A fitted PCA basis is saved next to each snapshot and restored
+ * with it.
+ *
+ * <p>Contents can be persisted with {@link #saveSnapshot(Path)} and restored with {@link
+ * #loadSnapshot(Path)} (see {@link VectorSnapshotFile}). A restored float32 store scans the
+ * memory-mapped snapshot directly and copies vectors onto the heap only on its first mutation.
+ * Search results carry embeddings read from the mapped vectors, as before the restore.
+ *
+ * <p>{@link #search(float[], int, VectorSearchFilter) Filtered searches} first resolve the filter
+ * against a {@link MetadataBitmapIndex} of tags, runbook paths and applicable shapes, then score
+ * only the candidate rows, so a selective filter makes the search cheaper and matching chunks are
+ * never crowded out by non-matching ones. The same index maps each runbook path to its rows, so
+ * {@link #delete(String)} touches only that runbook's chunks instead of scanning the store, and
+ * {@link #findById(String)} is a hash lookup.
+ *
+ * <p>{@link #searchBatch(List, int, VectorSearchFilter) Batched searches} walk the stored vectors
+ * in cache-sized blocks and score every query of the batch against a block before moving on, so
+ * each vector is read from memory once per batch instead of once per query. {@link
+ * #searchHits(float[], int, VectorSearchFilter) Search hits} run the same scan and reference the
+ * stored text and metadata directly, never the embedding.
+ *
+ * <p>Searches over at least {@link ParallelScanConfig#threshold()} rows are split into fixed-size
+ * segments that are scanned in parallel on a fork/join pool owned by the store, or shared with
+ * other stores, never the common pool; each segment keeps its own top-K heaps, which are merged
+ * pairwise as the segments finish. The result is the same exact ranking a single-threaded scan
+ * produces. Idle pool threads exit on their own, so the store needs no shutdown.
+ *
+ * <p>A {@link RunbookCentroidIndex} keeps one centroid per runbook, recomputed from the runbook's
+ * rows whenever a mutation touches it, so {@link #searchRunbooks(float[], int, VectorSearchFilter)}
+ * ranks runbooks by scoring one vector each instead of every chunk. Title embeddings recorded with
+ * {@link #storeRunbookTitles(Map)} are folded into the centroids and saved with snapshots.
+ *
+ * <p>All vectors in the store share the dimension of the first stored chunk. Access is guarded by
+ * a read-write lock: searches run concurrently, mutations are exclusive. {@link
+ * #replaceRunbooks(List, List)} removes and adds a runbook's chunks in one exclusive section, so
+ * re-ingesting a runbook never exposes it half-empty.
+ *
+ * <p>A chunk shared by several runbooks occupies one row, indexed and folded into the centroid of
+ * each of its sources. Deleting or replacing one of them rewrites the row's chunk without that
+ * source, and the row is removed with its last source.
  *
  * @see VectorStoreRepository
  */
-public class InMemoryVectorStoreRepository implements VectorStoreRepository {
+public class InMemoryVectorStoreRepository
+    implements VectorStoreRepository, SnapshottableVectorStore, RunbookCentroidSearch {
+
+  /** Bytes of float32 vectors scored per block by {@link #searchBatch}; sized for the L2 cache. */
+  private static final int SCAN_BLOCK_BYTES = 128 * 1024;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<String, Integer> rowsById = new HashMap<>();
+  private final MetadataBitmapIndex metadata = new MetadataBitmapIndex();
+  private final RunbookCentroidIndex centroids;
+
+  /** Runbooks whose centroid must be recomputed before the write lock is released. */
+  private final Set<String> staleCentroids = new HashSet<>();
+  private final LocalVectorStoreConfig config;
+  private final SimilarityKernel kernel;
+  private final SearchLatencyRecorder searchLatency = new SearchLatencyRecorder();
+
+  /** Pool for parallel scans, or null when the configured parallelism is 1. */
+  private final ForkJoinPool scanPool;
+
+  /** Storage scanned by every search. */
+  private VectorStorage vectors;
+
+  /** Full-precision vectors for re-ranking, or null when the scan itself is exact. */
+  private VectorStorage fullPrecision;
+
+  /** Projection applied to scanned vectors, or null while they are scanned at full dimension. */
+  private VectorProjection projection;
+
+  /** Number of stored vectors when the PCA projection was fitted. */
+  private int fittedSize;
+
+  /** Incremented by every change to stored rows, so a projection built outside the lock is safe. */
+  private long modCount;
 
-  private final Map<String, RunbookChunk> chunks = new ConcurrentHashMap<>();
+  private RunbookChunk[] chunks = new RunbookChunk[0];
+
+  /** Creates a float32 repository scoring with the {@link SimilarityKernels#preferred()} kernel. */
+  public InMemoryVectorStoreRepository() {
+    this(LocalVectorStoreConfig.defaults());
+  }
+
+  /**
+   * Creates a float32 repository scoring with the given kernel.
+   *
+   * @param kernel the similarity kernel to use
+   * @throws NullPointerException if kernel is null
+   */
+  public InMemoryVectorStoreRepository(SimilarityKernel kernel) {
+    this(LocalVectorStoreConfig.defaults(), kernel);
+  }
+
+  /**
+   * Creates a repository with the given storage options and the preferred kernel.
+   *
+   * @param config the storage options
+   * @throws NullPointerException if config is null
+   */
+  public InMemoryVectorStoreRepository(LocalVectorStoreConfig config) {
+    this(config, SimilarityKernels.preferred());
+  }
+
+  /**
+   * Creates a repository with the given storage options and kernel.
+   *
+   * @param config the storage options
+   * @param kernel the similarity kernel to use
+   * @throws NullPointerException if config or kernel is null
+   */
+  public InMemoryVectorStoreRepository(LocalVectorStoreConfig config, SimilarityKernel kernel) {
+    this(
+        config,
+        kernel,
+        newScanPool(Objects.requireNonNull(config, "config cannot be null").parallelScan()));
+  }
+
+  /**
+   * Creates a repository with the given storage options that scans on a pool shared with other
+   * stores, such as the shards of a {@link ShardedVectorStoreRepository}, so their scans do not
+   * compete with one pool each. The configured options still decide which scans are split.
+   *
+   * @param config the storage options
+   * @param kernel the similarity kernel to use
+   * @param scanPool the pool from {@link #newScanPool(ParallelScanConfig)}, or null to scan on the
+   *     calling thread
+   * @throws NullPointerException if config or kernel is null
+   */
+  public InMemoryVectorStoreRepository(
+      LocalVectorStoreConfig config, SimilarityKernel kernel, ForkJoinPool scanPool) {
+    this.config = Objects.requireNonNull(config, "config cannot be null");
+    this.kernel = Objects.requireNonNull(kernel, "kernel cannot be null");
+    this.centroids = new RunbookCentroidIndex(kernel);
+    this.scanPool = scanPool;
+  }
+
+  /**
+   * Creates a scan pool for the given options, to be shared by several stores.
+   *
+   * @param config the parallel scan options
+   * @return a pool of {@link ParallelScanConfig#parallelism()} threads, or null when the options
+   *     scan on the calling thread
+   * @throws NullPointerException if config is null
+   */
+  public static ForkJoinPool newScanPool(ParallelScanConfig config) {
+    int parallelism = Objects.requireNonNull(config, "config cannot be null").parallelism();
+    return parallelism > 1
+        ? new ForkJoinPool(parallelism, InMemoryVectorStoreRepository::newScanThread, null, false)
+        : null;
+  }
 
   @Override
   public String providerType() {
@@ -31,70 +218,1023 @@ public class InMemoryVectorStoreRepository implements VectorStoreRepository {
   @Override
   public void store(RunbookChunk chunk) {
     Objects.requireNonNull(chunk, "chunk cannot be null");
-    chunks.put(chunk.id(), chunk);
+    float[] normalized = FloatVectorMatrix.normalizeInPlace(chunk.embedding());
+
+    lock.writeLock().lock();
+    try {
+      storeLocked(chunk, normalized);
+    } finally {
+      refreshCentroidsLocked();
+      lock.writeLock().unlock();
+    }
   }
 
   @Override
   public void storeBatch(List<RunbookChunk> chunks) {
     Objects.requireNonNull(chunks, "chunks cannot be null");
-    chunks.forEach(this::store);
+    if (chunks.isEmpty()) {
+      return;
+    }
+
+    // Normalize outside the lock so concurrent searches are blocked only for the copy-in
+    List<float[]> normalized = normalizeAll(chunks);
+
+    lock.writeLock().lock();
+    try {
+      for (int i = 0; i < chunks.size(); i++) {
+        storeLocked(chunks.get(i), normalized.get(i));
+      }
+    } finally {
+      refreshCentroidsLocked();
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The new vectors are normalized and validated before anything is removed; the write lock is
+   * held only to drop the old rows and append the new ones. Taking it waits for running searches
+   * to finish on the old generation, and every search that starts afterwards sees the new one.
+   */
+  @Override
+  public void replaceRunbooks(List<String> runbookPaths, List<RunbookChunk> chunks) {
+    Objects.requireNonNull(runbookPaths, "runbookPaths cannot be null");
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    Set<String> paths = new LinkedHashSet<>();
+    for (String runbookPath : runbookPaths) {
+      paths.add(Objects.requireNonNull(runbookPath, "runbookPath cannot be null"));
+    }
+    List<float[]> normalized = normalizeAll(chunks);
+
+    lock.writeLock().lock();
+    try {
+      checkReplacement(paths, chunks);
+      for (String runbookPath : paths) {
+        deleteLocked(runbookPath);
+      }
+      for (int i = 0; i < chunks.size(); i++) {
+        storeLocked(chunks.get(i), normalized.get(i));
+      }
+    } finally {
+      refreshCentroidsLocked();
+      lock.writeLock().unlock();
+    }
   }
 
   @Override
   public List<ScoredChunk> search(float[] queryEmbedding, int topK) {
+    return search(queryEmbedding, topK, VectorSearchFilter.none());
+  }
+
+  @Override
+  public List<ScoredChunk> search(float[] queryEmbedding, int topK, VectorSearchFilter filter) {
+    Objects.requireNonNull(queryEmbedding, "queryEmbedding cannot be null");
+    return searchBatch(List.of(queryEmbedding), topK, filter).get(0);
+  }
+
+  @Override
+  public List<List<ScoredChunk>> searchBatch(
+      List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+    return searchRows(
+        queryEmbeddings, topK, filter, (row, score) -> new ScoredChunk(resultChunk(row), score));
+  }
+
+  @Override
+  public List<SearchHit> searchHits(float[] queryEmbedding, int topK, VectorSearchFilter filter) {
     Objects.requireNonNull(queryEmbedding, "queryEmbedding cannot be null");
+    return searchHitsBatch(List.of(queryEmbedding), topK, filter).get(0);
+  }
+
+  @Override
+  public List<List<SearchHit>> searchHitsBatch(
+      List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+    return searchRows(
+        queryEmbeddings, topK, filter, (row, score) -> SearchHit.of(chunks[row], score));
+  }
+
+  private <T> List<List<T>> searchRows(
+      List<float[]> queryEmbeddings,
+      int topK,
+      VectorSearchFilter filter,
+      ResultFactory<T> resultFactory) {
+    Objects.requireNonNull(queryEmbeddings, "queryEmbeddings cannot be null");
+    Objects.requireNonNull(filter, "filter cannot be null");
     if (topK <= 0) {
       throw new IllegalArgumentException("topK must be positive");
     }
+    return searchLatency.time(() -> scanRows(queryEmbeddings, topK, filter, resultFactory));
+  }
 
-    if (chunks.isEmpty()) {
-      return List.of();
+  private <T> List<List<T>> scanRows(
+      List<float[]> queryEmbeddings,
+      int topK,
+      VectorSearchFilter filter,
+      ResultFactory<T> resultFactory) {
+    float[][] queries = new float[queryEmbeddings.size()][];
+    for (int q = 0; q < queries.length; q++) {
+      float[] queryEmbedding =
+          Objects.requireNonNull(queryEmbeddings.get(q), "queryEmbedding cannot be null");
+      queries[q] = FloatVectorMatrix.normalizeInPlace(queryEmbedding.clone());
+    }
+
+    lock.readLock().lock();
+    try {
+      if (vectors == null || vectors.size() == 0) {
+        return Collections.nCopies(queries.length, List.of());
+      }
+      for (float[] query : queries) {
+        checkDimension(query.length);
+      }
+      float[][] scanned = queries;
+      if (projection != null) {
+        scanned = new float[queries.length][];
+        for (int q = 0; q < queries.length; q++) {
+          scanned[q] = projection.project(queries[q]);
+        }
+      }
+
+      int[] rows = filter.isEmpty() ? null : metadata.candidates(filter).toArray();
+      int size = rows == null ? vectors.size() : rows.length;
+      if (size == 0) {
+        return Collections.nCopies(queries.length, List.of());
+      }
+      int candidates =
+          fullPrecision == null ? topK : saturatedMultiply(topK, config.rerankFactor());
+      TopKSelector[] selectors =
+          scanPool != null && config.parallelScan().parallel(size)
+              ? scanPool.invoke(new SegmentScan(scanned, rows, 0, size, candidates))
+              : scan(scanned, rows, 0, size, candidates);
+
+      List<List<T>> results = new ArrayList<>(queries.length);
+      for (int q = 0; q < queries.length; q++) {
+        TopKSelector selector = selectors[q];
+        results.add(
+            toResults(
+                fullPrecision == null ? selector : rerank(selector, queries[q], topK),
+                resultFactory));
+      }
+      return results;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Scores the runbook centroids under the read lock. A filter is first resolved to candidate
+   * rows, and only the runbooks owning one of them are ranked.
+   */
+  @Override
+  public List<String> searchRunbooks(float[] queryEmbedding, int limit, VectorSearchFilter filter) {
+    return searchScoredRunbooks(queryEmbedding, limit, filter).stream()
+        .map(ScoredRunbook::runbookPath)
+        .toList();
+  }
+
+  @Override
+  public List<ScoredRunbook> searchScoredRunbooks(
+      float[] queryEmbedding, int limit, VectorSearchFilter filter) {
+    Objects.requireNonNull(queryEmbedding, "queryEmbedding cannot be null");
+    Objects.requireNonNull(filter, "filter cannot be null");
+    if (limit <= 0) {
+      throw new IllegalArgumentException("limit must be positive");
     }
+    float[] query = FloatVectorMatrix.normalizeInPlace(queryEmbedding.clone());
+
+    lock.readLock().lock();
+    try {
+      if (vectors == null || vectors.size() == 0) {
+        return List.of();
+      }
+      checkDimension(query.length);
+      Set<String> eligible = null;
+      if (!filter.isEmpty()) {
+        eligible = new HashSet<>();
+        for (int row : metadata.candidates(filter).toArray()) {
+          eligible.addAll(chunks[row].sourceRunbookPaths());
+        }
+        if (!filter.runbookPaths().isEmpty()) {
+          eligible.retainAll(filter.runbookPaths());
+        }
+      }
+      return centroids.topScored(query, limit, eligible);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Titles whose dimension differs from the stored vectors are ignored.
+   */
+  @Override
+  public void storeRunbookTitles(Map<String, float[]> titleEmbeddings) {
+    Objects.requireNonNull(titleEmbeddings, "titleEmbeddings cannot be null");
+    Map<String, float[]> normalized = new HashMap<>();
+    titleEmbeddings.forEach(
+        (runbookPath, title) -> normalized.put(runbookPath, normalizeTitle(title)));
 
-    List<ScoredChunk> scoredChunks = new ArrayList<>();
-    for (RunbookChunk chunk : chunks.values()) {
-      double similarity = cosineSimilarity(queryEmbedding, chunk.embedding());
-      scoredChunks.add(new ScoredChunk(chunk, similarity));
+    lock.writeLock().lock();
+    try {
+      normalized.forEach(
+          (runbookPath, title) -> {
+            if (metadata.rowsOf(runbookPath).length > 0) {
+              centroids.putTitle(runbookPath, title);
+              staleCentroids.add(runbookPath);
+            }
+          });
+    } finally {
+      refreshCentroidsLocked();
+      lock.writeLock().unlock();
     }
+  }
 
-    // Sort by similarity descending and limit to topK
-    scoredChunks.sort(Comparator.comparingDouble(ScoredChunk::similarityScore).reversed());
-    return scoredChunks.subList(0, Math.min(topK, scoredChunks.size()));
+  private static float[] normalizeTitle(float[] title) {
+    return FloatVectorMatrix.normalizeInPlace(
+        Objects.requireNonNull(title, "title embedding cannot be null").clone());
   }
 
   @Override
   public void delete(String runbookPath) {
     Objects.requireNonNull(runbookPath, "runbookPath cannot be null");
-    chunks.entrySet().removeIf(entry -> runbookPath.equals(entry.getValue().runbookPath()));
+
+    lock.writeLock().lock();
+    try {
+      deleteLocked(runbookPath);
+    } finally {
+      refreshCentroidsLocked();
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void deleteLocked(String runbookPath) {
+    centroids.removeTitle(runbookPath);
+    // Remove from the highest row down, so the tail row swapped into a freed slot is never one of
+    // the runbook's own rows still waiting to be removed
+    int[] rows = metadata.rowsOf(runbookPath);
+    Set<String> deleted = Set.of(runbookPath);
+    for (int i = rows.length - 1; i >= 0; i--) {
+      int row = rows[i];
+      Optional<RunbookChunk> remaining = chunks[row].withoutSources(deleted);
+      if (remaining.isEmpty()) {
+        removeRowLocked(row);
+        continue;
+      }
+      // Shared with other runbooks: the row and its vector stay, without this runbook as a source
+      markCentroidStale(chunks[row]);
+      metadata.remove(chunks[row], row);
+      metadata.add(remaining.get(), row);
+      chunks[row] = remaining.get();
+    }
+  }
+
+  /**
+   * Removes a single chunk by id.
+   *
+   * @param id the chunk id
+   * @return true if a chunk with that id was stored
+   */
+  boolean deleteById(String id) {
+    Objects.requireNonNull(id, "id cannot be null");
+
+    lock.writeLock().lock();
+    try {
+      Integer row = rowsById.get(id);
+      if (row == null) {
+        return false;
+      }
+      removeRowLocked(row);
+      return true;
+    } finally {
+      refreshCentroidsLocked();
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Looks up a stored chunk by id, with its embedding as in {@link #exportChunks()}.
+   *
+   * @param id the chunk id
+   * @return the chunk, or empty if no chunk with that id is stored
+   */
+  public Optional<RunbookChunk> findById(String id) {
+    Objects.requireNonNull(id, "id cannot be null");
+
+    lock.readLock().lock();
+    try {
+      Integer row = rowsById.get(id);
+      return row == null
+          ? Optional.empty()
+          : Optional.of(exportRow(fullPrecision != null ? fullPrecision : vectors, row));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Computed under the read lock by walking the stored chunks once, so searches keep running.
+   * The store scans exactly, so its index state is {@link VectorStoreStats.IndexState#NONE}; the
+   * index bytes are those of its metadata bitmaps, runbook centroids and any projection basis.
+   */
+  @Override
+  public VectorStoreStats stats() {
+    lock.readLock().lock();
+    try {
+      ChunkFootprint footprint = new ChunkFootprint();
+      int size = vectors == null ? 0 : vectors.size();
+      for (int row = 0; row < size; row++) {
+        footprint.add(chunks[row]);
+      }
+      long heapBytes = 0L;
+      long offHeapBytes = 0L;
+      for (VectorStorage storage : new VectorStorage[] {vectors, fullPrecision}) {
+        if (storage != null) {
+          heapBytes += storage.heapBytes();
+          offHeapBytes += storage.offHeapBytes();
+        }
+      }
+      return footprint.toStats(
+          providerType(),
+          size == 0 ? 0 : dimension(),
+          heapBytes,
+          offHeapBytes,
+          metadata.heapBytes()
+              + centroids.heapBytes()
+              + (projection == null ? 0L : projection.heapBytes()),
+          VectorStoreStats.IndexState.NONE,
+          searchLatency);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Copied under the read lock, so searches keep running and the result reflects one point in
+   * time. Embeddings are the normalized full-dimension vectors, decoded from half precision when
+   * the store keeps no float32 copy.
+   */
+  @Override
+  public List<RunbookChunk> exportChunks() {
+    lock.readLock().lock();
+    try {
+      if (vectors == null) {
+        return List.of();
+      }
+      VectorStorage exact = fullPrecision != null ? fullPrecision : vectors;
+      List<RunbookChunk> exported = new ArrayList<>(exact.size());
+      for (int row = 0; row < exact.size(); row++) {
+        exported.add(exportRow(exact, row));
+      }
+      return exported;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Walks the rows under the read lock, decoding each vector into one reused buffer, so
+   * searches keep running while mutations wait for the visit to end, as they do for {@link
+   * #saveSnapshot(Path)}. Embeddings are those of {@link #exportChunks()}.
+   */
+  @Override
+  public void exportChunks(ChunkVisitor visitor) throws IOException {
+    Objects.requireNonNull(visitor, "visitor cannot be null");
+    lock.readLock().lock();
+    try {
+      if (vectors == null) {
+        return;
+      }
+      VectorStorage exact = fullPrecision != null ? fullPrecision : vectors;
+      float[] embedding = new float[exact.dimension()];
+      for (int row = 0; row < exact.size(); row++) {
+        exact.read(row, embedding);
+        visitor.visit(chunks[row], embedding);
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Looked up through the runbook path index under the read lock, with embeddings as in {@link
+   * #exportChunks()}.
+   */
+  @Override
+  public List<RunbookChunk> runbookChunks(String runbookPath) {
+    Objects.requireNonNull(runbookPath, "runbookPath cannot be null");
+    lock.readLock().lock();
+    try {
+      if (vectors == null) {
+        return List.of();
+      }
+      VectorStorage exact = fullPrecision != null ? fullPrecision : vectors;
+      int[] rows = metadata.rowsOf(runbookPath);
+      List<RunbookChunk> found = new ArrayList<>(rows.length);
+      for (int row : rows) {
+        found.add(exportRow(exact, row));
+      }
+      return found;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns a row's chunk for a search result: with its normalized embedding read back from a
+   * full-precision float32 scan, else without one. The read lock must be held.
+   */
+  private RunbookChunk resultChunk(int row) {
+    return config.encoding() == VectorEncoding.FLOAT32 && fullPrecision == null
+        ? exportRow(vectors, row)
+        : chunks[row];
+  }
+
+  /** Returns a row's chunk with its exact embedding; the read lock must be held. */
+  private RunbookChunk exportRow(VectorStorage exact, int row) {
+    float[] embedding = new float[exact.dimension()];
+    exact.read(row, embedding);
+    return chunks[row].withEmbedding(embedding);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Searches keep running while the snapshot is written; mutations wait for it to finish. An
+   * empty store that has never held a vector deletes any existing snapshot instead. A fitted PCA
+   * projection is written first, to a sibling file with a {@code .pca} suffix.
+   */
+  @Override
+  public void saveSnapshot(Path path) throws IOException {
+    saveSnapshot(path, 0L);
   }
 
   /**
-   * Computes cosine similarity between two vectors.
+   * Writes a snapshot stamped with the write-ahead log sequence number it reflects.
    *
-   * @param a first vector
-   * @param b second vector
-   * @return cosine similarity score between -1 and 1
+   * @param path the snapshot file
+   * @param sequence the last applied log sequence number, or 0
+   * @throws IOException if the snapshot cannot be written
    */
-  private double cosineSimilarity(float[] a, float[] b) {
-    if (a.length != b.length) {
+  void saveSnapshot(Path path, long sequence) throws IOException {
+    Objects.requireNonNull(path, "path cannot be null");
+
+    lock.readLock().lock();
+    try {
+      Path projectionPath = projectionPath(path);
+      if (vectors == null) {
+        Files.deleteIfExists(projectionPath);
+        Files.deleteIfExists(path);
+        return;
+      }
+      if (projection != null && projection.method() == ProjectionMethod.PCA) {
+        projection.write(projectionPath);
+      } else {
+        Files.deleteIfExists(projectionPath);
+      }
+      VectorStorage exact = fullPrecision != null ? fullPrecision : vectors;
+      VectorSnapshotFile.write(
+          path, exact, chunks, exact.size(), sequence, exact.encoding(), centroids.titles());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean loadSnapshot(Path path) throws IOException {
+    return restoreSnapshot(path) >= 0;
+  }
+
+  /**
+   * Replaces the current contents with those of a snapshot file.
+   *
+   * @param path the snapshot file
+   * @return the write-ahead log sequence number stamped in the snapshot, or -1 if the file does
+   *     not exist
+   * @throws IOException if the file cannot be read or is not a valid snapshot
+   */
+  long restoreSnapshot(Path path) throws IOException {
+    Objects.requireNonNull(path, "path cannot be null");
+    if (!Files.exists(path)) {
+      return -1L;
+    }
+
+    // Map the file and build any derived storage outside the lock
+    VectorSnapshotFile snapshot = VectorSnapshotFile.open(path, kernel);
+    MappedVectorStorage mapped = snapshot.vectors();
+    int dimension = snapshot.dimension();
+    VectorStorage scan = mapped;
+    VectorStorage exact = null;
+    VectorProjection restoredProjection = null;
+    if (config.projection().reduces(dimension)) {
+      restoredProjection = readProjection(path, dimension);
+      scan =
+          newScanStorage(
+              restoredProjection == null ? dimension : restoredProjection.targetDimension());
+      exact = config.spillDirectory() == null ? mapped : newExactStorage(dimension);
+      float[] row = new float[dimension];
+      for (int i = 0; i < mapped.size(); i++) {
+        mapped.read(i, row);
+        scan.append(restoredProjection == null ? row : restoredProjection.project(row));
+        if (exact != mapped) {
+          exact.append(row);
+        }
+      }
+      if (exact != mapped) {
+        mapped.release();
+      }
+    } else if (config.encoding().isHalfPrecision() && mapped.encoding() != config.encoding()) {
+      // Convert a snapshot of another encoding once, rather than scanning it at the wrong width
+      scan = new HalfPrecisionVectorStorage(config.encoding(), dimension, kernel);
+      float[] row = new float[dimension];
+      for (int i = 0; i < mapped.size(); i++) {
+        mapped.read(i, row);
+        scan.append(row);
+      }
+      mapped.release();
+    } else if (config.encoding() == VectorEncoding.INT8) {
+      scan = new Int8VectorStorage(dimension, kernel);
+      exact = config.spillDirectory() == null ? mapped : newExactStorage(dimension);
+      float[] row = new float[dimension];
+      for (int i = 0; i < mapped.size(); i++) {
+        mapped.read(i, row);
+        scan.append(row);
+        if (exact != mapped) {
+          exact.append(row);
+        }
+      }
+      if (exact != mapped) {
+        mapped.release();
+      }
+    }
+
+    RunbookChunk[] loaded = snapshot.chunks();
+    lock.writeLock().lock();
+    try {
+      releaseStorage();
+      vectors = scan;
+      fullPrecision = exact;
+      projection = restoredProjection;
+      fittedSize = restoredProjection == null ? 0 : loaded.length;
+      modCount++;
+      chunks = Arrays.copyOf(loaded, Math.max(16, loaded.length));
+      rowsById.clear();
+      metadata.clear();
+      centroids.clear();
+      for (int row = 0; row < loaded.length; row++) {
+        rowsById.put(loaded[row].id(), row);
+        metadata.add(loaded[row], row);
+        markCentroidStale(loaded[row]);
+      }
+      snapshot
+          .titles()
+          .forEach(
+              (runbookPath, title) -> {
+                if (metadata.rowsOf(runbookPath).length > 0) {
+                  centroids.putTitle(runbookPath, title);
+                }
+              });
+    } finally {
+      refreshCentroidsLocked();
+      lock.writeLock().unlock();
+    }
+    return snapshot.sequence();
+  }
+
+  /**
+   * Returns the projection for a restored snapshot: a truncation, or the PCA basis saved with the
+   * snapshot if it fits the configuration, or null if the basis has to be fitted again.
+   */
+  private VectorProjection readProjection(Path snapshotPath, int dimension) throws IOException {
+    int target = config.projection().dimensions();
+    if (config.projection().method() == ProjectionMethod.TRUNCATE) {
+      return VectorProjection.truncation(dimension, target, kernel);
+    }
+    Path projectionPath = projectionPath(snapshotPath);
+    if (!Files.exists(projectionPath)) {
+      return null;
+    }
+    VectorProjection fitted = VectorProjection.read(projectionPath, kernel);
+    return fitted.sourceDimension() == dimension && fitted.targetDimension() == target
+        ? fitted
+        : null;
+  }
+
+  private static Path projectionPath(Path snapshotPath) {
+    return snapshotPath.resolveSibling(snapshotPath.getFileName() + ".pca");
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>With a {@link ProjectionMethod#PCA} projection, fits the basis on a sample of the stored
+   * vectors once the store holds at least {@link ProjectionConfig#dimensions()} of them, and fits
+   * it again whenever the store has doubled or halved since. Sampling and re-projecting the stored
+   * vectors run under the read lock and the fit runs without a lock, so searches keep running; the
+   * reduced vectors are swapped in under the write lock. Runs on the calling thread; otherwise a
+   * no-op.
+   */
+  @Override
+  public void optimize() {
+    int dimension;
+    float[] sample;
+    lock.readLock().lock();
+    try {
+      if (!needsFitLocked()) {
+        return;
+      }
+      dimension = fullPrecision.dimension();
+      sample = VectorProjection.sample(fullPrecision);
+    } finally {
+      lock.readLock().unlock();
+    }
+    VectorProjection fitted =
+        VectorProjection.fitPca(
+            sample, sample.length / dimension, dimension, config.projection().dimensions(), kernel);
+    installProjection(fitted);
+  }
+
+  private boolean needsFitLocked() {
+    if (config.projection().method() != ProjectionMethod.PCA
+        || fullPrecision == null
+        || !config.projection().reduces(fullPrecision.dimension())) {
+      return false;
+    }
+    int size = fullPrecision.size();
+    if (size < config.projection().dimensions()) {
+      return false;
+    }
+    return projection == null || size >= 2L * fittedSize || 2L * size <= fittedSize;
+  }
+
+  private void installProjection(VectorProjection fitted) {
+    VectorStorage scan;
+    long projectedModCount;
+    lock.readLock().lock();
+    try {
+      if (fullPrecision == null || fullPrecision.dimension() != fitted.sourceDimension()) {
+        return;
+      }
+      projectedModCount = modCount;
+      scan = projectAll(fitted);
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    lock.writeLock().lock();
+    try {
+      if (fullPrecision == null || fullPrecision.dimension() != fitted.sourceDimension()) {
+        scan.release();
+        return;
+      }
+      if (modCount != projectedModCount) {
+        // Writes landed while projecting; project the current contents instead
+        scan.release();
+        scan = projectAll(fitted);
+      }
+      vectors.release();
+      vectors = scan;
+      projection = fitted;
+      fittedSize = fullPrecision.size();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private VectorStorage projectAll(VectorProjection fitted) {
+    VectorStorage scan = newScanStorage(fitted.targetDimension());
+    float[] row = new float[fitted.sourceDimension()];
+    for (int i = 0; i < fullPrecision.size(); i++) {
+      fullPrecision.read(i, row);
+      scan.append(fitted.project(row));
+    }
+    return scan;
+  }
+
+  private void storeLocked(RunbookChunk chunk, float[] normalized) {
+    if (vectors == null || (vectors.size() == 0 && dimension() != normalized.length)) {
+      if (normalized.length == 0) {
+        throw new IllegalArgumentException("chunk embedding cannot be empty");
+      }
+      createStorage(normalized.length);
+    }
+    checkDimension(normalized.length);
+
+    // The vector storage holds the only copy of the embedding
+    RunbookChunk stored = withoutEmbedding(chunk);
+    float[] scanned = projection == null ? normalized : projection.project(normalized);
+    modCount++;
+    markCentroidStale(chunk);
+    Integer existing = rowsById.get(chunk.id());
+    if (existing != null) {
+      markCentroidStale(chunks[existing]);
+      vectors.set(existing, scanned);
+      if (fullPrecision != null) {
+        fullPrecision.set(existing, normalized);
+      }
+      metadata.remove(chunks[existing], existing);
+      metadata.add(stored, existing);
+      chunks[existing] = stored;
+      return;
+    }
+
+    int row = vectors.append(scanned);
+    if (fullPrecision != null) {
+      fullPrecision.append(normalized);
+    }
+    if (row == chunks.length) {
+      chunks = Arrays.copyOf(chunks, Math.max(16, chunks.length * 2));
+    }
+    chunks[row] = stored;
+    rowsById.put(chunk.id(), row);
+    metadata.add(stored, row);
+  }
+
+  private static List<float[]> normalizeAll(List<RunbookChunk> chunks) {
+    List<float[]> normalized = new ArrayList<>(chunks.size());
+    for (RunbookChunk chunk : chunks) {
+      Objects.requireNonNull(chunk, "chunk cannot be null");
+      normalized.add(FloatVectorMatrix.normalizeInPlace(chunk.embedding()));
+    }
+    return normalized;
+  }
+
+  /**
+   * Rejects a write that would fail in this store, without changing anything, so a caller such as
+   * {@link DurableVectorStoreRepository} can log the write before applying it. The caller must keep
+   * other writes out until the checked one is applied.
+   *
+   * @param runbookPaths the runbooks the write replaces, or empty for a plain store
+   * @param chunks the chunks the write stores
+   * @throws NullPointerException if any argument, path or chunk is null
+   * @throws IllegalArgumentException if an embedding is empty or of the wrong dimension
+   */
+  void checkWrite(List<String> runbookPaths, List<RunbookChunk> chunks) {
+    Objects.requireNonNull(runbookPaths, "runbookPaths cannot be null");
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    Set<String> paths = new LinkedHashSet<>();
+    for (String runbookPath : runbookPaths) {
+      paths.add(Objects.requireNonNull(runbookPath, "runbookPath cannot be null"));
+    }
+    for (RunbookChunk chunk : chunks) {
+      Objects.requireNonNull(chunk, "chunk cannot be null");
+    }
+
+    lock.readLock().lock();
+    try {
+      checkReplacement(paths, chunks);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Rejects a replacement whose vectors would fail half-way through {@link #storeLocked}, so the
+   * old generation is never removed without the new one taking its place.
+   */
+  private void checkReplacement(Set<String> runbookPaths, List<RunbookChunk> written) {
+    if (written.isEmpty()) {
+      return;
+    }
+    int length = written.get(0).embeddingLength();
+    if (length == 0) {
+      throw new IllegalArgumentException("chunk embedding cannot be empty");
+    }
+    for (RunbookChunk chunk : written) {
+      if (chunk.embeddingLength() != length) {
+        throw new IllegalArgumentException(
+            "Vectors must have same length: " + chunk.embeddingLength() + " vs " + length);
+      }
+    }
+    // Shared chunks survive the swap unless all of their sources are replaced
+    int remaining = vectors == null ? 0 : vectors.size();
+    if (remaining > 0 && !runbookPaths.isEmpty()) {
+      RowBitmap replaced =
+          metadata.candidates(VectorSearchFilter.none().withRunbookPaths(runbookPaths));
+      for (int row : replaced.toArray()) {
+        if (runbookPaths.containsAll(chunks[row].sourceRunbookPaths())) {
+          remaining--;
+        }
+      }
+    }
+    if (remaining > 0) {
+      checkDimension(length);
+    }
+  }
+
+  private void createStorage(int dimension) {
+    releaseStorage();
+    metadata.clear();
+    centroids.clear();
+    boolean reduces = config.projection().reduces(dimension);
+    projection =
+        reduces && config.projection().method() == ProjectionMethod.TRUNCATE
+            ? VectorProjection.truncation(dimension, config.projection().dimensions(), kernel)
+            : null;
+    fittedSize = 0;
+    vectors = newScanStorage(projection == null ? dimension : projection.targetDimension());
+    fullPrecision =
+        reduces || config.encoding() == VectorEncoding.INT8 ? newExactStorage(dimension) : null;
+  }
+
+  private VectorStorage newScanStorage(int dimension) {
+    if (config.encoding() == VectorEncoding.INT8) {
+      return new Int8VectorStorage(dimension, kernel);
+    }
+    if (config.encoding().isHalfPrecision()) {
+      return new HalfPrecisionVectorStorage(config.encoding(), dimension, kernel);
+    }
+    return new FloatVectorMatrix(dimension, kernel);
+  }
+
+  private VectorStorage newExactStorage(int dimension) {
+    return config.spillDirectory() == null
+        ? new FloatVectorMatrix(dimension, kernel)
+        : new FileBackedVectorStorage(config.spillDirectory(), dimension, kernel);
+  }
+
+  private void releaseStorage() {
+    if (vectors != null) {
+      vectors.release();
+    }
+    if (fullPrecision != null) {
+      fullPrecision.release();
+    }
+  }
+
+  /**
+   * Scores a range of the scan on the calling thread, one cache-sized block at a time.
+   *
+   * @param rows the candidate rows, or null to scan rows {@code start .. end} themselves
+   * @return one selector per query holding the range's best {@code k} rows
+   */
+  private TopKSelector[] scan(float[][] queries, int[] rows, int start, int end, int k) {
+    TopKSelector[] selectors = new TopKSelector[queries.length];
+    VectorStorage.RowScorer[] scorers = new VectorStorage.RowScorer[queries.length];
+    for (int q = 0; q < queries.length; q++) {
+      selectors[q] = new TopKSelector(Math.min(k, end - start));
+      scorers[q] = vectors.scorer(queries[q]);
+    }
+
+    // Score every query against one block before moving on, so the block stays in cache
+    int blockRows = Math.max(1, SCAN_BLOCK_BYTES / (Float.BYTES * vectors.dimension()));
+    for (int blockStart = start; blockStart < end; blockStart += blockRows) {
+      int blockEnd = Math.min(end, blockStart + blockRows);
+      for (int q = 0; q < queries.length; q++) {
+        TopKSelector selector = selectors[q];
+        VectorStorage.RowScorer scorer = scorers[q];
+        for (int i = blockStart; i < blockEnd; i++) {
+          int row = rows == null ? i : rows[i];
+          selector.offer(row, scorer.score(row));
+        }
+      }
+    }
+    return selectors;
+  }
+
+  private static ForkJoinWorkerThread newScanThread(ForkJoinPool pool) {
+    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+    thread.setName("vector-scan-" + thread.getPoolIndex());
+    return thread;
+  }
+
+  private TopKSelector rerank(TopKSelector candidates, float[] query, int topK) {
+    TopKSelector selector = new TopKSelector(Math.min(topK, candidates.size()));
+    VectorStorage.RowScorer scorer = fullPrecision.scorer(query);
+    for (int i = 0; i < candidates.size(); i++) {
+      int row = candidates.row(i);
+      selector.offer(row, scorer.score(row));
+    }
+    return selector;
+  }
+
+  private void removeRowLocked(int row) {
+    modCount++;
+    markCentroidStale(chunks[row]);
+    rowsById.remove(chunks[row].id());
+    metadata.remove(chunks[row], row);
+    if (fullPrecision != null) {
+      fullPrecision.swapRemove(row);
+    }
+    int moved = vectors.swapRemove(row);
+    if (moved >= 0) {
+      metadata.remove(chunks[moved], moved);
+      metadata.add(chunks[moved], row);
+      chunks[row] = chunks[moved];
+      rowsById.put(chunks[row].id(), row);
+      chunks[moved] = null;
+    } else {
+      chunks[row] = null;
+    }
+  }
+
+  private void markCentroidStale(RunbookChunk chunk) {
+    staleCentroids.addAll(chunk.sourceRunbookPaths());
+  }
+
+  /** Recomputes the centroids of the runbooks touched by the current mutation from their rows. */
+  private void refreshCentroidsLocked() {
+    if (staleCentroids.isEmpty()) {
+      return;
+    }
+    if (vectors != null) {
+      VectorStorage exact = fullPrecision != null ? fullPrecision : vectors;
+      for (String runbookPath : staleCentroids) {
+        centroids.update(runbookPath, exact, metadata.rowsOf(runbookPath));
+      }
+    }
+    staleCentroids.clear();
+  }
+
+  private void checkDimension(int length) {
+    if (length != dimension()) {
       throw new IllegalArgumentException(
-          "Vectors must have same length: " + a.length + " vs " + b.length);
+          "Vectors must have same length: " + length + " vs " + dimension());
+    }
+  }
+
+  /** Returns the dimension of the stored embeddings, which the scan may see reduced. */
+  private int dimension() {
+    return fullPrecision != null ? fullPrecision.dimension() : vectors.dimension();
+  }
+
+  private static int saturatedMultiply(int a, int b) {
+    long product = (long) a * b;
+    return product > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) product;
+  }
+
+  private static RunbookChunk withoutEmbedding(RunbookChunk chunk) {
+    return chunk.withEmbedding(null);
+  }
+
+  /**
+   * Scans a range of the store by splitting it on segment boundaries until each task holds one
+   * segment, then merges the per-segment selectors on the way back up.
+   *
+   * <p>Runs while the searching thread holds the read lock, so the storage cannot change
+   * underneath the pool threads.
+   */
+  private final class SegmentScan extends RecursiveTask<TopKSelector[]> {
+
+    private final float[][] queries;
+    private final int[] rows;
+    private final int start;
+    private final int end;
+    private final int k;
+
+    SegmentScan(float[][] queries, int[] rows, int start, int end, int k) {
+      this.queries = queries;
+      this.rows = rows;
+      this.start = start;
+      this.end = end;
+      this.k = k;
     }
 
-    double dotProduct = 0.0;
-    double normA = 0.0;
-    double normB = 0.0;
+    @Override
+    protected TopKSelector[] compute() {
+      int segmentRows = config.parallelScan().segmentRows();
+      if (end - start <= segmentRows) {
+        return scan(queries, rows, start, end, k);
+      }
+      int segments = (int) (((long) end - start + segmentRows - 1) / segmentRows);
+      int middle = start + segments / 2 * segmentRows;
+      SegmentScan upper = new SegmentScan(queries, rows, middle, end, k);
+      upper.fork();
+      TopKSelector[] lower = new SegmentScan(queries, rows, start, middle, k).compute();
+      TopKSelector[] upperSelectors = upper.join();
 
-    for (int i = 0; i < a.length; i++) {
-      dotProduct += a[i] * b[i];
-      normA += a[i] * a[i];
-      normB += b[i] * b[i];
+      TopKSelector[] merged = new TopKSelector[queries.length];
+      for (int q = 0; q < queries.length; q++) {
+        merged[q] = new TopKSelector(Math.min(k, lower[q].size() + upperSelectors[q].size()));
+        merged[q].offerAll(lower[q]);
+        merged[q].offerAll(upperSelectors[q]);
+      }
+      return merged;
     }
+  }
 
-    double denominator = Math.sqrt(normA) * Math.sqrt(normB);
-    if (denominator == 0.0) {
-      return 0.0;
+  private <T> List<T> toResults(TopKSelector selector, ResultFactory<T> resultFactory) {
+    selector.sortDescending();
+    List<T> results = new ArrayList<>(selector.size());
+    for (int i = 0; i < selector.size(); i++) {
+      results.add(resultFactory.create(selector.row(i), selector.score(i)));
     }
-    return dotProduct / denominator;
+    return results;
+  }
+
+  /** Builds one search result, a {@link ScoredChunk} or a {@link SearchHit}, from a stored row. */
+  @FunctionalInterface
+  private interface ResultFactory<T> {
+    T create(int row, double similarityScore);
   }
 }
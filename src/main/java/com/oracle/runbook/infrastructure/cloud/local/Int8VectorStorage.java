@@ -0,0 +1,185 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.util.Arrays;
+
+/**
+ * {@link VectorStorage} that holds each vector as signed 8-bit codes with a per-vector affine
+ * transform, using a quarter of the memory of {@link FloatVectorMatrix}.
+ *
+ * <p>A component {@code x} of a vector with range {@code [min, max]} is encoded as {@code c =
+ * round((x - offset) / scale)} with {@code scale = (max - min) / 255} and {@code offset = min +
+ * 128 * scale}, so it decodes as {@code x ~ offset + scale * c} with {@code c} in {@code [-128,
+ * 127]}. The query is encoded the same way, and expanding the product of the two affine forms
+ * gives
+ *
+ * <pre>
+ * q.x ~ d * qo * o + qo * s * sum(c) + o * qs * sum(p) + qs * s * (p . c)
+ * </pre>
+ *
+ * where only {@code p . c} depends on both vectors. That term is computed exactly in the integer
+ * domain by {@link SimilarityKernel#dotInt8}; {@code sum(c)} is precomputed per row.
+ *
+ * <p>Scores are approximate (typically within 1e-3 of the float dot product for normalized
+ * embeddings), so callers that need exact ordering re-rank the best candidates at full precision.
+ *
+ * <p>Instances are not thread-safe; the owning repository guards access.
+ */
+final class Int8VectorStorage implements VectorStorage {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final int dimension;
+  private final SimilarityKernel kernel;
+  private byte[] codes;
+  private float[] scales;
+  private float[] offsets;
+  private int[] codeSums;
+  private int size;
+
+  /**
+   * Creates empty storage for vectors of the given dimension.
+   *
+   * @param dimension the number of components per vector
+   * @param kernel the kernel used for the integer dot product
+   * @throws IllegalArgumentException if dimension is not positive
+   */
+  Int8VectorStorage(int dimension, SimilarityKernel kernel) {
+    if (dimension <= 0) {
+      throw new IllegalArgumentException("dimension must be positive");
+    }
+    this.dimension = dimension;
+    this.kernel = kernel;
+    this.codes = new byte[INITIAL_CAPACITY * dimension];
+    this.scales = new float[INITIAL_CAPACITY];
+    this.offsets = new float[INITIAL_CAPACITY];
+    this.codeSums = new int[INITIAL_CAPACITY];
+  }
+
+  @Override
+  public VectorEncoding encoding() {
+    return VectorEncoding.INT8;
+  }
+
+  @Override
+  public int dimension() {
+    return dimension;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public long heapBytes() {
+    return codes.length
+        + (long) scales.length * Float.BYTES
+        + (long) offsets.length * Float.BYTES
+        + (long) codeSums.length * Integer.BYTES;
+  }
+
+  @Override
+  public int append(float[] vector) {
+    ensureCapacity(size + 1);
+    set(size, vector);
+    return size++;
+  }
+
+  @Override
+  public void set(int row, float[] vector) {
+    Encoded encoded = encode(vector, codes, row * dimension);
+    scales[row] = encoded.scale();
+    offsets[row] = encoded.offset();
+    codeSums[row] = encoded.codeSum();
+  }
+
+  @Override
+  public int swapRemove(int row) {
+    int last = size - 1;
+    size = last;
+    if (row == last) {
+      return -1;
+    }
+    System.arraycopy(codes, last * dimension, codes, row * dimension, dimension);
+    scales[row] = scales[last];
+    offsets[row] = offsets[last];
+    codeSums[row] = codeSums[last];
+    return last;
+  }
+
+  @Override
+  public RowScorer scorer(float[] query) {
+    byte[] queryCodes = new byte[dimension];
+    Encoded encoded = encode(query, queryCodes, 0);
+    float qs = encoded.scale();
+    float qo = encoded.offset();
+    float querySumTerm = qs * encoded.codeSum();
+    return row -> {
+      float s = scales[row];
+      float o = offsets[row];
+      int dot = kernel.dotInt8(queryCodes, 0, codes, row * dimension, dimension);
+      return dimension * qo * o + qo * s * codeSums[row] + o * querySumTerm + qs * s * dot;
+    };
+  }
+
+  @Override
+  public void read(int row, float[] target) {
+    int base = row * dimension;
+    for (int i = 0; i < dimension; i++) {
+      target[i] = offsets[row] + scales[row] * codes[base + i];
+    }
+  }
+
+  /**
+   * Decodes a row back to floats; used by tests and diagnostics.
+   *
+   * @param row the row to decode
+   * @return the approximate original vector
+   */
+  float[] decode(int row) {
+    float[] vector = new float[dimension];
+    read(row, vector);
+    return vector;
+  }
+
+  private static Encoded encode(float[] vector, byte[] target, int targetOffset) {
+    float min = Float.POSITIVE_INFINITY;
+    float max = Float.NEGATIVE_INFINITY;
+    for (float v : vector) {
+      min = Math.min(min, v);
+      max = Math.max(max, v);
+    }
+    float scale = (max - min) / 255.0f;
+    if (scale == 0.0f) {
+      // Constant vector: every component decodes exactly from the offset
+      Arrays.fill(target, targetOffset, targetOffset + vector.length, (byte) 0);
+      return new Encoded(0.0f, min, 0);
+    }
+    float offset = min + 128.0f * scale;
+    float inverse = 1.0f / scale;
+    int sum = 0;
+    for (int i = 0; i < vector.length; i++) {
+      int code = Math.round((vector[i] - offset) * inverse);
+      code = Math.max(-128, Math.min(127, code));
+      target[targetOffset + i] = (byte) code;
+      sum += code;
+    }
+    return new Encoded(scale, offset, sum);
+  }
+
+  private void ensureCapacity(int rows) {
+    if (rows <= scales.length) {
+      return;
+    }
+    int grown = Math.max(rows, scales.length * 2);
+    if ((long) grown * dimension > Integer.MAX_VALUE - 8) {
+      throw new IllegalStateException("Vector storage capacity exceeded");
+    }
+    codes = Arrays.copyOf(codes, grown * dimension);
+    scales = Arrays.copyOf(scales, grown);
+    offsets = Arrays.copyOf(offsets, grown);
+    codeSums = Arrays.copyOf(codeSums, grown);
+  }
+
+  private record Encoded(float scale, float offset, int codeSum) {}
+}
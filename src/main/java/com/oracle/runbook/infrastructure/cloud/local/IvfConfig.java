@@ -0,0 +1,44 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+/**
+ * Tuning parameters for {@link IvfVectorStoreRepository}.
+ *
+ * @param nlist the maximum number of partitions (k-means centroids); small stores use fewer so
+ *     every partition is trained on enough points
+ * @param nprobe the number of nearest partitions scanned per query; higher values improve recall
+ *     at the cost of scanning more vectors
+ * @param trainingIterations the maximum number of k-means iterations per training run
+ */
+public record IvfConfig(int nlist, int nprobe, int trainingIterations) {
+
+  /** Default maximum number of partitions. */
+  public static final int DEFAULT_NLIST = 64;
+
+  /** Default number of partitions scanned per query. */
+  public static final int DEFAULT_NPROBE = 8;
+
+  /** Default maximum number of k-means iterations. */
+  public static final int DEFAULT_TRAINING_ITERATIONS = 10;
+
+  /** Compact constructor with validation. */
+  public IvfConfig {
+    if (nlist <= 0) {
+      throw new IllegalArgumentException("nlist must be positive");
+    }
+    if (nprobe <= 0) {
+      throw new IllegalArgumentException("nprobe must be positive");
+    }
+    if (trainingIterations <= 0) {
+      throw new IllegalArgumentException("trainingIterations must be positive");
+    }
+  }
+
+  /**
+   * Returns a configuration with the default parameters.
+   *
+   * @return the default configuration
+   */
+  public static IvfConfig defaults() {
+    return new IvfConfig(DEFAULT_NLIST, DEFAULT_NPROBE, DEFAULT_TRAINING_ITERATIONS);
+  }
+}
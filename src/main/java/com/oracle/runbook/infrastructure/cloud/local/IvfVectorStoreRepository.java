@@ -0,0 +1,754 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.SearchLatencyRecorder;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreStats;
+import com.oracle.runbook.rag.ScoredChunk;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Approximate nearest-neighbour implementation of {@link VectorStoreRepository} backed by an
+ * inverted-file (IVF) index.
+ *
+ * <p>Normalized embeddings are grouped into partitions around centroids trained with spherical
+ * k-means ({@link SphericalKMeans}). A search scores the query against every centroid, then scans
+ * only the {@code nprobe} nearest partitions. Inserts are cheap: a new vector is appended to the
+ * partition of its nearest centroid. Memory is the vectors plus {@code nlist} centroids, with no
+ * per-vector graph links. See {@link IvfConfig} for the tuning parameters.
+ *
+ * <p>Until the first training run the store holds a single partition and searches are exact.
+ * Training happens on demand through {@link #train()}, or in the background when {@link
+ * #optimize()} finds the partitions stale: untrained with enough data, grown or shrunk by half
+ * since the last run, or with one partition far larger than average. Training works on a snapshot
+ * and only takes the write lock to install the new partitions, so searches continue meanwhile.
+ *
+ * <p>A secondary index from runbook path to chunk ids lets {@link #delete(String)} and {@link
+ * #replaceRunbooks(List, List)} visit only the slots of the affected runbooks. A chunk shared by
+ * several runbooks is indexed under each of them and keeps its slot until its last one goes.
+ *
+ * <p>Access is guarded by a read-write lock: searches run concurrently, mutations are exclusive.
+ *
+ * @see IvfConfig
+ * @see VectorStoreRepository
+ */
+public class IvfVectorStoreRepository implements VectorStoreRepository {
+
+  private static final Logger LOGGER = Logger.getLogger(IvfVectorStoreRepository.class.getName());
+
+  /** Fewer points than this per centroid gives unstable k-means clusters. */
+  static final int MIN_POINTS_PER_CENTROID = 39;
+
+  /** Training samples at most this many points per centroid. */
+  static final int MAX_TRAINING_POINTS_PER_CENTROID = 256;
+
+  /** A partition larger than this multiple of the average triggers a rebalance. */
+  static final int IMBALANCE_FACTOR = 4;
+
+  private final IvfConfig config;
+  private final SimilarityKernel kernel;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final ReentrantLock trainingLock = new ReentrantLock();
+  private final AtomicBoolean trainingScheduled = new AtomicBoolean();
+  private final SearchLatencyRecorder searchLatency = new SearchLatencyRecorder();
+  private final ExecutorService trainer =
+      Executors.newSingleThreadExecutor(Thread.ofPlatform().name("ivf-trainer").daemon().factory());
+
+  // Guarded by lock. Chunks live in stable slots; partitions refer to slots by number.
+  private final Map<String, Integer> slotsById = new HashMap<>();
+  private final Map<String, Set<String>> idsByPath = new HashMap<>();
+  private int dimension = -1;
+  private float[] centroids;
+  private Partition[] partitions = new Partition[0];
+  private RunbookChunk[] chunks = new RunbookChunk[0];
+  private int[] slotPartition = new int[0];
+  private int[] slotRow = new int[0];
+  private int[] freeSlots = new int[0];
+  private int freeCount;
+  private int slotCount;
+  private long modCount;
+  private int trainedSize;
+
+  /** Creates a repository with {@link IvfConfig#defaults() default} parameters. */
+  public IvfVectorStoreRepository() {
+    this(IvfConfig.defaults());
+  }
+
+  /**
+   * Creates a repository with the given parameters.
+   *
+   * @param config the IVF tuning parameters
+   * @throws NullPointerException if config is null
+   */
+  public IvfVectorStoreRepository(IvfConfig config) {
+    this(config, SimilarityKernels.preferred());
+  }
+
+  /**
+   * Creates a repository with the given parameters and similarity kernel.
+   *
+   * @param config the IVF tuning parameters
+   * @param kernel the similarity kernel used for scoring and training
+   * @throws NullPointerException if config or kernel is null
+   */
+  public IvfVectorStoreRepository(IvfConfig config, SimilarityKernel kernel) {
+    this.config = Objects.requireNonNull(config, "config cannot be null");
+    this.kernel = Objects.requireNonNull(kernel, "kernel cannot be null");
+  }
+
+  @Override
+  public String providerType() {
+    return "ivf";
+  }
+
+  @Override
+  public void store(RunbookChunk chunk) {
+    Objects.requireNonNull(chunk, "chunk cannot be null");
+    float[] normalized = FloatVectorMatrix.normalizeInPlace(chunk.embedding());
+
+    lock.writeLock().lock();
+    try {
+      storeLocked(chunk, normalized);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void storeBatch(List<RunbookChunk> chunks) {
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    if (chunks.isEmpty()) {
+      return;
+    }
+
+    List<float[]> normalized = normalizeAll(chunks);
+
+    lock.writeLock().lock();
+    try {
+      for (int i = 0; i < chunks.size(); i++) {
+        storeLocked(chunks.get(i), normalized.get(i));
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The new vectors are normalized and validated first; the old slots are then released and the
+   * new chunks assigned to their nearest partitions under one write lock, which waits for running
+   * searches to finish on the old generation. The trained centroids are kept, so {@link
+   * #optimize()} decides as usual whether the swap warrants retraining.
+   */
+  @Override
+  public void replaceRunbooks(List<String> runbookPaths, List<RunbookChunk> chunks) {
+    Objects.requireNonNull(runbookPaths, "runbookPaths cannot be null");
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    Set<String> paths = new LinkedHashSet<>();
+    for (String runbookPath : runbookPaths) {
+      paths.add(Objects.requireNonNull(runbookPath, "runbookPath cannot be null"));
+    }
+    List<float[]> normalized = normalizeAll(chunks);
+
+    lock.writeLock().lock();
+    try {
+      checkReplacement(paths, normalized);
+      for (String runbookPath : paths) {
+        deleteLocked(runbookPath);
+      }
+      for (int i = 0; i < chunks.size(); i++) {
+        storeLocked(chunks.get(i), normalized.get(i));
+      }
+      if (slotsById.isEmpty()) {
+        reset();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public List<ScoredChunk> search(float[] queryEmbedding, int topK) {
+    Objects.requireNonNull(queryEmbedding, "queryEmbedding cannot be null");
+    if (topK <= 0) {
+      throw new IllegalArgumentException("topK must be positive");
+    }
+
+    float[] query = FloatVectorMatrix.normalizeInPlace(queryEmbedding.clone());
+    return searchLatency.time(() -> searchPartitions(query, topK));
+  }
+
+  private List<ScoredChunk> searchPartitions(float[] query, int topK) {
+    lock.readLock().lock();
+    try {
+      if (slotsById.isEmpty()) {
+        return List.of();
+      }
+      checkDimension(query.length);
+
+      TopKSelector selector = new TopKSelector(Math.min(topK, slotsById.size()));
+      for (int partition : probe(query)) {
+        partitions[partition].scan(query, selector);
+      }
+
+      selector.sortDescending();
+      List<ScoredChunk> results = new ArrayList<>(selector.size());
+      for (int i = 0; i < selector.size(); i++) {
+        results.add(new ScoredChunk(chunks[selector.row(i)], selector.score(i)));
+      }
+      return results;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void delete(String runbookPath) {
+    Objects.requireNonNull(runbookPath, "runbookPath cannot be null");
+
+    lock.writeLock().lock();
+    try {
+      deleteLocked(runbookPath);
+      if (slotsById.isEmpty()) {
+        reset();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Looks up a stored chunk by id.
+   *
+   * @param id the chunk id
+   * @return the chunk, or empty if no chunk with that id is stored
+   */
+  public Optional<RunbookChunk> findById(String id) {
+    Objects.requireNonNull(id, "id cannot be null");
+
+    lock.readLock().lock();
+    try {
+      Integer slot = slotsById.get(id);
+      return slot == null ? Optional.empty() : Optional.of(chunks[slot]);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Schedules a background retraining run if the partitions are stale; returns immediately.
+   *
+   * <p>At most one run is queued at a time, so repeated calls during a burst of ingestion coalesce.
+   */
+  @Override
+  public void optimize() {
+    if (!needsTraining() || !trainingScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    trainer.execute(
+        () -> {
+          try {
+            train();
+          } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Background IVF training failed", e);
+          } finally {
+            trainingScheduled.set(false);
+          }
+        });
+  }
+
+  /**
+   * Trains the partition centroids on the stored vectors and reassigns every vector to its nearest
+   * partition, blocking until the new partitions are installed.
+   *
+   * <p>The number of partitions is {@code nlist}, reduced for small stores so that each centroid is
+   * trained on at least {@value #MIN_POINTS_PER_CENTROID} points; a store too small for two
+   * partitions is kept as a single exact partition.
+   */
+  public void train() {
+    trainingLock.lock();
+    try {
+      Snapshot snapshot;
+      lock.readLock().lock();
+      try {
+        snapshot = snapshotLocked();
+      } finally {
+        lock.readLock().unlock();
+      }
+
+      int k = targetPartitions(snapshot.count());
+      long start = System.nanoTime();
+      float[] trained = k > 1 ? trainCentroids(snapshot, k) : null;
+      Partition[] assigned = partitionAll(trained, Math.max(k, 1), snapshot);
+
+      lock.writeLock().lock();
+      try {
+        if (modCount != snapshot.modCount()) {
+          if (dimension != snapshot.dimension()) {
+            // The store was emptied and refilled with another dimension; the run is obsolete
+            return;
+          }
+          // Writes landed while training; assign the current contents to the new centroids
+          assigned = partitionAll(trained, Math.max(k, 1), snapshotLocked());
+        }
+        install(trained, assigned);
+      } finally {
+        lock.writeLock().unlock();
+      }
+      long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+      LOGGER.info(
+          () ->
+              "Trained IVF index: "
+                  + Math.max(k, 1)
+                  + " partitions over "
+                  + snapshot.count()
+                  + " vectors in "
+                  + elapsedMillis
+                  + " ms");
+    } finally {
+      trainingLock.unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The index state is {@link VectorStoreStats.IndexState#BUILDING} while a training run is
+   * queued or running, {@link VectorStoreStats.IndexState#STALE} when {@link #optimize()} would
+   * schedule one, and {@link VectorStoreStats.IndexState#NONE} while the store is too small to
+   * partition and searches are exact. Index bytes are the centroids and the slot tables.
+   */
+  @Override
+  public VectorStoreStats stats() {
+    VectorStoreStats.IndexState state;
+    if (trainingScheduled.get() || trainingLock.isLocked()) {
+      state = VectorStoreStats.IndexState.BUILDING;
+    } else if (needsTraining()) {
+      state = VectorStoreStats.IndexState.STALE;
+    } else {
+      state = null;
+    }
+
+    lock.readLock().lock();
+    try {
+      ChunkFootprint footprint = new ChunkFootprint();
+      for (int slot : slotsById.values()) {
+        footprint.add(chunks[slot]);
+      }
+      long vectorBytes = 0L;
+      long indexBytes =
+          ((long) slotPartition.length + slotRow.length + freeSlots.length) * Integer.BYTES;
+      if (centroids != null) {
+        indexBytes += (long) centroids.length * Float.BYTES;
+      }
+      for (Partition partition : partitions) {
+        vectorBytes += partition.vectors.heapBytes();
+        indexBytes += (long) partition.slots.length * Integer.BYTES;
+      }
+      if (state == null) {
+        state =
+            centroids == null
+                ? VectorStoreStats.IndexState.NONE
+                : VectorStoreStats.IndexState.READY;
+      }
+      return footprint.toStats(
+          providerType(), dimension, vectorBytes, 0L, indexBytes, state, searchLatency);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Copied under the read lock, so the result reflects one point in time. Chunks keep the
+   * embeddings they were stored with.
+   */
+  @Override
+  public List<RunbookChunk> exportChunks() {
+    lock.readLock().lock();
+    try {
+      List<RunbookChunk> exported = new ArrayList<>(slotsById.size());
+      for (int slot : slotsById.values()) {
+        exported.add(chunks[slot]);
+      }
+      return exported;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of stored chunks.
+   *
+   * @return the live chunk count
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return slotsById.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of partitions currently in use; 1 until the index has been trained.
+   *
+   * @return the partition count
+   */
+  public int partitionCount() {
+    lock.readLock().lock();
+    try {
+      return Math.max(partitions.length, 1);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // ========== Insertion and removal ==========
+
+  private void storeLocked(RunbookChunk chunk, float[] normalized) {
+    if (dimension < 0 || (slotsById.isEmpty() && dimension != normalized.length)) {
+      if (normalized.length == 0) {
+        throw new IllegalArgumentException("chunk embedding cannot be empty");
+      }
+      reset();
+      dimension = normalized.length;
+      partitions = new Partition[] {new Partition(dimension, kernel)};
+    }
+    checkDimension(normalized.length);
+    modCount++;
+
+    Integer existing = slotsById.get(chunk.id());
+    int slot;
+    if (existing != null) {
+      slot = existing;
+      removeFromPartition(slot);
+      unindexPath(chunks[slot]);
+    } else {
+      slot = allocateSlot();
+      slotsById.put(chunk.id(), slot);
+    }
+    chunks[slot] = chunk;
+    addToPartition(slot, normalized);
+    for (String runbookPath : chunk.sourceRunbookPaths()) {
+      idsByPath.computeIfAbsent(runbookPath, path -> new HashSet<>()).add(chunk.id());
+    }
+  }
+
+  /** Drops a runbook as a source of its chunks, removing those left without sources. */
+  private void deleteLocked(String runbookPath) {
+    Set<String> ids = idsByPath.remove(runbookPath);
+    if (ids == null) {
+      return;
+    }
+    Set<String> deleted = Set.of(runbookPath);
+    for (String id : ids) {
+      int slot = slotsById.get(id);
+      Optional<RunbookChunk> remaining = chunks[slot].withoutSources(deleted);
+      if (remaining.isPresent()) {
+        // Shared with other runbooks, which still index it; the vector stays where it is
+        chunks[slot] = remaining.get();
+        continue;
+      }
+      slotsById.remove(id);
+      removeFromPartition(slot);
+      releaseSlot(slot);
+    }
+  }
+
+  private static List<float[]> normalizeAll(List<RunbookChunk> chunks) {
+    List<float[]> normalized = new ArrayList<>(chunks.size());
+    for (RunbookChunk chunk : chunks) {
+      Objects.requireNonNull(chunk, "chunk cannot be null");
+      normalized.add(FloatVectorMatrix.normalizeInPlace(chunk.embedding()));
+    }
+    return normalized;
+  }
+
+  /**
+   * Rejects a replacement whose vectors would fail half-way through {@link #storeLocked}, so the
+   * old generation is never removed without the new one taking its place.
+   */
+  private void checkReplacement(Set<String> runbookPaths, List<float[]> normalized) {
+    if (normalized.isEmpty()) {
+      return;
+    }
+    int length = normalized.get(0).length;
+    if (length == 0) {
+      throw new IllegalArgumentException("chunk embedding cannot be empty");
+    }
+    for (float[] vector : normalized) {
+      if (vector.length != length) {
+        throw new IllegalArgumentException(
+            "Vectors must have same length: " + vector.length + " vs " + length);
+      }
+    }
+    // Shared chunks survive the swap unless all of their sources are replaced
+    Set<String> released = new HashSet<>();
+    for (String runbookPath : runbookPaths) {
+      for (String id : idsByPath.getOrDefault(runbookPath, Set.of())) {
+        if (runbookPaths.containsAll(chunks[slotsById.get(id)].sourceRunbookPaths())) {
+          released.add(id);
+        }
+      }
+    }
+    int remaining = slotsById.size() - released.size();
+    if (remaining > 0) {
+      checkDimension(length);
+    }
+  }
+
+  private void unindexPath(RunbookChunk chunk) {
+    for (String runbookPath : chunk.sourceRunbookPaths()) {
+      Set<String> ids = idsByPath.get(runbookPath);
+      if (ids != null && ids.remove(chunk.id()) && ids.isEmpty()) {
+        idsByPath.remove(runbookPath);
+      }
+    }
+  }
+
+  private void addToPartition(int slot, float[] normalized) {
+    int partition =
+        centroids == null
+            ? 0
+            : SphericalKMeans.nearest(
+                centroids, partitions.length, normalized, 0, dimension, kernel);
+    slotPartition[slot] = partition;
+    slotRow[slot] = partitions[partition].add(normalized, slot);
+  }
+
+  private void removeFromPartition(int slot) {
+    modCount++;
+    int row = slotRow[slot];
+    int moved = partitions[slotPartition[slot]].remove(row);
+    if (moved >= 0) {
+      slotRow[moved] = row;
+    }
+  }
+
+  private int allocateSlot() {
+    if (freeCount > 0) {
+      return freeSlots[--freeCount];
+    }
+    if (slotCount == chunks.length) {
+      int grown = Math.max(16, chunks.length * 2);
+      chunks = Arrays.copyOf(chunks, grown);
+      slotPartition = Arrays.copyOf(slotPartition, grown);
+      slotRow = Arrays.copyOf(slotRow, grown);
+    }
+    return slotCount++;
+  }
+
+  private void releaseSlot(int slot) {
+    chunks[slot] = null;
+    if (freeCount == freeSlots.length) {
+      freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeSlots.length * 2));
+    }
+    freeSlots[freeCount++] = slot;
+  }
+
+  private void reset() {
+    slotsById.clear();
+    idsByPath.clear();
+    dimension = -1;
+    centroids = null;
+    partitions = new Partition[0];
+    chunks = new RunbookChunk[0];
+    slotPartition = new int[0];
+    slotRow = new int[0];
+    freeSlots = new int[0];
+    freeCount = 0;
+    slotCount = 0;
+    trainedSize = 0;
+    modCount++;
+  }
+
+  private void checkDimension(int length) {
+    if (length != dimension) {
+      throw new IllegalArgumentException(
+          "Vectors must have same length: " + length + " vs " + dimension);
+    }
+  }
+
+  // ========== Search ==========
+
+  private int[] probe(float[] query) {
+    if (centroids == null) {
+      return new int[] {0};
+    }
+    TopKSelector nearest = new TopKSelector(Math.min(config.nprobe(), partitions.length));
+    for (int partition = 0; partition < partitions.length; partition++) {
+      nearest.offer(partition, kernel.dot(query, 0, centroids, partition * dimension, dimension));
+    }
+    int[] probed = new int[nearest.size()];
+    for (int i = 0; i < probed.length; i++) {
+      probed[i] = nearest.row(i);
+    }
+    return probed;
+  }
+
+  // ========== Training ==========
+
+  private boolean needsTraining() {
+    lock.readLock().lock();
+    try {
+      int live = slotsById.size();
+      int k = targetPartitions(live);
+      if (centroids == null) {
+        return k > 1;
+      }
+      if (live >= 2 * trainedSize || 2 * live <= trainedSize) {
+        return true;
+      }
+      int largest = 0;
+      for (Partition partition : partitions) {
+        largest = Math.max(largest, partition.size());
+      }
+      return largest > IMBALANCE_FACTOR * Math.max(1, live / partitions.length);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private int targetPartitions(int count) {
+    return Math.min(config.nlist(), count / MIN_POINTS_PER_CENTROID);
+  }
+
+  private float[] trainCentroids(Snapshot snapshot, int k) {
+    Random random = new Random(snapshot.modCount());
+    int sampleSize = Math.min(snapshot.count(), k * MAX_TRAINING_POINTS_PER_CENTROID);
+    float[] sample = snapshot.vectors();
+    if (sampleSize < snapshot.count()) {
+      // Partial Fisher-Yates shuffle of row indices picks a uniform sample without replacement
+      int[] rows = new int[snapshot.count()];
+      for (int i = 0; i < rows.length; i++) {
+        rows[i] = i;
+      }
+      int dim = snapshot.dimension();
+      sample = new float[sampleSize * dim];
+      for (int i = 0; i < sampleSize; i++) {
+        int j = i + random.nextInt(rows.length - i);
+        int row = rows[j];
+        rows[j] = rows[i];
+        System.arraycopy(snapshot.vectors(), row * dim, sample, i * dim, dim);
+      }
+    }
+    return SphericalKMeans.train(
+        sample, sampleSize, snapshot.dimension(), k, config.trainingIterations(), random, kernel);
+  }
+
+  private Partition[] partitionAll(float[] trained, int k, Snapshot snapshot) {
+    Partition[] assigned = new Partition[k];
+    for (int i = 0; i < k; i++) {
+      assigned[i] = new Partition(snapshot.dimension(), kernel);
+    }
+    float[] vector = new float[snapshot.dimension()];
+    for (int i = 0; i < snapshot.count(); i++) {
+      int offset = i * snapshot.dimension();
+      int partition =
+          trained == null
+              ? 0
+              : SphericalKMeans.nearest(
+                  trained, k, snapshot.vectors(), offset, snapshot.dimension(), kernel);
+      System.arraycopy(snapshot.vectors(), offset, vector, 0, snapshot.dimension());
+      assigned[partition].add(vector, snapshot.slots()[i]);
+    }
+    return assigned;
+  }
+
+  private void install(float[] trained, Partition[] assigned) {
+    if (slotsById.isEmpty()) {
+      return;
+    }
+    centroids = trained;
+    partitions = assigned;
+    for (int partition = 0; partition < assigned.length; partition++) {
+      int[] slots = assigned[partition].slots;
+      for (int row = 0; row < assigned[partition].size(); row++) {
+        slotPartition[slots[row]] = partition;
+        slotRow[slots[row]] = row;
+      }
+    }
+    trainedSize = slotsById.size();
+    modCount++;
+  }
+
+  private Snapshot snapshotLocked() {
+    int count = slotsById.size();
+    int dim = Math.max(dimension, 0);
+    float[] vectors = new float[count * dim];
+    int[] slots = new int[count];
+    int next = 0;
+    for (Partition partition : partitions) {
+      int size = partition.size();
+      System.arraycopy(partition.vectors.data(), 0, vectors, next * dim, size * dim);
+      System.arraycopy(partition.slots, 0, slots, next, size);
+      next += size;
+    }
+    return new Snapshot(vectors, slots, count, dim, modCount);
+  }
+
+  /** Copy of every stored vector and its slot, taken under the read lock. */
+  private record Snapshot(float[] vectors, int[] slots, int count, int dimension, long modCount) {}
+
+  /** One inverted list: the vectors assigned to a centroid and the slots they belong to. */
+  private static final class Partition {
+
+    private final FloatVectorMatrix vectors;
+    private int[] slots = new int[16];
+
+    Partition(int dimension, SimilarityKernel kernel) {
+      this.vectors = new FloatVectorMatrix(dimension, kernel);
+    }
+
+    int size() {
+      return vectors.size();
+    }
+
+    int add(float[] vector, int slot) {
+      int row = vectors.append(vector);
+      if (row == slots.length) {
+        slots = Arrays.copyOf(slots, slots.length * 2);
+      }
+      slots[row] = slot;
+      return row;
+    }
+
+    /** Removes a row and returns the slot that moved into it, or -1 if none moved. */
+    int remove(int row) {
+      int moved = vectors.swapRemove(row);
+      if (moved < 0) {
+        return -1;
+      }
+      slots[row] = slots[moved];
+      return slots[row];
+    }
+
+    void scan(float[] query, TopKSelector selector) {
+      int size = vectors.size();
+      for (int row = 0; row < size; row++) {
+        selector.offer(slots[row], vectors.dot(query, row));
+      }
+    }
+  }
+}
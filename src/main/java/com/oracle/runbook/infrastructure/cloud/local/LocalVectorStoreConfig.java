@@ -0,0 +1,76 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Storage options for {@link InMemoryVectorStoreRepository}.
+ *
+ * @param encoding how vectors are encoded for the scan
+ * @param rerankFactor for approximate encodings and projections, how many candidates per requested
+ *     result are re-ranked at full precision (the scan keeps {@code topK * rerankFactor}
+ *     candidates)
+ * @param spillDirectory for approximate encodings and projections, a directory in which the
+ *     full-precision vectors used for re-ranking are kept in a scratch file instead of on the heap;
+ *     null keeps them in memory
+ * @param parallelScan how searches over large stores are split across threads
+ * @param projection how vectors are reduced before scanning; the encoding applies to the reduced
+ *     vectors
+ */
+public record LocalVectorStoreConfig(
+    VectorEncoding encoding,
+    int rerankFactor,
+    Path spillDirectory,
+    ParallelScanConfig parallelScan,
+    ProjectionConfig projection) {
+
+  /** Default number of re-ranked candidates per requested result. */
+  public static final int DEFAULT_RERANK_FACTOR = 4;
+
+  /** Compact constructor with validation. */
+  public LocalVectorStoreConfig {
+    Objects.requireNonNull(encoding, "encoding cannot be null");
+    Objects.requireNonNull(parallelScan, "parallelScan cannot be null");
+    Objects.requireNonNull(projection, "projection cannot be null");
+    if (rerankFactor < 1) {
+      throw new IllegalArgumentException("rerankFactor must be at least 1");
+    }
+  }
+
+  /**
+   * Creates a configuration that scans vectors at their full dimension.
+   *
+   * @param encoding how vectors are encoded for the scan
+   * @param rerankFactor candidates re-ranked per requested result for approximate encodings
+   * @param spillDirectory scratch directory for full-precision vectors, or null
+   * @param parallelScan how searches over large stores are split across threads
+   */
+  public LocalVectorStoreConfig(
+      VectorEncoding encoding,
+      int rerankFactor,
+      Path spillDirectory,
+      ParallelScanConfig parallelScan) {
+    this(encoding, rerankFactor, spillDirectory, parallelScan, ProjectionConfig.none());
+  }
+
+  /**
+   * Creates a configuration with the {@link ParallelScanConfig#defaults() default} parallel scan.
+   *
+   * @param encoding how vectors are encoded for the scan
+   * @param rerankFactor candidates re-ranked per requested result for approximate encodings
+   * @param spillDirectory scratch directory for full-precision vectors, or null
+   */
+  public LocalVectorStoreConfig(VectorEncoding encoding, int rerankFactor, Path spillDirectory) {
+    this(encoding, rerankFactor, spillDirectory, ParallelScanConfig.defaults());
+  }
+
+  /**
+   * Returns the default configuration: exact float32 vectors held on the heap, scanned in
+   * parallel once the store is large.
+   *
+   * @return the default configuration
+   */
+  public static LocalVectorStoreConfig defaults() {
+    return new LocalVectorStoreConfig(VectorEncoding.FLOAT32, DEFAULT_RERANK_FACTOR, null);
+  }
+}
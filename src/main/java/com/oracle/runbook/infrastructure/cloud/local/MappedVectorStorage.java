@@ -0,0 +1,197 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * {@link VectorStorage} over rows of little-endian floats in a read-only memory-mapped segment,
+ * typically the vector section of a {@link VectorSnapshotFile}. Rows are float32, or 16-bit
+ * floats for a snapshot of a {@link VectorEncoding#isHalfPrecision() half-precision} store.
+ *
+ * <p>Scans read straight from the page cache with no deserialization. Float32 rows are scored in
+ * place; a 16-bit row is first copied into a small buffer owned by the scorer, since the kernel
+ * widens 16-bit floats from arrays. The mapping itself is never written: the first mutation copies
+ * every row into a heap {@link FloatVectorMatrix} or {@link HalfPrecisionVectorStorage} and all
+ * later operations are delegated to it (copy-on-write at storage granularity). Runbook syncs are
+ * rare compared to searches, so paying one copy per sync keeps the read path simple.
+ *
+ * <p>{@link #release()} closes the arena backing the mapping; it must only be called once no
+ * scorer can still be in use, which the owning repository guarantees with its write lock.
+ */
+final class MappedVectorStorage implements VectorStorage {
+
+  private static final ValueLayout.OfFloat LITTLE_ENDIAN_FLOAT =
+      ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfShort LITTLE_ENDIAN_SHORT =
+      ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+  private final VectorEncoding encoding;
+  private final int dimension;
+  private final int count;
+  private final long rowBytes;
+  private final SimilarityKernel kernel;
+  private final Arena arena;
+  private final MemorySegment segment;
+  private VectorStorage heap;
+
+  /**
+   * Wraps mapped float32 rows.
+   *
+   * @param segment the segment holding {@code count * dimension} little-endian floats
+   * @param arena the arena owning the mapping, closed by {@link #release()}
+   * @param dimension the number of components per vector
+   * @param count the number of rows in the segment
+   * @param kernel the kernel used to score rows
+   */
+  MappedVectorStorage(
+      MemorySegment segment, Arena arena, int dimension, int count, SimilarityKernel kernel) {
+    this(segment, arena, VectorEncoding.FLOAT32, dimension, count, kernel);
+  }
+
+  /**
+   * Wraps mapped rows of the given encoding.
+   *
+   * @param segment the segment holding {@code count * dimension} little-endian components
+   * @param arena the arena owning the mapping, closed by {@link #release()}
+   * @param encoding {@link VectorEncoding#FLOAT32} or a half-precision encoding
+   * @param dimension the number of components per vector
+   * @param count the number of rows in the segment
+   * @param kernel the kernel used to score rows
+   * @throws IllegalArgumentException if the encoding is {@link VectorEncoding#INT8}
+   */
+  MappedVectorStorage(
+      MemorySegment segment,
+      Arena arena,
+      VectorEncoding encoding,
+      int dimension,
+      int count,
+      SimilarityKernel kernel) {
+    if (encoding == VectorEncoding.INT8) {
+      throw new IllegalArgumentException("int8 rows cannot be mapped");
+    }
+    this.segment = segment;
+    this.arena = arena;
+    this.encoding = encoding;
+    this.dimension = dimension;
+    this.count = count;
+    this.rowBytes = (long) dimension * componentBytes(encoding);
+    this.kernel = kernel;
+  }
+
+  /**
+   * Returns the size of one stored component.
+   *
+   * @param encoding {@link VectorEncoding#FLOAT32} or a half-precision encoding
+   * @return the number of bytes per component
+   */
+  static int componentBytes(VectorEncoding encoding) {
+    return encoding.isHalfPrecision() ? Short.BYTES : Float.BYTES;
+  }
+
+  @Override
+  public VectorEncoding encoding() {
+    return encoding;
+  }
+
+  @Override
+  public int dimension() {
+    return dimension;
+  }
+
+  @Override
+  public int size() {
+    return heap != null ? heap.size() : count;
+  }
+
+  @Override
+  public long heapBytes() {
+    return heap != null ? heap.heapBytes() : 0L;
+  }
+
+  @Override
+  public long offHeapBytes() {
+    return heap != null ? heap.offHeapBytes() : count * rowBytes;
+  }
+
+  /** Returns true while rows are still served from the mapping. */
+  boolean isMapped() {
+    return heap == null;
+  }
+
+  @Override
+  public int append(float[] vector) {
+    return materialize().append(vector);
+  }
+
+  @Override
+  public void set(int row, float[] vector) {
+    materialize().set(row, vector);
+  }
+
+  @Override
+  public int swapRemove(int row) {
+    return materialize().swapRemove(row);
+  }
+
+  @Override
+  public void read(int row, float[] target) {
+    if (heap != null) {
+      heap.read(row, target);
+      return;
+    }
+    if (encoding == VectorEncoding.FLOAT32) {
+      MemorySegment.copy(segment, LITTLE_ENDIAN_FLOAT, row * rowBytes, target, 0, dimension);
+      return;
+    }
+    long base = row * rowBytes;
+    for (int i = 0; i < dimension; i++) {
+      short bits = segment.get(LITTLE_ENDIAN_SHORT, base + (long) i * Short.BYTES);
+      target[i] = HalfPrecisionVectorStorage.decode(encoding, bits);
+    }
+  }
+
+  @Override
+  public RowScorer scorer(float[] query) {
+    if (heap != null) {
+      return heap.scorer(query);
+    }
+    if (encoding == VectorEncoding.FLOAT32) {
+      return row -> kernel.dot(query, 0, segment, row * rowBytes, dimension);
+    }
+    // A scorer is used by one thread at a time, so it can own its row buffer
+    short[] buffer = new short[dimension];
+    boolean float16 = encoding == VectorEncoding.FLOAT16;
+    return row -> {
+      MemorySegment.copy(segment, LITTLE_ENDIAN_SHORT, row * rowBytes, buffer, 0, dimension);
+      return float16
+          ? kernel.dotFloat16(query, 0, buffer, 0, dimension)
+          : kernel.dotBFloat16(query, 0, buffer, 0, dimension);
+    };
+  }
+
+  @Override
+  public void release() {
+    if (arena.scope().isAlive()) {
+      arena.close();
+    }
+  }
+
+  private VectorStorage materialize() {
+    if (heap == null) {
+      VectorStorage copy =
+          encoding == VectorEncoding.FLOAT32
+              ? new FloatVectorMatrix(dimension, kernel)
+              : new HalfPrecisionVectorStorage(encoding, dimension, kernel);
+      float[] row = new float[dimension];
+      for (int i = 0; i < count; i++) {
+        read(i, row);
+        copy.append(row);
+      }
+      heap = copy;
+      release();
+    }
+    return heap;
+  }
+}
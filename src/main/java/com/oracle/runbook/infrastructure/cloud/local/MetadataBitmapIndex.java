@@ -0,0 +1,155 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from chunk metadata to the {@link RowBitmap} of rows carrying it, used to narrow a
+ * {@link VectorSearchFilter} to candidate rows before any vector is scored.
+ *
+ * <p>Rows are indexed per tag, per runbook path and per applicable-shape pattern; a chunk shared by
+ * several runbooks is indexed under each of its source paths. Chunks without shape patterns go to a
+ * separate bitmap because they apply to every shape. Because shape patterns are globs, a shape
+ * criterion is answered by OR-ing the bitmaps of all patterns that match it, which stays cheap as
+ * long as the number of distinct patterns is small.
+ *
+ * <p>Not thread-safe; the owning repository guards access.
+ */
+final class MetadataBitmapIndex {
+
+  private final Map<String, RowBitmap> rowsByTag = new HashMap<>();
+  private final Map<String, RowBitmap> rowsByPath = new HashMap<>();
+  private final Map<String, RowBitmap> rowsByShapePattern = new HashMap<>();
+  private RowBitmap unrestrictedShapeRows = new RowBitmap();
+
+  /**
+   * Indexes a chunk stored at a row.
+   *
+   * @param chunk the chunk
+   * @param row the row it occupies
+   */
+  void add(RunbookChunk chunk, int row) {
+    for (String tag : chunk.tags()) {
+      rowsByTag.computeIfAbsent(tag, key -> new RowBitmap()).add(row);
+    }
+    for (String runbookPath : chunk.sourceRunbookPaths()) {
+      rowsByPath.computeIfAbsent(runbookPath, key -> new RowBitmap()).add(row);
+    }
+    if (chunk.applicableShapes().isEmpty()) {
+      unrestrictedShapeRows.add(row);
+    }
+    for (String pattern : chunk.applicableShapes()) {
+      rowsByShapePattern.computeIfAbsent(pattern, key -> new RowBitmap()).add(row);
+    }
+  }
+
+  /**
+   * Removes a chunk from a row.
+   *
+   * @param chunk the chunk previously {@link #add added} at the row
+   * @param row the row it occupies
+   */
+  void remove(RunbookChunk chunk, int row) {
+    for (String tag : chunk.tags()) {
+      removeRow(rowsByTag, tag, row);
+    }
+    for (String runbookPath : chunk.sourceRunbookPaths()) {
+      removeRow(rowsByPath, runbookPath, row);
+    }
+    unrestrictedShapeRows.remove(row);
+    for (String pattern : chunk.applicableShapes()) {
+      removeRow(rowsByShapePattern, pattern, row);
+    }
+  }
+
+  /** Removes every row. */
+  void clear() {
+    rowsByTag.clear();
+    rowsByPath.clear();
+    rowsByShapePattern.clear();
+    unrestrictedShapeRows = new RowBitmap();
+  }
+
+  /**
+   * Returns the rows holding chunks of a runbook, including chunks it shares with others.
+   *
+   * @param runbookPath the runbook path
+   * @return the rows in ascending order, empty if there are none
+   */
+  int[] rowsOf(String runbookPath) {
+    RowBitmap rows = rowsByPath.get(runbookPath);
+    return rows == null ? new int[0] : rows.toArray();
+  }
+
+  /**
+   * Returns the bytes held by the index's bitmaps. The tag, path and pattern keys are the chunks'
+   * own strings and are not counted.
+   *
+   * @return the heap footprint of the bitmaps
+   */
+  long heapBytes() {
+    long bytes = unrestrictedShapeRows.heapBytes();
+    for (Map<String, RowBitmap> index : List.of(rowsByTag, rowsByPath, rowsByShapePattern)) {
+      for (RowBitmap rows : index.values()) {
+        bytes += rows.heapBytes();
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Returns the rows that satisfy a filter. The result may share state with the index and must be
+   * treated as read-only.
+   *
+   * @param filter a non-empty filter
+   * @return the candidate rows
+   */
+  RowBitmap candidates(VectorSearchFilter filter) {
+    RowBitmap result = null;
+    if (!filter.runbookPaths().isEmpty()) {
+      result = union(rowsByPath, filter.runbookPaths());
+    }
+    if (!filter.anyTags().isEmpty()) {
+      result = intersect(result, union(rowsByTag, filter.anyTags()));
+    }
+    if (filter.shape() != null) {
+      RowBitmap shapeRows = unrestrictedShapeRows;
+      for (Map.Entry<String, RowBitmap> entry : rowsByShapePattern.entrySet()) {
+        if (VectorSearchFilter.shapeMatches(entry.getKey(), filter.shape())) {
+          shapeRows = RowBitmap.or(shapeRows, entry.getValue());
+        }
+      }
+      result = intersect(result, shapeRows);
+    }
+    return result == null ? new RowBitmap() : result;
+  }
+
+  private static RowBitmap union(Map<String, RowBitmap> index, Set<String> keys) {
+    RowBitmap result = null;
+    for (String key : keys) {
+      RowBitmap rows = index.get(key);
+      if (rows != null) {
+        result = result == null ? rows : RowBitmap.or(result, rows);
+      }
+    }
+    return result == null ? new RowBitmap() : result;
+  }
+
+  private static RowBitmap intersect(RowBitmap current, RowBitmap rows) {
+    return current == null ? rows : RowBitmap.and(current, rows);
+  }
+
+  private static void removeRow(Map<String, RowBitmap> index, String key, int row) {
+    RowBitmap rows = index.get(key);
+    if (rows != null) {
+      rows.remove(row);
+      if (rows.isEmpty()) {
+        index.remove(key);
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+/**
+ * Options for the parallel brute-force scan of {@link InMemoryVectorStoreRepository}.
+ *
+ * @param segmentRows the number of rows in one segment, the unit of work handed to a scan thread
+ * @param parallelism the number of threads in the store's scan pool; 1 scans on the calling thread
+ * @param threshold the number of rows a search must scan before it is split into segments, so
+ *     small stores and selective filters are not slowed down by the hand-off
+ */
+public record ParallelScanConfig(int segmentRows, int parallelism, int threshold) {
+
+  /** Default number of rows per segment. */
+  public static final int DEFAULT_SEGMENT_ROWS = 16_384;
+
+  /** Default number of rows above which searches are scanned in parallel. */
+  public static final int DEFAULT_THRESHOLD = 65_536;
+
+  /** Compact constructor with validation. */
+  public ParallelScanConfig {
+    if (segmentRows <= 0) {
+      throw new IllegalArgumentException("segmentRows must be positive");
+    }
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism must be positive");
+    }
+    if (threshold < 0) {
+      throw new IllegalArgumentException("threshold cannot be negative");
+    }
+  }
+
+  /**
+   * Returns the default configuration: one scan thread per available processor.
+   *
+   * @return the default configuration
+   */
+  public static ParallelScanConfig defaults() {
+    return new ParallelScanConfig(
+        DEFAULT_SEGMENT_ROWS, Runtime.getRuntime().availableProcessors(), DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Returns a configuration that always scans on the calling thread.
+   *
+   * @return the single-threaded configuration
+   */
+  public static ParallelScanConfig sequential() {
+    return new ParallelScanConfig(DEFAULT_SEGMENT_ROWS, 1, DEFAULT_THRESHOLD);
+  }
+
+  /** Returns whether a scan over the given number of rows is split across threads. */
+  boolean parallel(int rows) {
+    return parallelism > 1 && rows >= threshold && rows > segmentRows;
+  }
+}
@@ -0,0 +1,33 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.util.Locale;
+
+/** What {@link ShardedVectorStoreRepository} returns when some shards fail or time out. */
+public enum PartialResultPolicy {
+  /** The search fails; results are always complete. */
+  FAIL,
+
+  /**
+   * The results of the shards that answered are merged and returned, so an outage of one shard
+   * hides only its runbooks. The search still fails if no shard answered.
+   */
+  PARTIAL;
+
+  /**
+   * Parses a policy name. Case-insensitive matching.
+   *
+   * @param policy the policy name (e.g., "fail", "PARTIAL")
+   * @return the matching PartialResultPolicy value
+   * @throws IllegalArgumentException if the name is null or does not match any known value
+   */
+  public static PartialResultPolicy fromString(String policy) {
+    if (policy == null) {
+      throw new IllegalArgumentException("Policy cannot be null");
+    }
+    try {
+      return valueOf(policy.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown partial result policy: " + policy, e);
+    }
+  }
+}
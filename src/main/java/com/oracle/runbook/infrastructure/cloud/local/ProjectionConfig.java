@@ -0,0 +1,42 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.util.Objects;
+
+/**
+ * Dimensionality reduction of the vectors scanned by {@link InMemoryVectorStoreRepository}.
+ *
+ * <p>A projecting store scans reduced vectors to collect {@code topK * rerankFactor} candidates and
+ * re-ranks them against the full-dimension vectors, so scan time and scan memory shrink with the
+ * ratio of the dimensions while the final scores stay exact.
+ *
+ * @param method how vectors are reduced
+ * @param dimensions the number of components kept; stores whose vectors have no more components
+ *     than this are not projected
+ */
+public record ProjectionConfig(ProjectionMethod method, int dimensions) {
+
+  /** Default number of components kept. */
+  public static final int DEFAULT_DIMENSIONS = 256;
+
+  /** Compact constructor with validation. */
+  public ProjectionConfig {
+    Objects.requireNonNull(method, "method cannot be null");
+    if (dimensions <= 0) {
+      throw new IllegalArgumentException("dimensions must be positive");
+    }
+  }
+
+  /**
+   * Returns a configuration that scans vectors at their full dimension.
+   *
+   * @return the disabled configuration
+   */
+  public static ProjectionConfig none() {
+    return new ProjectionConfig(ProjectionMethod.NONE, DEFAULT_DIMENSIONS);
+  }
+
+  /** Returns whether vectors of the given dimension are scanned in reduced form. */
+  boolean reduces(int dimension) {
+    return method != ProjectionMethod.NONE && dimensions < dimension;
+  }
+}
@@ -0,0 +1,40 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.util.Locale;
+
+/** How {@link InMemoryVectorStoreRepository} reduces embeddings before scanning them. */
+public enum ProjectionMethod {
+  /** Vectors are scanned at their full dimension. */
+  NONE,
+
+  /**
+   * The leading components of each vector are kept. Suited to Matryoshka-trained embedding models,
+   * whose prefixes are embeddings in their own right; for other models recall drops sharply.
+   */
+  TRUNCATE,
+
+  /**
+   * Vectors are projected onto their principal directions, fitted on a sample of the stored vectors
+   * by {@link InMemoryVectorStoreRepository#optimize()}. Until the first fit the scan runs at full
+   * dimension.
+   */
+  PCA;
+
+  /**
+   * Parses a projection method name. Case-insensitive matching.
+   *
+   * @param method the method name (e.g., "none", "PCA")
+   * @return the matching ProjectionMethod value
+   * @throws IllegalArgumentException if the name is null or does not match any known value
+   */
+  public static ProjectionMethod fromString(String method) {
+    if (method == null) {
+      throw new IllegalArgumentException("Method cannot be null");
+    }
+    try {
+      return valueOf(method.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown projection method: " + method, e);
+    }
+  }
+}
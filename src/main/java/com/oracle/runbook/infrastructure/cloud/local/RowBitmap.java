@@ -0,0 +1,384 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of non-negative row indexes, organized like a Roaring bitmap.
+ *
+ * <p>Rows are partitioned by their high 16 bits into containers of up to 65,536 values. A container
+ * holding at most {@value #ARRAY_LIMIT} values is a sorted {@code char[]} (2 bytes per row); a
+ * denser one is a fixed 8 KB bitset. Sparse sets such as the rows of one runbook therefore cost a
+ * few bytes per row, while dense sets such as a common tag cost one bit per row, and intersections
+ * and unions work container by container without materializing row lists.
+ *
+ * <p>Instances are not thread-safe; the owning repository guards access.
+ */
+final class RowBitmap {
+
+  /** Largest cardinality held in array form; beyond it a bitset is smaller. */
+  static final int ARRAY_LIMIT = 4096;
+
+  private static final int BITSET_WORDS = 1 << 10;
+
+  private char[] keys = new char[0];
+  private Container[] containers = new Container[0];
+  private int size;
+
+  /**
+   * Adds a row.
+   *
+   * @param row the row index, non-negative
+   */
+  void add(int row) {
+    char key = (char) (row >>> 16);
+    int index = Arrays.binarySearch(keys, 0, size, key);
+    if (index < 0) {
+      index = -index - 1;
+      insertContainer(index, key, new Container());
+    }
+    containers[index].add((char) row);
+  }
+
+  /**
+   * Removes a row if present.
+   *
+   * @param row the row index
+   */
+  void remove(int row) {
+    int index = Arrays.binarySearch(keys, 0, size, (char) (row >>> 16));
+    if (index < 0) {
+      return;
+    }
+    Container container = containers[index];
+    container.remove((char) row);
+    if (container.cardinality == 0) {
+      System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+      System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+      containers[--size] = null;
+    }
+  }
+
+  /** Returns true if the row is present. */
+  boolean contains(int row) {
+    int index = Arrays.binarySearch(keys, 0, size, (char) (row >>> 16));
+    return index >= 0 && containers[index].contains((char) row);
+  }
+
+  /** Returns the number of rows. */
+  int cardinality() {
+    int total = 0;
+    for (int i = 0; i < size; i++) {
+      total += containers[i].cardinality;
+    }
+    return total;
+  }
+
+  /** Returns true if no row is present. */
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Returns the bytes of row data held, counting array capacity but not object headers. */
+  long heapBytes() {
+    long bytes = (long) keys.length * Character.BYTES;
+    for (int i = 0; i < size; i++) {
+      bytes += containers[i].heapBytes();
+    }
+    return bytes;
+  }
+
+  /**
+   * Passes every row to the consumer in ascending order.
+   *
+   * @param consumer the row consumer
+   */
+  void forEach(IntConsumer consumer) {
+    for (int i = 0; i < size; i++) {
+      containers[i].forEach(keys[i] << 16, consumer);
+    }
+  }
+
+  /**
+   * Returns every row in ascending order.
+   *
+   * @return a new array
+   */
+  int[] toArray() {
+    int[] rows = new int[cardinality()];
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      count = containers[i].copyTo(keys[i] << 16, rows, count);
+    }
+    return rows;
+  }
+
+  /**
+   * Returns the rows present in both bitmaps.
+   *
+   * @param a the first bitmap
+   * @param b the second bitmap
+   * @return a new bitmap
+   */
+  static RowBitmap and(RowBitmap a, RowBitmap b) {
+    RowBitmap result = new RowBitmap();
+    int i = 0;
+    int j = 0;
+    while (i < a.size && j < b.size) {
+      if (a.keys[i] < b.keys[j]) {
+        i++;
+      } else if (a.keys[i] > b.keys[j]) {
+        j++;
+      } else {
+        Container container = a.containers[i].and(b.containers[j]);
+        if (container.cardinality > 0) {
+          result.insertContainer(result.size, a.keys[i], container);
+        }
+        i++;
+        j++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the rows present in either bitmap.
+   *
+   * @param a the first bitmap
+   * @param b the second bitmap
+   * @return a new bitmap
+   */
+  static RowBitmap or(RowBitmap a, RowBitmap b) {
+    RowBitmap result = new RowBitmap();
+    int i = 0;
+    int j = 0;
+    while (i < a.size || j < b.size) {
+      if (j >= b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+        result.insertContainer(result.size, a.keys[i], a.containers[i].copy());
+        i++;
+      } else if (i >= a.size || a.keys[i] > b.keys[j]) {
+        result.insertContainer(result.size, b.keys[j], b.containers[j].copy());
+        j++;
+      } else {
+        result.insertContainer(result.size, a.keys[i], a.containers[i].or(b.containers[j]));
+        i++;
+        j++;
+      }
+    }
+    return result;
+  }
+
+  private void insertContainer(int index, char key, Container container) {
+    if (size == keys.length) {
+      int capacity = Math.max(4, size * 2);
+      keys = Arrays.copyOf(keys, capacity);
+      containers = Arrays.copyOf(containers, capacity);
+    }
+    System.arraycopy(keys, index, keys, index + 1, size - index);
+    System.arraycopy(containers, index, containers, index + 1, size - index);
+    keys[index] = key;
+    containers[index] = container;
+    size++;
+  }
+
+  /** The low 16 bits of up to 65,536 rows, as a sorted array or as a bitset. */
+  private static final class Container {
+
+    private char[] values = new char[4];
+    private long[] words;
+    private int cardinality;
+
+    long heapBytes() {
+      return words != null
+          ? (long) words.length * Long.BYTES
+          : (long) values.length * Character.BYTES;
+    }
+
+    boolean contains(char value) {
+      if (words != null) {
+        return (words[value >>> 6] & (1L << value)) != 0;
+      }
+      return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+    }
+
+    void add(char value) {
+      if (words != null) {
+        long bit = 1L << value;
+        if ((words[value >>> 6] & bit) == 0) {
+          words[value >>> 6] |= bit;
+          cardinality++;
+        }
+        return;
+      }
+      int index = Arrays.binarySearch(values, 0, cardinality, value);
+      if (index >= 0) {
+        return;
+      }
+      if (cardinality == ARRAY_LIMIT) {
+        toBitset();
+        add(value);
+        return;
+      }
+      index = -index - 1;
+      if (cardinality == values.length) {
+        values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, cardinality * 2));
+      }
+      System.arraycopy(values, index, values, index + 1, cardinality - index);
+      values[index] = value;
+      cardinality++;
+    }
+
+    void remove(char value) {
+      if (words != null) {
+        long bit = 1L << value;
+        if ((words[value >>> 6] & bit) != 0) {
+          words[value >>> 6] &= ~bit;
+          cardinality--;
+          // Convert back well below the limit so add/remove at the boundary does not thrash
+          if (cardinality < ARRAY_LIMIT / 2) {
+            toArray();
+          }
+        }
+        return;
+      }
+      int index = Arrays.binarySearch(values, 0, cardinality, value);
+      if (index >= 0) {
+        System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+        cardinality--;
+      }
+    }
+
+    void forEach(int base, IntConsumer consumer) {
+      if (words == null) {
+        for (int i = 0; i < cardinality; i++) {
+          consumer.accept(base | values[i]);
+        }
+        return;
+      }
+      for (int w = 0; w < BITSET_WORDS; w++) {
+        long word = words[w];
+        while (word != 0) {
+          consumer.accept(base | (w << 6) | Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+    }
+
+    int copyTo(int base, int[] target, int offset) {
+      if (words == null) {
+        for (int i = 0; i < cardinality; i++) {
+          target[offset++] = base | values[i];
+        }
+        return offset;
+      }
+      for (int w = 0; w < BITSET_WORDS; w++) {
+        long word = words[w];
+        while (word != 0) {
+          target[offset++] = base | (w << 6) | Long.numberOfTrailingZeros(word);
+          word &= word - 1;
+        }
+      }
+      return offset;
+    }
+
+    Container and(Container other) {
+      Container result = new Container();
+      if (words == null || other.words == null) {
+        Container sparse = words == null ? this : other;
+        Container probe = sparse == this ? other : this;
+        result.values = new char[Math.max(1, sparse.cardinality)];
+        for (int i = 0; i < sparse.cardinality; i++) {
+          char value = sparse.values[i];
+          if (probe.contains(value)) {
+            result.values[result.cardinality++] = value;
+          }
+        }
+        return result;
+      }
+      result.words = new long[BITSET_WORDS];
+      for (int w = 0; w < BITSET_WORDS; w++) {
+        result.words[w] = words[w] & other.words[w];
+        result.cardinality += Long.bitCount(result.words[w]);
+      }
+      if (result.cardinality <= ARRAY_LIMIT) {
+        result.toArray();
+      }
+      return result;
+    }
+
+    Container or(Container other) {
+      Container result;
+      if (words == null && other.words == null) {
+        result = new Container();
+        result.values = new char[Math.max(1, cardinality + other.cardinality)];
+        int i = 0;
+        int j = 0;
+        while (i < cardinality || j < other.cardinality) {
+          char value;
+          if (j >= other.cardinality || (i < cardinality && values[i] < other.values[j])) {
+            value = values[i++];
+          } else if (i >= cardinality || values[i] > other.values[j]) {
+            value = other.values[j++];
+          } else {
+            value = values[i++];
+            j++;
+          }
+          result.values[result.cardinality++] = value;
+        }
+        if (result.cardinality > ARRAY_LIMIT) {
+          result.toBitset();
+        }
+        return result;
+      }
+      Container dense = words != null ? this : other;
+      Container rest = dense == this ? other : this;
+      result = dense.copy();
+      if (rest.words == null) {
+        for (int i = 0; i < rest.cardinality; i++) {
+          result.add(rest.values[i]);
+        }
+        return result;
+      }
+      result.cardinality = 0;
+      for (int w = 0; w < BITSET_WORDS; w++) {
+        result.words[w] |= rest.words[w];
+        result.cardinality += Long.bitCount(result.words[w]);
+      }
+      return result;
+    }
+
+    Container copy() {
+      Container copy = new Container();
+      copy.cardinality = cardinality;
+      if (words != null) {
+        copy.words = words.clone();
+      } else {
+        copy.values = Arrays.copyOf(values, Math.max(1, cardinality));
+      }
+      return copy;
+    }
+
+    private void toBitset() {
+      long[] bitset = new long[BITSET_WORDS];
+      for (int i = 0; i < cardinality; i++) {
+        bitset[values[i] >>> 6] |= 1L << values[i];
+      }
+      words = bitset;
+      values = null;
+    }
+
+    private void toArray() {
+      char[] array = new char[Math.max(4, cardinality)];
+      int count = 0;
+      for (int w = 0; w < BITSET_WORDS; w++) {
+        long word = words[w];
+        while (word != 0) {
+          array[count++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+      values = array;
+      words = null;
+    }
+  }
+}
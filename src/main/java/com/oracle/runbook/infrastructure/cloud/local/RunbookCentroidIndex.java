@@ -0,0 +1,196 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One centroid vector per runbook, scored as the first stage of two-stage retrieval.
+ *
+ * <p>A runbook's centroid is the L2-normalized sum of its chunks' normalized embeddings and, if one
+ * was recorded, its normalized title embedding. Centroids are packed into a {@link
+ * FloatVectorMatrix} in the same layout as chunk vectors, so ranking a few thousand runbooks is one
+ * short sequential scan. The owning store recomputes a runbook's centroid from its rows after each
+ * mutation that touches the runbook; nothing is updated incrementally, so repeated overwrites
+ * cannot drift.
+ *
+ * <p>Not thread-safe; the owning repository guards access.
+ */
+final class RunbookCentroidIndex {
+
+  private final SimilarityKernel kernel;
+  private final Map<String, Integer> rowsByPath = new HashMap<>();
+  private final List<String> paths = new ArrayList<>();
+  private final Map<String, float[]> titles = new HashMap<>();
+  private FloatVectorMatrix centroids;
+
+  /**
+   * Creates an empty index.
+   *
+   * @param kernel the kernel used to score centroids
+   */
+  RunbookCentroidIndex(SimilarityKernel kernel) {
+    this.kernel = kernel;
+  }
+
+  /**
+   * Recomputes a runbook's centroid from its chunk vectors; a runbook without rows is removed,
+   * together with its title.
+   *
+   * @param runbookPath the runbook path
+   * @param vectors storage holding the runbook's normalized chunk vectors
+   * @param rows the runbook's rows in that storage
+   */
+  void update(String runbookPath, VectorStorage vectors, int[] rows) {
+    if (rows.length == 0) {
+      remove(runbookPath);
+      titles.remove(runbookPath);
+      return;
+    }
+    int dimension = vectors.dimension();
+    if (centroids == null || centroids.dimension() != dimension) {
+      centroids = new FloatVectorMatrix(dimension, kernel);
+      rowsByPath.clear();
+      paths.clear();
+    }
+
+    float[] sum = new float[dimension];
+    float[] row = new float[dimension];
+    for (int r : rows) {
+      vectors.read(r, row);
+      for (int i = 0; i < dimension; i++) {
+        sum[i] += row[i];
+      }
+    }
+    float[] title = titles.get(runbookPath);
+    if (title != null && title.length == dimension) {
+      for (int i = 0; i < dimension; i++) {
+        sum[i] += title[i];
+      }
+    }
+    FloatVectorMatrix.normalizeInPlace(sum);
+
+    Integer existing = rowsByPath.get(runbookPath);
+    if (existing != null) {
+      centroids.set(existing, sum);
+    } else {
+      rowsByPath.put(runbookPath, centroids.append(sum));
+      paths.add(runbookPath);
+    }
+  }
+
+  /**
+   * Records a runbook's normalized title embedding. The caller then {@link #update updates} the
+   * runbook so the title takes effect.
+   *
+   * @param runbookPath the runbook path
+   * @param normalizedTitle the normalized title embedding
+   */
+  void putTitle(String runbookPath, float[] normalizedTitle) {
+    titles.put(runbookPath, normalizedTitle);
+  }
+
+  /**
+   * Forgets a runbook's title embedding. The caller then {@link #update updates} the runbook.
+   *
+   * @param runbookPath the runbook path
+   */
+  void removeTitle(String runbookPath) {
+    titles.remove(runbookPath);
+  }
+
+  /** Returns the recorded normalized title embeddings by runbook path. */
+  Map<String, float[]> titles() {
+    return Map.copyOf(titles);
+  }
+
+  /** Removes every centroid and title. */
+  void clear() {
+    centroids = null;
+    rowsByPath.clear();
+    paths.clear();
+    titles.clear();
+  }
+
+  /**
+   * Returns the runbooks whose centroids score highest against a query.
+   *
+   * @param normalizedQuery the normalized query vector, of the centroids' dimension
+   * @param limit the maximum number of runbooks to return
+   * @param eligible the runbooks that may be returned, or null for all
+   * @return runbook paths, most similar first
+   */
+  List<String> top(float[] normalizedQuery, int limit, Set<String> eligible) {
+    return topScored(normalizedQuery, limit, eligible).stream()
+        .map(RunbookCentroidSearch.ScoredRunbook::runbookPath)
+        .toList();
+  }
+
+  /**
+   * Returns the runbooks whose centroids score highest against a query, with their scores.
+   *
+   * @param normalizedQuery the normalized query vector, of the centroids' dimension
+   * @param limit the maximum number of runbooks to return
+   * @param eligible the runbooks that may be returned, or null for all
+   * @return scored runbooks, most similar first
+   */
+  List<RunbookCentroidSearch.ScoredRunbook> topScored(
+      float[] normalizedQuery, int limit, Set<String> eligible) {
+    if (paths.isEmpty()) {
+      return List.of();
+    }
+    TopKSelector selector = new TopKSelector(Math.min(limit, paths.size()));
+    VectorStorage.RowScorer scorer = centroids.scorer(normalizedQuery);
+    for (int row = 0; row < paths.size(); row++) {
+      if (eligible == null || eligible.contains(paths.get(row))) {
+        selector.offer(row, scorer.score(row));
+      }
+    }
+    selector.sortDescending();
+    List<RunbookCentroidSearch.ScoredRunbook> result = new ArrayList<>(selector.size());
+    for (int i = 0; i < selector.size(); i++) {
+      result.add(
+          new RunbookCentroidSearch.ScoredRunbook(paths.get(selector.row(i)), selector.score(i)));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of runbooks with a centroid.
+   *
+   * @return the runbook count
+   */
+  int size() {
+    return paths.size();
+  }
+
+  /**
+   * Returns the bytes held by centroid and title vectors.
+   *
+   * @return the heap footprint of the vectors
+   */
+  long heapBytes() {
+    long bytes = centroids == null ? 0L : centroids.heapBytes();
+    for (float[] title : titles.values()) {
+      bytes += (long) title.length * Float.BYTES;
+    }
+    return bytes;
+  }
+
+  private void remove(String runbookPath) {
+    Integer row = rowsByPath.remove(runbookPath);
+    if (row == null) {
+      return;
+    }
+    int last = paths.size() - 1;
+    int moved = centroids.swapRemove(row);
+    if (moved >= 0) {
+      String movedPath = paths.get(moved);
+      paths.set(row, movedPath);
+      rowsByPath.put(movedPath, row);
+    }
+    paths.remove(last);
+  }
+}
@@ -0,0 +1,33 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
+import java.util.List;
+
+/**
+ * A store that ranks runbooks by centroid and can report the centroid scores, so the rankings of
+ * several stores can be merged, as {@link ShardedVectorStoreRepository} does for its shards.
+ */
+interface RunbookCentroidSearch {
+
+  /**
+   * A runbook and the similarity of its centroid to a query.
+   *
+   * @param runbookPath the runbook path
+   * @param score the centroid similarity
+   */
+  record ScoredRunbook(String runbookPath, double score) {}
+
+  /**
+   * Ranks runbooks by centroid, as {@link
+   * com.oracle.runbook.infrastructure.cloud.VectorStoreRepository#searchRunbooks(float[], int,
+   * VectorSearchFilter)} does, and returns them with their scores.
+   *
+   * @param queryEmbedding the query embedding vector
+   * @param limit the maximum number of runbooks to return
+   * @param filter restricts which chunks, and hence runbooks, are eligible
+   * @return scored runbooks, most similar first
+   * @throws IllegalArgumentException if limit is not positive or the dimension does not match
+   */
+  List<ScoredRunbook> searchScoredRunbooks(
+      float[] queryEmbedding, int limit, VectorSearchFilter filter);
+}
@@ -0,0 +1,166 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary encoding of {@link RunbookChunk} fields shared by the local store's on-disk formats.
+ *
+ * <p>Strings are written as a 4-byte length followed by UTF-8 bytes ({@link
+ * DataOutput#writeUTF(String)} is limited to 64 KB, which long runbook sections exceed); a length
+ * of -1 encodes null. Lists are a 4-byte count followed by their strings. Embeddings are a 4-byte
+ * count followed by floats. All multi-byte values are big-endian, as written by {@link DataOutput}.
+ */
+final class RunbookChunkCodec {
+
+  private RunbookChunkCodec() {}
+
+  /**
+   * Writes every field of a chunk except its embedding. The source runbooks follow the shapes, as
+   * the list of sources other than the runbook path.
+   *
+   * @param out the destination
+   * @param chunk the chunk to write
+   * @throws IOException if writing fails
+   */
+  static void writeMetadata(DataOutput out, RunbookChunk chunk) throws IOException {
+    writeString(out, chunk.id());
+    writeString(out, chunk.runbookPath());
+    writeString(out, chunk.sectionTitle());
+    writeString(out, chunk.content());
+    writeStrings(out, chunk.tags());
+    writeStrings(out, chunk.applicableShapes());
+    List<String> sources = chunk.sourceRunbookPaths();
+    writeStrings(out, sources.isEmpty() ? sources : sources.subList(1, sources.size()));
+  }
+
+  /**
+   * Reads the fields written by {@link #writeMetadata} and attaches the given embedding.
+   *
+   * @param in the source
+   * @param embedding the embedding to attach, or null for none
+   * @param withSources false for records written before chunks had several sources
+   * @return the decoded chunk
+   * @throws IOException if reading fails or the data is malformed
+   */
+  static RunbookChunk readMetadata(DataInput in, float[] embedding, boolean withSources)
+      throws IOException {
+    String id = readString(in);
+    String runbookPath = readString(in);
+    String sectionTitle = readString(in);
+    String content = readString(in);
+    List<String> tags = readStrings(in);
+    List<String> applicableShapes = readStrings(in);
+    List<String> sources = new ArrayList<>();
+    if (withSources) {
+      List<String> others = readStrings(in);
+      if (!others.isEmpty()) {
+        sources.add(runbookPath);
+        sources.addAll(others);
+      }
+    }
+    if (id == null || content == null) {
+      throw new IOException("Malformed chunk record: id and content are required");
+    }
+    try {
+      return new RunbookChunk(
+          id, runbookPath, sectionTitle, content, tags, applicableShapes, embedding, sources);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Malformed chunk record: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Writes an embedding as a length-prefixed float array.
+   *
+   * @param out the destination
+   * @param embedding the embedding to write
+   * @throws IOException if writing fails
+   */
+  static void writeEmbedding(DataOutput out, float[] embedding) throws IOException {
+    out.writeInt(embedding.length);
+    for (float value : embedding) {
+      out.writeFloat(value);
+    }
+  }
+
+  /**
+   * Reads an embedding written by {@link #writeEmbedding}.
+   *
+   * @param in the source
+   * @return the embedding
+   * @throws IOException if reading fails or the length is negative
+   */
+  static float[] readEmbedding(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      throw new IOException("Malformed embedding length: " + length);
+    }
+    float[] embedding = new float[length];
+    for (int i = 0; i < length; i++) {
+      embedding[i] = in.readFloat();
+    }
+    return embedding;
+  }
+
+  /**
+   * Writes a nullable string as a length-prefixed UTF-8 sequence.
+   *
+   * @param out the destination
+   * @param value the string to write, or null
+   * @throws IOException if writing fails
+   */
+  static void writeString(DataOutput out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Reads a string written by {@link #writeString}.
+   *
+   * @param in the source
+   * @return the string, or null
+   * @throws IOException if reading fails or the length is malformed
+   */
+  static String readString(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length == -1) {
+      return null;
+    }
+    if (length < 0) {
+      throw new IOException("Malformed string length: " + length);
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeStrings(DataOutput out, List<String> values) throws IOException {
+    out.writeInt(values.size());
+    for (String value : values) {
+      writeString(out, value);
+    }
+  }
+
+  private static List<String> readStrings(DataInput in) throws IOException {
+    int count = in.readInt();
+    if (count < 0) {
+      throw new IOException("Malformed list length: " + count);
+    }
+    List<String> values = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      values.add(readString(in));
+    }
+    return values;
+  }
+}
@@ -0,0 +1,140 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Portable {@link SimilarityKernel} written as plain loops.
+ *
+ * <p>Uses four independent float accumulators so the loop-carried dependency does not serialize
+ * the additions; this is also the shape HotSpot's superword optimization vectorizes best. Serves
+ * as the fallback when the Vector API is unavailable.
+ */
+final class ScalarSimilarityKernel implements SimilarityKernel {
+
+  static final ScalarSimilarityKernel INSTANCE = new ScalarSimilarityKernel();
+
+  private static final ValueLayout.OfFloat LITTLE_ENDIAN_FLOAT =
+      ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+  private ScalarSimilarityKernel() {}
+
+  @Override
+  public String name() {
+    return "scalar";
+  }
+
+  @Override
+  public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+    float s0 = 0.0f;
+    float s1 = 0.0f;
+    float s2 = 0.0f;
+    float s3 = 0.0f;
+    int i = 0;
+    for (int bound = length & ~3; i < bound; i += 4) {
+      s0 += a[aOffset + i] * b[bOffset + i];
+      s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+      s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+      s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+    }
+    for (; i < length; i++) {
+      s0 += a[aOffset + i] * b[bOffset + i];
+    }
+    return (s0 + s1) + (s2 + s3);
+  }
+
+  @Override
+  public float dot(float[] a, int aOffset, MemorySegment b, long bByteOffset, int length) {
+    float s0 = 0.0f;
+    float s1 = 0.0f;
+    int i = 0;
+    for (int bound = length & ~1; i < bound; i += 2) {
+      long offset = bByteOffset + (long) i * Float.BYTES;
+      s0 += a[aOffset + i] * b.get(LITTLE_ENDIAN_FLOAT, offset);
+      s1 += a[aOffset + i + 1] * b.get(LITTLE_ENDIAN_FLOAT, offset + Float.BYTES);
+    }
+    for (; i < length; i++) {
+      s0 += a[aOffset + i] * b.get(LITTLE_ENDIAN_FLOAT, bByteOffset + (long) i * Float.BYTES);
+    }
+    return s0 + s1;
+  }
+
+  @Override
+  public float cosine(float[] a, int aOffset, float[] b, int bOffset, int length) {
+    float dot = 0.0f;
+    float normA = 0.0f;
+    float normB = 0.0f;
+    for (int i = 0; i < length; i++) {
+      float x = a[aOffset + i];
+      float y = b[bOffset + i];
+      dot += x * y;
+      normA += x * x;
+      normB += y * y;
+    }
+    return SimilarityKernels.cosineFromParts(dot, normA, normB);
+  }
+
+  @Override
+  public float squaredL2(float[] a, int aOffset, float[] b, int bOffset, int length) {
+    float s0 = 0.0f;
+    float s1 = 0.0f;
+    int i = 0;
+    for (int bound = length & ~1; i < bound; i += 2) {
+      float d0 = a[aOffset + i] - b[bOffset + i];
+      float d1 = a[aOffset + i + 1] - b[bOffset + i + 1];
+      s0 += d0 * d0;
+      s1 += d1 * d1;
+    }
+    for (; i < length; i++) {
+      float d = a[aOffset + i] - b[bOffset + i];
+      s0 += d * d;
+    }
+    return s0 + s1;
+  }
+
+  @Override
+  public int dotInt8(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+    int s0 = 0;
+    int s1 = 0;
+    int i = 0;
+    for (int bound = length & ~1; i < bound; i += 2) {
+      s0 += a[aOffset + i] * b[bOffset + i];
+      s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+    }
+    for (; i < length; i++) {
+      s0 += a[aOffset + i] * b[bOffset + i];
+    }
+    return s0 + s1;
+  }
+
+  @Override
+  public float dotFloat16(float[] a, int aOffset, short[] b, int bOffset, int length) {
+    float s0 = 0.0f;
+    float s1 = 0.0f;
+    int i = 0;
+    for (int bound = length & ~1; i < bound; i += 2) {
+      s0 += a[aOffset + i] * Float.float16ToFloat(b[bOffset + i]);
+      s1 += a[aOffset + i + 1] * Float.float16ToFloat(b[bOffset + i + 1]);
+    }
+    for (; i < length; i++) {
+      s0 += a[aOffset + i] * Float.float16ToFloat(b[bOffset + i]);
+    }
+    return s0 + s1;
+  }
+
+  @Override
+  public float dotBFloat16(float[] a, int aOffset, short[] b, int bOffset, int length) {
+    float s0 = 0.0f;
+    float s1 = 0.0f;
+    int i = 0;
+    for (int bound = length & ~1; i < bound; i += 2) {
+      s0 += a[aOffset + i] * Float.intBitsToFloat(b[bOffset + i] << 16);
+      s1 += a[aOffset + i + 1] * Float.intBitsToFloat(b[bOffset + i + 1] << 16);
+    }
+    for (; i < length; i++) {
+      s0 += a[aOffset + i] * Float.intBitsToFloat(b[bOffset + i] << 16);
+    }
+    return s0 + s1;
+  }
+}
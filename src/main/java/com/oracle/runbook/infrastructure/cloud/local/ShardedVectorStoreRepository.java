@@ -0,0 +1,781 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.SearchLatencyRecorder;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreStats;
+import com.oracle.runbook.rag.ScoredChunk;
+import com.oracle.runbook.rag.SearchHit;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * Composite {@link VectorStoreRepository} that partitions chunks across several shards and answers
+ * searches by scatter-gather.
+ *
+ * <p>Each chunk lives on the shard chosen by a hash of its runbook path, so all chunks of a runbook
+ * share a shard: deleting or replacing a runbook touches one shard, and {@link
+ * #replaceRunbooks(List, List)} keeps the shard's own swap guarantee. The hash is {@link
+ * String#hashCode()}, which is stable across JVMs, so a runbook maps to the same shard after a
+ * restart as long as the number of shards is unchanged.
+ *
+ * <p>A chunk shared by runbooks on different shards is stored as one copy per shard, each listing
+ * only the {@link RunbookChunk#sourceRunbookPaths() sources} that shard owns, so a delete or swap
+ * still touches the runbook's own shard alone. Searches and exports return such a chunk once, with
+ * the sources of all its copies.
+ *
+ * <p>A search sends the whole query batch to every shard in parallel, each on its own virtual
+ * thread, and merges the per-shard top-K lists into one ranking; a filter restricted to runbook
+ * paths is sent only to the shards owning them. Shards must therefore report comparable scores,
+ * which holds when they are of one kind. All shards share one deadline, {@link
+ * ShardingConfig#shardTimeout()}; a shard that fails or misses it is cancelled, and {@link
+ * ShardingConfig#partialResults()} decides whether the search fails or returns what the other
+ * shards found. Argument errors raised by a shard, such as a dimension mismatch, are rethrown as
+ * they are.
+ *
+ * <p>Writes spanning several shards run in parallel and wait for every shard without a timeout. A
+ * failing shard fails the write, but the other shards keep their part of it.
+ *
+ * <p>{@link #searchRunbooks(float[], int, VectorSearchFilter)} merges the scored centroid rankings
+ * of the shards when every shard keeps runbook centroids, as local stores do; a runbook's centroid
+ * lives on the shard owning the runbook, so the merged ranking is the one a single store would
+ * return. Otherwise the default best-chunk ranking over the merged hits is used. Title embeddings
+ * are forwarded to the shards owning the runbooks.
+ *
+ * <p>{@link #saveSnapshot(Path) Snapshots} are supported when every shard is a {@link
+ * SnapshottableVectorStore}: each shard writes its own snapshot file next to the given path, and
+ * the path itself holds a small manifest naming them, replaced only once every shard has written,
+ * so a failed save leaves the previous snapshot intact.
+ *
+ * <p>Shards may be in-process stores or adapters for remote replicas; any {@link
+ * VectorStoreRepository} can be a shard.
+ */
+public final class ShardedVectorStoreRepository
+    implements VectorStoreRepository, SnapshottableVectorStore {
+
+  private static final Logger LOGGER =
+      Logger.getLogger(ShardedVectorStoreRepository.class.getName());
+
+  private static final String MANIFEST_SHARDS = "shards";
+  private static final String MANIFEST_GENERATION = "generation";
+
+  private final List<VectorStoreRepository> shards;
+  private final ShardingConfig config;
+  private final ExecutorService executor =
+      Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("vector-shard-", 0).factory());
+  private final SearchLatencyRecorder searchLatency = new SearchLatencyRecorder();
+  private final LongAdder partialSearches = new LongAdder();
+
+  /**
+   * Creates a sharded store.
+   *
+   * @param shards the shards, in a fixed order that decides which runbooks each one holds
+   * @param config the scatter-gather options
+   * @throws NullPointerException if shards, any shard, or config is null
+   * @throws IllegalArgumentException if shards is empty
+   */
+  public ShardedVectorStoreRepository(List<VectorStoreRepository> shards, ShardingConfig config) {
+    Objects.requireNonNull(shards, "shards cannot be null");
+    if (shards.isEmpty()) {
+      throw new IllegalArgumentException("shards cannot be empty");
+    }
+    this.shards = List.copyOf(shards);
+    this.config = Objects.requireNonNull(config, "config cannot be null");
+  }
+
+  /** {@inheritDoc} The provider type of the first shard. */
+  @Override
+  public String providerType() {
+    return shards.get(0).providerType();
+  }
+
+  @Override
+  public void store(RunbookChunk chunk) {
+    Objects.requireNonNull(chunk, "chunk cannot be null");
+    Map<Integer, RunbookChunk> copies = copiesByShard(chunk);
+    writeAll(copies.keySet(), shard -> shards.get(shard).store(copies.get(shard)));
+  }
+
+  @Override
+  public void storeBatch(List<RunbookChunk> chunks) {
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    Map<Integer, List<RunbookChunk>> byShard = byShard(chunks);
+    writeAll(byShard.keySet(), shard -> shards.get(shard).storeBatch(byShard.get(shard)));
+  }
+
+  @Override
+  public List<ScoredChunk> search(float[] queryEmbedding, int topK) {
+    return search(queryEmbedding, topK, VectorSearchFilter.none());
+  }
+
+  @Override
+  public List<ScoredChunk> search(float[] queryEmbedding, int topK, VectorSearchFilter filter) {
+    Objects.requireNonNull(queryEmbedding, "queryEmbedding cannot be null");
+    return searchBatch(List.of(queryEmbedding), topK, filter).get(0);
+  }
+
+  @Override
+  public List<List<ScoredChunk>> searchBatch(
+      List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+    return scatterGather(
+        queryEmbeddings,
+        topK,
+        filter,
+        shard -> shard.searchBatch(queryEmbeddings, topK, filter),
+        ScoredChunk::similarityScore,
+        result -> result.chunk().id(),
+        (first, second) ->
+            new ScoredChunk(combine(first.chunk(), second.chunk()), first.similarityScore()));
+  }
+
+  @Override
+  public List<SearchHit> searchHits(float[] queryEmbedding, int topK, VectorSearchFilter filter) {
+    Objects.requireNonNull(queryEmbedding, "queryEmbedding cannot be null");
+    return searchHitsBatch(List.of(queryEmbedding), topK, filter).get(0);
+  }
+
+  @Override
+  public List<List<SearchHit>> searchHitsBatch(
+      List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+    return scatterGather(
+        queryEmbeddings,
+        topK,
+        filter,
+        shard -> shard.searchHitsBatch(queryEmbeddings, topK, filter),
+        SearchHit::similarityScore,
+        SearchHit::id,
+        (first, second) ->
+            first.withSourceRunbookPaths(
+                union(first.sourceRunbookPaths(), second.sourceRunbookPaths())));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>When every shard keeps runbook centroids, the shards owning eligible runbooks rank them in
+   * parallel, under the same deadline and partial result policy as chunk searches, and the scored
+   * rankings are merged.
+   */
+  @Override
+  public List<String> searchRunbooks(float[] queryEmbedding, int limit, VectorSearchFilter filter) {
+    Objects.requireNonNull(queryEmbedding, "queryEmbedding cannot be null");
+    Objects.requireNonNull(filter, "filter cannot be null");
+    if (limit <= 0) {
+      throw new IllegalArgumentException("limit must be positive");
+    }
+    if (!shards.stream().allMatch(RunbookCentroidSearch.class::isInstance)) {
+      return VectorStoreRepository.super.searchRunbooks(queryEmbedding, limit, filter);
+    }
+    return searchLatency.time(
+        () -> {
+          Map<String, Double> scores = new HashMap<>();
+          for (List<RunbookCentroidSearch.ScoredRunbook> answer :
+              scatter(
+                  targets(filter),
+                  shard ->
+                      ((RunbookCentroidSearch) shard)
+                          .searchScoredRunbooks(queryEmbedding, limit, filter))) {
+            for (RunbookCentroidSearch.ScoredRunbook runbook : answer) {
+              scores.merge(runbook.runbookPath(), runbook.score(), Math::max);
+            }
+          }
+          return scores.entrySet().stream()
+              .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+              .limit(limit)
+              .map(Map.Entry::getKey)
+              .toList();
+        });
+  }
+
+  /** {@inheritDoc} Each title is stored on the shard owning its runbook. */
+  @Override
+  public void storeRunbookTitles(Map<String, float[]> titleEmbeddings) {
+    Objects.requireNonNull(titleEmbeddings, "titleEmbeddings cannot be null");
+    Map<Integer, Map<String, float[]>> byShard = new HashMap<>();
+    titleEmbeddings.forEach(
+        (runbookPath, title) ->
+            byShard
+                .computeIfAbsent(shardOf(runbookPath), shard -> new HashMap<>())
+                .put(runbookPath, title));
+    writeAll(byShard.keySet(), shard -> shards.get(shard).storeRunbookTitles(byShard.get(shard)));
+  }
+
+  @Override
+  public void delete(String runbookPath) {
+    Objects.requireNonNull(runbookPath, "runbookPath cannot be null");
+    shards.get(shardOf(runbookPath)).delete(runbookPath);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Each shard swaps its own runbooks, with its own guarantee; the shards swap in parallel and
+   * independently, so a concurrent search may see some runbooks already replaced and others not.
+   */
+  @Override
+  public void replaceRunbooks(List<String> runbookPaths, List<RunbookChunk> chunks) {
+    Objects.requireNonNull(runbookPaths, "runbookPaths cannot be null");
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    Map<Integer, List<String>> pathsByShard = new HashMap<>();
+    for (String runbookPath : runbookPaths) {
+      Objects.requireNonNull(runbookPath, "runbookPath cannot be null");
+      pathsByShard
+          .computeIfAbsent(shardOf(runbookPath), shard -> new ArrayList<>())
+          .add(runbookPath);
+    }
+    Map<Integer, List<RunbookChunk>> chunksByShard = byShard(chunks);
+    TreeSet<Integer> touched = new TreeSet<>(pathsByShard.keySet());
+    touched.addAll(chunksByShard.keySet());
+    writeAll(
+        touched,
+        shard ->
+            shards
+                .get(shard)
+                .replaceRunbooks(
+                    pathsByShard.getOrDefault(shard, List.of()),
+                    chunksByShard.getOrDefault(shard, List.of())));
+  }
+
+  /** {@inheritDoc} Every shard is optimized, in parallel. */
+  @Override
+  public void optimize() {
+    writeAll(allShards(), shard -> shards.get(shard).optimize());
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Counts, sizes and runbooks are summed over the shards, and are unknown if any shard does
+   * not report them. A chunk shared across shards counts once per copy in the chunk count and
+   * sizes, and once per source runbook in the per-runbook counts. The index state is the least
+   * settled one of any shard. The search counters are this store's own, one per scatter-gather
+   * search.
+   */
+  @Override
+  public VectorStoreStats stats() {
+    List<VectorStoreStats> parts = shards.stream().map(VectorStoreRepository::stats).toList();
+    Map<String, Integer> chunksPerRunbook = new HashMap<>();
+    int dimension = 0;
+    for (VectorStoreStats part : parts) {
+      part.chunksPerRunbook()
+          .forEach((path, count) -> chunksPerRunbook.merge(path, count, Integer::sum));
+      // Empty shards report no dimension; the first shard holding vectors decides it
+      if (dimension <= 0 && part.dimension() != 0) {
+        dimension = part.dimension();
+      }
+    }
+    return new VectorStoreStats(
+        providerType(),
+        sum(parts, VectorStoreStats::chunkCount),
+        dimension,
+        sum(parts, VectorStoreStats::vectorBytes),
+        sum(parts, VectorStoreStats::offHeapVectorBytes),
+        sum(parts, VectorStoreStats::indexBytes),
+        sum(parts, VectorStoreStats::contentBytes),
+        sum(parts, VectorStoreStats::metadataBytes),
+        chunksPerRunbook,
+        indexState(parts),
+        searchLatency.count(),
+        searchLatency.average());
+  }
+
+  /**
+   * {@inheritDoc} The chunks of every shard, one shard after the other; the copies of a chunk
+   * shared across shards are exported once, with all their sources.
+   */
+  @Override
+  public List<RunbookChunk> exportChunks() {
+    Map<String, RunbookChunk> exported = new LinkedHashMap<>();
+    for (VectorStoreRepository shard : shards) {
+      for (RunbookChunk chunk : shard.exportChunks()) {
+        exported.merge(chunk.id(), chunk, ShardedVectorStoreRepository::combine);
+      }
+    }
+    return List.copyOf(exported.values());
+  }
+
+  /**
+   * {@inheritDoc} Answered by the shard owning the runbook. A chunk shared with runbooks on other
+   * shards has a copy there too, so the other shards are exported to find those copies and add
+   * their sources.
+   */
+  @Override
+  public List<RunbookChunk> runbookChunks(String runbookPath) {
+    Objects.requireNonNull(runbookPath, "runbookPath cannot be null");
+    int owner = shardOf(runbookPath);
+    Map<String, RunbookChunk> chunks = new LinkedHashMap<>();
+    for (RunbookChunk chunk : shards.get(owner).runbookChunks(runbookPath)) {
+      chunks.put(chunk.id(), chunk);
+    }
+    for (int shard = 0; shard < shards.size() && !chunks.isEmpty(); shard++) {
+      if (shard == owner) {
+        continue;
+      }
+      for (RunbookChunk copy : shards.get(shard).exportChunks()) {
+        chunks.computeIfPresent(copy.id(), (id, chunk) -> combine(chunk, copy));
+      }
+    }
+    return List.copyOf(chunks.values());
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The shards write their snapshots in parallel, to files named after the path with a save
+   * generation and the shard index. The manifest at the path is replaced once they all have, and
+   * the previous generation's files are then deleted.
+   *
+   * @throws UnsupportedOperationException if a shard cannot be snapshotted
+   */
+  @Override
+  public void saveSnapshot(Path path) throws IOException {
+    Objects.requireNonNull(path, "path cannot be null");
+    List<SnapshottableVectorStore> stores = snapshottableShards();
+    Properties previous = readManifest(path);
+    long previousGeneration =
+        previous == null ? 0L : manifestValue(previous, MANIFEST_GENERATION, path);
+    long generation = previousGeneration + 1;
+
+    forEachShard(
+        shard -> stores.get(shard).saveSnapshot(shardSnapshotPath(path, generation, shard)));
+
+    Properties manifest = new Properties();
+    manifest.setProperty(MANIFEST_SHARDS, Integer.toString(shards.size()));
+    manifest.setProperty(MANIFEST_GENERATION, Long.toString(generation));
+    writeManifest(path, manifest);
+    if (previous != null) {
+      deleteGeneration(path, previousGeneration);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The shards load their snapshots in parallel. A snapshot written with a different number of
+   * shards is rejected, since its runbooks would hash to other shards.
+   *
+   * @throws UnsupportedOperationException if a shard cannot be snapshotted
+   */
+  @Override
+  public boolean loadSnapshot(Path path) throws IOException {
+    Objects.requireNonNull(path, "path cannot be null");
+    List<SnapshottableVectorStore> stores = snapshottableShards();
+    Properties manifest = readManifest(path);
+    if (manifest == null) {
+      return false;
+    }
+    long shardCount = manifestValue(manifest, MANIFEST_SHARDS, path);
+    if (shardCount != shards.size()) {
+      throw new IOException(
+          "Snapshot "
+              + path
+              + " was written by "
+              + shardCount
+              + " shards, this store has "
+              + shards.size());
+    }
+    long generation = manifestValue(manifest, MANIFEST_GENERATION, path);
+    forEachShard(
+        shard -> {
+          Path shardPath = shardSnapshotPath(path, generation, shard);
+          if (!stores.get(shard).loadSnapshot(shardPath)) {
+            throw new IOException("Shard snapshot " + shardPath + " is missing");
+          }
+        });
+    return true;
+  }
+
+  /**
+   * Returns whether every shard can be snapshotted, so {@link #saveSnapshot(Path)} and {@link
+   * #loadSnapshot(Path)} are supported.
+   *
+   * @return true if every shard is a {@link SnapshottableVectorStore}
+   */
+  public boolean supportsSnapshots() {
+    return shards.stream().allMatch(SnapshottableVectorStore.class::isInstance);
+  }
+
+  /** Returns the number of shards. */
+  public int shardCount() {
+    return shards.size();
+  }
+
+  /** Returns the number of searches answered without every queried shard. */
+  public long partialSearchCount() {
+    return partialSearches.sum();
+  }
+
+  /**
+   * Returns the shard holding a runbook's chunks.
+   *
+   * @param runbookPath the runbook path, possibly null
+   * @return the shard index
+   */
+  int shardOf(String runbookPath) {
+    int hash = Objects.hashCode(runbookPath);
+    // Spread the bits so paths that differ only in their last characters still spread evenly
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    return Math.floorMod(hash, shards.size());
+  }
+
+  private <T> List<List<T>> scatterGather(
+      List<float[]> queryEmbeddings,
+      int topK,
+      VectorSearchFilter filter,
+      Function<VectorStoreRepository, List<List<T>>> search,
+      ToDoubleFunction<T> score,
+      Function<T, String> id,
+      BinaryOperator<T> combine) {
+    Objects.requireNonNull(queryEmbeddings, "queryEmbeddings cannot be null");
+    Objects.requireNonNull(filter, "filter cannot be null");
+    if (topK <= 0) {
+      throw new IllegalArgumentException("topK must be positive");
+    }
+    return searchLatency.time(
+        () ->
+            merge(
+                queryEmbeddings.size(),
+                topK,
+                scatter(targets(filter), search),
+                score,
+                id,
+                combine));
+  }
+
+  /** Returns the shards that can hold chunks matching a filter. */
+  private List<Integer> targets(VectorSearchFilter filter) {
+    if (filter.runbookPaths().isEmpty()) {
+      return allShards();
+    }
+    TreeSet<Integer> targets = new TreeSet<>();
+    for (String runbookPath : filter.runbookPaths()) {
+      targets.add(shardOf(runbookPath));
+    }
+    return List.copyOf(targets);
+  }
+
+  private List<Integer> allShards() {
+    return IntStream.range(0, shards.size()).boxed().toList();
+  }
+
+  /**
+   * Runs a search on the target shards in parallel and collects the answers that arrive before
+   * the deadline, applying the partial result policy to the rest.
+   */
+  private <R> List<R> scatter(List<Integer> targets, Function<VectorStoreRepository, R> search) {
+    List<Future<R>> futures = new ArrayList<>(targets.size());
+    for (int shard : targets) {
+      futures.add(executor.submit(() -> search.apply(shards.get(shard))));
+    }
+    long deadline = System.nanoTime() + config.shardTimeout().toNanos();
+    List<R> answers = new ArrayList<>(targets.size());
+    IllegalStateException failure = null;
+    try {
+      for (int i = 0; i < futures.size(); i++) {
+        int shard = targets.get(i);
+        try {
+          answers.add(futures.get(i).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+          continue;
+        } catch (TimeoutException e) {
+          failure =
+              new IllegalStateException(
+                  "Vector store shard " + shard + " timed out after " + config.shardTimeout());
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof IllegalArgumentException argumentError) {
+            throw argumentError;
+          }
+          failure =
+              new IllegalStateException("Vector store shard " + shard + " failed", e.getCause());
+        }
+        if (config.partialResults() == PartialResultPolicy.FAIL) {
+          throw failure;
+        }
+        LOGGER.log(Level.WARNING, "Searching without vector store shard " + shard, failure);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while searching vector store shards", e);
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+
+    if (answers.isEmpty()) {
+      throw failure;
+    }
+    if (answers.size() < targets.size()) {
+      partialSearches.increment();
+    }
+    return answers;
+  }
+
+  /**
+   * Merges per-shard result batches into the overall top K of each query. Copies of a shared chunk
+   * found on several shards are combined into one result at the best copy's rank.
+   */
+  private static <T> List<List<T>> merge(
+      int queries,
+      int topK,
+      List<List<List<T>>> answers,
+      ToDoubleFunction<T> score,
+      Function<T, String> id,
+      BinaryOperator<T> combine) {
+    Comparator<T> byScore = Comparator.comparingDouble(score).reversed();
+    List<List<T>> merged = new ArrayList<>(queries);
+    for (int q = 0; q < queries; q++) {
+      List<T> candidates = new ArrayList<>();
+      for (List<List<T>> answer : answers) {
+        candidates.addAll(answer.get(q));
+      }
+      // Stable, so equal scores keep shard order
+      candidates.sort(byScore);
+      Map<String, T> distinct = new LinkedHashMap<>();
+      for (T candidate : candidates) {
+        distinct.merge(id.apply(candidate), candidate, combine);
+      }
+      merged.add(distinct.values().stream().limit(topK).toList());
+    }
+    return merged;
+  }
+
+  /** Groups chunks by shard, splitting shared chunks into their per-shard copies. */
+  private Map<Integer, List<RunbookChunk>> byShard(List<RunbookChunk> chunks) {
+    Map<Integer, List<RunbookChunk>> byShard = new LinkedHashMap<>();
+    for (RunbookChunk chunk : chunks) {
+      Objects.requireNonNull(chunk, "chunk cannot be null");
+      copiesByShard(chunk)
+          .forEach(
+              (shard, copy) -> byShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(copy));
+    }
+    return byShard;
+  }
+
+  /**
+   * Returns the copy of a chunk each shard stores: one per shard owning any of its sources,
+   * listing only the sources that shard owns.
+   */
+  private Map<Integer, RunbookChunk> copiesByShard(RunbookChunk chunk) {
+    Map<Integer, List<String>> sourcesByShard = new LinkedHashMap<>();
+    for (String runbookPath : chunk.sourceRunbookPaths()) {
+      sourcesByShard
+          .computeIfAbsent(shardOf(runbookPath), shard -> new ArrayList<>())
+          .add(runbookPath);
+    }
+    if (sourcesByShard.size() <= 1) {
+      return Map.of(shardOf(chunk.runbookPath()), chunk);
+    }
+    Map<Integer, RunbookChunk> copies = new LinkedHashMap<>();
+    sourcesByShard.forEach(
+        (shard, sources) -> copies.put(shard, chunk.withSourceRunbookPaths(sources)));
+    return copies;
+  }
+
+  /** Combines two copies of a shared chunk into one with the sources of both. */
+  private static RunbookChunk combine(RunbookChunk first, RunbookChunk second) {
+    return first.withSourceRunbookPaths(
+        union(first.sourceRunbookPaths(), second.sourceRunbookPaths()));
+  }
+
+  private static List<String> union(List<String> first, List<String> second) {
+    LinkedHashSet<String> union = new LinkedHashSet<>(first);
+    union.addAll(second);
+    return List.copyOf(union);
+  }
+
+  /**
+   * Applies a write to the given shards, in parallel when there are several, and waits for all of
+   * them. The first failure is rethrown once every shard has finished.
+   */
+  private void writeAll(Collection<Integer> targets, IntConsumer write) {
+    List<Future<?>> futures = new ArrayList<>(targets.size());
+    for (int shard : targets) {
+      futures.add(executor.submit(() -> write.accept(shard)));
+    }
+    RuntimeException failure = null;
+    boolean interrupted = false;
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure =
+              e.getCause() instanceof RuntimeException runtime
+                  ? runtime
+                  : new IllegalStateException("Vector store shard write failed", e.getCause());
+        }
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while writing to vector store shards");
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private List<SnapshottableVectorStore> snapshottableShards() {
+    List<SnapshottableVectorStore> stores = new ArrayList<>(shards.size());
+    for (int shard = 0; shard < shards.size(); shard++) {
+      if (!(shards.get(shard) instanceof SnapshottableVectorStore store)) {
+        throw new UnsupportedOperationException(
+            "Vector store shard "
+                + shard
+                + " ("
+                + shards.get(shard).providerType()
+                + ") cannot be snapshotted");
+      }
+      stores.add(store);
+    }
+    return stores;
+  }
+
+  /** Runs a snapshot step on every shard in parallel, rethrowing the first I/O failure. */
+  private void forEachShard(SnapshotStep step) throws IOException {
+    try {
+      writeAll(
+          allShards(),
+          shard -> {
+            try {
+              step.run(shard);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static Path shardSnapshotPath(Path path, long generation, int shard) {
+    return path.resolveSibling(shardSnapshotPrefix(path, generation) + shard);
+  }
+
+  private static String shardSnapshotPrefix(Path path, long generation) {
+    return path.getFileName() + "." + generation + ".shard-";
+  }
+
+  /** Reads the manifest at a snapshot path, or returns null if there is none. */
+  private static Properties readManifest(Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return null;
+    }
+    Properties manifest = new Properties();
+    try (InputStream in = Files.newInputStream(path)) {
+      manifest.load(in);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Invalid sharded snapshot manifest " + path, e);
+    }
+    return manifest;
+  }
+
+  private static long manifestValue(Properties manifest, String key, Path path)
+      throws IOException {
+    try {
+      return Long.parseLong(manifest.getProperty(key, ""));
+    } catch (NumberFormatException e) {
+      throw new IOException("Invalid sharded snapshot manifest " + path + ": no " + key, e);
+    }
+  }
+
+  private static void writeManifest(Path path, Properties manifest) throws IOException {
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (OutputStream out = Files.newOutputStream(temp)) {
+      manifest.store(out, "Sharded vector store snapshot");
+    }
+    try {
+      Files.move(
+          temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /** Deletes the shard snapshots of a superseded generation, along with their side files. */
+  private static void deleteGeneration(Path path, long generation) throws IOException {
+    String prefix = shardSnapshotPrefix(path, generation);
+    Path directory = path.toAbsolutePath().getParent();
+    try (DirectoryStream<Path> files =
+        Files.newDirectoryStream(
+            directory, file -> file.getFileName().toString().startsWith(prefix))) {
+      for (Path file : files) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  /** One shard's part of saving or loading a snapshot. */
+  @FunctionalInterface
+  private interface SnapshotStep {
+    void run(int shard) throws IOException;
+  }
+
+  private static long sum(List<VectorStoreStats> parts, ToLongFunction<VectorStoreStats> value) {
+    long total = 0L;
+    for (VectorStoreStats part : parts) {
+      long partValue = value.applyAsLong(part);
+      if (partValue < 0) {
+        return VectorStoreStats.UNKNOWN;
+      }
+      total += partValue;
+    }
+    return total;
+  }
+
+  private static VectorStoreStats.IndexState indexState(List<VectorStoreStats> parts) {
+    // Least settled first
+    List<VectorStoreStats.IndexState> precedence =
+        List.of(
+            VectorStoreStats.IndexState.BUILDING,
+            VectorStoreStats.IndexState.STALE,
+            VectorStoreStats.IndexState.UNKNOWN,
+            VectorStoreStats.IndexState.READY);
+    for (VectorStoreStats.IndexState state : precedence) {
+      if (parts.stream().anyMatch(part -> part.indexState() == state)) {
+        return state;
+      }
+    }
+    return VectorStoreStats.IndexState.NONE;
+  }
+}
@@ -0,0 +1,36 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Options for the scatter-gather searches of {@link ShardedVectorStoreRepository}.
+ *
+ * @param shardTimeout how long a search waits for the shards, which are queried in parallel; a
+ *     shard that has not answered by then is cancelled and counts as failed
+ * @param partialResults what a search returns when some shards fail or time out
+ */
+public record ShardingConfig(Duration shardTimeout, PartialResultPolicy partialResults) {
+
+  /** Default time a search waits for the shards. */
+  public static final Duration DEFAULT_SHARD_TIMEOUT = Duration.ofSeconds(2);
+
+  /** Compact constructor with validation. */
+  public ShardingConfig {
+    Objects.requireNonNull(shardTimeout, "shardTimeout cannot be null");
+    Objects.requireNonNull(partialResults, "partialResults cannot be null");
+    if (shardTimeout.isNegative() || shardTimeout.isZero()) {
+      throw new IllegalArgumentException("shardTimeout must be positive");
+    }
+  }
+
+  /**
+   * Returns the default configuration: searches wait two seconds and fail unless every shard
+   * answered.
+   *
+   * @return the default configuration
+   */
+  public static ShardingConfig defaults() {
+    return new ShardingConfig(DEFAULT_SHARD_TIMEOUT, PartialResultPolicy.FAIL);
+  }
+}
@@ -0,0 +1,117 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Similarity primitives used by the in-process vector stores.
+ *
+ * <p>Every method reads {@code length} components starting at the given offsets, so a kernel can
+ * score a query directly against a row of a packed matrix without copying it out. All arithmetic
+ * is single precision.
+ *
+ * <p>Implementations must be stateless and thread-safe. Use {@link SimilarityKernels#preferred()}
+ * to obtain the fastest kernel available in the running JVM.
+ *
+ * @see SimilarityKernels
+ */
+public interface SimilarityKernel {
+
+  /**
+   * Returns a short identifier for this kernel (e.g., "scalar", "vector-api").
+   *
+   * @return the kernel name
+   */
+  String name();
+
+  /**
+   * Computes the dot product of two vectors; equals cosine similarity for normalized inputs.
+   *
+   * @param a the first array
+   * @param aOffset index of the first component of the first vector
+   * @param b the second array
+   * @param bOffset index of the first component of the second vector
+   * @param length number of components
+   * @return the dot product
+   */
+  float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+  /**
+   * Computes the dot product of a heap vector and a vector stored as little-endian floats in a
+   * memory segment, such as a memory-mapped snapshot file.
+   *
+   * @param a the heap array
+   * @param aOffset index of the first component of the heap vector
+   * @param b the memory segment
+   * @param bByteOffset byte offset of the first component in the segment
+   * @param length number of components
+   * @return the dot product
+   */
+  float dot(float[] a, int aOffset, MemorySegment b, long bByteOffset, int length);
+
+  /**
+   * Computes cosine similarity of two vectors that are not necessarily normalized.
+   *
+   * @param a the first array
+   * @param aOffset index of the first component of the first vector
+   * @param b the second array
+   * @param bOffset index of the first component of the second vector
+   * @param length number of components
+   * @return cosine similarity between -1 and 1, or 0 if either vector is zero
+   */
+  float cosine(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+  /**
+   * Computes the squared Euclidean distance between two vectors.
+   *
+   * @param a the first array
+   * @param aOffset index of the first component of the first vector
+   * @param b the second array
+   * @param bOffset index of the first component of the second vector
+   * @param length number of components
+   * @return the squared L2 distance
+   */
+  float squaredL2(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+  /**
+   * Computes the dot product of two signed 8-bit vectors with exact integer accumulation.
+   *
+   * <p>Each product is at most {@code 2^14} in magnitude, so an {@code int} accumulator is exact
+   * for any length below {@code 2^17}.
+   *
+   * @param a the first array
+   * @param aOffset index of the first component of the first vector
+   * @param b the second array
+   * @param bOffset index of the first component of the second vector
+   * @param length number of components
+   * @return the integer dot product
+   */
+  int dotInt8(byte[] a, int aOffset, byte[] b, int bOffset, int length);
+
+  /**
+   * Computes the dot product of a float vector and a vector of IEEE 754 half-precision values,
+   * widening each half-precision component to single precision as it is read.
+   *
+   * <p>The half-precision components must be finite, as those of stored normalized embeddings are.
+   *
+   * @param a the float array
+   * @param aOffset index of the first component of the float vector
+   * @param b the half-precision bit patterns
+   * @param bOffset index of the first component of the half-precision vector
+   * @param length number of components
+   * @return the dot product
+   */
+  float dotFloat16(float[] a, int aOffset, short[] b, int bOffset, int length);
+
+  /**
+   * Computes the dot product of a float vector and a vector of bfloat16 values, widening each
+   * bfloat16 component to single precision as it is read.
+   *
+   * @param a the float array
+   * @param aOffset index of the first component of the float vector
+   * @param b the bfloat16 bit patterns, the upper halves of float32 bit patterns
+   * @param bOffset index of the first component of the bfloat16 vector
+   * @param length number of components
+   * @return the dot product
+   */
+  float dotBFloat16(float[] a, int aOffset, short[] b, int bOffset, int length);
+}
@@ -0,0 +1,112 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runtime selection of {@link SimilarityKernel} implementations.
+ *
+ * <p>The kernel is chosen once per JVM from the {@code runbook.similarity.kernel} system property:
+ *
+ * <ul>
+ *   <li>{@code auto} (default) - the Vector API kernel when {@code jdk.incubator.vector} is
+ *       resolved in the boot layer (start the JVM with {@code --add-modules
+ *       jdk.incubator.vector}), otherwise the scalar kernel
+ *   <li>{@code vector} - the Vector API kernel, falling back to scalar with a warning if the
+ *       module is missing
+ *   <li>{@code scalar} - always the portable scalar kernel
+ * </ul>
+ *
+ * <p>The selected kernel is logged at INFO, together with the reason when {@code auto} falls back
+ * to scalar, so a deployment started without the module is visible in its log.
+ */
+public final class SimilarityKernels {
+
+  /** System property used to force a specific kernel. */
+  public static final String KERNEL_PROPERTY = "runbook.similarity.kernel";
+
+  private static final Logger LOGGER = Logger.getLogger(SimilarityKernels.class.getName());
+  private static final String VECTOR_MODULE = "jdk.incubator.vector";
+  private static final String VECTOR_KERNEL_CLASS =
+      "com.oracle.runbook.infrastructure.cloud.local.VectorApiSimilarityKernel";
+
+  private static final SimilarityKernel PREFERRED =
+      select(System.getProperty(KERNEL_PROPERTY, "auto"));
+
+  private SimilarityKernels() {}
+
+  /**
+   * Returns the kernel selected for this JVM.
+   *
+   * @return the preferred kernel, never null
+   */
+  public static SimilarityKernel preferred() {
+    return PREFERRED;
+  }
+
+  /**
+   * Returns the portable scalar kernel.
+   *
+   * @return the scalar kernel
+   */
+  public static SimilarityKernel scalar() {
+    return ScalarSimilarityKernel.INSTANCE;
+  }
+
+  /**
+   * Resolves a kernel by mode name ({@code auto}, {@code vector} or {@code scalar}).
+   *
+   * @param mode the selection mode
+   * @return the resolved kernel, never null
+   * @throws IllegalArgumentException if the mode is unknown
+   */
+  static SimilarityKernel select(String mode) {
+    String normalized = mode.trim().toLowerCase(Locale.ROOT);
+    SimilarityKernel kernel =
+        switch (normalized) {
+          case "scalar" -> scalar();
+          case "auto", "vector" -> {
+            SimilarityKernel vector = loadVectorKernel();
+            if (vector != null) {
+              yield vector;
+            }
+            String message =
+                VECTOR_MODULE
+                    + " is not available (start the JVM with --add-modules "
+                    + VECTOR_MODULE
+                    + "); using scalar kernel";
+            if ("vector".equals(normalized)) {
+              LOGGER.warning("Vector API similarity kernel requested but " + message);
+            } else {
+              LOGGER.info(message);
+            }
+            yield scalar();
+          }
+          default ->
+              throw new IllegalArgumentException(
+                  "Unknown similarity kernel '" + mode + "'. Supported: auto, vector, scalar");
+        };
+    LOGGER.info("Using " + kernel.name() + " similarity kernel (mode " + normalized + ")");
+    return kernel;
+  }
+
+  /** Combines partial sums into a cosine similarity, treating zero vectors as dissimilar. */
+  static float cosineFromParts(float dot, float normA, float normB) {
+    float denominator = (float) Math.sqrt((double) normA * normB);
+    return denominator == 0.0f ? 0.0f : dot / denominator;
+  }
+
+  private static SimilarityKernel loadVectorKernel() {
+    if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+      return null;
+    }
+    try {
+      return (SimilarityKernel)
+          Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      LOGGER.log(Level.WARNING, "Failed to load Vector API similarity kernel", e);
+      return null;
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A local vector store whose contents can be persisted to and restored from a snapshot file, so a
+ * restart does not have to re-embed every runbook.
+ */
+public interface SnapshottableVectorStore {
+
+  /**
+   * Atomically writes the current contents to a snapshot file, replacing any previous snapshot.
+   *
+   * @param path the snapshot file
+   * @throws IOException if the snapshot cannot be written
+   */
+  void saveSnapshot(Path path) throws IOException;
+
+  /**
+   * Replaces the current contents with those of a snapshot file.
+   *
+   * @param path the snapshot file
+   * @return true if the snapshot was loaded, false if the file does not exist
+   * @throws IOException if the file cannot be read or is not a valid snapshot
+   */
+  boolean loadSnapshot(Path path) throws IOException;
+}
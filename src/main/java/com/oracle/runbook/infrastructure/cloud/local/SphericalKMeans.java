@@ -0,0 +1,178 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Spherical k-means clustering of L2-normalized vectors, used to train {@link
+ * IvfVectorStoreRepository} partitions.
+ *
+ * <p>Similarity is the dot product, so centroids are re-normalized after every update and each
+ * point is assigned to the centroid with the highest dot product. Seeding uses k-means++: each new
+ * seed is drawn with probability proportional to its squared distance ({@code 2 - 2 * dot}) from
+ * the nearest seed chosen so far, which spreads the initial centroids across the data.
+ *
+ * <p>Inputs are packed row-major like {@link FloatVectorMatrix}: point {@code i} occupies {@code
+ * data[i * dimension .. (i + 1) * dimension)}.
+ */
+final class SphericalKMeans {
+
+  private SphericalKMeans() {}
+
+  /**
+   * Trains {@code k} centroids on the given points.
+   *
+   * @param data the packed, normalized points
+   * @param count the number of points in {@code data}
+   * @param dimension the number of components per point
+   * @param k the number of centroids; must not exceed {@code count}
+   * @param iterations the maximum number of Lloyd iterations after seeding
+   * @param random the source of randomness for seeding
+   * @param kernel the kernel used for dot products
+   * @return the packed, normalized centroids ({@code k * dimension} floats)
+   * @throws IllegalArgumentException if k is not between 1 and count
+   */
+  static float[] train(
+      float[] data,
+      int count,
+      int dimension,
+      int k,
+      int iterations,
+      Random random,
+      SimilarityKernel kernel) {
+    if (k < 1 || k > count) {
+      throw new IllegalArgumentException("k must be between 1 and " + count + ": " + k);
+    }
+    float[] centroids = seed(data, count, dimension, k, random, kernel);
+    int[] assignments = new int[count];
+    float[] sums = new float[k * dimension];
+    int[] sizes = new int[k];
+
+    for (int iteration = 0; iteration < iterations; iteration++) {
+      boolean changed = iteration == 0;
+      for (int i = 0; i < count; i++) {
+        int nearest = nearest(centroids, k, data, i * dimension, dimension, kernel);
+        if (nearest != assignments[i]) {
+          assignments[i] = nearest;
+          changed = true;
+        }
+      }
+      if (!changed) {
+        break;
+      }
+
+      Arrays.fill(sums, 0.0f);
+      Arrays.fill(sizes, 0);
+      for (int i = 0; i < count; i++) {
+        int cluster = assignments[i];
+        sizes[cluster]++;
+        int base = cluster * dimension;
+        int offset = i * dimension;
+        for (int j = 0; j < dimension; j++) {
+          sums[base + j] += data[offset + j];
+        }
+      }
+      for (int cluster = 0; cluster < k; cluster++) {
+        int base = cluster * dimension;
+        if (sizes[cluster] == 0) {
+          // Re-seed an empty cluster on a random point so every partition stays useful
+          System.arraycopy(data, random.nextInt(count) * dimension, centroids, base, dimension);
+          continue;
+        }
+        normalize(sums, base, dimension);
+        System.arraycopy(sums, base, centroids, base, dimension);
+      }
+    }
+    return centroids;
+  }
+
+  /**
+   * Returns the index of the centroid with the highest dot product with a vector.
+   *
+   * @param centroids the packed centroids
+   * @param k the number of centroids
+   * @param vector the array holding the vector
+   * @param offset index of the first component of the vector
+   * @param dimension the number of components
+   * @param kernel the kernel used for dot products
+   * @return the index of the nearest centroid
+   */
+  static int nearest(
+      float[] centroids,
+      int k,
+      float[] vector,
+      int offset,
+      int dimension,
+      SimilarityKernel kernel) {
+    int best = 0;
+    float bestScore = Float.NEGATIVE_INFINITY;
+    for (int cluster = 0; cluster < k; cluster++) {
+      float score = kernel.dot(centroids, cluster * dimension, vector, offset, dimension);
+      if (score > bestScore) {
+        bestScore = score;
+        best = cluster;
+      }
+    }
+    return best;
+  }
+
+  private static float[] seed(
+      float[] data, int count, int dimension, int k, Random random, SimilarityKernel kernel) {
+    float[] centroids = new float[k * dimension];
+    System.arraycopy(data, random.nextInt(count) * dimension, centroids, 0, dimension);
+
+    // Squared distance of every point to its nearest seed so far
+    double[] distances = new double[count];
+    double total = 0.0;
+    for (int i = 0; i < count; i++) {
+      distances[i] = squaredDistance(centroids, 0, data, i * dimension, dimension, kernel);
+      total += distances[i];
+    }
+
+    for (int cluster = 1; cluster < k; cluster++) {
+      int chosen = total > 0.0 ? sample(distances, total, random) : random.nextInt(count);
+      int base = cluster * dimension;
+      System.arraycopy(data, chosen * dimension, centroids, base, dimension);
+      total = 0.0;
+      for (int i = 0; i < count; i++) {
+        double distance = squaredDistance(centroids, base, data, i * dimension, dimension, kernel);
+        if (distance < distances[i]) {
+          distances[i] = distance;
+        }
+        total += distances[i];
+      }
+    }
+    return centroids;
+  }
+
+  private static int sample(double[] weights, double total, Random random) {
+    double target = random.nextDouble() * total;
+    for (int i = 0; i < weights.length; i++) {
+      target -= weights[i];
+      if (target < 0.0) {
+        return i;
+      }
+    }
+    return weights.length - 1;
+  }
+
+  private static double squaredDistance(
+      float[] a, int aOffset, float[] b, int bOffset, int dimension, SimilarityKernel kernel) {
+    // For unit vectors |a - b|^2 = 2 - 2 * a.b; clamp rounding noise below zero
+    return Math.max(0.0, 2.0 - 2.0 * kernel.dot(a, aOffset, b, bOffset, dimension));
+  }
+
+  private static void normalize(float[] values, int offset, int dimension) {
+    double norm = 0.0;
+    for (int j = 0; j < dimension; j++) {
+      norm += (double) values[offset + j] * values[offset + j];
+    }
+    if (norm == 0.0) {
+      return;
+    }
+    float scale = (float) (1.0 / Math.sqrt(norm));
+    for (int j = 0; j < dimension; j++) {
+      values[offset + j] *= scale;
+    }
+  }
+}
@@ -0,0 +1,559 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.ChunkVisitor;
+import com.oracle.runbook.infrastructure.cloud.SearchLatencyRecorder;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreStats;
+import com.oracle.runbook.rag.ScoredChunk;
+import com.oracle.runbook.rag.SearchHit;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decorator that puts an in-process hot tier in front of a remote {@link VectorStoreRepository},
+ * such as Oracle Database 23ai, so the runbooks that answer most alerts are found without a
+ * database round trip.
+ *
+ * <p>Every chunk returned by a remote search is counted. Once a chunk has been retrieved {@link
+ * HotTierConfig#promotionThreshold()} times it is copied into an {@link
+ * InMemoryVectorStoreRepository}; when that tier is full, the least retrieved hot chunk makes room,
+ * but only for a chunk retrieved more often than itself. Hot chunks are kept in a min-heap on
+ * their retrieval count, refreshed lazily when the count has moved, so finding that chunk does not
+ * scan the tier. Promotion needs the chunk's vector, so chunks that the remote store returns
+ * without an embedding are never promoted.
+ *
+ * <p>A search first runs against the hot tier for one result more than asked. It is answered
+ * locally if the K-th result scores at least {@link HotTierConfig#confidenceScore()} and leads the
+ * next hot result by at least {@link HotTierConfig#confidenceMargin()}; otherwise the search falls
+ * back to the remote store. The hot tier holds a subset of the store, so a local answer can miss a
+ * cold chunk that would have ranked higher: the confidence score keeps weak matches remote, and
+ * the margin keeps answers remote when the hot tier cannot tell its K-th result from the chunks
+ * around it. {@link #searchBatch(List, int, VectorSearchFilter) Batched searches} send only the
+ * queries the hot tier could not answer to the remote store.
+ *
+ * <p>{@link #searchHits(float[], int, VectorSearchFilter) Embedding-free searches} stay
+ * embedding-free on both tiers. When such a search brings a chunk to the promotion threshold, its
+ * query is run once more as a full search to read the vector to promote.
+ *
+ * <p>Writes go through to the remote store first and then invalidate the hot tier: a re-stored
+ * chunk and every chunk of a deleted or replaced runbook are dropped from it, and must earn
+ * promotion again with their new content. A search that was already waiting on the remote store
+ * when a write completed does not promote what it read.
+ *
+ * <p>Scores from the hot tier are cosine similarities, as reported by the local stores.
+ */
+public final class TieredVectorStoreRepository implements VectorStoreRepository {
+
+  /** Retrieval counts are halved once more than this many chunks per hot slot are tracked. */
+  private static final int TRACKED_PER_SLOT = 8;
+
+  private final VectorStoreRepository remote;
+  private final HotTierConfig config;
+  private final InMemoryVectorStoreRepository hot;
+  private final Map<String, Integer> retrievals = new ConcurrentHashMap<>();
+  private final LongAdder localSearches = new LongAdder();
+  private final LongAdder remoteSearches = new LongAdder();
+  private final SearchLatencyRecorder searchLatency = new SearchLatencyRecorder();
+
+  /** Guards promotion, eviction and invalidation of the hot tier. */
+  private final ReentrantLock tierLock = new ReentrantLock();
+
+  /** Every hot chunk, by chunk id; guarded by {@link #tierLock}. */
+  private final Map<String, HotEntry> hotEntries = new HashMap<>();
+
+  /**
+   * Hot chunks by the retrieval count they had when queued, least first; guarded by {@link
+   * #tierLock}. An entry no longer in {@link #hotEntries} is stale and skipped.
+   */
+  private final PriorityQueue<HotEntry> evictionQueue =
+      new PriorityQueue<>(Comparator.comparingInt(HotEntry::retrievals));
+
+  private final Tier<ScoredChunk> chunkTier = new ChunkTier();
+  private final Tier<SearchHit> hitTier = new HitTier();
+
+  /** Incremented by every write; a search promotes only if it is unchanged since it started. */
+  private volatile long generation;
+
+  /**
+   * Creates a tiered store in front of a remote store.
+   *
+   * @param remote the store holding every chunk
+   * @param config the hot tier options
+   * @throws NullPointerException if remote or config is null
+   */
+  public TieredVectorStoreRepository(VectorStoreRepository remote, HotTierConfig config) {
+    this.remote = Objects.requireNonNull(remote, "remote cannot be null");
+    this.config = Objects.requireNonNull(config, "config cannot be null");
+    this.hot =
+        new InMemoryVectorStoreRepository(
+            new LocalVectorStoreConfig(
+                VectorEncoding.FLOAT32,
+                LocalVectorStoreConfig.DEFAULT_RERANK_FACTOR,
+                null,
+                ParallelScanConfig.sequential()));
+  }
+
+  @Override
+  public String providerType() {
+    return remote.providerType();
+  }
+
+  @Override
+  public void store(RunbookChunk chunk) {
+    Objects.requireNonNull(chunk, "chunk cannot be null");
+    remote.store(chunk);
+    invalidate(List.of(chunk.id()), List.of());
+  }
+
+  @Override
+  public void storeBatch(List<RunbookChunk> chunks) {
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    remote.storeBatch(chunks);
+    invalidate(chunks.stream().map(RunbookChunk::id).toList(), List.of());
+  }
+
+  @Override
+  public List<ScoredChunk> search(float[] queryEmbedding, int topK) {
+    return search(queryEmbedding, topK, VectorSearchFilter.none());
+  }
+
+  @Override
+  public List<ScoredChunk> search(float[] queryEmbedding, int topK, VectorSearchFilter filter) {
+    Objects.requireNonNull(queryEmbedding, "queryEmbedding cannot be null");
+    return searchBatch(List.of(queryEmbedding), topK, filter).get(0);
+  }
+
+  @Override
+  public List<List<ScoredChunk>> searchBatch(
+      List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+    return searchTiered(queryEmbeddings, topK, filter, chunkTier);
+  }
+
+  @Override
+  public List<SearchHit> searchHits(float[] queryEmbedding, int topK, VectorSearchFilter filter) {
+    Objects.requireNonNull(queryEmbedding, "queryEmbedding cannot be null");
+    return searchHitsBatch(List.of(queryEmbedding), topK, filter).get(0);
+  }
+
+  @Override
+  public List<List<SearchHit>> searchHitsBatch(
+      List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+    return searchTiered(queryEmbeddings, topK, filter, hitTier);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Always answered by the remote store, since the hot tier holds only some of each runbook.
+   */
+  @Override
+  public List<String> searchRunbooks(float[] queryEmbedding, int limit, VectorSearchFilter filter) {
+    return remote.searchRunbooks(queryEmbedding, limit, filter);
+  }
+
+  @Override
+  public void storeRunbookTitles(Map<String, float[]> titleEmbeddings) {
+    remote.storeRunbookTitles(titleEmbeddings);
+  }
+
+  @Override
+  public void delete(String runbookPath) {
+    Objects.requireNonNull(runbookPath, "runbookPath cannot be null");
+    remote.delete(runbookPath);
+    invalidate(List.of(), List.of(runbookPath));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The remote store performs the swap; the replaced runbooks and new chunks are then dropped
+   * from the hot tier, which until then answers only with chunks of the old generation.
+   */
+  @Override
+  public void replaceRunbooks(List<String> runbookPaths, List<RunbookChunk> chunks) {
+    Objects.requireNonNull(runbookPaths, "runbookPaths cannot be null");
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    remote.replaceRunbooks(runbookPaths, chunks);
+    invalidate(chunks.stream().map(RunbookChunk::id).toList(), runbookPaths);
+  }
+
+  @Override
+  public void optimize() {
+    remote.optimize();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Contents and index state are the remote store's. Byte counts add the hot tier's to the
+   * remote store's, or are the hot tier's alone where the remote store does not report them. The
+   * search counters cover every search through this store, answered locally or not.
+   */
+  @Override
+  public VectorStoreStats stats() {
+    VectorStoreStats cold = remote.stats();
+    VectorStoreStats warm = hot.stats();
+    return new VectorStoreStats(
+        cold.providerType(),
+        cold.chunkCount(),
+        cold.dimension() < 0 ? warm.dimension() : cold.dimension(),
+        plusHot(cold.vectorBytes(), warm.vectorBytes()),
+        plusHot(cold.offHeapVectorBytes(), warm.offHeapVectorBytes()),
+        plusHot(cold.indexBytes(), warm.indexBytes()),
+        plusHot(cold.contentBytes(), warm.contentBytes()),
+        plusHot(cold.metadataBytes(), warm.metadataBytes()),
+        cold.chunksPerRunbook(),
+        cold.indexState(),
+        searchLatency.count(),
+        searchLatency.average());
+  }
+
+  /** {@inheritDoc} The remote store's chunks; the hot tier only holds copies of them. */
+  @Override
+  public List<RunbookChunk> exportChunks() {
+    return remote.exportChunks();
+  }
+
+  /** {@inheritDoc} The remote store's chunks, visited as the remote store visits them. */
+  @Override
+  public void exportChunks(ChunkVisitor visitor) throws IOException {
+    remote.exportChunks(visitor);
+  }
+
+  /** {@inheritDoc} Answered by the remote store, since the hot tier holds only some of them. */
+  @Override
+  public List<RunbookChunk> runbookChunks(String runbookPath) {
+    return remote.runbookChunks(runbookPath);
+  }
+
+  /** Returns the number of searches answered by the hot tier. */
+  public long localSearchCount() {
+    return localSearches.sum();
+  }
+
+  /** Returns the number of searches that fell back to the remote store. */
+  public long remoteSearchCount() {
+    return remoteSearches.sum();
+  }
+
+  /** Returns the number of chunks currently in the hot tier. */
+  public int hotSize() {
+    tierLock.lock();
+    try {
+      return hotEntries.size();
+    } finally {
+      tierLock.unlock();
+    }
+  }
+
+  /**
+   * Answers each query from the hot tier when it is confident, and sends the rest to the remote
+   * store in one batch of the same kind of search.
+   */
+  private <T> List<List<T>> searchTiered(
+      List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter, Tier<T> tier) {
+    Objects.requireNonNull(queryEmbeddings, "queryEmbeddings cannot be null");
+    Objects.requireNonNull(filter, "filter cannot be null");
+    if (topK <= 0) {
+      throw new IllegalArgumentException("topK must be positive");
+    }
+    return searchLatency.time(() -> searchTiers(queryEmbeddings, topK, filter, tier));
+  }
+
+  private <T> List<List<T>> searchTiers(
+      List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter, Tier<T> tier) {
+    long startGeneration = generation;
+    int withRunnerUp = topK == Integer.MAX_VALUE ? topK : topK + 1;
+    List<List<T>> local = tier.search(hot, queryEmbeddings, withRunnerUp, filter);
+    List<List<T>> merged = new ArrayList<>(local.size());
+    List<Integer> misses = new ArrayList<>();
+    for (int q = 0; q < local.size(); q++) {
+      List<T> results = local.get(q);
+      if (isConfident(results, topK, tier)) {
+        List<T> answer = List.copyOf(results.subList(0, topK));
+        localSearches.increment();
+        countRetrievals(answer, tier);
+        merged.add(answer);
+      } else {
+        misses.add(q);
+        merged.add(List.of());
+      }
+    }
+
+    if (!misses.isEmpty()) {
+      remoteSearches.add(misses.size());
+      List<float[]> remoteQueries = misses.stream().map(queryEmbeddings::get).toList();
+      List<List<T>> remoteResults = tier.search(remote, remoteQueries, topK, filter);
+      List<float[]> promotingQueries = new ArrayList<>();
+      List<List<T>> promotingResults = new ArrayList<>();
+      Set<String> candidates = new HashSet<>();
+      for (int i = 0; i < misses.size(); i++) {
+        List<T> results = remoteResults.get(i);
+        merged.set(misses.get(i), results);
+        List<String> ready = notHot(countRetrievals(results, tier));
+        if (!ready.isEmpty()) {
+          promotingQueries.add(remoteQueries.get(i));
+          promotingResults.add(results);
+          candidates.addAll(ready);
+        }
+      }
+      if (!candidates.isEmpty()) {
+        promote(
+            tier.chunks(promotingQueries, promotingResults, topK, filter),
+            candidates,
+            startGeneration);
+      }
+    }
+    return merged;
+  }
+
+  private static long plusHot(long remoteBytes, long hotBytes) {
+    return remoteBytes < 0 ? hotBytes : remoteBytes + hotBytes;
+  }
+
+  /**
+   * Returns whether hot results fetched with one runner-up answer a search for topK: the K-th
+   * must reach the confidence score and lead the runner-up, if any, by the confidence margin.
+   */
+  private <T> boolean isConfident(List<T> results, int topK, Tier<T> tier) {
+    if (results.size() < topK) {
+      return false;
+    }
+    double kth = tier.score(results.get(topK - 1));
+    if (kth < config.confidenceScore()) {
+      return false;
+    }
+    return results.size() == topK
+        || kth - tier.score(results.get(topK)) >= config.confidenceMargin();
+  }
+
+  /**
+   * Counts one retrieval of every result and returns the ids of the chunks that have reached the
+   * promotion threshold.
+   */
+  private <T> List<String> countRetrievals(List<T> results, Tier<T> tier) {
+    List<String> candidates = new ArrayList<>();
+    for (T result : results) {
+      String id = tier.id(result);
+      if (retrievals.merge(id, 1, Integer::sum) >= config.promotionThreshold()) {
+        candidates.add(id);
+      }
+    }
+    if (retrievals.size() > (long) config.capacity() * TRACKED_PER_SLOT) {
+      decayRetrievals();
+    }
+    return candidates;
+  }
+
+  private List<String> notHot(List<String> ids) {
+    if (ids.isEmpty()) {
+      return ids;
+    }
+    tierLock.lock();
+    try {
+      return ids.stream().filter(id -> !hotEntries.containsKey(id)).toList();
+    } finally {
+      tierLock.unlock();
+    }
+  }
+
+  private void decayRetrievals() {
+    tierLock.lock();
+    try {
+      if (retrievals.size() > (long) config.capacity() * TRACKED_PER_SLOT) {
+        retrievals.replaceAll((id, count) -> count / 2);
+        retrievals.values().removeIf(count -> count == 0);
+        // Halving lowers every count, which lazy refreshing assumes never happens
+        evictionQueue.clear();
+        hotEntries.replaceAll((id, entry) -> queue(id, entry.sourceRunbookPaths()));
+      }
+    } finally {
+      tierLock.unlock();
+    }
+  }
+
+  /**
+   * Copies the candidates among the given chunks into the hot tier, unless a write has completed
+   * since the search that read them started.
+   */
+  private void promote(List<RunbookChunk> chunks, Set<String> candidates, long startGeneration) {
+    tierLock.lock();
+    try {
+      if (generation != startGeneration) {
+        return;
+      }
+      if (evictionQueue.size() > 2L * config.capacity()) {
+        // Drop the entries of chunks invalidated since they were queued
+        evictionQueue.removeIf(entry -> hotEntries.get(entry.id()) != entry);
+      }
+      for (RunbookChunk chunk : chunks) {
+        if (!candidates.contains(chunk.id())
+            || hotEntries.containsKey(chunk.id())
+            || chunk.embeddingLength() == 0) {
+          continue;
+        }
+        if (hotEntries.size() >= config.capacity() && !evictFor(chunk.id())) {
+          continue;
+        }
+        hot.store(chunk);
+        hotEntries.put(chunk.id(), queue(chunk.id(), chunk.sourceRunbookPaths()));
+      }
+    } finally {
+      tierLock.unlock();
+    }
+  }
+
+  /** Queues a hot chunk for eviction at its current retrieval count. */
+  private HotEntry queue(String id, List<String> sourceRunbookPaths) {
+    HotEntry entry = new HotEntry(id, sourceRunbookPaths, retrievals.getOrDefault(id, 0));
+    evictionQueue.add(entry);
+    return entry;
+  }
+
+  /**
+   * Evicts the least retrieved hot chunk if the candidate was retrieved more often. Counts only
+   * grow between decays, so an entry whose count has moved is requeued at its new count until the
+   * head of the queue is current, and then is the least retrieved chunk.
+   *
+   * @return true if a slot was freed
+   */
+  private boolean evictFor(String candidateId) {
+    while (!evictionQueue.isEmpty()) {
+      HotEntry least = evictionQueue.poll();
+      if (hotEntries.get(least.id()) != least) {
+        continue;
+      }
+      int count = retrievals.getOrDefault(least.id(), 0);
+      if (count != least.retrievals()) {
+        hotEntries.put(least.id(), queue(least.id(), least.sourceRunbookPaths()));
+        continue;
+      }
+      if (retrievals.getOrDefault(candidateId, 0) <= count) {
+        evictionQueue.add(least);
+        return false;
+      }
+      hot.deleteById(least.id());
+      hotEntries.remove(least.id());
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Drops the given chunks and every chunk of the given runbooks from the hot tier, including
+   * chunks shared with other runbooks, whose source list has changed.
+   */
+  private void invalidate(List<String> ids, List<String> runbookPaths) {
+    tierLock.lock();
+    try {
+      generation++;
+      for (String id : ids) {
+        if (hotEntries.remove(id) != null) {
+          hot.deleteById(id);
+        }
+      }
+      if (!runbookPaths.isEmpty()) {
+        Iterator<Map.Entry<String, HotEntry>> entries = hotEntries.entrySet().iterator();
+        while (entries.hasNext()) {
+          Map.Entry<String, HotEntry> entry = entries.next();
+          if (entry.getValue().sourceRunbookPaths().stream().anyMatch(runbookPaths::contains)) {
+            hot.deleteById(entry.getKey());
+            entries.remove();
+          }
+        }
+      }
+    } finally {
+      tierLock.unlock();
+    }
+  }
+
+  /** A hot chunk's source runbooks, and its retrieval count when it was queued for eviction. */
+  private record HotEntry(String id, List<String> sourceRunbookPaths, int retrievals) {}
+
+  /** One kind of search the tiers answer, and how to read its results. */
+  private interface Tier<T> {
+
+    List<List<T>> search(
+        VectorStoreRepository store, List<float[]> queries, int topK, VectorSearchFilter filter);
+
+    String id(T result);
+
+    double score(T result);
+
+    /**
+     * Returns the chunks, with their vectors where the remote store has them, behind the remote
+     * results of the given queries.
+     */
+    List<RunbookChunk> chunks(
+        List<float[]> queries, List<List<T>> results, int topK, VectorSearchFilter filter);
+  }
+
+  /** Full searches, whose remote results already carry the vectors promotion needs. */
+  private static final class ChunkTier implements Tier<ScoredChunk> {
+
+    @Override
+    public List<List<ScoredChunk>> search(
+        VectorStoreRepository store, List<float[]> queries, int topK, VectorSearchFilter filter) {
+      return store.searchBatch(queries, topK, filter);
+    }
+
+    @Override
+    public String id(ScoredChunk result) {
+      return result.chunk().id();
+    }
+
+    @Override
+    public double score(ScoredChunk result) {
+      return result.similarityScore();
+    }
+
+    @Override
+    public List<RunbookChunk> chunks(
+        List<float[]> queries,
+        List<List<ScoredChunk>> results,
+        int topK,
+        VectorSearchFilter filter) {
+      return results.stream().flatMap(List::stream).map(ScoredChunk::chunk).toList();
+    }
+  }
+
+  /** Embedding-free searches, which read vectors with a full search only to promote. */
+  private final class HitTier implements Tier<SearchHit> {
+
+    @Override
+    public List<List<SearchHit>> search(
+        VectorStoreRepository store, List<float[]> queries, int topK, VectorSearchFilter filter) {
+      return store.searchHitsBatch(queries, topK, filter);
+    }
+
+    @Override
+    public String id(SearchHit result) {
+      return result.id();
+    }
+
+    @Override
+    public double score(SearchHit result) {
+      return result.similarityScore();
+    }
+
+    @Override
+    public List<RunbookChunk> chunks(
+        List<float[]> queries, List<List<SearchHit>> results, int topK, VectorSearchFilter filter) {
+      return chunkTier.chunks(queries, remote.searchBatch(queries, topK, filter), topK, filter);
+    }
+  }
+}
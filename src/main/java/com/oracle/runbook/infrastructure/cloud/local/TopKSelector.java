@@ -0,0 +1,138 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+/**
+ * Bounded min-heap that retains the K highest-scoring rows seen during a scan.
+ *
+ * <p>Rows and scores are kept in parallel primitive arrays, so offering a candidate never
+ * allocates. The heap root always holds the weakest retained score, which lets most candidates be
+ * rejected with a single comparison once the heap is full.
+ *
+ * <p>Instances are not thread-safe; each scan uses its own selector.
+ */
+final class TopKSelector {
+
+  private final int[] rows;
+  private final float[] scores;
+  private int size;
+
+  /**
+   * Creates a selector that keeps at most {@code k} entries.
+   *
+   * @param k the maximum number of rows to retain
+   * @throws IllegalArgumentException if k is not positive
+   */
+  TopKSelector(int k) {
+    if (k <= 0) {
+      throw new IllegalArgumentException("k must be positive");
+    }
+    this.rows = new int[k];
+    this.scores = new float[k];
+  }
+
+  /**
+   * Offers a candidate row; it is retained only if it beats the weakest retained score.
+   *
+   * @param row the row index
+   * @param score the similarity score of the row
+   */
+  void offer(int row, float score) {
+    if (size < rows.length) {
+      rows[size] = row;
+      scores[size] = score;
+      siftUp(size++);
+    } else if (score > scores[0]) {
+      rows[0] = row;
+      scores[0] = score;
+      siftDown(0, size);
+    }
+  }
+
+  /**
+   * Offers every entry retained by another selector, merging a partial scan into this one.
+   *
+   * @param other the selector to merge; it is not modified
+   */
+  void offerAll(TopKSelector other) {
+    for (int i = 0; i < other.size; i++) {
+      offer(other.rows[i], other.scores[i]);
+    }
+  }
+
+  /**
+   * Returns the score a candidate must exceed to be retained.
+   *
+   * @return the weakest retained score when full, otherwise negative infinity
+   */
+  float threshold() {
+    return size < rows.length ? Float.NEGATIVE_INFINITY : scores[0];
+  }
+
+  /** Returns the number of retained rows. */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Sorts the retained entries in place so that index 0 holds the best score.
+   *
+   * <p>After this call the heap invariant no longer holds; use {@link #row(int)} and {@link
+   * #score(int)} to read the ordered results.
+   */
+  void sortDescending() {
+    // Heap sort on a min-heap moves the smallest remaining entry to the end on every pass,
+    // leaving the array ordered from best to worst.
+    for (int end = size - 1; end > 0; end--) {
+      swap(0, end);
+      siftDown(0, end);
+    }
+  }
+
+  /** Returns the row at the given position. */
+  int row(int index) {
+    return rows[index];
+  }
+
+  /** Returns the score at the given position. */
+  float score(int index) {
+    return scores[index];
+  }
+
+  private void siftUp(int index) {
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (scores[index] >= scores[parent]) {
+        return;
+      }
+      swap(index, parent);
+      index = parent;
+    }
+  }
+
+  private void siftDown(int index, int limit) {
+    while (true) {
+      int left = 2 * index + 1;
+      if (left >= limit) {
+        return;
+      }
+      int smallest = left;
+      int right = left + 1;
+      if (right < limit && scores[right] < scores[left]) {
+        smallest = right;
+      }
+      if (scores[index] <= scores[smallest]) {
+        return;
+      }
+      swap(index, smallest);
+      index = smallest;
+    }
+  }
+
+  private void swap(int a, int b) {
+    int row = rows[a];
+    rows[a] = rows[b];
+    rows[b] = row;
+    float score = scores[a];
+    scores[a] = scores[b];
+    scores[b] = score;
+  }
+}
@@ -0,0 +1,209 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link SimilarityKernel} built on the incubating Java Vector API ({@code jdk.incubator.vector}).
+ *
+ * <p>Processes {@link FloatVector#SPECIES_PREFERRED} lanes per step (8 on AVX2, 16 on AVX-512)
+ * with fused multiply-add and two independent accumulators, then finishes the tail with scalar
+ * code. Int8 dot products widen each byte into an int lane so products accumulate exactly, and
+ * 16-bit floats are widened to float lanes with integer shifts before the multiply-add. Only
+ * loaded through {@link SimilarityKernels} after the module has been found, so the rest of the
+ * store never links against the incubator classes directly.
+ */
+final class VectorApiSimilarityKernel implements SimilarityKernel {
+
+  private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+  private static final ValueLayout.OfFloat LITTLE_ENDIAN_FLOAT =
+      ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+
+  /** Byte species with one lane per int lane, so a B2I conversion fills exactly one int vector. */
+  private static final VectorSpecies<Byte> BYTE_SPECIES =
+      VectorSpecies.of(byte.class, VectorShape.forBitSize(INT_SPECIES.length() * Byte.SIZE));
+
+  /** Short species with one lane per int lane, so an S2I conversion fills one int vector. */
+  private static final VectorSpecies<Short> SHORT_SPECIES =
+      VectorSpecies.of(short.class, VectorShape.forBitSize(INT_SPECIES.length() * Short.SIZE));
+
+  /** Rescales a half-precision exponent (bias 15) moved into float32 position (bias 127). */
+  private static final float FLOAT16_EXPONENT_SCALE = 0x1p112f;
+
+  /** Creates the kernel; invoked reflectively by {@link SimilarityKernels}. */
+  VectorApiSimilarityKernel() {}
+
+  @Override
+  public String name() {
+    return "vector-api";
+  }
+
+  @Override
+  public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+    int lanes = SPECIES.length();
+    FloatVector acc0 = FloatVector.zero(SPECIES);
+    FloatVector acc1 = FloatVector.zero(SPECIES);
+    int i = 0;
+    for (int bound = length - 2 * lanes; i <= bound; i += 2 * lanes) {
+      acc0 =
+          FloatVector.fromArray(SPECIES, a, aOffset + i)
+              .fma(FloatVector.fromArray(SPECIES, b, bOffset + i), acc0);
+      acc1 =
+          FloatVector.fromArray(SPECIES, a, aOffset + i + lanes)
+              .fma(FloatVector.fromArray(SPECIES, b, bOffset + i + lanes), acc1);
+    }
+    for (int bound = SPECIES.loopBound(length); i < bound; i += lanes) {
+      acc0 =
+          FloatVector.fromArray(SPECIES, a, aOffset + i)
+              .fma(FloatVector.fromArray(SPECIES, b, bOffset + i), acc0);
+    }
+    float sum = acc0.add(acc1).reduceLanes(VectorOperators.ADD);
+    for (; i < length; i++) {
+      sum += a[aOffset + i] * b[bOffset + i];
+    }
+    return sum;
+  }
+
+  @Override
+  public float dot(float[] a, int aOffset, MemorySegment b, long bByteOffset, int length) {
+    int lanes = SPECIES.length();
+    FloatVector acc = FloatVector.zero(SPECIES);
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += lanes) {
+      FloatVector vb =
+          FloatVector.fromMemorySegment(
+              SPECIES, b, bByteOffset + (long) i * Float.BYTES, ByteOrder.LITTLE_ENDIAN);
+      acc = FloatVector.fromArray(SPECIES, a, aOffset + i).fma(vb, acc);
+    }
+    float sum = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < length; i++) {
+      sum += a[aOffset + i] * b.get(LITTLE_ENDIAN_FLOAT, bByteOffset + (long) i * Float.BYTES);
+    }
+    return sum;
+  }
+
+  @Override
+  public float cosine(float[] a, int aOffset, float[] b, int bOffset, int length) {
+    FloatVector dotAcc = FloatVector.zero(SPECIES);
+    FloatVector normAAcc = FloatVector.zero(SPECIES);
+    FloatVector normBAcc = FloatVector.zero(SPECIES);
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+      FloatVector vb = FloatVector.fromArray(SPECIES, b, bOffset + i);
+      dotAcc = va.fma(vb, dotAcc);
+      normAAcc = va.fma(va, normAAcc);
+      normBAcc = vb.fma(vb, normBAcc);
+    }
+    float dot = dotAcc.reduceLanes(VectorOperators.ADD);
+    float normA = normAAcc.reduceLanes(VectorOperators.ADD);
+    float normB = normBAcc.reduceLanes(VectorOperators.ADD);
+    for (; i < length; i++) {
+      float x = a[aOffset + i];
+      float y = b[bOffset + i];
+      dot += x * y;
+      normA += x * x;
+      normB += y * y;
+    }
+    return SimilarityKernels.cosineFromParts(dot, normA, normB);
+  }
+
+  @Override
+  public float squaredL2(float[] a, int aOffset, float[] b, int bOffset, int length) {
+    FloatVector acc = FloatVector.zero(SPECIES);
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      FloatVector diff =
+          FloatVector.fromArray(SPECIES, a, aOffset + i)
+              .sub(FloatVector.fromArray(SPECIES, b, bOffset + i));
+      acc = diff.fma(diff, acc);
+    }
+    float sum = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < length; i++) {
+      float d = a[aOffset + i] - b[bOffset + i];
+      sum += d * d;
+    }
+    return sum;
+  }
+
+  @Override
+  public int dotInt8(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+    IntVector acc = IntVector.zero(INT_SPECIES);
+    int i = 0;
+    for (int bound = BYTE_SPECIES.loopBound(length); i < bound; i += BYTE_SPECIES.length()) {
+      IntVector va =
+          (IntVector)
+              ByteVector.fromArray(BYTE_SPECIES, a, aOffset + i)
+                  .convertShape(VectorOperators.B2I, INT_SPECIES, 0);
+      IntVector vb =
+          (IntVector)
+              ByteVector.fromArray(BYTE_SPECIES, b, bOffset + i)
+                  .convertShape(VectorOperators.B2I, INT_SPECIES, 0);
+      acc = acc.add(va.mul(vb));
+    }
+    int sum = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < length; i++) {
+      sum += a[aOffset + i] * b[bOffset + i];
+    }
+    return sum;
+  }
+
+  @Override
+  public float dotFloat16(float[] a, int aOffset, short[] b, int bOffset, int length) {
+    FloatVector acc = FloatVector.zero(SPECIES);
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      IntVector bits = widen(b, bOffset + i);
+      // Exponent and mantissa shifted into float32 position and rebiased; this also turns
+      // half-precision subnormals into the right float32 values. The sign bit is moved separately.
+      FloatVector magnitude =
+          bits.and(0x7fff)
+              .lanewise(VectorOperators.LSHL, 13)
+              .reinterpretAsFloats()
+              .mul(FLOAT16_EXPONENT_SCALE);
+      FloatVector vb =
+          magnitude
+              .reinterpretAsInts()
+              .or(bits.and(0x8000).lanewise(VectorOperators.LSHL, 16))
+              .reinterpretAsFloats();
+      acc = FloatVector.fromArray(SPECIES, a, aOffset + i).fma(vb, acc);
+    }
+    float sum = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < length; i++) {
+      sum += a[aOffset + i] * Float.float16ToFloat(b[bOffset + i]);
+    }
+    return sum;
+  }
+
+  @Override
+  public float dotBFloat16(float[] a, int aOffset, short[] b, int bOffset, int length) {
+    FloatVector acc = FloatVector.zero(SPECIES);
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      FloatVector vb =
+          widen(b, bOffset + i).lanewise(VectorOperators.LSHL, 16).reinterpretAsFloats();
+      acc = FloatVector.fromArray(SPECIES, a, aOffset + i).fma(vb, acc);
+    }
+    float sum = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < length; i++) {
+      sum += a[aOffset + i] * Float.intBitsToFloat(b[bOffset + i] << 16);
+    }
+    return sum;
+  }
+
+  /** Loads one int vector worth of 16-bit values, sign-extended into int lanes. */
+  private static IntVector widen(short[] b, int offset) {
+    return (IntVector)
+        ShortVector.fromArray(SHORT_SPECIES, b, offset)
+            .convertShape(VectorOperators.S2I, INT_SPECIES, 0);
+  }
+}
@@ -0,0 +1,50 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.util.Locale;
+
+/** How {@link InMemoryVectorStoreRepository} encodes stored embeddings for scanning. */
+public enum VectorEncoding {
+  /** Full-precision 32-bit floats; scan scores are exact. */
+  FLOAT32,
+
+  /**
+   * Signed 8-bit codes with a per-vector scale and offset; scans score in the integer domain and
+   * the best candidates are re-ranked against full-precision vectors.
+   */
+  INT8,
+
+  /**
+   * IEEE 754 half-precision floats (5-bit exponent, 10-bit mantissa) at half the memory of {@link
+   * #FLOAT32}; the kernel widens each component while scoring, and scores are not re-ranked.
+   */
+  FLOAT16,
+
+  /**
+   * Brain floating point (8-bit exponent, 7-bit mantissa): the upper half of a float32, so it
+   * widens with a shift. Same size as {@link #FLOAT16}, with less precision but float32's range.
+   */
+  BFLOAT16;
+
+  /** Returns whether vectors are kept as 16-bit floats. */
+  boolean isHalfPrecision() {
+    return this == FLOAT16 || this == BFLOAT16;
+  }
+
+  /**
+   * Parses an encoding name. Case-insensitive matching.
+   *
+   * @param encoding the encoding name (e.g., "float32", "INT8")
+   * @return the matching VectorEncoding value
+   * @throws IllegalArgumentException if the name is null or does not match any known value
+   */
+  public static VectorEncoding fromString(String encoding) {
+    if (encoding == null) {
+      throw new IllegalArgumentException("Encoding cannot be null");
+    }
+    try {
+      return valueOf(encoding.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown vector encoding: " + encoding, e);
+    }
+  }
+}
@@ -0,0 +1,323 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.ChunkVisitor;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Binary stream of a whole vector index, used to copy the index from one store into another
+ * without embedding the runbooks again, for example to bootstrap a new replica from a healthy
+ * peer or from a file.
+ *
+ * <p>Layout (big-endian, as written by {@link DataOutputStream}):
+ *
+ * <pre>
+ *   int   magic 0x52425658 ("RBVX")
+ *   int   version (3)
+ *   int   dimension (0 when the index is empty)
+ *   frames, each:
+ *     int   chunks in the frame (1 to 256)
+ *     per chunk: dimension floats, then metadata as in {@link RunbookChunkCodec#writeMetadata}
+ *   int   0, ending the frames
+ *   int   chunk count
+ *   long  generation id
+ * </pre>
+ *
+ * <p>The generation id identifies the exported contents: it is a 64-bit hash of every chunk's
+ * fields and embedding that does not depend on chunk order, so two stores holding the same chunks
+ * export the same id. The writer sums it up row by row and sends it, with the chunk count, after
+ * the last frame, so an export is streamed from {@link
+ * VectorStoreRepository#exportChunks(ChunkVisitor)} one frame at a time and never held in memory
+ * whole. A reader recomputes the id and rejects a stream whose chunks do not match, so a stream
+ * cut short or corrupted on the way is never applied. Version 2 streams, which carried the
+ * generation id and chunk count in the header, remain readable.
+ *
+ * <p>The format is independent of the store kind: {@link #importInto(InputStream,
+ * VectorStoreRepository)} loads it into any {@link VectorStoreRepository}.
+ */
+public final class VectorIndexStream {
+
+  /** Media type of the stream when served over HTTP. */
+  public static final String MEDIA_TYPE = "application/octet-stream";
+
+  static final int MAGIC = 0x52425658;
+  static final int VERSION = 3;
+  static final int MIN_VERSION = 2;
+  static final int FRAME_CHUNKS = 256;
+
+  private static final int BUFFER_BYTES = 64 * 1024;
+
+  private VectorIndexStream() {}
+
+  /**
+   * Summary of an imported stream.
+   *
+   * @param generation the generation id of the imported contents
+   * @param chunkCount the number of chunks imported
+   * @param runbookCount the number of distinct source runbook paths among them
+   */
+  public record ImportSummary(long generation, int chunkCount, int runbookCount) {}
+
+  /**
+   * Exports a store's chunks as a stream, one frame at a time as the store visits them.
+   *
+   * <p>Nothing is written to {@code out} until the first frame is complete, so a store that cannot
+   * export fails before the destination sees a byte.
+   *
+   * @param store the store to export
+   * @param out the destination; flushed but not closed
+   * @return the generation id of the exported contents
+   * @throws IOException if writing fails
+   * @throws UnsupportedOperationException if the store cannot export its chunks
+   * @throws IllegalArgumentException if the embeddings are empty or differ in dimension
+   */
+  public static long export(VectorStoreRepository store, OutputStream out) throws IOException {
+    Objects.requireNonNull(store, "store cannot be null");
+    FrameWriter writer = new FrameWriter(out);
+    store.exportChunks(writer::write);
+    return writer.finish();
+  }
+
+  /**
+   * Writes chunks as a stream.
+   *
+   * @param chunks the chunks, all with embeddings of one dimension
+   * @param out the destination; flushed but not closed
+   * @return the generation id of the chunks
+   * @throws IOException if writing fails
+   * @throws IllegalArgumentException if the embeddings are empty or differ in dimension
+   */
+  public static long write(List<RunbookChunk> chunks, OutputStream out) throws IOException {
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    FrameWriter writer = new FrameWriter(out);
+    float[] buffer = new float[0];
+    for (RunbookChunk chunk : chunks) {
+      if (buffer.length != chunk.embeddingLength()) {
+        buffer = new float[chunk.embeddingLength()];
+      }
+      chunk.copyEmbeddingTo(buffer);
+      writer.write(chunk, buffer);
+    }
+    return writer.finish();
+  }
+
+  /**
+   * Reads a whole stream and replaces the contents of a store with it in one {@link
+   * VectorStoreRepository#replaceRunbooks(List, List) swap}: every runbook the store currently
+   * reports and every runbook in the stream is replaced, so the store ends up holding the streamed
+   * chunks. Nothing is applied unless the complete stream has been read and verified.
+   *
+   * @param in the source; read to the end of the stream but not closed
+   * @param store the store to load
+   * @return a summary of the imported contents
+   * @throws IOException if reading fails, the stream is malformed, or its chunks do not match its
+   *     generation id
+   */
+  public static ImportSummary importInto(InputStream in, VectorStoreRepository store)
+      throws IOException {
+    Objects.requireNonNull(store, "store cannot be null");
+    List<RunbookChunk> chunks = new ArrayList<>();
+    long generation = read(in, chunks);
+
+    TreeSet<String> streamed = new TreeSet<>();
+    for (RunbookChunk chunk : chunks) {
+      streamed.addAll(chunk.sourceRunbookPaths());
+    }
+    TreeSet<String> replaced = new TreeSet<>(store.stats().chunksPerRunbook().keySet());
+    replaced.addAll(streamed);
+    store.replaceRunbooks(List.copyOf(replaced), chunks);
+    return new ImportSummary(generation, chunks.size(), streamed.size());
+  }
+
+  /**
+   * Reads a whole stream.
+   *
+   * @param in the source; read to the end of the stream but not closed
+   * @param chunks receives the decoded chunks
+   * @return the generation id of the stream
+   * @throws IOException if reading fails, the stream is malformed, or its chunks do not match its
+   *     generation id
+   */
+  static long read(InputStream in, List<RunbookChunk> chunks) throws IOException {
+    Objects.requireNonNull(in, "in cannot be null");
+    DataInputStream data = new DataInputStream(new BufferedInputStream(in, BUFFER_BYTES));
+    if (data.readInt() != MAGIC) {
+      throw new IOException("Not a vector index stream");
+    }
+    int version = data.readInt();
+    if (version < MIN_VERSION || version > VERSION) {
+      throw new IOException("Unsupported vector index stream version: " + version);
+    }
+    long generation = 0L;
+    int count = Integer.MAX_VALUE;
+    if (version < 3) {
+      generation = data.readLong();
+      count = data.readInt();
+    }
+    int dimension = data.readInt();
+    if (count < 0 || dimension < 0) {
+      throw new IOException(
+          "Malformed vector index stream header: " + count + " chunks of dimension " + dimension);
+    }
+
+    // Not presized from the header, which may be corrupt
+    List<RunbookChunk> read = new ArrayList<>();
+    long computed = 0L;
+    int frame;
+    while ((frame = data.readInt()) != 0) {
+      if (frame < 0 || frame > FRAME_CHUNKS || read.size() + frame > count || dimension == 0) {
+        throw new IOException("Malformed vector index stream frame of " + frame + " chunks");
+      }
+      for (int i = 0; i < frame; i++) {
+        float[] embedding = new float[dimension];
+        for (int c = 0; c < dimension; c++) {
+          embedding[c] = data.readFloat();
+        }
+        RunbookChunk chunk = RunbookChunkCodec.readMetadata(data, embedding, true);
+        computed += hashOf(chunk, embedding);
+        read.add(chunk);
+      }
+    }
+    if (version >= 3) {
+      count = data.readInt();
+      generation = data.readLong();
+    }
+    if (read.size() != count) {
+      throw new IOException(
+          "Vector index stream ended after " + read.size() + " of " + count + " chunks");
+    }
+    if (computed != generation) {
+      throw new IOException("Vector index stream does not match its generation id");
+    }
+    chunks.addAll(read);
+    return generation;
+  }
+
+  /**
+   * Returns the generation id of a set of chunks, independent of their order.
+   *
+   * @param chunks the chunks
+   * @return the generation id
+   */
+  public static long generationOf(List<RunbookChunk> chunks) {
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    long generation = 0L;
+    for (RunbookChunk chunk : chunks) {
+      // Summed, so the id does not depend on the order the store returns its chunks in
+      generation += hashOf(chunk, chunk.embedding());
+    }
+    return generation;
+  }
+
+  /** Returns one chunk's share of a generation id; {@code embedding} is the chunk's embedding. */
+  private static long hashOf(RunbookChunk chunk, float[] embedding) {
+    long hash = mix(Objects.hashCode(chunk.id()));
+    hash = mix(hash + Objects.hashCode(chunk.runbookPath()));
+    hash = mix(hash + Objects.hashCode(chunk.sectionTitle()));
+    hash = mix(hash + chunk.content().hashCode());
+    hash = mix(hash + chunk.tags().hashCode());
+    hash = mix(hash + chunk.applicableShapes().hashCode());
+    hash = mix(hash + Arrays.hashCode(embedding));
+    if (chunk.sourceRunbookPaths().size() > 1) {
+      // Only shared chunks hash their sources, so single-runbook ids are unchanged
+      hash = mix(hash + chunk.sourceRunbookPaths().hashCode());
+    }
+    return hash;
+  }
+
+  /** SplitMix64 finalizer. */
+  private static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+    value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+    return value ^ (value >>> 31);
+  }
+
+  /**
+   * Writes a stream row by row. Rows are collected into a frame and the frame is written once
+   * full, behind the header on the first one, so at most one frame is buffered and nothing reaches
+   * the destination before the first frame or {@link #finish()}.
+   */
+  private static final class FrameWriter {
+
+    private final DataOutputStream data;
+    private final ByteArrayOutputStream frameBytes = new ByteArrayOutputStream(BUFFER_BYTES);
+    private final DataOutputStream frame = new DataOutputStream(frameBytes);
+    private int frameChunks;
+    private int dimension;
+    private int count;
+    private long generation;
+    private boolean headerWritten;
+
+    FrameWriter(OutputStream out) {
+      Objects.requireNonNull(out, "out cannot be null");
+      this.data = new DataOutputStream(new BufferedOutputStream(out, BUFFER_BYTES));
+    }
+
+    void write(RunbookChunk chunk, float[] embedding) throws IOException {
+      if (count == 0) {
+        dimension = embedding.length;
+      }
+      if (embedding.length == 0 || embedding.length != dimension) {
+        throw new IllegalArgumentException(
+            "Chunk "
+                + chunk.id()
+                + " has "
+                + embedding.length
+                + " embedding components, expected "
+                + dimension);
+      }
+      for (float value : embedding) {
+        frame.writeFloat(value);
+      }
+      RunbookChunkCodec.writeMetadata(frame, chunk);
+      generation += hashOf(chunk, embedding);
+      count++;
+      if (++frameChunks == FRAME_CHUNKS) {
+        writeFrame();
+      }
+    }
+
+    long finish() throws IOException {
+      writeFrame();
+      writeHeader();
+      data.writeInt(0);
+      data.writeInt(count);
+      data.writeLong(generation);
+      data.flush();
+      return generation;
+    }
+
+    private void writeFrame() throws IOException {
+      if (frameChunks == 0) {
+        return;
+      }
+      writeHeader();
+      data.writeInt(frameChunks);
+      frameBytes.writeTo(data);
+      frameBytes.reset();
+      frameChunks = 0;
+    }
+
+    private void writeHeader() throws IOException {
+      if (!headerWritten) {
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(dimension);
+        headerWritten = true;
+      }
+    }
+  }
+}
@@ -0,0 +1,481 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Linear map from full-dimension embeddings to the reduced vectors scanned by {@link
+ * InMemoryVectorStoreRepository}; see {@link ProjectionConfig}.
+ *
+ * <p>A truncation keeps the leading components. A PCA projection multiplies by a basis of the
+ * leading eigenvectors of the stored vectors' second-moment matrix. The matrix is not centered, as
+ * the projection has to preserve dot products rather than distances from the mean. Projected
+ * vectors are re-normalized, so reduced scores are cosine similarities as well.
+ *
+ * <p>The basis is found by randomized subspace iteration on the {@code dimension x dimension}
+ * moment matrix of at most {@value #SAMPLE_ROWS} evenly spaced rows, followed by an exact Jacobi
+ * eigendecomposition of the small projected matrix. A fit is deterministic for a given sample.
+ *
+ * <p>A PCA basis is persisted next to the store's snapshot in a small file of its own:
+ *
+ * <pre>
+ * offset  size  field
+ * 0       4     magic "RBVP" (0x52425650)
+ * 4       4     format version
+ * 8       4     source dimension
+ * 12      4     target dimension
+ * 16      ...   basis: target rows of source big-endian float32 components
+ * </pre>
+ *
+ * <p>Instances are immutable.
+ */
+final class VectorProjection {
+
+  /** File magic, "RBVP" in ASCII. */
+  static final int MAGIC = 0x52425650;
+
+  /** Current format version. */
+  static final int VERSION = 1;
+
+  /** Maximum number of rows the moment matrix of a PCA fit is computed from. */
+  static final int SAMPLE_ROWS = 4096;
+
+  /** Extra directions iterated beyond the target dimension, for a more accurate subspace. */
+  private static final int OVERSAMPLING = 8;
+
+  /** Rounds of subspace iteration before the Rayleigh-Ritz step. */
+  private static final int POWER_ITERATIONS = 4;
+
+  private static final int MAX_JACOBI_SWEEPS = 64;
+  private static final long SEED = 42L;
+
+  private final ProjectionMethod method;
+  private final int sourceDimension;
+  private final int targetDimension;
+  private final SimilarityKernel kernel;
+
+  /** Row-major {@code targetDimension x sourceDimension} basis, or null for a truncation. */
+  private final float[] basis;
+
+  private VectorProjection(
+      ProjectionMethod method,
+      int sourceDimension,
+      int targetDimension,
+      SimilarityKernel kernel,
+      float[] basis) {
+    if (targetDimension <= 0 || targetDimension >= sourceDimension) {
+      throw new IllegalArgumentException(
+          "target dimension must be between 1 and " + (sourceDimension - 1));
+    }
+    this.method = method;
+    this.sourceDimension = sourceDimension;
+    this.targetDimension = targetDimension;
+    this.kernel = kernel;
+    this.basis = basis;
+  }
+
+  /**
+   * Creates a projection keeping the leading components of each vector.
+   *
+   * @param sourceDimension the dimension of the full vectors
+   * @param targetDimension the number of components kept
+   * @param kernel the kernel used for dot products
+   * @return the truncation
+   * @throws IllegalArgumentException if the target is not smaller than the source dimension
+   */
+  static VectorProjection truncation(
+      int sourceDimension, int targetDimension, SimilarityKernel kernel) {
+    return new VectorProjection(
+        ProjectionMethod.TRUNCATE, sourceDimension, targetDimension, kernel, null);
+  }
+
+  /**
+   * Copies at most {@value #SAMPLE_ROWS} evenly spaced rows of a storage.
+   *
+   * @param vectors the stored vectors
+   * @return the packed rows
+   */
+  static float[] sample(VectorStorage vectors) {
+    int dimension = vectors.dimension();
+    int count = Math.min(vectors.size(), SAMPLE_ROWS);
+    float[] sample = new float[count * dimension];
+    float[] row = new float[dimension];
+    for (int i = 0; i < count; i++) {
+      vectors.read((int) ((long) i * vectors.size() / count), row);
+      System.arraycopy(row, 0, sample, i * dimension, dimension);
+    }
+    return sample;
+  }
+
+  /**
+   * Fits a PCA projection to packed vectors.
+   *
+   * @param data the packed, normalized vectors
+   * @param count the number of vectors in {@code data}
+   * @param sourceDimension the number of components per vector
+   * @param targetDimension the number of principal directions kept
+   * @param kernel the kernel used for dot products
+   * @return the fitted projection
+   * @throws IllegalArgumentException if the target is not smaller than the source dimension, or
+   *     count is not positive
+   */
+  static VectorProjection fitPca(
+      float[] data,
+      int count,
+      int sourceDimension,
+      int targetDimension,
+      SimilarityKernel kernel) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("count must be positive");
+    }
+    if (targetDimension <= 0 || targetDimension >= sourceDimension) {
+      throw new IllegalArgumentException(
+          "target dimension must be between 1 and " + (sourceDimension - 1));
+    }
+    int d = sourceDimension;
+    double[] moments = moments(data, count, d);
+    int width = Math.min(d, targetDimension + OVERSAMPLING);
+    Random random = new Random(SEED);
+
+    // Column j of the subspace occupies subspace[j * d .. (j + 1) * d)
+    double[] subspace = new double[width * d];
+    for (int i = 0; i < subspace.length; i++) {
+      subspace[i] = random.nextGaussian();
+    }
+    orthonormalize(subspace, width, d, random);
+    for (int iteration = 0; iteration < POWER_ITERATIONS; iteration++) {
+      subspace = multiply(moments, subspace, width, d);
+      orthonormalize(subspace, width, d, random);
+    }
+
+    // Rayleigh-Ritz: diagonalize the moment matrix restricted to the subspace
+    double[] image = multiply(moments, subspace, width, d);
+    double[] reduced = new double[width * width];
+    for (int i = 0; i < width; i++) {
+      for (int j = i; j < width; j++) {
+        double dot = 0.0;
+        for (int k = 0; k < d; k++) {
+          dot += subspace[i * d + k] * image[j * d + k];
+        }
+        reduced[i * width + j] = dot;
+        reduced[j * width + i] = dot;
+      }
+    }
+    double[] eigenvectors = new double[width * width];
+    double[] eigenvalues = jacobi(reduced, width, eigenvectors);
+    Integer[] order = new Integer[width];
+    for (int i = 0; i < width; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(eigenvalues[b], eigenvalues[a]));
+
+    float[] basis = new float[targetDimension * d];
+    double[] direction = new double[d];
+    for (int t = 0; t < targetDimension; t++) {
+      Arrays.fill(direction, 0.0);
+      int column = order[t];
+      for (int j = 0; j < width; j++) {
+        double weight = eigenvectors[j * width + column];
+        for (int k = 0; k < d; k++) {
+          direction[k] += weight * subspace[j * d + k];
+        }
+      }
+      for (int k = 0; k < d; k++) {
+        basis[t * d + k] = (float) direction[k];
+      }
+    }
+    return new VectorProjection(ProjectionMethod.PCA, d, targetDimension, kernel, basis);
+  }
+
+  /** Returns how vectors are reduced, {@link ProjectionMethod#TRUNCATE} or PCA. */
+  ProjectionMethod method() {
+    return method;
+  }
+
+  /** Returns the dimension of the full vectors. */
+  int sourceDimension() {
+    return sourceDimension;
+  }
+
+  /** Returns the dimension of the reduced vectors. */
+  int targetDimension() {
+    return targetDimension;
+  }
+
+  /**
+   * Reduces a vector.
+   *
+   * @param vector a full-dimension vector
+   * @return a new, normalized vector of {@link #targetDimension()} components
+   */
+  float[] project(float[] vector) {
+    float[] reduced;
+    if (basis == null) {
+      reduced = Arrays.copyOf(vector, targetDimension);
+    } else {
+      reduced = new float[targetDimension];
+      for (int t = 0; t < targetDimension; t++) {
+        reduced[t] = kernel.dot(basis, t * sourceDimension, vector, 0, sourceDimension);
+      }
+    }
+    return FloatVectorMatrix.normalizeInPlace(reduced);
+  }
+
+  /**
+   * Returns the bytes held by the basis.
+   *
+   * @return the heap footprint of the basis, 0 for a truncation
+   */
+  long heapBytes() {
+    return basis == null ? 0L : (long) basis.length * Float.BYTES;
+  }
+
+  /**
+   * Atomically writes a PCA basis to a file.
+   *
+   * @param path the file to create or replace
+   * @throws IOException if the file cannot be written
+   * @throws IllegalStateException if this projection is a truncation
+   */
+  void write(Path path) throws IOException {
+    if (basis == null) {
+      throw new IllegalStateException("Only a fitted projection can be written");
+    }
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel =
+        FileChannel.open(
+            temp,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      OutputStream stream = Channels.newOutputStream(channel);
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(sourceDimension);
+      out.writeInt(targetDimension);
+      for (float value : basis) {
+        out.writeFloat(value);
+      }
+      out.flush();
+      channel.force(true);
+    }
+
+    try {
+      Files.move(
+          temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Reads a PCA basis written by {@link #write(Path)}.
+   *
+   * @param path the file to read
+   * @param kernel the kernel used for dot products
+   * @return the projection
+   * @throws IOException if the file cannot be read or is not a valid projection
+   */
+  static VectorProjection read(Path path, SimilarityKernel kernel) throws IOException {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException(path + " is not a vector projection");
+      }
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported vector projection version " + version + " in " + path);
+      }
+      int source = in.readInt();
+      int target = in.readInt();
+      if (source <= 0 || target <= 0 || target >= source) {
+        throw new IOException("Vector projection " + path + " has an inconsistent header");
+      }
+      float[] basis = new float[Math.multiplyExact(source, target)];
+      for (int i = 0; i < basis.length; i++) {
+        basis[i] = in.readFloat();
+      }
+      if (in.read() != -1) {
+        throw new IOException("Vector projection " + path + " has trailing bytes");
+      }
+      return new VectorProjection(ProjectionMethod.PCA, source, target, kernel, basis);
+    }
+  }
+
+  /** Returns the upper and lower triangle of the {@code d x d} second-moment matrix. */
+  private static double[] moments(float[] data, int count, int d) {
+    double[] moments = new double[d * d];
+    for (int n = 0; n < count; n++) {
+      int offset = n * d;
+      for (int i = 0; i < d; i++) {
+        double xi = data[offset + i];
+        if (xi == 0.0) {
+          continue;
+        }
+        int base = i * d;
+        for (int j = i; j < d; j++) {
+          moments[base + j] += xi * data[offset + j];
+        }
+      }
+    }
+    for (int i = 0; i < d; i++) {
+      for (int j = i + 1; j < d; j++) {
+        moments[j * d + i] = moments[i * d + j];
+      }
+    }
+    return moments;
+  }
+
+  /** Multiplies the symmetric {@code d x d} matrix by each column of a subspace. */
+  private static double[] multiply(double[] matrix, double[] columns, int width, int d) {
+    double[] result = new double[width * d];
+    for (int j = 0; j < width; j++) {
+      int column = j * d;
+      for (int i = 0; i < d; i++) {
+        int row = i * d;
+        double dot = 0.0;
+        for (int k = 0; k < d; k++) {
+          dot += matrix[row + k] * columns[column + k];
+        }
+        result[column + i] = dot;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Orthonormalizes columns in place with twice-repeated modified Gram-Schmidt; a column that
+   * collapses, because the sample spans fewer directions than the subspace, is replaced by a random
+   * direction orthogonal to the others.
+   */
+  private static void orthonormalize(double[] columns, int width, int d, Random random) {
+    for (int j = 0; j < width; j++) {
+      int column = j * d;
+      for (int attempt = 0; ; attempt++) {
+        double before = norm(columns, column, d);
+        for (int pass = 0; pass < 2; pass++) {
+          for (int p = 0; p < j; p++) {
+            int previous = p * d;
+            double dot = 0.0;
+            for (int k = 0; k < d; k++) {
+              dot += columns[previous + k] * columns[column + k];
+            }
+            for (int k = 0; k < d; k++) {
+              columns[column + k] -= dot * columns[previous + k];
+            }
+          }
+        }
+        double after = norm(columns, column, d);
+        if (after > 1e-9 * before && after > 0.0) {
+          for (int k = 0; k < d; k++) {
+            columns[column + k] /= after;
+          }
+          break;
+        }
+        if (attempt == 8) {
+          throw new IllegalStateException("Cannot orthonormalize projection subspace");
+        }
+        for (int k = 0; k < d; k++) {
+          columns[column + k] = random.nextGaussian();
+        }
+      }
+    }
+  }
+
+  private static double norm(double[] values, int offset, int length) {
+    double sum = 0.0;
+    for (int k = 0; k < length; k++) {
+      sum += values[offset + k] * values[offset + k];
+    }
+    return Math.sqrt(sum);
+  }
+
+  /**
+   * Diagonalizes a symmetric matrix with cyclic Jacobi rotations.
+   *
+   * @param matrix the row-major {@code n x n} matrix; destroyed
+   * @param n the matrix size
+   * @param eigenvectors receives the eigenvectors as columns of a row-major {@code n x n} matrix
+   * @return the eigenvalues, in the order of the eigenvector columns
+   */
+  private static double[] jacobi(double[] matrix, int n, double[] eigenvectors) {
+    Arrays.fill(eigenvectors, 0.0);
+    for (int i = 0; i < n; i++) {
+      eigenvectors[i * n + i] = 1.0;
+    }
+    double total = 0.0;
+    for (double value : matrix) {
+      total += value * value;
+    }
+    for (int sweep = 0; sweep < MAX_JACOBI_SWEEPS; sweep++) {
+      double off = 0.0;
+      for (int p = 0; p < n; p++) {
+        for (int q = p + 1; q < n; q++) {
+          off += matrix[p * n + q] * matrix[p * n + q];
+        }
+      }
+      if (off <= 1e-22 * total) {
+        break;
+      }
+      for (int p = 0; p < n; p++) {
+        for (int q = p + 1; q < n; q++) {
+          double apq = matrix[p * n + q];
+          if (Math.abs(apq) <= 1e-300) {
+            continue;
+          }
+          double theta = (matrix[q * n + q] - matrix[p * n + p]) / (2.0 * apq);
+          double t = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1.0));
+          if (theta == 0.0) {
+            t = 1.0;
+          }
+          double c = 1.0 / Math.sqrt(t * t + 1.0);
+          double s = t * c;
+          rotateColumns(matrix, n, p, q, c, s);
+          rotateRows(matrix, n, p, q, c, s);
+          rotateColumns(eigenvectors, n, p, q, c, s);
+        }
+      }
+    }
+    double[] eigenvalues = new double[n];
+    for (int i = 0; i < n; i++) {
+      eigenvalues[i] = matrix[i * n + i];
+    }
+    return eigenvalues;
+  }
+
+  private static void rotateColumns(double[] matrix, int n, int p, int q, double c, double s) {
+    for (int k = 0; k < n; k++) {
+      double kp = matrix[k * n + p];
+      double kq = matrix[k * n + q];
+      matrix[k * n + p] = c * kp - s * kq;
+      matrix[k * n + q] = s * kp + c * kq;
+    }
+  }
+
+  private static void rotateRows(double[] matrix, int n, int p, int q, double c, double s) {
+    for (int k = 0; k < n; k++) {
+      double pk = matrix[p * n + k];
+      double qk = matrix[q * n + k];
+      matrix[p * n + k] = c * pk - s * qk;
+      matrix[q * n + k] = s * pk + c * qk;
+    }
+  }
+}
@@ -0,0 +1,391 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Versioned binary snapshot of a local vector store: normalized vectors, chunk metadata and
+ * content, and runbook title embeddings.
+ *
+ * <p>Layout (version 4):
+ *
+ * <pre>
+ * offset  size  field
+ * 0       4     magic "RBVS" (0x52425653)
+ * 4       4     format version
+ * 8       4     vector dimension
+ * 12      4     row count
+ * 16      8     vector section offset (64)
+ * 24      8     metadata section offset
+ * 32      8     metadata section length
+ * 40      8     log sequence number covered by the snapshot (0 if none)
+ * 48      4     vector component type: 0 float32, 1 float16, 2 bfloat16
+ * 52      8     title section length
+ * 60      4     reserved, zero
+ * 64      ...   vectors: row-major little-endian components, count * dimension
+ * ...     ...   metadata: one {@link RunbookChunkCodec#writeMetadata} record per row
+ * ...     ...   titles: a count, then per runbook its path and normalized float32 title embedding
+ * </pre>
+ *
+ * <p>Version 1 files, whose component type field was still reserved, hold float32 vectors and
+ * remain readable. Version 1 and 2 metadata records predate shared chunks and carry no source
+ * runbooks beyond the runbook path. Files before version 4 end after the metadata and restore
+ * without titles. A half-precision store writes its 16-bit vectors as they are,
+ * so its snapshot is half the size and maps straight back into a half-precision scan.
+ *
+ * <p>Header and metadata are big-endian; vectors are little-endian so they can be scored in place
+ * from a mapping with {@link SimilarityKernel#dot(float[], int, MemorySegment, long, int)}. Files
+ * are written to a temporary sibling, forced to disk and atomically renamed, so a reader sees
+ * either the previous snapshot or the complete new one. {@link #open} maps the file and only
+ * decodes the metadata; vectors are never copied onto the heap.
+ */
+final class VectorSnapshotFile {
+
+  /** File magic, "RBVS" in ASCII. */
+  static final int MAGIC = 0x52425653;
+
+  /** Current format version. */
+  static final int VERSION = 4;
+
+  /** Oldest format version that can still be opened. */
+  static final int MIN_VERSION = 1;
+
+  /** Size of the fixed header; the vector section starts here. */
+  static final int HEADER_BYTES = 64;
+
+  private static final ValueLayout.OfInt HEADER_INT =
+      ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+  private static final ValueLayout.OfLong HEADER_LONG =
+      ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+  private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+  private final int dimension;
+  private final long sequence;
+  private final VectorEncoding encoding;
+  private final MappedVectorStorage vectors;
+  private final RunbookChunk[] chunks;
+  private final Map<String, float[]> titles;
+
+  private VectorSnapshotFile(
+      int dimension,
+      long sequence,
+      VectorEncoding encoding,
+      MappedVectorStorage vectors,
+      RunbookChunk[] chunks,
+      Map<String, float[]> titles) {
+    this.dimension = dimension;
+    this.sequence = sequence;
+    this.encoding = encoding;
+    this.vectors = vectors;
+    this.chunks = chunks;
+    this.titles = titles;
+  }
+
+  /** Returns the vector dimension. */
+  int dimension() {
+    return dimension;
+  }
+
+  /** Returns the last write-ahead log sequence number reflected in the snapshot, or 0. */
+  long sequence() {
+    return sequence;
+  }
+
+  /** Returns the type of the stored vector components. */
+  VectorEncoding encoding() {
+    return encoding;
+  }
+
+  /** Returns the mapped vectors; row {@code i} belongs to {@code chunks()[i]}. */
+  MappedVectorStorage vectors() {
+    return vectors;
+  }
+
+  /** Returns the decoded chunks, without embeddings. */
+  RunbookChunk[] chunks() {
+    return chunks;
+  }
+
+  /** Returns the normalized title embeddings by runbook path, empty for files before version 4. */
+  Map<String, float[]> titles() {
+    return titles;
+  }
+
+  /**
+   * Atomically writes a snapshot with float32 vectors.
+   *
+   * @param path the snapshot file to create or replace
+   * @param vectors the normalized vectors; rows {@code 0 .. count} are written
+   * @param chunks the chunk for each row
+   * @param count the number of rows to write
+   * @param sequence the last write-ahead log sequence number the snapshot reflects, or 0
+   * @throws IOException if the snapshot cannot be written
+   */
+  static void write(
+      Path path, VectorStorage vectors, RunbookChunk[] chunks, int count, long sequence)
+      throws IOException {
+    write(path, vectors, chunks, count, sequence, VectorEncoding.FLOAT32, Map.of());
+  }
+
+  /**
+   * Atomically writes a snapshot.
+   *
+   * @param path the snapshot file to create or replace
+   * @param vectors the normalized vectors; rows {@code 0 .. count} are written
+   * @param chunks the chunk for each row
+   * @param count the number of rows to write
+   * @param sequence the last write-ahead log sequence number the snapshot reflects, or 0
+   * @param encoding the component type to write, {@link VectorEncoding#FLOAT32} or a
+   *     half-precision encoding
+   * @param titles the normalized title embeddings to keep, by runbook path
+   * @throws IOException if the snapshot cannot be written
+   * @throws IllegalArgumentException if the encoding is {@link VectorEncoding#INT8}
+   */
+  static void write(
+      Path path,
+      VectorStorage vectors,
+      RunbookChunk[] chunks,
+      int count,
+      long sequence,
+      VectorEncoding encoding,
+      Map<String, float[]> titles)
+      throws IOException {
+    int componentType = componentType(encoding);
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+    int dimension = vectors.dimension();
+
+    try (FileChannel channel =
+        FileChannel.open(
+            temp,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      channel.position(HEADER_BYTES);
+      writeVectors(channel, vectors, count, encoding);
+
+      long metadataOffset = channel.position();
+      DataOutputStream out =
+          new DataOutputStream(
+              new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_BYTES));
+      for (int row = 0; row < count; row++) {
+        RunbookChunkCodec.writeMetadata(out, chunks[row]);
+      }
+      out.flush();
+      long metadataLength = channel.position() - metadataOffset;
+
+      out.writeInt(titles.size());
+      for (Map.Entry<String, float[]> title : titles.entrySet()) {
+        RunbookChunkCodec.writeString(out, title.getKey());
+        RunbookChunkCodec.writeEmbedding(out, title.getValue());
+      }
+      out.flush();
+      long titlesLength = channel.position() - metadataOffset - metadataLength;
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+      header.putInt(MAGIC).putInt(VERSION).putInt(dimension).putInt(count);
+      header.putLong(HEADER_BYTES).putLong(metadataOffset).putLong(metadataLength);
+      header.putLong(sequence).putInt(componentType).putLong(titlesLength);
+      header.clear();
+      while (header.hasRemaining()) {
+        channel.write(header, header.position());
+      }
+      channel.force(true);
+    }
+
+    try {
+      Files.move(
+          temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Maps a snapshot and decodes its metadata.
+   *
+   * @param path the snapshot file
+   * @param kernel the kernel used to score the mapped vectors
+   * @return the opened snapshot
+   * @throws IOException if the file cannot be read or is not a valid snapshot
+   */
+  static VectorSnapshotFile open(Path path, SimilarityKernel kernel) throws IOException {
+    Arena arena = Arena.ofShared();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_BYTES) {
+        throw new IOException("Vector snapshot " + path + " is truncated");
+      }
+      MemorySegment file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+
+      if (file.get(HEADER_INT, 0) != MAGIC) {
+        throw new IOException(path + " is not a vector snapshot");
+      }
+      int version = file.get(HEADER_INT, 4);
+      if (version < MIN_VERSION || version > VERSION) {
+        throw new IOException("Unsupported vector snapshot version " + version + " in " + path);
+      }
+      int dimension = file.get(HEADER_INT, 8);
+      int count = file.get(HEADER_INT, 12);
+      long vectorsOffset = file.get(HEADER_LONG, 16);
+      long metadataOffset = file.get(HEADER_LONG, 24);
+      long metadataLength = file.get(HEADER_LONG, 32);
+      long sequence = file.get(HEADER_LONG, 40);
+      VectorEncoding encoding =
+          version == 1 ? VectorEncoding.FLOAT32 : fromComponentType(file.get(HEADER_INT, 48));
+      if (encoding == null) {
+        throw new IOException("Vector snapshot " + path + " has an unknown component type");
+      }
+      long titlesLength = version >= 4 ? file.get(HEADER_LONG, 52) : 0L;
+      long vectorBytes =
+          (long) count * dimension * MappedVectorStorage.componentBytes(encoding);
+      if (dimension <= 0
+          || count < 0
+          || vectorsOffset != HEADER_BYTES
+          || metadataOffset != vectorsOffset + vectorBytes
+          || metadataLength < 0
+          || metadataLength > Integer.MAX_VALUE
+          || titlesLength < 0
+          || titlesLength > Integer.MAX_VALUE
+          || metadataOffset + metadataLength + titlesLength != size
+          || sequence < 0) {
+        throw new IOException("Vector snapshot " + path + " has an inconsistent header");
+      }
+
+      RunbookChunk[] chunks = new RunbookChunk[count];
+      DataInputStream in =
+          new DataInputStream(
+              new SegmentInputStream(file.asSlice(metadataOffset, metadataLength)));
+      for (int row = 0; row < count; row++) {
+        chunks[row] = RunbookChunkCodec.readMetadata(in, null, version >= 3);
+      }
+      Map<String, float[]> titles = new HashMap<>();
+      if (titlesLength > 0) {
+        MemorySegment titleSection = file.asSlice(metadataOffset + metadataLength, titlesLength);
+        DataInputStream titleIn = new DataInputStream(new SegmentInputStream(titleSection));
+        int titleCount = titleIn.readInt();
+        for (int i = 0; i < titleCount; i++) {
+          titles.put(
+              RunbookChunkCodec.readString(titleIn), RunbookChunkCodec.readEmbedding(titleIn));
+        }
+      }
+
+      MappedVectorStorage vectors =
+          new MappedVectorStorage(
+              file.asSlice(vectorsOffset, vectorBytes),
+              arena,
+              encoding,
+              dimension,
+              count,
+              kernel);
+      return new VectorSnapshotFile(dimension, sequence, encoding, vectors, chunks, titles);
+    } catch (IOException | RuntimeException e) {
+      arena.close();
+      throw e;
+    }
+  }
+
+  private static void writeVectors(
+      FileChannel channel, VectorStorage vectors, int count, VectorEncoding encoding)
+      throws IOException {
+    int dimension = vectors.dimension();
+    int rowBytes = dimension * MappedVectorStorage.componentBytes(encoding);
+    ByteBuffer buffer =
+        ByteBuffer.allocate(Math.max(WRITE_BUFFER_BYTES, rowBytes)).order(ByteOrder.LITTLE_ENDIAN);
+    float[] row = new float[dimension];
+    for (int i = 0; i < count; i++) {
+      if (buffer.remaining() < rowBytes) {
+        flush(channel, buffer);
+      }
+      vectors.read(i, row);
+      if (encoding == VectorEncoding.FLOAT32) {
+        for (float value : row) {
+          buffer.putFloat(value);
+        }
+      } else {
+        for (float value : row) {
+          buffer.putShort(HalfPrecisionVectorStorage.encode(encoding, value));
+        }
+      }
+    }
+    flush(channel, buffer);
+  }
+
+  private static int componentType(VectorEncoding encoding) {
+    return switch (encoding) {
+      case FLOAT32 -> 0;
+      case FLOAT16 -> 1;
+      case BFLOAT16 -> 2;
+      case INT8 -> throw new IllegalArgumentException("int8 vectors cannot be snapshotted");
+    };
+  }
+
+  private static VectorEncoding fromComponentType(int componentType) {
+    return switch (componentType) {
+      case 0 -> VectorEncoding.FLOAT32;
+      case 1 -> VectorEncoding.FLOAT16;
+      case 2 -> VectorEncoding.BFLOAT16;
+      default -> null;
+    };
+  }
+
+  private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /** Sequential reader over a memory segment, so metadata is decoded without copying it first. */
+  private static final class SegmentInputStream extends InputStream {
+
+    private final MemorySegment segment;
+    private long position;
+
+    SegmentInputStream(MemorySegment segment) {
+      this.segment = segment;
+    }
+
+    @Override
+    public int read() {
+      if (position >= segment.byteSize()) {
+        return -1;
+      }
+      return segment.get(ValueLayout.JAVA_BYTE, position++) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) {
+      long remaining = segment.byteSize() - position;
+      if (remaining <= 0) {
+        return length == 0 ? 0 : -1;
+      }
+      int n = (int) Math.min(length, remaining);
+      MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, position, target, offset, n);
+      position += n;
+      return n;
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+/**
+ * Row-addressable storage of L2-normalized embeddings used by {@link
+ * InMemoryVectorStoreRepository}.
+ *
+ * <p>Rows are dense: {@link #swapRemove(int)} moves the last row into the freed slot so a scan can
+ * iterate {@code 0 .. size()} without gaps. Implementations differ in how a row is encoded (full
+ * precision, quantized, on disk) and therefore in how a query is scored against it.
+ *
+ * <p>Implementations are not thread-safe for mutation; the owning repository guards access.
+ * Scorers returned by {@link #scorer(float[])} may be used concurrently with other scorers, but
+ * each scorer is used by one thread at a time.
+ */
+interface VectorStorage {
+
+  /** Returns how rows are encoded. */
+  VectorEncoding encoding();
+
+  /** Returns the number of components per vector. */
+  int dimension();
+
+  /** Returns the number of stored rows. */
+  int size();
+
+  /**
+   * Appends a vector as a new row.
+   *
+   * @param vector the normalized vector to append
+   * @return the index of the new row
+   */
+  int append(float[] vector);
+
+  /**
+   * Overwrites an existing row.
+   *
+   * @param row the row to overwrite
+   * @param vector the normalized replacement vector
+   */
+  void set(int row, float[] vector);
+
+  /**
+   * Removes a row by moving the last row into its slot.
+   *
+   * @param row the row to remove
+   * @return the former index of the row that moved into {@code row}, or -1 if the removed row was
+   *     the last one
+   */
+  int swapRemove(int row);
+
+  /**
+   * Copies a row into a caller-supplied array; lossy encodings return the decoded approximation.
+   *
+   * @param row the row to read
+   * @param target the array to fill; must hold at least {@link #dimension()} components
+   */
+  void read(int row, float[] target);
+
+  /**
+   * Prepares a scorer for one query, doing any per-query work (such as quantizing the query) once.
+   *
+   * @param query the normalized query vector
+   * @return a scorer returning the similarity between the query and a row
+   */
+  RowScorer scorer(float[] query);
+
+  /**
+   * Returns the heap bytes holding rows, including spare capacity reserved for growth.
+   *
+   * @return the heap footprint of the rows
+   */
+  long heapBytes();
+
+  /**
+   * Returns the bytes of rows held outside the heap, in a mapped file or a scratch file. The
+   * default implementation returns 0.
+   *
+   * @return the off-heap footprint of the rows
+   */
+  default long offHeapBytes() {
+    return 0L;
+  }
+
+  /**
+   * Releases resources held outside the heap, such as scratch files. The storage must not be used
+   * afterwards. The default implementation does nothing.
+   */
+  default void release() {}
+
+  /** Scores stored rows against one prepared query. */
+  @FunctionalInterface
+  interface RowScorer {
+
+    /**
+     * Returns the similarity between the prepared query and a row.
+     *
+     * @param row the row to score
+     * @return the similarity, approximately cosine for normalized inputs
+     */
+    float score(int row);
+  }
+}
@@ -0,0 +1,64 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Durability options for {@link DurableVectorStoreRepository}.
+ *
+ * @param directory the directory holding the write-ahead log and the checkpoint snapshot
+ * @param fsyncPolicy when appended log records are forced to disk
+ * @param fsyncInterval how often the log is forced under {@link FsyncPolicy#INTERVAL}
+ * @param checkpointBytes log size above which a background checkpoint is taken
+ * @param checkpointInterval how often the background checkpointer checks the log size
+ */
+public record WalConfig(
+    Path directory,
+    FsyncPolicy fsyncPolicy,
+    Duration fsyncInterval,
+    long checkpointBytes,
+    Duration checkpointInterval) {
+
+  /** Default interval between forced writes under {@link FsyncPolicy#INTERVAL}. */
+  public static final Duration DEFAULT_FSYNC_INTERVAL = Duration.ofMillis(200);
+
+  /** Default log size that triggers a checkpoint: 64 MiB. */
+  public static final long DEFAULT_CHECKPOINT_BYTES = 64L * 1024 * 1024;
+
+  /** Default interval between checkpoint checks. */
+  public static final Duration DEFAULT_CHECKPOINT_INTERVAL = Duration.ofMinutes(1);
+
+  /** Compact constructor with validation. */
+  public WalConfig {
+    Objects.requireNonNull(directory, "directory cannot be null");
+    Objects.requireNonNull(fsyncPolicy, "fsyncPolicy cannot be null");
+    Objects.requireNonNull(fsyncInterval, "fsyncInterval cannot be null");
+    Objects.requireNonNull(checkpointInterval, "checkpointInterval cannot be null");
+    if (fsyncInterval.isNegative() || fsyncInterval.isZero()) {
+      throw new IllegalArgumentException("fsyncInterval must be positive");
+    }
+    if (checkpointBytes <= 0) {
+      throw new IllegalArgumentException("checkpointBytes must be positive");
+    }
+    if (checkpointInterval.isNegative() || checkpointInterval.isZero()) {
+      throw new IllegalArgumentException("checkpointInterval must be positive");
+    }
+  }
+
+  /**
+   * Returns the default configuration for a directory: group-committed fsync on every mutation and
+   * a checkpoint once the log passes 64 MiB.
+   *
+   * @param directory the directory holding the log and snapshot
+   * @return the default configuration
+   */
+  public static WalConfig defaults(Path directory) {
+    return new WalConfig(
+        directory,
+        FsyncPolicy.ALWAYS,
+        DEFAULT_FSYNC_INTERVAL,
+        DEFAULT_CHECKPOINT_BYTES,
+        DEFAULT_CHECKPOINT_INTERVAL);
+  }
+}
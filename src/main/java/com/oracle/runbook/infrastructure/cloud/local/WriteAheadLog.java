@@ -0,0 +1,523 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of local vector store mutations.
+ *
+ * <p>The file starts with an 8-byte header (magic "RBWL", format version). Each record is framed
+ * as a 4-byte payload length and a 4-byte CRC-32C of the payload, followed by the payload: an
+ * 8-byte sequence number, a 1-byte type and a type-specific body encoded with {@link
+ * RunbookChunkCodec}. All values are big-endian. Sequence numbers increase monotonically across
+ * checkpoints, so a snapshot stamped with sequence {@code n} supersedes every record up to
+ * {@code n}.
+ *
+ * <p>Appends only encode into an in-memory buffer. {@link #commit(long)} implements group commit:
+ * the first caller to arrive writes everything buffered so far with a single write and, under
+ * {@link FsyncPolicy#ALWAYS}, a single fsync; callers whose records were covered by that write
+ * return without touching the disk.
+ *
+ * <p>On {@link #open}, the file is locked against other writers and records are validated and
+ * replayed in order; a torn or corrupt tail left by a crash is truncated at the last intact record.
+ * An older log, written before chunks had several source runbooks (version 1) or before runbook
+ * titles were logged (version 2), is replayed but not appended to: the owner must checkpoint and
+ * {@link #truncate()} it first, which rewrites the header.
+ */
+final class WriteAheadLog implements Closeable {
+
+  /** File magic, "RBWL" in ASCII. */
+  static final int MAGIC = 0x5242574C;
+
+  /** Current format version. */
+  static final int VERSION = 3;
+
+  /** Oldest format version that can still be replayed. */
+  static final int MIN_VERSION = 1;
+
+  /** Size of the file header; the first record starts here. */
+  static final int HEADER_BYTES = 8;
+
+  private static final Logger LOGGER = Logger.getLogger(WriteAheadLog.class.getName());
+  private static final byte STORE = 1;
+  private static final byte DELETE = 2;
+  private static final byte REPLACE = 3;
+  private static final byte TITLES = 4;
+  private static final int FRAME_BYTES = 8;
+
+  /** Receives records replayed by {@link #open}. */
+  interface Replayer {
+
+    /**
+     * Re-applies a logged store or batch store.
+     *
+     * @param chunks the logged chunks, with their embeddings
+     */
+    void store(List<RunbookChunk> chunks);
+
+    /**
+     * Re-applies a logged delete.
+     *
+     * @param runbookPath the logged runbook path
+     */
+    void delete(String runbookPath);
+
+    /**
+     * Re-applies a logged replacement of runbooks.
+     *
+     * @param runbookPaths the logged runbook paths
+     * @param chunks the logged new chunks, with their embeddings
+     */
+    void replace(List<String> runbookPaths, List<RunbookChunk> chunks);
+
+    /**
+     * Re-applies logged runbook title embeddings.
+     *
+     * @param titleEmbeddings the logged title embeddings by runbook path
+     */
+    void titles(Map<String, float[]> titleEmbeddings);
+  }
+
+  private final FileChannel channel;
+  private final FsyncPolicy fsyncPolicy;
+  private final ReentrantLock syncLock = new ReentrantLock();
+  private final int replayedRecords;
+
+  /** Guarded by {@code this}. */
+  private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+  /** Guarded by {@code this}. */
+  private long lastSequence;
+
+  /** Guarded by {@link #syncLock}. */
+  private long fileSize;
+
+  /** Format version of the file header; guarded by {@code this}. */
+  private int formatVersion;
+
+  private volatile long writtenSequence;
+  private volatile long durableSequence;
+  private volatile long bytes;
+
+  private WriteAheadLog(
+      FileChannel channel,
+      FsyncPolicy fsyncPolicy,
+      int formatVersion,
+      long fileSize,
+      long lastSequence,
+      int replayedRecords) {
+    this.channel = channel;
+    this.fsyncPolicy = fsyncPolicy;
+    this.formatVersion = formatVersion;
+    this.fileSize = fileSize;
+    this.bytes = fileSize;
+    this.lastSequence = lastSequence;
+    this.writtenSequence = lastSequence;
+    this.durableSequence = lastSequence;
+    this.replayedRecords = replayedRecords;
+  }
+
+  /**
+   * Opens or creates a log and replays every record after the given sequence number.
+   *
+   * @param file the log file
+   * @param fsyncPolicy when appended records are forced to disk
+   * @param afterSequence records up to and including this sequence number are skipped, because the
+   *     restored snapshot already reflects them
+   * @param replayer receives the replayed records in log order
+   * @return the opened log, positioned after the last intact record
+   * @throws IOException if the file cannot be opened, is locked by another writer, or is not a
+   *     write-ahead log
+   */
+  static WriteAheadLog open(
+      Path file, FsyncPolicy fsyncPolicy, long afterSequence, Replayer replayer)
+      throws IOException {
+    FileChannel channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      lock(channel, file);
+      if (channel.size() < HEADER_BYTES) {
+        writeHeader(channel);
+        return new WriteAheadLog(channel, fsyncPolicy, VERSION, HEADER_BYTES, afterSequence, 0);
+      }
+
+      channel.position(0);
+      DataInputStream in =
+          new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+      if (in.readInt() != MAGIC) {
+        throw new IOException(file + " is not a vector store write-ahead log");
+      }
+      int version = in.readInt();
+      if (version < MIN_VERSION || version > VERSION) {
+        throw new IOException("Unsupported write-ahead log version " + version + " in " + file);
+      }
+
+      long size = channel.size();
+      long position = HEADER_BYTES;
+      long lastSequence = afterSequence;
+      int replayed = 0;
+      CRC32C crc = new CRC32C();
+      while (position < size) {
+        byte[] payload = readRecord(in, size - position, crc);
+        if (payload == null) {
+          LOGGER.warning(
+              "Truncating torn write-ahead log tail at byte " + position + " of " + file);
+          channel.truncate(position);
+          channel.force(true);
+          break;
+        }
+        DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+        long sequence = record.readLong();
+        if (sequence > lastSequence) {
+          replay(record, version, replayer);
+          lastSequence = sequence;
+          replayed++;
+        }
+        position += FRAME_BYTES + payload.length;
+      }
+      return new WriteAheadLog(channel, fsyncPolicy, version, position, lastSequence, replayed);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /** Returns the number of records replayed when the log was opened. */
+  int replayedRecords() {
+    return replayedRecords;
+  }
+
+  /** Returns the format version of the file, older than {@link #VERSION} until truncated. */
+  synchronized int formatVersion() {
+    return formatVersion;
+  }
+
+  /** Returns the sequence number of the last appended record. */
+  synchronized long lastSequence() {
+    return lastSequence;
+  }
+
+  /** Returns the log size in bytes, including records not yet written. */
+  long sizeBytes() {
+    return bytes;
+  }
+
+  /**
+   * Buffers a store record for the given chunks.
+   *
+   * @param chunks the stored chunks
+   * @return the record's sequence number, to pass to {@link #commit(long)}
+   */
+  long appendStore(List<RunbookChunk> chunks) {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    try {
+      writeChunks(new DataOutputStream(body), chunks);
+    } catch (IOException e) {
+      throw new IllegalStateException("In-memory encoding failed", e);
+    }
+    return append(STORE, body.toByteArray());
+  }
+
+  /**
+   * Buffers a single record replacing the chunks of the given runbooks, so replay never applies
+   * the removal without the new chunks.
+   *
+   * @param runbookPaths the replaced runbook paths
+   * @param chunks the new chunks
+   * @return the record's sequence number, to pass to {@link #commit(long)}
+   */
+  long appendReplace(List<String> runbookPaths, List<RunbookChunk> chunks) {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    try {
+      DataOutputStream out = new DataOutputStream(body);
+      out.writeInt(runbookPaths.size());
+      for (String runbookPath : runbookPaths) {
+        RunbookChunkCodec.writeString(out, runbookPath);
+      }
+      writeChunks(out, chunks);
+    } catch (IOException e) {
+      throw new IllegalStateException("In-memory encoding failed", e);
+    }
+    return append(REPLACE, body.toByteArray());
+  }
+
+  /**
+   * Buffers a record of runbook title embeddings.
+   *
+   * @param titleEmbeddings the title embeddings by runbook path
+   * @return the record's sequence number, to pass to {@link #commit(long)}
+   */
+  long appendTitles(Map<String, float[]> titleEmbeddings) {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    try {
+      DataOutputStream out = new DataOutputStream(body);
+      out.writeInt(titleEmbeddings.size());
+      for (Map.Entry<String, float[]> title : titleEmbeddings.entrySet()) {
+        RunbookChunkCodec.writeString(out, title.getKey());
+        RunbookChunkCodec.writeEmbedding(out, title.getValue());
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("In-memory encoding failed", e);
+    }
+    return append(TITLES, body.toByteArray());
+  }
+
+  /**
+   * Buffers a delete record.
+   *
+   * @param runbookPath the deleted runbook path
+   * @return the record's sequence number, to pass to {@link #commit(long)}
+   */
+  long appendDelete(String runbookPath) {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    try {
+      RunbookChunkCodec.writeString(new DataOutputStream(body), runbookPath);
+    } catch (IOException e) {
+      throw new IllegalStateException("In-memory encoding failed", e);
+    }
+    return append(DELETE, body.toByteArray());
+  }
+
+  /**
+   * Makes a record as durable as the fsync policy requires: written to the OS, and forced to disk
+   * under {@link FsyncPolicy#ALWAYS}. Concurrent callers share one write and one fsync.
+   *
+   * @param sequence the sequence number returned by an append
+   * @throws IOException if writing or forcing the log fails
+   */
+  void commit(long sequence) throws IOException {
+    if (isCommitted(sequence)) {
+      return;
+    }
+    syncLock.lock();
+    try {
+      if (isCommitted(sequence)) {
+        return;
+      }
+      writePending();
+      if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+        channel.force(false);
+        durableSequence = writtenSequence;
+      }
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  /**
+   * Writes all buffered records and forces them to disk, regardless of the fsync policy.
+   *
+   * @throws IOException if writing or forcing the log fails
+   */
+  void sync() throws IOException {
+    syncLock.lock();
+    try {
+      writePending();
+      if (durableSequence < writtenSequence) {
+        channel.force(false);
+        durableSequence = writtenSequence;
+      }
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  /**
+   * Discards every record after a checkpoint, rewriting an older header in the current format.
+   * The caller must guarantee that a snapshot reflecting {@link #lastSequence()} is durable and
+   * that no append runs concurrently.
+   *
+   * @throws IOException if the log cannot be truncated
+   */
+  void truncate() throws IOException {
+    syncLock.lock();
+    try {
+      long sequence;
+      boolean upgrade;
+      synchronized (this) {
+        pending = new ByteArrayOutputStream();
+        sequence = lastSequence;
+        upgrade = formatVersion != VERSION;
+      }
+      if (upgrade) {
+        writeHeader(channel);
+        synchronized (this) {
+          formatVersion = VERSION;
+        }
+      } else {
+        channel.truncate(HEADER_BYTES);
+        channel.force(true);
+      }
+      fileSize = HEADER_BYTES;
+      bytes = HEADER_BYTES;
+      writtenSequence = sequence;
+      durableSequence = sequence;
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  /** Writes and forces any buffered records, then closes the file. */
+  @Override
+  public void close() throws IOException {
+    try {
+      sync();
+    } finally {
+      channel.close();
+    }
+  }
+
+  private boolean isCommitted(long sequence) {
+    return fsyncPolicy == FsyncPolicy.ALWAYS
+        ? durableSequence >= sequence
+        : writtenSequence >= sequence;
+  }
+
+  private synchronized long append(byte type, byte[] body) {
+    if (formatVersion != VERSION) {
+      throw new IllegalStateException(
+          "Write-ahead log version " + formatVersion + " must be truncated before appending");
+    }
+    long sequence = ++lastSequence;
+    ByteBuffer payload = ByteBuffer.allocate(Long.BYTES + 1 + body.length);
+    payload.putLong(sequence).put(type).put(body);
+    CRC32C crc = new CRC32C();
+    crc.update(payload.array());
+    ByteBuffer frame = ByteBuffer.allocate(FRAME_BYTES);
+    frame.putInt(payload.capacity()).putInt((int) crc.getValue());
+    pending.writeBytes(frame.array());
+    pending.writeBytes(payload.array());
+    bytes += FRAME_BYTES + payload.capacity();
+    return sequence;
+  }
+
+  /** Must be called with {@link #syncLock} held. */
+  private void writePending() throws IOException {
+    byte[] batch;
+    long sequence;
+    synchronized (this) {
+      if (pending.size() == 0) {
+        return;
+      }
+      batch = pending.toByteArray();
+      pending = new ByteArrayOutputStream();
+      sequence = lastSequence;
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(batch);
+    while (buffer.hasRemaining()) {
+      channel.write(buffer, fileSize + buffer.position());
+    }
+    fileSize += batch.length;
+    writtenSequence = sequence;
+  }
+
+  private static void lock(FileChannel channel, Path file) throws IOException {
+    try {
+      if (channel.tryLock() != null) {
+        return;
+      }
+    } catch (OverlappingFileLockException e) {
+      // Held by another channel in this JVM
+    }
+    throw new IOException("Write-ahead log " + file + " is already in use");
+  }
+
+  private static void writeHeader(FileChannel channel) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+    channel.truncate(0);
+    while (header.hasRemaining()) {
+      channel.write(header, header.position());
+    }
+    channel.force(true);
+  }
+
+  /** Returns the payload of the next record, or null if it is torn or fails its checksum. */
+  private static byte[] readRecord(DataInputStream in, long remaining, CRC32C crc)
+      throws IOException {
+    if (remaining < FRAME_BYTES) {
+      return null;
+    }
+    int length = in.readInt();
+    int checksum = in.readInt();
+    if (length < Long.BYTES + 1 || length > remaining - FRAME_BYTES) {
+      return null;
+    }
+    byte[] payload = new byte[length];
+    try {
+      in.readFully(payload);
+    } catch (EOFException e) {
+      return null;
+    }
+    crc.reset();
+    crc.update(payload);
+    return (int) crc.getValue() == checksum ? payload : null;
+  }
+
+  private static void replay(DataInputStream record, int version, Replayer replayer)
+      throws IOException {
+    byte type = record.readByte();
+    switch (type) {
+      case STORE -> replayer.store(readChunks(record, version));
+      case DELETE -> replayer.delete(RunbookChunkCodec.readString(record));
+      case REPLACE -> {
+        int count = record.readInt();
+        List<String> runbookPaths = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+          runbookPaths.add(RunbookChunkCodec.readString(record));
+        }
+        replayer.replace(runbookPaths, readChunks(record, version));
+      }
+      case TITLES -> {
+        int count = record.readInt();
+        Map<String, float[]> titleEmbeddings = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+          titleEmbeddings.put(
+              RunbookChunkCodec.readString(record), RunbookChunkCodec.readEmbedding(record));
+        }
+        replayer.titles(titleEmbeddings);
+      }
+      default -> throw new IOException("Unknown write-ahead log record type: " + type);
+    }
+  }
+
+  private static void writeChunks(DataOutputStream out, List<RunbookChunk> chunks)
+      throws IOException {
+    out.writeInt(chunks.size());
+    for (RunbookChunk chunk : chunks) {
+      RunbookChunkCodec.writeEmbedding(out, chunk.embedding());
+      RunbookChunkCodec.writeMetadata(out, chunk);
+    }
+  }
+
+  private static List<RunbookChunk> readChunks(DataInputStream record, int version)
+      throws IOException {
+    int count = record.readInt();
+    List<RunbookChunk> chunks = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      float[] embedding = RunbookChunkCodec.readEmbedding(record);
+      chunks.add(RunbookChunkCodec.readMetadata(record, embedding, version >= 2));
+    }
+    return chunks;
+  }
+}
@@ -1,19 +1,40 @@
 package com.oracle.runbook.infrastructure.cloud.oci;
 
 import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
 import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
 import com.oracle.runbook.rag.ScoredChunk;
+import com.oracle.runbook.rag.SearchHit;
 import dev.langchain4j.data.document.Metadata;
 import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.store.embedding.EmbeddingMatch;
 import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
-import dev.langchain4j.store.embedding.EmbeddingSearchResult;
 import dev.langchain4j.store.embedding.EmbeddingStore;
 import dev.langchain4j.store.embedding.filter.Filter;
+import dev.langchain4j.store.embedding.filter.comparison.ContainsString;
 import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsIn;
+import dev.langchain4j.store.embedding.filter.comparison.IsNotEqualTo;
+import dev.langchain4j.store.embedding.filter.logical.And;
+import dev.langchain4j.store.embedding.filter.logical.Or;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Oracle Database 23ai implementation of {@link VectorStoreRepository} using LangChain4j's
@@ -22,6 +43,28 @@ import java.util.Objects;
  * <p>This implementation maps between domain {@link RunbookChunk} objects and LangChain4j's {@link
  * TextSegment}/{@link Embedding} types, storing runbook metadata for later filtering and retrieval.
  *
+ * <p>A {@link VectorSearchFilter} is pushed down to the database as a LangChain4j {@link Filter}
+ * where the stored metadata allows it: runbook paths become an {@code IN} predicate and tags a
+ * substring match on the comma-joined tag list. Shape globs live on the chunk side and cannot be
+ * expressed as a metadata predicate, so shape criteria, and the exact tag match, are applied to an
+ * over-fetched result instead, widening the search until enough matches pass them or the store
+ * has no more rows.
+ *
+ * <p>{@link #searchBatch(List, int, VectorSearchFilter) Batched searches} are issued to the
+ * database concurrently from virtual threads, so a batch costs roughly one round trip instead of
+ * one per query.
+ *
+ * <p>{@link #searchHits(float[], int, VectorSearchFilter) Search hits} are built from the stored
+ * metadata without reading or copying the embedding of each match. The comma-joined tag and shape
+ * lists are parsed once per distinct value and then shared between hits.
+ *
+ * <p>Embedding store rows cannot be updated in place, so a chunk shared by several runbooks is
+ * stored as one row per {@link RunbookChunk#sourceRunbookPaths() source runbook}, each with that
+ * runbook as its {@code runbookPath}. Deleting or replacing a runbook removes only its own rows,
+ * and the chunk lives on in the rows of its other sources. Searches collapse the rows of a chunk
+ * into one result listing every source found, fetching more rows while collapsing leaves fewer
+ * than requested.
+ *
  * @see VectorStoreRepository
  * @see EmbeddingStore
  */
@@ -32,8 +75,22 @@ public class OciVectorStoreRepository implements VectorStoreRepository {
   private static final String METADATA_SECTION_TITLE = "sectionTitle";
   private static final String METADATA_TAGS = "tags";
   private static final String METADATA_APPLICABLE_SHAPES = "applicableShapes";
+  private static final String METADATA_GENERATION = "generation";
+
+  /** Over-fetch factor for filter criteria that are checked after the database search. */
+  private static final int POST_FILTER_FACTOR = 4;
+
+  /** Factor by which a search widens while rows of shared chunks crowd out distinct ones. */
+  private static final int SHARED_ROW_FACTOR = 4;
+
+  /** Bound on the number of distinct tag and shape lists kept parsed. */
+  private static final int MAX_PARSED_LISTS = 1024;
 
   private final EmbeddingStore<TextSegment> embeddingStore;
+  private final Map<String, List<String>> parsedLists = new ConcurrentHashMap<>();
+  private final ExecutorService executor =
+      Executors.newThreadPerTaskExecutor(
+          Thread.ofVirtual().name("oci-vector-search-", 0).factory());
 
   /**
    * Creates a new OciVectorStoreRepository with the given embedding store.
@@ -54,8 +111,12 @@ public class OciVectorStoreRepository implements VectorStoreRepository {
   @Override
   public void store(RunbookChunk chunk) {
     Objects.requireNonNull(chunk, "chunk cannot be null");
+    if (chunk.sourceRunbookPaths().size() > 1) {
+      storeBatch(List.of(chunk));
+      return;
+    }
 
-    TextSegment segment = toTextSegment(chunk);
+    TextSegment segment = toTextSegment(chunk, chunk.runbookPath(), null);
     Embedding embedding = Embedding.from(chunk.embedding());
 
     embeddingStore.add(embedding, segment);
@@ -65,32 +126,49 @@ public class OciVectorStoreRepository implements VectorStoreRepository {
   @Override
   public void storeBatch(List<RunbookChunk> chunks) {
     Objects.requireNonNull(chunks, "chunks cannot be null");
-
-    List<TextSegment> segments = chunks.stream().map(this::toTextSegment).toList();
-
-    List<Embedding> embeddings =
-        chunks.stream().map(chunk -> Embedding.from(chunk.embedding())).toList();
-
-    embeddingStore.addAll(embeddings, segments);
+    addRows(chunks, null);
   }
 
   /** {@inheritDoc} */
   @Override
   public List<ScoredChunk> search(float[] queryEmbedding, int topK) {
-    Objects.requireNonNull(queryEmbedding, "queryEmbedding cannot be null");
-    if (topK <= 0) {
-      throw new IllegalArgumentException("topK must be positive");
-    }
+    return search(queryEmbedding, topK, VectorSearchFilter.none());
+  }
 
-    Embedding query = Embedding.from(queryEmbedding);
-    EmbeddingSearchRequest request =
-        EmbeddingSearchRequest.builder().queryEmbedding(query).maxResults(topK).build();
+  /** {@inheritDoc} */
+  @Override
+  public List<ScoredChunk> search(float[] queryEmbedding, int topK, VectorSearchFilter filter) {
+    return findMatches(
+        queryEmbedding,
+        topK,
+        filter,
+        match -> new ScoredChunk(toRunbookChunk(match), match.match().score()),
+        scored -> filter.matches(scored.chunk()));
+  }
 
-    EmbeddingSearchResult<TextSegment> result = embeddingStore.search(request);
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Hits are built from the match metadata alone; the embedding LangChain4j returns with each
+   * match is neither read nor copied.
+   */
+  @Override
+  public List<SearchHit> searchHits(float[] queryEmbedding, int topK, VectorSearchFilter filter) {
+    return findMatches(queryEmbedding, topK, filter, this::toSearchHit, filter::matches);
+  }
 
-    return result.matches().stream()
-        .map(match -> new ScoredChunk(toRunbookChunk(match), match.score()))
-        .toList();
+  /** {@inheritDoc} */
+  @Override
+  public List<List<ScoredChunk>> searchBatch(
+      List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+    return concurrently(queryEmbeddings, topK, filter, query -> search(query, topK, filter));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public List<List<SearchHit>> searchHitsBatch(
+      List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+    return concurrently(queryEmbeddings, topK, filter, query -> searchHits(query, topK, filter));
   }
 
   /** {@inheritDoc} */
@@ -103,11 +181,190 @@ public class OciVectorStoreRepository implements VectorStoreRepository {
     embeddingStore.removeAll(filter);
   }
 
-  /** Converts a domain RunbookChunk to a LangChain4j TextSegment with metadata. */
-  private TextSegment toTextSegment(RunbookChunk chunk) {
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The embedding store has no transaction spanning an add and a remove, so the swap is ordered
+   * instead: the new rows are added first, tagged with a fresh generation, then every older row of
+   * the listed runbooks or of the new chunks is removed. Searches in between may see both
+   * generations, but never a runbook without chunks.
+   */
+  @Override
+  public void replaceRunbooks(List<String> runbookPaths, List<RunbookChunk> chunks) {
+    Objects.requireNonNull(runbookPaths, "runbookPaths cannot be null");
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    if (runbookPaths.isEmpty() && chunks.isEmpty()) {
+      return;
+    }
+    String generation = UUID.randomUUID().toString();
+    addRows(chunks, generation);
+
+    Filter replaced = runbookPaths.isEmpty() ? null : new IsIn(METADATA_RUNBOOK_PATH, runbookPaths);
+    if (!chunks.isEmpty()) {
+      // Rows of a re-stored shared chunk under its other sources are superseded too
+      Filter restored = new IsIn(METADATA_ID, chunks.stream().map(RunbookChunk::id).toList());
+      replaced = replaced == null ? restored : new Or(replaced, restored);
+    }
+    embeddingStore.removeAll(
+        new And(replaced, new IsNotEqualTo(METADATA_GENERATION, generation)));
+  }
+
+  /** Adds one row per source runbook of every chunk, tagged with a generation if one is given. */
+  private void addRows(List<RunbookChunk> chunks, String generation) {
+    List<TextSegment> segments = new ArrayList<>(chunks.size());
+    List<Embedding> embeddings = new ArrayList<>(chunks.size());
+    for (RunbookChunk chunk : chunks) {
+      Objects.requireNonNull(chunk, "chunk cannot be null");
+      Embedding embedding = Embedding.from(chunk.embedding());
+      for (String runbookPath : rowPaths(chunk)) {
+        segments.add(toTextSegment(chunk, runbookPath, generation));
+        embeddings.add(embedding);
+      }
+    }
+    if (!segments.isEmpty()) {
+      embeddingStore.addAll(embeddings, segments);
+    }
+  }
+
+  /** Returns the runbook path of each row a chunk is stored as. */
+  private static List<String> rowPaths(RunbookChunk chunk) {
+    List<String> sources = chunk.sourceRunbookPaths();
+    // A chunk without a runbook path is still stored, as one row
+    return sources.isEmpty() ? Collections.singletonList(null) : sources;
+  }
+
+  /** A match collapsed with the other rows of its chunk, and the sources of all of them. */
+  private record SourcedMatch(EmbeddingMatch<TextSegment> match, List<String> sources) {}
+
+  /**
+   * Runs the database search for a query, over-fetching when part of the filter has to be checked
+   * on the returned matches, collapses the rows of shared chunks and applies the rest of the
+   * filter. While that leaves fewer than topK results and the store has more rows, the search is
+   * widened.
+   */
+  private <T> List<T> findMatches(
+      float[] queryEmbedding,
+      int topK,
+      VectorSearchFilter filter,
+      Function<SourcedMatch, T> toResult,
+      Predicate<T> matches) {
+    Objects.requireNonNull(queryEmbedding, "queryEmbedding cannot be null");
+    Objects.requireNonNull(filter, "filter cannot be null");
+    if (topK <= 0) {
+      throw new IllegalArgumentException("topK must be positive");
+    }
+
+    boolean postFilter = filter.shape() != null || !filter.anyTags().isEmpty();
+    Embedding query = Embedding.from(queryEmbedding);
+    Filter metadataFilter = toMetadataFilter(filter);
+    int maxResults =
+        postFilter ? (int) Math.min(Integer.MAX_VALUE, (long) topK * POST_FILTER_FACTOR) : topK;
+    while (true) {
+      EmbeddingSearchRequest request =
+          EmbeddingSearchRequest.builder()
+              .queryEmbedding(query)
+              .maxResults(maxResults)
+              .filter(metadataFilter)
+              .build();
+      List<EmbeddingMatch<TextSegment>> rows = embeddingStore.search(request).matches();
+      List<T> results =
+          collapse(rows).stream().map(toResult).filter(matches).limit(topK).toList();
+      if (results.size() == topK
+          || rows.size() < maxResults
+          || maxResults == Integer.MAX_VALUE) {
+        return results;
+      }
+      int factor = postFilter ? POST_FILTER_FACTOR : SHARED_ROW_FACTOR;
+      maxResults = (int) Math.min(Integer.MAX_VALUE, (long) maxResults * factor);
+    }
+  }
+
+  /** Collapses the rows of each chunk into its best-scoring one, in score order. */
+  private static List<SourcedMatch> collapse(List<EmbeddingMatch<TextSegment>> matches) {
+    Map<String, EmbeddingMatch<TextSegment>> best = new LinkedHashMap<>();
+    Map<String, Set<String>> sources = new HashMap<>();
+    for (EmbeddingMatch<TextSegment> match : matches) {
+      Metadata metadata = match.embedded().metadata();
+      String id = metadata.getString(METADATA_ID);
+      best.putIfAbsent(id, match);
+      String runbookPath = metadata.getString(METADATA_RUNBOOK_PATH);
+      if (runbookPath != null) {
+        sources.computeIfAbsent(id, key -> new LinkedHashSet<>()).add(runbookPath);
+      }
+    }
+    List<SourcedMatch> collapsed = new ArrayList<>(best.size());
+    best.forEach(
+        (id, match) ->
+            collapsed.add(
+                new SourcedMatch(match, List.copyOf(sources.getOrDefault(id, Set.of())))));
+    return collapsed;
+  }
+
+  /**
+   * Issues the searches of a batch to the database concurrently, each on its own virtual thread, so
+   * waiting on the database never occupies the common pool.
+   */
+  private <T> List<List<T>> concurrently(
+      List<float[]> queryEmbeddings,
+      int topK,
+      VectorSearchFilter filter,
+      Function<float[], List<T>> search) {
+    Objects.requireNonNull(queryEmbeddings, "queryEmbeddings cannot be null");
+    Objects.requireNonNull(filter, "filter cannot be null");
+    if (topK <= 0) {
+      throw new IllegalArgumentException("topK must be positive");
+    }
+    if (queryEmbeddings.size() <= 1) {
+      return queryEmbeddings.stream().map(search).toList();
+    }
+
+    List<CompletableFuture<List<T>>> searches =
+        queryEmbeddings.stream()
+            .map(query -> CompletableFuture.supplyAsync(() -> search.apply(query), executor))
+            .toList();
+    try {
+      return searches.stream().map(CompletableFuture::join).toList();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Translates the criteria of a search filter that the stored metadata can express, or returns
+   * null if there are none.
+   */
+  private static Filter toMetadataFilter(VectorSearchFilter filter) {
+    Filter metadataFilter = null;
+    if (!filter.runbookPaths().isEmpty()) {
+      metadataFilter = new IsIn(METADATA_RUNBOOK_PATH, filter.runbookPaths());
+    }
+    Filter anyTag = null;
+    for (String tag : filter.anyTags()) {
+      Filter hasTag = new ContainsString(METADATA_TAGS, tag);
+      anyTag = anyTag == null ? hasTag : new Or(anyTag, hasTag);
+    }
+    if (anyTag != null) {
+      metadataFilter = metadataFilter == null ? anyTag : new And(metadataFilter, anyTag);
+    }
+    return metadataFilter;
+  }
+
+  /**
+   * Converts a domain RunbookChunk to a LangChain4j TextSegment with metadata, for the row of one
+   * of its source runbooks.
+   */
+  private TextSegment toTextSegment(RunbookChunk chunk, String runbookPath, String generation) {
     Metadata metadata = new Metadata();
     metadata.put(METADATA_ID, chunk.id());
-    metadata.put(METADATA_RUNBOOK_PATH, chunk.runbookPath());
+    if (runbookPath != null) {
+      metadata.put(METADATA_RUNBOOK_PATH, runbookPath);
+    }
+    if (generation != null) {
+      metadata.put(METADATA_GENERATION, generation);
+    }
     if (chunk.sectionTitle() != null) {
       metadata.put(METADATA_SECTION_TITLE, chunk.sectionTitle());
     }
@@ -117,29 +374,56 @@ public class OciVectorStoreRepository implements VectorStoreRepository {
     return TextSegment.from(chunk.content(), metadata);
   }
 
-  /** Converts a LangChain4j EmbeddingMatch back to a domain RunbookChunk. */
-  private RunbookChunk toRunbookChunk(EmbeddingMatch<TextSegment> match) {
-    TextSegment segment = match.embedded();
-    Metadata metadata = segment.metadata();
-
-    String id = metadata.getString(METADATA_ID);
-    String runbookPath = metadata.getString(METADATA_RUNBOOK_PATH);
-    String sectionTitle = metadata.getString(METADATA_SECTION_TITLE);
-    String content = segment.text();
+  /** Converts a collapsed LangChain4j EmbeddingMatch back to a domain RunbookChunk. */
+  private RunbookChunk toRunbookChunk(SourcedMatch sourced) {
+    SearchHit hit = toSearchHit(sourced);
 
-    // Parse comma-separated tags and shapes back to lists
-    String tagsStr = metadata.getString(METADATA_TAGS);
-    List<String> tags =
-        (tagsStr != null && !tagsStr.isEmpty()) ? List.of(tagsStr.split(",")) : List.of();
+    return new RunbookChunk(
+        hit.id(),
+        hit.runbookPath(),
+        hit.sectionTitle(),
+        hit.content(),
+        hit.tags(),
+        hit.applicableShapes(),
+        sourced.match().embedding().vector(),
+        hit.sourceRunbookPaths());
+  }
 
-    String shapesStr = metadata.getString(METADATA_APPLICABLE_SHAPES);
-    List<String> applicableShapes =
-        (shapesStr != null && !shapesStr.isEmpty()) ? List.of(shapesStr.split(",")) : List.of();
+  /**
+   * Converts a collapsed LangChain4j EmbeddingMatch to a search hit, without touching its
+   * embedding.
+   */
+  private SearchHit toSearchHit(SourcedMatch sourced) {
+    EmbeddingMatch<TextSegment> match = sourced.match();
+    TextSegment segment = match.embedded();
+    Metadata metadata = segment.metadata();
 
-    // Extract embedding from match
-    float[] embedding = match.embedding().vector();
+    return new SearchHit(
+        metadata.getString(METADATA_ID),
+        sourced.sources().isEmpty() ? null : sourced.sources().get(0),
+        metadata.getString(METADATA_SECTION_TITLE),
+        segment.text(),
+        splitList(metadata.getString(METADATA_TAGS)),
+        splitList(metadata.getString(METADATA_APPLICABLE_SHAPES)),
+        match.score(),
+        sourced.sources());
+  }
 
-    return new RunbookChunk(
-        id, runbookPath, sectionTitle, content, tags, applicableShapes, embedding);
+  /**
+   * Parses a comma-joined tag or shape list. Chunks share a small vocabulary of such lists, so
+   * parsed lists are cached and a hit usually costs a map lookup rather than a split.
+   */
+  private List<String> splitList(String joined) {
+    if (joined == null || joined.isEmpty()) {
+      return List.of();
+    }
+    List<String> parsed = parsedLists.get(joined);
+    if (parsed == null) {
+      parsed = List.of(joined.split(","));
+      if (parsedLists.size() < MAX_PARSED_LISTS) {
+        parsedLists.putIfAbsent(joined, parsed);
+      }
+    }
+    return parsed;
   }
 }
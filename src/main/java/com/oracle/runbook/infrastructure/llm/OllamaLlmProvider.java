@@ -45,6 +45,11 @@ public class OllamaLlmProvider implements LlmProvider {
     return "ollama";
   }
 
+  @Override
+  public String embeddingModelId() {
+    return providerId() + "/" + config.embeddingModel();
+  }
+
   @Override
   public CompletableFuture<String> generateText(String prompt, GenerationConfig genConfig) {
     String model = genConfig.modelOverride().orElse(config.textModel());
@@ -0,0 +1,277 @@
+package com.oracle.runbook.rag;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Collapses near-duplicate runbook chunks before they are embedded and stored.
+ *
+ * <p>Each chunk is fingerprinted with a 64-bit SimHash of its word bigrams, so chunks whose text
+ * differs only in whitespace, case, punctuation or a few words get fingerprints that differ in a
+ * few bits. Two chunks are near-duplicates when their fingerprints are within {@link
+ * #maxDistance()} bits of each other. Candidates are found through {@code maxDistance + 1} band
+ * indexes over disjoint slices of the fingerprint: by the pigeonhole principle, fingerprints that
+ * close agree exactly on at least one slice, so only chunks sharing a slice are compared.
+ *
+ * <p>Chunks are grouped greedily in input order: each one joins the first group whose
+ * representative is close enough, or starts a new group. A group keeps its first chunk's title and
+ * text, the union of all members' tags and applicable shapes, and every source runbook path in
+ * order of first appearance. Near-duplicates may come from the same runbook as well as from
+ * different ones.
+ *
+ * <p>Instances are stateless and thread-safe.
+ */
+public final class ChunkDeduplicator {
+
+  /** Default maximum fingerprint distance, in bits, for two chunks to count as duplicates. */
+  public static final int DEFAULT_MAX_DISTANCE = 6;
+
+  /** Largest supported distance; keeps every band at least four bits wide. */
+  public static final int MAX_DISTANCE = 15;
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final int maxDistance;
+  private final int bandBits;
+
+  /** Creates a deduplicator with the {@link #DEFAULT_MAX_DISTANCE default distance}. */
+  public ChunkDeduplicator() {
+    this(DEFAULT_MAX_DISTANCE);
+  }
+
+  /**
+   * Creates a deduplicator.
+   *
+   * @param maxDistance the maximum number of differing fingerprint bits between near-duplicates; 0
+   *     collapses only chunks with identical fingerprints, in practice the same normalized text
+   * @throws IllegalArgumentException if maxDistance is negative or above {@link #MAX_DISTANCE}
+   */
+  public ChunkDeduplicator(int maxDistance) {
+    if (maxDistance < 0 || maxDistance > MAX_DISTANCE) {
+      throw new IllegalArgumentException("maxDistance must be between 0 and " + MAX_DISTANCE);
+    }
+    this.maxDistance = maxDistance;
+    this.bandBits = Long.SIZE / (maxDistance + 1);
+  }
+
+  /** Returns the maximum fingerprint distance between near-duplicates. */
+  public int maxDistance() {
+    return maxDistance;
+  }
+
+  /**
+   * Groups near-duplicate chunks.
+   *
+   * @param chunks the chunks with their source runbooks, in ingestion order
+   * @return one group per distinct chunk, in order of first appearance
+   * @throws NullPointerException if chunks or any element is null
+   */
+  public List<DuplicateGroup> collapse(List<SourcedChunk> chunks) {
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+
+    List<GroupBuilder> groups = new ArrayList<>();
+    List<Map<Long, List<GroupBuilder>>> bands = new ArrayList<>(maxDistance + 1);
+    for (int band = 0; band <= maxDistance; band++) {
+      bands.add(new HashMap<>());
+    }
+
+    for (SourcedChunk sourced : chunks) {
+      Objects.requireNonNull(sourced, "chunk cannot be null");
+      long fingerprint = fingerprint(sourced.chunk().content());
+      GroupBuilder match = findMatch(bands, fingerprint);
+      if (match == null) {
+        match = new GroupBuilder(sourced.chunk(), fingerprint, groups.size());
+        groups.add(match);
+        for (int band = 0; band <= maxDistance; band++) {
+          bands
+              .get(band)
+              .computeIfAbsent(bandKey(fingerprint, band), key -> new ArrayList<>())
+              .add(match);
+        }
+      }
+      match.add(sourced);
+    }
+    return groups.stream().map(GroupBuilder::build).toList();
+  }
+
+  /**
+   * Returns true if two {@link #fingerprint fingerprints} are close enough for their chunks to be
+   * near-duplicates.
+   *
+   * @param first a fingerprint
+   * @param second another fingerprint
+   * @return whether they differ in at most {@link #maxDistance()} bits
+   */
+  boolean nearDuplicates(long first, long second) {
+    return Long.bitCount(first ^ second) <= maxDistance;
+  }
+
+  /**
+   * Computes the SimHash fingerprint of a chunk's text.
+   *
+   * <p>The text is lower-cased and split into alphanumeric words; every pair of adjacent words (or
+   * the single word of a one-word text) is hashed to 64 bits and votes on each bit of the result.
+   *
+   * @param content the chunk text
+   * @return the 64-bit fingerprint; 0 for text without words
+   */
+  static long fingerprint(String content) {
+    String[] words = content.toLowerCase(Locale.ROOT).split("[^\\p{Alnum}]+");
+    int[] votes = new int[Long.SIZE];
+    String previous = null;
+    int shingles = 0;
+    for (String word : words) {
+      if (word.isEmpty()) {
+        continue;
+      }
+      if (previous != null) {
+        vote(votes, hash(previous, word));
+        shingles++;
+      }
+      previous = word;
+    }
+    if (shingles == 0 && previous != null) {
+      vote(votes, hash(previous, ""));
+    }
+
+    long fingerprint = 0L;
+    for (int bit = 0; bit < Long.SIZE; bit++) {
+      if (votes[bit] > 0) {
+        fingerprint |= 1L << bit;
+      }
+    }
+    return fingerprint;
+  }
+
+  private GroupBuilder findMatch(List<Map<Long, List<GroupBuilder>>> bands, long fingerprint) {
+    GroupBuilder best = null;
+    for (int band = 0; band <= maxDistance; band++) {
+      List<GroupBuilder> candidates = bands.get(band).get(bandKey(fingerprint, band));
+      if (candidates == null) {
+        continue;
+      }
+      for (GroupBuilder candidate : candidates) {
+        if (nearDuplicates(candidate.fingerprint, fingerprint)
+            && (best == null || candidate.order < best.order)) {
+          best = candidate;
+        }
+      }
+    }
+    return best;
+  }
+
+  /** Returns the band-th slice of the fingerprint; the last band takes any leftover bits. */
+  private long bandKey(long fingerprint, int band) {
+    int shift = band * bandBits;
+    int width = band == maxDistance ? Long.SIZE - shift : bandBits;
+    long mask = width == Long.SIZE ? -1L : (1L << width) - 1;
+    return (fingerprint >>> shift) & mask;
+  }
+
+  private static void vote(int[] votes, long hash) {
+    for (int bit = 0; bit < Long.SIZE; bit++) {
+      votes[bit] += (hash >>> bit & 1L) == 0 ? -1 : 1;
+    }
+  }
+
+  /** FNV-1a over both words, finished with the SplitMix64 mixer so every bit is well spread. */
+  private static long hash(String first, String second) {
+    long hash = FNV_OFFSET_BASIS;
+    for (int i = 0; i < first.length(); i++) {
+      hash = (hash ^ first.charAt(i)) * FNV_PRIME;
+    }
+    hash = (hash ^ ' ') * FNV_PRIME;
+    for (int i = 0; i < second.length(); i++) {
+      hash = (hash ^ second.charAt(i)) * FNV_PRIME;
+    }
+    hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+    hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+    return hash ^ (hash >>> 31);
+  }
+
+  /**
+   * A parsed chunk together with the runbook it came from.
+   *
+   * @param runbookPath the path of the source runbook
+   * @param chunk the parsed chunk
+   */
+  public record SourcedChunk(String runbookPath, RunbookChunker.ParsedChunk chunk) {
+
+    /** Compact constructor with validation. */
+    public SourcedChunk {
+      Objects.requireNonNull(runbookPath, "runbookPath cannot be null");
+      Objects.requireNonNull(chunk, "chunk cannot be null");
+    }
+  }
+
+  /**
+   * A set of near-duplicate chunks collapsed into one.
+   *
+   * @param chunk the representative: the first member's title and text, with the union of all
+   *     members' tags and applicable shapes (none if any member applies to every shape)
+   * @param runbookPaths every runbook the group's chunks came from, in order of first appearance
+   * @param size the number of chunks collapsed into this group
+   */
+  public record DuplicateGroup(
+      RunbookChunker.ParsedChunk chunk, List<String> runbookPaths, int size) {
+
+    /** Compact constructor with validation and defensive copies. */
+    public DuplicateGroup {
+      Objects.requireNonNull(chunk, "chunk cannot be null");
+      runbookPaths = List.copyOf(runbookPaths);
+      if (runbookPaths.isEmpty()) {
+        throw new IllegalArgumentException("runbookPaths cannot be empty");
+      }
+    }
+
+    /** Returns the runbook the representative chunk came from. */
+    public String primaryRunbookPath() {
+      return runbookPaths.get(0);
+    }
+  }
+
+  private static final class GroupBuilder {
+
+    private final RunbookChunker.ParsedChunk first;
+    private final long fingerprint;
+    private final int order;
+    private final Set<String> runbookPaths = new LinkedHashSet<>();
+    private final Set<String> tags = new LinkedHashSet<>();
+    private final Set<String> applicableShapes = new LinkedHashSet<>();
+    private boolean appliesToEveryShape;
+    private int size;
+
+    GroupBuilder(RunbookChunker.ParsedChunk first, long fingerprint, int order) {
+      this.first = first;
+      this.fingerprint = fingerprint;
+      this.order = order;
+    }
+
+    void add(SourcedChunk sourced) {
+      runbookPaths.add(sourced.runbookPath());
+      tags.addAll(sourced.chunk().tags());
+      // A chunk without shape patterns applies to every shape, and so does the group
+      appliesToEveryShape |= sourced.chunk().applicableShapes().isEmpty();
+      applicableShapes.addAll(sourced.chunk().applicableShapes());
+      size++;
+    }
+
+    DuplicateGroup build() {
+      return new DuplicateGroup(
+          new RunbookChunker.ParsedChunk(
+              first.sectionTitle(),
+              first.content(),
+              List.copyOf(tags),
+              appliesToEveryShape ? List.of() : List.copyOf(applicableShapes)),
+          List.copyOf(runbookPaths),
+          size);
+    }
+  }
+}
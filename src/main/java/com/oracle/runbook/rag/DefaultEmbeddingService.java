@@ -11,12 +11,18 @@ import java.util.concurrent.CompletableFuture;
  * <p>This service provides a simplified facade over the LlmProvider's embedding capabilities,
  * decoupling embedding concerns from text generation concerns.
  *
+ * <p>With a {@link QueryEmbeddingCache}, {@link #embedContext} looks the formatted query text up
+ * in the cache before calling the provider, so an alert that repeats with identical text during a
+ * storm skips the remote embedding call, and concurrent identical alerts share one call.
+ *
  * @see EmbeddingService
  * @see LlmProvider
  */
 public class DefaultEmbeddingService implements EmbeddingService {
 
   private final LlmProvider llmProvider;
+  private final QueryEmbeddingCache queryCache;
+  private final String modelId;
 
   /**
    * Creates a new DefaultEmbeddingService with the given LlmProvider.
@@ -26,6 +32,23 @@ public class DefaultEmbeddingService implements EmbeddingService {
    */
   public DefaultEmbeddingService(LlmProvider llmProvider) {
     this.llmProvider = Objects.requireNonNull(llmProvider, "llmProvider cannot be null");
+    this.queryCache = null;
+    this.modelId = null;
+  }
+
+  /**
+   * Creates a new DefaultEmbeddingService that caches context query embeddings.
+   *
+   * @param llmProvider the LLM provider for embedding generation
+   * @param queryCache the cache for context query embeddings
+   * @param modelId identifies the provider's embedding model in cache keys
+   * @throws NullPointerException if any argument is null
+   */
+  public DefaultEmbeddingService(
+      LlmProvider llmProvider, QueryEmbeddingCache queryCache, String modelId) {
+    this.llmProvider = Objects.requireNonNull(llmProvider, "llmProvider cannot be null");
+    this.queryCache = Objects.requireNonNull(queryCache, "queryCache cannot be null");
+    this.modelId = Objects.requireNonNull(modelId, "modelId cannot be null");
   }
 
   /**
@@ -60,6 +83,9 @@ public class DefaultEmbeddingService implements EmbeddingService {
       com.oracle.runbook.domain.EnrichedContext context) {
     Objects.requireNonNull(context, "context cannot be null");
     String query = formatContextQuery(context);
+    if (queryCache != null) {
+      return queryCache.get(modelId, query, llmProvider::generateEmbedding);
+    }
     return llmProvider.generateEmbedding(query);
   }
 
@@ -3,11 +3,19 @@ package com.oracle.runbook.rag;
 import com.oracle.runbook.domain.EnrichedContext;
 import com.oracle.runbook.domain.RetrievedChunk;
 import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.ShapePattern;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
 import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import java.time.Duration;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
-import java.util.regex.Pattern;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -17,6 +25,39 @@ import java.util.stream.Collectors;
  * <p>This implementation boosts chunks based on tag overlap and shape matching to improve relevance
  * for specific resource contexts.
  *
+ * <p>With shape filtering enabled, chunks that do not apply to the resource's shape are excluded by
+ * the vector store before ranking rather than merely left unboosted, so they can no longer take
+ * the over-fetched candidate slots of applicable chunks.
+ *
+ * <p>With a positive batch window, concurrent retrievals are micro-batched by a {@link
+ * SearchBatcher} into {@link VectorStoreRepository#searchHitsBatch} calls, so an alert storm
+ * shares passes over the vector store instead of making one each. A retrieval that finds the
+ * store idle is not delayed.
+ *
+ * <p>Candidates are fetched as {@link SearchHit}s, so the vector store does not materialize the
+ * embedding of each candidate only for it to be discarded; retrieved chunks carry an empty
+ * embedding.
+ *
+ * <p>With a positive runbook limit, retrieval runs in two stages: {@link
+ * VectorStoreRepository#searchRunbooks} first ranks whole runbooks, by centroid in stores that
+ * index them, and chunks are then searched only inside the best {@code runbookLimit} runbooks.
+ * Candidate evaluation shrinks with the share of runbooks kept, and the prompt draws on a few
+ * coherent runbooks rather than on fragments of many.
+ *
+ * <p>With a {@link LexicalIndex}, retrieval is hybrid: the alert's title, message, dimension and
+ * label values are also matched against the index with BM25, and the two candidate lists are
+ * merged by reciprocal rank fusion, each chunk scoring {@code 1 / (60 + rank)} per list it appears
+ * in. Chunks that contain an alarm name or error code literally thus come back even when their
+ * embeddings rank them low, without widening the vector over-fetch. The fused score is scaled so
+ * a chunk ranked first in both lists scores 1, keeping the scale the metadata boosts are weighed
+ * against, and takes the place of the similarity score in the final score. The reported
+ * similarity score stays the cosine similarity from the vector search, and is 0 for a chunk only
+ * the keyword index found.
+ *
+ * <p>Metadata boosts are computed against alert-side keys prepared once per retrieval, and each
+ * distinct tag and shape glob among the candidates is evaluated once, against globs compiled
+ * once per process by {@link ShapePattern}, so re-ranking costs little next to the search.
+ *
  * @see RunbookRetriever
  * @see EmbeddingService
  * @see VectorStoreRepository
@@ -26,21 +67,114 @@ public class DefaultRunbookRetriever implements RunbookRetriever {
   private static final double TAG_BOOST_WEIGHT = 0.1;
   private static final double MAX_TAG_BOOST = 0.3;
   private static final double SHAPE_BOOST_WEIGHT = 0.2;
+  private static final int MAX_SEARCH_BATCH = 32;
+  private static final int RRF_K = 60;
 
   private final EmbeddingService embeddingService;
   private final VectorStoreRepository vectorStore;
+  private final boolean filterByShape;
+  private final SearchBatcher batcher;
+  private final int runbookLimit;
+  private final LexicalIndex lexicalIndex;
 
   /**
-   * Creates a new DefaultRunbookRetriever with the given services.
+   * Creates a new DefaultRunbookRetriever with the given services and no shape filtering.
    *
    * @param embeddingService the service to generate embeddings for query context
    * @param vectorStore the repository to search for similar chunks
    */
   public DefaultRunbookRetriever(
       EmbeddingService embeddingService, VectorStoreRepository vectorStore) {
+    this(embeddingService, vectorStore, false);
+  }
+
+  /**
+   * Creates a new DefaultRunbookRetriever with the given services.
+   *
+   * @param embeddingService the service to generate embeddings for query context
+   * @param vectorStore the repository to search for similar chunks
+   * @param filterByShape whether to restrict the search to chunks applicable to the resource shape
+   */
+  public DefaultRunbookRetriever(
+      EmbeddingService embeddingService, VectorStoreRepository vectorStore, boolean filterByShape) {
+    this(embeddingService, vectorStore, filterByShape, Duration.ZERO);
+  }
+
+  /**
+   * Creates a new DefaultRunbookRetriever that micro-batches concurrent vector searches.
+   *
+   * @param embeddingService the service to generate embeddings for query context
+   * @param vectorStore the repository to search for similar chunks
+   * @param filterByShape whether to restrict the search to chunks applicable to the resource shape
+   * @param batchWindow how long a search waits for concurrent searches to batch with; zero
+   *     disables batching
+   */
+  public DefaultRunbookRetriever(
+      EmbeddingService embeddingService,
+      VectorStoreRepository vectorStore,
+      boolean filterByShape,
+      Duration batchWindow) {
+    this(embeddingService, vectorStore, filterByShape, batchWindow, 0);
+  }
+
+  /**
+   * Creates a new DefaultRunbookRetriever, optionally searching chunks only inside the runbooks
+   * that rank best as a whole.
+   *
+   * @param embeddingService the service to generate embeddings for query context
+   * @param vectorStore the repository to search for similar chunks
+   * @param filterByShape whether to restrict the search to chunks applicable to the resource shape
+   * @param batchWindow how long a search waits for concurrent searches to batch with; zero
+   *     disables batching
+   * @param runbookLimit how many runbooks the chunk search is restricted to; zero searches every
+   *     chunk
+   * @throws IllegalArgumentException if runbookLimit is negative
+   */
+  public DefaultRunbookRetriever(
+      EmbeddingService embeddingService,
+      VectorStoreRepository vectorStore,
+      boolean filterByShape,
+      Duration batchWindow,
+      int runbookLimit) {
+    this(embeddingService, vectorStore, filterByShape, batchWindow, runbookLimit, null);
+  }
+
+  /**
+   * Creates a new DefaultRunbookRetriever, optionally fusing vector candidates with keyword
+   * matches from a lexical index.
+   *
+   * @param embeddingService the service to generate embeddings for query context
+   * @param vectorStore the repository to search for similar chunks
+   * @param filterByShape whether to restrict the search to chunks applicable to the resource shape
+   * @param batchWindow how long a search waits for concurrent searches to batch with; zero
+   *     disables batching
+   * @param runbookLimit how many runbooks the chunk search is restricted to; zero searches every
+   *     chunk
+   * @param lexicalIndex the keyword index to fuse with the vector candidates, or null for vector
+   *     retrieval only
+   * @throws IllegalArgumentException if runbookLimit is negative
+   */
+  public DefaultRunbookRetriever(
+      EmbeddingService embeddingService,
+      VectorStoreRepository vectorStore,
+      boolean filterByShape,
+      Duration batchWindow,
+      int runbookLimit,
+      LexicalIndex lexicalIndex) {
+    if (runbookLimit < 0) {
+      throw new IllegalArgumentException("runbookLimit cannot be negative");
+    }
     this.embeddingService =
         Objects.requireNonNull(embeddingService, "embeddingService cannot be null");
     this.vectorStore = Objects.requireNonNull(vectorStore, "vectorStore cannot be null");
+    this.filterByShape = filterByShape;
+    Objects.requireNonNull(batchWindow, "batchWindow cannot be null");
+    this.batcher =
+        batchWindow.isZero() || batchWindow.isNegative()
+            ? null
+            : new SearchBatcher(vectorStore, batchWindow, MAX_SEARCH_BATCH);
+    this.runbookLimit = runbookLimit;
+    this.lexicalIndex = lexicalIndex;
   }
 
   /** {@inheritDoc} */
@@ -54,73 +188,144 @@ public class DefaultRunbookRetriever implements RunbookRetriever {
     // 1. Embed the enriched context (alert + resource metadata)
     float[] queryEmbedding = embeddingService.embedContext(context).join();
 
-    // 2. Fetch candidates (over-fetch by 2x for re-ranking)
-    List<ScoredChunk> candidates = vectorStore.search(queryEmbedding, topK * 2);
+    // 2. Optionally narrow the search to the runbooks that match best as a whole
+    VectorSearchFilter filter = searchFilter(context);
+    if (runbookLimit > 0) {
+      List<String> runbooks = vectorStore.searchRunbooks(queryEmbedding, runbookLimit, filter);
+      if (runbooks.isEmpty()) {
+        return List.of();
+      }
+      filter = filter.withRunbookPaths(runbooks);
+    }
+
+    // 3. Fetch candidates (over-fetch by 2x for re-ranking), restricted to the shape if enabled
+    List<SearchHit> hits =
+        batcher == null
+            ? vectorStore.searchHits(queryEmbedding, topK * 2, filter)
+            : batcher.search(queryEmbedding, topK * 2, filter);
 
-    // 3. Apply metadata boosting and re-rank
+    // 4. Fuse with the keyword matches, if hybrid retrieval is enabled
+    List<Candidate> candidates =
+        lexicalIndex == null
+            ? hits.stream().map(hit -> new Candidate(hit, hit.similarityScore())).toList()
+            : fuse(hits, lexicalIndex.search(lexicalQuery(context), topK * 2, filter));
+
+    // 5. Apply metadata boosting and re-rank
+    BoostContext boosts = new BoostContext(context);
     return candidates.stream()
-        .map(scoredChunk -> calculateRetrievedChunk(scoredChunk, context))
+        .map(candidate -> calculateRetrievedChunk(candidate, boosts))
         .sorted(Comparator.comparingDouble(RetrievedChunk::finalScore).reversed())
         .limit(topK)
         .collect(Collectors.toList());
   }
 
-  private RetrievedChunk calculateRetrievedChunk(ScoredChunk scoredChunk, EnrichedContext context) {
-    RunbookChunk chunk = scoredChunk.chunk();
-    double similarityScore = scoredChunk.similarityScore();
+  /** Returns the alert text matched against the lexical index. */
+  private static String lexicalQuery(EnrichedContext context) {
+    StringBuilder query = new StringBuilder(context.alert().title());
+    if (context.alert().message() != null) {
+      query.append(' ').append(context.alert().message());
+    }
+    context.alert().dimensions().values().forEach(value -> query.append(' ').append(value));
+    context.alert().labels().values().forEach(value -> query.append(' ').append(value));
+    return query.toString();
+  }
+
+  /**
+   * Merges two ranked candidate lists by reciprocal rank fusion, scaled so a chunk ranked first in
+   * both scores 1. Each hit keeps its cosine similarity from the vector search, or 0 if only the
+   * keyword index found it; the fused score is carried next to it for ranking.
+   */
+  private static List<Candidate> fuse(List<SearchHit> vectorHits, List<SearchHit> lexicalHits) {
+    Map<String, SearchHit> hits = new LinkedHashMap<>();
+    Map<String, Double> scores = new HashMap<>();
+    for (SearchHit hit : vectorHits) {
+      hits.putIfAbsent(hit.id(), hit);
+    }
+    for (SearchHit hit : lexicalHits) {
+      // BM25 scores are not similarities
+      hits.putIfAbsent(hit.id(), hit.withSimilarityScore(0.0));
+    }
+    for (List<SearchHit> ranked : List.of(vectorHits, lexicalHits)) {
+      for (int rank = 0; rank < ranked.size(); rank++) {
+        scores.merge(ranked.get(rank).id(), (RRF_K + 1) / 2.0 / (RRF_K + rank + 1), Double::sum);
+      }
+    }
+    return hits.values().stream().map(hit -> new Candidate(hit, scores.get(hit.id()))).toList();
+  }
 
-    double tagBoost = calculateTagBoost(chunk, context);
-    double shapeBoost = calculateShapeBoost(chunk, context);
+  private VectorSearchFilter searchFilter(EnrichedContext context) {
+    if (!filterByShape || context.resource() == null || context.resource().shape() == null) {
+      return VectorSearchFilter.none();
+    }
+    return VectorSearchFilter.forShape(context.resource().shape());
+  }
+
+  private RetrievedChunk calculateRetrievedChunk(Candidate candidate, BoostContext boosts) {
+    RunbookChunk chunk = candidate.hit().toChunk();
+    double similarityScore = candidate.hit().similarityScore();
+
+    double tagBoost = boosts.tagBoost(chunk.tags());
+    double shapeBoost = boosts.shapeBoost(chunk.applicableShapes());
     double metadataBoost = tagBoost + shapeBoost;
 
-    double finalScore = similarityScore + metadataBoost;
+    double finalScore = candidate.rankScore() + metadataBoost;
 
     return new RetrievedChunk(chunk, similarityScore, metadataBoost, finalScore);
   }
 
-  private double calculateTagBoost(RunbookChunk chunk, EnrichedContext context) {
-    if (chunk.tags() == null || chunk.tags().isEmpty()) {
-      return 0.0;
-    }
+  /**
+   * A candidate chunk and the score it is ranked by before metadata boosts: its similarity score,
+   * or its fused score with hybrid retrieval.
+   */
+  private record Candidate(SearchHit hit, double rankScore) {}
 
-    // Match tags against alert dimensions and labels
-    long matchCount =
-        chunk.tags().stream()
-            .filter(
-                tag ->
-                    context.alert().dimensions().containsKey(tag)
-                        || context.alert().labels().containsKey(tag)
-                        || context.alert().title().toLowerCase().contains(tag.toLowerCase()))
-            .count();
-
-    return Math.min(matchCount * TAG_BOOST_WEIGHT, MAX_TAG_BOOST);
-  }
+  /**
+   * The alert-side half of the metadata boosts, computed once per retrieval: the alert's dimension
+   * and label keys as one set and its lowercased title, and the resource shape. Candidates share
+   * few distinct tags and shape globs, so each tag and glob is evaluated once and remembered for
+   * the rest of the candidates.
+   */
+  private static final class BoostContext {
 
-  private double calculateShapeBoost(RunbookChunk chunk, EnrichedContext context) {
-    if (chunk.applicableShapes() == null
-        || chunk.applicableShapes().isEmpty()
-        || context.resource() == null
-        || context.resource().shape() == null) {
-      return 0.0;
-    }
+    private final Set<String> alertKeys = new HashSet<>();
+    private final String alertTitle;
+    private final String resourceShape;
+    private final Map<String, Boolean> tagMatches = new HashMap<>();
+    private final Map<String, Boolean> shapeMatches = new HashMap<>();
 
-    String resourceShape = context.resource().shape();
-    boolean matches =
-        chunk.applicableShapes().stream().anyMatch(pattern -> matchesShape(pattern, resourceShape));
+    BoostContext(EnrichedContext context) {
+      alertKeys.addAll(context.alert().dimensions().keySet());
+      alertKeys.addAll(context.alert().labels().keySet());
+      alertTitle = context.alert().title().toLowerCase(Locale.ROOT);
+      resourceShape = context.resource() != null ? context.resource().shape() : null;
+    }
 
-    return matches ? SHAPE_BOOST_WEIGHT : 0.0;
-  }
+    /** Matches tags against alert dimensions, labels and title. */
+    double tagBoost(List<String> tags) {
+      int matchCount = 0;
+      for (String tag : tags) {
+        if (tagMatches.computeIfAbsent(tag, this::matchesAlert)) {
+          matchCount++;
+        }
+      }
+      return Math.min(matchCount * TAG_BOOST_WEIGHT, MAX_TAG_BOOST);
+    }
 
-  private boolean matchesShape(String pattern, String shape) {
-    if (pattern.equals("*") || pattern.equalsIgnoreCase("all")) {
-      return true;
+    double shapeBoost(List<String> applicableShapes) {
+      if (resourceShape == null) {
+        return 0.0;
+      }
+      for (String pattern : applicableShapes) {
+        if (shapeMatches.computeIfAbsent(
+            pattern, glob -> ShapePattern.compile(glob).matches(resourceShape))) {
+          return SHAPE_BOOST_WEIGHT;
+        }
+      }
+      return 0.0;
     }
-    // Convert simple glob pattern to regex
-    String regex = pattern.replace(".", "\\.").replace("*", ".*");
-    try {
-      return Pattern.compile("^" + regex + "$", Pattern.CASE_INSENSITIVE).matcher(shape).matches();
-    } catch (Exception e) {
-      return false;
+
+    private boolean matchesAlert(String tag) {
+      return alertKeys.contains(tag) || alertTitle.contains(tag.toLowerCase(Locale.ROOT));
     }
   }
 }
@@ -0,0 +1,329 @@
+package com.oracle.runbook.rag;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * In-process inverted index over chunk section titles and content, scored with BM25.
+ *
+ * <p>Alarm names, error codes and CLI snippets such as {@code CPUUtilization}, {@code ORA-04031}
+ * or {@code df -h} are matched poorly by embeddings alone; this index finds the chunks that
+ * contain them literally, so {@link DefaultRunbookRetriever} can fuse its hits with the vector
+ * candidates.
+ *
+ * <p>Text is split into lowercase runs of letters and digits. A word joined by {@code -}, {@code
+ * _} or {@code .} is indexed both as its parts and as a whole, so {@code ORA-04031} matches the
+ * exact code more strongly than either half.
+ *
+ * <p>The index mirrors the vector store generation by generation: {@link
+ * #replaceRunbooks(Collection, List)} swaps the chunks of whole runbooks, as {@link
+ * RunbookIngestionService} does in the vector store. Each swap builds a new immutable posting
+ * snapshot, so searches never lock and never see half a swap. A swap re-posts the terms of every
+ * indexed chunk, in time linear in the corpus but without tokenizing it again; ingestion swaps
+ * far less often than it embeds. Only chunk text and metadata are kept, not embeddings.
+ *
+ * <p>Like the vector stores, the index keeps a chunk shared by several runbooks until its last
+ * {@link RunbookChunk#sourceRunbookPaths() source} is replaced.
+ */
+public final class LexicalIndex {
+
+  /** BM25 term frequency saturation. */
+  private static final double K1 = 1.2;
+
+  /** BM25 document length normalization. */
+  private static final double B = 0.75;
+
+  // Guarded by this; read only to build snapshots
+  private final Map<String, Document> documentsById = new LinkedHashMap<>();
+  private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+  /**
+   * Replaces the chunks of the given runbooks with a new generation in one swap. Runbooks listed
+   * but absent from the chunks are removed.
+   *
+   * @param runbookPaths the runbooks whose chunks are replaced
+   * @param chunks the new chunks, each belonging to at least one of the listed runbooks
+   * @throws IllegalArgumentException if a chunk belongs to none of the listed runbooks
+   */
+  public synchronized void replaceRunbooks(
+      Collection<String> runbookPaths, List<RunbookChunk> chunks) {
+    Objects.requireNonNull(runbookPaths, "runbookPaths cannot be null");
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    for (RunbookChunk chunk : chunks) {
+      if (chunk.sourceRunbookPaths().stream().noneMatch(runbookPaths::contains)) {
+        throw new IllegalArgumentException(
+            "Chunk runbook " + chunk.runbookPath() + " is not among the replaced runbooks");
+      }
+    }
+    Iterator<Map.Entry<String, Document>> entries = documentsById.entrySet().iterator();
+    while (entries.hasNext()) {
+      Map.Entry<String, Document> entry = entries.next();
+      SearchHit hit = entry.getValue().hit();
+      List<String> remaining = new ArrayList<>(hit.sourceRunbookPaths());
+      if (!remaining.removeAll(runbookPaths)) {
+        continue;
+      }
+      if (remaining.isEmpty()) {
+        entries.remove();
+      } else {
+        entry.setValue(entry.getValue().withHit(hit.withSourceRunbookPaths(remaining)));
+      }
+    }
+    put(chunks);
+    snapshot = Snapshot.build(documentsById.values());
+  }
+
+  /**
+   * Replaces the whole index with the given chunks, for example after the vector store was
+   * restored or bootstrapped without ingestion.
+   *
+   * @param chunks the chunks to index
+   */
+  public synchronized void load(List<RunbookChunk> chunks) {
+    Objects.requireNonNull(chunks, "chunks cannot be null");
+    documentsById.clear();
+    put(chunks);
+    snapshot = Snapshot.build(documentsById.values());
+  }
+
+  /**
+   * Returns the number of indexed chunks.
+   *
+   * @return the chunk count
+   */
+  public int size() {
+    return snapshot.documents.length;
+  }
+
+  /**
+   * Finds the chunks that best match the terms of a query.
+   *
+   * @param query free text; its distinct terms are scored
+   * @param topK the maximum number of hits
+   * @param filter restricts the hits to matching chunks
+   * @return hits by descending BM25 score, carried as their similarity score; empty when no term
+   *     of the query is indexed
+   * @throws IllegalArgumentException if topK is not positive
+   */
+  public List<SearchHit> search(String query, int topK, VectorSearchFilter filter) {
+    Objects.requireNonNull(query, "query cannot be null");
+    Objects.requireNonNull(filter, "filter cannot be null");
+    if (topK <= 0) {
+      throw new IllegalArgumentException("topK must be positive");
+    }
+    Snapshot current = snapshot;
+    if (current.documents.length == 0) {
+      return List.of();
+    }
+
+    float[] scores = null;
+    int[] touched = null;
+    int touchedCount = 0;
+    for (String term : new LinkedHashSet<>(tokenize(query))) {
+      Postings postings = current.postings.get(term);
+      if (postings == null) {
+        continue;
+      }
+      if (scores == null) {
+        scores = new float[current.documents.length];
+        touched = new int[current.documents.length];
+      }
+      int n = postings.documents.length;
+      double idf = Math.log(1.0 + (current.documents.length - n + 0.5) / (n + 0.5));
+      for (int i = 0; i < n; i++) {
+        int document = postings.documents[i];
+        double frequency = postings.frequencies[i];
+        double norm =
+            K1 * (1.0 - B + B * current.documents[document].length / current.averageLength);
+        if (scores[document] == 0.0f) {
+          touched[touchedCount++] = document;
+        }
+        scores[document] += (float) (idf * frequency * (K1 + 1.0) / (frequency + norm));
+      }
+    }
+    if (touchedCount == 0) {
+      return List.of();
+    }
+
+    // Min-heap of the best documents so far; ties keep the earlier document
+    float[] finalScores = scores;
+    PriorityQueue<Integer> best =
+        new PriorityQueue<>(
+            (a, b) -> {
+              int byScore = Float.compare(finalScores[a], finalScores[b]);
+              return byScore != 0 ? byScore : Integer.compare(b, a);
+            });
+    for (int i = 0; i < touchedCount; i++) {
+      int document = touched[i];
+      if (!filter.isEmpty() && !filter.matches(current.documents[document].hit)) {
+        continue;
+      }
+      best.add(document);
+      if (best.size() > topK) {
+        best.poll();
+      }
+    }
+
+    SearchHit[] hits = new SearchHit[best.size()];
+    for (int i = hits.length - 1; i >= 0; i--) {
+      int document = best.poll();
+      hits[i] = current.documents[document].hit.withSimilarityScore(scores[document]);
+    }
+    return List.of(hits);
+  }
+
+  /**
+   * Splits text into index terms.
+   *
+   * @param text the text
+   * @return the terms in order, with repeats
+   */
+  static List<String> tokenize(String text) {
+    List<String> terms = new ArrayList<>();
+    if (text == null) {
+      return terms;
+    }
+    int length = text.length();
+    int i = 0;
+    while (i < length) {
+      // A word is a run of letters, digits and inner joiners
+      while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+        i++;
+      }
+      int start = i;
+      int end = i;
+      int parts = 0;
+      while (i < length) {
+        char c = text.charAt(i);
+        if (Character.isLetterOrDigit(c)) {
+          int partStart = i;
+          while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+            i++;
+          }
+          terms.add(text.substring(partStart, i).toLowerCase(Locale.ROOT));
+          parts++;
+          end = i;
+        } else if (isJoiner(c) && i + 1 < length && Character.isLetterOrDigit(text.charAt(i + 1))) {
+          i++;
+        } else {
+          break;
+        }
+      }
+      if (parts > 1) {
+        terms.add(text.substring(start, end).toLowerCase(Locale.ROOT));
+      }
+    }
+    return terms;
+  }
+
+  private static boolean isJoiner(char c) {
+    return c == '-' || c == '_' || c == '.';
+  }
+
+  /** Indexes chunks, replacing any indexed chunk with the same id. */
+  private void put(List<RunbookChunk> chunks) {
+    for (RunbookChunk chunk : chunks) {
+      documentsById.put(chunk.id(), Document.of(chunk));
+    }
+  }
+
+  /** An indexed chunk: its text and metadata, and its distinct terms with their frequencies. */
+  private record Document(SearchHit hit, String[] terms, int[] frequencies, int length) {
+
+    static Document of(RunbookChunk chunk) {
+      List<String> terms = tokenize(chunk.sectionTitle());
+      terms.addAll(tokenize(chunk.content()));
+      Map<String, Integer> counts = new LinkedHashMap<>();
+      for (String term : terms) {
+        counts.merge(term, 1, Integer::sum);
+      }
+      String[] distinct = new String[counts.size()];
+      int[] frequencies = new int[counts.size()];
+      int i = 0;
+      for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+        distinct[i] = entry.getKey();
+        frequencies[i++] = entry.getValue();
+      }
+      return new Document(SearchHit.of(chunk, 0.0), distinct, frequencies, terms.size());
+    }
+
+    Document withHit(SearchHit hit) {
+      return new Document(hit, terms, frequencies, length);
+    }
+  }
+
+  /** The documents containing a term, by index, with the term's frequency in each. */
+  private record Postings(int[] documents, int[] frequencies) {}
+
+  /** A posting list under construction. */
+  private static final class PostingsBuilder {
+    int[] documents = new int[4];
+    int[] frequencies = new int[4];
+    int size;
+
+    void add(int document, int frequency) {
+      if (size == documents.length) {
+        documents = Arrays.copyOf(documents, size * 2);
+        frequencies = Arrays.copyOf(frequencies, size * 2);
+      }
+      documents[size] = document;
+      frequencies[size++] = frequency;
+    }
+
+    Postings build() {
+      return new Postings(Arrays.copyOf(documents, size), Arrays.copyOf(frequencies, size));
+    }
+  }
+
+  /** An immutable generation of the index. */
+  private static final class Snapshot {
+
+    static final Snapshot EMPTY = new Snapshot(new Document[0], Map.of(), 0.0);
+
+    final Document[] documents;
+    final Map<String, Postings> postings;
+    final double averageLength;
+
+    private Snapshot(Document[] documents, Map<String, Postings> postings, double averageLength) {
+      this.documents = documents;
+      this.postings = postings;
+      this.averageLength = averageLength;
+    }
+
+    static Snapshot build(Collection<Document> all) {
+      if (all.isEmpty()) {
+        return EMPTY;
+      }
+      Document[] documents = all.toArray(new Document[0]);
+
+      Map<String, PostingsBuilder> builders = new HashMap<>();
+      long totalLength = 0;
+      for (int d = 0; d < documents.length; d++) {
+        Document document = documents[d];
+        totalLength += document.length;
+        for (int t = 0; t < document.terms.length; t++) {
+          builders
+              .computeIfAbsent(document.terms[t], term -> new PostingsBuilder())
+              .add(d, document.frequencies[t]);
+        }
+      }
+      Map<String, Postings> postings = new HashMap<>(builders.size() * 2);
+      builders.forEach((term, builder) -> postings.put(term, builder.build()));
+      // An all-empty corpus has length 0; keep the normalization finite
+      double averageLength = Math.max(1.0, (double) totalLength / documents.length);
+      return new Snapshot(documents, postings, averageLength);
+    }
+  }
+}
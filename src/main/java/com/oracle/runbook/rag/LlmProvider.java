@@ -28,6 +28,19 @@ public interface LlmProvider {
    */
   String providerId();
 
+  /**
+   * Returns an identifier of the model behind {@link #generateEmbedding(String)}, so embeddings
+   * cached for one model are never served for another.
+   *
+   * <p>The default is the {@link #providerId() provider identifier}; providers with a configurable
+   * embedding model include it.
+   *
+   * @return the embedding model identifier, never null
+   */
+  default String embeddingModelId() {
+    return providerId();
+  }
+
   /**
    * Generates text based on the provided prompt and configuration.
    *
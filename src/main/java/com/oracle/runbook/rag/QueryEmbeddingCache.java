@@ -0,0 +1,195 @@
+package com.oracle.runbook.rag;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, expiring cache of query embeddings with single-flight loading.
+ *
+ * <p>During an alert storm the same alarm fires many times with identical text, and each firing
+ * would otherwise wait on a remote embedding call before retrieval. Entries are keyed by a SHA-256
+ * hash of the embedding model id and the formatted query text, so a model change never serves
+ * stale vectors and keys stay small however long the text is.
+ *
+ * <p>A miss stores the pending load before it starts, so concurrent requests for the same text
+ * share one call to the provider. A load that fails is dropped, and the next request retries it.
+ * Entries expire a fixed time after their load started, and the least recently used entry is
+ * evicted beyond {@code maxEntries}. Each caller receives its own copy of the embedding.
+ */
+public final class QueryEmbeddingCache {
+
+  /** Default maximum number of cached embeddings. */
+  public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+  /** Default time an embedding stays cached. */
+  public static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+  private final int maxEntries;
+  private final Duration ttl;
+  private final LongSupplier nanoClock;
+  private final Map<String, Entry> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Creates a cache.
+   *
+   * @param maxEntries the maximum number of cached embeddings
+   * @param ttl how long an embedding stays cached
+   * @throws IllegalArgumentException if maxEntries or ttl is not positive
+   */
+  public QueryEmbeddingCache(int maxEntries, Duration ttl) {
+    this(maxEntries, ttl, System::nanoTime);
+  }
+
+  /** Creates a cache reading time from the given nanosecond clock, for tests. */
+  QueryEmbeddingCache(int maxEntries, Duration ttl, LongSupplier nanoClock) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("maxEntries must be positive");
+    }
+    Objects.requireNonNull(ttl, "ttl cannot be null");
+    if (ttl.isZero() || ttl.isNegative()) {
+      throw new IllegalArgumentException("ttl must be positive");
+    }
+    this.maxEntries = maxEntries;
+    this.ttl = ttl;
+    this.nanoClock = Objects.requireNonNull(nanoClock, "nanoClock cannot be null");
+    // Access order, so the eldest entry is the least recently used
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > QueryEmbeddingCache.this.maxEntries) {
+              evictions.increment();
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  /**
+   * Returns the cached embedding of a query text, loading it on a miss.
+   *
+   * @param modelId identifies the embedding model, so models never share entries
+   * @param text the formatted query text
+   * @param loader starts the embedding call for the text
+   * @return a future of a copy of the embedding
+   */
+  public CompletableFuture<float[]> get(
+      String modelId, String text, Function<String, CompletableFuture<float[]>> loader) {
+    Objects.requireNonNull(modelId, "modelId cannot be null");
+    Objects.requireNonNull(text, "text cannot be null");
+    Objects.requireNonNull(loader, "loader cannot be null");
+    String key = key(modelId, text);
+    long now = nanoClock.getAsLong();
+
+    Entry entry;
+    CompletableFuture<float[]> load = null;
+    synchronized (entries) {
+      entry = entries.get(key);
+      if (entry == null || now - entry.loadedAtNanos() >= ttl.toNanos()) {
+        load = new CompletableFuture<>();
+        entry = new Entry(load, now);
+        entries.put(key, entry);
+      }
+    }
+
+    if (load == null) {
+      hits.increment();
+    } else {
+      misses.increment();
+      startLoad(key, entry, text, loader);
+    }
+    return entry.embedding().thenApply(float[]::clone);
+  }
+
+  /**
+   * Returns the cache's counters.
+   *
+   * @return a snapshot of the statistics
+   */
+  public Stats stats() {
+    int size;
+    synchronized (entries) {
+      size = entries.size();
+    }
+    return new Stats(hits.sum(), misses.sum(), evictions.sum(), size, maxEntries, ttl);
+  }
+
+  /** Runs the loader outside the lock and completes the shared future with its result. */
+  private void startLoad(
+      String key, Entry entry, String text, Function<String, CompletableFuture<float[]>> loader) {
+    CompletableFuture<float[]> load = entry.embedding();
+    CompletableFuture<float[]> call;
+    try {
+      call = loader.apply(text);
+    } catch (RuntimeException e) {
+      call = CompletableFuture.failedFuture(e);
+    }
+    call.whenComplete(
+        (embedding, error) -> {
+          if (error != null || embedding == null) {
+            // Drop the failed load, unless it has been replaced already, so the next call retries
+            synchronized (entries) {
+              entries.remove(key, entry);
+            }
+            load.completeExceptionally(
+                error != null ? error : new IllegalStateException("Embedding was null"));
+          } else {
+            load.complete(embedding);
+          }
+        });
+  }
+
+  private static String key(String modelId, String text) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(modelId.getBytes(StandardCharsets.UTF_8));
+      // Separates the model id from the text, so no pair of them hashes the same bytes
+      digest.update((byte) 0);
+      digest.update(text.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /** A cached or pending embedding and when its load started. */
+  private record Entry(CompletableFuture<float[]> embedding, long loadedAtNanos) {}
+
+  /**
+   * Cache statistics.
+   *
+   * @param hits requests served from the cache, including ones that joined a pending load
+   * @param misses requests that started a load
+   * @param evictions entries evicted to stay within maxEntries
+   * @param size the number of cached or pending embeddings
+   * @param maxEntries the maximum number of cached embeddings
+   * @param ttl how long an embedding stays cached
+   */
+  public record Stats(
+      long hits, long misses, long evictions, int size, int maxEntries, Duration ttl) {
+
+    /**
+     * Returns the share of requests served from the cache.
+     *
+     * @return the hit rate between 0 and 1, or 0 before any request
+     */
+    public double hitRate() {
+      long requests = hits + misses;
+      return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+  }
+}
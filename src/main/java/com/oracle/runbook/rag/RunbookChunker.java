@@ -32,6 +32,8 @@ public class RunbookChunker {
   private static final Pattern SHAPES_PATTERN =
       Pattern.compile("applicable_shapes:\\s*\\n((?:\\s+-\\s*.+\\n?)+)", Pattern.MULTILINE);
   private static final Pattern LIST_ITEM_PATTERN = Pattern.compile("-\\s*(.+)");
+  private static final Pattern TOP_HEADER_PATTERN =
+      Pattern.compile("^#\\s+(.+)$", Pattern.MULTILINE);
   private static final Pattern HEADER_PATTERN =
       Pattern.compile("^(#{2,3})\\s+(.+)$", Pattern.MULTILINE);
   private static final Pattern CODE_BLOCK_PATTERN = Pattern.compile("```[^`]*```", Pattern.DOTALL);
@@ -191,6 +193,32 @@ public class RunbookChunker {
     }
   }
 
+  /**
+   * Returns the title of a runbook: its frontmatter {@code title}, else its first top-level
+   * heading, else its file name without the extension.
+   *
+   * @param content the markdown content
+   * @param runbookPath the path to the source runbook file
+   * @return the title, never null
+   * @throws NullPointerException if content or runbookPath is null
+   */
+  public String title(String content, String runbookPath) {
+    Objects.requireNonNull(content, "content cannot be null");
+    Objects.requireNonNull(runbookPath, "runbookPath cannot be null");
+
+    String title = extractFrontmatter(content).title();
+    if (title != null && !title.isBlank()) {
+      return title;
+    }
+    Matcher headerMatcher = TOP_HEADER_PATTERN.matcher(removeFrontmatter(content));
+    if (headerMatcher.find()) {
+      return headerMatcher.group(1).trim();
+    }
+    String fileName = runbookPath.substring(runbookPath.lastIndexOf('/') + 1);
+    int extension = fileName.lastIndexOf('.');
+    return extension > 0 ? fileName.substring(0, extension) : fileName;
+  }
+
   private Frontmatter extractFrontmatter(String content) {
     Matcher matcher = FRONTMATTER_PATTERN.matcher(content);
     if (!matcher.find()) {
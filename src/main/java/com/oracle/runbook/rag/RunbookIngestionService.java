@@ -3,30 +3,76 @@ package com.oracle.runbook.rag;
 import com.oracle.runbook.domain.RunbookChunk;
 import com.oracle.runbook.infrastructure.cloud.CloudStorageAdapter;
 import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import com.oracle.runbook.rag.ChunkDeduplicator.DuplicateGroup;
+import com.oracle.runbook.rag.ChunkDeduplicator.SourcedChunk;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for ingesting runbooks from cloud storage into the vector store.
  *
- * <p>Orchestrates the ingestion pipeline: fetch → chunk → embed → store.
+ * <p>Orchestrates the ingestion pipeline: fetch → chunk → deduplicate → embed → swap.
+ *
+ * <p>With a {@link ChunkDeduplicator}, near-duplicate chunks are collapsed before they are
+ * embedded, so a section pasted into many runbooks costs one embedding call and one stored chunk,
+ * and takes one top-K slot at retrieval. {@link #ingestAll(String)} collapses across every runbook
+ * in the container; the stored chunk lists every runbook that contains it as its {@link
+ * RunbookChunk#sourceRunbookPaths() sources}, and carries the tags and applicable shapes of all of
+ * them. Stores keep such a chunk until its last source runbook is deleted or replaced. {@link
+ * #ingest(String, String)} collapses within the one runbook, and keeps each stored chunk the
+ * runbook shares with others if it still contains a near-duplicate of it: the chunk keeps its id,
+ * sources and embedding, and is not embedded again. Its tags and shapes are recomputed from the
+ * sections that currently repeat it, in this runbook and in its other sources, which are fetched
+ * and chunked for the purpose, so a tag or shape a runbook drops is dropped from the chunk too. A
+ * section that newly repeats another runbook's is stored separately until the next {@link
+ * #ingestAll(String)}.
+ *
+ * <p>Texts are embedded in calls of at most {@value #EMBEDDING_BATCH_SIZE}, one after the other,
+ * so a large container never becomes one oversized provider request.
+ *
+ * <p>Re-indexing builds a new generation of chunks before touching the store: runbooks are fetched,
+ * chunked and embedded first, and only then swapped in with one {@link
+ * VectorStoreRepository#replaceRunbooks(List, List)} call, for a single runbook or for the whole
+ * container. Searches meanwhile keep seeing the previous generation, and a fetch or embedding
+ * failure leaves it in place.
+ *
+ * <p>With title embeddings enabled, each runbook's {@link RunbookChunker#title title} is embedded
+ * in the same batch as its chunks and passed to {@link
+ * VectorStoreRepository#storeRunbookTitles(Map)} after the swap, so stores with a runbook-level
+ * index can fold it into the runbook's centroid for two-stage retrieval.
+ *
+ * <p>With a {@link LexicalIndex}, the same generation is swapped into the index right after the
+ * vector store, so keyword matches and vectors are built from the same chunks.
  *
  * @see RunbookChunker
+ * @see ChunkDeduplicator
+ * @see LexicalIndex
  * @see EmbeddingService
  * @see VectorStoreRepository
  */
 public class RunbookIngestionService {
 
+  /** Most texts per embedding call; OCI Generative AI's Cohere models accept at most 96. */
+  static final int EMBEDDING_BATCH_SIZE = 96;
+
   private final CloudStorageAdapter storageAdapter;
   private final RunbookChunker chunker;
   private final EmbeddingService embeddingService;
   private final VectorStoreRepository vectorStore;
+  private final ChunkDeduplicator deduplicator;
+  private final boolean embedTitles;
+  private final LexicalIndex lexicalIndex;
 
   /**
-   * Creates a new RunbookIngestionService.
+   * Creates a new RunbookIngestionService that stores every chunk.
    *
    * @param storageAdapter adapter for fetching runbook content
    * @param chunker parses runbooks into semantic chunks
@@ -39,76 +85,116 @@ public class RunbookIngestionService {
       RunbookChunker chunker,
       EmbeddingService embeddingService,
       VectorStoreRepository vectorStore) {
+    this(storageAdapter, chunker, embeddingService, vectorStore, null);
+  }
+
+  /**
+   * Creates a new RunbookIngestionService.
+   *
+   * @param storageAdapter adapter for fetching runbook content
+   * @param chunker parses runbooks into semantic chunks
+   * @param embeddingService generates embeddings for chunks
+   * @param vectorStore stores chunks with embeddings
+   * @param deduplicator collapses near-duplicate chunks before embedding, or null to store every
+   *     chunk
+   * @throws NullPointerException if any argument other than deduplicator is null
+   */
+  public RunbookIngestionService(
+      CloudStorageAdapter storageAdapter,
+      RunbookChunker chunker,
+      EmbeddingService embeddingService,
+      VectorStoreRepository vectorStore,
+      ChunkDeduplicator deduplicator) {
+    this(storageAdapter, chunker, embeddingService, vectorStore, deduplicator, false);
+  }
+
+  /**
+   * Creates a new RunbookIngestionService that optionally embeds runbook titles.
+   *
+   * @param storageAdapter adapter for fetching runbook content
+   * @param chunker parses runbooks into semantic chunks
+   * @param embeddingService generates embeddings for chunks
+   * @param vectorStore stores chunks with embeddings
+   * @param deduplicator collapses near-duplicate chunks before embedding, or null to store every
+   *     chunk
+   * @param embedTitles whether to embed each runbook's title and store it with {@link
+   *     VectorStoreRepository#storeRunbookTitles(Map)}
+   * @throws NullPointerException if any argument other than deduplicator is null
+   */
+  public RunbookIngestionService(
+      CloudStorageAdapter storageAdapter,
+      RunbookChunker chunker,
+      EmbeddingService embeddingService,
+      VectorStoreRepository vectorStore,
+      ChunkDeduplicator deduplicator,
+      boolean embedTitles) {
+    this(storageAdapter, chunker, embeddingService, vectorStore, deduplicator, embedTitles, null);
+  }
+
+  /**
+   * Creates a new RunbookIngestionService that optionally maintains a keyword index.
+   *
+   * @param storageAdapter adapter for fetching runbook content
+   * @param chunker parses runbooks into semantic chunks
+   * @param embeddingService generates embeddings for chunks
+   * @param vectorStore stores chunks with embeddings
+   * @param deduplicator collapses near-duplicate chunks before embedding, or null to store every
+   *     chunk
+   * @param embedTitles whether to embed each runbook's title and store it with {@link
+   *     VectorStoreRepository#storeRunbookTitles(Map)}
+   * @param lexicalIndex the keyword index to swap each generation into, or null for none
+   * @throws NullPointerException if any argument other than deduplicator and lexicalIndex is null
+   */
+  public RunbookIngestionService(
+      CloudStorageAdapter storageAdapter,
+      RunbookChunker chunker,
+      EmbeddingService embeddingService,
+      VectorStoreRepository vectorStore,
+      ChunkDeduplicator deduplicator,
+      boolean embedTitles,
+      LexicalIndex lexicalIndex) {
     this.storageAdapter = Objects.requireNonNull(storageAdapter, "storageAdapter cannot be null");
     this.chunker = Objects.requireNonNull(chunker, "chunker cannot be null");
     this.embeddingService =
         Objects.requireNonNull(embeddingService, "embeddingService cannot be null");
     this.vectorStore = Objects.requireNonNull(vectorStore, "vectorStore cannot be null");
+    this.deduplicator = deduplicator;
+    this.embedTitles = embedTitles;
+    this.lexicalIndex = lexicalIndex;
   }
 
   /**
-   * Ingests a single runbook from storage and stores its chunks in the vector store.
+   * Ingests a single runbook from storage, replacing any chunks already stored for it.
+   *
+   * <p>A runbook that no longer exists in storage has its chunks removed.
    *
    * @param containerName the S3 bucket or OCI container name
    * @param runbookPath the path to the runbook file
    * @return a CompletableFuture containing the number of chunks stored
    */
   public CompletableFuture<Integer> ingest(String containerName, String runbookPath) {
-    // Delete existing chunks for this runbook (support re-indexing)
-    vectorStore.delete(runbookPath);
-
-    return storageAdapter
-        .getRunbookContent(containerName, runbookPath)
+    return fetch(containerName, runbookPath)
         .thenCompose(
-            optionalContent -> {
-              if (optionalContent.isEmpty()) {
-                return CompletableFuture.completedFuture(0);
-              }
-
-              String content = optionalContent.get();
-
-              // Parse content into chunks
-              List<RunbookChunker.ParsedChunk> parsedChunks = chunker.chunk(content, runbookPath);
-
-              if (parsedChunks.isEmpty()) {
-                return CompletableFuture.completedFuture(0);
-              }
-
-              // Generate embeddings for all chunk contents
-              List<String> chunkTexts =
-                  parsedChunks.stream().map(RunbookChunker.ParsedChunk::content).toList();
-
-              return embeddingService
-                  .embedBatch(chunkTexts)
-                  .thenApply(
-                      embeddings -> {
-                        // Create RunbookChunk domain objects with embeddings
-                        List<RunbookChunk> chunks = new ArrayList<>();
-                        for (int i = 0; i < parsedChunks.size(); i++) {
-                          RunbookChunker.ParsedChunk parsed = parsedChunks.get(i);
-                          float[] embedding = embeddings.get(i);
-
-                          RunbookChunk chunk =
-                              new RunbookChunk(
-                                  UUID.randomUUID().toString(),
-                                  runbookPath,
-                                  parsed.sectionTitle(),
-                                  parsed.content(),
-                                  parsed.tags(),
-                                  parsed.applicableShapes(),
-                                  embedding);
-                          chunks.add(chunk);
-                        }
-
-                        // Store chunks in vector store
-                        vectorStore.storeBatch(chunks);
-                        return chunks.size();
-                      });
-            });
+            runbook -> {
+              List<RunbookChunk> shared = sharedChunks(runbookPath);
+              return fetchSources(containerName, runbookPath, shared)
+                  .thenCompose(
+                      sources ->
+                          embed(
+                              collapse(runbook.chunks()),
+                              shared,
+                              sources,
+                              titles(List.of(runbook))));
+            })
+        .thenApply(generation -> replace(List.of(runbookPath), generation));
   }
 
   /**
-   * Ingests all runbooks from a storage container.
+   * Ingests all runbooks from a storage container, replacing the chunks of every listed runbook
+   * in one swap once all of them are embedded.
+   *
+   * <p>After the swap, calls {@link VectorStoreRepository#optimize()} so index-based stores can
+   * retrain or rebalance in the background.
    *
    * @param containerName the S3 bucket or OCI container name
    * @return a CompletableFuture containing the total number of chunks stored
@@ -121,13 +207,345 @@ public class RunbookIngestionService {
               if (paths.isEmpty()) {
                 return CompletableFuture.completedFuture(0);
               }
+              CompletableFuture<Generation> generation =
+                  deduplicator != null
+                      ? embedCollapsed(containerName, paths)
+                      : embedEach(containerName, paths);
+              return generation.thenApply(
+                  embedded -> {
+                    int stored = replace(paths, embedded);
+                    // Let the store reorganize its index once the bulk load has landed
+                    vectorStore.optimize();
+                    return stored;
+                  });
+            });
+  }
+
+  /** Fetches and embeds each runbook independently, with one embedding batch per runbook. */
+  private CompletableFuture<Generation> embedEach(String containerName, List<String> paths) {
+    List<CompletableFuture<Generation>> futures =
+        paths.stream()
+            .map(
+                path ->
+                    fetch(containerName, path)
+                        .thenCompose(
+                            runbook ->
+                                embed(
+                                    collapse(runbook.chunks()),
+                                    List.of(),
+                                    Map.of(),
+                                    titles(List.of(runbook)))))
+            .toList();
+
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        .thenApply(
+            v -> {
+              List<RunbookChunk> chunks = new ArrayList<>();
+              Map<String, float[]> titles = new LinkedHashMap<>();
+              for (CompletableFuture<Generation> future : futures) {
+                chunks.addAll(future.join().chunks());
+                titles.putAll(future.join().titles());
+              }
+              return new Generation(chunks, titles);
+            });
+  }
 
-              // Ingest each runbook and sum up the chunk counts
-              List<CompletableFuture<Integer>> futures =
-                  paths.stream().map(path -> ingest(containerName, path)).toList();
+  /**
+   * Fetches every runbook first, so near-duplicates are collapsed across the whole container
+   * before anything is embedded.
+   */
+  private CompletableFuture<Generation> embedCollapsed(String containerName, List<String> paths) {
+    List<CompletableFuture<FetchedRunbook>> futures =
+        paths.stream().map(path -> fetch(containerName, path)).toList();
 
-              return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                  .thenApply(v -> futures.stream().mapToInt(CompletableFuture::join).sum());
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        .thenCompose(
+            v -> {
+              List<FetchedRunbook> runbooks =
+                  futures.stream().map(CompletableFuture::join).toList();
+              List<SourcedChunk> parsedChunks = new ArrayList<>();
+              runbooks.forEach(runbook -> parsedChunks.addAll(runbook.chunks()));
+              return embed(collapse(parsedChunks), List.of(), Map.of(), titles(runbooks));
             });
   }
+
+  /**
+   * Swaps the new generation in for the given runbooks, in the keyword index too, then stores its
+   * titles, and returns its size.
+   */
+  private int replace(List<String> runbookPaths, Generation generation) {
+    vectorStore.replaceRunbooks(runbookPaths, generation.chunks());
+    if (lexicalIndex != null) {
+      lexicalIndex.replaceRunbooks(runbookPaths, generation.chunks());
+    }
+    if (!generation.titles().isEmpty()) {
+      vectorStore.storeRunbookTitles(generation.titles());
+    }
+    return generation.chunks().size();
+  }
+
+  /** Fetches a runbook and parses it into chunks; a missing runbook has none. */
+  private CompletableFuture<FetchedRunbook> fetch(String containerName, String runbookPath) {
+    return storageAdapter
+        .getRunbookContent(containerName, runbookPath)
+        .thenApply(
+            content ->
+                content
+                    .map(
+                        text ->
+                            new FetchedRunbook(
+                                runbookPath,
+                                chunker.title(text, runbookPath),
+                                chunk(text, runbookPath)))
+                    .orElse(new FetchedRunbook(runbookPath, null, List.of())));
+  }
+
+  /** Returns the titles to embed, by runbook path, for the runbooks that have chunks. */
+  private Map<String, String> titles(List<FetchedRunbook> runbooks) {
+    Map<String, String> titles = new LinkedHashMap<>();
+    if (embedTitles) {
+      for (FetchedRunbook runbook : runbooks) {
+        if (!runbook.chunks().isEmpty()) {
+          titles.put(runbook.path(), runbook.title());
+        }
+      }
+    }
+    return titles;
+  }
+
+  private List<SourcedChunk> chunk(String content, String runbookPath) {
+    return chunker.chunk(content, runbookPath).stream()
+        .map(parsed -> new SourcedChunk(runbookPath, parsed))
+        .toList();
+  }
+
+  private List<DuplicateGroup> collapse(List<SourcedChunk> parsedChunks) {
+    if (deduplicator != null) {
+      return deduplicator.collapse(parsedChunks);
+    }
+    return parsedChunks.stream()
+        .map(sourced -> new DuplicateGroup(sourced.chunk(), List.of(sourced.runbookPath()), 1))
+        .toList();
+  }
+
+  /**
+   * Returns the stored chunks a runbook shares with other runbooks, which a single-runbook ingest
+   * keeps where it still can; none without a deduplicator, or if the store cannot list a
+   * runbook's chunks.
+   */
+  private List<RunbookChunk> sharedChunks(String runbookPath) {
+    if (deduplicator == null) {
+      return List.of();
+    }
+    try {
+      return vectorStore.runbookChunks(runbookPath).stream()
+          .filter(chunk -> chunk.sourceRunbookPaths().size() > 1)
+          .toList();
+    } catch (UnsupportedOperationException e) {
+      return List.of();
+    }
+  }
+
+  /**
+   * Fetches the other source runbooks of the shared chunks, by path, so the chunks that are kept
+   * can take their tags and shapes from the sections that currently repeat them. The runbook being
+   * ingested is left out.
+   */
+  private CompletableFuture<Map<String, List<SourcedChunk>>> fetchSources(
+      String containerName, String runbookPath, List<RunbookChunk> shared) {
+    Set<String> paths = new LinkedHashSet<>();
+    shared.forEach(chunk -> paths.addAll(chunk.sourceRunbookPaths()));
+    paths.remove(runbookPath);
+    if (paths.isEmpty()) {
+      return CompletableFuture.completedFuture(Map.of());
+    }
+    List<CompletableFuture<FetchedRunbook>> futures =
+        paths.stream().map(path -> fetch(containerName, path)).toList();
+
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        .thenApply(
+            v -> {
+              Map<String, List<SourcedChunk>> sources = new HashMap<>();
+              for (CompletableFuture<FetchedRunbook> future : futures) {
+                sources.put(future.join().path(), future.join().chunks());
+              }
+              return sources;
+            });
+  }
+
+  /**
+   * Embeds the chunk contents and titles, chunks first. A group that is a near-duplicate of a
+   * stored shared chunk keeps that chunk instead of becoming a new one.
+   */
+  private CompletableFuture<Generation> embed(
+      List<DuplicateGroup> groups,
+      List<RunbookChunk> shared,
+      Map<String, List<SourcedChunk>> sources,
+      Map<String, String> titles) {
+    if (groups.isEmpty()) {
+      return CompletableFuture.completedFuture(new Generation(List.of(), Map.of()));
+    }
+    RunbookChunk[] kept = keepShared(groups, shared, sources);
+
+    // Embed the new chunks and any kept chunk the store returned without a vector, then titles
+    List<String> texts = new ArrayList<>();
+    for (int i = 0; i < groups.size(); i++) {
+      if (kept[i] == null) {
+        texts.add(groups.get(i).chunk().content());
+      } else if (kept[i].embeddingLength() == 0) {
+        texts.add(kept[i].content());
+      }
+    }
+    texts.addAll(titles.values());
+
+    return embedInBatches(texts)
+        .thenApply(
+            embeddings -> {
+              // Create RunbookChunk domain objects with embeddings
+              List<RunbookChunk> chunks = new ArrayList<>();
+              int next = 0;
+              for (int i = 0; i < groups.size(); i++) {
+                if (kept[i] != null) {
+                  chunks.add(
+                      kept[i].embeddingLength() == 0
+                          ? kept[i].withEmbedding(embeddings.get(next++))
+                          : kept[i]);
+                  continue;
+                }
+                DuplicateGroup group = groups.get(i);
+                RunbookChunker.ParsedChunk parsed = group.chunk();
+
+                RunbookChunk chunk =
+                    new RunbookChunk(
+                        UUID.randomUUID().toString(),
+                        group.primaryRunbookPath(),
+                        parsed.sectionTitle(),
+                        parsed.content(),
+                        parsed.tags(),
+                        parsed.applicableShapes(),
+                        embeddings.get(next++),
+                        group.runbookPaths());
+                chunks.add(chunk);
+              }
+              Map<String, float[]> titleEmbeddings = new LinkedHashMap<>();
+              for (String runbookPath : titles.keySet()) {
+                titleEmbeddings.put(runbookPath, embeddings.get(next++));
+              }
+              return new Generation(chunks, titleEmbeddings);
+            });
+  }
+
+  /**
+   * Matches each group against the stored shared chunks, each of which can be kept once.
+   *
+   * @return the chunk to keep for each group, or null where the group becomes a new chunk
+   */
+  private RunbookChunk[] keepShared(
+      List<DuplicateGroup> groups,
+      List<RunbookChunk> shared,
+      Map<String, List<SourcedChunk>> sources) {
+    RunbookChunk[] kept = new RunbookChunk[groups.size()];
+    if (shared.isEmpty()) {
+      return kept;
+    }
+    long[] fingerprints = new long[shared.size()];
+    for (int s = 0; s < shared.size(); s++) {
+      fingerprints[s] = ChunkDeduplicator.fingerprint(shared.get(s).content());
+    }
+    boolean[] used = new boolean[shared.size()];
+    for (int g = 0; g < groups.size(); g++) {
+      RunbookChunker.ParsedChunk parsed = groups.get(g).chunk();
+      long fingerprint = ChunkDeduplicator.fingerprint(parsed.content());
+      for (int s = 0; s < shared.size(); s++) {
+        if (!used[s] && deduplicator.nearDuplicates(fingerprint, fingerprints[s])) {
+          used[s] = true;
+          kept[g] = keep(shared.get(s), fingerprints[s], parsed, sources);
+          break;
+        }
+      }
+    }
+    return kept;
+  }
+
+  /**
+   * Returns a stored shared chunk with the tags and applicable shapes of the sections that repeat
+   * it now: the new section for the runbook being ingested, which is not among the fetched sources,
+   * and the near-duplicate section of each other source that still has one.
+   */
+  private RunbookChunk keep(
+      RunbookChunk stored,
+      long fingerprint,
+      RunbookChunker.ParsedChunk parsed,
+      Map<String, List<SourcedChunk>> sources) {
+    List<RunbookChunker.ParsedChunk> sections = new ArrayList<>();
+    for (String source : stored.sourceRunbookPaths()) {
+      List<SourcedChunk> sourceChunks = sources.get(source);
+      if (sourceChunks == null) {
+        sections.add(parsed);
+        continue;
+      }
+      for (SourcedChunk sourced : sourceChunks) {
+        long candidate = ChunkDeduplicator.fingerprint(sourced.chunk().content());
+        if (deduplicator.nearDuplicates(fingerprint, candidate)) {
+          sections.add(sourced.chunk());
+          break;
+        }
+      }
+    }
+
+    LinkedHashSet<String> tags = new LinkedHashSet<>();
+    LinkedHashSet<String> shapes = new LinkedHashSet<>();
+    boolean appliesToEveryShape = false;
+    for (RunbookChunker.ParsedChunk section : sections) {
+      tags.addAll(section.tags());
+      // A section without shape patterns applies to every shape, and so does the chunk
+      appliesToEveryShape |= section.applicableShapes().isEmpty();
+      shapes.addAll(section.applicableShapes());
+    }
+    return new RunbookChunk(
+        stored.id(),
+        stored.runbookPath(),
+        stored.sectionTitle(),
+        stored.content(),
+        List.copyOf(tags),
+        appliesToEveryShape ? List.of() : List.copyOf(shapes),
+        stored.embedding(),
+        stored.sourceRunbookPaths());
+  }
+
+  /**
+   * Embeds texts in calls of at most {@value #EMBEDDING_BATCH_SIZE}, one after the other, and
+   * returns the embeddings in text order.
+   */
+  private CompletableFuture<List<float[]>> embedInBatches(List<String> texts) {
+    if (texts.isEmpty()) {
+      return CompletableFuture.completedFuture(List.of());
+    }
+    if (texts.size() <= EMBEDDING_BATCH_SIZE) {
+      return embeddingService.embedBatch(texts);
+    }
+    CompletableFuture<List<float[]>> embedded =
+        CompletableFuture.completedFuture(new ArrayList<>(texts.size()));
+    for (int start = 0; start < texts.size(); start += EMBEDDING_BATCH_SIZE) {
+      List<String> batch =
+          texts.subList(start, Math.min(texts.size(), start + EMBEDDING_BATCH_SIZE));
+      embedded =
+          embedded.thenCompose(
+              done ->
+                  embeddingService
+                      .embedBatch(batch)
+                      .thenApply(
+                          embeddings -> {
+                            done.addAll(embeddings);
+                            return done;
+                          }));
+    }
+    return embedded;
+  }
+
+  /** A fetched runbook's title and parsed chunks; a missing runbook has neither. */
+  private record FetchedRunbook(String path, String title, List<SourcedChunk> chunks) {}
+
+  /** A new generation of chunks, with title embeddings by runbook path. */
+  private record Generation(List<RunbookChunk> chunks, Map<String, float[]> titles) {}
 }
@@ -0,0 +1,177 @@
+package com.oracle.runbook.rag;
+
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-batches concurrent vector searches into {@link VectorStoreRepository#searchHitsBatch(List,
+ * int, VectorSearchFilter)} calls.
+ *
+ * <p>A search that arrives while no other search is running goes to the store at once, so a lone
+ * retrieval never waits. A search that arrives while others run opens a batch that stays open for
+ * a short window; searches with the same filter that arrive meanwhile join it, and a batch that
+ * reaches its maximum size is run at once, as are the open batches once the store falls idle.
+ * During an alert storm the store then makes one pass over its vectors for many retrievals instead
+ * of one pass each, and the window is only paid while the store is busy anyway. A batch asks for
+ * the largest {@code topK} among its searches and trims the other results, which for a store that
+ * ranks exhaustively yields the same results as individual searches.
+ *
+ * <p>Batches whose window expires, or that wait for an idle store, run on the batcher's own
+ * virtual threads rather than the common pool, which a blocking store search would otherwise tie
+ * up.
+ */
+final class SearchBatcher {
+
+  private final VectorStoreRepository vectorStore;
+  private final long windowNanos;
+  private final int maxBatchSize;
+  private final ExecutorService executor =
+      Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("search-batch-", 0).factory());
+
+  // Guarded by this
+  private final Map<VectorSearchFilter, List<Request>> openBatches = new HashMap<>();
+
+  // Guarded by this: batches handed to the store that have not returned yet
+  private int running;
+
+  /**
+   * Creates a batcher.
+   *
+   * @param vectorStore the store to search
+   * @param window how long a batch waits for more searches
+   * @param maxBatchSize the number of searches that closes a batch early
+   * @throws NullPointerException if vectorStore or window is null
+   * @throws IllegalArgumentException if window is not positive or maxBatchSize is below 1
+   */
+  SearchBatcher(VectorStoreRepository vectorStore, Duration window, int maxBatchSize) {
+    this.vectorStore = Objects.requireNonNull(vectorStore, "vectorStore cannot be null");
+    Objects.requireNonNull(window, "window cannot be null");
+    if (window.isZero() || window.isNegative()) {
+      throw new IllegalArgumentException("window must be positive");
+    }
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("maxBatchSize must be at least 1");
+    }
+    this.windowNanos = window.toNanos();
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  /**
+   * Searches as part of the next batch, blocking until the batch has run.
+   *
+   * @param queryEmbedding the query vector
+   * @param topK the maximum number of results
+   * @param filter the metadata restriction
+   * @return the hits, as {@link VectorStoreRepository#searchHits(float[], int, VectorSearchFilter)}
+   *     would return them
+   */
+  List<SearchHit> search(float[] queryEmbedding, int topK, VectorSearchFilter filter) {
+    Objects.requireNonNull(queryEmbedding, "queryEmbedding cannot be null");
+    Objects.requireNonNull(filter, "filter cannot be null");
+    if (topK <= 0) {
+      throw new IllegalArgumentException("topK must be positive");
+    }
+
+    Request request = new Request(queryEmbedding, topK, new CompletableFuture<>());
+    List<Request> ready = null;
+    synchronized (this) {
+      List<Request> batch = openBatches.get(filter);
+      if (batch == null && running == 0) {
+        // The store is idle: waiting out the window would only add latency
+        ready = List.of(request);
+      } else {
+        if (batch == null) {
+          List<Request> opened = new ArrayList<>();
+          openBatches.put(filter, opened);
+          CompletableFuture.delayedExecutor(windowNanos, TimeUnit.NANOSECONDS, executor)
+              .execute(() -> flush(filter, opened));
+          batch = opened;
+        }
+        batch.add(request);
+        if (batch.size() >= maxBatchSize) {
+          openBatches.remove(filter);
+          ready = batch;
+        }
+      }
+      if (ready != null) {
+        running++;
+      }
+    }
+    if (ready != null) {
+      run(filter, ready);
+    }
+
+    try {
+      return request.result().join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private void flush(VectorSearchFilter filter, List<Request> batch) {
+    synchronized (this) {
+      // A batch that filled up early has already been removed and run
+      if (openBatches.get(filter) != batch) {
+        return;
+      }
+      openBatches.remove(filter);
+      running++;
+    }
+    run(filter, batch);
+  }
+
+  private void run(VectorSearchFilter filter, List<Request> batch) {
+    int topK = 0;
+    List<float[]> queries = new ArrayList<>(batch.size());
+    for (Request request : batch) {
+      topK = Math.max(topK, request.topK());
+      queries.add(request.queryEmbedding());
+    }
+    try {
+      List<List<SearchHit>> results = vectorStore.searchHitsBatch(queries, topK, filter);
+      for (int i = 0; i < batch.size(); i++) {
+        List<SearchHit> result = results.get(i);
+        int limit = Math.min(result.size(), batch.get(i).topK());
+        batch.get(i).result().complete(result.subList(0, limit));
+      }
+    } catch (RuntimeException e) {
+      batch.forEach(request -> request.result().completeExceptionally(e));
+    } finally {
+      finished();
+    }
+  }
+
+  /**
+   * Counts a batch as returned. Once the store is idle, batches still waiting for their window are
+   * run at once, since nothing is left for them to wait behind.
+   */
+  private void finished() {
+    Map<VectorSearchFilter, List<Request>> waiting;
+    synchronized (this) {
+      running--;
+      if (running > 0 || openBatches.isEmpty()) {
+        return;
+      }
+      waiting = new HashMap<>(openBatches);
+    }
+    // flush() skips a batch its timer or a full batch has already taken
+    waiting.forEach((filter, batch) -> executor.execute(() -> flush(filter, batch)));
+  }
+
+  private record Request(
+      float[] queryEmbedding, int topK, CompletableFuture<List<SearchHit>> result) {}
+}
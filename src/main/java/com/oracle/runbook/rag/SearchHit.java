@@ -0,0 +1,142 @@
+package com.oracle.runbook.rag;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Lightweight vector search result: the text and metadata of a matching chunk and its similarity
+ * score, without the chunk's embedding.
+ *
+ * <p>Returned by {@link
+ * com.oracle.runbook.infrastructure.cloud.VectorStoreRepository#searchHits(float[], int,
+ * com.oracle.runbook.infrastructure.cloud.VectorSearchFilter)} for callers that rank and render
+ * results but never look at their vectors, so stores need not materialize or copy an embedding per
+ * hit.
+ *
+ * @param id the chunk identifier
+ * @param runbookPath path to the source runbook file
+ * @param sectionTitle the title of the chunk's section
+ * @param content the chunk text
+ * @param tags semantic tags of the chunk
+ * @param applicableShapes compute shapes the chunk applies to
+ * @param similarityScore the raw similarity score from the vector database
+ * @param sourceRunbookPaths every runbook the chunk belongs to, starting with {@code runbookPath},
+ *     as in {@link RunbookChunk#sourceRunbookPaths()}; null or empty for just {@code runbookPath}
+ */
+public record SearchHit(
+    String id,
+    String runbookPath,
+    String sectionTitle,
+    String content,
+    List<String> tags,
+    List<String> applicableShapes,
+    double similarityScore,
+    List<String> sourceRunbookPaths) {
+
+  /** Compact constructor with validation and defensive copies. */
+  public SearchHit {
+    Objects.requireNonNull(id, "id cannot be null");
+    Objects.requireNonNull(content, "content cannot be null");
+    tags = tags != null ? List.copyOf(tags) : List.of();
+    applicableShapes = applicableShapes != null ? List.copyOf(applicableShapes) : List.of();
+    sourceRunbookPaths = RunbookChunk.copySources(runbookPath, sourceRunbookPaths);
+  }
+
+  /**
+   * Creates a hit on a chunk that belongs to a single runbook.
+   *
+   * @param id the chunk identifier
+   * @param runbookPath path to the source runbook file
+   * @param sectionTitle the title of the chunk's section
+   * @param content the chunk text
+   * @param tags semantic tags of the chunk
+   * @param applicableShapes compute shapes the chunk applies to
+   * @param similarityScore the raw similarity score from the vector database
+   */
+  public SearchHit(
+      String id,
+      String runbookPath,
+      String sectionTitle,
+      String content,
+      List<String> tags,
+      List<String> applicableShapes,
+      double similarityScore) {
+    this(id, runbookPath, sectionTitle, content, tags, applicableShapes, similarityScore, null);
+  }
+
+  /**
+   * Creates a hit from a stored chunk, leaving its embedding behind.
+   *
+   * @param chunk the matching chunk
+   * @param similarityScore the similarity score of the chunk
+   * @return the hit
+   */
+  public static SearchHit of(RunbookChunk chunk, double similarityScore) {
+    Objects.requireNonNull(chunk, "chunk cannot be null");
+    return new SearchHit(
+        chunk.id(),
+        chunk.runbookPath(),
+        chunk.sectionTitle(),
+        chunk.content(),
+        chunk.tags(),
+        chunk.applicableShapes(),
+        similarityScore,
+        chunk.sourceRunbookPaths());
+  }
+
+  /**
+   * Creates a hit from a full search result.
+   *
+   * @param scoredChunk the search result
+   * @return the hit
+   */
+  public static SearchHit of(ScoredChunk scoredChunk) {
+    Objects.requireNonNull(scoredChunk, "scoredChunk cannot be null");
+    return of(scoredChunk.chunk(), scoredChunk.similarityScore());
+  }
+
+  /**
+   * Returns the hit as a runbook chunk with an empty embedding.
+   *
+   * @return the chunk
+   */
+  public RunbookChunk toChunk() {
+    return new RunbookChunk(
+        id, runbookPath, sectionTitle, content, tags, applicableShapes, null, sourceRunbookPaths);
+  }
+
+  /**
+   * Returns a copy of this hit with another score.
+   *
+   * @param score the new similarity score
+   * @return the copy
+   */
+  public SearchHit withSimilarityScore(double score) {
+    return new SearchHit(
+        id, runbookPath, sectionTitle, content, tags, applicableShapes, score, sourceRunbookPaths);
+  }
+
+  /**
+   * Returns a copy of this hit on a chunk that belongs to the given runbooks, the first of which
+   * becomes its {@link #runbookPath()}.
+   *
+   * @param sources the source runbook paths
+   * @return the copy
+   * @throws IllegalArgumentException if sources is empty
+   */
+  public SearchHit withSourceRunbookPaths(List<String> sources) {
+    if (sources.isEmpty()) {
+      throw new IllegalArgumentException("sources cannot be empty");
+    }
+    return new SearchHit(
+        id,
+        sources.get(0),
+        sectionTitle,
+        content,
+        tags,
+        applicableShapes,
+        similarityScore,
+        sources);
+  }
+}
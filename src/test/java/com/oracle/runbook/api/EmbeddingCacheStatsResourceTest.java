@@ -0,0 +1,57 @@
+package com.oracle.runbook.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.oracle.runbook.rag.QueryEmbeddingCache;
+import io.helidon.http.Status;
+import io.helidon.webclient.http1.Http1Client;
+import io.helidon.webclient.http1.Http1ClientResponse;
+import io.helidon.webserver.http.HttpRouting;
+import io.helidon.webserver.testing.junit5.ServerTest;
+import io.helidon.webserver.testing.junit5.SetUpRoute;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for EmbeddingCacheStatsResource. */
+@ServerTest
+class EmbeddingCacheStatsResourceTest {
+
+  private final Http1Client client;
+
+  EmbeddingCacheStatsResourceTest(Http1Client client) {
+    this.client = client;
+  }
+
+  @SetUpRoute
+  static void route(HttpRouting.Builder routing) {
+    QueryEmbeddingCache cache = new QueryEmbeddingCache(8, Duration.ofMinutes(2));
+    for (int i = 0; i < 4; i++) {
+      cache.get("ollama/nomic-embed-text", "High CPU", text -> embedding()).join();
+    }
+    routing.register("/api/v1/admin/embedding-cache", new EmbeddingCacheStatsResource(cache));
+  }
+
+  @Test
+  void testGet_ReturnsCacheStatistics() {
+    try (Http1ClientResponse response = client.get("/api/v1/admin/embedding-cache").request()) {
+      assertThat(response.status()).isEqualTo(Status.OK_200);
+      JsonObject body = Json.createReader(new StringReader(response.as(String.class))).readObject();
+
+      assertThat(body.getInt("hits")).isEqualTo(3);
+      assertThat(body.getInt("misses")).isEqualTo(1);
+      assertThat(body.getJsonNumber("hitRate").doubleValue()).isEqualTo(0.75);
+      assertThat(body.getInt("evictions")).isZero();
+      assertThat(body.getInt("size")).isEqualTo(1);
+      assertThat(body.getInt("maxEntries")).isEqualTo(8);
+      assertThat(body.getInt("ttlSeconds")).isEqualTo(120);
+    }
+  }
+
+  private static CompletableFuture<float[]> embedding() {
+    return CompletableFuture.completedFuture(new float[] {0.1f, 0.2f});
+  }
+}
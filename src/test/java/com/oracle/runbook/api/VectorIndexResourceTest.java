@@ -0,0 +1,157 @@
+package com.oracle.runbook.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.local.InMemoryVectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.local.VectorIndexStream;
+import io.helidon.http.HeaderNames;
+import io.helidon.http.Status;
+import io.helidon.webclient.http1.Http1Client;
+import io.helidon.webclient.http1.Http1ClientResponse;
+import io.helidon.webserver.http.HttpRouting;
+import io.helidon.webserver.testing.junit5.ServerTest;
+import io.helidon.webserver.testing.junit5.SetUpRoute;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for VectorIndexResource. */
+@ServerTest
+class VectorIndexResourceTest {
+
+  private static final InMemoryVectorStoreRepository SOURCE = new InMemoryVectorStoreRepository();
+  private static final InMemoryVectorStoreRepository TARGET = new InMemoryVectorStoreRepository();
+
+  private final Http1Client client;
+
+  VectorIndexResourceTest(Http1Client client) {
+    this.client = client;
+  }
+
+  @SetUpRoute
+  static void route(HttpRouting.Builder routing) {
+    SOURCE.storeBatch(
+        List.of(
+            chunk("a", "memory.md", new float[] {1.0f, 0.0f}),
+            chunk("b", "memory.md", new float[] {0.0f, 1.0f}),
+            chunk("c", "cpu.md", new float[] {0.6f, 0.8f})));
+    routing.register(
+        "/api/v1/admin/vector-store/index",
+        new VectorIndexResource(SOURCE, null, true, false, null));
+    routing.register("/target", new VectorIndexResource(TARGET, null, false, true, null));
+    routing.register("/disabled", new VectorIndexResource(TARGET));
+    routing.register("/guarded", new VectorIndexResource(TARGET, null, true, true, "s3cret"));
+    routing.register(
+        "/guarded-source", new VectorIndexResource(SOURCE, null, true, false, "s3cret"));
+  }
+
+  @Test
+  void testExportThenImport_CopiesTheIndex() {
+    byte[] stream;
+    try (Http1ClientResponse response = client.get("/api/v1/admin/vector-store/index").request()) {
+      assertThat(response.status()).isEqualTo(Status.OK_200);
+      stream = response.as(byte[].class);
+    }
+
+    try (Http1ClientResponse response = client.post("/target").submit(stream)) {
+      assertThat(response.status()).isEqualTo(Status.OK_200);
+      JsonObject body = parse(response.as(String.class));
+
+      assertThat(body.getInt("chunkCount")).isEqualTo(3);
+      assertThat(body.getInt("runbookCount")).isEqualTo(2);
+      assertThat(body.getString("generation"))
+          .isEqualTo(
+              String.format("%016x", VectorIndexStream.generationOf(SOURCE.exportChunks())));
+    }
+    assertThat(TARGET.search(new float[] {0.6f, 0.8f}, 1))
+        .singleElement()
+        .satisfies(result -> assertThat(result.chunk().id()).isEqualTo("c"));
+  }
+
+  @Test
+  void testExport_Disabled_ReturnsForbidden() {
+    try (Http1ClientResponse response = client.get("/disabled").request()) {
+      assertThat(response.status()).isEqualTo(Status.FORBIDDEN_403);
+      assertThat(response.as(String.class)).contains("\"EXPORT_DISABLED\"");
+    }
+  }
+
+  @Test
+  void testExport_WithoutToken_ReturnsUnauthorized() {
+    try (Http1ClientResponse response = client.get("/guarded").request()) {
+      assertThat(response.status()).isEqualTo(Status.UNAUTHORIZED_401);
+    }
+  }
+
+  @Test
+  void testExport_WithToken_StreamsTheIndex() {
+    try (Http1ClientResponse response =
+        client
+            .get("/guarded-source")
+            .header(HeaderNames.AUTHORIZATION, "Bearer s3cret")
+            .request()) {
+      assertThat(response.status()).isEqualTo(Status.OK_200);
+      assertThat(response.headers().first(HeaderNames.CONTENT_TYPE))
+          .hasValueSatisfying(type -> assertThat(type).startsWith(VectorIndexStream.MEDIA_TYPE));
+    }
+  }
+
+  @Test
+  void testImport_MalformedStream_ReturnsBadRequest() {
+    try (Http1ClientResponse response =
+        client.post("/target").submit(new byte[] {1, 2, 3, 4, 5, 6, 7, 8})) {
+      assertThat(response.status()).isEqualTo(Status.BAD_REQUEST_400);
+      assertThat(response.as(String.class)).contains("\"INVALID_VECTOR_INDEX\"");
+    }
+  }
+
+  @Test
+  void testImport_Disabled_ReturnsForbidden() {
+    try (Http1ClientResponse response = client.post("/disabled").submit(new byte[0])) {
+      assertThat(response.status()).isEqualTo(Status.FORBIDDEN_403);
+      assertThat(response.as(String.class)).contains("\"IMPORT_DISABLED\"");
+    }
+  }
+
+  @Test
+  void testImport_WithoutToken_ReturnsUnauthorized() {
+    try (Http1ClientResponse response =
+        client
+            .post("/guarded")
+            .header(HeaderNames.AUTHORIZATION, "Bearer wrong")
+            .submit(new byte[0])) {
+      assertThat(response.status()).isEqualTo(Status.UNAUTHORIZED_401);
+    }
+  }
+
+  @Test
+  void testImport_WithToken_ImportsTheIndex() {
+    byte[] stream;
+    try (Http1ClientResponse response = client.get("/api/v1/admin/vector-store/index").request()) {
+      stream = response.as(byte[].class);
+    }
+
+    try (Http1ClientResponse response =
+        client
+            .post("/guarded")
+            .header(HeaderNames.AUTHORIZATION, "Bearer s3cret")
+            .submit(stream)) {
+      assertThat(response.status()).isEqualTo(Status.OK_200);
+      assertThat(parse(response.as(String.class)).getInt("chunkCount")).isEqualTo(3);
+    }
+  }
+
+  private static JsonObject parse(String json) {
+    try (var reader = Json.createReader(new StringReader(json))) {
+      return reader.readObject();
+    }
+  }
+
+  private static RunbookChunk chunk(String id, String path, float[] embedding) {
+    return new RunbookChunk(
+        id, path, "Section", "content", List.of("linux"), List.of(), embedding);
+  }
+}
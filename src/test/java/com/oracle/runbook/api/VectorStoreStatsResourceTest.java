@@ -0,0 +1,113 @@
+package com.oracle.runbook.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreStats;
+import com.oracle.runbook.infrastructure.cloud.local.InMemoryVectorStoreRepository;
+import io.helidon.http.Status;
+import io.helidon.webclient.http1.Http1Client;
+import io.helidon.webclient.http1.Http1ClientResponse;
+import io.helidon.webserver.http.HttpRouting;
+import io.helidon.webserver.testing.junit5.ServerTest;
+import io.helidon.webserver.testing.junit5.SetUpRoute;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonValue;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for VectorStoreStatsResource. */
+@ServerTest
+class VectorStoreStatsResourceTest {
+
+  private final Http1Client client;
+
+  VectorStoreStatsResourceTest(Http1Client client) {
+    this.client = client;
+  }
+
+  @SetUpRoute
+  static void route(HttpRouting.Builder routing) {
+    InMemoryVectorStoreRepository store = new InMemoryVectorStoreRepository();
+    store.storeBatch(
+        List.of(
+            chunk("a", "memory.md", new float[] {1.0f, 0.0f}),
+            chunk("b", "memory.md", new float[] {0.0f, 1.0f}),
+            chunk("c", "cpu.md", new float[] {0.7f, 0.7f})));
+    store.search(new float[] {1.0f, 0.0f}, 1);
+    routing.register("/api/v1/admin/vector-store", new VectorStoreStatsResource(store));
+
+    routing.register(
+        "/unknown",
+        new VectorStoreStatsResource(
+            new InMemoryVectorStoreRepository() {
+              @Override
+              public VectorStoreStats stats() {
+                return VectorStoreStats.unknown("oci");
+              }
+            }));
+    routing.register(
+        "/failing",
+        new VectorStoreStatsResource(
+            new InMemoryVectorStoreRepository() {
+              @Override
+              public VectorStoreStats stats() {
+                throw new IllegalStateException("OpenSearch stats failed: HTTP 503");
+              }
+            }));
+  }
+
+  @Test
+  void testGet_ReturnsStoreStatistics() {
+    try (Http1ClientResponse response = client.get("/api/v1/admin/vector-store").request()) {
+      assertThat(response.status()).isEqualTo(Status.OK_200);
+      JsonObject body = parse(response.as(String.class));
+
+      assertThat(body.getString("provider")).isEqualTo("local");
+      assertThat(body.getInt("chunkCount")).isEqualTo(3);
+      assertThat(body.getInt("dimension")).isEqualTo(2);
+      assertThat(body.getString("indexState")).isEqualTo("NONE");
+      assertThat(body.getJsonObject("chunksPerRunbook").getInt("memory.md")).isEqualTo(2);
+      assertThat(body.getJsonObject("chunksPerRunbook").getInt("cpu.md")).isEqualTo(1);
+      assertThat(body.getJsonObject("bytes").getJsonNumber("content").longValue())
+          .isEqualTo(3 * "content".length());
+      assertThat(body.getJsonObject("bytes").getJsonNumber("heapTotal").longValue()).isPositive();
+      assertThat(body.getJsonObject("search").getInt("count")).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void testGet_UnknownValues_AreNull() {
+    try (Http1ClientResponse response = client.get("/unknown").request()) {
+      assertThat(response.status()).isEqualTo(Status.OK_200);
+      JsonObject body = parse(response.as(String.class));
+
+      assertThat(body.getString("provider")).isEqualTo("oci");
+      assertThat(body.get("chunkCount")).isEqualTo(JsonValue.NULL);
+      assertThat(body.getJsonObject("bytes").get("heapTotal")).isEqualTo(JsonValue.NULL);
+      assertThat(body.getString("indexState")).isEqualTo("UNKNOWN");
+    }
+  }
+
+  @Test
+  void testGet_StoreFailure_ReturnsServiceUnavailable() {
+    try (Http1ClientResponse response = client.get("/failing").request()) {
+      assertThat(response.status()).isEqualTo(Status.SERVICE_UNAVAILABLE_503);
+      String body = response.as(String.class);
+      assertThat(body).contains("\"VECTOR_STORE_UNAVAILABLE\"").contains("HTTP 503");
+    }
+  }
+
+  private static JsonObject parse(String json) {
+    try (var reader = Json.createReader(new StringReader(json))) {
+      return reader.readObject();
+    }
+  }
+
+  private static RunbookChunk chunk(String id, String path, float[] embedding) {
+    return new RunbookChunk(
+        id, path, "Section", "content", List.of("linux"), List.of(), embedding);
+  }
+}
@@ -3,27 +3,41 @@ package com.oracle.runbook.config;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.oracle.runbook.domain.RunbookChunk;
 import com.oracle.runbook.enrichment.ContextEnrichmentService;
 import com.oracle.runbook.enrichment.DefaultContextEnrichmentService;
 import com.oracle.runbook.infrastructure.cloud.CloudStorageAdapter;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
 import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.aws.AwsOpenSearchVectorStoreRepository;
 import com.oracle.runbook.infrastructure.cloud.aws.AwsS3StorageAdapter;
+import com.oracle.runbook.infrastructure.cloud.local.DurableVectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.local.HnswVectorStoreRepository;
 import com.oracle.runbook.infrastructure.cloud.local.InMemoryVectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.local.IvfVectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.local.VectorIndexStream;
 import com.oracle.runbook.output.WebhookDispatcher;
 import com.oracle.runbook.rag.ChecklistGenerator;
 import com.oracle.runbook.rag.DefaultChecklistGenerator;
 import com.oracle.runbook.rag.DefaultRunbookRetriever;
 import com.oracle.runbook.rag.LlmProvider;
+import com.oracle.runbook.rag.QueryEmbeddingCache;
 import com.oracle.runbook.rag.RagPipelineService;
 import com.oracle.runbook.rag.RunbookChunker;
 import com.oracle.runbook.rag.RunbookIngestionService;
 import com.oracle.runbook.rag.RunbookRetriever;
 import io.helidon.config.Config;
 import io.helidon.config.ConfigSources;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * Unit tests for {@link ServiceFactory}.
@@ -212,6 +226,290 @@ class ServiceFactoryTest {
       assertThat(vectorStore.providerType()).isEqualTo("local");
     }
 
+    @Test
+    @DisplayName("Should use quantized local store when encoding is int8")
+    void shouldUseQuantizedLocalStore_WhenEncodingIsInt8() {
+      Config config =
+          Config.builder()
+              .sources(
+                  ConfigSources.create(
+                      Map.of(
+                          "vectorStore.provider", "local",
+                          "vectorStore.local.encoding", "int8",
+                          "vectorStore.local.rerankFactor", "2")))
+              .build();
+      ServiceFactory factory = new ServiceFactory(config);
+
+      VectorStoreRepository vectorStore = factory.createVectorStoreRepository();
+      vectorStore.store(
+          new RunbookChunk("c1", "a.md", "Title", "content", null, null, new float[] {1f, 0f}));
+
+      assertThat(vectorStore).isInstanceOf(InMemoryVectorStoreRepository.class);
+      // Quantized mode keeps chunks without their float embedding
+      assertThat(vectorStore.search(new float[] {1f, 0f}, 1))
+          .singleElement()
+          .satisfies(result -> assertThat(result.chunk().embedding()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject unknown local vector encoding")
+    void shouldRejectUnknownLocalVectorEncoding() {
+      Config config =
+          Config.builder()
+              .sources(
+                  ConfigSources.create(
+                      Map.of(
+                          "vectorStore.provider", "local", "vectorStore.local.encoding", "int4")))
+              .build();
+      ServiceFactory factory = new ServiceFactory(config);
+
+      assertThatThrownBy(factory::createVectorStoreRepository)
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("int4");
+    }
+
+    @Test
+    @DisplayName("Should use HnswVectorStore when provider is hnsw")
+    void shouldUseHnswVectorStore_WhenProviderIsHnsw() {
+      Config config = createConfigWithVectorStoreProvider("hnsw");
+      ServiceFactory factory = new ServiceFactory(config);
+
+      VectorStoreRepository vectorStore = factory.createVectorStoreRepository();
+
+      assertThat(vectorStore).isInstanceOf(HnswVectorStoreRepository.class);
+      assertThat(vectorStore.providerType()).isEqualTo("hnsw");
+    }
+
+    @Test
+    @DisplayName("Should use IvfVectorStore when provider is ivf")
+    void shouldUseIvfVectorStore_WhenProviderIsIvf() {
+      Config config = createConfigWithVectorStoreProvider("ivf");
+      ServiceFactory factory = new ServiceFactory(config);
+
+      VectorStoreRepository vectorStore = factory.createVectorStoreRepository();
+
+      assertThat(vectorStore).isInstanceOf(IvfVectorStoreRepository.class);
+      assertThat(vectorStore.providerType()).isEqualTo("ivf");
+    }
+
+    @Test
+    @DisplayName("Should use AwsOpenSearchVectorStore when provider is aws")
+    void shouldUseAwsOpenSearchVectorStore_WhenProviderIsAws() {
+      Config config =
+          Config.builder()
+              .sources(
+                  ConfigSources.create(
+                      Map.of(
+                          "vectorStore.provider", "aws",
+                          "vectorStore.aws.endpoint", "http://localhost:9200",
+                          "vectorStore.aws.engine", "lucene")))
+              .build();
+      ServiceFactory factory = new ServiceFactory(config);
+
+      VectorStoreRepository vectorStore = factory.createVectorStoreRepository();
+
+      assertThat(vectorStore).isInstanceOf(AwsOpenSearchVectorStoreRepository.class);
+      assertThat(vectorStore.providerType()).isEqualTo("aws");
+    }
+
+    @Test
+    @DisplayName("Should require an OpenSearch endpoint when provider is aws")
+    void shouldRequireOpenSearchEndpoint_WhenProviderIsAws() {
+      ServiceFactory factory = new ServiceFactory(createConfigWithVectorStoreProvider("aws"));
+
+      assertThatThrownBy(factory::createVectorStoreRepository)
+          .isInstanceOf(IllegalStateException.class)
+          .hasMessageContaining("vectorStore.aws.endpoint");
+    }
+
+    @Test
+    @DisplayName("Should save and restore the local vector store snapshot")
+    void shouldSaveAndRestoreVectorStoreSnapshot(@TempDir Path tempDir) throws IOException {
+      Config config =
+          Config.builder()
+              .sources(
+                  ConfigSources.create(
+                      Map.of(
+                          "vectorStore.provider",
+                          "local",
+                          "vectorStore.snapshot.path",
+                          tempDir.resolve("vectors.rbvs").toString())))
+              .build();
+      ServiceFactory writer = new ServiceFactory(config);
+      assertThat(writer.restoreVectorStoreSnapshot()).isFalse();
+      writer
+          .createVectorStoreRepository()
+          .store(new RunbookChunk("c1", "a.md", "Title", "content", null, null, new float[] {1f}));
+      writer.saveVectorStoreSnapshot();
+
+      ServiceFactory reader = new ServiceFactory(config);
+
+      assertThat(reader.restoreVectorStoreSnapshot()).isTrue();
+      assertThat(reader.createVectorStoreRepository().search(new float[] {1f}, 1))
+          .singleElement()
+          .satisfies(result -> assertThat(result.chunk().id()).isEqualTo("c1"));
+    }
+
+    @Test
+    @DisplayName("Should wrap the local store in a write-ahead log when a directory is set")
+    void shouldUseDurableLocalStore_WhenWalDirectoryConfigured(@TempDir Path tempDir)
+        throws IOException {
+      Config config =
+          Config.builder()
+              .sources(
+                  ConfigSources.create(
+                      Map.of(
+                          "vectorStore.provider",
+                          "local",
+                          "vectorStore.local.wal.directory",
+                          tempDir.toString(),
+                          "vectorStore.local.wal.fsyncPolicy",
+                          "interval")))
+              .build();
+      ServiceFactory factory = new ServiceFactory(config);
+
+      VectorStoreRepository vectorStore = factory.createVectorStoreRepository();
+      vectorStore.store(
+          new RunbookChunk("c1", "a.md", "Title", "content", null, null, new float[] {1f}));
+      factory.saveVectorStoreSnapshot();
+      ((DurableVectorStoreRepository) vectorStore).close();
+
+      assertThat(vectorStore).isInstanceOf(DurableVectorStoreRepository.class);
+      assertThat(vectorStore.providerType()).isEqualTo("local");
+      assertThat(factory.restoreVectorStoreSnapshot()).isFalse();
+      assertThat(tempDir.resolve(DurableVectorStoreRepository.SNAPSHOT_FILE)).exists();
+    }
+
+    @Test
+    @DisplayName("Should not restore a snapshot when no snapshot path is configured")
+    void shouldNotRestoreSnapshot_WhenPathNotConfigured() throws IOException {
+      ServiceFactory factory = new ServiceFactory(createConfigWithVectorStoreProvider("local"));
+
+      assertThat(factory.vectorStoreSnapshotPath()).isEmpty();
+      assertThat(factory.restoreVectorStoreSnapshot()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should bootstrap the vector store from an exported index file")
+    void shouldBootstrapVectorStore_FromExportFile(@TempDir Path tempDir) throws IOException {
+      Path export = tempDir.resolve("vectors.rbvx");
+      try (OutputStream out = Files.newOutputStream(export)) {
+        VectorIndexStream.write(
+            List.of(
+                new RunbookChunk("c1", "a.md", "Title", "content", null, null, new float[] {1f})),
+            out);
+      }
+      Config config =
+          Config.builder()
+              .sources(
+                  ConfigSources.create(
+                      Map.of(
+                          "vectorStore.provider",
+                          "local",
+                          "vectorStore.bootstrap.source",
+                          export.toString())))
+              .build();
+      ServiceFactory factory = new ServiceFactory(config);
+
+      assertThat(factory.bootstrapVectorStore()).isTrue();
+      assertThat(factory.createVectorStoreRepository().search(new float[] {1f}, 1))
+          .singleElement()
+          .satisfies(result -> assertThat(result.chunk().id()).isEqualTo("c1"));
+      Config unconfigured = createConfigWithVectorStoreProvider("local");
+      assertThat(new ServiceFactory(unconfigured).bootstrapVectorStore()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should read the vector index token, falling back to the older import token")
+    void shouldReadVectorIndexToken() {
+      ServiceFactory current =
+          new ServiceFactory(
+              Config.builder()
+                  .sources(
+                      ConfigSources.create(
+                          Map.of(
+                              "vectorStore.index.token",
+                              "s3cret",
+                              "vectorStore.index.importToken",
+                              "old")))
+                  .build());
+      ServiceFactory older =
+          new ServiceFactory(
+              Config.builder()
+                  .sources(ConfigSources.create(Map.of("vectorStore.index.importToken", "old")))
+                  .build());
+
+      assertThat(current.vectorIndexToken()).contains("s3cret");
+      assertThat(older.vectorIndexToken()).contains("old");
+      assertThat(new ServiceFactory(createValidConfig()).vectorIndexToken()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reload the lexical index after a bootstrap when hybrid is enabled")
+    void shouldReloadLexicalIndex_AfterBootstrap(@TempDir Path tempDir) throws IOException {
+      Path export = tempDir.resolve("vectors.rbvx");
+      try (OutputStream out = Files.newOutputStream(export)) {
+        VectorIndexStream.write(
+            List.of(
+                new RunbookChunk(
+                    "c1", "a.md", "Title", "ORA-04031 shared pool", null, null, new float[] {1f})),
+            out);
+      }
+      Config config =
+          Config.builder()
+              .sources(
+                  ConfigSources.create(
+                      Map.of(
+                          "vectorStore.provider",
+                          "local",
+                          "vectorStore.hybrid.enabled",
+                          "true",
+                          "vectorStore.bootstrap.source",
+                          export.toString())))
+              .build();
+      ServiceFactory factory = new ServiceFactory(config);
+
+      assertThat(factory.bootstrapVectorStore()).isTrue();
+      assertThat(factory.createLexicalIndex())
+          .hasValueSatisfying(
+              index ->
+                  assertThat(index.search("ORA-04031", 1, VectorSearchFilter.none()))
+                      .singleElement()
+                      .satisfies(hit -> assertThat(hit.id()).isEqualTo("c1")));
+      ServiceFactory vectorOnly = new ServiceFactory(createConfigWithVectorStoreProvider("local"));
+      assertThat(vectorOnly.createLexicalIndex()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should share the query embedding cache unless it is disabled")
+    void shouldCreateQueryEmbeddingCache_UnlessDisabled() {
+      ServiceFactory factory = new ServiceFactory(createValidConfig());
+
+      assertThat(factory.createQueryEmbeddingCache())
+          .hasValueSatisfying(
+              cache -> {
+                assertThat(cache.stats().maxEntries())
+                    .isEqualTo(QueryEmbeddingCache.DEFAULT_MAX_ENTRIES);
+                assertThat(cache.stats().ttl()).isEqualTo(QueryEmbeddingCache.DEFAULT_TTL);
+                assertThat(factory.createQueryEmbeddingCache()).containsSame(cache);
+              });
+      assertThat(factory.createEmbeddingService()).isNotNull();
+
+      Config disabled =
+          Config.builder()
+              .sources(
+                  ConfigSources.create(
+                      Map.of(
+                          "llm.ollama.baseUrl", "http://localhost:11434",
+                          "llm.ollama.textModel", "llama3.2:3b",
+                          "llm.ollama.embeddingModel", "nomic-embed-text",
+                          "llm.queryCache.maxEntries", "0")))
+              .build();
+      ServiceFactory uncached = new ServiceFactory(disabled);
+      assertThat(uncached.createQueryEmbeddingCache()).isEmpty();
+      assertThat(uncached.createEmbeddingService()).isNotNull();
+    }
+
     @Test
     @DisplayName("Should create FileOutputAdapter when file output enabled")
     void shouldCreateFileOutputAdapter_WhenFileOutputEnabled() {
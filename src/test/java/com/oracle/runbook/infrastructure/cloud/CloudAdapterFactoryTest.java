@@ -13,7 +13,9 @@ import com.oracle.runbook.infrastructure.cloud.aws.AwsCloudWatchMetricsAdapter;
 import com.oracle.runbook.infrastructure.cloud.aws.AwsOpenSearchVectorStoreRepository;
 import com.oracle.runbook.infrastructure.cloud.aws.AwsS3StorageAdapter;
 import com.oracle.runbook.infrastructure.cloud.aws.AwsSnsAlertSourceAdapter;
+import com.oracle.runbook.infrastructure.cloud.local.HnswVectorStoreRepository;
 import com.oracle.runbook.infrastructure.cloud.local.InMemoryVectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.local.IvfVectorStoreRepository;
 import com.oracle.runbook.infrastructure.cloud.oci.OciObjectStorageAdapter;
 import com.oracle.runbook.infrastructure.cloud.oci.OciVectorStoreRepository;
 import com.oracle.runbook.ingestion.AlertSourceAdapter;
@@ -341,6 +343,36 @@ class CloudAdapterFactoryTest {
           .isEqualTo(InMemoryVectorStoreRepository.class);
     }
 
+    @Test
+    @DisplayName("Should return HnswVectorStoreRepository.class when vectorStore.provider=hnsw")
+    void shouldReturnHnswVectorStoreForHnsw() {
+      Config config =
+          Config.builder()
+              .sources(ConfigSources.create(Map.of("vectorStore.provider", "hnsw")))
+              .build();
+
+      CloudAdapterFactory factory = new CloudAdapterFactory(config);
+
+      assertThat(factory.getVectorStoreClass())
+          .as("Vector store class should be HnswVectorStoreRepository for hnsw provider")
+          .isEqualTo(HnswVectorStoreRepository.class);
+    }
+
+    @Test
+    @DisplayName("Should return IvfVectorStoreRepository.class when vectorStore.provider=ivf")
+    void shouldReturnIvfVectorStoreForIvf() {
+      Config config =
+          Config.builder()
+              .sources(ConfigSources.create(Map.of("vectorStore.provider", "ivf")))
+              .build();
+
+      CloudAdapterFactory factory = new CloudAdapterFactory(config);
+
+      assertThat(factory.getVectorStoreClass())
+          .as("Vector store class should be IvfVectorStoreRepository for ivf provider")
+          .isEqualTo(IvfVectorStoreRepository.class);
+    }
+
     @Test
     @DisplayName("Should return OciVectorStoreRepository.class when vectorStore.provider=oci")
     void shouldReturnOciVectorStoreForOci() {
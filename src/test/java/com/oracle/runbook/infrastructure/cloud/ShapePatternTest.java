@@ -0,0 +1,67 @@
+package com.oracle.runbook.infrastructure.cloud;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link ShapePattern}. */
+class ShapePatternTest {
+
+  @Test
+  @DisplayName("should match literal shapes exactly, ignoring case")
+  void shouldMatchLiterals() {
+    ShapePattern pattern = ShapePattern.compile("VM.Standard2.1");
+
+    assertThat(pattern.matches("vm.standard2.1")).isTrue();
+    assertThat(pattern.matches("VM.Standard2.16")).isFalse();
+    assertThat(pattern.matches("VM.Standard2")).isFalse();
+  }
+
+  @Test
+  @DisplayName("should match prefix, suffix and inner wildcards")
+  void shouldMatchWildcards() {
+    assertThat(ShapePattern.compile("VM.*").matches("VM.Standard.E4.Flex")).isTrue();
+    assertThat(ShapePattern.compile("*.Flex").matches("vm.standard.e4.flex")).isTrue();
+    assertThat(ShapePattern.compile("VM.*.Flex").matches("VM.Standard.E4.Flex")).isTrue();
+    assertThat(ShapePattern.compile("VM.*E4*Flex").matches("VM.Standard.E4.Flex")).isTrue();
+    assertThat(ShapePattern.compile("VM.*E5*Flex").matches("VM.Standard.E4.Flex")).isFalse();
+    assertThat(ShapePattern.compile("*.Flex").matches("VM.Standard2.1")).isFalse();
+  }
+
+  @Test
+  @DisplayName("should not let the prefix and suffix overlap")
+  void shouldNotOverlapPrefixAndSuffix() {
+    assertThat(ShapePattern.compile("VM*VM").matches("VM")).isFalse();
+    assertThat(ShapePattern.compile("VM*VM").matches("VMVM")).isTrue();
+    assertThat(ShapePattern.compile("A*B*B").matches("AB")).isFalse();
+  }
+
+  @Test
+  @DisplayName("should match every shape for * and all")
+  void shouldMatchEverything() {
+    assertThat(ShapePattern.compile("*").matches("BM.Standard3.64")).isTrue();
+    assertThat(ShapePattern.compile("All").matches("BM.Standard3.64")).isTrue();
+    assertThat(ShapePattern.compile("**").matches("")).isTrue();
+  }
+
+  @Test
+  @DisplayName("should reuse the compiled form of a glob")
+  void shouldCacheCompiledGlobs() {
+    assertThat(ShapePattern.compile("GPU*")).isSameAs(ShapePattern.compile("GPU*"));
+    assertThat(ShapePattern.compile("GPU*").glob()).isEqualTo("GPU*");
+  }
+
+  @Test
+  @DisplayName("should keep caching new globs once the cache is full")
+  void shouldEvictLeastRecentlyUsedGlobs() {
+    ShapePattern kept = ShapePattern.compile("BM.*");
+    for (int i = 0; i < ShapePattern.MAX_CACHED; i++) {
+      ShapePattern.compile("VM.Filler" + i + ".*");
+      assertThat(ShapePattern.compile("BM.*")).isSameAs(kept);
+    }
+
+    ShapePattern fresh = ShapePattern.compile("GPU.Fresh.*");
+    assertThat(ShapePattern.compile("GPU.Fresh.*")).isSameAs(fresh);
+  }
+}
@@ -0,0 +1,140 @@
+package com.oracle.runbook.infrastructure.cloud;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.rag.SearchHit;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link VectorSearchFilter}. */
+class VectorSearchFilterTest {
+
+  @Nested
+  @DisplayName("construction")
+  class ConstructionTests {
+
+    @Test
+    @DisplayName("none() should be empty and match every chunk")
+    void noneShouldMatchEverything() {
+      VectorSearchFilter filter = VectorSearchFilter.none();
+
+      assertThat(filter.isEmpty()).isTrue();
+      assertThat(filter.matches(chunk("a.md", List.of(), List.of("BM.*")))).isTrue();
+    }
+
+    @Test
+    @DisplayName("should turn null collections into empty sets")
+    void shouldDefaultNullCollections() {
+      VectorSearchFilter filter = new VectorSearchFilter(null, null, null);
+
+      assertThat(filter.anyTags()).isEmpty();
+      assertThat(filter.runbookPaths()).isEmpty();
+      assertThat(filter.isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("with* methods should combine criteria")
+    void shouldCombineCriteria() {
+      VectorSearchFilter filter =
+          VectorSearchFilter.forShape("VM.Standard2.1")
+              .withAnyTags(Set.of("memory"))
+              .withRunbookPaths(Set.of("a.md"));
+
+      assertThat(filter.shape()).isEqualTo("VM.Standard2.1");
+      assertThat(filter.anyTags()).containsExactly("memory");
+      assertThat(filter.runbookPaths()).containsExactly("a.md");
+      assertThat(filter.isEmpty()).isFalse();
+    }
+  }
+
+  @Nested
+  @DisplayName("matches()")
+  class MatchesTests {
+
+    @Test
+    @DisplayName("should require at least one of the tags")
+    void shouldMatchAnyTag() {
+      VectorSearchFilter filter = VectorSearchFilter.none().withAnyTags(Set.of("memory", "oom"));
+
+      assertThat(filter.matches(chunk("a.md", List.of("oom", "linux"), List.of()))).isTrue();
+      assertThat(filter.matches(chunk("a.md", List.of("cpu"), List.of()))).isFalse();
+      assertThat(filter.matches(chunk("a.md", List.of(), List.of()))).isFalse();
+    }
+
+    @Test
+    @DisplayName("should require one of the runbook paths")
+    void shouldMatchRunbookPath() {
+      VectorSearchFilter filter = VectorSearchFilter.none().withRunbookPaths(Set.of("a.md"));
+
+      assertThat(filter.matches(chunk("a.md", List.of(), List.of()))).isTrue();
+      assertThat(filter.matches(chunk("b.md", List.of(), List.of()))).isFalse();
+    }
+
+    @Test
+    @DisplayName("should treat chunks without shape patterns as applicable to every shape")
+    void shouldMatchUnrestrictedShapes() {
+      VectorSearchFilter filter = VectorSearchFilter.forShape("VM.Standard2.1");
+
+      assertThat(filter.matches(chunk("a.md", List.of(), List.of()))).isTrue();
+      assertThat(filter.matches(chunk("a.md", List.of(), List.of("VM.*")))).isTrue();
+      assertThat(filter.matches(chunk("a.md", List.of(), List.of("BM.*")))).isFalse();
+    }
+
+    @Test
+    @DisplayName("should require every present criterion")
+    void shouldAndCriteria() {
+      VectorSearchFilter filter =
+          VectorSearchFilter.forShape("VM.Standard2.1").withAnyTags(Set.of("memory"));
+
+      assertThat(filter.matches(chunk("a.md", List.of("memory"), List.of("VM.*")))).isTrue();
+      assertThat(filter.matches(chunk("a.md", List.of("memory"), List.of("BM.*")))).isFalse();
+      assertThat(filter.matches(chunk("a.md", List.of("cpu"), List.of("VM.*")))).isFalse();
+    }
+
+    @Test
+    @DisplayName("should evaluate search hits like chunks")
+    void shouldMatchSearchHits() {
+      VectorSearchFilter filter =
+          VectorSearchFilter.forShape("VM.Standard2.1").withAnyTags(Set.of("memory"));
+
+      assertThat(filter.matches(SearchHit.of(chunk("a.md", List.of("memory"), List.of()), 0.5)))
+          .isTrue();
+      assertThat(filter.matches(SearchHit.of(chunk("a.md", List.of("memory"), List.of("BM.*")), 0)))
+          .isFalse();
+    }
+  }
+
+  @Nested
+  @DisplayName("shapeMatches()")
+  class ShapeMatchesTests {
+
+    @Test
+    @DisplayName("should match globs case-insensitively")
+    void shouldMatchGlobs() {
+      assertThat(VectorSearchFilter.shapeMatches("VM.Standard*", "vm.standard2.1")).isTrue();
+      assertThat(VectorSearchFilter.shapeMatches("VM.*.Flex", "VM.Standard.E4.Flex")).isTrue();
+      assertThat(VectorSearchFilter.shapeMatches("VM.*", "BM.Standard3")).isFalse();
+    }
+
+    @Test
+    @DisplayName("should treat dots literally")
+    void shouldTreatDotsLiterally() {
+      assertThat(VectorSearchFilter.shapeMatches("VM.Standard", "VMxStandard")).isFalse();
+    }
+
+    @Test
+    @DisplayName("should match every shape for * and all")
+    void shouldMatchWildcards() {
+      assertThat(VectorSearchFilter.shapeMatches("*", "BM.Standard3")).isTrue();
+      assertThat(VectorSearchFilter.shapeMatches("ALL", "BM.Standard3")).isTrue();
+    }
+  }
+
+  private static RunbookChunk chunk(String path, List<String> tags, List<String> shapes) {
+    return new RunbookChunk("id", path, "Title", "content", tags, shapes, new float[] {1.0f});
+  }
+}
@@ -0,0 +1,108 @@
+package com.oracle.runbook.infrastructure.cloud;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link VectorStoreStats} and {@link SearchLatencyRecorder}. */
+class VectorStoreStatsTest {
+
+  @Nested
+  @DisplayName("VectorStoreStats")
+  class StatsTests {
+
+    @Test
+    @DisplayName("should sort and copy the runbook counts")
+    void shouldSortRunbookCounts() {
+      Map<String, Integer> counts = new HashMap<>(Map.of("b.md", 1, "a.md", 2));
+
+      VectorStoreStats stats = stats(10, counts);
+      counts.put("c.md", 3);
+
+      assertThat(stats.chunksPerRunbook().keySet()).containsExactly("a.md", "b.md");
+    }
+
+    @Test
+    @DisplayName("heapBytes should add the parts, or be unknown if any part is")
+    void heapBytesShouldAddKnownParts() {
+      assertThat(stats(10, Map.of()).heapBytes()).isEqualTo(10 + 20 + 30 + 40);
+      assertThat(VectorStoreStats.unknown("oci").heapBytes()).isEqualTo(VectorStoreStats.UNKNOWN);
+    }
+
+    @Test
+    @DisplayName("the default stats() of a store should report everything as unknown")
+    void defaultStatsShouldBeUnknown() {
+      VectorStoreStats stats = VectorStoreStats.unknown("oci");
+
+      assertThat(stats.providerType()).isEqualTo("oci");
+      assertThat(stats.chunkCount()).isEqualTo(VectorStoreStats.UNKNOWN);
+      assertThat(stats.indexState()).isEqualTo(VectorStoreStats.IndexState.UNKNOWN);
+      assertThat(stats.chunksPerRunbook()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should reject a null provider type")
+    void shouldRejectNullProviderType() {
+      assertThatThrownBy(() -> VectorStoreStats.unknown(null))
+          .isInstanceOf(NullPointerException.class)
+          .hasMessageContaining("providerType");
+    }
+
+    private VectorStoreStats stats(long vectorBytes, Map<String, Integer> counts) {
+      return new VectorStoreStats(
+          "local",
+          3,
+          2,
+          vectorBytes,
+          0,
+          20,
+          30,
+          40,
+          counts,
+          VectorStoreStats.IndexState.NONE,
+          0,
+          Duration.ZERO);
+    }
+  }
+
+  @Nested
+  @DisplayName("SearchLatencyRecorder")
+  class RecorderTests {
+
+    @Test
+    @DisplayName("should average recorded calls and report zero before any")
+    void shouldAverageRecordedCalls() {
+      SearchLatencyRecorder recorder = new SearchLatencyRecorder();
+      assertThat(recorder.average()).isEqualTo(Duration.ZERO);
+
+      recorder.record(1_000);
+      recorder.record(3_000);
+
+      assertThat(recorder.count()).isEqualTo(2);
+      assertThat(recorder.average()).isEqualTo(Duration.ofNanos(2_000));
+    }
+
+    @Test
+    @DisplayName("time() should record a call that throws")
+    void timeShouldRecordFailures() {
+      SearchLatencyRecorder recorder = new SearchLatencyRecorder();
+
+      assertThatThrownBy(
+              () ->
+                  recorder.time(
+                      () -> {
+                        throw new IllegalStateException("down");
+                      }))
+          .isInstanceOf(IllegalStateException.class);
+      assertThat(recorder.time(() -> "ok")).isEqualTo("ok");
+
+      assertThat(recorder.count()).isEqualTo(2);
+    }
+  }
+}
@@ -60,6 +60,12 @@ class AwsBedrockLlmProviderTest {
           .as("providerId() must return 'aws-bedrock'")
           .isEqualTo("aws-bedrock");
     }
+
+    @Test
+    @DisplayName("embeddingModelId() should name the configured embedding model")
+    void embeddingModelIdShouldNameEmbeddingModel() {
+      assertThat(provider.embeddingModelId()).isEqualTo("aws-bedrock/cohere.embed-english-v3");
+    }
   }
 
   @Nested
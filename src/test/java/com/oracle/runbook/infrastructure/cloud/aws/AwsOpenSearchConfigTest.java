@@ -0,0 +1,90 @@
+package com.oracle.runbook.infrastructure.cloud.aws;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link AwsOpenSearchConfig} and {@link OpenSearchKnnEngine}. */
+class AwsOpenSearchConfigTest {
+
+  @Test
+  @DisplayName("defaults() should use a faiss index without authentication")
+  void defaultsShouldUseFaissWithoutAuthentication() {
+    AwsOpenSearchConfig config = AwsOpenSearchConfig.defaults("https://search.example.com/");
+
+    assertThat(config.endpoint()).isEqualTo("https://search.example.com");
+    assertThat(config.indexName()).isEqualTo(AwsOpenSearchConfig.DEFAULT_INDEX_NAME);
+    assertThat(config.engine()).isEqualTo(OpenSearchKnnEngine.FAISS);
+    assertThat(config.m()).isEqualTo(AwsOpenSearchConfig.DEFAULT_M);
+    assertThat(config.bulkBatchSize()).isEqualTo(AwsOpenSearchConfig.DEFAULT_BULK_BATCH_SIZE);
+    assertThat(config.username()).isNull();
+    assertThat(config.signingRegion()).isNull();
+  }
+
+  @Test
+  @DisplayName("should reject invalid parameters")
+  void shouldRejectInvalidParameters() {
+    assertThatThrownBy(() -> AwsOpenSearchConfig.defaults(" "))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("endpoint");
+    assertThatThrownBy(() -> config(0, 500, null, null))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("m must");
+    assertThatThrownBy(() -> config(16, 0, null, null))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("bulkBatchSize");
+    assertThatThrownBy(() -> config(16, 500, "admin", null))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("password");
+    assertThatThrownBy(
+            () ->
+                new AwsOpenSearchConfig(
+                    "https://search.example.com",
+                    "runbook-chunks",
+                    OpenSearchKnnEngine.FAISS,
+                    16,
+                    128,
+                    100,
+                    500,
+                    "admin",
+                    "secret",
+                    "us-east-1"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("signingRegion");
+  }
+
+  @Test
+  @DisplayName("toString() should mask the password")
+  void toStringShouldMaskPassword() {
+    assertThat(config(16, 500, "admin", "secret").toString())
+        .contains("username=admin")
+        .doesNotContain("secret");
+  }
+
+  @Test
+  @DisplayName("OpenSearchKnnEngine.fromString should parse case-insensitively")
+  void engineFromStringShouldParseCaseInsensitively() {
+    assertThat(OpenSearchKnnEngine.fromString("Lucene")).isEqualTo(OpenSearchKnnEngine.LUCENE);
+    assertThat(OpenSearchKnnEngine.FAISS.apiName()).isEqualTo("faiss");
+    assertThatThrownBy(() -> OpenSearchKnnEngine.fromString("annoy"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("annoy");
+  }
+
+  private static AwsOpenSearchConfig config(
+      int m, int bulkBatchSize, String username, String password) {
+    return new AwsOpenSearchConfig(
+        "https://search.example.com",
+        "runbook-chunks",
+        OpenSearchKnnEngine.FAISS,
+        m,
+        128,
+        100,
+        bulkBatchSize,
+        username,
+        password,
+        null);
+  }
+}
@@ -0,0 +1,555 @@
+package com.oracle.runbook.infrastructure.cloud.aws;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreStats;
+import com.oracle.runbook.rag.ScoredChunk;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+
+/**
+ * Unit tests for {@link AwsOpenSearchVectorStoreRepository}.
+ *
+ * <p>Uses WireMock as a stand-in for the OpenSearch REST API.
+ */
+class AwsOpenSearchVectorStoreRepositoryTest {
+
+  private static final String INDEX = "/runbook-chunks";
+  private static final Pattern GENERATION = Pattern.compile("\"generation\":\"([^\"]+)\"");
+
+  private static final String HITS =
+      """
+      {"hits":{"hits":[
+        {"_id":"c1","_score":1.8,"_source":{"runbookPath":"a.md","sectionTitle":"Memory",
+          "content":"check memory","tags":["memory"],"applicableShapes":["VM.*"]}},
+        {"_id":"c2","_score":0.5,"_source":{"runbookPath":"b.md","content":"check cpu",
+          "tags":["cpu"],"applicableShapes":[]}}
+      ]}}
+      """;
+
+  private WireMockServer wireMock;
+  private AwsOpenSearchVectorStoreRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    wireMock = new WireMockServer(WireMockConfiguration.wireMockConfig().dynamicPort());
+    wireMock.start();
+    repository = new AwsOpenSearchVectorStoreRepository(config(OpenSearchKnnEngine.FAISS, null));
+  }
+
+  @AfterEach
+  void tearDown() {
+    wireMock.stop();
+  }
+
+  @Test
+  @DisplayName("should implement VectorStoreRepository with provider type 'aws'")
+  void shouldImplementVectorStoreRepository() {
+    assertThat(repository).isInstanceOf(VectorStoreRepository.class);
+    assertThat(repository.providerType()).isEqualTo("aws");
+  }
+
+  @Nested
+  @DisplayName("storeBatch()")
+  class StoreBatchTests {
+
+    @Test
+    @DisplayName("should create a missing k-NN index with the configured engine and parameters")
+    void shouldCreateMissingIndex() {
+      wireMock.stubFor(get(urlEqualTo(INDEX)).willReturn(notFound()));
+      wireMock.stubFor(put(urlEqualTo(INDEX)).willReturn(okJson("{\"acknowledged\":true}")));
+      stubBulk();
+
+      repository.storeBatch(List.of(chunk("c1", new float[] {3f, 4f})));
+
+      wireMock.verify(
+          putRequestedFor(urlEqualTo(INDEX))
+              .withRequestBody(matchingJsonPath("$.settings.index.knn", equalTo("true")))
+              // faiss takes ef_search with each query, not from the index
+              .withRequestBody(notContaining("knn.algo_param.ef_search"))
+              .withRequestBody(
+                  matchingJsonPath("$.mappings.properties.embedding.type", equalTo("knn_vector")))
+              .withRequestBody(
+                  matchingJsonPath("$.mappings.properties.embedding.dimension", equalTo("2")))
+              .withRequestBody(
+                  matchingJsonPath(
+                      "$.mappings.properties.embedding.method.engine", equalTo("faiss")))
+              .withRequestBody(
+                  matchingJsonPath(
+                      "$.mappings.properties.embedding.method.space_type",
+                      equalTo("innerproduct")))
+              .withRequestBody(
+                  matchingJsonPath(
+                      "$.mappings.properties.embedding.method.parameters.m", equalTo("16")))
+              .withRequestBody(
+                  matchingJsonPath(
+                      "$.mappings.properties.runbookPath.type", equalTo("keyword"))));
+    }
+
+    @Test
+    @DisplayName("should check for the index only once")
+    void shouldCheckIndexOnce() {
+      stubExistingIndex();
+      stubBulk();
+
+      repository.store(chunk("c1", new float[] {1f, 0f}));
+      repository.store(chunk("c2", new float[] {0f, 1f}));
+
+      wireMock.verify(1, getRequestedFor(urlEqualTo(INDEX)));
+      wireMock.verify(0, putRequestedFor(urlEqualTo(INDEX)));
+      wireMock.verify(2, postRequestedFor(urlEqualTo(INDEX + "/_bulk")));
+    }
+
+    @Test
+    @DisplayName("should add the source runbook list to an existing index and every document")
+    void shouldIndexSourceRunbookPaths() {
+      stubExistingIndex();
+      stubBulk();
+
+      repository.store(
+          new RunbookChunk(
+              "c1",
+              "a.md",
+              "Escalation",
+              "page on-call",
+              List.of(),
+              List.of(),
+              new float[] {1f, 0f},
+              List.of("a.md", "b.md")));
+
+      wireMock.verify(
+          putRequestedFor(urlEqualTo(INDEX + "/_mapping"))
+              .withRequestBody(
+                  matchingJsonPath("$.properties.runbookPaths.type", equalTo("keyword"))));
+      wireMock.verify(
+          postRequestedFor(urlEqualTo(INDEX + "/_bulk"))
+              .withRequestBody(containing("\"runbookPaths\":[\"a.md\",\"b.md\"]")));
+    }
+
+    @Test
+    @DisplayName("should split large batches into bulk requests of the configured size")
+    void shouldSplitIntoBulkRequests() {
+      stubExistingIndex();
+      stubBulk();
+      List<RunbookChunk> chunks = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        chunks.add(chunk("c" + i, new float[] {1f, 0f}));
+      }
+
+      repository.storeBatch(chunks);
+
+      wireMock.verify(
+          3,
+          postRequestedFor(urlEqualTo(INDEX + "/_bulk"))
+              .withHeader("Content-Type", equalTo("application/x-ndjson")));
+      wireMock.verify(
+          postRequestedFor(urlEqualTo(INDEX + "/_bulk"))
+              .withRequestBody(containing("{\"index\":{\"_id\":\"c4\"}}")));
+    }
+
+    @Test
+    @DisplayName("should index normalized embeddings under the chunk id")
+    void shouldIndexNormalizedEmbeddings() {
+      stubExistingIndex();
+      stubBulk();
+
+      repository.store(chunk("c1", new float[] {3f, 4f}));
+
+      wireMock.verify(
+          postRequestedFor(urlEqualTo(INDEX + "/_bulk"))
+              .withRequestBody(containing("{\"index\":{\"_id\":\"c1\"}}\n"))
+              .withRequestBody(containing("\"embedding\":[0.6,0.8]"))
+              .withRequestBody(containing("\"tags\":[\"memory\"]")));
+    }
+
+    @Test
+    @DisplayName("should report the first failed item of a bulk request")
+    void shouldReportBulkItemFailure() {
+      stubExistingIndex();
+      wireMock.stubFor(
+          post(urlEqualTo(INDEX + "/_bulk"))
+              .willReturn(
+                  okJson(
+                      """
+                      {"errors":true,"items":[{"index":{"_id":"c1","status":400,
+                        "error":{"type":"mapper_parsing_exception","reason":"wrong dimension"}}}]}
+                      """)));
+
+      assertThatThrownBy(() -> repository.store(chunk("c1", new float[] {1f, 0f})))
+          .isInstanceOf(IllegalStateException.class)
+          .hasMessageContaining("c1")
+          .hasMessageContaining("wrong dimension");
+    }
+
+    @Test
+    @DisplayName("should send basic authentication when a username is configured")
+    void shouldSendBasicAuthentication() {
+      AwsOpenSearchVectorStoreRepository authenticated =
+          new AwsOpenSearchVectorStoreRepository(config(OpenSearchKnnEngine.FAISS, "admin"));
+      stubExistingIndex();
+      stubBulk();
+
+      authenticated.store(chunk("c1", new float[] {1f, 0f}));
+
+      // admin:secret
+      wireMock.verify(
+          postRequestedFor(urlEqualTo(INDEX + "/_bulk"))
+              .withHeader("Authorization", equalTo("Basic YWRtaW46c2VjcmV0")));
+    }
+
+    @Test
+    @DisplayName("should sign requests with SigV4 when a signing region is configured")
+    void shouldSignRequests() {
+      AwsOpenSearchVectorStoreRepository signing =
+          new AwsOpenSearchVectorStoreRepository(
+              new AwsOpenSearchConfig(
+                  "http://localhost:" + wireMock.port(),
+                  "runbook-chunks",
+                  OpenSearchKnnEngine.FAISS,
+                  16,
+                  128,
+                  100,
+                  2,
+                  null,
+                  null,
+                  "us-east-1"),
+              StaticCredentialsProvider.create(AwsBasicCredentials.create("AKID", "SECRET")));
+      stubExistingIndex();
+      stubBulk();
+
+      signing.store(chunk("c1", new float[] {1f, 0f}));
+
+      wireMock.verify(
+          postRequestedFor(urlEqualTo(INDEX + "/_bulk"))
+              .withHeader(
+                  "Authorization",
+                  matching(
+                      "AWS4-HMAC-SHA256 Credential=AKID/\\d{8}/us-east-1/es/aws4_request, "
+                          + "SignedHeaders=.*content-type;host.*, Signature=[0-9a-f]{64}"))
+              .withHeader("X-Amz-Date", matching("\\d{8}T\\d{6}Z")));
+    }
+  }
+
+  @Nested
+  @DisplayName("search()")
+  class SearchTests {
+
+    @Test
+    @DisplayName("should run a k-NN query that returns only the chunk fields")
+    void shouldRunKnnQueryWithSourceFiltering() {
+      wireMock.stubFor(post(urlEqualTo(INDEX + "/_search")).willReturn(okJson(HITS)));
+
+      List<ScoredChunk> results = repository.search(new float[] {2f, 0f}, 2);
+
+      assertThat(results).extracting(result -> result.chunk().id()).containsExactly("c1", "c2");
+      assertThat(results.get(0).chunk().applicableShapes()).containsExactly("VM.*");
+      assertThat(results.get(0).chunk().embedding()).isEmpty();
+      wireMock.verify(
+          postRequestedFor(urlEqualTo(INDEX + "/_search"))
+              .withRequestBody(matchingJsonPath("$.size", equalTo("2")))
+              .withRequestBody(matchingJsonPath("$.query.knn.embedding.k", equalTo("2")))
+              .withRequestBody(
+                  matchingJsonPath(
+                      "$.query.knn.embedding.method_parameters.ef_search", equalTo("100")))
+              .withRequestBody(containing("\"vector\":[1.0,0.0]"))
+              .withRequestBody(matchingJsonPath("$._source.includes[?(@ == 'content')]"))
+              .withRequestBody(notContaining("\"includes\":[\"embedding\"")));
+    }
+
+    @Test
+    @DisplayName("should convert inner-product scores back to cosine similarity")
+    void shouldConvertScoresToCosine() {
+      wireMock.stubFor(post(urlEqualTo(INDEX + "/_search")).willReturn(okJson(HITS)));
+
+      List<ScoredChunk> results = repository.search(new float[] {1f, 0f}, 2);
+
+      assertThat(results.get(0).similarityScore()).isCloseTo(0.8, within(1e-9));
+      assertThat(results.get(1).similarityScore()).isCloseTo(-1.0, within(1e-9));
+    }
+
+    @Test
+    @DisplayName("should return no results while the index does not exist")
+    void shouldReturnEmptyForMissingIndex() {
+      wireMock.stubFor(post(urlEqualTo(INDEX + "/_search")).willReturn(notFound()));
+
+      assertThat(repository.search(new float[] {1f, 0f}, 5)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should surface server errors")
+    void shouldSurfaceServerErrors() {
+      wireMock.stubFor(post(urlEqualTo(INDEX + "/_search")).willReturn(serverError()));
+
+      assertThatThrownBy(() -> repository.search(new float[] {1f, 0f}, 5))
+          .isInstanceOf(IllegalStateException.class)
+          .hasMessageContaining("500");
+    }
+
+    @Test
+    @DisplayName("should push tag and path filters into the k-NN query and post-filter shapes")
+    void shouldPushDownFilters() {
+      wireMock.stubFor(post(urlEqualTo(INDEX + "/_search")).willReturn(okJson(HITS)));
+      VectorSearchFilter filter =
+          VectorSearchFilter.forShape("BM.Standard3")
+              .withAnyTags(Set.of("cpu"))
+              .withRunbookPaths(Set.of("b.md"));
+
+      List<ScoredChunk> results = repository.search(new float[] {1f, 0f}, 2, filter);
+
+      // c1 only applies to VM shapes
+      assertThat(results).extracting(result -> result.chunk().id()).containsExactly("c2");
+      wireMock.verify(
+          postRequestedFor(urlEqualTo(INDEX + "/_search"))
+              .withRequestBody(matchingJsonPath("$.query.knn.embedding.k", equalTo("8")))
+              .withRequestBody(
+                  matchingJsonPath(
+                      "$.query.knn.embedding.filter.bool.filter[0].bool.should[0]"
+                          + ".terms.runbookPaths[0]",
+                      equalTo("b.md")))
+              .withRequestBody(
+                  matchingJsonPath(
+                      "$.query.knn.embedding.filter.bool.filter[1].terms.tags[0]",
+                      equalTo("cpu"))));
+    }
+
+    @Test
+    @DisplayName("should filter after searching on engines without k-NN filtering")
+    void shouldPostFilterOnNmslib() {
+      AwsOpenSearchVectorStoreRepository nmslib =
+          new AwsOpenSearchVectorStoreRepository(config(OpenSearchKnnEngine.NMSLIB, null));
+      wireMock.stubFor(post(urlEqualTo(INDEX + "/_search")).willReturn(okJson(HITS)));
+
+      VectorSearchFilter cpuOnly = VectorSearchFilter.none().withAnyTags(Set.of("cpu"));
+
+      List<ScoredChunk> results = nmslib.search(new float[] {1f, 0f}, 1, cpuOnly);
+
+      assertThat(results).extracting(result -> result.chunk().id()).containsExactly("c2");
+      wireMock.verify(
+          postRequestedFor(urlEqualTo(INDEX + "/_search"))
+              .withRequestBody(notContaining("filter")));
+    }
+
+    @Test
+    @DisplayName("should reject invalid arguments")
+    void shouldRejectInvalidArguments() {
+      assertThatThrownBy(() -> repository.search(null, 5))
+          .isInstanceOf(NullPointerException.class)
+          .hasMessageContaining("queryEmbedding");
+      assertThatThrownBy(() -> repository.search(new float[] {1f}, 0))
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("topK");
+    }
+  }
+
+  @Nested
+  @DisplayName("searchBatch()")
+  class SearchBatchTests {
+
+    @Test
+    @DisplayName("should send all queries in one multi-search request")
+    void shouldUseMultiSearch() {
+      String missingIndex = "{\"error\":{\"type\":\"index_not_found_exception\"},\"status\":404}";
+      wireMock.stubFor(
+          post(urlEqualTo("/_msearch"))
+              .willReturn(okJson("{\"responses\":[" + HITS + "," + missingIndex + "]}")));
+
+      List<List<ScoredChunk>> results =
+          repository.searchBatch(List.of(new float[] {1f, 0f}, new float[] {0f, 1f}), 1);
+
+      assertThat(results).hasSize(2);
+      assertThat(results.get(0)).extracting(result -> result.chunk().id()).containsExactly("c1");
+      assertThat(results.get(1)).isEmpty();
+      wireMock.verify(
+          1,
+          postRequestedFor(urlEqualTo("/_msearch"))
+              .withHeader("Content-Type", equalTo("application/x-ndjson"))
+              .withRequestBody(containing("{\"index\":\"runbook-chunks\"}\n")));
+    }
+  }
+
+  @Nested
+  @DisplayName("delete()")
+  class DeleteTests {
+
+    @Test
+    @DisplayName("should remove the runbook from its chunks' sources by query")
+    void shouldRemoveSourceByQuery() {
+      wireMock.stubFor(
+          post(urlPathEqualTo(INDEX + "/_update_by_query")).willReturn(okJson("{\"updated\":2}")));
+
+      repository.delete("a.md");
+
+      wireMock.verify(
+          postRequestedFor(urlPathEqualTo(INDEX + "/_update_by_query"))
+              .withQueryParam("refresh", equalTo("true"))
+              .withRequestBody(
+                  matchingJsonPath(
+                      "$.query.bool.should[0].terms.runbookPaths[0]", equalTo("a.md")))
+              .withRequestBody(
+                  matchingJsonPath("$.query.bool.should[1].terms.runbookPath[0]", equalTo("a.md")))
+              .withRequestBody(matchingJsonPath("$.script.params.paths[0]", equalTo("a.md")))
+              .withRequestBody(matchingJsonPath("$.script.source", containing("ctx.op"))));
+    }
+
+    @Test
+    @DisplayName("should ignore a missing index")
+    void shouldIgnoreMissingIndex() {
+      wireMock.stubFor(post(urlPathEqualTo(INDEX + "/_update_by_query")).willReturn(notFound()));
+
+      repository.delete("a.md");
+
+      wireMock.verify(1, postRequestedFor(urlPathEqualTo(INDEX + "/_update_by_query")));
+    }
+  }
+
+  @Nested
+  @DisplayName("replaceRunbooks()")
+  class ReplaceRunbooksTests {
+
+    @Test
+    @DisplayName("should index the new chunks, then remove the runbooks from older generations")
+    void shouldIndexThenDeleteOldChunks() {
+      stubExistingIndex();
+      stubBulk();
+      wireMock.stubFor(
+          post(urlPathEqualTo(INDEX + "/_update_by_query")).willReturn(okJson("{\"updated\":2}")));
+      List<RunbookChunk> chunks = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        chunks.add(chunk("c" + i, new float[] {1f, 0f}));
+      }
+
+      repository.replaceRunbooks(List.of("a.md", "b.md"), chunks);
+
+      List<String> generations =
+          wireMock.findAll(postRequestedFor(urlEqualTo(INDEX + "/_bulk"))).stream()
+              .flatMap(request -> GENERATION.matcher(request.getBodyAsString()).results())
+              .map(match -> match.group(1))
+              .distinct()
+              .toList();
+      assertThat(generations).hasSize(1);
+      wireMock.verify(
+          postRequestedFor(urlPathEqualTo(INDEX + "/_update_by_query"))
+              .withQueryParam("refresh", equalTo("true"))
+              .withRequestBody(
+                  matchingJsonPath(
+                      "$.query.bool.filter[0].bool.should[0].terms.runbookPaths[1]",
+                      equalTo("b.md")))
+              .withRequestBody(matchingJsonPath("$.script.params.paths[1]", equalTo("b.md")))
+              .withRequestBody(
+                  matchingJsonPath(
+                      "$.query.bool.must_not[0].term.generation", equalTo(generations.get(0))))
+              .withRequestBody(notContaining("\"ids\"")));
+    }
+
+    @Test
+    @DisplayName("should leave the old chunks in place when bulk indexing fails")
+    void shouldNotDeleteWhenIndexingFails() {
+      stubExistingIndex();
+      wireMock.stubFor(post(urlEqualTo(INDEX + "/_bulk")).willReturn(serverError()));
+
+      assertThatThrownBy(
+              () ->
+                  repository.replaceRunbooks(
+                      List.of("a.md"), List.of(chunk("c1", new float[] {1f, 0f}))))
+          .isInstanceOf(IllegalStateException.class);
+
+      wireMock.verify(0, postRequestedFor(urlPathEqualTo(INDEX + "/_update_by_query")));
+    }
+  }
+
+  @Nested
+  @DisplayName("stats()")
+  class StatsTests {
+
+    @Test
+    @DisplayName("should count chunks per runbook with one aggregation and time k-NN searches")
+    void shouldAggregateRunbookCounts() {
+      wireMock.stubFor(post(urlEqualTo(INDEX + "/_search")).willReturn(okJson(HITS)));
+      wireMock.stubFor(
+          post(urlEqualTo(INDEX + "/_search"))
+              .withRequestBody(
+                  matchingJsonPath("$.aggs.runbooks.terms.field", equalTo("runbookPaths")))
+              .willReturn(
+                  okJson(
+                      """
+                      {"hits":{"total":{"value":3,"relation":"eq"},"hits":[]},
+                       "aggregations":{"runbooks":{"buckets":[
+                         {"key":"a.md","doc_count":1},{"key":"b.md","doc_count":1}]},
+                         "legacy":{"doc_count":1,"runbooks":{"buckets":[
+                           {"key":"a.md","doc_count":1}]}}}}
+                      """)));
+      repository.search(new float[] {1f, 0f}, 2);
+
+      VectorStoreStats stats = repository.stats();
+
+      assertThat(stats.providerType()).isEqualTo("aws");
+      assertThat(stats.chunkCount()).isEqualTo(3);
+      assertThat(stats.chunksPerRunbook()).containsEntry("a.md", 2).containsEntry("b.md", 1);
+      assertThat(stats.vectorBytes()).isEqualTo(VectorStoreStats.UNKNOWN);
+      assertThat(stats.indexState()).isEqualTo(VectorStoreStats.IndexState.UNKNOWN);
+      assertThat(stats.searchCount()).isEqualTo(1);
+      wireMock.verify(
+          postRequestedFor(urlEqualTo(INDEX + "/_search"))
+              .withRequestBody(matchingJsonPath("$.size", equalTo("0")))
+              .withRequestBody(matchingJsonPath("$.track_total_hits", equalTo("true"))));
+    }
+
+    @Test
+    @DisplayName("should report an empty store while the index does not exist")
+    void shouldReportEmptyForMissingIndex() {
+      wireMock.stubFor(post(urlEqualTo(INDEX + "/_search")).willReturn(notFound()));
+
+      VectorStoreStats stats = repository.stats();
+
+      assertThat(stats.chunkCount()).isZero();
+      assertThat(stats.chunksPerRunbook()).isEmpty();
+    }
+  }
+
+  private AwsOpenSearchConfig config(OpenSearchKnnEngine engine, String username) {
+    return new AwsOpenSearchConfig(
+        "http://localhost:" + wireMock.port(),
+        "runbook-chunks",
+        engine,
+        16,
+        128,
+        100,
+        2,
+        username,
+        username == null ? null : "secret",
+        null);
+  }
+
+  private void stubExistingIndex() {
+    wireMock.stubFor(get(urlEqualTo(INDEX)).willReturn(okJson("{}")));
+    wireMock.stubFor(
+        put(urlEqualTo(INDEX + "/_mapping")).willReturn(okJson("{\"acknowledged\":true}")));
+  }
+
+  private void stubBulk() {
+    wireMock.stubFor(
+        post(urlEqualTo(INDEX + "/_bulk")).willReturn(okJson("{\"errors\":false,\"items\":[]}")));
+  }
+
+  private static RunbookChunk chunk(String id, float[] embedding) {
+    return new RunbookChunk(
+        id, "a.md", "Memory", "check memory", List.of("memory"), List.of("VM.*"), embedding);
+  }
+}
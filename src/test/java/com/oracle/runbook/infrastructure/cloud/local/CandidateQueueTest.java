@@ -0,0 +1,41 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link CandidateQueue}. */
+class CandidateQueueTest {
+
+  @Test
+  @DisplayName("should pop entries best score first and grow past initial capacity")
+  void shouldPopBestFirst() {
+    CandidateQueue queue = new CandidateQueue(2);
+    float[] scores = {0.3f, 0.9f, 0.1f, 0.7f, 0.5f, 0.8f};
+    for (int node = 0; node < scores.length; node++) {
+      queue.push(node, scores[node]);
+    }
+
+    List<Integer> order = new ArrayList<>();
+    while (!queue.isEmpty()) {
+      order.add(queue.peekNode());
+      queue.pop();
+    }
+
+    assertThat(order).containsExactly(1, 5, 3, 4, 0, 2);
+  }
+
+  @Test
+  @DisplayName("clear should empty the queue")
+  void clearShouldEmptyQueue() {
+    CandidateQueue queue = new CandidateQueue(4);
+    queue.push(1, 0.5f);
+
+    queue.clear();
+
+    assertThat(queue.isEmpty()).isTrue();
+  }
+}
@@ -0,0 +1,278 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreStats;
+import com.oracle.runbook.rag.ScoredChunk;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Unit tests for {@link DurableVectorStoreRepository}. */
+class DurableVectorStoreRepositoryTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  @DisplayName("should implement VectorStoreRepository with the local provider type")
+  void shouldReportLocalProviderType() throws IOException {
+    try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+      assertThat(store).isInstanceOf(VectorStoreRepository.class);
+      assertThat(store.providerType()).isEqualTo("local");
+      assertThat(store.recovered()).isFalse();
+    }
+  }
+
+  @Test
+  @DisplayName("filtered search should use the delegate's index, including after recovery")
+  void shouldDelegateFilteredSearch() throws IOException {
+    VectorSearchFilter twoOnly = VectorSearchFilter.none().withRunbookPaths(Set.of("two.md"));
+    try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+      store.storeBatch(List.of(chunk("a", "one.md", 1.0f, 0.0f), chunk("b", "two.md", 0, 1)));
+      assertThat(ids(store.search(new float[] {1.0f, 0.0f}, 1, twoOnly))).containsExactly("b");
+    }
+
+    try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+      assertThat(ids(store.search(new float[] {1.0f, 0.0f}, 1, twoOnly))).containsExactly("b");
+    }
+  }
+
+  @Test
+  @DisplayName("stats should report the recovered contents of the delegate")
+  void shouldDelegateStats() throws IOException {
+    try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+      store.storeBatch(List.of(chunk("a", "one.md", 1.0f, 0.0f), chunk("b", "two.md", 0, 1)));
+    }
+
+    try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+      store.search(new float[] {1.0f, 0.0f}, 1);
+      VectorStoreStats stats = store.stats();
+
+      assertThat(stats.chunkCount()).isEqualTo(2);
+      assertThat(stats.chunksPerRunbook()).containsOnlyKeys("one.md", "two.md");
+      assertThat(stats.searchCount()).isEqualTo(1);
+    }
+  }
+
+  @Nested
+  @DisplayName("recovery")
+  class RecoveryTests {
+
+    @Test
+    @DisplayName("should replay stores, batches and deletes after a restart")
+    void shouldReplayMutations() throws IOException {
+      try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+        store.store(chunk("a", "one.md", 1.0f, 0.0f));
+        store.storeBatch(List.of(chunk("b", "two.md", 0.0f, 1.0f), chunk("c", "one.md", 1, 1)));
+        store.delete("one.md");
+      }
+
+      try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+        assertThat(store.recovered()).isTrue();
+        assertThat(ids(store.search(new float[] {1.0f, 1.0f}, 10))).containsExactly("b");
+      }
+    }
+
+    @Test
+    @DisplayName("should replay a runbook replacement as one swap")
+    void shouldReplayReplacement() throws IOException {
+      try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+        store.storeBatch(List.of(chunk("a", "one.md", 1.0f, 0.0f), chunk("b", "two.md", 0, 1)));
+        store.replaceRunbooks(List.of("one.md"), List.of(chunk("c", "one.md", 1.0f, 1.0f)));
+      }
+
+      try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+        assertThat(ids(store.search(new float[] {1.0f, 1.0f}, 10)))
+            .containsExactlyInAnyOrder("b", "c");
+      }
+    }
+
+    @Test
+    @DisplayName("should recover from the checkpoint snapshot plus newer log records")
+    void shouldRecoverFromCheckpointAndLogTail() throws IOException {
+      try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+        store.store(chunk("a", "one.md", 1.0f, 0.0f));
+        store.checkpoint();
+        assertThat(store.logSizeBytes()).isEqualTo(WriteAheadLog.HEADER_BYTES);
+        store.store(chunk("b", "two.md", 0.0f, 1.0f));
+      }
+
+      try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+        assertThat(tempDir.resolve(DurableVectorStoreRepository.SNAPSHOT_FILE)).exists();
+        assertThat(ids(store.search(new float[] {1.0f, 1.0f}, 10)))
+            .containsExactlyInAnyOrder("a", "b");
+      }
+    }
+
+    @Test
+    @DisplayName("should not re-apply records a checkpoint already covers")
+    void shouldSkipRecordsCoveredByCheckpoint() throws IOException {
+      Path log = tempDir.resolve(DurableVectorStoreRepository.LOG_FILE);
+      byte[] staleLog;
+      try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+        store.store(chunk("a", "one.md", 1.0f, 0.0f));
+        store.delete("one.md");
+        store.store(chunk("a", "two.md", 1.0f, 0.0f));
+        staleLog = Files.readAllBytes(log);
+        store.checkpoint();
+      }
+      // Simulate a crash between writing the snapshot and truncating the log
+      Files.write(log, staleLog);
+
+      try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+        assertThat(store.replayedRecords()).isZero();
+        List<ScoredChunk> results = store.search(new float[] {1.0f, 0.0f}, 10);
+        assertThat(results).singleElement();
+        assertThat(results.get(0).chunk().runbookPath()).isEqualTo("two.md");
+      }
+    }
+
+    @Test
+    @DisplayName("should recover runbook titles from the log and from a checkpoint")
+    void shouldRecoverTitles() throws IOException {
+      float[] query = {0.6f, 1.0f};
+      VectorSearchFilter none = VectorSearchFilter.none();
+      try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+        store.storeBatch(List.of(chunk("a", "one.md", 1.0f, 0.0f), chunk("b", "two.md", 0, 1)));
+        assertThat(store.searchRunbooks(query, 1, none)).containsExactly("two.md");
+        store.storeRunbookTitles(Map.of("one.md", new float[] {0.0f, 1.0f}));
+        assertThat(store.searchRunbooks(query, 1, none)).containsExactly("one.md");
+      }
+
+      try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+        assertThat(store.replayedRecords()).isEqualTo(2);
+        assertThat(store.searchRunbooks(query, 1, none)).containsExactly("one.md");
+        store.checkpoint();
+      }
+
+      try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+        assertThat(store.replayedRecords()).isZero();
+        assertThat(store.searchRunbooks(query, 1, none)).containsExactly("one.md");
+      }
+    }
+
+    @Test
+    @DisplayName("loadSnapshot should checkpoint the loaded contents")
+    void loadSnapshotShouldCheckpoint() throws IOException {
+      Path external = tempDir.resolve("export.rbvs");
+      InMemoryVectorStoreRepository source = new InMemoryVectorStoreRepository();
+      source.store(chunk("x", "x.md", 1.0f, 0.0f));
+      source.saveSnapshot(external);
+      WalConfig config = WalConfig.defaults(tempDir.resolve("wal"));
+
+      try (DurableVectorStoreRepository store = open(config)) {
+        store.store(chunk("a", "one.md", 0.0f, 1.0f));
+        assertThat(store.loadSnapshot(external)).isTrue();
+      }
+
+      try (DurableVectorStoreRepository store = open(config)) {
+        assertThat(ids(store.search(new float[] {1.0f, 1.0f}, 10))).containsExactly("x");
+      }
+    }
+  }
+
+  @Nested
+  @DisplayName("commit")
+  class CommitTests {
+
+    @Test
+    @DisplayName("concurrent writers should all be durable")
+    void concurrentWritersShouldAllBeDurable() throws Exception {
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+          int thread = t;
+          writers.add(
+              executor.submit(
+                  () -> {
+                    for (int i = 0; i < 50; i++) {
+                      store.store(chunk(thread + "-" + i, "t.md", 1.0f, thread));
+                    }
+                  }));
+        }
+        for (Future<?> writer : writers) {
+          writer.get();
+        }
+      } finally {
+        executor.shutdown();
+      }
+
+      try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+        assertThat(store.search(new float[] {1.0f, 0.0f}, 1000)).hasSize(400);
+      }
+    }
+
+    @Test
+    @DisplayName("should neither log nor apply a write that fails validation")
+    void shouldNotLogRejectedWrites() throws IOException {
+      try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+        store.store(chunk("a", "a.md", 1.0f, 0.0f));
+        long logSize = store.logSizeBytes();
+        RunbookChunk wrongDimension =
+            new RunbookChunk("b", "b.md", "Section", "content", List.of(), List.of(), new float[3]);
+
+        assertThatThrownBy(() -> store.replaceRunbooks(List.of("b.md"), List.of(wrongDimension)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> store.storeBatch(List.of(wrongDimension)))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(store.logSizeBytes()).isEqualTo(logSize);
+        assertThat(store.stats().chunkCount()).isEqualTo(1);
+      }
+
+      try (DurableVectorStoreRepository store = open(WalConfig.defaults(tempDir))) {
+        assertThat(ids(store.search(new float[] {1.0f, 0.0f}, 10))).containsExactly("a");
+      }
+    }
+
+    @Test
+    @DisplayName("should checkpoint in the background once the log passes checkpointBytes")
+    void shouldCheckpointInBackground() throws IOException {
+      WalConfig config =
+          new WalConfig(
+              tempDir, FsyncPolicy.INTERVAL, Duration.ofMillis(20), 256, Duration.ofMillis(20));
+      try (DurableVectorStoreRepository store = open(config)) {
+        for (int i = 0; i < 20; i++) {
+          store.store(chunk("c" + i, "c.md", 1.0f, i));
+        }
+
+        await()
+            .atMost(30, SECONDS)
+            .until(() -> store.logSizeBytes() == WriteAheadLog.HEADER_BYTES);
+        assertThat(tempDir.resolve(DurableVectorStoreRepository.SNAPSHOT_FILE)).exists();
+      }
+    }
+  }
+
+  private static DurableVectorStoreRepository open(WalConfig config) throws IOException {
+    return DurableVectorStoreRepository.open(new InMemoryVectorStoreRepository(), config);
+  }
+
+  private static List<String> ids(List<ScoredChunk> results) {
+    return results.stream().map(result -> result.chunk().id()).toList();
+  }
+
+  private static RunbookChunk chunk(String id, String path, float x, float y) {
+    return new RunbookChunk(
+        id, path, "Section", "content", List.of(), List.of(), new float[] {x, y});
+  }
+}
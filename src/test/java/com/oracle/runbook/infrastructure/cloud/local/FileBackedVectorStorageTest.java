@@ -0,0 +1,63 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Unit tests for {@link FileBackedVectorStorage}. */
+class FileBackedVectorStorageTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  @DisplayName("should score rows read back from the scratch file")
+  void shouldScoreRowsFromFile() {
+    FileBackedVectorStorage storage =
+        new FileBackedVectorStorage(tempDir, 3, SimilarityKernels.scalar());
+    storage.append(new float[] {1.0f, 0.0f, 0.0f});
+    storage.append(new float[] {0.0f, 1.0f, 0.0f});
+    storage.set(1, new float[] {0.0f, 0.0f, 1.0f});
+
+    VectorStorage.RowScorer scorer = storage.scorer(new float[] {0.0f, 0.0f, 1.0f});
+
+    assertThat(storage.size()).isEqualTo(2);
+    assertThat(scorer.score(0)).isEqualTo(0.0f);
+    assertThat(scorer.score(1)).isEqualTo(1.0f);
+    storage.release();
+  }
+
+  @Test
+  @DisplayName("swapRemove should copy the last row into the freed slot")
+  void swapRemoveShouldCopyLastRow() {
+    FileBackedVectorStorage storage =
+        new FileBackedVectorStorage(tempDir, 2, SimilarityKernels.scalar());
+    storage.append(new float[] {1.0f, 0.0f});
+    storage.append(new float[] {0.0f, 1.0f});
+    storage.append(new float[] {0.6f, 0.8f});
+
+    assertThat(storage.swapRemove(0)).isEqualTo(2);
+    assertThat(storage.scorer(new float[] {0.6f, 0.8f}).score(0)).isEqualTo(1.0f);
+    assertThat(storage.swapRemove(1)).isEqualTo(-1);
+    storage.release();
+  }
+
+  @Test
+  @DisplayName("release should delete the scratch file")
+  void releaseShouldDeleteScratchFile() throws IOException {
+    FileBackedVectorStorage storage =
+        new FileBackedVectorStorage(tempDir, 2, SimilarityKernels.scalar());
+    storage.append(new float[] {1.0f, 0.0f});
+
+    storage.release();
+
+    try (Stream<Path> files = Files.list(tempDir)) {
+      assertThat(files).isEmpty();
+    }
+  }
+}
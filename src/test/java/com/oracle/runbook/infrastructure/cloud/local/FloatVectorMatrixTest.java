@@ -0,0 +1,50 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link FloatVectorMatrix}. */
+class FloatVectorMatrixTest {
+
+  @Test
+  @DisplayName("should grow beyond initial capacity and keep rows intact")
+  void shouldGrowAndKeepRows() {
+    FloatVectorMatrix matrix = new FloatVectorMatrix(2, SimilarityKernels.scalar());
+    for (int i = 0; i < 200; i++) {
+      matrix.append(new float[] {i, -i});
+    }
+
+    assertThat(matrix.size()).isEqualTo(200);
+    assertThat(matrix.dot(new float[] {1.0f, 0.0f}, 150)).isEqualTo(150.0f);
+  }
+
+  @Test
+  @DisplayName("swapRemove should move the last row into the freed slot")
+  void swapRemoveShouldMoveLastRow() {
+    FloatVectorMatrix matrix = new FloatVectorMatrix(2, SimilarityKernels.scalar());
+    matrix.append(new float[] {1.0f, 0.0f});
+    matrix.append(new float[] {0.0f, 1.0f});
+    matrix.append(new float[] {0.5f, 0.5f});
+
+    int moved = matrix.swapRemove(0);
+
+    assertThat(moved).isEqualTo(2);
+    assertThat(matrix.size()).isEqualTo(2);
+    assertThat(matrix.dot(new float[] {1.0f, 1.0f}, 0)).isEqualTo(1.0f);
+    assertThat(matrix.swapRemove(1)).isEqualTo(-1);
+  }
+
+  @Test
+  @DisplayName("normalizeInPlace should scale to unit length and leave zero vectors alone")
+  void normalizeInPlaceShouldScaleToUnitLength() {
+    float[] vector = FloatVectorMatrix.normalizeInPlace(new float[] {3.0f, 4.0f});
+    float[] zero = FloatVectorMatrix.normalizeInPlace(new float[] {0.0f, 0.0f});
+
+    assertThat(vector[0]).isCloseTo(0.6f, within(1e-6f));
+    assertThat(vector[1]).isCloseTo(0.8f, within(1e-6f));
+    assertThat(zero).containsExactly(0.0f, 0.0f);
+  }
+}
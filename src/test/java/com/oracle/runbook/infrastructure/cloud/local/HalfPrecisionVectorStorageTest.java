@@ -0,0 +1,106 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/** Unit tests for {@link HalfPrecisionVectorStorage}. */
+class HalfPrecisionVectorStorageTest {
+
+  private static final int DIMENSION = 64;
+
+  @ParameterizedTest
+  @EnumSource(
+      value = VectorEncoding.class,
+      names = {"FLOAT16", "BFLOAT16"})
+  @DisplayName("scores should approximate the float dot product of normalized vectors")
+  void scoresShouldApproximateFloatDotProduct(VectorEncoding encoding) {
+    Random random = new Random(11);
+    HalfPrecisionVectorStorage storage =
+        new HalfPrecisionVectorStorage(encoding, DIMENSION, SimilarityKernels.scalar());
+    FloatVectorMatrix exact = new FloatVectorMatrix(DIMENSION, SimilarityKernels.scalar());
+    for (int i = 0; i < 200; i++) {
+      float[] vector = randomUnitVector(random);
+      storage.append(vector);
+      exact.append(vector);
+    }
+
+    float[] query = randomUnitVector(random);
+    VectorStorage.RowScorer approximate = storage.scorer(query);
+    VectorStorage.RowScorer reference = exact.scorer(query);
+    for (int row = 0; row < 200; row++) {
+      assertThat(approximate.score(row)).isCloseTo(reference.score(row), within(0.005f));
+    }
+  }
+
+  @Test
+  @DisplayName("encode should round to nearest, ties to even")
+  void encodeShouldRoundToNearestEven() {
+    // 1 + 2^-8 lies halfway between two bfloat16 values; the even one is 1.0
+    assertThat(roundTrip(VectorEncoding.BFLOAT16, 1.0f + 0x1p-8f)).isEqualTo(1.0f);
+    assertThat(roundTrip(VectorEncoding.BFLOAT16, 1.0f + 0x1p-8f + 0x1p-20f))
+        .isEqualTo(1.0f + 0x1p-7f);
+    assertThat(roundTrip(VectorEncoding.FLOAT16, 1.0f + 0x1p-11f)).isEqualTo(1.0f);
+    assertThat(roundTrip(VectorEncoding.FLOAT16, -0.5f)).isEqualTo(-0.5f);
+  }
+
+  @Test
+  @DisplayName("read should return the rounded components")
+  void readShouldReturnRoundedComponents() {
+    HalfPrecisionVectorStorage storage =
+        new HalfPrecisionVectorStorage(VectorEncoding.FLOAT16, 3, SimilarityKernels.scalar());
+    storage.append(new float[] {0.6f, 0.8f, 0.0f});
+
+    float[] row = new float[3];
+    storage.read(0, row);
+
+    assertThat(row[0]).isEqualTo(Float.float16ToFloat(Float.floatToFloat16(0.6f)));
+    assertThat(row[1]).isCloseTo(0.8f, within(1e-3f));
+    assertThat(row[2]).isEqualTo(0.0f);
+  }
+
+  @Test
+  @DisplayName("swapRemove should move the last row and growth should keep rows")
+  void swapRemoveShouldMoveLastRow() {
+    HalfPrecisionVectorStorage storage =
+        new HalfPrecisionVectorStorage(VectorEncoding.BFLOAT16, 2, SimilarityKernels.scalar());
+    for (int i = 0; i < 500; i++) {
+      storage.append(i % 2 == 0 ? new float[] {1.0f, 0.0f} : new float[] {0.0f, 1.0f});
+    }
+
+    assertThat(storage.swapRemove(0)).isEqualTo(499);
+    assertThat(storage.size()).isEqualTo(499);
+    assertThat(storage.scorer(new float[] {0.0f, 1.0f}).score(0)).isEqualTo(1.0f);
+    assertThat(storage.swapRemove(498)).isEqualTo(-1);
+  }
+
+  @Test
+  @DisplayName("should reject encodings that are not 16-bit floats")
+  void shouldRejectOtherEncodings() {
+    assertThatThrownBy(
+            () ->
+                new HalfPrecisionVectorStorage(
+                    VectorEncoding.INT8, DIMENSION, SimilarityKernels.scalar()))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("encoding");
+  }
+
+  private static float roundTrip(VectorEncoding encoding, float value) {
+    return HalfPrecisionVectorStorage.decode(
+        encoding, HalfPrecisionVectorStorage.encode(encoding, value));
+  }
+
+  private static float[] randomUnitVector(Random random) {
+    float[] vector = new float[DIMENSION];
+    for (int i = 0; i < DIMENSION; i++) {
+      vector[i] = (float) random.nextGaussian();
+    }
+    return FloatVectorMatrix.normalizeInPlace(vector);
+  }
+}
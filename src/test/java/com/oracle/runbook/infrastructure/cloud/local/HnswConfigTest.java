@@ -0,0 +1,35 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link HnswConfig}. */
+class HnswConfigTest {
+
+  @Test
+  @DisplayName("defaults() should use the documented default parameters")
+  void defaultsShouldUseDocumentedParameters() {
+    HnswConfig config = HnswConfig.defaults();
+
+    assertThat(config.m()).isEqualTo(HnswConfig.DEFAULT_M);
+    assertThat(config.efConstruction()).isEqualTo(HnswConfig.DEFAULT_EF_CONSTRUCTION);
+    assertThat(config.efSearch()).isEqualTo(HnswConfig.DEFAULT_EF_SEARCH);
+  }
+
+  @Test
+  @DisplayName("should reject invalid parameters")
+  void shouldRejectInvalidParameters() {
+    assertThatThrownBy(() -> new HnswConfig(1, 100, 10))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("m");
+    assertThatThrownBy(() -> new HnswConfig(16, 0, 10))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("efConstruction");
+    assertThatThrownBy(() -> new HnswConfig(16, 100, 0))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("efSearch");
+  }
+}
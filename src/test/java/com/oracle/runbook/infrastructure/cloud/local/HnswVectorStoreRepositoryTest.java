@@ -0,0 +1,382 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreStats;
+import com.oracle.runbook.rag.ScoredChunk;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link HnswVectorStoreRepository}. */
+class HnswVectorStoreRepositoryTest {
+
+  private static final int DIMENSION = 16;
+
+  private HnswVectorStoreRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    repository = new HnswVectorStoreRepository(new HnswConfig(8, 100, 64));
+  }
+
+  @Nested
+  @DisplayName("providerType()")
+  class ProviderTypeTests {
+
+    @Test
+    @DisplayName("should return 'hnsw' as provider type")
+    void shouldReturnHnswProviderType() {
+      assertThat(repository.providerType()).isEqualTo("hnsw");
+      assertThat(repository).isInstanceOf(VectorStoreRepository.class);
+    }
+  }
+
+  @Nested
+  @DisplayName("search()")
+  class SearchTests {
+
+    @Test
+    @DisplayName("should return empty list for empty store")
+    void shouldReturnEmptyForEmptyStore() {
+      assertThat(repository.search(new float[] {1.0f, 0.0f}, 5)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should find an exact match with cosine score ~1.0")
+    void shouldFindExactMatch() {
+      List<float[]> vectors = randomVectors(300, 1L);
+      for (int i = 0; i < vectors.size(); i++) {
+        repository.store(createChunk("chunk-" + i, "runbooks/test.md", vectors.get(i)));
+      }
+
+      List<ScoredChunk> results = repository.search(vectors.get(42), 1);
+
+      assertThat(results).hasSize(1);
+      assertThat(results.get(0).chunk().id()).isEqualTo("chunk-42");
+      assertThat(results.get(0).similarityScore()).isCloseTo(1.0, Offset.offset(0.001));
+    }
+
+    @Test
+    @DisplayName("should reach high recall against exact brute-force search")
+    void shouldReachHighRecall() {
+      InMemoryVectorStoreRepository exact = new InMemoryVectorStoreRepository();
+      List<float[]> vectors = randomVectors(1000, 2L);
+      for (int i = 0; i < vectors.size(); i++) {
+        RunbookChunk chunk = createChunk("chunk-" + i, "runbooks/test.md", vectors.get(i));
+        repository.store(chunk);
+        exact.store(chunk);
+      }
+
+      int hits = 0;
+      List<float[]> queries = randomVectors(50, 3L);
+      for (float[] query : queries) {
+        Set<String> expected = new HashSet<>();
+        exact.search(query, 10).forEach(result -> expected.add(result.chunk().id()));
+        for (ScoredChunk result : repository.search(query, 10)) {
+          if (expected.contains(result.chunk().id())) {
+            hits++;
+          }
+        }
+      }
+
+      assertThat(hits / (double) (queries.size() * 10)).isGreaterThan(0.9);
+    }
+
+    @Test
+    @DisplayName("should return results ordered by descending similarity")
+    void shouldOrderResultsDescending() {
+      List<float[]> vectors = randomVectors(200, 4L);
+      for (int i = 0; i < vectors.size(); i++) {
+        repository.store(createChunk("chunk-" + i, "runbooks/test.md", vectors.get(i)));
+      }
+
+      List<ScoredChunk> results = repository.search(vectors.get(0), 10);
+
+      assertThat(results).hasSize(10);
+      for (int i = 1; i < results.size(); i++) {
+        assertThat(results.get(i).similarityScore())
+            .isLessThanOrEqualTo(results.get(i - 1).similarityScore());
+      }
+    }
+
+    @Test
+    @DisplayName("should validate arguments")
+    void shouldValidateArguments() {
+      assertThatThrownBy(() -> repository.search(null, 5))
+          .isInstanceOf(NullPointerException.class)
+          .hasMessageContaining("queryEmbedding");
+      assertThatThrownBy(() -> repository.search(new float[] {1.0f}, 0))
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("topK");
+    }
+  }
+
+  @Nested
+  @DisplayName("store()")
+  class StoreTests {
+
+    @Test
+    @DisplayName("should replace an existing chunk with the same id")
+    void shouldReplaceChunkWithSameId() {
+      repository.store(createChunk("chunk-1", "runbooks/a.md", new float[] {1.0f, 0.0f}));
+      repository.store(createChunk("chunk-1", "runbooks/a.md", new float[] {0.0f, 1.0f}));
+
+      List<ScoredChunk> results = repository.search(new float[] {1.0f, 0.0f}, 10);
+
+      assertThat(repository.size()).isEqualTo(1);
+      assertThat(results).hasSize(1);
+      assertThat(results.get(0).similarityScore()).isCloseTo(0.0, Offset.offset(0.001));
+    }
+
+    @Test
+    @DisplayName("should handle concurrent inserts safely")
+    void shouldHandleConcurrentInserts() throws InterruptedException {
+      List<float[]> vectors = randomVectors(800, 5L);
+      int threads = 8;
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      CountDownLatch latch = new CountDownLatch(threads);
+      for (int t = 0; t < threads; t++) {
+        int offset = t;
+        executor.submit(
+            () -> {
+              try {
+                for (int i = offset; i < vectors.size(); i += threads) {
+                  repository.store(createChunk("chunk-" + i, "runbooks/test.md", vectors.get(i)));
+                }
+              } finally {
+                latch.countDown();
+              }
+            });
+      }
+      latch.await(30, TimeUnit.SECONDS);
+      executor.shutdown();
+
+      assertThat(repository.size()).isEqualTo(vectors.size());
+      assertThat(repository.search(vectors.get(123), 1).get(0).chunk().id())
+          .isEqualTo("chunk-123");
+    }
+  }
+
+  @Nested
+  @DisplayName("delete()")
+  class DeleteTests {
+
+    @Test
+    @DisplayName("should exclude tombstoned chunks from results")
+    void shouldExcludeDeletedChunks() {
+      List<float[]> vectors = randomVectors(400, 6L);
+      for (int i = 0; i < vectors.size(); i++) {
+        String path = i % 2 == 0 ? "runbooks/even.md" : "runbooks/odd.md";
+        repository.store(createChunk("chunk-" + i, path, vectors.get(i)));
+      }
+
+      repository.delete("runbooks/even.md");
+
+      List<ScoredChunk> results = repository.search(vectors.get(10), 20);
+      assertThat(repository.size()).isEqualTo(200);
+      assertThat(results).isNotEmpty();
+      assertThat(results).allMatch(r -> r.chunk().runbookPath().equals("runbooks/odd.md"));
+    }
+
+    @Test
+    @DisplayName("should keep searching correctly after a tombstone-triggered rebuild")
+    void shouldSearchAfterRebuild() {
+      List<float[]> vectors = randomVectors(3000, 7L);
+      for (int i = 0; i < vectors.size(); i++) {
+        String path = i < 2500 ? "runbooks/old.md" : "runbooks/new.md";
+        repository.store(createChunk("chunk-" + i, path, vectors.get(i)));
+      }
+
+      repository.delete("runbooks/old.md");
+
+      assertThat(repository.size()).isEqualTo(500);
+      assertThat(repository.search(vectors.get(2700), 1).get(0).chunk().id())
+          .isEqualTo("chunk-2700");
+    }
+
+    @Test
+    @DisplayName("should follow a chunk that was re-stored under another runbook path")
+    void shouldFollowChunkMovedToAnotherPath() {
+      repository.store(createChunk("chunk-1", "runbooks/a.md", new float[] {1.0f, 0.0f}));
+      repository.store(createChunk("chunk-2", "runbooks/a.md", new float[] {0.0f, 1.0f}));
+      repository.store(createChunk("chunk-1", "runbooks/b.md", new float[] {1.0f, 0.0f}));
+
+      repository.delete("runbooks/a.md");
+
+      assertThat(repository.findById("chunk-1")).isPresent();
+      assertThat(repository.findById("chunk-2")).isEmpty();
+
+      repository.delete("runbooks/b.md");
+
+      assertThat(repository.findById("chunk-1")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("findById should return the stored chunk")
+    void findByIdShouldReturnStoredChunk() {
+      repository.store(createChunk("chunk-1", "runbooks/a.md", new float[] {1.0f, 0.0f}));
+
+      assertThat(repository.findById("chunk-1"))
+          .hasValueSatisfying(chunk -> assertThat(chunk.runbookPath()).isEqualTo("runbooks/a.md"));
+      assertThat(repository.findById("missing")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should throw NullPointerException for null path")
+    void shouldThrowForNullPath() {
+      assertThatThrownBy(() -> repository.delete(null))
+          .isInstanceOf(NullPointerException.class)
+          .hasMessageContaining("runbookPath");
+    }
+  }
+
+  @Nested
+  @DisplayName("replaceRunbooks()")
+  class ReplaceRunbooksTests {
+
+    @Test
+    @DisplayName("should swap the chunks of the listed runbooks and keep the others")
+    void shouldSwapListedRunbooks() {
+      repository.store(createChunk("chunk-1", "runbooks/a.md", new float[] {1.0f, 0.0f}));
+      repository.store(createChunk("chunk-2", "runbooks/a.md", new float[] {0.0f, 1.0f}));
+      repository.store(createChunk("chunk-3", "runbooks/b.md", new float[] {0.7f, 0.7f}));
+
+      repository.replaceRunbooks(
+          List.of("runbooks/a.md"),
+          List.of(
+              createChunk("chunk-1", "runbooks/a.md", new float[] {0.0f, 1.0f}),
+              createChunk("chunk-4", "runbooks/a.md", new float[] {1.0f, 0.0f})));
+
+      assertThat(repository.size()).isEqualTo(3);
+      assertThat(repository.findById("chunk-2")).isEmpty();
+      assertThat(repository.findById("chunk-3")).isPresent();
+      assertThat(repository.search(new float[] {1.0f, 0.0f}, 1).get(0).chunk().id())
+          .isEqualTo("chunk-4");
+    }
+
+    @Test
+    @DisplayName("should rebuild once the replaced generation dominates the graph")
+    void shouldRebuildAfterLargeReplacement() {
+      List<float[]> vectors = randomVectors(3000, 8L);
+      List<RunbookChunk> oldGeneration = new ArrayList<>();
+      List<RunbookChunk> newGeneration = new ArrayList<>();
+      for (int i = 0; i < 2500; i++) {
+        oldGeneration.add(createChunk("old-" + i, "runbooks/a.md", vectors.get(i)));
+      }
+      for (int i = 2500; i < vectors.size(); i++) {
+        newGeneration.add(createChunk("new-" + i, "runbooks/a.md", vectors.get(i)));
+      }
+      repository.storeBatch(oldGeneration);
+
+      repository.replaceRunbooks(List.of("runbooks/a.md"), newGeneration);
+
+      assertThat(repository.size()).isEqualTo(500);
+      assertThat(repository.stats().vectorBytes())
+          .isLessThan((long) vectors.size() * DIMENSION * Float.BYTES);
+      assertThat(repository.search(vectors.get(2700), 1).get(0).chunk().id())
+          .isEqualTo("new-2700");
+    }
+
+    @Test
+    @DisplayName("concurrent searches should see exactly one whole generation")
+    void concurrentSearchesShouldSeeOneGeneration() throws Exception {
+      HnswVectorStoreRepository exhaustive =
+          new HnswVectorStoreRepository(new HnswConfig(8, 100, 1000));
+      exhaustive.storeBatch(generation(0));
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+        var swaps =
+            executor.submit(
+                () -> {
+                  // Few enough generations that tombstones never crowd the search beam
+                  for (int g = 1; g <= 20; g++) {
+                    exhaustive.replaceRunbooks(List.of("runbooks/a.md"), generation(g));
+                  }
+                });
+        while (!swaps.isDone()) {
+          List<ScoredChunk> results = exhaustive.search(new float[] {1.0f, 1.0f}, 10);
+          assertThat(results).hasSize(3);
+          assertThat(results)
+              .extracting(ReplaceRunbooksTests::generationOf)
+              .containsOnly(generationOf(results.get(0)));
+        }
+        swaps.get(10, TimeUnit.SECONDS);
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+
+    private static String generationOf(ScoredChunk scored) {
+      String id = scored.chunk().id();
+      return id.substring(0, id.indexOf('-'));
+    }
+
+    private static List<RunbookChunk> generation(int generation) {
+      List<RunbookChunk> chunks = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        chunks.add(
+            createChunk("g" + generation + "-" + i, "runbooks/a.md", new float[] {1.0f, i}));
+      }
+      return chunks;
+    }
+  }
+
+  @Nested
+  @DisplayName("stats()")
+  class StatsTests {
+
+    @Test
+    @DisplayName("should report live chunks, graph links and searches")
+    void shouldReportLiveChunks() {
+      repository.store(createChunk("chunk-1", "runbooks/a.md", new float[] {1.0f, 0.0f}));
+      repository.store(createChunk("chunk-2", "runbooks/a.md", new float[] {0.0f, 1.0f}));
+      repository.store(createChunk("chunk-3", "runbooks/b.md", new float[] {0.7f, 0.7f}));
+      repository.delete("runbooks/a.md");
+      repository.search(new float[] {1.0f, 0.0f}, 1);
+
+      VectorStoreStats stats = repository.stats();
+
+      assertThat(stats.providerType()).isEqualTo("hnsw");
+      assertThat(stats.chunkCount()).isEqualTo(1);
+      assertThat(stats.dimension()).isEqualTo(2);
+      assertThat(stats.chunksPerRunbook()).containsOnlyKeys("runbooks/b.md");
+      assertThat(stats.contentBytes()).isEqualTo("content".length());
+      assertThat(stats.indexBytes()).isPositive();
+      assertThat(stats.indexState()).isEqualTo(VectorStoreStats.IndexState.READY);
+      assertThat(stats.searchCount()).isEqualTo(1);
+    }
+  }
+
+  private static List<float[]> randomVectors(int count, long seed) {
+    Random random = new Random(seed);
+    List<float[]> vectors = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      float[] vector = new float[DIMENSION];
+      for (int j = 0; j < DIMENSION; j++) {
+        vector[j] = (float) random.nextGaussian();
+      }
+      vectors.add(vector);
+    }
+    return vectors;
+  }
+
+  private static RunbookChunk createChunk(String id, String path, float[] embedding) {
+    return new RunbookChunk(
+        id, path, "Test Section", "content", List.of("test"), List.of("VM.*"), embedding);
+  }
+}
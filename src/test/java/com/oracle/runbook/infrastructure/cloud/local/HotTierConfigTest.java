@@ -0,0 +1,42 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link HotTierConfig}. */
+class HotTierConfigTest {
+
+  @Test
+  @DisplayName("defaults() should use the documented constants")
+  void defaultsShouldUseConstants() {
+    HotTierConfig config = HotTierConfig.defaults();
+
+    assertThat(config.capacity()).isEqualTo(HotTierConfig.DEFAULT_CAPACITY);
+    assertThat(config.promotionThreshold()).isEqualTo(HotTierConfig.DEFAULT_PROMOTION_THRESHOLD);
+    assertThat(config.confidenceScore()).isEqualTo(HotTierConfig.DEFAULT_CONFIDENCE_SCORE);
+    assertThat(config.confidenceMargin()).isEqualTo(HotTierConfig.DEFAULT_CONFIDENCE_MARGIN);
+  }
+
+  @Test
+  @DisplayName("should reject invalid parameters")
+  void shouldRejectInvalidParameters() {
+    assertThatThrownBy(() -> new HotTierConfig(0, 3, 0.8, 0.05))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("capacity");
+    assertThatThrownBy(() -> new HotTierConfig(16, 0, 0.8, 0.05))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("promotionThreshold");
+    assertThatThrownBy(() -> new HotTierConfig(16, 3, 1.5, 0.05))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("confidenceScore");
+    assertThatThrownBy(() -> new HotTierConfig(16, 3, Double.NaN, 0.05))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("confidenceScore");
+    assertThatThrownBy(() -> new HotTierConfig(16, 3, 0.8, -0.1))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("confidenceMargin");
+  }
+}
@@ -2,11 +2,24 @@ package com.oracle.runbook.infrastructure.cloud.local;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.within;
 
 import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
 import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreStats;
 import com.oracle.runbook.rag.ScoredChunk;
+import com.oracle.runbook.rag.SearchHit;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -15,6 +28,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
 /**
  * Unit tests for {@link InMemoryVectorStoreRepository}.
@@ -68,6 +84,41 @@ class InMemoryVectorStoreRepositoryTest {
       assertThat(results.get(0).chunk().id()).isEqualTo("chunk-001");
     }
 
+    @Test
+    @DisplayName("should keep one copy of an embedding and return it normalized")
+    void shouldReadEmbeddingsBackFromVectors() {
+      repository.store(createChunk("chunk-001", "memory", new float[] {3.0f, 4.0f, 0.0f}));
+
+      assertThat(repository.search(new float[] {1.0f, 0.0f, 0.0f}, 1).get(0).chunk().embedding())
+          .containsExactly(new float[] {0.6f, 0.8f, 0.0f}, within(1e-6f));
+      assertThat(repository.findById("chunk-001").orElseThrow().embedding())
+          .containsExactly(new float[] {0.6f, 0.8f, 0.0f}, within(1e-6f));
+    }
+
+    @Test
+    @DisplayName("should replace an existing chunk with the same id")
+    void shouldReplaceChunkWithSameId() {
+      repository.store(createChunk("chunk-001", "old", new float[] {1.0f, 0.0f, 0.0f}));
+      repository.store(createChunk("chunk-001", "new", new float[] {0.0f, 1.0f, 0.0f}));
+
+      List<ScoredChunk> results = repository.search(new float[] {0.0f, 1.0f, 0.0f}, 10);
+      assertThat(results).hasSize(1);
+      assertThat(results.get(0).chunk().content()).isEqualTo("new");
+      assertThat(results.get(0).similarityScore())
+          .isCloseTo(1.0, org.assertj.core.data.Offset.offset(0.001));
+    }
+
+    @Test
+    @DisplayName("should reject chunks whose dimension differs from the stored vectors")
+    void shouldRejectMismatchedDimension() {
+      repository.store(createChunk("chunk-001", "content", new float[] {1.0f, 0.0f, 0.0f}));
+
+      assertThatThrownBy(
+              () -> repository.store(createChunk("chunk-002", "content", new float[] {1.0f})))
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("same length");
+    }
+
     @Test
     @DisplayName("should throw NullPointerException for null chunk")
     void shouldThrowForNullChunk() {
@@ -168,6 +219,28 @@ class InMemoryVectorStoreRepositoryTest {
           .isInstanceOf(IllegalArgumentException.class);
     }
 
+    @Test
+    @DisplayName("should score unnormalized vectors by cosine similarity")
+    void shouldScoreUnnormalizedVectorsByCosine() {
+      repository.store(createChunk("scaled", "scaled", new float[] {10.0f, 10.0f, 0.0f}));
+
+      float[] query = {2.0f, 0.0f, 0.0f};
+      List<ScoredChunk> results = repository.search(query, 1);
+
+      assertThat(results.get(0).similarityScore())
+          .isCloseTo(Math.sqrt(0.5), org.assertj.core.data.Offset.offset(0.001));
+      assertThat(query).as("Query must not be modified").containsExactly(2.0f, 0.0f, 0.0f);
+    }
+
+    @Test
+    @DisplayName("should throw IllegalArgumentException for query of different dimension")
+    void shouldThrowForMismatchedQueryDimension() {
+      repository.store(createChunk("chunk-001", "content", new float[] {1.0f, 0.0f, 0.0f}));
+
+      assertThatThrownBy(() -> repository.search(new float[] {1.0f, 0.0f}, 1))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     @DisplayName("should handle orthogonal vectors with zero similarity")
     void shouldHandleOrthogonalVectors() {
@@ -183,6 +256,317 @@ class InMemoryVectorStoreRepositoryTest {
     }
   }
 
+  @Nested
+  @DisplayName("searchBatch()")
+  class SearchBatchTests {
+
+    @Test
+    @DisplayName("should return the same results as individual searches")
+    void shouldMatchIndividualSearches() {
+      assertBatchMatchesIndividualSearches(repository, VectorSearchFilter.none());
+    }
+
+    @Test
+    @DisplayName("should match individual searches with a filter and int8 re-ranking")
+    void shouldMatchIndividualFilteredInt8Searches() {
+      InMemoryVectorStoreRepository quantized =
+          new InMemoryVectorStoreRepository(
+              new LocalVectorStoreConfig(VectorEncoding.INT8, 4, null));
+
+      assertBatchMatchesIndividualSearches(
+          quantized, VectorSearchFilter.none().withAnyTags(Set.of("even")));
+    }
+
+    @Test
+    @DisplayName("should return an empty list per query for an empty store")
+    void shouldReturnEmptyListsForEmptyStore() {
+      List<List<ScoredChunk>> results =
+          repository.searchBatch(List.of(new float[] {1f}, new float[] {0f}), 3);
+
+      assertThat(results).hasSize(2).allSatisfy(result -> assertThat(result).isEmpty());
+    }
+
+    @Test
+    @DisplayName("should throw NullPointerException for a null query")
+    void shouldThrowForNullQuery() {
+      List<float[]> queries = new ArrayList<>();
+      queries.add(null);
+
+      assertThatThrownBy(() -> repository.searchBatch(queries, 1))
+          .isInstanceOf(NullPointerException.class)
+          .hasMessageContaining("queryEmbedding");
+    }
+
+    private void assertBatchMatchesIndividualSearches(
+        InMemoryVectorStoreRepository store, VectorSearchFilter filter) {
+      Random random = new Random(11);
+      // Enough rows for several scan blocks at this dimension
+      int dimension = 256;
+      for (int i = 0; i < 1000; i++) {
+        store.store(
+            createChunk(
+                "chunk-" + i,
+                "x",
+                List.of(i % 2 == 0 ? "even" : "odd"),
+                List.of(),
+                randomVector(random, dimension)));
+      }
+      List<float[]> queries = new ArrayList<>();
+      for (int i = 0; i < 7; i++) {
+        queries.add(randomVector(random, dimension));
+      }
+
+      List<List<ScoredChunk>> batch = store.searchBatch(queries, 5, filter);
+
+      assertThat(batch).hasSize(queries.size());
+      for (int i = 0; i < queries.size(); i++) {
+        assertThat(batch.get(i)).isEqualTo(store.search(queries.get(i), 5, filter));
+      }
+    }
+  }
+
+  @Nested
+  @DisplayName("searchHits()")
+  class SearchHitsTests {
+
+    @Test
+    @DisplayName("should return the ranking and metadata of search() without embeddings")
+    void shouldMatchSearch() {
+      repository.store(
+          createChunk("a", "first", List.of("memory"), List.of("VM.*"), new float[] {1f, 0f, 0f}));
+      repository.store(
+          createChunk("b", "second", List.of("cpu"), List.of(), new float[] {0.7f, 0.7f, 0f}));
+      repository.store(createChunk("c", "third", List.of("cpu"), List.of(), new float[] {0, 0, 1}));
+      float[] query = {1f, 0.2f, 0f};
+      VectorSearchFilter filter = VectorSearchFilter.forShape("VM.Standard2.1");
+
+      List<SearchHit> hits = repository.searchHits(query, 2, filter);
+
+      List<ScoredChunk> expected = repository.search(query, 2, filter);
+      assertThat(hits).extracting(SearchHit::id).containsExactly("a", "b");
+      assertThat(hits)
+          .extracting(SearchHit::similarityScore)
+          .containsExactlyElementsOf(
+              expected.stream().map(ScoredChunk::similarityScore).toList());
+      assertThat(hits.get(0).content()).isEqualTo("first");
+      assertThat(hits.get(0).tags()).containsExactly("memory");
+      assertThat(hits.get(0).applicableShapes()).containsExactly("VM.*");
+    }
+
+    @Test
+    @DisplayName("should return one hit list per query in a batch")
+    void shouldReturnHitsPerQuery() {
+      repository.store(createChunk("a", "first", new float[] {1f, 0f, 0f}));
+      repository.store(createChunk("b", "second", new float[] {0f, 1f, 0f}));
+
+      List<List<SearchHit>> hits =
+          repository.searchHitsBatch(
+              List.of(new float[] {1f, 0f, 0f}, new float[] {0f, 1f, 0f}),
+              1,
+              VectorSearchFilter.none());
+
+      assertThat(hits).hasSize(2);
+      assertThat(hits.get(0)).extracting(SearchHit::id).containsExactly("a");
+      assertThat(hits.get(1)).extracting(SearchHit::id).containsExactly("b");
+    }
+  }
+
+  @Nested
+  @DisplayName("parallel scan")
+  class ParallelScanTests {
+
+    @Test
+    @DisplayName("should return the same results as a single-threaded scan")
+    void shouldMatchSequentialScan() {
+      assertParallelMatchesSequential(VectorEncoding.FLOAT32);
+    }
+
+    @Test
+    @DisplayName("should return the same results as a single-threaded scan with int8 re-ranking")
+    void shouldMatchSequentialInt8Scan() {
+      assertParallelMatchesSequential(VectorEncoding.INT8);
+    }
+
+    private void assertParallelMatchesSequential(VectorEncoding encoding) {
+      // Small segments so a few hundred rows are spread over many tasks
+      InMemoryVectorStoreRepository parallel =
+          new InMemoryVectorStoreRepository(
+              new LocalVectorStoreConfig(encoding, 4, null, new ParallelScanConfig(37, 4, 0)));
+      InMemoryVectorStoreRepository sequential =
+          new InMemoryVectorStoreRepository(
+              new LocalVectorStoreConfig(encoding, 4, null, ParallelScanConfig.sequential()));
+      Random random = new Random(5);
+      int dimension = 32;
+      for (int i = 0; i < 500; i++) {
+        RunbookChunk chunk =
+            createChunk(
+                "chunk-" + i,
+                "x",
+                List.of(i % 3 == 0 ? "memory" : "cpu"),
+                List.of(),
+                randomVector(random, dimension));
+        parallel.store(chunk);
+        sequential.store(chunk);
+      }
+      VectorSearchFilter memoryOnly = VectorSearchFilter.none().withAnyTags(Set.of("memory"));
+
+      for (int i = 0; i < 20; i++) {
+        float[] query = randomVector(random, dimension);
+        assertThat(ids(parallel.search(query, 10))).isEqualTo(ids(sequential.search(query, 10)));
+        assertThat(ids(parallel.search(query, 10, memoryOnly)))
+            .isEqualTo(ids(sequential.search(query, 10, memoryOnly)));
+      }
+      assertThat(ids(parallel.search(randomVector(random, dimension), 1_000))).hasSize(500);
+    }
+
+    private List<String> ids(List<ScoredChunk> results) {
+      return results.stream().map(result -> result.chunk().id()).toList();
+    }
+  }
+
+  @Nested
+  @DisplayName("search() with a filter")
+  class FilteredSearchTests {
+
+    @Test
+    @DisplayName("should return matching chunks even when more similar chunks do not match")
+    void shouldNotCrowdOutMatchingChunks() {
+      for (int i = 0; i < 50; i++) {
+        repository.store(
+            createChunk("bm-" + i, "x", List.of("cpu"), List.of("BM.*"), new float[] {1f, 0f}));
+      }
+      repository.store(
+          createChunk("vm", "x", List.of("cpu"), List.of("VM.*"), new float[] {0.5f, 0.5f}));
+      repository.store(createChunk("any", "x", List.of(), List.of(), new float[] {0f, 1f}));
+
+      List<ScoredChunk> results =
+          repository.search(
+              new float[] {1f, 0f}, 2, VectorSearchFilter.forShape("VM.Standard2.1"));
+
+      assertThat(results).extracting(r -> r.chunk().id()).containsExactly("vm", "any");
+    }
+
+    @Test
+    @DisplayName("should combine tag, shape and runbook path criteria")
+    void shouldCombineCriteria() {
+      repository.store(
+          createChunkWithPath("a1", "a.md", List.of("memory"), new float[] {1f, 0f}));
+      repository.store(createChunkWithPath("a2", "a.md", List.of("cpu"), new float[] {1f, 0f}));
+      repository.store(
+          createChunkWithPath("b1", "b.md", List.of("memory"), new float[] {1f, 0f}));
+
+      VectorSearchFilter filter =
+          VectorSearchFilter.forShape("VM.Standard2.1")
+              .withAnyTags(Set.of("memory", "oom"))
+              .withRunbookPaths(Set.of("a.md", "c.md"));
+
+      assertThat(repository.search(new float[] {1f, 0f}, 10, filter))
+          .extracting(r -> r.chunk().id())
+          .containsExactly("a1");
+      assertThat(repository.search(new float[] {1f, 0f}, 10, filter.withShape("BM.Standard3")))
+          .isEmpty();
+    }
+
+    @Test
+    @DisplayName("should keep the index consistent through replaces and deletes")
+    void shouldFollowReplacesAndDeletes() {
+      repository.store(createChunkWithPath("a1", "a.md", List.of("memory"), new float[] {1f, 0f}));
+      repository.store(createChunkWithPath("b1", "b.md", List.of("cpu"), new float[] {1f, 0f}));
+      repository.store(createChunkWithPath("c1", "c.md", List.of("memory"), new float[] {1f, 0f}));
+
+      repository.store(createChunkWithPath("c1", "c.md", List.of("disk"), new float[] {1f, 0f}));
+      repository.delete("a.md");
+      VectorSearchFilter memory = VectorSearchFilter.none().withAnyTags(Set.of("memory"));
+      VectorSearchFilter disk = VectorSearchFilter.none().withAnyTags(Set.of("disk"));
+
+      assertThat(repository.search(new float[] {1f, 0f}, 10, memory)).isEmpty();
+      assertThat(repository.search(new float[] {1f, 0f}, 10, disk))
+          .extracting(r -> r.chunk().id())
+          .containsExactly("c1");
+    }
+
+    @Test
+    @DisplayName("should agree with brute-force filtering on random data")
+    void shouldAgreeWithBruteForce() {
+      Random random = new Random(7);
+      List<String> tags = List.of("cpu", "memory", "disk", "network");
+      List<String> shapes = List.of("VM.*", "BM.*", "VM.Standard*");
+      for (int i = 0; i < 500; i++) {
+        List<String> chunkShapes =
+            random.nextInt(4) == 0 ? List.of() : List.of(pick(random, shapes));
+        repository.store(
+            new RunbookChunk(
+                "chunk-" + i,
+                "runbooks/" + (i % 10) + ".md",
+                "Test Section",
+                "content",
+                List.of(pick(random, tags)),
+                chunkShapes,
+                new float[] {random.nextFloat(), random.nextFloat(), random.nextFloat()}));
+      }
+      // Deletes swap tail rows into the freed slots, which the index must follow
+      repository.delete("runbooks/3.md");
+      repository.delete("runbooks/7.md");
+      float[] query = {random.nextFloat(), random.nextFloat(), random.nextFloat()};
+      VectorSearchFilter filter =
+          VectorSearchFilter.forShape("VM.Standard2.1").withAnyTags(Set.of("cpu", "disk"));
+
+      List<ScoredChunk> expected =
+          repository.search(query, 500).stream()
+              .filter(r -> filter.matches(r.chunk()))
+              .sorted(Comparator.comparingDouble(ScoredChunk::similarityScore).reversed())
+              .limit(20)
+              .toList();
+
+      assertThat(repository.search(query, 20, filter))
+          .extracting(r -> r.chunk().id())
+          .containsExactlyElementsOf(expected.stream().map(r -> r.chunk().id()).toList());
+    }
+
+    @Test
+    @DisplayName("should filter int8 searches before re-ranking")
+    void shouldFilterInt8Searches() {
+      InMemoryVectorStoreRepository quantized =
+          new InMemoryVectorStoreRepository(
+              new LocalVectorStoreConfig(VectorEncoding.INT8, 2, null));
+      quantized.store(createChunk("bm", "x", List.of(), List.of("BM.*"), new float[] {1f, 0f}));
+      quantized.store(createChunk("vm", "x", List.of(), List.of("VM.*"), new float[] {0f, 1f}));
+
+      assertThat(
+              quantized.search(new float[] {1f, 0f}, 1, VectorSearchFilter.forShape("VM.E4")))
+          .extracting(r -> r.chunk().id())
+          .containsExactly("vm");
+    }
+
+    @Test
+    @DisplayName("should rebuild the index when a snapshot is loaded")
+    void shouldRebuildIndexFromSnapshot(@TempDir Path dir) throws IOException {
+      repository.store(createChunkWithPath("a1", "a.md", List.of("memory"), new float[] {1f, 0f}));
+      repository.store(createChunkWithPath("b1", "b.md", List.of("cpu"), new float[] {1f, 0f}));
+      Path snapshot = dir.resolve("vectors.rbvs");
+      repository.saveSnapshot(snapshot);
+
+      InMemoryVectorStoreRepository restored = new InMemoryVectorStoreRepository();
+      restored.loadSnapshot(snapshot);
+
+      assertThat(
+              restored.search(
+                  new float[] {1f, 0f},
+                  10,
+                  VectorSearchFilter.none().withRunbookPaths(Set.of("b.md"))))
+          .extracting(r -> r.chunk().id())
+          .containsExactly("b1");
+    }
+
+    @Test
+    @DisplayName("should throw NullPointerException for null filter")
+    void shouldThrowForNullFilter() {
+      assertThatThrownBy(() -> repository.search(new float[] {1f}, 1, null))
+          .isInstanceOf(NullPointerException.class)
+          .hasMessageContaining("filter");
+    }
+  }
+
   @Nested
   @DisplayName("delete()")
   class DeleteTests {
@@ -211,6 +595,33 @@ class InMemoryVectorStoreRepositoryTest {
       // No exception = success
     }
 
+    @Test
+    @DisplayName("should follow a chunk that was re-stored under another runbook path")
+    void shouldFollowChunkMovedToAnotherPath() {
+      repository.store(createChunkWithPath("chunk-1", "runbooks/a.md", new float[] {1f, 0f, 0f}));
+      repository.store(createChunkWithPath("chunk-2", "runbooks/a.md", new float[] {0f, 1f, 0f}));
+      repository.store(createChunkWithPath("chunk-1", "runbooks/b.md", new float[] {1f, 0f, 0f}));
+
+      repository.delete("runbooks/a.md");
+
+      assertThat(repository.findById("chunk-1")).isPresent();
+      assertThat(repository.findById("chunk-2")).isEmpty();
+
+      repository.delete("runbooks/b.md");
+
+      assertThat(repository.findById("chunk-1")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("findById should return the stored chunk")
+    void findByIdShouldReturnStoredChunk() {
+      repository.store(createChunkWithPath("chunk-1", "runbooks/a.md", new float[] {1f, 0f, 0f}));
+
+      assertThat(repository.findById("chunk-1"))
+          .hasValueSatisfying(chunk -> assertThat(chunk.runbookPath()).isEqualTo("runbooks/a.md"));
+      assertThat(repository.findById("missing")).isEmpty();
+    }
+
     @Test
     @DisplayName("should throw NullPointerException for null path")
     void shouldThrowForNullPath() {
@@ -220,6 +631,817 @@ class InMemoryVectorStoreRepositoryTest {
     }
   }
 
+  @Nested
+  @DisplayName("replaceRunbooks()")
+  class ReplaceRunbooksTests {
+
+    @Test
+    @DisplayName("should swap the chunks of the listed runbooks and keep the others")
+    void shouldSwapListedRunbooks() {
+      repository.storeBatch(
+          List.of(
+              createChunkWithPath("a-old-1", "runbooks/a.md", new float[] {1f, 0f, 0f}),
+              createChunkWithPath("a-old-2", "runbooks/a.md", new float[] {0.9f, 0.1f, 0f}),
+              createChunkWithPath("b-old", "runbooks/b.md", new float[] {0f, 1f, 0f}),
+              createChunkWithPath("c-old", "runbooks/c.md", new float[] {0f, 0f, 1f})));
+
+      repository.replaceRunbooks(
+          List.of("runbooks/a.md", "runbooks/b.md"),
+          List.of(createChunkWithPath("a-new", "runbooks/a.md", new float[] {1f, 0f, 0f})));
+
+      assertThat(repository.search(new float[] {1f, 1f, 1f}, 10))
+          .extracting(scored -> scored.chunk().id())
+          .containsExactlyInAnyOrder("a-new", "c-old");
+    }
+
+    @Test
+    @DisplayName("should keep the old generation when the new one is rejected")
+    void shouldKeepOldGenerationOnRejection() {
+      repository.store(createChunkWithPath("a-old", "runbooks/a.md", new float[] {1f, 0f, 0f}));
+      repository.store(createChunkWithPath("b-old", "runbooks/b.md", new float[] {0f, 1f, 0f}));
+
+      assertThatThrownBy(
+              () ->
+                  repository.replaceRunbooks(
+                      List.of("runbooks/a.md"),
+                      List.of(createChunkWithPath("a-new", "runbooks/a.md", new float[] {1f}))))
+          .isInstanceOf(IllegalArgumentException.class);
+
+      assertThat(repository.findById("a-old")).isPresent();
+      assertThat(repository.findById("a-new")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should let a full replacement change the dimension")
+    void shouldAllowNewDimensionWhenReplacingEverything() {
+      repository.store(createChunkWithPath("a-old", "runbooks/a.md", new float[] {1f, 0f, 0f}));
+
+      repository.replaceRunbooks(
+          List.of("runbooks/a.md"),
+          List.of(createChunkWithPath("a-new", "runbooks/a.md", new float[] {1f, 0f})));
+
+      assertThat(repository.search(new float[] {1f, 0f}, 1))
+          .extracting(scored -> scored.chunk().id())
+          .containsExactly("a-new");
+    }
+
+    @Test
+    @DisplayName("concurrent searches should see exactly one whole generation")
+    void concurrentSearchesShouldSeeOneGeneration() throws Exception {
+      String path = "runbooks/a.md";
+      repository.storeBatch(generation(path, 0));
+      VectorSearchFilter filter = VectorSearchFilter.none().withRunbookPaths(List.of(path));
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+        var swaps =
+            executor.submit(
+                () -> {
+                  for (int g = 1; g <= 200; g++) {
+                    repository.replaceRunbooks(List.of(path), generation(path, g));
+                  }
+                });
+        while (!swaps.isDone()) {
+          List<ScoredChunk> results = repository.search(new float[] {1f, 1f, 0f}, 10, filter);
+          assertThat(results).hasSize(3);
+          assertThat(results)
+              .extracting(ReplaceRunbooksTests::generationOf)
+              .containsOnly(generationOf(results.get(0)));
+        }
+        swaps.get(10, TimeUnit.SECONDS);
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+
+    private static String generationOf(ScoredChunk scored) {
+      String id = scored.chunk().id();
+      return id.substring(0, id.indexOf('-'));
+    }
+
+    private List<RunbookChunk> generation(String path, int generation) {
+      List<RunbookChunk> chunks = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        chunks.add(
+            createChunkWithPath("g" + generation + "-" + i, path, new float[] {1f, i, 0f}));
+      }
+      return chunks;
+    }
+  }
+
+  @Nested
+  @DisplayName("shared chunks")
+  class SharedChunkTests {
+
+    private final RunbookChunk shared =
+        new RunbookChunk(
+            "shared",
+            "runbooks/a.md",
+            "Escalation",
+            "page on-call",
+            List.of(),
+            List.of(),
+            new float[] {1f, 0f, 0f},
+            List.of("runbooks/a.md", "runbooks/b.md"));
+
+    @Test
+    @DisplayName("should keep a shared chunk until its last source is deleted")
+    void shouldKeepChunkUntilLastSourceDeleted() {
+      repository.store(shared);
+
+      repository.delete("runbooks/a.md");
+
+      assertThat(repository.findById("shared"))
+          .hasValueSatisfying(
+              chunk -> {
+                assertThat(chunk.runbookPath()).isEqualTo("runbooks/b.md");
+                assertThat(chunk.sourceRunbookPaths()).containsExactly("runbooks/b.md");
+              });
+      VectorSearchFilter onlyB =
+          VectorSearchFilter.none().withRunbookPaths(Set.of("runbooks/b.md"));
+      assertThat(repository.search(new float[] {1f, 0f, 0f}, 5, onlyB)).hasSize(1);
+
+      repository.delete("runbooks/b.md");
+
+      assertThat(repository.findById("shared")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should find a shared chunk under every source")
+    void shouldMatchEverySource() {
+      repository.store(shared);
+      VectorSearchFilter onlyB =
+          VectorSearchFilter.none().withRunbookPaths(Set.of("runbooks/b.md"));
+
+      assertThat(repository.search(new float[] {1f, 0f, 0f}, 5, onlyB))
+          .extracting(scored -> scored.chunk().id())
+          .containsExactly("shared");
+      assertThat(repository.runbookChunks("runbooks/b.md"))
+          .extracting(RunbookChunk::id)
+          .containsExactly("shared");
+      assertThat(repository.stats().chunksPerRunbook())
+          .containsEntry("runbooks/a.md", 1)
+          .containsEntry("runbooks/b.md", 1);
+    }
+
+    @Test
+    @DisplayName("replacing one source should drop it unless the new generation keeps the chunk")
+    void replacingOneSourceShouldCountReferences() {
+      repository.store(shared);
+
+      repository.replaceRunbooks(List.of("runbooks/b.md"), List.of(shared));
+
+      assertThat(repository.findById("shared"))
+          .hasValueSatisfying(
+              chunk ->
+                  assertThat(chunk.sourceRunbookPaths())
+                      .containsExactly("runbooks/a.md", "runbooks/b.md"));
+      assertThat(repository.stats().chunkCount()).isEqualTo(1);
+
+      repository.replaceRunbooks(
+          List.of("runbooks/b.md"),
+          List.of(createChunkWithPath("b-new", "runbooks/b.md", new float[] {0f, 1f, 0f})));
+
+      assertThat(repository.findById("shared"))
+          .hasValueSatisfying(
+              chunk -> assertThat(chunk.sourceRunbookPaths()).containsExactly("runbooks/a.md"));
+      assertThat(repository.findById("b-new")).isPresent();
+    }
+  }
+
+  @Nested
+  @DisplayName("searchRunbooks()")
+  class SearchRunbooksTests {
+
+    @Test
+    @DisplayName("should rank runbooks by the centroid of their chunks")
+    void shouldRankRunbooksByCentroid() {
+      repository.storeBatch(
+          List.of(
+              createChunkWithPath("m1", "memory.md", new float[] {1f, 0f, 0f}),
+              createChunkWithPath("m2", "memory.md", new float[] {0.8f, 0.2f, 0f}),
+              createChunkWithPath("c1", "cpu.md", new float[] {0f, 1f, 0f}),
+              createChunkWithPath("d1", "disk.md", new float[] {0f, 0f, 1f})));
+
+      List<String> runbooks =
+          repository.searchRunbooks(new float[] {1f, 0.1f, 0f}, 2, VectorSearchFilter.none());
+
+      assertThat(runbooks).containsExactly("memory.md", "cpu.md");
+    }
+
+    @Test
+    @DisplayName("should rank only runbooks with a chunk matching the filter")
+    void shouldRankOnlyMatchingRunbooks() {
+      repository.store(
+          createChunkWithPath("m1", "memory.md", List.of("memory"), new float[] {1f, 0f}));
+      repository.store(createChunkWithPath("c1", "cpu.md", List.of("cpu"), new float[] {0f, 1f}));
+
+      VectorSearchFilter cpu = VectorSearchFilter.none().withAnyTags(Set.of("cpu"));
+
+      assertThat(repository.searchRunbooks(new float[] {1f, 0f}, 2, cpu)).containsExactly("cpu.md");
+    }
+
+    @Test
+    @DisplayName("should fold title embeddings into centroids until the runbook is replaced")
+    void shouldFoldTitlesIntoCentroids() {
+      repository.store(createChunkWithPath("m1", "memory.md", new float[] {1f, 0f, 0f}));
+      repository.store(createChunkWithPath("c1", "cpu.md", new float[] {0f, 1f, 0f}));
+      float[] query = {0f, 0.4f, 1f};
+
+      repository.storeRunbookTitles(
+          Map.of("memory.md", new float[] {0f, 0f, 1f}, "unknown.md", new float[] {0f, 0f, 1f}));
+
+      assertThat(repository.searchRunbooks(query, 1, VectorSearchFilter.none()))
+          .containsExactly("memory.md");
+
+      repository.replaceRunbooks(
+          List.of("memory.md"),
+          List.of(createChunkWithPath("m2", "memory.md", new float[] {1f, 0f, 0f})));
+
+      assertThat(repository.searchRunbooks(query, 1, VectorSearchFilter.none()))
+          .containsExactly("cpu.md");
+    }
+
+    @Test
+    @DisplayName("should restore title embeddings from a snapshot")
+    void shouldRestoreTitlesFromSnapshot(@TempDir Path directory) throws IOException {
+      repository.store(createChunkWithPath("m1", "memory.md", new float[] {1f, 0f, 0f}));
+      repository.store(createChunkWithPath("c1", "cpu.md", new float[] {0f, 1f, 0f}));
+      repository.storeRunbookTitles(Map.of("memory.md", new float[] {0f, 0f, 1f}));
+      Path snapshot = directory.resolve("vectors.rbvs");
+      repository.saveSnapshot(snapshot);
+
+      InMemoryVectorStoreRepository restored = new InMemoryVectorStoreRepository();
+      restored.loadSnapshot(snapshot);
+
+      assertThat(restored.searchRunbooks(new float[] {0f, 0.4f, 1f}, 1, VectorSearchFilter.none()))
+          .containsExactly("memory.md");
+    }
+
+    @Test
+    @DisplayName("should follow chunks that move, are deleted or are restored from a snapshot")
+    void shouldFollowMutations(@TempDir Path directory) throws IOException {
+      repository.store(createChunkWithPath("a1", "a.md", new float[] {1f, 0f}));
+      repository.store(createChunkWithPath("b1", "b.md", new float[] {0f, 1f}));
+
+      repository.store(createChunkWithPath("a1", "b.md", new float[] {0f, 1f}));
+
+      assertThat(repository.searchRunbooks(new float[] {1f, 0f}, 5, VectorSearchFilter.none()))
+          .containsExactly("b.md");
+
+      repository.store(createChunkWithPath("c1", "c.md", new float[] {1f, 0f}));
+      repository.delete("b.md");
+      Path snapshot = directory.resolve("vectors.rbvs");
+      repository.saveSnapshot(snapshot);
+      InMemoryVectorStoreRepository restored = new InMemoryVectorStoreRepository();
+      restored.loadSnapshot(snapshot);
+
+      assertThat(restored.searchRunbooks(new float[] {0f, 1f}, 5, VectorSearchFilter.none()))
+          .containsExactly("c.md");
+    }
+
+    @Test
+    @DisplayName("should narrow a second-stage search to the best runbooks")
+    void shouldNarrowSecondStage() {
+      Random random = new Random(19L);
+      List<RunbookChunk> chunks = new ArrayList<>();
+      for (int runbook = 0; runbook < 200; runbook++) {
+        float[] center = randomVector(random, 16);
+        for (int i = 0; i < 10; i++) {
+          float[] vector = center.clone();
+          for (int d = 0; d < vector.length; d++) {
+            vector[d] += 0.3f * (float) random.nextGaussian();
+          }
+          chunks.add(createChunkWithPath("r" + runbook + "-" + i, "rb" + runbook + ".md", vector));
+        }
+      }
+      repository.storeBatch(chunks);
+      float[] query = chunks.get(1234).embedding();
+
+      List<String> runbooks = repository.searchRunbooks(query, 3, VectorSearchFilter.none());
+      List<ScoredChunk> results =
+          repository.search(query, 1, VectorSearchFilter.none().withRunbookPaths(runbooks));
+
+      assertThat(runbooks).hasSize(3).first().isEqualTo("rb123.md");
+      assertThat(results.get(0).chunk().id()).isEqualTo("r123-4");
+    }
+
+    @Test
+    @DisplayName("should return no runbooks from an empty store and reject a non-positive limit")
+    void shouldHandleEmptyStoreAndBadLimit() {
+      assertThat(repository.searchRunbooks(new float[] {1f, 0f}, 3, VectorSearchFilter.none()))
+          .isEmpty();
+      assertThatThrownBy(
+              () -> repository.searchRunbooks(new float[] {1f, 0f}, 0, VectorSearchFilter.none()))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  @Nested
+  @DisplayName("int8 encoding")
+  class Int8EncodingTests {
+
+    @TempDir Path tempDir;
+
+    @Test
+    @DisplayName("should return the same ranking as the exact store after re-ranking")
+    void shouldMatchExactRanking() {
+      InMemoryVectorStoreRepository quantized =
+          new InMemoryVectorStoreRepository(
+              new LocalVectorStoreConfig(VectorEncoding.INT8, 4, null));
+      assertSameRankingAsExact(quantized);
+    }
+
+    @Test
+    @DisplayName("should re-rank against vectors spilled to disk")
+    void shouldRerankAgainstSpilledVectors() {
+      InMemoryVectorStoreRepository quantized =
+          new InMemoryVectorStoreRepository(
+              new LocalVectorStoreConfig(VectorEncoding.INT8, 4, tempDir));
+      assertSameRankingAsExact(quantized);
+    }
+
+    @Test
+    @DisplayName("should return chunks without embeddings and honour delete")
+    void shouldReturnChunksWithoutEmbeddings() {
+      InMemoryVectorStoreRepository quantized =
+          new InMemoryVectorStoreRepository(
+              new LocalVectorStoreConfig(VectorEncoding.INT8, 2, null));
+      quantized.store(createChunkWithPath("a", "one.md", new float[] {1.0f, 0.0f, 0.0f}));
+      quantized.store(createChunkWithPath("b", "two.md", new float[] {0.0f, 1.0f, 0.0f}));
+
+      quantized.delete("one.md");
+
+      List<ScoredChunk> results = quantized.search(new float[] {1.0f, 0.0f, 0.0f}, 5);
+      assertThat(results).singleElement().satisfies(r -> assertThat(r.chunk().id()).isEqualTo("b"));
+      assertThat(results.get(0).chunk().embedding()).isEmpty();
+    }
+
+    private void assertSameRankingAsExact(InMemoryVectorStoreRepository quantized) {
+      Random random = new Random(3);
+      int dimension = 48;
+      for (int i = 0; i < 300; i++) {
+        float[] embedding = new float[dimension];
+        for (int j = 0; j < dimension; j++) {
+          embedding[j] = (float) random.nextGaussian();
+        }
+        RunbookChunk chunk = createChunkWithPath("chunk-" + i, "path-" + (i % 10), embedding);
+        repository.store(chunk);
+        quantized.store(chunk);
+      }
+      repository.delete("path-4");
+      quantized.delete("path-4");
+
+      for (int q = 0; q < 20; q++) {
+        float[] query = new float[dimension];
+        for (int j = 0; j < dimension; j++) {
+          query[j] = (float) random.nextGaussian();
+        }
+        List<String> expected =
+            repository.search(query, 5).stream().map(r -> r.chunk().id()).toList();
+        List<String> actual =
+            quantized.search(query, 5).stream().map(r -> r.chunk().id()).toList();
+        assertThat(actual).isEqualTo(expected);
+      }
+    }
+  }
+
+  @Nested
+  @DisplayName("16-bit float encodings")
+  class HalfPrecisionEncodingTests {
+
+    @TempDir Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(
+        value = VectorEncoding.class,
+        names = {"FLOAT16", "BFLOAT16"})
+    @DisplayName("should score within rounding error of the exact store")
+    void shouldScoreCloseToExact(VectorEncoding encoding) {
+      InMemoryVectorStoreRepository half =
+          new InMemoryVectorStoreRepository(new LocalVectorStoreConfig(encoding, 4, null));
+      Random random = new Random(3);
+      for (int i = 0; i < 300; i++) {
+        RunbookChunk chunk = createChunkWithPath("chunk-" + i, "path", randomVector(random, 48));
+        repository.store(chunk);
+        half.store(chunk);
+      }
+
+      for (int q = 0; q < 20; q++) {
+        float[] query = randomVector(random, 48);
+        List<ScoredChunk> expected = repository.search(query, 5);
+        List<ScoredChunk> actual = half.search(query, 5);
+        assertThat(actual).hasSize(5);
+        for (int rank = 0; rank < 5; rank++) {
+          assertThat(actual.get(rank).similarityScore())
+              .isCloseTo(expected.get(rank).similarityScore(), within(0.005));
+        }
+      }
+      assertThat(half.search(new float[48], 1).get(0).chunk().embedding()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should restore a 16-bit snapshot and convert a float32 one")
+    void shouldRestoreSnapshots() throws IOException {
+      LocalVectorStoreConfig config =
+          new LocalVectorStoreConfig(VectorEncoding.FLOAT16, 4, null);
+      InMemoryVectorStoreRepository half = new InMemoryVectorStoreRepository(config);
+      Random random = new Random(8);
+      for (int i = 0; i < 50; i++) {
+        RunbookChunk chunk = createChunkWithPath("chunk-" + i, "path", randomVector(random, 16));
+        repository.store(chunk);
+        half.store(chunk);
+      }
+      float[] query = randomVector(random, 16);
+      List<Double> expected =
+          half.search(query, 5).stream().map(ScoredChunk::similarityScore).toList();
+
+      Path halfSnapshot = tempDir.resolve("half.rbvs");
+      Path floatSnapshot = tempDir.resolve("float.rbvs");
+      half.saveSnapshot(halfSnapshot);
+      repository.saveSnapshot(floatSnapshot);
+      InMemoryVectorStoreRepository fromHalf = new InMemoryVectorStoreRepository(config);
+      InMemoryVectorStoreRepository fromFloat = new InMemoryVectorStoreRepository(config);
+      fromHalf.loadSnapshot(halfSnapshot);
+      fromFloat.loadSnapshot(floatSnapshot);
+
+      assertThat(Files.size(halfSnapshot)).isLessThan(Files.size(floatSnapshot));
+      assertThat(fromHalf.search(query, 5))
+          .extracting(ScoredChunk::similarityScore)
+          .containsExactlyElementsOf(expected);
+      assertThat(fromFloat.search(query, 5))
+          .extracting(ScoredChunk::similarityScore)
+          .containsExactlyElementsOf(expected);
+    }
+  }
+
+  @Nested
+  @DisplayName("projections")
+  class ProjectionTests {
+
+    @TempDir Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(VectorEncoding.class)
+    @DisplayName("should scan truncated vectors and re-rank them at full dimension")
+    void shouldRerankTruncatedScan(VectorEncoding encoding) {
+      InMemoryVectorStoreRepository truncated =
+          new InMemoryVectorStoreRepository(projecting(encoding, ProjectionMethod.TRUNCATE, 16));
+      Random random = new Random(11);
+      for (int i = 0; i < 300; i++) {
+        RunbookChunk chunk = createChunkWithPath("chunk-" + i, "path", prefixHeavyVector(random));
+        repository.store(chunk);
+        truncated.store(chunk);
+      }
+
+      for (int q = 0; q < 20; q++) {
+        float[] query = prefixHeavyVector(random);
+        List<ScoredChunk> expected = repository.search(query, 5);
+        List<ScoredChunk> actual = truncated.search(query, 5);
+        assertThat(actual)
+            .extracting(scored -> scored.chunk().id())
+            .containsExactlyElementsOf(
+                expected.stream().map(scored -> scored.chunk().id()).toList());
+        for (int rank = 0; rank < 5; rank++) {
+          assertThat(actual.get(rank).similarityScore())
+              .isCloseTo(expected.get(rank).similarityScore(), within(1e-6));
+        }
+      }
+      assertThat(truncated.search(new float[32], 1).get(0).chunk().embedding()).isEmpty();
+      assertThat(truncated.stats().dimension()).isEqualTo(32);
+    }
+
+    @Test
+    @DisplayName("should scan at full dimension until optimize() fits a PCA basis")
+    void shouldFitPcaOnOptimize() {
+      InMemoryVectorStoreRepository pca =
+          new InMemoryVectorStoreRepository(
+              projecting(VectorEncoding.FLOAT32, ProjectionMethod.PCA, 6));
+      Random random = new Random(12);
+      List<RunbookChunk> chunks = lowRankChunks(random, 300, 32, 6);
+      repository.storeBatch(chunks);
+      pca.storeBatch(chunks);
+      float[] query = chunks.get(7).embedding().clone();
+      List<String> expected =
+          repository.search(query, 5).stream().map(scored -> scored.chunk().id()).toList();
+      assertThat(pca.search(query, 5))
+          .extracting(scored -> scored.chunk().id())
+          .containsExactlyElementsOf(expected);
+      long unfittedIndexBytes = pca.stats().indexBytes();
+
+      pca.optimize();
+
+      assertThat(pca.stats().indexBytes()).isEqualTo(unfittedIndexBytes + 6 * 32 * Float.BYTES);
+      for (int q = 0; q < 20; q++) {
+        float[] other = chunks.get(q * 13).embedding().clone();
+        assertThat(pca.search(other, 5))
+            .extracting(scored -> scored.chunk().id())
+            .containsExactlyElementsOf(
+                repository.search(other, 5).stream().map(scored -> scored.chunk().id()).toList());
+      }
+    }
+
+    @Test
+    @DisplayName("should not fit a PCA basis to fewer vectors than it keeps")
+    void shouldNotFitTooFewVectors() throws IOException {
+      InMemoryVectorStoreRepository pca =
+          new InMemoryVectorStoreRepository(
+              projecting(VectorEncoding.FLOAT32, ProjectionMethod.PCA, 6));
+      pca.storeBatch(lowRankChunks(new Random(13), 5, 32, 6));
+      Path snapshot = tempDir.resolve("vectors.rbvs");
+
+      pca.optimize();
+      pca.saveSnapshot(snapshot);
+
+      assertThat(snapshot).exists();
+      assertThat(tempDir.resolve("vectors.rbvs.pca")).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("should save the fitted basis next to the snapshot and restore it")
+    void shouldRestoreFittedBasis() throws IOException {
+      LocalVectorStoreConfig config = projecting(VectorEncoding.INT8, ProjectionMethod.PCA, 6);
+      InMemoryVectorStoreRepository pca = new InMemoryVectorStoreRepository(config);
+      List<RunbookChunk> chunks = lowRankChunks(new Random(14), 200, 32, 6);
+      pca.storeBatch(chunks);
+      pca.optimize();
+      Path snapshot = tempDir.resolve("vectors.rbvs");
+      Path basis = tempDir.resolve("vectors.rbvs.pca");
+
+      pca.saveSnapshot(snapshot);
+      InMemoryVectorStoreRepository restored = new InMemoryVectorStoreRepository(config);
+      restored.loadSnapshot(snapshot);
+
+      assertThat(basis).exists();
+      float[] query = chunks.get(3).embedding().clone();
+      List<ScoredChunk> expected = pca.search(query, 5);
+      List<ScoredChunk> actual = restored.search(query, 5);
+      assertThat(actual)
+          .extracting(scored -> scored.chunk().id())
+          .containsExactlyElementsOf(expected.stream().map(scored -> scored.chunk().id()).toList());
+      for (int rank = 0; rank < 5; rank++) {
+        assertThat(actual.get(rank).similarityScore())
+            .isCloseTo(expected.get(rank).similarityScore(), within(1e-6));
+      }
+      assertThat(restored.stats().indexBytes()).isEqualTo(pca.stats().indexBytes());
+
+      repository.storeBatch(chunks);
+      repository.saveSnapshot(snapshot);
+      assertThat(basis).doesNotExist();
+    }
+
+    private static LocalVectorStoreConfig projecting(
+        VectorEncoding encoding, ProjectionMethod method, int dimensions) {
+      return new LocalVectorStoreConfig(
+          encoding,
+          4,
+          null,
+          ParallelScanConfig.sequential(),
+          new ProjectionConfig(method, dimensions));
+    }
+
+    /** Returns a 32-d vector whose trailing half is small, like a Matryoshka embedding. */
+    private static float[] prefixHeavyVector(Random random) {
+      float[] vector = randomVector(random, 32);
+      for (int i = 16; i < 32; i++) {
+        vector[i] *= 0.05f;
+      }
+      return vector;
+    }
+
+    /** Returns normalized chunks whose embeddings combine a few fixed random directions. */
+    private List<RunbookChunk> lowRankChunks(Random random, int count, int dimension, int rank) {
+      float[][] directions = new float[rank][];
+      for (int r = 0; r < rank; r++) {
+        directions[r] = randomVector(random, dimension);
+      }
+      List<RunbookChunk> chunks = new ArrayList<>();
+      for (int n = 0; n < count; n++) {
+        float[] embedding = new float[dimension];
+        for (float[] direction : directions) {
+          float weight = (float) random.nextGaussian();
+          for (int i = 0; i < dimension; i++) {
+            embedding[i] += weight * direction[i];
+          }
+        }
+        FloatVectorMatrix.normalizeInPlace(embedding);
+        chunks.add(createChunkWithPath("chunk-" + n, "rb-" + n % 10 + ".md", embedding));
+      }
+      return chunks;
+    }
+  }
+
+  @Nested
+  @DisplayName("exportChunks")
+  class ExportTests {
+
+    @Test
+    @DisplayName("should export normalized embeddings in every encoding")
+    void shouldExportFullDimensionEmbeddings() {
+      Random random = new Random(31);
+      List<RunbookChunk> stored = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        stored.add(
+            createChunkWithPath("chunk-" + i, "rb-" + i % 4 + ".md", randomVector(random, 32)));
+      }
+
+      for (VectorEncoding encoding : VectorEncoding.values()) {
+        InMemoryVectorStoreRepository store =
+            new InMemoryVectorStoreRepository(
+                new LocalVectorStoreConfig(encoding, 4, null, ParallelScanConfig.sequential()));
+        store.storeBatch(stored);
+
+        List<RunbookChunk> exported = store.exportChunks();
+
+        assertThat(exported).as(encoding.name()).hasSize(stored.size());
+        for (RunbookChunk chunk : exported) {
+          float[] expected =
+              FloatVectorMatrix.normalizeInPlace(
+                  stored.get(Integer.parseInt(chunk.id().substring(6))).embedding());
+          float[] actual = chunk.embedding();
+          assertThat(actual).as(encoding.name()).hasSize(32);
+          for (int c = 0; c < 32; c++) {
+            assertThat(actual[c]).as(encoding.name()).isCloseTo(expected[c], within(0.01f));
+          }
+        }
+      }
+    }
+
+    @Test
+    @DisplayName("should export an empty list from an empty store")
+    void shouldExportNothingWhenEmpty() {
+      assertThat(repository.exportChunks()).isEmpty();
+    }
+  }
+
+  @Nested
+  @DisplayName("snapshots")
+  class SnapshotTests {
+
+    @TempDir Path tempDir;
+
+    @Test
+    @DisplayName("should restore chunks and ranking from a snapshot")
+    void shouldRestoreFromSnapshot() throws IOException {
+      Path snapshot = tempDir.resolve("vectors.rbvs");
+      repository.store(createChunkWithPath("a", "one.md", new float[] {1.0f, 0.0f, 0.0f}));
+      repository.store(createChunkWithPath("b", "two.md", new float[] {0.0f, 1.0f, 0.0f}));
+      repository.saveSnapshot(snapshot);
+
+      InMemoryVectorStoreRepository restored = new InMemoryVectorStoreRepository();
+      assertThat(restored.loadSnapshot(snapshot)).isTrue();
+
+      List<ScoredChunk> results = restored.search(new float[] {0.9f, 0.1f, 0.0f}, 2);
+      assertThat(results).extracting(r -> r.chunk().id()).containsExactly("a", "b");
+      assertThat(results.get(0).chunk().runbookPath()).isEqualTo("one.md");
+      assertThat(results.get(0).chunk().tags()).containsExactly("test");
+      assertThat(results.get(0).chunk().embedding()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should accept mutations after restoring a snapshot")
+    void shouldAcceptMutationsAfterRestore() throws IOException {
+      Path snapshot = tempDir.resolve("vectors.rbvs");
+      repository.store(createChunkWithPath("a", "one.md", new float[] {1.0f, 0.0f, 0.0f}));
+      repository.store(createChunkWithPath("b", "two.md", new float[] {0.0f, 1.0f, 0.0f}));
+      repository.saveSnapshot(snapshot);
+
+      InMemoryVectorStoreRepository restored = new InMemoryVectorStoreRepository();
+      restored.loadSnapshot(snapshot);
+      restored.delete("one.md");
+      restored.store(createChunkWithPath("c", "three.md", new float[] {0.0f, 0.0f, 1.0f}));
+
+      List<ScoredChunk> results = restored.search(new float[] {0.0f, 0.0f, 1.0f}, 5);
+      assertThat(results).extracting(r -> r.chunk().id()).containsExactly("c", "b");
+    }
+
+    @Test
+    @DisplayName("should restore an int8 store with the same ranking")
+    void shouldRestoreInt8Store() throws IOException {
+      Path snapshot = tempDir.resolve("vectors.rbvs");
+      Random random = new Random(5);
+      for (int i = 0; i < 200; i++) {
+        float[] embedding = new float[32];
+        for (int j = 0; j < embedding.length; j++) {
+          embedding[j] = (float) random.nextGaussian();
+        }
+        repository.store(createChunkWithPath("chunk-" + i, "path-" + (i % 5), embedding));
+      }
+      repository.saveSnapshot(snapshot);
+
+      InMemoryVectorStoreRepository restored =
+          new InMemoryVectorStoreRepository(
+              new LocalVectorStoreConfig(VectorEncoding.INT8, 4, null));
+      restored.loadSnapshot(snapshot);
+
+      for (int q = 0; q < 10; q++) {
+        float[] query = new float[32];
+        for (int j = 0; j < query.length; j++) {
+          query[j] = (float) random.nextGaussian();
+        }
+        assertThat(restored.search(query, 5))
+            .extracting(r -> r.chunk().id())
+            .isEqualTo(repository.search(query, 5).stream().map(r -> r.chunk().id()).toList());
+      }
+    }
+
+    @Test
+    @DisplayName("loadSnapshot should return false when the file is missing")
+    void loadShouldReturnFalseForMissingFile() throws IOException {
+      assertThat(repository.loadSnapshot(tempDir.resolve("missing.rbvs"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("loadSnapshot should reject a file that is not a snapshot")
+    void loadShouldRejectInvalidFile() throws IOException {
+      Path snapshot = tempDir.resolve("vectors.rbvs");
+      Files.write(snapshot, new byte[128]);
+
+      assertThatThrownBy(() -> repository.loadSnapshot(snapshot))
+          .isInstanceOf(IOException.class)
+          .hasMessageContaining("not a vector snapshot");
+    }
+
+    @Test
+    @DisplayName("saveSnapshot should delete the snapshot of a store that was never written")
+    void saveShouldDeleteSnapshotOfEmptyStore() throws IOException {
+      Path snapshot = tempDir.resolve("vectors.rbvs");
+      Files.write(snapshot, new byte[] {1});
+
+      repository.saveSnapshot(snapshot);
+
+      assertThat(snapshot).doesNotExist();
+    }
+  }
+
+  @Nested
+  @DisplayName("stats()")
+  class StatsTests {
+
+    @TempDir Path tempDir;
+
+    @Test
+    @DisplayName("should report an empty exact-scan store")
+    void shouldReportEmptyStore() {
+      VectorStoreStats stats = repository.stats();
+
+      assertThat(stats.providerType()).isEqualTo("local");
+      assertThat(stats.chunkCount()).isZero();
+      assertThat(stats.dimension()).isZero();
+      assertThat(stats.heapBytes()).isZero();
+      assertThat(stats.indexState()).isEqualTo(VectorStoreStats.IndexState.NONE);
+      assertThat(stats.searchCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("should count chunks per runbook, their bytes and the searches served")
+    void shouldReportContentsAndSearches() {
+      repository.store(createChunkWithPath("a", "one.md", new float[] {1.0f, 0.0f, 0.0f}));
+      repository.store(createChunkWithPath("b", "one.md", new float[] {0.0f, 1.0f, 0.0f}));
+      repository.store(createChunkWithPath("c", "two.md", new float[] {0.0f, 0.0f, 1.0f}));
+      repository.search(new float[] {1.0f, 0.0f, 0.0f}, 1);
+      repository.searchHitsBatch(
+          List.of(new float[] {1.0f, 0.0f, 0.0f}, new float[] {0.0f, 1.0f, 0.0f}),
+          1,
+          VectorSearchFilter.none());
+
+      VectorStoreStats stats = repository.stats();
+
+      assertThat(stats.chunkCount()).isEqualTo(3);
+      assertThat(stats.dimension()).isEqualTo(3);
+      assertThat(stats.chunksPerRunbook()).containsExactly(entry("one.md", 2), entry("two.md", 1));
+      assertThat(stats.contentBytes()).isEqualTo(3 * "content".length());
+      // id, runbook path, section title, one tag and one shape pattern per chunk
+      assertThat(stats.metadataBytes()).isEqualTo(3 * (1 + 6 + 12 + 4 + 4));
+      // The packed matrix plus the embedding each float32 chunk keeps
+      assertThat(stats.vectorBytes()).isGreaterThanOrEqualTo(2 * 3 * 3 * Float.BYTES);
+      assertThat(stats.offHeapVectorBytes()).isZero();
+      assertThat(stats.indexBytes()).isPositive();
+      assertThat(stats.searchCount()).isEqualTo(2);
+      assertThat(stats.averageSearchLatency()).isPositive();
+    }
+
+    @Test
+    @DisplayName("should count a restored snapshot's vectors as off-heap until first mutation")
+    void shouldReportMappedSnapshotOffHeap() throws IOException {
+      Path snapshot = tempDir.resolve("vectors.rbvs");
+      repository.store(createChunkWithPath("a", "one.md", new float[] {1.0f, 0.0f, 0.0f}));
+      repository.store(createChunkWithPath("b", "two.md", new float[] {0.0f, 1.0f, 0.0f}));
+      repository.saveSnapshot(snapshot);
+
+      InMemoryVectorStoreRepository restored = new InMemoryVectorStoreRepository();
+      restored.loadSnapshot(snapshot);
+      VectorStoreStats mapped = restored.stats();
+      restored.store(createChunkWithPath("c", "three.md", new float[] {0.0f, 0.0f, 1.0f}));
+      VectorStoreStats copied = restored.stats();
+
+      assertThat(mapped.offHeapVectorBytes()).isEqualTo(2 * 3 * Float.BYTES);
+      assertThat(mapped.vectorBytes()).isZero();
+      assertThat(copied.offHeapVectorBytes()).isZero();
+      assertThat(copied.vectorBytes()).isPositive();
+      assertThat(copied.chunkCount()).isEqualTo(3);
+    }
+  }
+
   @Nested
   @DisplayName("Thread safety")
   class ThreadSafetyTests {
@@ -270,6 +1492,29 @@ class InMemoryVectorStoreRepositoryTest {
         embedding);
   }
 
+  private RunbookChunk createChunk(
+      String id, String content, List<String> tags, List<String> shapes, float[] embedding) {
+    return new RunbookChunk(
+        id, "runbooks/test.md", "Test Section", content, tags, shapes, embedding);
+  }
+
+  private RunbookChunk createChunkWithPath(
+      String id, String path, List<String> tags, float[] embedding) {
+    return new RunbookChunk(id, path, "Test Section", "content", tags, List.of("VM.*"), embedding);
+  }
+
+  private static float[] randomVector(Random random, int dimension) {
+    float[] vector = new float[dimension];
+    for (int i = 0; i < dimension; i++) {
+      vector[i] = (float) random.nextGaussian();
+    }
+    return vector;
+  }
+
+  private static String pick(Random random, List<String> values) {
+    return values.get(random.nextInt(values.size()));
+  }
+
   private RunbookChunk createChunkWithPath(String id, String path, float[] embedding) {
     return new RunbookChunk(
         id, path, "Test Section", "content", List.of("test"), List.of("VM.*"), embedding);
@@ -0,0 +1,94 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link Int8VectorStorage}. */
+class Int8VectorStorageTest {
+
+  private static final int DIMENSION = 64;
+
+  @Test
+  @DisplayName("scores should approximate the float dot product of normalized vectors")
+  void scoresShouldApproximateFloatDotProduct() {
+    Random random = new Random(11);
+    Int8VectorStorage storage = new Int8VectorStorage(DIMENSION, SimilarityKernels.scalar());
+    FloatVectorMatrix exact = new FloatVectorMatrix(DIMENSION, SimilarityKernels.scalar());
+    for (int i = 0; i < 200; i++) {
+      float[] vector = randomUnitVector(random);
+      storage.append(vector);
+      exact.append(vector);
+    }
+
+    float[] query = randomUnitVector(random);
+    VectorStorage.RowScorer approximate = storage.scorer(query);
+    VectorStorage.RowScorer reference = exact.scorer(query);
+    for (int row = 0; row < 200; row++) {
+      assertThat(approximate.score(row)).isCloseTo(reference.score(row), within(0.01f));
+    }
+  }
+
+  @Test
+  @DisplayName("decode should reproduce each component within half a quantization step")
+  void decodeShouldBeWithinHalfStep() {
+    float[] vector = {-0.5f, -0.1f, 0.0f, 0.25f, 0.5f};
+    Int8VectorStorage storage = new Int8VectorStorage(vector.length, SimilarityKernels.scalar());
+    storage.append(vector);
+
+    float halfStep = (0.5f - -0.5f) / 255.0f / 2.0f;
+    float[] decoded = storage.decode(0);
+    for (int i = 0; i < vector.length; i++) {
+      assertThat(decoded[i]).isCloseTo(vector[i], within(halfStep + 1e-6f));
+    }
+  }
+
+  @Test
+  @DisplayName("constant vectors should decode exactly")
+  void constantVectorsShouldDecodeExactly() {
+    Int8VectorStorage storage = new Int8VectorStorage(4, SimilarityKernels.scalar());
+    storage.append(new float[] {0.5f, 0.5f, 0.5f, 0.5f});
+
+    assertThat(storage.decode(0)).containsExactly(0.5f, 0.5f, 0.5f, 0.5f);
+    assertThat(storage.scorer(new float[] {0.5f, 0.5f, 0.5f, 0.5f}).score(0))
+        .isCloseTo(1.0f, within(1e-6f));
+  }
+
+  @Test
+  @DisplayName("swapRemove should move the last row with its scale and offset")
+  void swapRemoveShouldMoveLastRow() {
+    Int8VectorStorage storage = new Int8VectorStorage(2, SimilarityKernels.scalar());
+    storage.append(new float[] {1.0f, 0.0f});
+    storage.append(new float[] {0.0f, 1.0f});
+    storage.append(new float[] {0.6f, 0.8f});
+
+    assertThat(storage.swapRemove(0)).isEqualTo(2);
+    assertThat(storage.size()).isEqualTo(2);
+    assertThat(storage.decode(0)[0]).isCloseTo(0.6f, within(0.01f));
+    assertThat(storage.decode(0)[1]).isCloseTo(0.8f, within(0.01f));
+    assertThat(storage.swapRemove(1)).isEqualTo(-1);
+  }
+
+  @Test
+  @DisplayName("should grow beyond initial capacity")
+  void shouldGrowBeyondInitialCapacity() {
+    Int8VectorStorage storage = new Int8VectorStorage(2, SimilarityKernels.scalar());
+    for (int i = 0; i < 500; i++) {
+      storage.append(new float[] {1.0f, 0.0f});
+    }
+
+    assertThat(storage.size()).isEqualTo(500);
+    assertThat(storage.scorer(new float[] {1.0f, 0.0f}).score(499)).isCloseTo(1.0f, within(0.01f));
+  }
+
+  private static float[] randomUnitVector(Random random) {
+    float[] vector = new float[DIMENSION];
+    for (int i = 0; i < DIMENSION; i++) {
+      vector[i] = (float) random.nextGaussian();
+    }
+    return FloatVectorMatrix.normalizeInPlace(vector);
+  }
+}
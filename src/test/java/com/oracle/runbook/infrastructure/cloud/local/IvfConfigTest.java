@@ -0,0 +1,35 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link IvfConfig}. */
+class IvfConfigTest {
+
+  @Test
+  @DisplayName("defaults() should use the documented default parameters")
+  void defaultsShouldUseDocumentedParameters() {
+    IvfConfig config = IvfConfig.defaults();
+
+    assertThat(config.nlist()).isEqualTo(IvfConfig.DEFAULT_NLIST);
+    assertThat(config.nprobe()).isEqualTo(IvfConfig.DEFAULT_NPROBE);
+    assertThat(config.trainingIterations()).isEqualTo(IvfConfig.DEFAULT_TRAINING_ITERATIONS);
+  }
+
+  @Test
+  @DisplayName("should reject invalid parameters")
+  void shouldRejectInvalidParameters() {
+    assertThatThrownBy(() -> new IvfConfig(0, 8, 10))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("nlist");
+    assertThatThrownBy(() -> new IvfConfig(64, 0, 10))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("nprobe");
+    assertThatThrownBy(() -> new IvfConfig(64, 8, 0))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("trainingIterations");
+  }
+}
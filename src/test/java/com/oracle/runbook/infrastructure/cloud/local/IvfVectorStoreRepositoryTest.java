@@ -0,0 +1,357 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreStats;
+import com.oracle.runbook.rag.ScoredChunk;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link IvfVectorStoreRepository}. */
+class IvfVectorStoreRepositoryTest {
+
+  private static final int DIMENSION = 16;
+
+  private IvfVectorStoreRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    repository = new IvfVectorStoreRepository(new IvfConfig(16, 4, 10));
+  }
+
+  @Nested
+  @DisplayName("providerType()")
+  class ProviderTypeTests {
+
+    @Test
+    @DisplayName("should return 'ivf' as provider type")
+    void shouldReturnIvfProviderType() {
+      assertThat(repository.providerType()).isEqualTo("ivf");
+      assertThat(repository).isInstanceOf(VectorStoreRepository.class);
+    }
+  }
+
+  @Nested
+  @DisplayName("search()")
+  class SearchTests {
+
+    @Test
+    @DisplayName("should return empty list for empty store")
+    void shouldReturnEmptyForEmptyStore() {
+      assertThat(repository.search(new float[] {1.0f, 0.0f}, 5)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should be exact before the index is trained")
+    void shouldBeExactBeforeTraining() {
+      List<float[]> vectors = clusteredVectors(300, 1L);
+      for (int i = 0; i < vectors.size(); i++) {
+        repository.store(createChunk("chunk-" + i, "runbooks/test.md", vectors.get(i)));
+      }
+
+      List<ScoredChunk> results = repository.search(vectors.get(42), 1);
+
+      assertThat(repository.partitionCount()).isEqualTo(1);
+      assertThat(results.get(0).chunk().id()).isEqualTo("chunk-42");
+      assertThat(results.get(0).similarityScore()).isCloseTo(1.0, Offset.offset(0.001));
+    }
+
+    @Test
+    @DisplayName("should reach high recall against exact search after training")
+    void shouldReachHighRecallAfterTraining() {
+      InMemoryVectorStoreRepository exact = new InMemoryVectorStoreRepository();
+      List<float[]> vectors = clusteredVectors(2000, 2L);
+      for (int i = 0; i < vectors.size(); i++) {
+        RunbookChunk chunk = createChunk("chunk-" + i, "runbooks/test.md", vectors.get(i));
+        repository.store(chunk);
+        exact.store(chunk);
+      }
+
+      repository.train();
+
+      int hits = 0;
+      List<float[]> queries = clusteredVectors(50, 3L);
+      for (float[] query : queries) {
+        Set<String> expected = new HashSet<>();
+        exact.search(query, 10).forEach(result -> expected.add(result.chunk().id()));
+        for (ScoredChunk result : repository.search(query, 10)) {
+          if (expected.contains(result.chunk().id())) {
+            hits++;
+          }
+        }
+      }
+
+      assertThat(repository.partitionCount()).isEqualTo(16);
+      assertThat(hits / (double) (queries.size() * 10)).isGreaterThan(0.9);
+    }
+
+    @Test
+    @DisplayName("should validate arguments")
+    void shouldValidateArguments() {
+      repository.store(createChunk("chunk-1", "runbooks/a.md", new float[] {1.0f, 0.0f}));
+
+      assertThatThrownBy(() -> repository.search(null, 5))
+          .isInstanceOf(NullPointerException.class)
+          .hasMessageContaining("queryEmbedding");
+      assertThatThrownBy(() -> repository.search(new float[] {1.0f}, 0))
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("topK");
+      assertThatThrownBy(() -> repository.search(new float[] {1.0f, 0.0f, 0.0f}, 1))
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("same length");
+    }
+  }
+
+  @Nested
+  @DisplayName("store()")
+  class StoreTests {
+
+    @Test
+    @DisplayName("should replace an existing chunk with the same id")
+    void shouldReplaceChunkWithSameId() {
+      repository.store(createChunk("chunk-1", "runbooks/a.md", new float[] {1.0f, 0.0f}));
+      repository.store(createChunk("chunk-1", "runbooks/a.md", new float[] {0.0f, 1.0f}));
+
+      List<ScoredChunk> results = repository.search(new float[] {1.0f, 0.0f}, 10);
+
+      assertThat(repository.size()).isEqualTo(1);
+      assertThat(results).hasSize(1);
+      assertThat(results.get(0).similarityScore()).isCloseTo(0.0, Offset.offset(0.001));
+    }
+
+    @Test
+    @DisplayName("should route inserts after training to the nearest partition")
+    void shouldRouteInsertsAfterTraining() {
+      List<float[]> vectors = clusteredVectors(1200, 4L);
+      for (int i = 0; i < 1000; i++) {
+        repository.store(createChunk("chunk-" + i, "runbooks/test.md", vectors.get(i)));
+      }
+      repository.train();
+
+      for (int i = 1000; i < vectors.size(); i++) {
+        repository.store(createChunk("chunk-" + i, "runbooks/new.md", vectors.get(i)));
+      }
+
+      assertThat(repository.size()).isEqualTo(1200);
+      assertThat(repository.search(vectors.get(1100), 1).get(0).chunk().id())
+          .isEqualTo("chunk-1100");
+    }
+  }
+
+  @Nested
+  @DisplayName("optimize()")
+  class OptimizeTests {
+
+    @Test
+    @DisplayName("should train in the background once enough vectors are stored")
+    void shouldTrainInBackground() {
+      List<float[]> vectors = clusteredVectors(1000, 5L);
+      for (int i = 0; i < vectors.size(); i++) {
+        repository.store(createChunk("chunk-" + i, "runbooks/test.md", vectors.get(i)));
+      }
+
+      repository.optimize();
+
+      await().atMost(30, SECONDS).until(() -> repository.partitionCount() == 16);
+      assertThat(repository.search(vectors.get(7), 1).get(0).chunk().id()).isEqualTo("chunk-7");
+    }
+
+    @Test
+    @DisplayName("should stay a single exact partition when the store is small")
+    void shouldNotTrainSmallStore() {
+      for (int i = 0; i < 20; i++) {
+        repository.store(createChunk("chunk-" + i, "runbooks/test.md", new float[] {1.0f, i}));
+      }
+
+      repository.optimize();
+      repository.train();
+
+      assertThat(repository.partitionCount()).isEqualTo(1);
+    }
+  }
+
+  @Nested
+  @DisplayName("delete()")
+  class DeleteTests {
+
+    @Test
+    @DisplayName("should remove chunks for the path from every partition")
+    void shouldRemoveChunksForPath() {
+      List<float[]> vectors = clusteredVectors(1000, 6L);
+      for (int i = 0; i < vectors.size(); i++) {
+        String path = i % 2 == 0 ? "runbooks/even.md" : "runbooks/odd.md";
+        repository.store(createChunk("chunk-" + i, path, vectors.get(i)));
+      }
+      repository.train();
+
+      repository.delete("runbooks/even.md");
+
+      List<ScoredChunk> results = repository.search(vectors.get(10), 20);
+      assertThat(repository.size()).isEqualTo(500);
+      assertThat(results).isNotEmpty();
+      assertThat(results).allMatch(r -> r.chunk().runbookPath().equals("runbooks/odd.md"));
+    }
+
+    @Test
+    @DisplayName("should accept a new dimension once emptied")
+    void shouldAcceptNewDimensionOnceEmptied() {
+      repository.store(createChunk("chunk-1", "runbooks/a.md", new float[] {1.0f, 0.0f}));
+      repository.delete("runbooks/a.md");
+
+      repository.store(createChunk("chunk-2", "runbooks/b.md", new float[] {0.0f, 0.0f, 1.0f}));
+
+      assertThat(repository.search(new float[] {0.0f, 0.0f, 1.0f}, 1)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("should follow a chunk that was re-stored under another runbook path")
+    void shouldFollowChunkMovedToAnotherPath() {
+      repository.store(createChunk("chunk-1", "runbooks/a.md", new float[] {1.0f, 0.0f}));
+      repository.store(createChunk("chunk-2", "runbooks/a.md", new float[] {0.0f, 1.0f}));
+      repository.store(createChunk("chunk-1", "runbooks/b.md", new float[] {1.0f, 0.0f}));
+
+      repository.delete("runbooks/a.md");
+
+      assertThat(repository.findById("chunk-1")).isPresent();
+      assertThat(repository.findById("chunk-2")).isEmpty();
+
+      repository.delete("runbooks/b.md");
+
+      assertThat(repository.findById("chunk-1")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("findById should return the stored chunk")
+    void findByIdShouldReturnStoredChunk() {
+      repository.store(createChunk("chunk-1", "runbooks/a.md", new float[] {1.0f, 0.0f}));
+
+      assertThat(repository.findById("chunk-1"))
+          .hasValueSatisfying(chunk -> assertThat(chunk.runbookPath()).isEqualTo("runbooks/a.md"));
+      assertThat(repository.findById("missing")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should throw NullPointerException for null path")
+    void shouldThrowForNullPath() {
+      assertThatThrownBy(() -> repository.delete(null))
+          .isInstanceOf(NullPointerException.class)
+          .hasMessageContaining("runbookPath");
+    }
+  }
+
+  @Nested
+  @DisplayName("replaceRunbooks()")
+  class ReplaceRunbooksTests {
+
+    @Test
+    @DisplayName("should swap the chunks of the listed runbooks and keep the trained partitions")
+    void shouldSwapListedRunbooks() {
+      List<float[]> vectors = clusteredVectors(1000, 9L);
+      List<RunbookChunk> newGeneration = new ArrayList<>();
+      for (int i = 0; i < vectors.size(); i++) {
+        String path = i % 2 == 0 ? "runbooks/even.md" : "runbooks/odd.md";
+        repository.store(createChunk("chunk-" + i, path, vectors.get(i)));
+        if (i % 2 == 0) {
+          newGeneration.add(createChunk("new-" + i, path, vectors.get(i)));
+        }
+      }
+      repository.train();
+
+      repository.replaceRunbooks(List.of("runbooks/even.md"), newGeneration);
+
+      assertThat(repository.size()).isEqualTo(1000);
+      assertThat(repository.findById("chunk-10")).isEmpty();
+      assertThat(repository.search(vectors.get(10), 1).get(0).chunk().id()).isEqualTo("new-10");
+      assertThat(repository.stats().indexState()).isEqualTo(VectorStoreStats.IndexState.READY);
+    }
+
+    @Test
+    @DisplayName("should keep the old generation when the new one is rejected")
+    void shouldKeepOldGenerationOnRejection() {
+      repository.store(createChunk("chunk-1", "runbooks/a.md", new float[] {1.0f, 0.0f}));
+      repository.store(createChunk("chunk-2", "runbooks/b.md", new float[] {0.0f, 1.0f}));
+
+      assertThatThrownBy(
+              () ->
+                  repository.replaceRunbooks(
+                      List.of("runbooks/a.md"),
+                      List.of(createChunk("chunk-3", "runbooks/a.md", new float[] {1.0f}))))
+          .isInstanceOf(IllegalArgumentException.class);
+
+      assertThat(repository.findById("chunk-1")).isPresent();
+      assertThat(repository.findById("chunk-3")).isEmpty();
+    }
+  }
+
+  @Nested
+  @DisplayName("stats()")
+  class StatsTests {
+
+    @Test
+    @DisplayName("should report an exact store as unindexed, then stale, then ready")
+    void shouldReportIndexState() {
+      repository.store(createChunk("chunk-0", "runbooks/a.md", clusteredVectors(1, 1L).get(0)));
+      assertThat(repository.stats().indexState()).isEqualTo(VectorStoreStats.IndexState.NONE);
+
+      List<float[]> vectors = clusteredVectors(300, 1L);
+      for (int i = 1; i < vectors.size(); i++) {
+        repository.store(createChunk("chunk-" + i, "runbooks/b.md", vectors.get(i)));
+      }
+      assertThat(repository.stats().indexState()).isEqualTo(VectorStoreStats.IndexState.STALE);
+
+      repository.train();
+      repository.search(vectors.get(5), 3);
+      VectorStoreStats stats = repository.stats();
+
+      assertThat(stats.indexState()).isEqualTo(VectorStoreStats.IndexState.READY);
+      assertThat(stats.chunkCount()).isEqualTo(300);
+      assertThat(stats.dimension()).isEqualTo(DIMENSION);
+      assertThat(stats.chunksPerRunbook())
+          .containsEntry("runbooks/a.md", 1)
+          .containsEntry("runbooks/b.md", 299);
+      assertThat(stats.vectorBytes()).isGreaterThanOrEqualTo(300L * DIMENSION * Float.BYTES);
+      assertThat(stats.indexBytes()).isPositive();
+      assertThat(stats.searchCount()).isEqualTo(1);
+    }
+  }
+
+  /** Generates points around 20 random centres, the shape IVF partitions are built for. */
+  private static List<float[]> clusteredVectors(int count, long seed) {
+    Random centres = new Random(99L);
+    float[][] centroids = new float[20][DIMENSION];
+    for (float[] centroid : centroids) {
+      for (int j = 0; j < DIMENSION; j++) {
+        centroid[j] = (float) centres.nextGaussian();
+      }
+    }
+    Random random = new Random(seed);
+    List<float[]> vectors = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      float[] centroid = centroids[random.nextInt(centroids.length)];
+      float[] vector = new float[DIMENSION];
+      for (int j = 0; j < DIMENSION; j++) {
+        vector[j] = centroid[j] + 0.3f * (float) random.nextGaussian();
+      }
+      vectors.add(vector);
+    }
+    return vectors;
+  }
+
+  private static RunbookChunk createChunk(String id, String path, float[] embedding) {
+    return new RunbookChunk(
+        id, path, "Test Section", "content", List.of("test"), List.of("VM.*"), embedding);
+  }
+}
@@ -0,0 +1,48 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link LocalVectorStoreConfig} and {@link VectorEncoding}. */
+class LocalVectorStoreConfigTest {
+
+  @Test
+  @DisplayName("defaults() should keep exact float32 vectors on the heap")
+  void defaultsShouldUseFloat32OnHeap() {
+    LocalVectorStoreConfig config = LocalVectorStoreConfig.defaults();
+
+    assertThat(config.encoding()).isEqualTo(VectorEncoding.FLOAT32);
+    assertThat(config.rerankFactor()).isEqualTo(LocalVectorStoreConfig.DEFAULT_RERANK_FACTOR);
+    assertThat(config.spillDirectory()).isNull();
+    assertThat(config.parallelScan()).isEqualTo(ParallelScanConfig.defaults());
+  }
+
+  @Test
+  @DisplayName("should reject invalid parameters")
+  void shouldRejectInvalidParameters() {
+    assertThatThrownBy(() -> new LocalVectorStoreConfig(null, 4, null))
+        .isInstanceOf(NullPointerException.class)
+        .hasMessageContaining("encoding");
+    assertThatThrownBy(() -> new LocalVectorStoreConfig(VectorEncoding.INT8, 0, null))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("rerankFactor");
+    assertThatThrownBy(() -> new LocalVectorStoreConfig(VectorEncoding.FLOAT32, 4, null, null))
+        .isInstanceOf(NullPointerException.class)
+        .hasMessageContaining("parallelScan");
+  }
+
+  @Test
+  @DisplayName("VectorEncoding.fromString should parse case-insensitively")
+  void fromStringShouldParseCaseInsensitively() {
+    assertThat(VectorEncoding.fromString("int8")).isEqualTo(VectorEncoding.INT8);
+    assertThat(VectorEncoding.fromString("Float32")).isEqualTo(VectorEncoding.FLOAT32);
+    assertThat(VectorEncoding.fromString("float16")).isEqualTo(VectorEncoding.FLOAT16);
+    assertThat(VectorEncoding.fromString("BFloat16")).isEqualTo(VectorEncoding.BFLOAT16);
+    assertThatThrownBy(() -> VectorEncoding.fromString("int4"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("int4");
+  }
+}
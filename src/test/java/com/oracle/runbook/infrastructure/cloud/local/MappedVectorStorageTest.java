@@ -0,0 +1,86 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link MappedVectorStorage}. */
+class MappedVectorStorageTest {
+
+  private static final ValueLayout.OfFloat LITTLE_ENDIAN_FLOAT =
+      ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfShort LITTLE_ENDIAN_SHORT =
+      ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+  @Test
+  @DisplayName("should score and read rows straight from the segment")
+  void shouldScoreFromSegment() {
+    Arena arena = Arena.ofShared();
+    MappedVectorStorage storage = storageOf(arena, new float[] {1, 0, 0, 1});
+
+    float[] row = new float[2];
+    storage.read(1, row);
+
+    assertThat(storage.isMapped()).isTrue();
+    assertThat(storage.size()).isEqualTo(2);
+    assertThat(row).containsExactly(0.0f, 1.0f);
+    assertThat(storage.scorer(new float[] {0.6f, 0.8f}).score(1)).isEqualTo(0.8f);
+    storage.release();
+    assertThat(arena.scope().isAlive()).isFalse();
+  }
+
+  @Test
+  @DisplayName("first mutation should copy rows to the heap and close the mapping")
+  void firstMutationShouldMaterialize() {
+    Arena arena = Arena.ofShared();
+    MappedVectorStorage storage = storageOf(arena, new float[] {1, 0, 0, 1});
+
+    storage.append(new float[] {0.6f, 0.8f});
+    int moved = storage.swapRemove(0);
+
+    assertThat(storage.isMapped()).isFalse();
+    assertThat(arena.scope().isAlive()).isFalse();
+    assertThat(moved).isEqualTo(2);
+    assertThat(storage.size()).isEqualTo(2);
+    assertThat(storage.scorer(new float[] {0.6f, 0.8f}).score(0)).isEqualTo(1.0f);
+    storage.release();
+  }
+
+  @Test
+  @DisplayName("should score 16-bit rows and keep them 16-bit when copied to the heap")
+  void shouldScoreHalfPrecisionRows() {
+    Arena arena = Arena.ofShared();
+    short[] values = new short[4];
+    float[] floats = {1, 0, 0.6f, 0.8f};
+    for (int i = 0; i < floats.length; i++) {
+      values[i] = HalfPrecisionVectorStorage.encode(VectorEncoding.FLOAT16, floats[i]);
+    }
+    MemorySegment segment = arena.allocate((long) values.length * Short.BYTES);
+    MemorySegment.copy(values, 0, segment, LITTLE_ENDIAN_SHORT, 0, values.length);
+    MappedVectorStorage storage =
+        new MappedVectorStorage(
+            segment, arena, VectorEncoding.FLOAT16, 2, 2, SimilarityKernels.scalar());
+
+    float mappedScore = storage.scorer(new float[] {0.6f, 0.8f}).score(1);
+    storage.append(new float[] {0.0f, 1.0f});
+
+    assertThat(storage.encoding()).isEqualTo(VectorEncoding.FLOAT16);
+    assertThat(mappedScore).isCloseTo(1.0f, within(1e-3f));
+    assertThat(storage.isMapped()).isFalse();
+    assertThat(storage.scorer(new float[] {0.6f, 0.8f}).score(1)).isEqualTo(mappedScore);
+    storage.release();
+  }
+
+  private static MappedVectorStorage storageOf(Arena arena, float[] values) {
+    MemorySegment segment = arena.allocate((long) values.length * Float.BYTES);
+    MemorySegment.copy(values, 0, segment, LITTLE_ENDIAN_FLOAT, 0, values.length);
+    return new MappedVectorStorage(
+        segment, arena, 2, values.length / 2, SimilarityKernels.scalar());
+  }
+}
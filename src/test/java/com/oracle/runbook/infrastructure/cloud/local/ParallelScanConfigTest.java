@@ -0,0 +1,46 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link ParallelScanConfig}. */
+class ParallelScanConfigTest {
+
+  @Test
+  @DisplayName("defaults() should use one scan thread per available processor")
+  void defaultsShouldUseAvailableProcessors() {
+    ParallelScanConfig config = ParallelScanConfig.defaults();
+
+    assertThat(config.segmentRows()).isEqualTo(ParallelScanConfig.DEFAULT_SEGMENT_ROWS);
+    assertThat(config.parallelism()).isEqualTo(Runtime.getRuntime().availableProcessors());
+    assertThat(config.threshold()).isEqualTo(ParallelScanConfig.DEFAULT_THRESHOLD);
+  }
+
+  @Test
+  @DisplayName("should scan in parallel only above the threshold and beyond one segment")
+  void shouldScanInParallelOnlyForLargeScans() {
+    ParallelScanConfig config = new ParallelScanConfig(100, 4, 1_000);
+
+    assertThat(config.parallel(999)).isFalse();
+    assertThat(config.parallel(1_000)).isTrue();
+    assertThat(new ParallelScanConfig(100, 4, 0).parallel(100)).isFalse();
+    assertThat(ParallelScanConfig.sequential().parallel(Integer.MAX_VALUE)).isFalse();
+  }
+
+  @Test
+  @DisplayName("should reject invalid parameters")
+  void shouldRejectInvalidParameters() {
+    assertThatThrownBy(() -> new ParallelScanConfig(0, 4, 0))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("segmentRows");
+    assertThatThrownBy(() -> new ParallelScanConfig(100, 0, 0))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("parallelism");
+    assertThatThrownBy(() -> new ParallelScanConfig(100, 4, -1))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("threshold");
+  }
+}
@@ -0,0 +1,54 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link ProjectionConfig} and {@link ProjectionMethod}. */
+class ProjectionConfigTest {
+
+  @Test
+  @DisplayName("none() should scan vectors of every dimension in full")
+  void noneShouldNeverReduce() {
+    ProjectionConfig config = ProjectionConfig.none();
+
+    assertThat(config.method()).isEqualTo(ProjectionMethod.NONE);
+    assertThat(config.dimensions()).isEqualTo(ProjectionConfig.DEFAULT_DIMENSIONS);
+    assertThat(config.reduces(4096)).isFalse();
+    assertThat(LocalVectorStoreConfig.defaults().projection()).isEqualTo(config);
+  }
+
+  @Test
+  @DisplayName("should reduce only vectors with more components than it keeps")
+  void shouldReduceOnlyLargerVectors() {
+    ProjectionConfig config = new ProjectionConfig(ProjectionMethod.PCA, 256);
+
+    assertThat(config.reduces(768)).isTrue();
+    assertThat(config.reduces(256)).isFalse();
+    assertThat(config.reduces(128)).isFalse();
+  }
+
+  @Test
+  @DisplayName("should reject invalid parameters")
+  void shouldRejectInvalidParameters() {
+    assertThatThrownBy(() -> new ProjectionConfig(null, 256))
+        .isInstanceOf(NullPointerException.class)
+        .hasMessageContaining("method");
+    assertThatThrownBy(() -> new ProjectionConfig(ProjectionMethod.TRUNCATE, 0))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("dimensions");
+  }
+
+  @Test
+  @DisplayName("ProjectionMethod.fromString should parse case-insensitively")
+  void fromStringShouldParseCaseInsensitively() {
+    assertThat(ProjectionMethod.fromString("none")).isEqualTo(ProjectionMethod.NONE);
+    assertThat(ProjectionMethod.fromString("Truncate")).isEqualTo(ProjectionMethod.TRUNCATE);
+    assertThat(ProjectionMethod.fromString("PCA")).isEqualTo(ProjectionMethod.PCA);
+    assertThatThrownBy(() -> ProjectionMethod.fromString("svd"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("svd");
+  }
+}
@@ -0,0 +1,132 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link RowBitmap}. */
+class RowBitmapTest {
+
+  @Nested
+  @DisplayName("add() and remove()")
+  class MutationTests {
+
+    @Test
+    @DisplayName("should track rows across containers")
+    void shouldTrackRows() {
+      RowBitmap bitmap = new RowBitmap();
+      bitmap.add(3);
+      bitmap.add(70_000);
+      bitmap.add(3);
+
+      assertThat(bitmap.contains(3)).isTrue();
+      assertThat(bitmap.contains(70_000)).isTrue();
+      assertThat(bitmap.contains(4)).isFalse();
+      assertThat(bitmap.cardinality()).isEqualTo(2);
+      assertThat(rows(bitmap)).containsExactly(3, 70_000);
+      assertThat(bitmap.toArray()).containsExactly(3, 70_000);
+    }
+
+    @Test
+    @DisplayName("should become empty when the last row is removed")
+    void shouldBecomeEmpty() {
+      RowBitmap bitmap = new RowBitmap();
+      bitmap.add(5);
+      bitmap.remove(6);
+      bitmap.remove(5);
+
+      assertThat(bitmap.isEmpty()).isTrue();
+      assertThat(bitmap.cardinality()).isZero();
+    }
+
+    @Test
+    @DisplayName("should stay correct when a container switches between array and bitset")
+    void shouldSurviveContainerConversion() {
+      RowBitmap bitmap = new RowBitmap();
+      for (int row = 0; row < RowBitmap.ARRAY_LIMIT * 2; row += 2) {
+        bitmap.add(row);
+      }
+      bitmap.add(1);
+      assertThat(bitmap.cardinality()).isEqualTo(RowBitmap.ARRAY_LIMIT + 1);
+
+      for (int row = 0; row < RowBitmap.ARRAY_LIMIT * 2; row += 4) {
+        bitmap.remove(row);
+      }
+
+      bitmap.remove(2);
+      bitmap.remove(6);
+
+      assertThat(bitmap.cardinality()).isEqualTo(RowBitmap.ARRAY_LIMIT / 2 - 1);
+      assertThat(bitmap.contains(1)).isTrue();
+      assertThat(bitmap.contains(10)).isTrue();
+      assertThat(bitmap.contains(2)).isFalse();
+      assertThat(bitmap.contains(4)).isFalse();
+    }
+  }
+
+  @Nested
+  @DisplayName("and() and or()")
+  class SetOperationTests {
+
+    @Test
+    @DisplayName("should agree with BitSet for sparse and dense inputs")
+    void shouldAgreeWithBitSet() {
+      Random random = new Random(42);
+      for (int density : new int[] {50, 5_000, 60_000}) {
+        BitSet expectedA = new BitSet();
+        BitSet expectedB = new BitSet();
+        RowBitmap a = randomBitmap(random, density, expectedA);
+        RowBitmap b = randomBitmap(random, density / 2 + 1, expectedB);
+
+        BitSet and = (BitSet) expectedA.clone();
+        and.and(expectedB);
+        BitSet or = (BitSet) expectedA.clone();
+        or.or(expectedB);
+
+        assertThat(rows(RowBitmap.and(a, b))).isEqualTo(rows(and));
+        assertThat(rows(RowBitmap.or(a, b))).isEqualTo(rows(or));
+        assertThat(RowBitmap.or(a, b).cardinality()).isEqualTo(or.cardinality());
+      }
+    }
+
+    @Test
+    @DisplayName("should leave the inputs unchanged")
+    void shouldNotMutateInputs() {
+      RowBitmap a = new RowBitmap();
+      a.add(1);
+      RowBitmap b = new RowBitmap();
+      b.add(2);
+
+      RowBitmap.or(a, b).add(3);
+
+      assertThat(rows(a)).containsExactly(1);
+      assertThat(rows(b)).containsExactly(2);
+    }
+  }
+
+  private static RowBitmap randomBitmap(Random random, int count, BitSet expected) {
+    RowBitmap bitmap = new RowBitmap();
+    for (int i = 0; i < count; i++) {
+      int row = random.nextInt(200_000);
+      bitmap.add(row);
+      expected.set(row);
+    }
+    return bitmap;
+  }
+
+  private static List<Integer> rows(RowBitmap bitmap) {
+    List<Integer> rows = new ArrayList<>();
+    bitmap.forEach(rows::add);
+    return rows;
+  }
+
+  private static List<Integer> rows(BitSet bitSet) {
+    return bitSet.stream().boxed().toList();
+  }
+}
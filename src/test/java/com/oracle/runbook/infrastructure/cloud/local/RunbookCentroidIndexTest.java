@@ -0,0 +1,91 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link RunbookCentroidIndex}. */
+class RunbookCentroidIndexTest {
+
+  private FloatVectorMatrix vectors;
+  private RunbookCentroidIndex index;
+
+  @BeforeEach
+  void setUp() {
+    vectors = new FloatVectorMatrix(2, ScalarSimilarityKernel.INSTANCE);
+    vectors.append(new float[] {1f, 0f});
+    vectors.append(new float[] {0.6f, 0.8f});
+    vectors.append(new float[] {0f, 1f});
+    index = new RunbookCentroidIndex(ScalarSimilarityKernel.INSTANCE);
+  }
+
+  @Test
+  @DisplayName("should rank runbooks by the normalized mean of their rows")
+  void shouldRankByMeanOfRows() {
+    index.update("a.md", vectors, new int[] {0, 1});
+    index.update("b.md", vectors, new int[] {2});
+
+    assertThat(index.top(new float[] {1f, 0f}, 2, null)).containsExactly("a.md", "b.md");
+    assertThat(index.top(new float[] {0f, 1f}, 1, null)).containsExactly("b.md");
+    assertThat(index.size()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("should add the title to the mean and drop it with the last row")
+  void shouldFoldTitleUntilRunbookIsEmpty() {
+    index.update("a.md", vectors, new int[] {2});
+    index.update("b.md", vectors, new int[] {1});
+
+    assertThat(index.top(new float[] {1f, 0f}, 1, null)).containsExactly("b.md");
+
+    index.putTitle("a.md", new float[] {1f, 0f});
+    index.update("a.md", vectors, new int[] {2});
+
+    assertThat(index.top(new float[] {1f, 0f}, 1, null)).containsExactly("a.md");
+
+    index.update("a.md", vectors, new int[0]);
+    index.update("a.md", vectors, new int[] {2});
+
+    assertThat(index.top(new float[] {1f, 0f}, 1, null)).containsExactly("b.md");
+  }
+
+  @Test
+  @DisplayName("should only return eligible runbooks")
+  void shouldOnlyReturnEligibleRunbooks() {
+    index.update("a.md", vectors, new int[] {0});
+    index.update("b.md", vectors, new int[] {2});
+
+    assertThat(index.top(new float[] {1f, 0f}, 2, Set.of("b.md"))).containsExactly("b.md");
+    assertThat(index.top(new float[] {1f, 0f}, 2, Set.of())).isEmpty();
+  }
+
+  @Test
+  @DisplayName("should keep the remaining centroids addressable after a removal")
+  void shouldKeepCentroidsAfterRemoval() {
+    index.update("a.md", vectors, new int[] {0});
+    index.update("b.md", vectors, new int[] {1});
+    index.update("c.md", vectors, new int[] {2});
+
+    index.update("a.md", vectors, new int[0]);
+    index.update("c.md", vectors, new int[] {0});
+
+    assertThat(index.size()).isEqualTo(2);
+    assertThat(index.top(new float[] {1f, 0f}, 3, null)).containsExactly("c.md", "b.md");
+  }
+
+  @Test
+  @DisplayName("clear() should drop every centroid")
+  void clearShouldDropEverything() {
+    index.update("a.md", vectors, new int[] {0});
+    index.putTitle("a.md", new float[] {0f, 1f});
+
+    index.clear();
+
+    assertThat(index.size()).isZero();
+    assertThat(index.heapBytes()).isZero();
+    assertThat(index.top(new float[] {1f, 0f}, 1, null)).isEmpty();
+  }
+}
@@ -0,0 +1,101 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link RunbookChunkCodec}. */
+class RunbookChunkCodecTest {
+
+  @Test
+  @DisplayName("should round-trip every metadata field including nulls and non-ASCII text")
+  void shouldRoundTripMetadata() throws IOException {
+    RunbookChunk chunk =
+        new RunbookChunk(
+            "chunk-1",
+            "runbooks/disk.md",
+            null,
+            "Résumé: " + "x".repeat(70_000),
+            List.of("disk", "storage"),
+            List.of("VM.*"),
+            new float[] {1.0f, 2.0f});
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    RunbookChunkCodec.writeMetadata(new DataOutputStream(bytes), chunk);
+
+    RunbookChunk decoded =
+        RunbookChunkCodec.readMetadata(
+            new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), null, true);
+
+    assertThat(decoded.id()).isEqualTo("chunk-1");
+    assertThat(decoded.runbookPath()).isEqualTo("runbooks/disk.md");
+    assertThat(decoded.sectionTitle()).isNull();
+    assertThat(decoded.content()).isEqualTo(chunk.content());
+    assertThat(decoded.tags()).containsExactly("disk", "storage");
+    assertThat(decoded.applicableShapes()).containsExactly("VM.*");
+    assertThat(decoded.embedding()).isEmpty();
+    assertThat(decoded.sourceRunbookPaths()).containsExactly("runbooks/disk.md");
+  }
+
+  @Test
+  @DisplayName("should round-trip the sources of a shared chunk")
+  void shouldRoundTripSources() throws IOException {
+    RunbookChunk chunk =
+        new RunbookChunk(
+            "chunk-1",
+            "runbooks/disk.md",
+            "Escalation",
+            "Page the on-call engineer",
+            List.of(),
+            List.of(),
+            null,
+            List.of("runbooks/disk.md", "runbooks/memory.md"));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    RunbookChunkCodec.writeMetadata(new DataOutputStream(bytes), chunk);
+
+    RunbookChunk decoded =
+        RunbookChunkCodec.readMetadata(
+            new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), null, true);
+
+    assertThat(decoded.runbookPath()).isEqualTo("runbooks/disk.md");
+    assertThat(decoded.sourceRunbookPaths())
+        .containsExactly("runbooks/disk.md", "runbooks/memory.md");
+  }
+
+  @Test
+  @DisplayName("should round-trip embeddings")
+  void shouldRoundTripEmbedding() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    RunbookChunkCodec.writeEmbedding(new DataOutputStream(bytes), new float[] {0.5f, -1.0f});
+
+    float[] decoded =
+        RunbookChunkCodec.readEmbedding(
+            new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    assertThat(decoded).containsExactly(0.5f, -1.0f);
+  }
+
+  @Test
+  @DisplayName("should reject negative lengths")
+  void shouldRejectNegativeLengths() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    new DataOutputStream(bytes).writeInt(-5);
+
+    assertThatThrownBy(
+            () ->
+                RunbookChunkCodec.readMetadata(
+                    new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+                    null,
+                    true))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("Malformed");
+  }
+}
@@ -0,0 +1,459 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreStats;
+import com.oracle.runbook.rag.ScoredChunk;
+import com.oracle.runbook.rag.SearchHit;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Unit tests for {@link ShardedVectorStoreRepository}. */
+class ShardedVectorStoreRepositoryTest {
+
+  private static final int DIMENSION = 16;
+  private static final List<String> PATHS =
+      List.of("disk.md", "cpu.md", "memory.md", "network.md", "oom.md", "dns.md", "tls.md");
+
+  private final List<StubShard> shards =
+      List.of(new StubShard(), new StubShard(), new StubShard());
+
+  @Test
+  @DisplayName("should reject an empty shard list")
+  void shouldRejectEmptyShards() {
+    assertThatThrownBy(
+            () -> new ShardedVectorStoreRepository(List.of(), ShardingConfig.defaults()))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("shards");
+  }
+
+  @Test
+  @DisplayName("should reject a non-positive topK")
+  void shouldRejectNonPositiveTopK() {
+    assertThatThrownBy(() -> sharded(ShardingConfig.defaults()).search(new float[DIMENSION], 0))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("topK");
+  }
+
+  @Nested
+  @DisplayName("routing")
+  class RoutingTests {
+
+    @Test
+    @DisplayName("should keep all chunks of a runbook on one shard")
+    void shouldKeepRunbookOnOneShard() {
+      ShardedVectorStoreRepository store = sharded(ShardingConfig.defaults());
+      store.storeBatch(corpus(new Random(1), 70));
+
+      for (String path : PATHS) {
+        for (int i = 0; i < shards.size(); i++) {
+          assertThat(shards.get(i).stats().chunksPerRunbook().containsKey(path))
+              .as(path + " on shard " + i)
+              .isEqualTo(i == store.shardOf(path));
+        }
+      }
+      assertThat(shards).allSatisfy(shard -> assertThat(shard.stats().chunkCount()).isPositive());
+    }
+
+    @Test
+    @DisplayName("should delete and replace a runbook on its shard")
+    void shouldDeleteAndReplaceOnOwningShard() {
+      ShardedVectorStoreRepository store = sharded(ShardingConfig.defaults());
+      Random random = new Random(2);
+      store.storeBatch(corpus(random, 70));
+
+      store.delete("disk.md");
+      store.replaceRunbooks(
+          List.of("cpu.md", "new.md"),
+          List.of(chunk("cpu-v2", "cpu.md", random), chunk("new-1", "new.md", random)));
+
+      VectorStoreStats stats = store.stats();
+      assertThat(stats.chunksPerRunbook()).doesNotContainKey("disk.md");
+      assertThat(stats.chunksPerRunbook()).containsEntry("cpu.md", 1).containsEntry("new.md", 1);
+      assertThat(stats.chunkCount()).isEqualTo(70 - 20 + 2);
+    }
+
+    @Test
+    @DisplayName("should only query the shards owning the runbooks of a filter")
+    void shouldOnlyQueryOwningShards() {
+      ShardedVectorStoreRepository store = sharded(ShardingConfig.defaults());
+      Random random = new Random(3);
+      store.storeBatch(corpus(random, 70));
+
+      List<ScoredChunk> results =
+          store.search(
+              randomVector(random),
+              5,
+              VectorSearchFilter.none().withRunbookPaths(List.of("disk.md")));
+
+      assertThat(results)
+          .isNotEmpty()
+          .allSatisfy(r -> assertThat(r.chunk().runbookPath()).isEqualTo("disk.md"));
+      int owner = store.shardOf("disk.md");
+      for (int i = 0; i < shards.size(); i++) {
+        assertThat(shards.get(i).queries).as("shard " + i).isEqualTo(i == owner ? 1 : 0);
+      }
+    }
+
+    @Test
+    @DisplayName("should keep a chunk shared across shards until its last source goes")
+    void shouldKeepSharedChunkAcrossShards() {
+      ShardedVectorStoreRepository store = sharded(ShardingConfig.defaults());
+      String first = PATHS.get(0);
+      String second =
+          PATHS.stream()
+              .filter(path -> store.shardOf(path) != store.shardOf(first))
+              .findFirst()
+              .orElseThrow();
+      Random random = new Random(4);
+      store.store(chunk("shared", first, random).withSourceRunbookPaths(List.of(first, second)));
+
+      List<ScoredChunk> results = store.search(randomVector(random), 5);
+      assertThat(ids(results)).containsExactly("shared");
+      assertThat(results.get(0).chunk().sourceRunbookPaths()).containsExactly(first, second);
+      assertThat(store.runbookChunks(second))
+          .singleElement()
+          .satisfies(
+              chunk ->
+                  assertThat(chunk.sourceRunbookPaths())
+                      .containsExactlyInAnyOrder(first, second));
+
+      store.delete(first);
+      results = store.search(randomVector(random), 5);
+      assertThat(ids(results)).containsExactly("shared");
+      assertThat(results.get(0).chunk().sourceRunbookPaths()).containsExactly(second);
+
+      store.replaceRunbooks(List.of(second), List.of());
+      assertThat(store.search(randomVector(random), 5)).isEmpty();
+    }
+  }
+
+  @Nested
+  @DisplayName("scatter-gather")
+  class ScatterGatherTests {
+
+    @Test
+    @DisplayName("should return the same results as a single store")
+    void shouldMatchSingleStore() {
+      ShardedVectorStoreRepository store = sharded(ShardingConfig.defaults());
+      InMemoryVectorStoreRepository single = new InMemoryVectorStoreRepository();
+      Random random = new Random(4);
+      List<RunbookChunk> chunks = corpus(random, 200);
+      store.storeBatch(chunks);
+      single.storeBatch(chunks);
+      List<float[]> queries = List.of(randomVector(random), randomVector(random));
+
+      List<List<ScoredChunk>> results = store.searchBatch(queries, 10, VectorSearchFilter.none());
+      List<List<SearchHit>> hits = store.searchHitsBatch(queries, 10, VectorSearchFilter.none());
+
+      List<List<ScoredChunk>> expected = single.searchBatch(queries, 10, VectorSearchFilter.none());
+      for (int q = 0; q < queries.size(); q++) {
+        assertThat(results.get(q))
+            .extracting(r -> r.chunk().id())
+            .containsExactlyElementsOf(ids(expected.get(q)));
+        assertThat(hits.get(q))
+            .extracting(SearchHit::id)
+            .containsExactlyElementsOf(ids(expected.get(q)));
+      }
+    }
+
+    @Test
+    @DisplayName("should fail a search when a shard times out and partial results are refused")
+    void shouldFailOnTimeout() {
+      ShardedVectorStoreRepository store =
+          sharded(new ShardingConfig(Duration.ofMillis(100), PartialResultPolicy.FAIL));
+      store.storeBatch(corpus(new Random(5), 70));
+      shards.get(1).delay = Duration.ofSeconds(30);
+
+      assertThatThrownBy(() -> store.search(randomVector(new Random(6)), 5))
+          .isInstanceOf(IllegalStateException.class)
+          .hasMessageContaining("shard 1 timed out");
+    }
+
+    @Test
+    @DisplayName("should answer from the remaining shards when partial results are allowed")
+    void shouldReturnPartialResults() {
+      ShardedVectorStoreRepository store =
+          sharded(new ShardingConfig(Duration.ofMillis(100), PartialResultPolicy.PARTIAL));
+      store.storeBatch(corpus(new Random(7), 70));
+      shards.get(1).delay = Duration.ofSeconds(30);
+      shards.get(2).failure = new IllegalStateException("connection refused");
+
+      List<ScoredChunk> results = store.search(randomVector(new Random(8)), 50);
+
+      assertThat(results)
+          .isNotEmpty()
+          .allSatisfy(r -> assertThat(store.shardOf(r.chunk().runbookPath())).isZero());
+      assertThat(store.partialSearchCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should fail a partial search when no shard answered")
+    void shouldFailWhenNoShardAnswered() {
+      ShardedVectorStoreRepository store =
+          sharded(new ShardingConfig(Duration.ofMillis(100), PartialResultPolicy.PARTIAL));
+      shards.forEach(shard -> shard.failure = new IllegalStateException("connection refused"));
+
+      assertThatThrownBy(() -> store.search(new float[DIMENSION], 5))
+          .isInstanceOf(IllegalStateException.class)
+          .hasMessageContaining("failed");
+    }
+
+    @Test
+    @DisplayName("should rethrow argument errors raised by a shard")
+    void shouldRethrowArgumentErrors() {
+      ShardedVectorStoreRepository store = sharded(ShardingConfig.defaults());
+      store.storeBatch(corpus(new Random(9), 70));
+
+      assertThatThrownBy(() -> store.search(new float[DIMENSION + 1], 5))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  @Nested
+  @DisplayName("runbook ranking")
+  class RunbookRankingTests {
+
+    @Test
+    @DisplayName("should merge the centroid rankings of its shards like a single store")
+    void shouldMatchSingleStoreCentroidRanking() {
+      ShardedVectorStoreRepository store = sharded(ShardingConfig.defaults());
+      InMemoryVectorStoreRepository single = new InMemoryVectorStoreRepository();
+      Random random = new Random(11);
+      List<RunbookChunk> chunks = corpus(random, 70);
+      store.storeBatch(chunks);
+      single.storeBatch(chunks);
+      float[] query = randomVector(random);
+
+      assertThat(store.searchRunbooks(query, 4, VectorSearchFilter.none()))
+          .containsExactlyElementsOf(single.searchRunbooks(query, 4, VectorSearchFilter.none()));
+    }
+
+    @Test
+    @DisplayName("should forward title embeddings to the shards owning the runbooks")
+    void shouldForwardTitles() {
+      ShardedVectorStoreRepository store = sharded(ShardingConfig.defaults());
+      InMemoryVectorStoreRepository single = new InMemoryVectorStoreRepository();
+      Random random = new Random(12);
+      List<RunbookChunk> chunks = corpus(random, 70);
+      store.storeBatch(chunks);
+      single.storeBatch(chunks);
+      float[] title = randomVector(random);
+      Map<String, float[]> titles = Map.of("dns.md", title, "tls.md", randomVector(random));
+
+      store.storeRunbookTitles(titles);
+      single.storeRunbookTitles(titles);
+
+      assertThat(store.searchRunbooks(title, PATHS.size(), VectorSearchFilter.none()))
+          .containsExactlyElementsOf(
+              single.searchRunbooks(title, PATHS.size(), VectorSearchFilter.none()));
+    }
+
+    @Test
+    @DisplayName("should rank by best chunk when a shard keeps no centroids")
+    void shouldFallBackWithoutCentroids() {
+      ShardedVectorStoreRepository store =
+          new ShardedVectorStoreRepository(
+              List.of(new InMemoryVectorStoreRepository(), new HnswVectorStoreRepository()),
+              ShardingConfig.defaults());
+      Random random = new Random(13);
+      store.storeBatch(corpus(random, 70));
+
+      assertThat(store.searchRunbooks(randomVector(random), 3, VectorSearchFilter.none()))
+          .hasSize(3)
+          .doesNotHaveDuplicates();
+    }
+  }
+
+  @Nested
+  @DisplayName("snapshots")
+  class SnapshotTests {
+
+    @TempDir Path directory;
+
+    @Test
+    @DisplayName("should restore every shard from a snapshot")
+    void shouldRoundTripSnapshot() throws IOException {
+      ShardedVectorStoreRepository store = sharded(ShardingConfig.defaults());
+      Random random = new Random(14);
+      store.storeBatch(corpus(random, 70));
+      Path path = directory.resolve("vectors.rbvs");
+      store.saveSnapshot(path);
+
+      ShardedVectorStoreRepository restored =
+          new ShardedVectorStoreRepository(
+              List.of(
+                  new InMemoryVectorStoreRepository(),
+                  new InMemoryVectorStoreRepository(),
+                  new InMemoryVectorStoreRepository()),
+              ShardingConfig.defaults());
+
+      assertThat(restored.loadSnapshot(path)).isTrue();
+      assertThat(restored.stats().chunksPerRunbook())
+          .isEqualTo(store.stats().chunksPerRunbook());
+      float[] query = randomVector(random);
+      assertThat(ids(restored.search(query, 10)))
+          .containsExactlyElementsOf(ids(store.search(query, 10)));
+    }
+
+    @Test
+    @DisplayName("should replace the previous generation of shard files")
+    void shouldDeletePreviousGeneration() throws IOException {
+      ShardedVectorStoreRepository store = sharded(ShardingConfig.defaults());
+      store.storeBatch(corpus(new Random(15), 70));
+      Path path = directory.resolve("vectors.rbvs");
+
+      store.saveSnapshot(path);
+      store.delete("disk.md");
+      store.saveSnapshot(path);
+
+      try (Stream<Path> files = Files.list(directory)) {
+        assertThat(files.map(file -> file.getFileName().toString()))
+            .containsExactlyInAnyOrder(
+                "vectors.rbvs",
+                "vectors.rbvs.2.shard-0",
+                "vectors.rbvs.2.shard-1",
+                "vectors.rbvs.2.shard-2");
+      }
+      ShardedVectorStoreRepository restored = sharded(ShardingConfig.defaults());
+      assertThat(restored.loadSnapshot(path)).isTrue();
+      assertThat(restored.stats().chunksPerRunbook()).doesNotContainKey("disk.md");
+    }
+
+    @Test
+    @DisplayName("should report a missing snapshot and reject one of another shard count")
+    void shouldRejectOtherShardCount() throws IOException {
+      ShardedVectorStoreRepository store = sharded(ShardingConfig.defaults());
+      Path path = directory.resolve("vectors.rbvs");
+      assertThat(store.loadSnapshot(path)).isFalse();
+      store.storeBatch(corpus(new Random(16), 70));
+      store.saveSnapshot(path);
+
+      ShardedVectorStoreRepository twoShards =
+          new ShardedVectorStoreRepository(
+              List.of(new InMemoryVectorStoreRepository(), new InMemoryVectorStoreRepository()),
+              ShardingConfig.defaults());
+
+      assertThatThrownBy(() -> twoShards.loadSnapshot(path))
+          .isInstanceOf(IOException.class)
+          .hasMessageContaining("3 shards");
+    }
+
+    @Test
+    @DisplayName("should refuse snapshots when a shard cannot be snapshotted")
+    void shouldRefuseUnsupportedShards() {
+      ShardedVectorStoreRepository store =
+          new ShardedVectorStoreRepository(
+              List.of(new InMemoryVectorStoreRepository(), new HnswVectorStoreRepository()),
+              ShardingConfig.defaults());
+
+      assertThat(store.supportsSnapshots()).isFalse();
+      assertThatThrownBy(() -> store.saveSnapshot(directory.resolve("vectors.rbvs")))
+          .isInstanceOf(UnsupportedOperationException.class)
+          .hasMessageContaining("shard 1");
+    }
+  }
+
+  @Test
+  @DisplayName("should aggregate the statistics of its shards")
+  void shouldAggregateStats() {
+    ShardedVectorStoreRepository store = sharded(ShardingConfig.defaults());
+    store.storeBatch(corpus(new Random(10), 70));
+    store.search(new float[DIMENSION], 3);
+
+    VectorStoreStats stats = store.stats();
+
+    assertThat(stats.providerType()).isEqualTo("local");
+    assertThat(stats.chunkCount()).isEqualTo(70);
+    assertThat(stats.dimension()).isEqualTo(DIMENSION);
+    assertThat(stats.vectorBytes())
+        .isEqualTo(shards.stream().mapToLong(shard -> shard.stats().vectorBytes()).sum());
+    assertThat(stats.chunksPerRunbook()).hasSize(PATHS.size()).containsEntry("disk.md", 10);
+    assertThat(stats.searchCount()).isEqualTo(1);
+  }
+
+  private ShardedVectorStoreRepository sharded(ShardingConfig config) {
+    return new ShardedVectorStoreRepository(List.<VectorStoreRepository>copyOf(shards), config);
+  }
+
+  private static List<RunbookChunk> corpus(Random random, int size) {
+    List<RunbookChunk> chunks = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      chunks.add(chunk("chunk-" + i, PATHS.get(i % PATHS.size()), random));
+    }
+    return chunks;
+  }
+
+  private static RunbookChunk chunk(String id, String runbookPath, Random random) {
+    return new RunbookChunk(
+        id,
+        runbookPath,
+        "Section",
+        "content " + id,
+        List.of("test"),
+        List.of("VM.*"),
+        randomVector(random));
+  }
+
+  private static float[] randomVector(Random random) {
+    float[] vector = new float[DIMENSION];
+    for (int i = 0; i < DIMENSION; i++) {
+      vector[i] = (float) random.nextGaussian();
+    }
+    return vector;
+  }
+
+  private static List<String> ids(List<ScoredChunk> results) {
+    return results.stream().map(result -> result.chunk().id()).toList();
+  }
+
+  /** In-process shard whose searches can be slowed down or made to fail. */
+  private static final class StubShard extends InMemoryVectorStoreRepository {
+
+    volatile int queries;
+    volatile Duration delay = Duration.ZERO;
+    volatile RuntimeException failure;
+
+    @Override
+    public List<List<ScoredChunk>> searchBatch(
+        List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+      beforeSearch();
+      return super.searchBatch(queryEmbeddings, topK, filter);
+    }
+
+    @Override
+    public List<List<SearchHit>> searchHitsBatch(
+        List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+      beforeSearch();
+      return super.searchHitsBatch(queryEmbeddings, topK, filter);
+    }
+
+    private void beforeSearch() {
+      queries++;
+      if (failure != null) {
+        throw failure;
+      }
+      try {
+        Thread.sleep(delay);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Search cancelled", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link ShardingConfig} and {@link PartialResultPolicy}. */
+class ShardingConfigTest {
+
+  @Test
+  @DisplayName("defaults() should wait two seconds and refuse partial results")
+  void defaultsShouldRefusePartialResults() {
+    ShardingConfig config = ShardingConfig.defaults();
+
+    assertThat(config.shardTimeout()).isEqualTo(ShardingConfig.DEFAULT_SHARD_TIMEOUT);
+    assertThat(config.partialResults()).isEqualTo(PartialResultPolicy.FAIL);
+  }
+
+  @Test
+  @DisplayName("should reject invalid parameters")
+  void shouldRejectInvalidParameters() {
+    assertThatThrownBy(() -> new ShardingConfig(null, PartialResultPolicy.FAIL))
+        .isInstanceOf(NullPointerException.class)
+        .hasMessageContaining("shardTimeout");
+    assertThatThrownBy(() -> new ShardingConfig(Duration.ofSeconds(1), null))
+        .isInstanceOf(NullPointerException.class)
+        .hasMessageContaining("partialResults");
+    assertThatThrownBy(() -> new ShardingConfig(Duration.ZERO, PartialResultPolicy.FAIL))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("shardTimeout");
+  }
+
+  @Test
+  @DisplayName("PartialResultPolicy.fromString should parse case-insensitively")
+  void fromStringShouldParseCaseInsensitively() {
+    assertThat(PartialResultPolicy.fromString("fail")).isEqualTo(PartialResultPolicy.FAIL);
+    assertThat(PartialResultPolicy.fromString("Partial")).isEqualTo(PartialResultPolicy.PARTIAL);
+    assertThatThrownBy(() -> PartialResultPolicy.fromString("best-effort"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("best-effort");
+  }
+}
@@ -0,0 +1,167 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/** Unit tests for {@link SimilarityKernels} and the {@link SimilarityKernel} implementations. */
+class SimilarityKernelsTest {
+
+  static Stream<SimilarityKernel> kernels() {
+    return Stream.of(SimilarityKernels.scalar(), SimilarityKernels.select("auto"));
+  }
+
+  @ParameterizedTest
+  @MethodSource("kernels")
+  @DisplayName("kernels should match a double-precision reference for all lengths and offsets")
+  void kernelsShouldMatchReference(SimilarityKernel kernel) {
+    Random random = new Random(42);
+    for (int length = 0; length <= 70; length++) {
+      float[] a = randomArray(random, length + 3);
+      float[] b = randomArray(random, length + 5);
+
+      double dot = 0.0;
+      double normA = 0.0;
+      double normB = 0.0;
+      double l2 = 0.0;
+      for (int i = 0; i < length; i++) {
+        double x = a[i + 3];
+        double y = b[i + 5];
+        dot += x * y;
+        normA += x * x;
+        normB += y * y;
+        l2 += (x - y) * (x - y);
+      }
+      double cosine = normA * normB == 0.0 ? 0.0 : dot / Math.sqrt(normA * normB);
+
+      assertThat((double) kernel.dot(a, 3, b, 5, length)).isCloseTo(dot, within(1e-4));
+      assertThat((double) kernel.cosine(a, 3, b, 5, length)).isCloseTo(cosine, within(1e-5));
+      assertThat((double) kernel.squaredL2(a, 3, b, 5, length)).isCloseTo(l2, within(1e-3));
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("kernels")
+  @DisplayName("cosine should return 0 when either vector is zero")
+  void cosineShouldReturnZeroForZeroVector(SimilarityKernel kernel) {
+    float[] zero = new float[8];
+    float[] other = {1, 2, 3, 4, 5, 6, 7, 8};
+
+    assertThat(kernel.cosine(zero, 0, other, 0, 8)).isEqualTo(0.0f);
+  }
+
+  @ParameterizedTest
+  @MethodSource("kernels")
+  @DisplayName("dotInt8 should match exact integer arithmetic including extreme codes")
+  void dotInt8ShouldMatchIntegerReference(SimilarityKernel kernel) {
+    Random random = new Random(7);
+    for (int length = 0; length <= 70; length++) {
+      byte[] a = new byte[length + 3];
+      byte[] b = new byte[length + 5];
+      random.nextBytes(a);
+      random.nextBytes(b);
+      int expected = 0;
+      for (int i = 0; i < length; i++) {
+        expected += a[i + 3] * b[i + 5];
+      }
+
+      assertThat(kernel.dotInt8(a, 3, b, 5, length)).isEqualTo(expected);
+    }
+
+    byte[] extremes = new byte[64];
+    Arrays.fill(extremes, Byte.MIN_VALUE);
+    assertThat(kernel.dotInt8(extremes, 0, extremes, 0, 64)).isEqualTo(64 * 128 * 128);
+  }
+
+  @ParameterizedTest
+  @MethodSource("kernels")
+  @DisplayName("16-bit float dots should widen exactly, including subnormals and negative zero")
+  void halfPrecisionDotsShouldMatchReference(SimilarityKernel kernel) {
+    Random random = new Random(5);
+    for (int length = 0; length <= 70; length++) {
+      float[] a = randomArray(random, length + 3);
+      short[] float16 = new short[length + 5];
+      short[] bfloat16 = new short[length + 5];
+      for (int i = 0; i < float16.length; i++) {
+        // Every fifth component is tiny, which float16 can only hold as a subnormal
+        float value = (float) (random.nextGaussian() * (i % 5 == 0 ? 1e-6 : 1.0));
+        value = i % 7 == 0 ? -0.0f : value;
+        float16[i] = HalfPrecisionVectorStorage.encode(VectorEncoding.FLOAT16, value);
+        bfloat16[i] = HalfPrecisionVectorStorage.encode(VectorEncoding.BFLOAT16, value);
+      }
+
+      double expectedFloat16 = 0.0;
+      double expectedBFloat16 = 0.0;
+      for (int i = 0; i < length; i++) {
+        expectedFloat16 += a[i + 3] * (double) Float.float16ToFloat(float16[i + 5]);
+        expectedBFloat16 += a[i + 3] * (double) Float.intBitsToFloat(bfloat16[i + 5] << 16);
+      }
+
+      assertThat((double) kernel.dotFloat16(a, 3, float16, 5, length))
+          .isCloseTo(expectedFloat16, within(1e-4));
+      assertThat((double) kernel.dotBFloat16(a, 3, bfloat16, 5, length))
+          .isCloseTo(expectedBFloat16, within(1e-4));
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("kernels")
+  @DisplayName("segment dot should match the array dot for unaligned offsets")
+  void segmentDotShouldMatchArrayDot(SimilarityKernel kernel) {
+    Random random = new Random(11);
+    ValueLayout.OfFloat littleEndian =
+        ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    try (Arena arena = Arena.ofConfined()) {
+      for (int length = 0; length <= 70; length++) {
+        float[] a = randomArray(random, length + 2);
+        float[] b = randomArray(random, length);
+        // One spare byte so the floats start at an unaligned offset
+        MemorySegment segment = arena.allocate((long) length * Float.BYTES + 1);
+        MemorySegment.copy(b, 0, segment, littleEndian, 1, length);
+
+        assertThat((double) kernel.dot(a, 2, segment, 1, length))
+            .isCloseTo(kernel.dot(a, 2, b, 0, length), within(1e-4));
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("select should honour explicit modes and reject unknown ones")
+  void selectShouldHonourModes() {
+    assertThat(SimilarityKernels.select("scalar").name()).isEqualTo("scalar");
+    assertThat(SimilarityKernels.select("vector")).isNotNull();
+    assertThat(SimilarityKernels.preferred()).isNotNull();
+    assertThatThrownBy(() -> SimilarityKernels.select("gpu"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("gpu");
+  }
+
+  @Test
+  @DisplayName("auto mode should use the Vector API when the module is resolved")
+  void autoModeShouldUseVectorApiWhenAvailable() {
+    boolean moduleResolved = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    assertThat(SimilarityKernels.select("auto").name())
+        .isEqualTo(moduleResolved ? "vector-api" : "scalar");
+  }
+
+  private static float[] randomArray(Random random, int length) {
+    float[] values = new float[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = (float) random.nextGaussian();
+    }
+    return values;
+  }
+}
@@ -0,0 +1,57 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link SphericalKMeans}. */
+class SphericalKMeansTest {
+
+  private static final SimilarityKernel KERNEL = SimilarityKernels.scalar();
+
+  @Test
+  @DisplayName("should recover well-separated clusters with normalized centroids")
+  void shouldRecoverSeparatedClusters() {
+    // Three tight clusters around the coordinate axes of a 3-d space
+    float[][] axes = {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
+    Random random = new Random(5);
+    int count = 300;
+    float[] data = new float[count * 3];
+    for (int i = 0; i < count; i++) {
+      float[] point = axes[i % 3].clone();
+      for (int j = 0; j < 3; j++) {
+        point[j] += 0.05f * (float) random.nextGaussian();
+      }
+      System.arraycopy(FloatVectorMatrix.normalizeInPlace(point), 0, data, i * 3, 3);
+    }
+
+    float[] centroids = SphericalKMeans.train(data, count, 3, 3, 10, new Random(1), KERNEL);
+
+    Set<Integer> nearestPerAxis = new HashSet<>();
+    for (float[] axis : axes) {
+      nearestPerAxis.add(SphericalKMeans.nearest(centroids, 3, axis, 0, 3, KERNEL));
+    }
+    assertThat(nearestPerAxis).hasSize(3);
+    for (int c = 0; c < 3; c++) {
+      assertThat(KERNEL.dot(centroids, c * 3, centroids, c * 3, 3)).isCloseTo(1.0f, within(1e-4f));
+    }
+  }
+
+  @Test
+  @DisplayName("should reject k outside 1..count")
+  void shouldRejectInvalidK() {
+    float[] data = {1, 0, 0, 1};
+
+    assertThatThrownBy(() -> SphericalKMeans.train(data, 2, 2, 3, 5, new Random(), KERNEL))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("k must be between 1 and 2");
+    assertThatThrownBy(() -> SphericalKMeans.train(data, 2, 2, 0, 5, new Random(), KERNEL))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,324 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreStats;
+import com.oracle.runbook.rag.ScoredChunk;
+import com.oracle.runbook.rag.SearchHit;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link TieredVectorStoreRepository}. */
+class TieredVectorStoreRepositoryTest {
+
+  private static final float[] QUERY_A = {1.0f, 0.0f, 0.0f};
+  private static final float[] QUERY_B = {0.0f, 1.0f, 0.0f};
+
+  private final CountingStore remote = new CountingStore(LocalVectorStoreConfig.defaults());
+
+  @Test
+  @DisplayName("should report the remote provider type")
+  void shouldReportRemoteProviderType() {
+    assertThat(tiered(HotTierConfig.defaults()).providerType()).isEqualTo("local");
+  }
+
+  @Test
+  @DisplayName("should reject a non-positive topK")
+  void shouldRejectNonPositiveTopK() {
+    assertThatThrownBy(() -> tiered(HotTierConfig.defaults()).search(QUERY_A, 0))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("topK");
+  }
+
+  @Nested
+  @DisplayName("promotion")
+  class PromotionTests {
+
+    @Test
+    @DisplayName("should answer from the hot tier once a chunk reaches the promotion threshold")
+    void shouldAnswerLocallyAfterPromotion() {
+      TieredVectorStoreRepository store = tiered(new HotTierConfig(16, 2, 0.8, 0.05));
+      store.storeBatch(List.of(chunk("a", "disk.md", QUERY_A), chunk("b", "cpu.md", QUERY_B)));
+
+      store.search(QUERY_A, 1);
+      store.search(QUERY_A, 1);
+      List<ScoredChunk> results = store.search(QUERY_A, 1);
+
+      assertThat(results).extracting(result -> result.chunk().id()).containsExactly("a");
+      assertThat(results.get(0).similarityScore()).isCloseTo(1.0, within(1e-6));
+      assertThat(remote.queries).isEqualTo(2);
+      assertThat(store.remoteSearchCount()).isEqualTo(2);
+      assertThat(store.localSearchCount()).isEqualTo(1);
+      assertThat(store.hotSize()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should fall back to the remote store when the hot tier is not confident")
+    void shouldFallBackWhenNotConfident() {
+      TieredVectorStoreRepository store = tiered(new HotTierConfig(16, 1, 0.8, 0.05));
+      store.storeBatch(List.of(chunk("a", "disk.md", QUERY_A), chunk("b", "cpu.md", QUERY_B)));
+      store.search(QUERY_A, 1);
+
+      // The only hot chunk scores 0.6, below the confidence score
+      store.search(new float[] {0.6f, 0.8f, 0.0f}, 1);
+      // b was promoted by the fallback, but the second-best hot chunk scores 0
+      store.search(QUERY_A, 2);
+
+      assertThat(remote.queries).isEqualTo(3);
+      assertThat(store.localSearchCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("should fall back when the K-th hot result does not lead the next by the margin")
+    void shouldFallBackWithinMargin() {
+      float[] nearA = {0.99f, 0.141f, 0.0f};
+      TieredVectorStoreRepository store = tiered(new HotTierConfig(16, 1, 0.8, 0.05));
+      store.storeBatch(List.of(chunk("a", "disk.md", QUERY_A), chunk("c", "oom.md", nearA)));
+      store.search(QUERY_A, 2);
+      assertThat(store.hotSize()).isEqualTo(2);
+
+      // a scores 1.0 but c, the next hot chunk, scores 0.99
+      store.search(QUERY_A, 1);
+      // Both hot chunks are returned, and nothing else is hot to compare with
+      store.search(QUERY_A, 2);
+
+      assertThat(remote.queries).isEqualTo(2);
+      assertThat(store.localSearchCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should never promote chunks returned without an embedding")
+    void shouldNotPromoteChunksWithoutEmbedding() {
+      CountingStore int8Remote =
+          new CountingStore(
+              new LocalVectorStoreConfig(
+                  VectorEncoding.INT8,
+                  LocalVectorStoreConfig.DEFAULT_RERANK_FACTOR,
+                  null,
+                  ParallelScanConfig.sequential()));
+      TieredVectorStoreRepository store =
+          new TieredVectorStoreRepository(int8Remote, new HotTierConfig(16, 1, 0.8, 0.05));
+      store.store(chunk("a", "disk.md", QUERY_A));
+
+      store.search(QUERY_A, 1);
+      store.search(QUERY_A, 1);
+
+      assertThat(int8Remote.queries).isEqualTo(2);
+      assertThat(store.hotSize()).isZero();
+    }
+
+    @Test
+    @DisplayName("should evict the least retrieved chunk only for a more retrieved one")
+    void shouldEvictLeastRetrievedChunk() {
+      TieredVectorStoreRepository store = tiered(new HotTierConfig(1, 1, 0.8, 0.05));
+      store.storeBatch(List.of(chunk("a", "disk.md", QUERY_A), chunk("b", "cpu.md", QUERY_B)));
+      store.search(QUERY_A, 1);
+
+      // b is retrieved as often as the hot chunk a, so it is not admitted yet
+      store.search(QUERY_B, 1);
+      assertThat(store.search(QUERY_A, 1)).extracting(r -> r.chunk().id()).containsExactly("a");
+      assertThat(store.localSearchCount()).isEqualTo(1);
+
+      // a now has two retrievals; b needs three to displace it
+      store.search(QUERY_B, 1);
+      store.search(QUERY_B, 1);
+      assertThat(store.search(QUERY_B, 1)).extracting(r -> r.chunk().id()).containsExactly("b");
+      assertThat(store.localSearchCount()).isEqualTo(2);
+      assertThat(store.hotSize()).isEqualTo(1);
+    }
+  }
+
+  @Nested
+  @DisplayName("batched and embedding-free searches")
+  class BatchTests {
+
+    @Test
+    @DisplayName("searchBatch should send only the queries the hot tier cannot answer")
+    void searchBatchShouldSendOnlyMisses() {
+      TieredVectorStoreRepository store = tiered(new HotTierConfig(16, 1, 0.8, 0.05));
+      store.storeBatch(List.of(chunk("a", "disk.md", QUERY_A), chunk("b", "cpu.md", QUERY_B)));
+      store.search(QUERY_A, 1);
+      remote.queries = 0;
+
+      List<List<ScoredChunk>> results = store.searchBatch(List.of(QUERY_A, QUERY_B), 1);
+
+      assertThat(results.get(0)).extracting(r -> r.chunk().id()).containsExactly("a");
+      assertThat(results.get(1)).extracting(r -> r.chunk().id()).containsExactly("b");
+      assertThat(remote.queries).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("searchHits should return hot hits with metadata and respect filters")
+    void searchHitsShouldUseHotTier() {
+      TieredVectorStoreRepository store = tiered(new HotTierConfig(16, 1, 0.8, 0.05));
+      store.storeBatch(List.of(chunk("a", "disk.md", QUERY_A), chunk("b", "cpu.md", QUERY_B)));
+      store.search(QUERY_A, 1);
+
+      List<SearchHit> hits = store.searchHits(QUERY_A, 1, VectorSearchFilter.none());
+      List<SearchHit> filtered =
+          store.searchHits(QUERY_A, 1, VectorSearchFilter.none().withAnyTags(List.of("cpu")));
+
+      assertThat(hits).extracting(SearchHit::id).containsExactly("a");
+      assertThat(hits.get(0).runbookPath()).isEqualTo("disk.md");
+      assertThat(store.localSearchCount()).isEqualTo(1);
+      assertThat(filtered).extracting(SearchHit::id).containsExactly("b");
+      assertThat(remote.hitQueries).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("searchHits should search the remote store for hits and read vectors to promote")
+    void searchHitsShouldReadVectorsOnlyToPromote() {
+      TieredVectorStoreRepository store = tiered(new HotTierConfig(16, 2, 0.8, 0.05));
+      store.storeBatch(List.of(chunk("a", "disk.md", QUERY_A), chunk("b", "cpu.md", QUERY_B)));
+
+      store.searchHits(QUERY_A, 1, VectorSearchFilter.none());
+      assertThat(remote.hitQueries).isEqualTo(1);
+      assertThat(remote.queries).isZero();
+
+      // The second retrieval reaches the threshold; one full search reads a's vector
+      store.searchHits(QUERY_A, 1, VectorSearchFilter.none());
+      assertThat(remote.hitQueries).isEqualTo(2);
+      assertThat(remote.queries).isEqualTo(1);
+      assertThat(store.hotSize()).isEqualTo(1);
+
+      List<SearchHit> hits = store.searchHits(QUERY_A, 1, VectorSearchFilter.none());
+      assertThat(hits).extracting(SearchHit::id).containsExactly("a");
+      assertThat(store.localSearchCount()).isEqualTo(1);
+    }
+  }
+
+  @Nested
+  @DisplayName("write-through and invalidation")
+  class InvalidationTests {
+
+    @Test
+    @DisplayName("re-storing a hot chunk should write through and drop the hot copy")
+    void storeShouldInvalidateHotChunk() {
+      TieredVectorStoreRepository store = tiered(new HotTierConfig(16, 1, 0.8, 0.05));
+      store.store(chunk("a", "disk.md", QUERY_A));
+      store.search(QUERY_A, 1);
+      assertThat(store.hotSize()).isEqualTo(1);
+
+      store.store(chunk("a", "disk.md", QUERY_B));
+
+      assertThat(store.hotSize()).isZero();
+      assertThat(remote.findById("a").orElseThrow().embedding()).containsExactly(QUERY_B);
+      assertThat(store.search(QUERY_B, 1).get(0).similarityScore()).isCloseTo(1.0, within(1e-6));
+      assertThat(store.localSearchCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("delete should write through and drop the runbook's hot chunks")
+    void deleteShouldInvalidateRunbook() {
+      TieredVectorStoreRepository store = tiered(new HotTierConfig(16, 1, 0.8, 0.05));
+      store.storeBatch(List.of(chunk("a", "disk.md", QUERY_A), chunk("b", "cpu.md", QUERY_B)));
+      store.searchBatch(List.of(QUERY_A, QUERY_B), 1);
+      assertThat(store.hotSize()).isEqualTo(2);
+
+      store.delete("disk.md");
+
+      assertThat(store.hotSize()).isEqualTo(1);
+      assertThat(remote.findById("a")).isEmpty();
+      assertThat(store.search(QUERY_A, 1)).extracting(r -> r.chunk().id()).containsExactly("b");
+    }
+
+    @Test
+    @DisplayName("replaceRunbooks should swap in the remote store and drop hot chunks")
+    void replaceShouldInvalidateRunbooks() {
+      TieredVectorStoreRepository store = tiered(new HotTierConfig(16, 1, 0.8, 0.05));
+      store.storeBatch(List.of(chunk("a", "disk.md", QUERY_A), chunk("b", "cpu.md", QUERY_B)));
+      store.searchBatch(List.of(QUERY_A, QUERY_B), 1);
+      assertThat(store.hotSize()).isEqualTo(2);
+
+      store.replaceRunbooks(List.of("disk.md"), List.of(chunk("c", "disk.md", QUERY_A)));
+
+      assertThat(store.hotSize()).isEqualTo(1);
+      assertThat(remote.findById("a")).isEmpty();
+      assertThat(store.search(QUERY_A, 1)).extracting(r -> r.chunk().id()).containsExactly("c");
+    }
+
+    @Test
+    @DisplayName("a search overlapping a write should not promote what it read")
+    void searchOverlappingWriteShouldNotPromote() {
+      TieredVectorStoreRepository store = tiered(new HotTierConfig(16, 1, 0.8, 0.05));
+      store.store(chunk("a", "disk.md", QUERY_A));
+      remote.duringSearch = () -> store.store(chunk("b", "cpu.md", QUERY_B));
+
+      store.search(QUERY_A, 1);
+
+      assertThat(store.hotSize()).isZero();
+    }
+  }
+
+  @Test
+  @DisplayName("stats should report the remote contents plus hot tier bytes and every search")
+  void statsShouldCombineTiers() {
+    TieredVectorStoreRepository store = tiered(new HotTierConfig(16, 1, 0.8, 0.05));
+    store.storeBatch(List.of(chunk("a", "disk.md", QUERY_A), chunk("b", "cpu.md", QUERY_B)));
+    store.search(QUERY_A, 1);
+    store.search(QUERY_A, 1);
+
+    VectorStoreStats stats = store.stats();
+    VectorStoreStats remoteStats = remote.stats();
+
+    assertThat(stats.chunkCount()).isEqualTo(2);
+    assertThat(stats.chunksPerRunbook()).isEqualTo(remoteStats.chunksPerRunbook());
+    assertThat(stats.contentBytes())
+        .isEqualTo(remoteStats.contentBytes() + "content a".length());
+    assertThat(stats.vectorBytes()).isGreaterThan(remoteStats.vectorBytes());
+    assertThat(stats.searchCount()).isEqualTo(2);
+    assertThat(remoteStats.searchCount()).isEqualTo(1);
+  }
+
+  private TieredVectorStoreRepository tiered(HotTierConfig config) {
+    return new TieredVectorStoreRepository(remote, config);
+  }
+
+  private static RunbookChunk chunk(String id, String runbookPath, float[] embedding) {
+    return new RunbookChunk(
+        id,
+        runbookPath,
+        "Section",
+        "content " + id,
+        List.of(runbookPath.replace(".md", "")),
+        List.of(),
+        embedding);
+  }
+
+  /** Remote stand-in that counts the queries it is asked to answer. */
+  private static final class CountingStore extends InMemoryVectorStoreRepository {
+
+    int queries;
+    int hitQueries;
+    Runnable duringSearch;
+
+    CountingStore(LocalVectorStoreConfig config) {
+      super(config);
+    }
+
+    @Override
+    public List<List<ScoredChunk>> searchBatch(
+        List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+      queries += queryEmbeddings.size();
+      if (duringSearch != null) {
+        Runnable hook = duringSearch;
+        duringSearch = null;
+        hook.run();
+      }
+      return super.searchBatch(queryEmbeddings, topK, filter);
+    }
+
+    @Override
+    public List<List<SearchHit>> searchHitsBatch(
+        List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+      hitQueries += queryEmbeddings.size();
+      return super.searchHitsBatch(queryEmbeddings, topK, filter);
+    }
+  }
+}
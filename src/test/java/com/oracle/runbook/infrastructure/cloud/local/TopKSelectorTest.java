@@ -0,0 +1,84 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link TopKSelector}. */
+class TopKSelectorTest {
+
+  @Test
+  @DisplayName("should keep only the K highest scores in descending order")
+  void shouldKeepHighestScoresInDescendingOrder() {
+    TopKSelector selector = new TopKSelector(3);
+    float[] scores = {0.1f, 0.9f, 0.5f, 0.3f, 0.7f, 0.2f};
+    for (int row = 0; row < scores.length; row++) {
+      selector.offer(row, scores[row]);
+    }
+
+    selector.sortDescending();
+
+    assertThat(selector.size()).isEqualTo(3);
+    assertThat(new int[] {selector.row(0), selector.row(1), selector.row(2)})
+        .containsExactly(1, 4, 2);
+    assertThat(selector.score(0)).isEqualTo(0.9f);
+    assertThat(selector.score(2)).isEqualTo(0.5f);
+  }
+
+  @Test
+  @DisplayName("should report threshold only once full")
+  void shouldReportThresholdOnceFull() {
+    TopKSelector selector = new TopKSelector(2);
+    selector.offer(0, 0.4f);
+
+    assertThat(selector.threshold()).isEqualTo(Float.NEGATIVE_INFINITY);
+
+    selector.offer(1, 0.6f);
+    selector.offer(2, 0.5f);
+
+    assertThat(selector.threshold()).isEqualTo(0.5f);
+  }
+
+  @Test
+  @DisplayName("should retain fewer than K entries when fewer are offered")
+  void shouldRetainFewerThanK() {
+    TopKSelector selector = new TopKSelector(10);
+    selector.offer(7, 0.2f);
+    selector.offer(3, 0.8f);
+
+    selector.sortDescending();
+
+    assertThat(selector.size()).isEqualTo(2);
+    assertThat(selector.row(0)).isEqualTo(3);
+    assertThat(selector.row(1)).isEqualTo(7);
+  }
+
+  @Test
+  @DisplayName("offerAll() should merge partial selectors into the overall top K")
+  void offerAllShouldMergeSelectors() {
+    TopKSelector lower = new TopKSelector(2);
+    lower.offer(0, 0.9f);
+    lower.offer(1, 0.1f);
+    TopKSelector upper = new TopKSelector(2);
+    upper.offer(2, 0.5f);
+    upper.offer(3, 0.7f);
+
+    TopKSelector merged = new TopKSelector(2);
+    merged.offerAll(lower);
+    merged.offerAll(upper);
+    merged.sortDescending();
+
+    assertThat(new int[] {merged.row(0), merged.row(1)}).containsExactly(0, 3);
+    assertThat(upper.size()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("should reject non-positive K")
+  void shouldRejectNonPositiveK() {
+    assertThatThrownBy(() -> new TopKSelector(0))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("k");
+  }
+}
@@ -0,0 +1,279 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.rag.ScoredChunk;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link VectorIndexStream}. */
+class VectorIndexStreamTest {
+
+  private static final int DIMENSION = 8;
+
+  @Nested
+  @DisplayName("round trip")
+  class RoundTripTests {
+
+    @Test
+    @DisplayName("should copy every chunk and embedding across frames")
+    void shouldCopyEveryChunk() throws IOException {
+      // More chunks than one frame holds
+      List<RunbookChunk> chunks = corpus(new Random(1), VectorIndexStream.FRAME_CHUNKS * 2 + 3);
+
+      List<RunbookChunk> read = new ArrayList<>();
+      long generation = VectorIndexStream.read(new ByteArrayInputStream(bytes(chunks)), read);
+
+      assertThat(generation).isEqualTo(VectorIndexStream.generationOf(chunks));
+      assertThat(read).hasSameSizeAs(chunks);
+      for (int i = 0; i < chunks.size(); i++) {
+        RunbookChunk expected = chunks.get(i);
+        RunbookChunk actual = read.get(i);
+        assertThat(actual.id()).isEqualTo(expected.id());
+        assertThat(actual.runbookPath()).isEqualTo(expected.runbookPath());
+        assertThat(actual.sectionTitle()).isEqualTo(expected.sectionTitle());
+        assertThat(actual.content()).isEqualTo(expected.content());
+        assertThat(actual.tags()).isEqualTo(expected.tags());
+        assertThat(actual.applicableShapes()).isEqualTo(expected.applicableShapes());
+        assertThat(actual.embedding()).containsExactly(expected.embedding());
+      }
+    }
+
+    @Test
+    @DisplayName("should load another kind of store with the same search results")
+    void shouldLoadAnotherStore() throws IOException {
+      Random random = new Random(2);
+      List<RunbookChunk> chunks = corpus(random, 300);
+      HnswVectorStoreRepository source = new HnswVectorStoreRepository(HnswConfig.defaults());
+      source.storeBatch(chunks);
+      InMemoryVectorStoreRepository ingested = new InMemoryVectorStoreRepository();
+      ingested.storeBatch(chunks);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      long generation = VectorIndexStream.export(source, out);
+      InMemoryVectorStoreRepository target = new InMemoryVectorStoreRepository();
+
+      VectorIndexStream.ImportSummary summary =
+          VectorIndexStream.importInto(new ByteArrayInputStream(out.toByteArray()), target);
+
+      assertThat(summary).isEqualTo(new VectorIndexStream.ImportSummary(generation, 300, 5));
+      float[] query = randomVector(random);
+      assertThat(ids(target.search(query, 10)))
+          .containsExactlyElementsOf(ids(ingested.search(query, 10)));
+    }
+
+    @Test
+    @DisplayName("should replace the runbooks the target store already holds")
+    void shouldReplaceExistingContents() throws IOException {
+      Random random = new Random(3);
+      InMemoryVectorStoreRepository target = new InMemoryVectorStoreRepository();
+      target.storeBatch(
+          List.of(chunk("stale", "retired.md", random), chunk("chunk-0", "runbook-0.md", random)));
+      List<RunbookChunk> chunks = corpus(random, 10);
+
+      VectorIndexStream.importInto(new ByteArrayInputStream(bytes(chunks)), target);
+
+      assertThat(target.stats().chunkCount()).isEqualTo(10);
+      assertThat(target.stats().chunksPerRunbook()).doesNotContainKey("retired.md");
+      assertThat(target.findById("stale")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should stream an in-memory store row by row with its generation id")
+    void shouldStreamInMemoryStore() throws IOException {
+      List<RunbookChunk> chunks = corpus(new Random(10), VectorIndexStream.FRAME_CHUNKS + 1);
+      InMemoryVectorStoreRepository source = new InMemoryVectorStoreRepository();
+      source.storeBatch(chunks);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+      long generation = VectorIndexStream.export(source, out);
+
+      List<RunbookChunk> read = new ArrayList<>();
+      assertThat(VectorIndexStream.read(new ByteArrayInputStream(out.toByteArray()), read))
+          .isEqualTo(generation)
+          .isEqualTo(VectorIndexStream.generationOf(source.exportChunks()));
+      assertThat(read).extracting(RunbookChunk::id).hasSize(chunks.size());
+    }
+
+    @Test
+    @DisplayName("should read a version 2 stream with its generation id in the header")
+    void shouldReadVersion2Stream() throws IOException {
+      List<RunbookChunk> chunks = corpus(new Random(11), 3);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeInt(VectorIndexStream.MAGIC);
+      out.writeInt(2);
+      out.writeLong(VectorIndexStream.generationOf(chunks));
+      out.writeInt(chunks.size());
+      out.writeInt(DIMENSION);
+      out.writeInt(chunks.size());
+      for (RunbookChunk chunk : chunks) {
+        for (float value : chunk.embedding()) {
+          out.writeFloat(value);
+        }
+        RunbookChunkCodec.writeMetadata(out, chunk);
+      }
+      out.writeInt(0);
+
+      List<RunbookChunk> read = new ArrayList<>();
+      VectorIndexStream.read(new ByteArrayInputStream(bytes.toByteArray()), read);
+
+      assertThat(read)
+          .extracting(RunbookChunk::id)
+          .containsExactly("chunk-0", "chunk-1", "chunk-2");
+    }
+
+    @Test
+    @DisplayName("should stream an empty index")
+    void shouldStreamEmptyIndex() throws IOException {
+      InMemoryVectorStoreRepository target = new InMemoryVectorStoreRepository();
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+      VectorIndexStream.export(new InMemoryVectorStoreRepository(), out);
+      VectorIndexStream.ImportSummary summary =
+          VectorIndexStream.importInto(new ByteArrayInputStream(out.toByteArray()), target);
+
+      assertThat(summary.chunkCount()).isZero();
+      assertThat(target.stats().chunkCount()).isZero();
+    }
+  }
+
+  @Test
+  @DisplayName("generation id should not depend on chunk order but on chunk contents")
+  void generationShouldIdentifyContents() {
+    List<RunbookChunk> chunks = corpus(new Random(4), 20);
+    List<RunbookChunk> shuffled = new ArrayList<>(chunks);
+    Collections.shuffle(shuffled, new Random(5));
+    List<RunbookChunk> edited = new ArrayList<>(chunks);
+    RunbookChunk first = chunks.get(0);
+    float[] embedding = first.embedding();
+    embedding[0] += 0.001f;
+    edited.set(
+        0,
+        new RunbookChunk(
+            first.id(),
+            first.runbookPath(),
+            first.sectionTitle(),
+            first.content(),
+            first.tags(),
+            first.applicableShapes(),
+            embedding));
+
+    long generation = VectorIndexStream.generationOf(chunks);
+
+    assertThat(VectorIndexStream.generationOf(shuffled)).isEqualTo(generation);
+    assertThat(VectorIndexStream.generationOf(edited)).isNotEqualTo(generation);
+  }
+
+  @Nested
+  @DisplayName("validation")
+  class ValidationTests {
+
+    @Test
+    @DisplayName("should reject a stream cut short without touching the store")
+    void shouldRejectTruncatedStream() {
+      byte[] stream = bytes(corpus(new Random(6), 40));
+      InMemoryVectorStoreRepository target = new InMemoryVectorStoreRepository();
+      target.store(chunk("kept", "kept.md", new Random(7)));
+
+      assertThatThrownBy(
+              () ->
+                  VectorIndexStream.importInto(
+                      new ByteArrayInputStream(Arrays.copyOf(stream, stream.length - 10)),
+                      target))
+          .isInstanceOf(IOException.class);
+      assertThat(target.findById("kept")).isPresent();
+    }
+
+    @Test
+    @DisplayName("should reject a stream whose chunks do not match its generation id")
+    void shouldRejectCorruptedStream() {
+      byte[] stream = bytes(corpus(new Random(8), 40));
+      // Flip a bit of the first embedding, right after the header and the frame length
+      stream[4 + 4 + 4 + 4] ^= 0x01;
+
+      assertThatThrownBy(
+              () -> VectorIndexStream.read(new ByteArrayInputStream(stream), new ArrayList<>()))
+          .isInstanceOf(IOException.class)
+          .hasMessageContaining("generation id");
+    }
+
+    @Test
+    @DisplayName("should reject data that is not a vector index stream")
+    void shouldRejectForeignData() {
+      assertThatThrownBy(
+              () ->
+                  VectorIndexStream.read(
+                      new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}),
+                      new ArrayList<>()))
+          .isInstanceOf(IOException.class)
+          .hasMessageContaining("Not a vector index stream");
+    }
+
+    @Test
+    @DisplayName("should refuse to write chunks of different dimensions")
+    void shouldRejectMixedDimensions() {
+      Random random = new Random(9);
+      List<RunbookChunk> chunks =
+          List.of(
+              chunk("a", "a.md", random),
+              new RunbookChunk("b", "b.md", "Section", "text", null, null, new float[] {1.0f}));
+
+      assertThatThrownBy(() -> VectorIndexStream.write(chunks, new ByteArrayOutputStream()))
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("Chunk b");
+    }
+  }
+
+  private static byte[] bytes(List<RunbookChunk> chunks) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      VectorIndexStream.write(chunks, out);
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+    return out.toByteArray();
+  }
+
+  private static List<RunbookChunk> corpus(Random random, int size) {
+    List<RunbookChunk> chunks = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      chunks.add(chunk("chunk-" + i, "runbook-" + (i % 5) + ".md", random));
+    }
+    return chunks;
+  }
+
+  private static RunbookChunk chunk(String id, String runbookPath, Random random) {
+    return new RunbookChunk(
+        id,
+        runbookPath,
+        "Section " + id,
+        "content of " + id,
+        List.of("linux", "disk"),
+        List.of("VM.*"),
+        randomVector(random));
+  }
+
+  private static float[] randomVector(Random random) {
+    float[] vector = new float[DIMENSION];
+    for (int i = 0; i < DIMENSION; i++) {
+      vector[i] = (float) random.nextGaussian();
+    }
+    return vector;
+  }
+
+  private static List<String> ids(List<ScoredChunk> results) {
+    return results.stream().map(result -> result.chunk().id()).toList();
+  }
+}
@@ -0,0 +1,144 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Unit tests for {@link VectorProjection}. */
+class VectorProjectionTest {
+
+  private static final SimilarityKernel KERNEL = ScalarSimilarityKernel.INSTANCE;
+
+  @TempDir Path tempDir;
+
+  @Test
+  @DisplayName("truncation should keep the normalized leading components")
+  void truncationShouldKeepLeadingComponents() {
+    VectorProjection truncation = VectorProjection.truncation(4, 2, KERNEL);
+
+    assertThat(truncation.project(new float[] {0.6f, 0.0f, 0.8f, 0.0f}))
+        .containsExactly(1.0f, 0.0f);
+    assertThat(truncation.project(new float[] {0.3f, 0.4f, 0.5f, 0.5f}))
+        .containsExactly(0.6f, 0.8f);
+    assertThat(truncation.heapBytes()).isZero();
+  }
+
+  @Test
+  @DisplayName("PCA should preserve dot products of vectors spanning few directions")
+  void pcaShouldPreserveDotProducts() {
+    int dimension = 48;
+    int count = 500;
+    float[] data = lowRankVectors(new Random(5), count, dimension, 6);
+
+    VectorProjection pca = VectorProjection.fitPca(data, count, dimension, 6, KERNEL);
+
+    assertThat(pca.method()).isEqualTo(ProjectionMethod.PCA);
+    assertThat(pca.targetDimension()).isEqualTo(6);
+    for (int i = 0; i < 40; i++) {
+      for (int j = 0; j < 40; j++) {
+        float exact = KERNEL.dot(data, i * dimension, data, j * dimension, dimension);
+        float[] a = project(pca, data, i, dimension);
+        float[] b = project(pca, data, j, dimension);
+        assertThat(KERNEL.dot(a, 0, b, 0, 6)).isCloseTo(exact, within(0.01f));
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("PCA should tolerate samples spanning fewer directions than it keeps")
+  void pcaShouldTolerateRankDeficientSamples() {
+    float[] data = lowRankVectors(new Random(6), 20, 16, 2);
+
+    VectorProjection pca = VectorProjection.fitPca(data, 20, 16, 8, KERNEL);
+
+    float[] projected = project(pca, data, 0, 16);
+    assertThat(KERNEL.dot(projected, 0, projected, 0, 8)).isCloseTo(1.0f, within(1e-4f));
+  }
+
+  @Test
+  @DisplayName("should sample evenly spaced rows")
+  void shouldSampleEvenlySpacedRows() {
+    FloatVectorMatrix matrix = new FloatVectorMatrix(1, KERNEL);
+    for (int i = 0; i < 3; i++) {
+      matrix.append(new float[] {i});
+    }
+
+    assertThat(VectorProjection.sample(matrix)).containsExactly(0.0f, 1.0f, 2.0f);
+  }
+
+  @Test
+  @DisplayName("should round-trip a fitted basis through a file")
+  void shouldRoundTripThroughFile() throws IOException {
+    float[] data = lowRankVectors(new Random(7), 100, 12, 3);
+    VectorProjection pca = VectorProjection.fitPca(data, 100, 12, 3, KERNEL);
+    Path path = tempDir.resolve("vectors.rbvs.pca");
+
+    pca.write(path);
+    VectorProjection read = VectorProjection.read(path, KERNEL);
+
+    assertThat(read.sourceDimension()).isEqualTo(12);
+    assertThat(read.targetDimension()).isEqualTo(3);
+    assertThat(project(read, data, 4, 12)).containsExactly(project(pca, data, 4, 12));
+    assertThatThrownBy(() -> VectorProjection.truncation(12, 3, KERNEL).write(path))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  @DisplayName("should reject a file that is not a projection")
+  void shouldRejectForeignFile() throws IOException {
+    Path path = tempDir.resolve("garbage.pca");
+    Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+
+    assertThatThrownBy(() -> VectorProjection.read(path, KERNEL))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("not a vector projection");
+  }
+
+  @Test
+  @DisplayName("should reject a target dimension not below the source dimension")
+  void shouldRejectNonReducingTarget() {
+    assertThatThrownBy(() -> VectorProjection.truncation(8, 8, KERNEL))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> VectorProjection.fitPca(new float[8], 1, 8, 8, KERNEL))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static float[] project(VectorProjection projection, float[] data, int row, int dim) {
+    float[] vector = new float[dim];
+    System.arraycopy(data, row * dim, vector, 0, dim);
+    return projection.project(vector);
+  }
+
+  /** Returns normalized vectors that are random combinations of a few random directions. */
+  private static float[] lowRankVectors(Random random, int count, int dimension, int rank) {
+    float[][] directions = new float[rank][dimension];
+    for (float[] direction : directions) {
+      for (int i = 0; i < dimension; i++) {
+        direction[i] = (float) random.nextGaussian();
+      }
+    }
+    float[] data = new float[count * dimension];
+    float[] vector = new float[dimension];
+    for (int n = 0; n < count; n++) {
+      Arrays.fill(vector, 0.0f);
+      for (float[] direction : directions) {
+        float weight = (float) random.nextGaussian();
+        for (int i = 0; i < dimension; i++) {
+          vector[i] += weight * direction[i];
+        }
+      }
+      FloatVectorMatrix.normalizeInPlace(vector);
+      System.arraycopy(vector, 0, data, n * dimension, dimension);
+    }
+    return data;
+  }
+}
@@ -0,0 +1,193 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Unit tests for {@link VectorSnapshotFile}. */
+class VectorSnapshotFileTest {
+
+  /** Size of an empty title section, which holds only its count. */
+  private static final int TITLE_COUNT_BYTES = Integer.BYTES;
+
+  @TempDir Path tempDir;
+
+  @Test
+  @DisplayName("should round-trip vectors, chunks and sequence through a mapped file")
+  void shouldRoundTrip() throws IOException {
+    Path file = tempDir.resolve("vectors.rbvs");
+    write(file);
+
+    VectorSnapshotFile snapshot = VectorSnapshotFile.open(file, SimilarityKernels.scalar());
+    float[] row = new float[3];
+    snapshot.vectors().read(1, row);
+
+    assertThat(snapshot.dimension()).isEqualTo(3);
+    assertThat(snapshot.sequence()).isEqualTo(42L);
+    assertThat(snapshot.chunks()).extracting(RunbookChunk::id).containsExactly("a", "b");
+    assertThat(snapshot.vectors().isMapped()).isTrue();
+    assertThat(row).containsExactly(0.0f, 1.0f, 0.0f);
+    snapshot.vectors().release();
+  }
+
+  @Test
+  @DisplayName("should keep 16-bit vectors at half the size and map them back as 16-bit rows")
+  void shouldRoundTripHalfPrecisionVectors() throws IOException {
+    Path file = tempDir.resolve("vectors.rbvs");
+    HalfPrecisionVectorStorage vectors =
+        new HalfPrecisionVectorStorage(VectorEncoding.BFLOAT16, 3, SimilarityKernels.scalar());
+    vectors.append(new float[] {0.6f, 0.8f, 0.0f});
+    vectors.append(new float[] {0.0f, 1.0f, 0.0f});
+    VectorSnapshotFile.write(
+        file,
+        vectors,
+        new RunbookChunk[] {chunk("a"), chunk("b")},
+        2,
+        0L,
+        VectorEncoding.BFLOAT16,
+        Map.of());
+
+    VectorSnapshotFile snapshot = VectorSnapshotFile.open(file, SimilarityKernels.scalar());
+    float[] expected = new float[3];
+    float[] row = new float[3];
+    vectors.read(0, expected);
+    snapshot.vectors().read(0, row);
+
+    assertThat(snapshot.encoding()).isEqualTo(VectorEncoding.BFLOAT16);
+    assertThat(snapshot.vectors().encoding()).isEqualTo(VectorEncoding.BFLOAT16);
+    assertThat(row).containsExactly(expected);
+    assertThat(snapshot.vectors().scorer(new float[] {0.0f, 1.0f, 0.0f}).score(1)).isEqualTo(1.0f);
+    assertThat(Files.size(file))
+        .isEqualTo(
+            VectorSnapshotFile.HEADER_BYTES
+                + 2 * 3 * Short.BYTES
+                + metadataBytes(file)
+                + TITLE_COUNT_BYTES);
+    snapshot.vectors().release();
+  }
+
+  @Test
+  @DisplayName("should round-trip title embeddings after the metadata")
+  void shouldRoundTripTitles() throws IOException {
+    Path file = tempDir.resolve("vectors.rbvs");
+    FloatVectorMatrix vectors = new FloatVectorMatrix(3, SimilarityKernels.scalar());
+    vectors.append(new float[] {1.0f, 0.0f, 0.0f});
+    VectorSnapshotFile.write(
+        file,
+        vectors,
+        new RunbookChunk[] {chunk("a")},
+        1,
+        0L,
+        VectorEncoding.FLOAT32,
+        Map.of("runbooks/a.md", new float[] {0.0f, 0.6f, 0.8f}));
+
+    VectorSnapshotFile snapshot = VectorSnapshotFile.open(file, SimilarityKernels.scalar());
+
+    assertThat(snapshot.titles()).containsOnlyKeys("runbooks/a.md");
+    assertThat(snapshot.titles().get("runbooks/a.md")).containsExactly(0.0f, 0.6f, 0.8f);
+    snapshot.vectors().release();
+  }
+
+  @Test
+  @DisplayName("should read version 3 snapshots without titles")
+  void shouldReadVersionThreeSnapshots() throws IOException {
+    Path file = tempDir.resolve("vectors.rbvs");
+    write(file);
+    downgrade(file, 3);
+
+    VectorSnapshotFile snapshot = VectorSnapshotFile.open(file, SimilarityKernels.scalar());
+
+    assertThat(snapshot.chunks()).extracting(RunbookChunk::id).containsExactly("a", "b");
+    assertThat(snapshot.titles()).isEmpty();
+    snapshot.vectors().release();
+  }
+
+  @Test
+  @DisplayName("should read version 1 snapshots as float32")
+  void shouldReadVersionOneSnapshots() throws IOException {
+    Path file = tempDir.resolve("vectors.rbvs");
+    write(file);
+    downgrade(file, 1);
+
+    VectorSnapshotFile snapshot = VectorSnapshotFile.open(file, SimilarityKernels.scalar());
+
+    assertThat(snapshot.encoding()).isEqualTo(VectorEncoding.FLOAT32);
+    assertThat(snapshot.vectors().scorer(new float[] {0.0f, 1.0f, 0.0f}).score(1)).isEqualTo(1.0f);
+    snapshot.vectors().release();
+  }
+
+  @Test
+  @DisplayName("should replace an existing snapshot without leaving a temporary file")
+  void shouldReplaceAtomically() throws IOException {
+    Path file = tempDir.resolve("vectors.rbvs");
+    Files.writeString(file, "stale");
+
+    write(file);
+
+    assertThat(Files.readAllBytes(file)).startsWith(new byte[] {'R', 'B', 'V', 'S'});
+    assertThat(tempDir.resolve("vectors.rbvs.tmp")).doesNotExist();
+  }
+
+  @Test
+  @DisplayName("should reject unsupported versions and truncated files")
+  void shouldRejectInvalidFiles() throws IOException {
+    Path file = tempDir.resolve("vectors.rbvs");
+    write(file);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(4).putInt(0, 99), 4);
+    }
+    assertThatThrownBy(() -> VectorSnapshotFile.open(file, SimilarityKernels.scalar()))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("version 99");
+
+    write(file);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(Files.size(file) - 1);
+    }
+    assertThatThrownBy(() -> VectorSnapshotFile.open(file, SimilarityKernels.scalar()))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("inconsistent header");
+  }
+
+  private static void write(Path file) throws IOException {
+    FloatVectorMatrix vectors = new FloatVectorMatrix(3, SimilarityKernels.scalar());
+    vectors.append(new float[] {1.0f, 0.0f, 0.0f});
+    vectors.append(new float[] {0.0f, 1.0f, 0.0f});
+    RunbookChunk[] chunks = {chunk("a"), chunk("b")};
+    VectorSnapshotFile.write(file, vectors, chunks, 2, 42L);
+  }
+
+  /** Rewrites a snapshot without titles as an older version, which ends after the metadata. */
+  private static void downgrade(Path file, int version) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(4).putInt(0, version), 4);
+      channel.write(ByteBuffer.allocate(Long.BYTES), 52);
+      channel.truncate(channel.size() - TITLE_COUNT_BYTES);
+    }
+  }
+
+  private static long metadataBytes(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer length = ByteBuffer.allocate(Long.BYTES);
+      channel.read(length, 32);
+      return length.getLong(0);
+    }
+  }
+
+  private static RunbookChunk chunk(String id) {
+    return new RunbookChunk(
+        id, "runbooks/" + id + ".md", "Section", "content", List.of(), List.of(), null);
+  }
+}
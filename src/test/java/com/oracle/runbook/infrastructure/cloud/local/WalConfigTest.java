@@ -0,0 +1,60 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link WalConfig} and {@link FsyncPolicy}. */
+class WalConfigTest {
+
+  private static final Path DIRECTORY = Path.of("data");
+
+  @Test
+  @DisplayName("defaults() should fsync every mutation and checkpoint at 64 MiB")
+  void defaultsShouldFsyncAlways() {
+    WalConfig config = WalConfig.defaults(DIRECTORY);
+
+    assertThat(config.directory()).isEqualTo(DIRECTORY);
+    assertThat(config.fsyncPolicy()).isEqualTo(FsyncPolicy.ALWAYS);
+    assertThat(config.fsyncInterval()).isEqualTo(WalConfig.DEFAULT_FSYNC_INTERVAL);
+    assertThat(config.checkpointBytes()).isEqualTo(64L * 1024 * 1024);
+    assertThat(config.checkpointInterval()).isEqualTo(WalConfig.DEFAULT_CHECKPOINT_INTERVAL);
+  }
+
+  @Test
+  @DisplayName("should reject invalid parameters")
+  void shouldRejectInvalidParameters() {
+    Duration second = Duration.ofSeconds(1);
+    assertThatThrownBy(() -> new WalConfig(null, FsyncPolicy.ALWAYS, second, 1, second))
+        .isInstanceOf(NullPointerException.class)
+        .hasMessageContaining("directory");
+    assertThatThrownBy(() -> new WalConfig(DIRECTORY, null, second, 1, second))
+        .isInstanceOf(NullPointerException.class)
+        .hasMessageContaining("fsyncPolicy");
+    assertThatThrownBy(
+            () -> new WalConfig(DIRECTORY, FsyncPolicy.INTERVAL, Duration.ZERO, 1, second))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("fsyncInterval");
+    assertThatThrownBy(() -> new WalConfig(DIRECTORY, FsyncPolicy.ALWAYS, second, 0, second))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("checkpointBytes");
+    assertThatThrownBy(
+            () -> new WalConfig(DIRECTORY, FsyncPolicy.ALWAYS, second, 1, Duration.ofSeconds(-1)))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("checkpointInterval");
+  }
+
+  @Test
+  @DisplayName("FsyncPolicy.fromString should parse case-insensitively")
+  void fromStringShouldParseCaseInsensitively() {
+    assertThat(FsyncPolicy.fromString("interval")).isEqualTo(FsyncPolicy.INTERVAL);
+    assertThat(FsyncPolicy.fromString("Never")).isEqualTo(FsyncPolicy.NEVER);
+    assertThatThrownBy(() -> FsyncPolicy.fromString("sometimes"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("sometimes");
+  }
+}
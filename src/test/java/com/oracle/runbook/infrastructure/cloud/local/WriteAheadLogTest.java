@@ -0,0 +1,166 @@
+package com.oracle.runbook.infrastructure.cloud.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Unit tests for {@link WriteAheadLog}. */
+class WriteAheadLogTest {
+
+  @TempDir Path tempDir;
+
+  private final List<String> replayed = new ArrayList<>();
+
+  private final WriteAheadLog.Replayer recorder =
+      new WriteAheadLog.Replayer() {
+        @Override
+        public void store(List<RunbookChunk> chunks) {
+          for (RunbookChunk chunk : chunks) {
+            replayed.add("store " + chunk.id() + " " + chunk.embedding().length);
+          }
+        }
+
+        @Override
+        public void delete(String runbookPath) {
+          replayed.add("delete " + runbookPath);
+        }
+
+        @Override
+        public void replace(List<String> runbookPaths, List<RunbookChunk> chunks) {
+          replayed.add("replace " + runbookPaths + " with " + chunks.size());
+        }
+
+        @Override
+        public void titles(Map<String, float[]> titleEmbeddings) {
+          titleEmbeddings.forEach(
+              (runbookPath, title) ->
+                  replayed.add("title " + runbookPath + " " + Arrays.toString(title)));
+        }
+      };
+
+  @Test
+  @DisplayName("should replay committed records in order")
+  void shouldReplayInOrder() throws IOException {
+    Path file = tempDir.resolve("vectors.wal");
+    try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.ALWAYS, 0L, recorder)) {
+      log.commit(log.appendStore(List.of(chunk("a"), chunk("b"))));
+      log.commit(log.appendDelete("runbooks/a.md"));
+      log.commit(log.appendReplace(List.of("runbooks/b.md", "runbooks/c.md"), List.of(chunk("c"))));
+      assertThat(log.lastSequence()).isEqualTo(3L);
+    }
+
+    try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.ALWAYS, 0L, recorder)) {
+      assertThat(log.replayedRecords()).isEqualTo(3);
+      assertThat(log.lastSequence()).isEqualTo(3L);
+    }
+    assertThat(replayed)
+        .containsExactly(
+            "store a 2",
+            "store b 2",
+            "delete runbooks/a.md",
+            "replace [runbooks/b.md, runbooks/c.md] with 1");
+  }
+
+  @Test
+  @DisplayName("should replay logged title embeddings")
+  void shouldReplayTitles() throws IOException {
+    Path file = tempDir.resolve("vectors.wal");
+    try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.ALWAYS, 0L, recorder)) {
+      log.commit(log.appendTitles(Map.of("runbooks/a.md", new float[] {0.6f, 0.8f})));
+    }
+
+    try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.ALWAYS, 0L, recorder)) {
+      assertThat(log.replayedRecords()).isEqualTo(1);
+    }
+    assertThat(replayed).containsExactly("title runbooks/a.md [0.6, 0.8]");
+  }
+
+  @Test
+  @DisplayName("should skip records already covered by a snapshot")
+  void shouldSkipRecordsCoveredBySnapshot() throws IOException {
+    Path file = tempDir.resolve("vectors.wal");
+    try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.NEVER, 0L, recorder)) {
+      log.commit(log.appendStore(List.of(chunk("a"))));
+      log.commit(log.appendStore(List.of(chunk("b"))));
+    }
+
+    try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.NEVER, 1L, recorder)) {
+      assertThat(log.replayedRecords()).isEqualTo(1);
+    }
+    assertThat(replayed).containsExactly("store b 2");
+  }
+
+  @Test
+  @DisplayName("should truncate a torn tail and keep appending after it")
+  void shouldTruncateTornTail() throws IOException {
+    Path file = tempDir.resolve("vectors.wal");
+    try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.ALWAYS, 0L, recorder)) {
+      log.commit(log.appendStore(List.of(chunk("a"))));
+    }
+    long intactSize = Files.size(file);
+    try (FileChannel channel =
+        FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+      channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 40, 1, 2, 3}));
+    }
+
+    try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.ALWAYS, 0L, recorder)) {
+      assertThat(Files.size(file)).isEqualTo(intactSize);
+      log.commit(log.appendStore(List.of(chunk("b"))));
+    }
+    replayed.clear();
+
+    try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.ALWAYS, 0L, recorder)) {
+      assertThat(log.replayedRecords()).isEqualTo(2);
+    }
+    assertThat(replayed).containsExactly("store a 2", "store b 2");
+  }
+
+  @Test
+  @DisplayName("truncate should drop records but keep sequence numbers increasing")
+  void truncateShouldKeepSequence() throws IOException {
+    Path file = tempDir.resolve("vectors.wal");
+    try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.ALWAYS, 0L, recorder)) {
+      log.commit(log.appendStore(List.of(chunk("a"))));
+      log.truncate();
+
+      assertThat(log.sizeBytes()).isEqualTo(WriteAheadLog.HEADER_BYTES);
+      assertThat(log.appendDelete("x.md")).isEqualTo(2L);
+    }
+  }
+
+  @Test
+  @DisplayName("should reject a second writer and files that are not logs")
+  void shouldRejectSecondWriterAndForeignFiles() throws IOException {
+    Path file = tempDir.resolve("vectors.wal");
+    try (WriteAheadLog log = WriteAheadLog.open(file, FsyncPolicy.ALWAYS, 0L, recorder)) {
+      assertThatThrownBy(() -> WriteAheadLog.open(file, FsyncPolicy.ALWAYS, 0L, recorder))
+          .isInstanceOf(IOException.class)
+          .hasMessageContaining("already in use");
+    }
+
+    Path foreign = tempDir.resolve("foreign.wal");
+    Files.write(foreign, new byte[16]);
+    assertThatThrownBy(() -> WriteAheadLog.open(foreign, FsyncPolicy.ALWAYS, 0L, recorder))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("not a vector store write-ahead log");
+  }
+
+  private static RunbookChunk chunk(String id) {
+    return new RunbookChunk(
+        id, "runbooks/" + id + ".md", "Section", "content", List.of(), List.of(), new float[2]);
+  }
+}
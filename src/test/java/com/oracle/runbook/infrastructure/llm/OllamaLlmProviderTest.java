@@ -59,6 +59,12 @@ class OllamaLlmProviderTest {
     void providerIdShouldReturnOllama() {
       assertThat(provider.providerId()).as("providerId() must return 'ollama'").isEqualTo("ollama");
     }
+
+    @Test
+    @DisplayName("embeddingModelId() should name the configured embedding model")
+    void embeddingModelIdShouldNameEmbeddingModel() {
+      assertThat(provider.embeddingModelId()).isEqualTo("ollama/nomic-embed-text");
+    }
   }
 
   @Nested
@@ -0,0 +1,145 @@
+package com.oracle.runbook.rag;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.oracle.runbook.rag.ChunkDeduplicator.DuplicateGroup;
+import com.oracle.runbook.rag.ChunkDeduplicator.SourcedChunk;
+import java.util.List;
+import java.util.Locale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link ChunkDeduplicator}. */
+class ChunkDeduplicatorTest {
+
+  private static final String DISK =
+      "Check disk usage with df -h and identify the filesystem that is above 90 percent. Use du"
+          + " -sh on the largest directories to find what is consuming space, then rotate or"
+          + " delete old log files under /var/log.";
+
+  private static final String INODES =
+      "Check inode usage with df -i and identify the filesystem that is above 90 percent. Use"
+          + " find to locate directories with many small files, then delete old temporary files"
+          + " under /tmp.";
+
+  private final ChunkDeduplicator deduplicator = new ChunkDeduplicator();
+
+  @Nested
+  @DisplayName("collapse()")
+  class CollapseTests {
+
+    @Test
+    @DisplayName("should collapse copies that differ only in case, whitespace and punctuation")
+    void shouldCollapseReformattedCopies() {
+      String reformatted =
+          "  CHECK disk usage with `df -h` and identify the filesystem that is above 90"
+              + " percent!\n\nUse du -sh on the largest directories to find what is consuming"
+              + " space, then rotate or delete old log files under /var/log.";
+
+      List<DuplicateGroup> groups =
+          deduplicator.collapse(
+              List.of(sourced("disk.md", "Disk", DISK), sourced("agent.md", "Disk", reformatted)));
+
+      assertThat(groups).hasSize(1);
+      assertThat(groups.get(0).chunk().content()).isEqualTo(DISK);
+      assertThat(groups.get(0).runbookPaths()).containsExactly("disk.md", "agent.md");
+      assertThat(groups.get(0).primaryRunbookPath()).isEqualTo("disk.md");
+      assertThat(groups.get(0).size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should collapse a copy with a word changed but keep distinct procedures apart")
+    void shouldCollapseNearDuplicatesOnly() {
+      List<DuplicateGroup> groups =
+          deduplicator.collapse(
+              List.of(
+                  sourced("disk.md", "Disk", DISK),
+                  sourced("inodes.md", "Inodes", INODES),
+                  sourced("agent.md", "Disk", DISK.replace("largest", "biggest"))));
+
+      assertThat(groups).hasSize(2);
+      assertThat(groups.get(0).runbookPaths()).containsExactly("disk.md", "agent.md");
+      assertThat(groups.get(1).runbookPaths()).containsExactly("inodes.md");
+    }
+
+    @Test
+    @DisplayName("should collapse duplicates within one runbook and list the runbook once")
+    void shouldCollapseWithinRunbook() {
+      List<DuplicateGroup> groups =
+          deduplicator.collapse(
+              List.of(sourced("disk.md", "Step 1", DISK), sourced("disk.md", "Step 4", DISK)));
+
+      assertThat(groups).hasSize(1);
+      assertThat(groups.get(0).chunk().sectionTitle()).isEqualTo("Step 1");
+      assertThat(groups.get(0).runbookPaths()).containsExactly("disk.md");
+      assertThat(groups.get(0).size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should merge tags and shapes, keeping a chunk that applies to every shape")
+    void shouldMergeTagsAndShapes() {
+      List<DuplicateGroup> shaped =
+          deduplicator.collapse(
+              List.of(
+                  sourced("vm.md", DISK, List.of("disk"), List.of("VM.*")),
+                  sourced("bm.md", DISK, List.of("disk", "storage"), List.of("BM.*"))));
+      List<DuplicateGroup> universal =
+          deduplicator.collapse(
+              List.of(
+                  sourced("vm.md", DISK, List.of(), List.of("VM.*")),
+                  sourced("any.md", "Disk", DISK)));
+
+      assertThat(shaped.get(0).chunk().tags()).containsExactly("disk", "storage");
+      assertThat(shaped.get(0).chunk().applicableShapes()).containsExactly("VM.*", "BM.*");
+      assertThat(universal.get(0).chunk().applicableShapes()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("a zero distance should collapse only identical fingerprints")
+    void zeroDistanceShouldRequireIdenticalFingerprints() {
+      ChunkDeduplicator exact = new ChunkDeduplicator(0);
+
+      List<DuplicateGroup> groups =
+          exact.collapse(
+              List.of(
+                  sourced("disk.md", "Disk", DISK),
+                  sourced("copy.md", "Disk", DISK.toUpperCase(Locale.ROOT)),
+                  sourced("edited.md", "Disk", DISK.replace("largest", "biggest"))));
+
+      assertThat(groups).extracting(DuplicateGroup::size).containsExactly(2, 1);
+    }
+  }
+
+  @Test
+  @DisplayName("fingerprint should be stable and zero for text without words")
+  void fingerprintShouldBeStable() {
+    assertThat(ChunkDeduplicator.fingerprint(DISK)).isEqualTo(ChunkDeduplicator.fingerprint(DISK));
+    assertThat(ChunkDeduplicator.fingerprint(DISK))
+        .isNotEqualTo(ChunkDeduplicator.fingerprint(INODES));
+    assertThat(ChunkDeduplicator.fingerprint("--- ... ---")).isZero();
+  }
+
+  @Test
+  @DisplayName("should reject a distance outside 0 to 15")
+  void shouldRejectInvalidDistance() {
+    assertThatThrownBy(() -> new ChunkDeduplicator(-1))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("maxDistance");
+    assertThatThrownBy(() -> new ChunkDeduplicator(ChunkDeduplicator.MAX_DISTANCE + 1))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("maxDistance");
+  }
+
+  private static SourcedChunk sourced(String runbookPath, String title, String content) {
+    return new SourcedChunk(
+        runbookPath, new RunbookChunker.ParsedChunk(title, content, List.of(), List.of()));
+  }
+
+  private static SourcedChunk sourced(
+      String runbookPath, String content, List<String> tags, List<String> shapes) {
+    return new SourcedChunk(
+        runbookPath, new RunbookChunker.ParsedChunk("Disk", content, tags, shapes));
+  }
+}
@@ -4,8 +4,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.oracle.runbook.domain.GenerationConfig;
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -163,6 +165,45 @@ class DefaultEmbeddingServiceTest {
     assertThat(capturedText.get()).contains("web-server-01");
   }
 
+  @Test
+  @DisplayName("embedContext with a query cache calls the provider once per distinct text")
+  void embedContext_withQueryCache_reusesEmbedding() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    LlmProvider stubProvider =
+        new StubLlmProvider() {
+          @Override
+          public CompletableFuture<float[]> generateEmbedding(String text) {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(new float[] {0.7f, 0.8f});
+          }
+        };
+    QueryEmbeddingCache cache = new QueryEmbeddingCache(16, Duration.ofMinutes(1));
+    DefaultEmbeddingService embeddingService =
+        new DefaultEmbeddingService(stubProvider, cache, "test-stub/model");
+    com.oracle.runbook.domain.Alert alert =
+        new com.oracle.runbook.domain.Alert(
+            "alert-123",
+            "High CPU",
+            "CPU is at 99%",
+            com.oracle.runbook.domain.AlertSeverity.CRITICAL,
+            "oci-monitoring",
+            java.util.Map.of(),
+            java.util.Map.of(),
+            java.time.Instant.now(),
+            "{}");
+    com.oracle.runbook.domain.EnrichedContext context =
+        new com.oracle.runbook.domain.EnrichedContext(
+            alert, null, List.of(), List.of(), java.util.Map.of());
+
+    float[] first = embeddingService.embedContext(context).get();
+    float[] second = embeddingService.embedContext(context).get();
+
+    assertThat(second).containsExactly(first);
+    assertThat(calls.get()).isEqualTo(1);
+    assertThat(cache.stats().hits()).isEqualTo(1);
+    assertThat(cache.stats().misses()).isEqualTo(1);
+  }
+
   @Test
   @DisplayName("constructor throws NullPointerException for null provider")
   void constructor_withNullProvider_throwsNullPointerException() {
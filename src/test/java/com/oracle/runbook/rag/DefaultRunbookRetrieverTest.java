@@ -1,9 +1,14 @@
 package com.oracle.runbook.rag;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
 
 import com.oracle.runbook.domain.*;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
 import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
@@ -79,6 +84,29 @@ class DefaultRunbookRetrieverTest {
     assertThat(results.get(0).chunk().id()).isEqualTo("c1");
   }
 
+  @Test
+  @DisplayName("retrieve boosts each tag matching an alert key or title word, up to the cap")
+  void retrieve_tagBoostSemantics() {
+    EnrichedContext context = createTestContext("High MEMORY usage", "Memory issue", "VM.2");
+    // "resourceId" is a dimension key and "app" a label key; "memory" appears in the title
+    RunbookChunk fourTags =
+        createTestChunk(
+            "c1", "fix", List.of("resourceId", "app", "memory", "usage"), List.of("vm.*"));
+    RunbookChunk oneTag = createTestChunk("c2", "fix", List.of("Memory", "network"), List.of());
+    RunbookChunk noTag = createTestChunk("c3", "fix", List.of("network", "web"), List.of());
+    vectorStore.setSearchResults(
+        List.of(
+            new ScoredChunk(fourTags, 0.5),
+            new ScoredChunk(oneTag, 0.5),
+            new ScoredChunk(noTag, 0.5)));
+
+    List<RetrievedChunk> results = retriever.retrieve(context, 3);
+
+    assertThat(results)
+        .extracting(r -> r.chunk().id(), RetrievedChunk::metadataBoost)
+        .containsExactly(tuple("c1", 0.3 + 0.2), tuple("c2", 0.1), tuple("c3", 0.0));
+  }
+
   @Test
   @DisplayName("retrieve applies metadata boost for matching shape patterns")
   void retrieve_appliesShapeBoost() {
@@ -102,6 +130,169 @@ class DefaultRunbookRetrieverTest {
     assertThat(results.get(0).chunk().id()).isEqualTo("c1");
   }
 
+  @Test
+  @DisplayName("retrieve does not filter by shape by default")
+  void retrieve_withoutShapeFiltering_searchesUnfiltered() {
+    EnrichedContext context = createTestContext("Compute slow", "CPU spike", "VM.Standard2.1");
+
+    retriever.retrieve(context, 2);
+
+    assertThat(vectorStore.lastFilter).isEqualTo(VectorSearchFilter.none());
+  }
+
+  @Test
+  @DisplayName("retrieve restricts the search to the resource shape when enabled")
+  void retrieve_withShapeFiltering_excludesOtherShapes() {
+    retriever = new DefaultRunbookRetriever(embeddingService, vectorStore, true);
+    EnrichedContext context = createTestContext("Compute slow", "CPU spike", "VM.Standard2.1");
+
+    RunbookChunk vmChunk = createTestChunk("c1", "VM fix", List.of(), List.of("VM.*"));
+    RunbookChunk bmChunk = createTestChunk("c2", "BM fix", List.of(), List.of("BM.*"));
+    RunbookChunk anyChunk = createTestChunk("c3", "Generic fix", List.of(), List.of());
+    vectorStore.setSearchResults(
+        List.of(
+            new ScoredChunk(bmChunk, 0.9),
+            new ScoredChunk(vmChunk, 0.6),
+            new ScoredChunk(anyChunk, 0.5)));
+
+    List<RetrievedChunk> results = retriever.retrieve(context, 2);
+
+    assertThat(vectorStore.lastFilter.shape()).isEqualTo("VM.Standard2.1");
+    assertThat(results).extracting(r -> r.chunk().id()).containsExactly("c1", "c3");
+  }
+
+  @Test
+  @DisplayName("retrieve searches through batched searches when a batch window is set")
+  void retrieve_withBatchWindow_usesSearchBatch() {
+    retriever =
+        new DefaultRunbookRetriever(embeddingService, vectorStore, false, Duration.ofMillis(1));
+    EnrichedContext context = createTestContext("High Memory", "Memory issue", "VM.Standard2.1");
+    RunbookChunk chunk = createTestChunk("c1", "Check memory", List.of(), List.of());
+    vectorStore.setSearchResults(List.of(new ScoredChunk(chunk, 0.9)));
+
+    List<RetrievedChunk> results = retriever.retrieve(context, 1);
+
+    assertThat(results).extracting(r -> r.chunk().id()).containsExactly("c1");
+    assertThat(vectorStore.batchCalls).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("retrieve searches chunks only inside the best runbooks when a limit is set")
+  void retrieve_withRunbookLimit_searchesTopRunbooksOnly() {
+    retriever =
+        new DefaultRunbookRetriever(embeddingService, vectorStore, false, Duration.ZERO, 1);
+    EnrichedContext context = createTestContext("High Memory", "Memory issue", "VM.Standard2.1");
+    RunbookChunk memoryChunk =
+        new RunbookChunk(
+            "c1", "memory.md", "Title", "Check memory", List.of(), List.of(), new float[] {0.1f});
+    RunbookChunk cpuChunk =
+        new RunbookChunk(
+            "c2", "cpu.md", "Title", "Check CPU", List.of(), List.of(), new float[] {0.1f});
+    vectorStore.setSearchResults(
+        List.of(new ScoredChunk(cpuChunk, 0.9), new ScoredChunk(memoryChunk, 0.8)));
+    vectorStore.runbooks = List.of("memory.md");
+
+    List<RetrievedChunk> results = retriever.retrieve(context, 2);
+
+    assertThat(vectorStore.lastRunbookLimit).isEqualTo(1);
+    assertThat(vectorStore.lastFilter.runbookPaths()).containsExactly("memory.md");
+    assertThat(results).extracting(r -> r.chunk().id()).containsExactly("c1");
+  }
+
+  @Test
+  @DisplayName("retrieve returns nothing when no runbook ranks in the first stage")
+  void retrieve_withRunbookLimit_noRunbooks_returnsEmpty() {
+    retriever =
+        new DefaultRunbookRetriever(embeddingService, vectorStore, false, Duration.ZERO, 3);
+    EnrichedContext context = createTestContext("High Memory", "Memory issue", "VM.Standard2.1");
+    vectorStore.runbooks = List.of();
+
+    List<RetrievedChunk> results = retriever.retrieve(context, 2);
+
+    assertThat(results).isEmpty();
+    assertThat(vectorStore.lastFilter).isNull();
+  }
+
+  @Test
+  @DisplayName("retrieve promotes chunks that also match the alert keywords when hybrid")
+  void retrieve_withLexicalIndex_fusesKeywordMatches() {
+    LexicalIndex lexicalIndex = new LexicalIndex();
+    RunbookChunk oraChunk =
+        createTestChunk("ora", "Flush the shared pool on ORA-04031", List.of(), List.of());
+    RunbookChunk memoryChunk = createTestChunk("mem", "Check memory", List.of(), List.of());
+    RunbookChunk cpuChunk = createTestChunk("cpu", "Check CPU", List.of(), List.of());
+    lexicalIndex.load(List.of(oraChunk, memoryChunk, cpuChunk));
+    retriever =
+        new DefaultRunbookRetriever(
+            embeddingService, vectorStore, false, Duration.ZERO, 0, lexicalIndex);
+    EnrichedContext context =
+        createTestContext("Database error", "ORA-04031 unable to allocate", "VM.Standard2.1");
+    // The vector search ranks the chunk that names the error code last
+    vectorStore.setSearchResults(
+        List.of(
+            new ScoredChunk(cpuChunk, 0.9),
+            new ScoredChunk(memoryChunk, 0.8),
+            new ScoredChunk(oraChunk, 0.7)));
+
+    List<RetrievedChunk> results = retriever.retrieve(context, 2);
+
+    assertThat(results).extracting(r -> r.chunk().id()).containsExactly("ora", "cpu");
+  }
+
+  @Test
+  @DisplayName("retrieve scores a chunk ranked first by both lists as 1 when hybrid")
+  void retrieve_withLexicalIndex_scalesFusedScore() {
+    LexicalIndex lexicalIndex = new LexicalIndex();
+    RunbookChunk memoryChunk = createTestChunk("mem", "High memory fix", List.of(), List.of());
+    RunbookChunk cpuChunk = createTestChunk("cpu", "Check CPU", List.of(), List.of());
+    lexicalIndex.load(List.of(memoryChunk, cpuChunk));
+    retriever =
+        new DefaultRunbookRetriever(
+            embeddingService, vectorStore, false, Duration.ZERO, 0, lexicalIndex);
+    EnrichedContext context = createTestContext("High Memory", "Memory issue", "VM.Standard2.1");
+    vectorStore.setSearchResults(
+        List.of(new ScoredChunk(memoryChunk, 0.7), new ScoredChunk(cpuChunk, 0.6)));
+
+    List<RetrievedChunk> results = retriever.retrieve(context, 2);
+
+    assertThat(results).extracting(r -> r.chunk().id()).containsExactly("mem", "cpu");
+    assertThat(results.get(0).finalScore()).isCloseTo(1.0, within(1e-9));
+    assertThat(results.get(1).finalScore()).isLessThan(0.5);
+  }
+
+  @Test
+  @DisplayName("retrieve keeps the cosine similarity as the similarity score when hybrid")
+  void retrieve_withLexicalIndex_keepsCosineSimilarity() {
+    LexicalIndex lexicalIndex = new LexicalIndex();
+    RunbookChunk oraChunk =
+        createTestChunk("ora", "Flush the shared pool on ORA-04031", List.of(), List.of());
+    RunbookChunk cpuChunk = createTestChunk("cpu", "Check CPU", List.of(), List.of());
+    lexicalIndex.load(List.of(oraChunk, cpuChunk));
+    retriever =
+        new DefaultRunbookRetriever(
+            embeddingService, vectorStore, false, Duration.ZERO, 0, lexicalIndex);
+    EnrichedContext context =
+        createTestContext("Database error", "ORA-04031 unable to allocate", "VM.Standard2.1");
+    // Only the keyword index finds the chunk that names the error code
+    vectorStore.setSearchResults(List.of(new ScoredChunk(cpuChunk, 0.9)));
+
+    List<RetrievedChunk> results = retriever.retrieve(context, 2);
+
+    assertThat(results)
+        .extracting(r -> r.chunk().id(), RetrievedChunk::similarityScore)
+        .containsExactlyInAnyOrder(tuple("cpu", 0.9), tuple("ora", 0.0));
+  }
+
+  @Test
+  @DisplayName("constructor rejects a negative runbook limit")
+  void constructor_negativeRunbookLimit_throws() {
+    assertThatThrownBy(
+            () ->
+                new DefaultRunbookRetriever(
+                    embeddingService, vectorStore, false, Duration.ZERO, -1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
   private EnrichedContext createTestContext(String title, String message, String shape) {
     Alert alert =
         new Alert(
@@ -151,6 +342,10 @@ class DefaultRunbookRetrieverTest {
 
   private static class StubVectorStoreRepository implements VectorStoreRepository {
     List<ScoredChunk> results = List.of();
+    VectorSearchFilter lastFilter;
+    int batchCalls;
+    List<String> runbooks = List.of();
+    int lastRunbookLimit;
 
     void setSearchResults(List<ScoredChunk> r) {
       this.results = r;
@@ -174,5 +369,24 @@ class DefaultRunbookRetrieverTest {
     public List<ScoredChunk> search(float[] embedding, int topK) {
       return results;
     }
+
+    @Override
+    public List<ScoredChunk> search(float[] embedding, int topK, VectorSearchFilter filter) {
+      lastFilter = filter;
+      return results.stream().filter(r -> filter.matches(r.chunk())).limit(topK).toList();
+    }
+
+    @Override
+    public List<List<ScoredChunk>> searchBatch(
+        List<float[]> embeddings, int topK, VectorSearchFilter filter) {
+      batchCalls++;
+      return embeddings.stream().map(embedding -> search(embedding, topK, filter)).toList();
+    }
+
+    @Override
+    public List<String> searchRunbooks(float[] embedding, int limit, VectorSearchFilter filter) {
+      lastRunbookLimit = limit;
+      return runbooks;
+    }
   }
 }
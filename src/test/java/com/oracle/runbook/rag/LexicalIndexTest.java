@@ -0,0 +1,185 @@
+package com.oracle.runbook.rag;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link LexicalIndex}. */
+class LexicalIndexTest {
+
+  private LexicalIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new LexicalIndex();
+    index.replaceRunbooks(
+        List.of("database.md", "memory.md", "disk.md"),
+        List.of(
+            chunk(
+                "ora",
+                "database.md",
+                "Shared pool",
+                "ORA-04031 means the shared pool is exhausted; flush it or grow it.",
+                List.of("VM.*")),
+            chunk(
+                "pool",
+                "database.md",
+                "Connection pool",
+                "Check the connection pool size of the application server.",
+                List.of()),
+            chunk(
+                "oom",
+                "memory.md",
+                "Out of memory",
+                "Find the process using the most memory with top and restart it.",
+                List.of("BM.*")),
+            chunk(
+                "df",
+                "disk.md",
+                "Disk full",
+                "Run df -h to see which filesystem is full, then clean up old logs.",
+                List.of())));
+  }
+
+  @Nested
+  @DisplayName("tokenize")
+  class TokenizeTests {
+
+    @Test
+    @DisplayName("should lowercase runs of letters and digits")
+    void shouldSplitWords() {
+      assertThat(LexicalIndex.tokenize("Run df -h, then CPUUtilization!"))
+          .containsExactly("run", "df", "h", "then", "cpuutilization");
+    }
+
+    @Test
+    @DisplayName("should index joined words both as parts and as a whole")
+    void shouldKeepJoinedWords() {
+      assertThat(LexicalIndex.tokenize("ORA-04031 on VM.Standard2.1."))
+          .containsExactly(
+              "ora", "04031", "ora-04031", "on", "vm", "standard2", "1", "vm.standard2.1");
+    }
+  }
+
+  @Nested
+  @DisplayName("search")
+  class SearchTests {
+
+    @Test
+    @DisplayName("should rank the chunk containing an exact error code first")
+    void shouldFindExactCode() {
+      List<SearchHit> hits =
+          index.search("Alarm: ORA-04031 unable to allocate", 3, VectorSearchFilter.none());
+
+      assertThat(hits).first().satisfies(hit -> assertThat(hit.id()).isEqualTo("ora"));
+      assertThat(hits.get(0).similarityScore()).isPositive();
+    }
+
+    @Test
+    @DisplayName("should match section titles and CLI snippets")
+    void shouldMatchTitlesAndSnippets() {
+      assertThat(index.search("df -h", 1, VectorSearchFilter.none()))
+          .extracting(SearchHit::id)
+          .containsExactly("df");
+      assertThat(index.search("out of memory", 1, VectorSearchFilter.none()))
+          .extracting(SearchHit::id)
+          .containsExactly("oom");
+    }
+
+    @Test
+    @DisplayName("should score rarer terms higher")
+    void shouldWeighRareTerms() {
+      // "pool" appears in two chunks, "connection" in one
+      List<SearchHit> hits = index.search("connection pool", 2, VectorSearchFilter.none());
+
+      assertThat(hits).extracting(SearchHit::id).containsExactly("pool", "ora");
+      assertThat(hits.get(0).similarityScore()).isGreaterThan(hits.get(1).similarityScore());
+    }
+
+    @Test
+    @DisplayName("should apply the search filter")
+    void shouldApplyFilter() {
+      assertThat(index.search("pool", 5, VectorSearchFilter.forShape("BM.Standard3.64")))
+          .extracting(SearchHit::id)
+          .containsExactly("pool");
+      VectorSearchFilter memory = VectorSearchFilter.none().withRunbookPaths(List.of("memory.md"));
+      assertThat(index.search("pool memory", 5, memory))
+          .extracting(SearchHit::id)
+          .containsExactly("oom");
+    }
+
+    @Test
+    @DisplayName("should return nothing when no query term is indexed")
+    void shouldReturnEmptyForUnknownTerms() {
+      assertThat(index.search("kubernetes", 5, VectorSearchFilter.none())).isEmpty();
+      assertThat(new LexicalIndex().search("pool", 5, VectorSearchFilter.none())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should reject a non-positive topK")
+    void shouldRejectInvalidTopK() {
+      assertThatThrownBy(() -> index.search("pool", 0, VectorSearchFilter.none()))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  @Nested
+  @DisplayName("generations")
+  class GenerationTests {
+
+    @Test
+    @DisplayName("should replace only the listed runbooks")
+    void shouldReplaceListedRunbooks() {
+      index.replaceRunbooks(
+          List.of("memory.md", "retired.md"),
+          List.of(
+              chunk("swap", "memory.md", "Swap", "Check swap usage with free -m.", List.of())));
+
+      assertThat(index.size()).isEqualTo(4);
+      assertThat(index.search("process restart", 5, VectorSearchFilter.none())).isEmpty();
+      assertThat(index.search("swap", 5, VectorSearchFilter.none()))
+          .extracting(SearchHit::id)
+          .containsExactly("swap");
+      assertThat(index.search("ORA-04031", 5, VectorSearchFilter.none()))
+          .extracting(SearchHit::id)
+          .containsExactly("ora");
+    }
+
+    @Test
+    @DisplayName("should reject chunks of runbooks that are not replaced")
+    void shouldRejectUnlistedRunbook() {
+      assertThatThrownBy(
+              () ->
+                  index.replaceRunbooks(
+                      List.of("memory.md"),
+                      List.of(chunk("x", "disk.md", "Disk", "text", List.of()))))
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("disk.md");
+      assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("load should replace the whole index")
+    void loadShouldReplaceEverything() {
+      index.load(List.of(chunk("cpu", "cpu.md", "CPU", "CPUUtilization above 90%", List.of())));
+
+      assertThat(index.size()).isEqualTo(1);
+      assertThat(index.search("CPUUtilization ORA-04031", 5, VectorSearchFilter.none()))
+          .extracting(SearchHit::id)
+          .containsExactly("cpu");
+    }
+  }
+
+  private static RunbookChunk chunk(
+      String id, String runbookPath, String sectionTitle, String content, List<String> shapes) {
+    return new RunbookChunk(
+        id, runbookPath, sectionTitle, content, List.of(), shapes, new float[] {1.0f});
+  }
+}
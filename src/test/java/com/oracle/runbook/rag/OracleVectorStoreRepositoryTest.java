@@ -4,13 +4,20 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
 import com.oracle.runbook.infrastructure.cloud.oci.OciVectorStoreRepository;
 import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.store.embedding.EmbeddingMatch;
 import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
 import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.filter.comparison.ContainsString;
+import dev.langchain4j.store.embedding.filter.comparison.IsIn;
+import dev.langchain4j.store.embedding.filter.logical.And;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -85,6 +92,128 @@ class OracleVectorStoreRepositoryTest {
     assertThat(results.get(0).similarityScore()).isEqualTo(0.95);
   }
 
+  @Test
+  @DisplayName("filtered search pushes runbook paths and tags down as a metadata filter")
+  void search_withFilter_pushesDownMetadataFilter() {
+    VectorSearchFilter filter =
+        VectorSearchFilter.none()
+            .withRunbookPaths(Set.of("runbooks/test.md"))
+            .withAnyTags(Set.of("memory"));
+
+    List<ScoredChunk> results = repository.search(new float[] {0.1f, 0.2f, 0.3f}, 5, filter);
+
+    assertThat(results).extracting(r -> r.chunk().id()).containsExactly("test-chunk-id");
+    EmbeddingSearchRequest request = stubEmbeddingStore.lastSearchRequest;
+    assertThat(request.filter()).isInstanceOf(And.class);
+    And and = (And) request.filter();
+    assertThat(and.left()).isInstanceOf(IsIn.class);
+    assertThat(and.right()).isInstanceOf(ContainsString.class);
+    assertThat(request.maxResults()).as("tags are re-checked exactly, so over-fetch").isEqualTo(20);
+  }
+
+  @Test
+  @DisplayName("filtered search applies shape criteria to the returned matches")
+  void search_withShapeFilter_postFiltersMatches() {
+    float[] query = new float[] {0.1f, 0.2f, 0.3f};
+
+    assertThat(repository.search(query, 5, VectorSearchFilter.forShape("VM.Standard2.1")))
+        .hasSize(1);
+    assertThat(stubEmbeddingStore.lastSearchRequest.filter()).isNull();
+    assertThat(repository.search(query, 5, VectorSearchFilter.forShape("BM.Standard3"))).isEmpty();
+  }
+
+  @Test
+  @DisplayName("filtered search widens until enough matches pass the shape criteria")
+  void search_withShapeFilter_widensUntilTopKMatch() {
+    Embedding embedding = Embedding.from(new float[] {0.1f, 0.2f, 0.3f});
+    List<EmbeddingMatch<TextSegment>> rows = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      TextSegment segment =
+          TextSegment.from(
+              "Content " + i,
+              dev.langchain4j.data.document.Metadata.from("id", "chunk-" + i)
+                  .put("runbookPath", "runbooks/test.md")
+                  .put("applicableShapes", i < 50 ? "BM.*" : "VM.*"));
+      rows.add(new EmbeddingMatch<>(1.0 - i / 100.0, "row-" + i, embedding, segment));
+    }
+    stubEmbeddingStore.rows = rows;
+
+    List<SearchHit> hits =
+        repository.searchHits(
+            new float[] {0.1f, 0.2f, 0.3f}, 5, VectorSearchFilter.forShape("VM.Standard2.1"));
+
+    assertThat(hits)
+        .extracting(SearchHit::id)
+        .containsExactly("chunk-50", "chunk-51", "chunk-52", "chunk-53", "chunk-54");
+    assertThat(stubEmbeddingStore.searchSizes).containsExactly(20, 80);
+    assertThat(
+            repository.search(
+                new float[] {0.1f, 0.2f, 0.3f}, 5, VectorSearchFilter.forShape("GPU.A10")))
+        .isEmpty();
+    assertThat(stubEmbeddingStore.searchSizes).containsExactly(20, 80, 20, 80, 320);
+  }
+
+  @Test
+  @DisplayName("searchHits converts matches to hits from their metadata")
+  void searchHits_convertsMatchesFromMetadata() {
+    List<SearchHit> hits =
+        repository.searchHits(new float[] {0.1f, 0.2f, 0.3f}, 5, VectorSearchFilter.none());
+
+    assertThat(hits).hasSize(1);
+    SearchHit hit = hits.get(0);
+    assertThat(hit.id()).isEqualTo("test-chunk-id");
+    assertThat(hit.runbookPath()).isEqualTo("runbooks/test.md");
+    assertThat(hit.sectionTitle()).isEqualTo("Test Section");
+    assertThat(hit.content()).isEqualTo("Test content");
+    assertThat(hit.tags()).containsExactly("memory");
+    assertThat(hit.applicableShapes()).containsExactly("VM.*");
+    assertThat(hit.similarityScore()).isEqualTo(0.95);
+  }
+
+  @Test
+  @DisplayName("searchHits applies shape criteria and reuses parsed metadata lists")
+  void searchHits_withShapeFilter_postFiltersAndReusesParsedLists() {
+    float[] query = new float[] {0.1f, 0.2f, 0.3f};
+
+    List<SearchHit> first = repository.searchHits(query, 5, VectorSearchFilter.none());
+    List<SearchHit> second =
+        repository.searchHits(query, 5, VectorSearchFilter.forShape("VM.Standard2.1"));
+
+    assertThat(second).hasSize(1);
+    assertThat(second.get(0).tags()).isSameAs(first.get(0).tags());
+    assertThat(repository.searchHits(query, 5, VectorSearchFilter.forShape("BM.Standard3")))
+        .isEmpty();
+  }
+
+  @Test
+  @DisplayName("searchHitsBatch returns one hit list per query")
+  void searchHitsBatch_returnsHitsPerQuery() {
+    List<float[]> queries = List.of(new float[] {0.1f, 0.2f, 0.3f}, new float[] {1});
+
+    List<List<SearchHit>> hits = repository.searchHitsBatch(queries, 5, VectorSearchFilter.none());
+
+    assertThat(hits).hasSize(2).allSatisfy(result -> assertThat(result).hasSize(1));
+  }
+
+  @Test
+  @DisplayName("searchBatch returns one result list per query")
+  void searchBatch_returnsResultsPerQuery() {
+    List<float[]> queries =
+        List.of(new float[] {0.1f, 0.2f, 0.3f}, new float[] {0.3f, 0.2f, 0.1f}, new float[] {1});
+
+    List<List<ScoredChunk>> results = repository.searchBatch(queries, 5);
+
+    assertThat(results).hasSize(3).allSatisfy(result -> assertThat(result).hasSize(1));
+  }
+
+  @Test
+  @DisplayName("searchBatch rejects a non-positive topK before searching")
+  void searchBatch_withInvalidTopK_throws() {
+    assertThatThrownBy(() -> repository.searchBatch(List.of(new float[] {1}, new float[] {1}), 0))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(stubEmbeddingStore.lastSearchRequest).isNull();
+  }
+
   @Test
   @DisplayName("delete removes chunks by runbook path")
   void delete_removesChunksByRunbookPath() {
@@ -124,6 +253,9 @@ class OracleVectorStoreRepositoryTest {
     Embedding lastStoredEmbedding;
     int batchAddedCount = 0;
     String lastDeletedRunbookPath;
+    EmbeddingSearchRequest lastSearchRequest;
+    List<EmbeddingMatch<TextSegment>> rows;
+    final List<Integer> searchSizes = new ArrayList<>();
 
     @Override
     public String add(Embedding embedding) {
@@ -180,6 +312,12 @@ class OracleVectorStoreRepositoryTest {
     @Override
     public EmbeddingSearchResult<TextSegment> search(
         dev.langchain4j.store.embedding.EmbeddingSearchRequest request) {
+      lastSearchRequest = request;
+      searchSizes.add(request.maxResults());
+      if (rows != null) {
+        return new EmbeddingSearchResult<>(
+            rows.subList(0, Math.min(rows.size(), request.maxResults())));
+      }
       // Return a mock result for search tests
       TextSegment segment =
           TextSegment.from(
@@ -0,0 +1,149 @@
+package com.oracle.runbook.rag;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link QueryEmbeddingCache}. */
+class QueryEmbeddingCacheTest {
+
+  private final AtomicLong now = new AtomicLong();
+  private final AtomicInteger loads = new AtomicInteger();
+  private QueryEmbeddingCache cache;
+
+  @BeforeEach
+  void setUp() {
+    cache = new QueryEmbeddingCache(2, Duration.ofSeconds(10), now::get);
+  }
+
+  @Nested
+  @DisplayName("lookup")
+  class LookupTests {
+
+    @Test
+    @DisplayName("should load a text once and serve copies afterwards")
+    void shouldServeCachedCopies() {
+      float[] first = cache.get("model", "High CPU", QueryEmbeddingCacheTest.this::load).join();
+      first[0] = 42.0f;
+      float[] second = cache.get("model", "High CPU", QueryEmbeddingCacheTest.this::load).join();
+
+      assertThat(second).containsExactly(1.0f, 8.0f);
+      assertThat(loads.get()).isEqualTo(1);
+      assertThat(cache.stats().hits()).isEqualTo(1);
+      assertThat(cache.stats().misses()).isEqualTo(1);
+      assertThat(cache.stats().hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    @DisplayName("should key entries by model as well as text")
+    void shouldSeparateModels() {
+      cache.get("model-a", "High CPU", QueryEmbeddingCacheTest.this::load).join();
+      cache.get("model-b", "High CPU", QueryEmbeddingCacheTest.this::load).join();
+
+      assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should share one pending load between concurrent requests")
+    void shouldSingleFlightConcurrentMisses() {
+      CompletableFuture<float[]> pending = new CompletableFuture<>();
+      AtomicInteger calls = new AtomicInteger();
+
+      CompletableFuture<float[]> first =
+          cache.get(
+              "model",
+              "High CPU",
+              text -> {
+                calls.incrementAndGet();
+                return pending;
+              });
+      CompletableFuture<float[]> second =
+          cache.get(
+              "model",
+              "High CPU",
+              text -> {
+                calls.incrementAndGet();
+                return pending;
+              });
+      assertThat(first).isNotDone();
+      pending.complete(new float[] {0.5f});
+
+      assertThat(first.join()).containsExactly(0.5f);
+      assertThat(second.join()).containsExactly(0.5f);
+      assertThat(calls.get()).isEqualTo(1);
+    }
+  }
+
+  @Nested
+  @DisplayName("expiry and eviction")
+  class ExpiryTests {
+
+    @Test
+    @DisplayName("should reload an entry once its time to live has passed")
+    void shouldExpireEntries() {
+      cache.get("model", "High CPU", QueryEmbeddingCacheTest.this::load).join();
+      now.addAndGet(Duration.ofSeconds(9).toNanos());
+      cache.get("model", "High CPU", QueryEmbeddingCacheTest.this::load).join();
+      now.addAndGet(Duration.ofSeconds(1).toNanos());
+      cache.get("model", "High CPU", QueryEmbeddingCacheTest.this::load).join();
+
+      assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should evict the least recently used entry beyond the bound")
+    void shouldEvictLeastRecentlyUsed() {
+      cache.get("model", "a", QueryEmbeddingCacheTest.this::load).join();
+      cache.get("model", "b", QueryEmbeddingCacheTest.this::load).join();
+      cache.get("model", "a", QueryEmbeddingCacheTest.this::load).join();
+      cache.get("model", "c", QueryEmbeddingCacheTest.this::load).join();
+
+      assertThat(cache.stats().size()).isEqualTo(2);
+      assertThat(cache.stats().evictions()).isEqualTo(1);
+      cache.get("model", "a", QueryEmbeddingCacheTest.this::load).join();
+      assertThat(loads.get()).isEqualTo(3);
+      cache.get("model", "b", QueryEmbeddingCacheTest.this::load).join();
+      assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("should drop a failed load so the next request retries")
+    void shouldRetryFailedLoads() {
+      CompletableFuture<float[]> failed =
+          cache.get(
+              "model",
+              "High CPU",
+              text -> CompletableFuture.failedFuture(new IllegalStateException("provider down")));
+
+      assertThatThrownBy(failed::join)
+          .isInstanceOf(CompletionException.class)
+          .hasRootCauseMessage("provider down");
+      assertThat(cache.stats().size()).isZero();
+      assertThat(cache.get("model", "High CPU", QueryEmbeddingCacheTest.this::load).join())
+          .containsExactly(1.0f, 8.0f);
+    }
+  }
+
+  @Test
+  @DisplayName("constructor should reject non-positive bounds")
+  void shouldRejectInvalidBounds() {
+    assertThatThrownBy(() -> new QueryEmbeddingCache(0, Duration.ofSeconds(1)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new QueryEmbeddingCache(1, Duration.ZERO))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private CompletableFuture<float[]> load(String text) {
+    loads.incrementAndGet();
+    return CompletableFuture.completedFuture(new float[] {1.0f, text.length()});
+  }
+}
@@ -312,6 +312,53 @@ class RunbookChunkerTest {
     }
   }
 
+  @Nested
+  @DisplayName("Runbook Title")
+  class TitleTests {
+
+    @Test
+    @DisplayName("should prefer the frontmatter title")
+    void shouldPreferFrontmatterTitle() {
+      String content =
+          """
+          ---
+          title: Memory Troubleshooting Guide
+          ---
+
+          # Memory Guide
+
+          ## Section One
+
+          Content here.
+          """;
+
+      assertThat(chunker.title(content, "runbooks/memory.md"))
+          .isEqualTo("Memory Troubleshooting Guide");
+    }
+
+    @Test
+    @DisplayName("should fall back to the first top-level heading")
+    void shouldFallBackToTopLevelHeading() {
+      String content =
+          """
+          ## Not a title
+
+          # Memory Guide
+
+          Content here.
+          """;
+
+      assertThat(chunker.title(content, "runbooks/memory.md")).isEqualTo("Memory Guide");
+    }
+
+    @Test
+    @DisplayName("should fall back to the file name without extension")
+    void shouldFallBackToFileName() {
+      assertThat(chunker.title("## Section\n\nContent here.", "runbooks/high-memory.md"))
+          .isEqualTo("high-memory");
+    }
+  }
+
   @Nested
   @DisplayName("Edge Cases")
   class EdgeCaseTests {
@@ -4,21 +4,29 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.oracle.runbook.domain.RunbookChunk;
 import com.oracle.runbook.infrastructure.cloud.CloudStorageAdapter;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
 import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -156,7 +164,8 @@ class RunbookIngestionServiceTest {
 
       service.ingest("bucket", "path.md").join();
 
-      verify(vectorStore).storeBatch(anyList());
+      verify(vectorStore)
+          .replaceRunbooks(eq(List.of("path.md")), argThat(chunks -> chunks.size() == 1));
     }
 
     @Test
@@ -180,8 +189,8 @@ class RunbookIngestionServiceTest {
     }
 
     @Test
-    @DisplayName("should delete existing chunks before re-ingesting")
-    void shouldDeleteExistingChunksBeforeReingesting() {
+    @DisplayName("should swap in the new chunks instead of deleting the old ones first")
+    void shouldReplaceExistingChunksWhenReingesting() {
       String runbookPath = "runbooks/memory.md";
       String content =
           """
@@ -197,7 +206,30 @@ class RunbookIngestionServiceTest {
 
       service.ingest("bucket", runbookPath).join();
 
-      verify(vectorStore).delete(runbookPath);
+      verify(vectorStore).replaceRunbooks(eq(List.of(runbookPath)), anyList());
+      verify(vectorStore, never()).delete(any());
+    }
+
+    @Test
+    @DisplayName("should leave existing chunks in place when embedding fails")
+    void shouldKeepExistingChunksWhenEmbeddingFails() {
+      String content =
+          """
+          ## Section
+
+          Content here is long enough to create a chunk for testing purposes.
+          """;
+
+      when(storageAdapter.getRunbookContent(any(), any()))
+          .thenReturn(CompletableFuture.completedFuture(Optional.of(content)));
+      when(embeddingService.embedBatch(anyList()))
+          .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("quota exceeded")));
+
+      assertThatThrownBy(() -> service.ingest("bucket", "runbooks/memory.md").join())
+          .isInstanceOf(CompletionException.class)
+          .hasMessageContaining("quota exceeded");
+      verify(vectorStore, never()).replaceRunbooks(anyList(), anyList());
+      verify(vectorStore, never()).delete(any());
     }
 
     @Test
@@ -209,6 +241,7 @@ class RunbookIngestionServiceTest {
       int chunkCount = service.ingest("bucket", "nonexistent.md").join();
 
       assertThat(chunkCount).isEqualTo(0);
+      verify(vectorStore).replaceRunbooks(List.of("nonexistent.md"), List.of());
       verify(vectorStore, never()).storeBatch(anyList());
     }
   }
@@ -247,6 +280,11 @@ class RunbookIngestionServiceTest {
       int totalChunks = service.ingestAll("test-bucket").join();
 
       assertThat(totalChunks).isEqualTo(2);
+      verify(vectorStore)
+          .replaceRunbooks(
+              eq(List.of("runbooks/memory.md", "runbooks/cpu.md")),
+              argThat(chunks -> chunks.size() == 2));
+      verify(vectorStore).optimize();
     }
 
     @Test
@@ -258,6 +296,302 @@ class RunbookIngestionServiceTest {
       int totalChunks = service.ingestAll("empty-bucket").join();
 
       assertThat(totalChunks).isEqualTo(0);
+      verify(vectorStore, never()).optimize();
+    }
+  }
+
+  @Nested
+  @DisplayName("deduplication")
+  class Deduplication {
+
+    private static final String SHARED_SECTION =
+        """
+        ## Check disk usage
+
+        Run df -h and find the filesystem above 90 percent, then clean up old logs in /var/log
+        and confirm that usage has dropped below the alert threshold.
+        """;
+
+    private RunbookIngestionService dedupService;
+
+    @BeforeEach
+    void setUp() {
+      dedupService =
+          new RunbookIngestionService(
+              storageAdapter, chunker, embeddingService, vectorStore, new ChunkDeduplicator());
+    }
+
+    @Test
+    @DisplayName("ingestAll should embed and store a section shared by runbooks once")
+    void ingestAllShouldCollapseAcrossRunbooks() {
+      when(storageAdapter.listRunbooks("bucket"))
+          .thenReturn(CompletableFuture.completedFuture(List.of("disk.md", "agent.md")));
+      when(storageAdapter.getRunbookContent("bucket", "disk.md"))
+          .thenReturn(CompletableFuture.completedFuture(Optional.of(SHARED_SECTION)));
+      when(storageAdapter.getRunbookContent("bucket", "agent.md"))
+          .thenReturn(CompletableFuture.completedFuture(Optional.of(SHARED_SECTION)));
+      when(embeddingService.embedBatch(anyList()))
+          .thenReturn(CompletableFuture.completedFuture(List.of(new float[] {1.0f})));
+
+      int totalChunks = dedupService.ingestAll("bucket").join();
+
+      assertThat(totalChunks).isEqualTo(1);
+      verify(embeddingService).embedBatch(argThat(texts -> texts.size() == 1));
+      verify(vectorStore)
+          .replaceRunbooks(
+              eq(List.of("disk.md", "agent.md")),
+              argThat(
+                  chunks ->
+                      chunks.size() == 1
+                          && chunks.get(0).runbookPath().equals("disk.md")
+                          && chunks
+                              .get(0)
+                              .sourceRunbookPaths()
+                              .equals(List.of("disk.md", "agent.md"))));
+      verify(vectorStore).optimize();
+    }
+
+    @Test
+    @DisplayName("ingest should keep a stored shared chunk the runbook still contains")
+    void ingestShouldKeepSharedChunk() {
+      String content = chunker.chunk(SHARED_SECTION, "agent.md").get(0).content();
+      RunbookChunk shared =
+          new RunbookChunk(
+              "shared-1",
+              "disk.md",
+              "Check disk usage",
+              content,
+              List.of("disk"),
+              List.of(),
+              new float[] {2.0f},
+              List.of("disk.md", "agent.md"));
+      when(vectorStore.runbookChunks("agent.md")).thenReturn(List.of(shared));
+      when(storageAdapter.getRunbookContent("bucket", "agent.md"))
+          .thenReturn(CompletableFuture.completedFuture(Optional.of(SHARED_SECTION)));
+      when(storageAdapter.getRunbookContent("bucket", "disk.md"))
+          .thenReturn(CompletableFuture.completedFuture(Optional.of(SHARED_SECTION)));
+
+      int chunkCount = dedupService.ingest("bucket", "agent.md").join();
+
+      assertThat(chunkCount).isEqualTo(1);
+      verify(embeddingService, never()).embedBatch(anyList());
+      verify(vectorStore)
+          .replaceRunbooks(
+              eq(List.of("agent.md")),
+              argThat(
+                  chunks ->
+                      chunks.size() == 1
+                          && chunks.get(0).id().equals("shared-1")
+                          && chunks
+                              .get(0)
+                              .sourceRunbookPaths()
+                              .equals(List.of("disk.md", "agent.md"))));
+    }
+
+    @Test
+    @DisplayName("ingest should recompute a kept chunk's tags and shapes from its sources")
+    void ingestShouldRecomputeKeptChunkMetadata() {
+      String content = chunker.chunk(SHARED_SECTION, "agent.md").get(0).content();
+      RunbookChunk shared =
+          new RunbookChunk(
+              "shared-1",
+              "disk.md",
+              "Check disk usage",
+              content,
+              List.of("disk", "stale"),
+              List.of("VM.*", "E4.*"),
+              new float[] {2.0f},
+              List.of("disk.md", "agent.md"));
+      when(vectorStore.runbookChunks("agent.md")).thenReturn(List.of(shared));
+      when(storageAdapter.getRunbookContent("bucket", "agent.md"))
+          .thenReturn(
+              CompletableFuture.completedFuture(
+                  Optional.of(frontmatter("agent", "BM.*") + SHARED_SECTION)));
+      when(storageAdapter.getRunbookContent("bucket", "disk.md"))
+          .thenReturn(
+              CompletableFuture.completedFuture(
+                  Optional.of(frontmatter("disk", "VM.*") + SHARED_SECTION)));
+
+      dedupService.ingest("bucket", "agent.md").join();
+
+      verify(vectorStore)
+          .replaceRunbooks(
+              eq(List.of("agent.md")),
+              argThat(
+                  chunks ->
+                      chunks.size() == 1
+                          && chunks.get(0).id().equals("shared-1")
+                          && chunks.get(0).tags().equals(List.of("disk", "agent"))
+                          && chunks.get(0).applicableShapes().equals(List.of("VM.*", "BM.*"))));
+    }
+
+    @Test
+    @DisplayName("should embed a large container in calls of bounded size")
+    void shouldEmbedInBoundedBatches() {
+      int runbooks = RunbookIngestionService.EMBEDDING_BATCH_SIZE + 1;
+      List<String> paths = IntStream.range(0, runbooks).mapToObj(i -> "r" + i + ".md").toList();
+      when(storageAdapter.listRunbooks("bucket"))
+          .thenReturn(CompletableFuture.completedFuture(paths));
+      for (int i = 0; i < runbooks; i++) {
+        String section =
+            "## Step " + i + "\n\nRestart alpha" + i + " on beta" + i + " then check gamma" + i;
+        when(storageAdapter.getRunbookContent("bucket", "r" + i + ".md"))
+            .thenReturn(CompletableFuture.completedFuture(Optional.of(section)));
+      }
+      when(embeddingService.embedBatch(anyList()))
+          .thenAnswer(
+              invocation -> {
+                List<String> texts = invocation.getArgument(0);
+                return CompletableFuture.completedFuture(
+                    texts.stream().map(text -> new float[] {1.0f}).toList());
+              });
+
+      int totalChunks = dedupService.ingestAll("bucket").join();
+
+      assertThat(totalChunks).isEqualTo(runbooks);
+      verify(embeddingService)
+          .embedBatch(
+              argThat(texts -> texts.size() == RunbookIngestionService.EMBEDDING_BATCH_SIZE));
+      verify(embeddingService).embedBatch(argThat(texts -> texts.size() == 1));
+    }
+
+    @Test
+    @DisplayName("ingest should collapse repeated sections within the runbook")
+    void ingestShouldCollapseWithinRunbook() {
+      when(storageAdapter.getRunbookContent("bucket", "disk.md"))
+          .thenReturn(
+              CompletableFuture.completedFuture(
+                  Optional.of(SHARED_SECTION + "\n" + SHARED_SECTION.replace("Check", "Recheck"))));
+      when(embeddingService.embedBatch(anyList()))
+          .thenReturn(CompletableFuture.completedFuture(List.of(new float[] {1.0f})));
+
+      int chunkCount = dedupService.ingest("bucket", "disk.md").join();
+
+      assertThat(chunkCount).isEqualTo(1);
+      verify(embeddingService).embedBatch(argThat(texts -> texts.size() == 1));
+    }
+  }
+
+  @Nested
+  @DisplayName("title embeddings")
+  class TitleEmbeddings {
+
+    private static final String MEMORY_RUNBOOK =
+        """
+        ---
+        title: Memory Guide
+        ---
+
+        ## Section
+
+        Content here is long enough to create a chunk for testing purposes.
+        """;
+
+    private RunbookIngestionService titleService;
+
+    @BeforeEach
+    void setUp() {
+      titleService =
+          new RunbookIngestionService(
+              storageAdapter, chunker, embeddingService, vectorStore, null, true);
+    }
+
+    @Test
+    @DisplayName("ingest should embed the title with the chunks and store it after the swap")
+    void ingestShouldStoreTitleAfterSwap() {
+      when(storageAdapter.getRunbookContent("bucket", "memory.md"))
+          .thenReturn(CompletableFuture.completedFuture(Optional.of(MEMORY_RUNBOOK)));
+      when(embeddingService.embedBatch(anyList()))
+          .thenReturn(
+              CompletableFuture.completedFuture(
+                  List.of(new float[] {1.0f, 0.0f}, new float[] {0.0f, 1.0f})));
+
+      int chunkCount = titleService.ingest("bucket", "memory.md").join();
+
+      assertThat(chunkCount).isEqualTo(1);
+      verify(embeddingService)
+          .embedBatch(argThat(texts -> texts.size() == 2 && texts.get(1).equals("Memory Guide")));
+      InOrder order = inOrder(vectorStore);
+      order
+          .verify(vectorStore)
+          .replaceRunbooks(eq(List.of("memory.md")), argThat(chunks -> chunks.size() == 1));
+      order
+          .verify(vectorStore)
+          .storeRunbookTitles(
+              argThat(
+                  titles ->
+                      titles.keySet().equals(Set.of("memory.md"))
+                          && titles.get("memory.md")[1] == 1.0f));
+    }
+
+    @Test
+    @DisplayName("ingestAll should store titles only for runbooks that have chunks")
+    void ingestAllShouldSkipTitlesOfMissingRunbooks() {
+      when(storageAdapter.listRunbooks("bucket"))
+          .thenReturn(CompletableFuture.completedFuture(List.of("memory.md", "gone.md")));
+      when(storageAdapter.getRunbookContent("bucket", "memory.md"))
+          .thenReturn(CompletableFuture.completedFuture(Optional.of(MEMORY_RUNBOOK)));
+      when(storageAdapter.getRunbookContent("bucket", "gone.md"))
+          .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+      when(embeddingService.embedBatch(anyList()))
+          .thenReturn(
+              CompletableFuture.completedFuture(
+                  List.of(new float[] {1.0f, 0.0f}, new float[] {0.0f, 1.0f})));
+
+      titleService.ingestAll("bucket").join();
+
+      verify(vectorStore)
+          .storeRunbookTitles(argThat(titles -> titles.keySet().equals(Set.of("memory.md"))));
+    }
+
+    @Test
+    @DisplayName("should not embed or store titles by default")
+    void shouldNotStoreTitlesByDefault() {
+      when(storageAdapter.getRunbookContent("bucket", "memory.md"))
+          .thenReturn(CompletableFuture.completedFuture(Optional.of(MEMORY_RUNBOOK)));
+      when(embeddingService.embedBatch(anyList()))
+          .thenReturn(CompletableFuture.completedFuture(List.of(new float[] {1.0f, 0.0f})));
+
+      service.ingest("bucket", "memory.md").join();
+
+      verify(embeddingService).embedBatch(argThat(texts -> texts.size() == 1));
+      verify(vectorStore, never()).storeRunbookTitles(any());
+    }
+  }
+
+  @Nested
+  @DisplayName("lexical index")
+  class LexicalIndexTests {
+
+    @Test
+    @DisplayName("should swap the generation into the lexical index after the vector store")
+    void ingestShouldReplaceLexicalIndex() {
+      LexicalIndex lexicalIndex = new LexicalIndex();
+      lexicalIndex.load(
+          List.of(
+              new RunbookChunk(
+                  "old", "memory.md", "Old", "stale swap advice", null, null, new float[] {1f})));
+      RunbookIngestionService hybridService =
+          new RunbookIngestionService(
+              storageAdapter, chunker, embeddingService, vectorStore, null, false, lexicalIndex);
+      when(storageAdapter.getRunbookContent("bucket", "memory.md"))
+          .thenReturn(
+              CompletableFuture.completedFuture(
+                  Optional.of(
+                      """
+                      ## OOM
+
+                      Look for ORA-04031 and OOM killer entries in the system journal.
+                      """)));
+      when(embeddingService.embedBatch(anyList()))
+          .thenReturn(CompletableFuture.completedFuture(List.of(new float[] {1.0f, 0.0f})));
+
+      hybridService.ingest("bucket", "memory.md").join();
+
+      verify(vectorStore).replaceRunbooks(eq(List.of("memory.md")), anyList());
+      assertThat(lexicalIndex.size()).isEqualTo(1);
+      assertThat(lexicalIndex.search("ORA-04031", 1, VectorSearchFilter.none())).hasSize(1);
+      assertThat(lexicalIndex.search("stale", 1, VectorSearchFilter.none())).isEmpty();
     }
   }
 
@@ -302,4 +636,12 @@ class RunbookIngestionServiceTest {
           .hasMessageContaining("vectorStore");
     }
   }
+
+  private static String frontmatter(String tag, String shape) {
+    return "---\ntitle: Runbook\ntags:\n  - "
+        + tag
+        + "\napplicable_shapes:\n  - "
+        + shape
+        + "\n---\n\n";
+  }
 }
@@ -0,0 +1,189 @@
+package com.oracle.runbook.rag;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
+import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link SearchBatcher}. */
+class SearchBatcherTest {
+
+  @Nested
+  @DisplayName("constructor")
+  class ConstructorTests {
+
+    @Test
+    @DisplayName("should reject a non-positive window")
+    void shouldRejectNonPositiveWindow() {
+      assertThatThrownBy(() -> new SearchBatcher(new RecordingStore(), Duration.ZERO, 4))
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("window");
+    }
+
+    @Test
+    @DisplayName("should reject a batch size below 1")
+    void shouldRejectBatchSizeBelowOne() {
+      assertThatThrownBy(() -> new SearchBatcher(new RecordingStore(), Duration.ofMillis(1), 0))
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("maxBatchSize");
+    }
+  }
+
+  @Nested
+  @DisplayName("search()")
+  class SearchTests {
+
+    @Test
+    @DisplayName("should run a lone search at once instead of waiting for the window")
+    void shouldRunLoneSearch() {
+      RecordingStore store = new RecordingStore();
+      SearchBatcher batcher = new SearchBatcher(store, Duration.ofSeconds(30), 8);
+      long start = System.nanoTime();
+
+      List<SearchHit> results = batcher.search(new float[] {1.0f}, 2, VectorSearchFilter.none());
+
+      assertThat(results).hasSize(2);
+      assertThat(store.batchSizes).containsExactly(1);
+      assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+    }
+
+    @Test
+    @DisplayName("should batch searches made while the store is busy and trim each to its topK")
+    void shouldCombineConcurrentSearches() throws Exception {
+      RecordingStore store = new RecordingStore();
+      store.entered = new CountDownLatch(1);
+      store.release = new CountDownLatch(1);
+      SearchBatcher batcher = new SearchBatcher(store, Duration.ofSeconds(10), 4);
+      ExecutorService executor = Executors.newFixedThreadPool(5);
+      try {
+        // Keeps the store busy, so the next searches batch up behind it
+        Future<List<SearchHit>> busy =
+            executor.submit(() -> batcher.search(new float[] {9}, 1, VectorSearchFilter.none()));
+        store.entered.await();
+        List<Future<List<SearchHit>>> futures = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+          int topK = i;
+          futures.add(
+              executor.submit(
+                  () -> batcher.search(new float[] {topK}, topK, VectorSearchFilter.none())));
+        }
+
+        for (int i = 0; i < 4; i++) {
+          assertThat(futures.get(i).get()).hasSize(i + 1);
+        }
+        store.release.countDown();
+        assertThat(busy.get()).hasSize(1);
+        assertThat(store.batchSizes).as("a full batch runs without waiting").containsExactly(1, 4);
+        assertThat(store.topKs).containsExactly(1, 4);
+      } finally {
+        store.release.countDown();
+        executor.shutdownNow();
+      }
+    }
+
+    @Test
+    @DisplayName("should not batch searches with different filters together")
+    void shouldSeparateFilters() throws Exception {
+      RecordingStore store = new RecordingStore();
+      SearchBatcher batcher = new SearchBatcher(store, Duration.ofMillis(50), 8);
+      ExecutorService executor = Executors.newFixedThreadPool(2);
+      try {
+        Future<List<SearchHit>> vm =
+            executor.submit(
+                () -> batcher.search(new float[] {1.0f}, 1, VectorSearchFilter.forShape("VM.1")));
+        Future<List<SearchHit>> bm =
+            executor.submit(
+                () -> batcher.search(new float[] {1.0f}, 1, VectorSearchFilter.forShape("BM.1")));
+        vm.get();
+        bm.get();
+
+        assertThat(store.filters)
+            .extracting(VectorSearchFilter::shape)
+            .containsExactlyInAnyOrder("VM.1", "BM.1");
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+
+    @Test
+    @DisplayName("should rethrow a store failure to every search of the batch")
+    void shouldPropagateFailures() {
+      RecordingStore store = new RecordingStore();
+      store.failure = new IllegalStateException("store down");
+      SearchBatcher batcher = new SearchBatcher(store, Duration.ofMillis(1), 8);
+
+      assertThatThrownBy(() -> batcher.search(new float[] {1.0f}, 1, VectorSearchFilter.none()))
+          .isInstanceOf(IllegalStateException.class)
+          .hasMessage("store down");
+    }
+  }
+
+  /** Store stub that records every batch and returns {@code topK} chunks per query. */
+  private static class RecordingStore implements VectorStoreRepository {
+    final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    final List<Integer> topKs = new CopyOnWriteArrayList<>();
+    final List<VectorSearchFilter> filters = new CopyOnWriteArrayList<>();
+    RuntimeException failure;
+    // When set, the first batch counts down entered and then waits for release
+    CountDownLatch entered;
+    CountDownLatch release;
+
+    @Override
+    public String providerType() {
+      return "test";
+    }
+
+    @Override
+    public void store(RunbookChunk chunk) {}
+
+    @Override
+    public void storeBatch(List<RunbookChunk> chunks) {}
+
+    @Override
+    public void delete(String runbookPath) {}
+
+    @Override
+    public List<ScoredChunk> search(float[] queryEmbedding, int topK) {
+      List<ScoredChunk> results = new ArrayList<>();
+      for (int i = 0; i < topK; i++) {
+        RunbookChunk chunk =
+            new RunbookChunk("c" + i, "path", "Title", "content", List.of(), List.of(), null);
+        results.add(new ScoredChunk(chunk, 1.0 - i * 0.1));
+      }
+      return results;
+    }
+
+    @Override
+    public List<List<ScoredChunk>> searchBatch(
+        List<float[]> queryEmbeddings, int topK, VectorSearchFilter filter) {
+      if (failure != null) {
+        throw failure;
+      }
+      batchSizes.add(queryEmbeddings.size());
+      topKs.add(topK);
+      filters.add(filter);
+      if (entered != null && entered.getCount() > 0) {
+        entered.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return queryEmbeddings.stream().map(query -> search(query, topK)).toList();
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.oracle.runbook.rag;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.oracle.runbook.domain.RunbookChunk;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link SearchHit}. */
+class SearchHitTest {
+
+  @Nested
+  @DisplayName("Constructor validation")
+  class ConstructorValidationTests {
+
+    @Test
+    @DisplayName("Constructor rejects null id and content")
+    void constructorRejectsNullIdAndContent() {
+      assertThatThrownBy(() -> new SearchHit(null, "path", "Title", "text", null, null, 0.5))
+          .isInstanceOf(NullPointerException.class)
+          .hasMessageContaining("id");
+      assertThatThrownBy(() -> new SearchHit("id", "path", "Title", null, null, null, 0.5))
+          .isInstanceOf(NullPointerException.class)
+          .hasMessageContaining("content");
+    }
+
+    @Test
+    @DisplayName("Constructor replaces null lists with empty lists")
+    void constructorReplacesNullLists() {
+      SearchHit hit = new SearchHit("id", "path", "Title", "text", null, null, 0.5);
+
+      assertThat(hit.tags()).isEmpty();
+      assertThat(hit.applicableShapes()).isEmpty();
+    }
+  }
+
+  @Nested
+  @DisplayName("Conversions")
+  class ConversionTests {
+
+    @Test
+    @DisplayName("of() copies text and metadata and leaves the embedding behind")
+    void ofCopiesMetadata() {
+      RunbookChunk chunk = createTestChunk();
+
+      SearchHit hit = SearchHit.of(new ScoredChunk(chunk, 0.75));
+
+      assertThat(hit.id()).isEqualTo("chunk-001");
+      assertThat(hit.runbookPath()).isEqualTo("runbooks/memory/high-memory.md");
+      assertThat(hit.sectionTitle()).isEqualTo("Step 1: Check memory");
+      assertThat(hit.content()).isEqualTo("Run free -h to check memory");
+      assertThat(hit.tags()).containsExactly("memory");
+      assertThat(hit.applicableShapes()).containsExactly("VM.*");
+      assertThat(hit.similarityScore()).isEqualTo(0.75);
+    }
+
+    @Test
+    @DisplayName("toChunk() returns the chunk with an empty embedding")
+    void toChunkReturnsChunkWithoutEmbedding() {
+      RunbookChunk chunk = SearchHit.of(createTestChunk(), 0.75).toChunk();
+
+      assertThat(chunk.id()).isEqualTo("chunk-001");
+      assertThat(chunk.content()).isEqualTo("Run free -h to check memory");
+      assertThat(chunk.tags()).containsExactly("memory");
+      assertThat(chunk.applicableShapes()).containsExactly("VM.*");
+      assertThat(chunk.embedding()).isEmpty();
+    }
+  }
+
+  private RunbookChunk createTestChunk() {
+    return new RunbookChunk(
+        "chunk-001",
+        "runbooks/memory/high-memory.md",
+        "Step 1: Check memory",
+        "Run free -h to check memory",
+        List.of("memory"),
+        List.of("VM.*"),
+        new float[] {0.1f, 0.2f, 0.3f});
+  }
+}
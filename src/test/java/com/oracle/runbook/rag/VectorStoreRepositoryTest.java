@@ -2,10 +2,13 @@ package com.oracle.runbook.rag;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.oracle.runbook.domain.RunbookChunk;
+import com.oracle.runbook.infrastructure.cloud.VectorSearchFilter;
 import com.oracle.runbook.infrastructure.cloud.VectorStoreRepository;
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
@@ -61,6 +64,74 @@ class VectorStoreRepositoryTest {
     assertThatCode(() -> repository.delete(runbookPath)).doesNotThrowAnyException();
   }
 
+  @Test
+  @DisplayName("filtered search defaults to discarding non-matching results")
+  void search_withFilter_defaultsToPostFiltering() {
+    VectorStoreRepository repository = new TestVectorStoreRepository();
+    float[] queryEmbedding = new float[768];
+
+    assertThat(repository.search(queryEmbedding, 5, VectorSearchFilter.forShape("VM.Standard2.1")))
+        .hasSize(2);
+    assertThat(repository.search(queryEmbedding, 5, VectorSearchFilter.forShape("BM.Standard3")))
+        .isEmpty();
+    assertThat(repository.search(queryEmbedding, 1, VectorSearchFilter.none())).hasSize(2);
+  }
+
+  @Test
+  @DisplayName("searchBatch defaults to one search per query")
+  void searchBatch_defaultsToSequentialSearches() {
+    VectorStoreRepository repository = new TestVectorStoreRepository();
+
+    List<List<ScoredChunk>> results =
+        repository.searchBatch(List.of(new float[768], new float[768]), 5);
+
+    assertThat(results).hasSize(2).allSatisfy(result -> assertThat(result).hasSize(2));
+  }
+
+  @Test
+  @DisplayName("searchHits defaults to stripping the full search results")
+  void searchHits_defaultsToStrippedSearchResults() {
+    VectorStoreRepository repository = new TestVectorStoreRepository();
+
+    List<SearchHit> hits =
+        repository.searchHits(new float[768], 5, VectorSearchFilter.forShape("VM.Standard2.1"));
+    List<List<SearchHit>> batch =
+        repository.searchHitsBatch(List.of(new float[768]), 5, VectorSearchFilter.none());
+
+    assertThat(hits).extracting(SearchHit::id).containsExactly("chunk-001", "chunk-002");
+    assertThat(hits).extracting(SearchHit::similarityScore).containsExactly(0.9, 0.8);
+    assertThat(batch).singleElement().satisfies(result -> assertThat(result).hasSize(2));
+  }
+
+  @Test
+  @DisplayName("searchRunbooks defaults to ranking runbooks by their best chunk")
+  void searchRunbooks_defaultsToDistinctRunbooksOfHits() {
+    VectorStoreRepository repository = new TestVectorStoreRepository();
+
+    assertThat(repository.searchRunbooks(new float[768], 3, VectorSearchFilter.none()))
+        .containsExactly("runbooks/memory/high-memory.md");
+    assertThatCode(() -> repository.storeRunbookTitles(Map.of("a.md", new float[768])))
+        .doesNotThrowAnyException();
+  }
+
+  @Test
+  @DisplayName("optimize defaults to a no-op")
+  void optimize_defaultsToNoOp() {
+    VectorStoreRepository repository = new TestVectorStoreRepository();
+
+    assertThatCode(repository::optimize).doesNotThrowAnyException();
+  }
+
+  @Test
+  @DisplayName("exportChunks defaults to unsupported")
+  void exportChunks_defaultsToUnsupported() {
+    VectorStoreRepository repository = new TestVectorStoreRepository();
+
+    assertThatThrownBy(repository::exportChunks)
+        .isInstanceOf(UnsupportedOperationException.class)
+        .hasMessageContaining(repository.providerType());
+  }
+
   private RunbookChunk createTestChunk(String id) {
     return new RunbookChunk(
         id,